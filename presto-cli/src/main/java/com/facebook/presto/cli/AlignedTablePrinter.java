@@ -73,11 +73,20 @@ public class AlignedTablePrinter
         for (int i = 0; i < columns; i++) {
             maxWidth[i] = max(1, consoleWidth(fieldNames.get(i)));
         }
+        // the rows may decode their values on access, so read every value only once
+        List<String[]> formattedRows = new ArrayList<>(rows.size());
+        List<boolean[]> numericRows = new ArrayList<>(rows.size());
         for (List<?> row : rows) {
+            String[] formatted = new String[row.size()];
+            boolean[] numeric = new boolean[row.size()];
             for (int i = 0; i < row.size(); i++) {
-                String s = formatValue(row.get(i));
-                maxWidth[i] = max(maxWidth[i], maxLineLength(s));
+                Object value = row.get(i);
+                formatted[i] = formatValue(value);
+                numeric[i] = value instanceof Number;
+                maxWidth[i] = max(maxWidth[i], maxLineLength(formatted[i]));
             }
+            formattedRows.add(formatted);
+            numericRows.add(numeric);
         }
 
         if (!headerOutput) {
@@ -101,11 +110,12 @@ public class AlignedTablePrinter
             writer.append('\n');
         }
 
-        for (List<?> row : rows) {
+        for (int row = 0; row < rows.size(); row++) {
+            String[] formatted = formattedRows.get(row);
             List<List<String>> columnLines = new ArrayList<>(columns);
             int maxLines = 1;
             for (int i = 0; i < columns; i++) {
-                String s = formatValue(row.get(i));
+                String s = formatted[i];
                 ImmutableList<String> lines = ImmutableList.copyOf(LINE_SPLITTER.split(s));
                 columnLines.add(lines);
                 maxLines = max(maxLines, lines.size());
@@ -118,8 +128,7 @@ public class AlignedTablePrinter
                     }
                     List<String> lines = columnLines.get(column);
                     String s = (line < lines.size()) ? lines.get(line) : "";
-                    boolean numeric = row.get(column) instanceof Number;
-                    String out = align(s, maxWidth[column], 1, numeric);
+                    String out = align(s, maxWidth[column], 1, numericRows.get(row)[column]);
                     if ((!complete || (rowCount > 1)) && ((line + 1) < lines.size())) {
                         out = out.substring(0, out.length() - 1) + "+";
                     }
@@ -38,6 +38,8 @@ public final class PrestoHeaders
     public static final String PRESTO_PAGE_TOKEN = "X-Presto-Page-Sequence-Id";
     public static final String PRESTO_PAGE_NEXT_TOKEN = "X-Presto-Page-End-Sequence-Id";
     public static final String PRESTO_BUFFER_COMPLETE = "X-Presto-Buffer-Complete";
+    public static final String PRESTO_ACCEPT_PAGE_CODEC = "X-Presto-Accept-Page-Codec";
+    public static final String PRESTO_PAGE_CODEC = "X-Presto-Page-Codec";
 
     private PrestoHeaders() {}
 }
@@ -0,0 +1,364 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.client;
+
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.ArrayBlockEncoding;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockEncoding;
+import com.facebook.presto.spi.block.BlockEncodingFactory;
+import com.facebook.presto.spi.block.BlockEncodingSerde;
+import com.facebook.presto.spi.block.ByteArrayBlockEncoding;
+import com.facebook.presto.spi.block.DictionaryBlockEncoding;
+import com.facebook.presto.spi.block.FixedWidthBlockEncoding;
+import com.facebook.presto.spi.block.IntArrayBlockEncoding;
+import com.facebook.presto.spi.block.InterleavedBlockEncoding;
+import com.facebook.presto.spi.block.LongArrayBlockEncoding;
+import com.facebook.presto.spi.block.RunLengthBlockEncoding;
+import com.facebook.presto.spi.block.ShortArrayBlockEncoding;
+import com.facebook.presto.spi.block.SliceArrayBlockEncoding;
+import com.facebook.presto.spi.block.VariableWidthBlockEncoding;
+import com.facebook.presto.spi.type.TypeSignature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterators;
+import com.google.common.net.MediaType;
+import io.airlift.compress.Decompressor;
+import io.airlift.compress.lz4.Lz4Decompressor;
+import io.airlift.compress.snappy.SnappyDecompressor;
+import io.airlift.json.JsonCodec;
+import io.airlift.json.ObjectMapperProvider;
+import io.airlift.slice.Slice;
+import io.airlift.slice.SliceInput;
+import io.airlift.slice.SliceOutput;
+import io.airlift.slice.XxHash64;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.AbstractList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.IntegerType.INTEGER;
+import static com.facebook.presto.spi.type.RealType.REAL;
+import static com.facebook.presto.spi.type.SmallintType.SMALLINT;
+import static com.facebook.presto.spi.type.TinyintType.TINYINT;
+import static com.facebook.presto.spi.type.TypeSignature.parseTypeSignature;
+import static com.facebook.presto.spi.type.VarbinaryType.VARBINARY;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static com.google.common.base.Preconditions.checkArgument;
+import static io.airlift.slice.Slices.wrappedBuffer;
+import static java.lang.Float.intBitsToFloat;
+import static java.lang.String.format;
+import static java.util.Locale.ENGLISH;
+import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Reads {@link QueryResults} sent as serialized pages. The coordinator uses this format for
+ * the next results of a query when the client lists {@link #PRESTO_QUERY_RESULTS} in its
+ * Accept header; all other responses are JSON.
+ * <p>
+ * The response starts with the length and the JSON of the results without the data, followed
+ * by a byte telling whether the results have data and the pages holding the data, in the
+ * layout of the exchange. The pages are compressed with the codec named in the
+ * {@link PrestoHeaders#PRESTO_PAGE_CODEC} header, if there is one. Columns of the types in
+ * {@link #isNativeType} are sent as their blocks; all other columns are sent as varchar blocks
+ * holding the JSON of each value. The rows decode their values only when they are accessed.
+ */
+public final class QueryResultsPages
+{
+    public static final String PRESTO_QUERY_RESULTS = "application/x-presto-query-results";
+    public static final MediaType PRESTO_QUERY_RESULTS_TYPE = MediaType.create("application", "x-presto-query-results");
+
+    private static final Set<String> NATIVE_TYPES = ImmutableSet.of(
+            BIGINT.getTypeSignature().getBase(),
+            INTEGER.getTypeSignature().getBase(),
+            SMALLINT.getTypeSignature().getBase(),
+            TINYINT.getTypeSignature().getBase(),
+            DOUBLE.getTypeSignature().getBase(),
+            REAL.getTypeSignature().getBase(),
+            BOOLEAN.getTypeSignature().getBase(),
+            VARCHAR.getTypeSignature().getBase(),
+            VARBINARY.getTypeSignature().getBase());
+
+    private static final byte COMPRESSED = 1;
+    private static final byte UNCOMPRESSED = 0;
+
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapperProvider().get();
+    private static final BlockEncodingSerde BLOCK_ENCODING_SERDE = new ClientBlockEncodingSerde();
+
+    private QueryResultsPages() {}
+
+    /**
+     * Returns true if the blocks of columns with the given base type are sent as they are.
+     */
+    public static boolean isNativeType(String typeBase)
+    {
+        return NATIVE_TYPES.contains(typeBase);
+    }
+
+    public static QueryResults readQueryResults(JsonCodec<QueryResults> codec, Slice body, Optional<String> pageCodec)
+    {
+        requireNonNull(codec, "codec is null");
+        requireNonNull(body, "body is null");
+        requireNonNull(pageCodec, "pageCodec is null");
+
+        SliceInput input = body.getInput();
+        Slice json = input.readSlice(input.readInt());
+        QueryResults results = codec.fromJson(json.toStringUtf8());
+        checkArgument(results.getData() == null, "JSON data is not allowed in paged results");
+        if (!input.readBoolean()) {
+            checkArgument(!input.isReadable(), "Unexpected pages in results without data");
+            return results;
+        }
+
+        Optional<Decompressor> decompressor = pageCodec.map(QueryResultsPages::createDecompressor);
+        ImmutableList.Builder<Page> pages = ImmutableList.builder();
+        while (input.isReadable()) {
+            pages.add(readPage(decompressor.isPresent() ? decompressPage(input, decompressor.get()) : input));
+        }
+
+        List<Column> columns = requireNonNull(results.getColumns(), "columns is null");
+        return new QueryResults(
+                results.getId(),
+                results.getInfoUri(),
+                results.getPartialCancelUri(),
+                results.getNextUri(),
+                columns,
+                new PageRows(columns, pages.build()),
+                results.getStats(),
+                results.getError(),
+                results.getUpdateType(),
+                results.getUpdateCount());
+    }
+
+    private static Decompressor createDecompressor(String pageCodec)
+    {
+        switch (pageCodec.trim().toUpperCase(ENGLISH)) {
+            case "LZ4":
+                return new Lz4Decompressor();
+            case "SNAPPY":
+                return new SnappyDecompressor();
+            default:
+                throw new IllegalArgumentException("Unsupported page codec: " + pageCodec);
+        }
+    }
+
+    private static SliceInput decompressPage(SliceInput input, Decompressor decompressor)
+    {
+        byte flag = input.readByte();
+        int uncompressedSize = input.readInt();
+        int size = input.readInt();
+        long checksum = input.readLong();
+        Slice data = input.readSlice(size);
+
+        Slice serialized;
+        if (flag == COMPRESSED) {
+            byte[] compressed = data.getBytes();
+            byte[] uncompressed = new byte[uncompressedSize];
+            int actualSize = decompressor.decompress(compressed, 0, size, uncompressed, 0, uncompressedSize);
+            checkArgument(actualSize == uncompressedSize, "Expected page of %s bytes, but decompressed %s bytes", uncompressedSize, actualSize);
+            serialized = wrappedBuffer(uncompressed);
+        }
+        else {
+            checkArgument(flag == UNCOMPRESSED, "Invalid page compression flag: %s", flag);
+            serialized = data;
+        }
+
+        checkArgument(XxHash64.hash(serialized) == checksum, "Page checksum mismatch");
+        return serialized.getInput();
+    }
+
+    private static Page readPage(SliceInput input)
+    {
+        int positions = input.readInt();
+        int numberOfBlocks = input.readInt();
+        Block[] blocks = new Block[numberOfBlocks];
+        for (int i = 0; i < blocks.length; i++) {
+            BlockEncoding encoding = BLOCK_ENCODING_SERDE.readBlockEncoding(input);
+            blocks[i] = encoding.readBlock(input);
+        }
+        return new Page(positions, blocks);
+    }
+
+    private static Object readValue(TypeSignature signature, Block block, int position)
+    {
+        if (block.isNull(position)) {
+            return null;
+        }
+
+        String base = signature.getBase();
+        if (!isNativeType(base)) {
+            try {
+                return QueryResults.fixValue(signature, OBJECT_MAPPER.readValue(VARCHAR.getSlice(block, position).getBytes(), Object.class));
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+        if (base.equals(BIGINT.getTypeSignature().getBase())) {
+            return BIGINT.getLong(block, position);
+        }
+        if (base.equals(INTEGER.getTypeSignature().getBase())) {
+            return (int) INTEGER.getLong(block, position);
+        }
+        if (base.equals(SMALLINT.getTypeSignature().getBase())) {
+            return (short) SMALLINT.getLong(block, position);
+        }
+        if (base.equals(TINYINT.getTypeSignature().getBase())) {
+            return (byte) TINYINT.getLong(block, position);
+        }
+        if (base.equals(DOUBLE.getTypeSignature().getBase())) {
+            return DOUBLE.getDouble(block, position);
+        }
+        if (base.equals(REAL.getTypeSignature().getBase())) {
+            return intBitsToFloat((int) REAL.getLong(block, position));
+        }
+        if (base.equals(BOOLEAN.getTypeSignature().getBase())) {
+            return BOOLEAN.getBoolean(block, position);
+        }
+        if (base.equals(VARCHAR.getTypeSignature().getBase())) {
+            return VARCHAR.getSlice(block, position).toStringUtf8();
+        }
+        return VARBINARY.getSlice(block, position).getBytes();
+    }
+
+    private static class PageRows
+            implements Iterable<List<Object>>
+    {
+        private final List<TypeSignature> signatures;
+        private final List<Page> pages;
+
+        private PageRows(List<Column> columns, List<Page> pages)
+        {
+            this.signatures = columns.stream()
+                    .map(column -> parseTypeSignature(column.getType()))
+                    .collect(toList());
+            this.pages = pages;
+            for (Page page : pages) {
+                checkArgument(page.getChannelCount() == signatures.size(), "page/column size mismatch");
+            }
+        }
+
+        @Override
+        public Iterator<List<Object>> iterator()
+        {
+            return Iterators.concat(Iterators.transform(pages.iterator(), page -> new PageRowIterator(signatures, page)));
+        }
+    }
+
+    private static class PageRowIterator
+            extends AbstractIterator<List<Object>>
+    {
+        private final List<TypeSignature> signatures;
+        private final Page page;
+        private int position = -1;
+
+        private PageRowIterator(List<TypeSignature> signatures, Page page)
+        {
+            this.signatures = signatures;
+            this.page = page;
+        }
+
+        @Override
+        protected List<Object> computeNext()
+        {
+            position++;
+            if (position >= page.getPositionCount()) {
+                return endOfData();
+            }
+            return new PageRow(signatures, page, position);
+        }
+    }
+
+    private static class PageRow
+            extends AbstractList<Object>
+    {
+        private final List<TypeSignature> signatures;
+        private final Page page;
+        private final int position;
+
+        private PageRow(List<TypeSignature> signatures, Page page, int position)
+        {
+            this.signatures = signatures;
+            this.page = page;
+            this.position = position;
+        }
+
+        @Override
+        public Object get(int index)
+        {
+            return readValue(signatures.get(index), page.getBlock(index), position);
+        }
+
+        @Override
+        public int size()
+        {
+            return signatures.size();
+        }
+    }
+
+    private static class ClientBlockEncodingSerde
+            implements BlockEncodingSerde
+    {
+        private final Map<String, BlockEncodingFactory<?>> blockEncodings;
+
+        private ClientBlockEncodingSerde()
+        {
+            ImmutableMap.Builder<String, BlockEncodingFactory<?>> blockEncodings = ImmutableMap.builder();
+            for (BlockEncodingFactory<?> factory : ImmutableList.of(
+                    VariableWidthBlockEncoding.FACTORY,
+                    FixedWidthBlockEncoding.FACTORY,
+                    ByteArrayBlockEncoding.FACTORY,
+                    ShortArrayBlockEncoding.FACTORY,
+                    IntArrayBlockEncoding.FACTORY,
+                    LongArrayBlockEncoding.FACTORY,
+                    SliceArrayBlockEncoding.FACTORY,
+                    DictionaryBlockEncoding.FACTORY,
+                    ArrayBlockEncoding.FACTORY,
+                    InterleavedBlockEncoding.FACTORY,
+                    RunLengthBlockEncoding.FACTORY)) {
+                blockEncodings.put(factory.getName(), factory);
+            }
+            this.blockEncodings = blockEncodings.build();
+        }
+
+        @Override
+        public BlockEncoding readBlockEncoding(SliceInput input)
+        {
+            String encodingName = input.readSlice(input.readInt()).toStringUtf8();
+            BlockEncodingFactory<?> blockEncoding = blockEncodings.get(encodingName);
+            checkArgument(blockEncoding != null, "Unknown block encoding %s", encodingName);
+
+            // the built-in encodings don't look up types
+            return blockEncoding.readEncoding(null, this, input);
+        }
+
+        @Override
+        public void writeBlockEncoding(SliceOutput output, BlockEncoding encoding)
+        {
+            throw new UnsupportedOperationException(format("Client can not write block encoding %s", encoding.getName()));
+        }
+    }
+}
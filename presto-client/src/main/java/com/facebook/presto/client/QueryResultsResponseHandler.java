@@ -0,0 +1,201 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.client;
+
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ListMultimap;
+import com.google.common.io.ByteStreams;
+import io.airlift.http.client.FullJsonResponseHandler;
+import io.airlift.http.client.FullJsonResponseHandler.JsonResponse;
+import io.airlift.http.client.HeaderName;
+import io.airlift.http.client.Request;
+import io.airlift.http.client.Response;
+import io.airlift.http.client.ResponseHandler;
+import io.airlift.json.JsonCodec;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Supplier;
+
+import static com.facebook.presto.client.PrestoHeaders.PRESTO_PAGE_CODEC;
+import static com.facebook.presto.client.QueryResultsPages.PRESTO_QUERY_RESULTS_TYPE;
+import static com.facebook.presto.client.QueryResultsPages.readQueryResults;
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.net.HttpHeaders.CONTENT_TYPE;
+import static com.google.common.net.MediaType.parse;
+import static io.airlift.http.client.FullJsonResponseHandler.createFullJsonResponseHandler;
+import static io.airlift.http.client.ResponseHandlerUtils.propagate;
+import static io.airlift.slice.Slices.wrappedBuffer;
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Reads query results sent either as JSON or in the {@link QueryResultsPages} format,
+ * depending on the content type the server chose.
+ */
+public class QueryResultsResponseHandler
+        implements ResponseHandler<QueryResultsResponseHandler.QueryResultsResponse, RuntimeException>
+{
+    private final JsonCodec<QueryResults> queryResultsCodec;
+    private final FullJsonResponseHandler<QueryResults> jsonResponseHandler;
+
+    public static QueryResultsResponseHandler createQueryResultsResponseHandler(JsonCodec<QueryResults> queryResultsCodec)
+    {
+        return new QueryResultsResponseHandler(queryResultsCodec);
+    }
+
+    private QueryResultsResponseHandler(JsonCodec<QueryResults> queryResultsCodec)
+    {
+        this.queryResultsCodec = requireNonNull(queryResultsCodec, "queryResultsCodec is null");
+        this.jsonResponseHandler = createFullJsonResponseHandler(queryResultsCodec);
+    }
+
+    @Override
+    public QueryResultsResponse handleException(Request request, Exception exception)
+    {
+        throw propagate(request, exception);
+    }
+
+    @Override
+    public QueryResultsResponse handle(Request request, Response response)
+    {
+        String contentType = response.getHeader(CONTENT_TYPE);
+        if (contentType == null || !parse(contentType).is(PRESTO_QUERY_RESULTS_TYPE)) {
+            return new QueryResultsResponse(jsonResponseHandler.handle(request, response));
+        }
+
+        byte[] bytes;
+        try {
+            bytes = ByteStreams.toByteArray(response.getInputStream());
+        }
+        catch (IOException e) {
+            throw new RuntimeException("Error reading response from server", e);
+        }
+
+        QueryResults value = null;
+        RuntimeException exception = null;
+        try {
+            value = readQueryResults(queryResultsCodec, wrappedBuffer(bytes), Optional.ofNullable(response.getHeader(PRESTO_PAGE_CODEC)));
+        }
+        catch (RuntimeException e) {
+            exception = e;
+        }
+        QueryResults results = value;
+        return new QueryResultsResponse(
+                response.getStatusCode(),
+                response.getStatusMessage(),
+                response.getHeaders(),
+                results,
+                () -> (results != null) ? format("<%s bytes of query results pages>", bytes.length) : new String(bytes, UTF_8),
+                exception);
+    }
+
+    public static class QueryResultsResponse
+    {
+        private final int statusCode;
+        private final String statusMessage;
+        private final ListMultimap<HeaderName, String> headers;
+        private final QueryResults value;
+        private final Supplier<String> responseBody;
+        private final Exception exception;
+
+        private QueryResultsResponse(JsonResponse<QueryResults> response)
+        {
+            this(
+                    response.getStatusCode(),
+                    response.getStatusMessage(),
+                    response.getHeaders(),
+                    response.hasValue() ? response.getValue() : null,
+                    response::getResponseBody,
+                    response.getException());
+        }
+
+        private QueryResultsResponse(
+                int statusCode,
+                String statusMessage,
+                ListMultimap<HeaderName, String> headers,
+                QueryResults value,
+                Supplier<String> responseBody,
+                Exception exception)
+        {
+            this.statusCode = statusCode;
+            this.statusMessage = statusMessage;
+            this.headers = ImmutableListMultimap.copyOf(requireNonNull(headers, "headers is null"));
+            this.value = value;
+            this.responseBody = requireNonNull(responseBody, "responseBody is null");
+            this.exception = exception;
+        }
+
+        public int getStatusCode()
+        {
+            return statusCode;
+        }
+
+        public String getStatusMessage()
+        {
+            return statusMessage;
+        }
+
+        public String getHeader(String name)
+        {
+            List<String> values = getHeaders(name);
+            if (values.isEmpty()) {
+                return null;
+            }
+            return values.get(0);
+        }
+
+        public List<String> getHeaders(String name)
+        {
+            return headers.get(HeaderName.of(name));
+        }
+
+        public boolean hasValue()
+        {
+            return value != null;
+        }
+
+        public QueryResults getValue()
+        {
+            if (value == null) {
+                throw new IllegalStateException("Response does not contain query results", exception);
+            }
+            return value;
+        }
+
+        public String getResponseBody()
+        {
+            return responseBody.get();
+        }
+
+        public Exception getException()
+        {
+            return exception;
+        }
+
+        @Override
+        public String toString()
+        {
+            return toStringHelper(this)
+                    .add("statusCode", statusCode)
+                    .add("statusMessage", statusMessage)
+                    .add("headers", headers)
+                    .add("hasValue", value != null)
+                    .add("value", value)
+                    .toString();
+        }
+    }
+}
@@ -13,12 +13,12 @@
  */
 package com.facebook.presto.client;
 
+import com.facebook.presto.client.QueryResultsResponseHandler.QueryResultsResponse;
 import com.google.common.base.Splitter;
 import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Sets;
-import io.airlift.http.client.FullJsonResponseHandler;
 import io.airlift.http.client.HttpClient;
 import io.airlift.http.client.HttpClient.HttpResponseFuture;
 import io.airlift.http.client.HttpStatus;
@@ -43,17 +43,20 @@ import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 
+import static com.facebook.presto.client.PrestoHeaders.PRESTO_ACCEPT_PAGE_CODEC;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_ADDED_PREPARE;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_CLEAR_SESSION;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_CLEAR_TRANSACTION_ID;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_DEALLOCATED_PREPARE;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_SET_SESSION;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_STARTED_TRANSACTION_ID;
+import static com.facebook.presto.client.QueryResultsPages.PRESTO_QUERY_RESULTS;
+import static com.facebook.presto.client.QueryResultsResponseHandler.createQueryResultsResponseHandler;
 import static com.google.common.base.MoreObjects.firstNonNull;
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.net.HttpHeaders.ACCEPT;
 import static com.google.common.net.HttpHeaders.USER_AGENT;
-import static io.airlift.http.client.FullJsonResponseHandler.JsonResponse;
-import static io.airlift.http.client.FullJsonResponseHandler.createFullJsonResponseHandler;
+import static com.google.common.net.MediaType.JSON_UTF_8;
 import static io.airlift.http.client.HttpStatus.Family;
 import static io.airlift.http.client.HttpStatus.familyForStatusCode;
 import static io.airlift.http.client.HttpUriBuilder.uriBuilderFrom;
@@ -79,7 +82,7 @@ public class StatementClient
             firstNonNull(StatementClient.class.getPackage().getImplementationVersion(), "unknown");
 
     private final HttpClient httpClient;
-    private final FullJsonResponseHandler<QueryResults> responseHandler;
+    private final QueryResultsResponseHandler responseHandler;
     private final boolean debug;
     private final String query;
     private final AtomicReference<QueryResults> currentResults = new AtomicReference<>();
@@ -104,7 +107,7 @@ public class StatementClient
         requireNonNull(query, "query is null");
 
         this.httpClient = httpClient;
-        this.responseHandler = createFullJsonResponseHandler(queryResultsCodec);
+        this.responseHandler = createQueryResultsResponseHandler(queryResultsCodec);
         this.debug = session.isDebug();
         this.timeZoneId = session.getTimeZoneId();
         this.query = query;
@@ -112,7 +115,7 @@ public class StatementClient
         this.user = session.getUser();
 
         Request request = buildQueryRequest(session, query);
-        JsonResponse<QueryResults> response = httpClient.execute(request, responseHandler);
+        QueryResultsResponse response = httpClient.execute(request, responseHandler);
 
         if (response.getStatusCode() != HttpStatus.OK.code() || !response.hasValue()) {
             throw requestFailedException("starting query", request, response);
@@ -254,7 +257,11 @@ public class StatementClient
             return false;
         }
 
-        Request request = prepareRequest(prepareGet(), nextUri).build();
+        // servers that don't know the pages keep sending JSON
+        Request request = prepareRequest(prepareGet(), nextUri)
+                .setHeader(ACCEPT, PRESTO_QUERY_RESULTS + ", " + JSON_UTF_8.withoutParameters())
+                .setHeader(PRESTO_ACCEPT_PAGE_CODEC, "LZ4")
+                .build();
 
         Exception cause = null;
         long start = System.nanoTime();
@@ -278,7 +285,7 @@ public class StatementClient
             }
             attempts++;
 
-            JsonResponse<QueryResults> response;
+            QueryResultsResponse response;
             try {
                 response = httpClient.execute(request, responseHandler);
             }
@@ -302,7 +309,7 @@ public class StatementClient
         throw new RuntimeException("Error fetching next", cause);
     }
 
-    private void processResponse(JsonResponse<QueryResults> response)
+    private void processResponse(QueryResultsResponse response)
     {
         for (String setSession : response.getHeaders(PRESTO_SET_SESSION)) {
             List<String> keyValue = SESSION_HEADER_SPLITTER.splitToList(setSession);
@@ -337,7 +344,7 @@ public class StatementClient
         currentResults.set(response.getValue());
     }
 
-    private RuntimeException requestFailedException(String task, Request request, JsonResponse<QueryResults> response)
+    private RuntimeException requestFailedException(String task, Request request, QueryResultsResponse response)
     {
         gone.set(true);
         if (!response.hasValue()) {
@@ -24,6 +24,7 @@ import com.facebook.presto.spi.HostAddress;
 import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.StandardErrorCode;
 import com.facebook.presto.spi.predicate.TupleDomain;
+import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ImmutableList;
 import com.google.common.io.CharStreams;
 import io.airlift.units.DataSize;
@@ -45,8 +46,10 @@ import java.io.BufferedReader;
 import java.io.IOException;
 import java.io.InputStreamReader;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Deque;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 import java.util.OptionalInt;
@@ -92,6 +95,7 @@ public class BackgroundHiveSplitLoader
     private final int maxPartitionBatchSize;
     private final DataSize maxInitialSplitSize;
     private final boolean recursiveDirWalkerEnabled;
+    private final Optional<SplitAffinityProvider> splitAffinityProvider;
     private final Executor executor;
     private final ConnectorSession session;
     private final ConcurrentLazyQueue<HivePartitionMetadata> partitions;
@@ -127,7 +131,9 @@ public class BackgroundHiveSplitLoader
             Executor executor,
             int maxPartitionBatchSize,
             int maxInitialSplits,
-            boolean recursiveDirWalkerEnabled)
+            boolean recursiveDirWalkerEnabled,
+            Optional<SplitAffinityProvider> splitAffinityProvider,
+            int maxPrefetchedDirectoryListings)
     {
         this.connectorId = connectorId;
         this.table = table;
@@ -138,12 +144,49 @@ public class BackgroundHiveSplitLoader
         this.session = session;
         this.hdfsEnvironment = hdfsEnvironment;
         this.namenodeStats = namenodeStats;
-        this.directoryLister = directoryLister;
         this.maxInitialSplitSize = getMaxInitialSplitSize(session);
         this.remainingInitialSplits = new AtomicInteger(maxInitialSplits);
         this.recursiveDirWalkerEnabled = recursiveDirWalkerEnabled;
+        this.splitAffinityProvider = splitAffinityProvider;
         this.executor = executor;
-        this.partitions = new ConcurrentLazyQueue<>(partitions);
+        if (maxPrefetchedDirectoryListings > 0) {
+            PrefetchingDirectoryLister prefetchingDirectoryLister = new PrefetchingDirectoryLister(directoryLister, executor);
+            this.directoryLister = prefetchingDirectoryLister;
+            this.partitions = new ConcurrentLazyQueue<>(() -> prefetchListings(partitions.iterator(), prefetchingDirectoryLister, maxPrefetchedDirectoryListings));
+        }
+        else {
+            this.directoryLister = directoryLister;
+            this.partitions = new ConcurrentLazyQueue<>(partitions);
+        }
+    }
+
+    private Iterator<HivePartitionMetadata> prefetchListings(Iterator<HivePartitionMetadata> partitions, PrefetchingDirectoryLister lister, int maxPrefetchedListings)
+    {
+        return new AbstractIterator<HivePartitionMetadata>()
+        {
+            private final Deque<HivePartitionMetadata> prefetched = new ArrayDeque<>();
+
+            @Override
+            protected HivePartitionMetadata computeNext()
+            {
+                // keep the listings of the next partitions running while the current one is loaded
+                while (prefetched.size() <= maxPrefetchedListings && partitions.hasNext()) {
+                    HivePartitionMetadata partition = partitions.next();
+                    Path path = new Path(getPartitionLocation(table, partition.getPartition()));
+                    try {
+                        lister.prefetch(hdfsEnvironment.getFileSystem(session.getUser(), path), path);
+                    }
+                    catch (IOException e) {
+                        // the error is reported when the partition is loaded
+                    }
+                    prefetched.add(partition);
+                }
+                if (prefetched.isEmpty()) {
+                    return endOfData();
+                }
+                return prefetched.poll();
+            }
+        };
     }
 
     @Override
@@ -433,10 +476,17 @@ public class BackgroundHiveSplitLoader
 
         boolean forceLocalScheduling = HiveSessionProperties.isForceLocalScheduling(session);
 
+        // all splits of the file prefer the same workers, so the workers can cache the file locally
+        Optional<List<HostAddress>> preferredAddresses = splitAffinityProvider.map(provider -> provider.getPreferredAddresses(path));
+
         if (splittable) {
             for (BlockLocation blockLocation : blockLocations) {
                 // get the addresses for the block
                 List<HostAddress> addresses = toHostAddress(blockLocation.getHosts());
+                boolean forceLocal = forceLocalScheduling && hasRealAddress(addresses);
+                if (!forceLocal && preferredAddresses.isPresent()) {
+                    addresses = preferredAddresses.get();
+                }
 
                 long maxBytes = maxSplitSize.toBytes();
                 boolean creatingInitialSplits = false;
@@ -475,7 +525,7 @@ public class BackgroundHiveSplitLoader
                             partitionKeys,
                             addresses,
                             bucketNumber,
-                            forceLocalScheduling && hasRealAddress(addresses),
+                            forceLocal,
                             effectivePredicate));
 
                     chunkOffset += chunkLength;
@@ -489,6 +539,10 @@ public class BackgroundHiveSplitLoader
             if (blockLocations.length > 0) {
                 addresses = toHostAddress(blockLocations[0].getHosts());
             }
+            boolean forceLocal = forceLocalScheduling && hasRealAddress(addresses);
+            if (!forceLocal && preferredAddresses.isPresent()) {
+                addresses = preferredAddresses.get();
+            }
 
             builder.add(new HiveSplit(connectorId,
                     table.getDatabaseName(),
@@ -501,7 +555,7 @@ public class BackgroundHiveSplitLoader
                     partitionKeys,
                     addresses,
                     bucketNumber,
-                    forceLocalScheduling && hasRealAddress(addresses),
+                    forceLocal,
                     effectivePredicate));
         }
         return builder.build();
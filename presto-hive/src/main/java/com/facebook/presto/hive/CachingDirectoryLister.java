@@ -0,0 +1,123 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.collect.ImmutableList;
+import io.airlift.stats.CounterStat;
+import io.airlift.units.Duration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.LocatedFileStatus;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RemoteIterator;
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
+
+import javax.annotation.concurrent.ThreadSafe;
+import javax.inject.Inject;
+
+import java.io.IOException;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Caches the file statuses of listed directories, keyed on the directory path. Entries
+ * expire after a fixed time, so the cache is only used for partitions that are not
+ * modified after they are written, and paths written by Presto are invalidated on commit.
+ */
+@ThreadSafe
+public class CachingDirectoryLister
+        implements DirectoryLister
+{
+    private final DirectoryLister delegate;
+    private final boolean enabled;
+    private final Cache<Path, List<LocatedFileStatus>> cache;
+
+    private final CounterStat hits = new CounterStat();
+    private final CounterStat misses = new CounterStat();
+
+    @Inject
+    public CachingDirectoryLister(HiveClientConfig config)
+    {
+        this(new HadoopDirectoryLister(), config.getFileStatusCacheExpireTime(), config.getFileStatusCacheMaxSize());
+    }
+
+    public CachingDirectoryLister(DirectoryLister delegate, Duration expireAfterWrite, long maxFileStatuses)
+    {
+        this.delegate = requireNonNull(delegate, "delegate is null");
+        requireNonNull(expireAfterWrite, "expireAfterWrite is null");
+        checkArgument(maxFileStatuses > 0, "maxFileStatuses must be positive");
+
+        this.enabled = expireAfterWrite.toMillis() > 0;
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(maxFileStatuses)
+                .weigher((Path path, List<LocatedFileStatus> files) -> Math.max(1, files.size()))
+                .expireAfterWrite(expireAfterWrite.toMillis(), MILLISECONDS)
+                .build();
+    }
+
+    @Override
+    public RemoteIterator<LocatedFileStatus> list(FileSystem fs, Path path)
+            throws IOException
+    {
+        if (!enabled) {
+            return delegate.list(fs, path);
+        }
+
+        List<LocatedFileStatus> files = cache.getIfPresent(path);
+        if (files != null) {
+            hits.update(1);
+            return new SimpleRemoteIterator(files.iterator());
+        }
+        misses.update(1);
+
+        ImmutableList.Builder<LocatedFileStatus> builder = ImmutableList.builder();
+        RemoteIterator<LocatedFileStatus> iterator = delegate.list(fs, path);
+        while (iterator.hasNext()) {
+            builder.add(iterator.next());
+        }
+        files = builder.build();
+        cache.put(path, files);
+        return new SimpleRemoteIterator(files.iterator());
+    }
+
+    public void invalidate(Path path)
+    {
+        cache.invalidate(path);
+    }
+
+    @Managed
+    public long getCachedDirectories()
+    {
+        return cache.size();
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getHits()
+    {
+        return hits;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getMisses()
+    {
+        return misses;
+    }
+}
@@ -35,6 +35,7 @@ import java.util.List;
 import java.util.TimeZone;
 import java.util.concurrent.TimeUnit;
 
+import static io.airlift.units.DataSize.Unit.GIGABYTE;
 import static io.airlift.units.DataSize.Unit.MEGABYTE;
 
 @DefunctConfig({
@@ -115,11 +116,24 @@ public class HiveClientConfig
 
     private boolean useOrcColumnNames;
     private boolean orcBloomFiltersEnabled;
+    private boolean orcOptimizedWriterEnabled;
+    private boolean orcStripePrefetchEnabled;
     private DataSize orcMaxMergeDistance = new DataSize(1, MEGABYTE);
     private DataSize orcMaxBufferSize = new DataSize(8, MEGABYTE);
     private DataSize orcStreamBufferSize = new DataSize(8, MEGABYTE);
+    private DataSize orcMetadataCacheMaxSize = new DataSize(64, MEGABYTE);
 
     private boolean rcfileOptimizedReaderEnabled;
+    private boolean rcfileOptimizedWriterEnabled;
+
+    private boolean fileCacheEnabled;
+    private File fileCacheDirectory = new File(StandardSystemProperty.JAVA_IO_TMPDIR.value(), "presto-hive-cache");
+    private DataSize fileCacheMaxSize = new DataSize(10, GIGABYTE);
+    private DataSize fileCacheChunkSize = new DataSize(1, MEGABYTE);
+    private boolean splitAffinityEnabled;
+    private int maxPrefetchedDirectoryListings = 10;
+    private Duration fileStatusCacheExpireTime = new Duration(0, TimeUnit.SECONDS);
+    private long fileStatusCacheMaxSize = 1_000_000;
 
     private HiveMetastoreAuthenticationType hiveMetastoreAuthenticationType = HiveMetastoreAuthenticationType.NONE;
     private String hiveMetastoreServicePrincipal;
@@ -897,6 +911,20 @@ public class HiveClientConfig
         return this;
     }
 
+    @NotNull
+    public DataSize getOrcMetadataCacheMaxSize()
+    {
+        return orcMetadataCacheMaxSize;
+    }
+
+    @Config("hive.orc.metadata-cache.max-size")
+    @ConfigDescription("Maximum size of the cached ORC file footers, stripe footers and row group indexes (0 disables the cache)")
+    public HiveClientConfig setOrcMetadataCacheMaxSize(DataSize orcMetadataCacheMaxSize)
+    {
+        this.orcMetadataCacheMaxSize = orcMetadataCacheMaxSize;
+        return this;
+    }
+
     public boolean isOrcBloomFiltersEnabled()
     {
         return orcBloomFiltersEnabled;
@@ -909,6 +937,32 @@ public class HiveClientConfig
         return this;
     }
 
+    public boolean isOrcOptimizedWriterEnabled()
+    {
+        return orcOptimizedWriterEnabled;
+    }
+
+    @Config("hive.orc.optimized-writer.enabled")
+    @ConfigDescription("Experimental: Use the native ORC writer instead of the Hive writer")
+    public HiveClientConfig setOrcOptimizedWriterEnabled(boolean orcOptimizedWriterEnabled)
+    {
+        this.orcOptimizedWriterEnabled = orcOptimizedWriterEnabled;
+        return this;
+    }
+
+    public boolean isOrcStripePrefetchEnabled()
+    {
+        return orcStripePrefetchEnabled;
+    }
+
+    @Config("hive.orc.stripe-prefetch.enabled")
+    @ConfigDescription("Read the next ORC stripe in the background while the current stripe is decoded")
+    public HiveClientConfig setOrcStripePrefetchEnabled(boolean orcStripePrefetchEnabled)
+    {
+        this.orcStripePrefetchEnabled = orcStripePrefetchEnabled;
+        return this;
+    }
+
     @Deprecated
     public boolean isRcfileOptimizedReaderEnabled()
     {
@@ -923,6 +977,129 @@ public class HiveClientConfig
         return this;
     }
 
+    public boolean isRcfileOptimizedWriterEnabled()
+    {
+        return rcfileOptimizedWriterEnabled;
+    }
+
+    @Config("hive.rcfile-optimized-writer.enabled")
+    @ConfigDescription("Experimental: Use the native RCFile writer instead of the Hive writer")
+    public HiveClientConfig setRcfileOptimizedWriterEnabled(boolean rcfileOptimizedWriterEnabled)
+    {
+        this.rcfileOptimizedWriterEnabled = rcfileOptimizedWriterEnabled;
+        return this;
+    }
+
+    public boolean isFileCacheEnabled()
+    {
+        return fileCacheEnabled;
+    }
+
+    @Config("hive.file-cache.enabled")
+    @ConfigDescription("Cache the data of remote files read by the ORC and Parquet readers on local disk")
+    public HiveClientConfig setFileCacheEnabled(boolean fileCacheEnabled)
+    {
+        this.fileCacheEnabled = fileCacheEnabled;
+        return this;
+    }
+
+    @NotNull
+    public File getFileCacheDirectory()
+    {
+        return fileCacheDirectory;
+    }
+
+    @Config("hive.file-cache.directory")
+    @ConfigDescription("Local directory for the file cache; the contents are deleted on startup")
+    public HiveClientConfig setFileCacheDirectory(File fileCacheDirectory)
+    {
+        this.fileCacheDirectory = fileCacheDirectory;
+        return this;
+    }
+
+    @NotNull
+    public DataSize getFileCacheMaxSize()
+    {
+        return fileCacheMaxSize;
+    }
+
+    @Config("hive.file-cache.max-size")
+    public HiveClientConfig setFileCacheMaxSize(DataSize fileCacheMaxSize)
+    {
+        this.fileCacheMaxSize = fileCacheMaxSize;
+        return this;
+    }
+
+    @NotNull
+    @MinDataSize("4kB")
+    public DataSize getFileCacheChunkSize()
+    {
+        return fileCacheChunkSize;
+    }
+
+    @Config("hive.file-cache.chunk-size")
+    @ConfigDescription("Size of the aligned file ranges that are cached")
+    public HiveClientConfig setFileCacheChunkSize(DataSize fileCacheChunkSize)
+    {
+        this.fileCacheChunkSize = fileCacheChunkSize;
+        return this;
+    }
+
+    public boolean isSplitAffinityEnabled()
+    {
+        return splitAffinityEnabled;
+    }
+
+    @Config("hive.split-affinity.enabled")
+    @ConfigDescription("Prefer scheduling splits of the same file on the same worker")
+    public HiveClientConfig setSplitAffinityEnabled(boolean splitAffinityEnabled)
+    {
+        this.splitAffinityEnabled = splitAffinityEnabled;
+        return this;
+    }
+
+    @Min(0)
+    public int getMaxPrefetchedDirectoryListings()
+    {
+        return maxPrefetchedDirectoryListings;
+    }
+
+    @Config("hive.max-prefetched-directory-listings")
+    @ConfigDescription("Number of upcoming partitions of a split source whose directories are listed in the background")
+    public HiveClientConfig setMaxPrefetchedDirectoryListings(int maxPrefetchedDirectoryListings)
+    {
+        this.maxPrefetchedDirectoryListings = maxPrefetchedDirectoryListings;
+        return this;
+    }
+
+    @NotNull
+    public Duration getFileStatusCacheExpireTime()
+    {
+        return fileStatusCacheExpireTime;
+    }
+
+    @Config("hive.file-status-cache-expire-time")
+    @ConfigDescription("Time directory listings of partitions are cached; only used with hive.immutable-partitions")
+    public HiveClientConfig setFileStatusCacheExpireTime(Duration fileStatusCacheExpireTime)
+    {
+        this.fileStatusCacheExpireTime = fileStatusCacheExpireTime;
+        return this;
+    }
+
+    @Min(1)
+    public long getFileStatusCacheMaxSize()
+    {
+        return fileStatusCacheMaxSize;
+    }
+
+    @Config("hive.file-status-cache-size")
+    @ConfigDescription("Maximum number of file statuses in the directory listing cache")
+    public HiveClientConfig setFileStatusCacheMaxSize(long fileStatusCacheMaxSize)
+    {
+        this.fileStatusCacheMaxSize = fileStatusCacheMaxSize;
+        return this;
+    }
+
     public boolean isAssumeCanonicalPartitionKeys()
     {
         return assumeCanonicalPartitionKeys;
@@ -43,6 +43,9 @@ import com.facebook.presto.spi.connector.ConnectorMetadata;
 import com.facebook.presto.spi.predicate.NullableValue;
 import com.facebook.presto.spi.predicate.TupleDomain;
 import com.facebook.presto.spi.security.Privilege;
+import com.facebook.presto.spi.statistics.ColumnStatistics;
+import com.facebook.presto.spi.statistics.Estimate;
+import com.facebook.presto.spi.statistics.TableStatistics;
 import com.facebook.presto.spi.type.TypeManager;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Verify;
@@ -66,6 +69,7 @@ import org.joda.time.DateTimeZone;
 
 import java.io.IOException;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -133,6 +137,9 @@ public class HiveMetadata
     public static final String PRESTO_VERSION_NAME = "presto_version";
     public static final String PRESTO_QUERY_ID_NAME = "presto_query_id";
 
+    // statistics parameter maintained by Hive, which is -1 if unknown
+    private static final String NUM_ROWS_PARAMETER = "numRows";
+
     private final String connectorId;
     private final boolean allowCorruptWritesForTesting;
     private final SemiTransactionalHiveMetastore metastore;
@@ -149,6 +156,10 @@ public class HiveMetadata
     private final HiveStorageFormat defaultStorageFormat;
     private final TypeTranslator typeTranslator;
     private final String prestoVersion;
+    private final CachingDirectoryLister cachingDirectoryLister;
+
+    // directories written in this transaction, whose cached listings are stale after the commit
+    private final Set<Path> writtenPaths = new HashSet<>();
 
     public HiveMetadata(
             String connectorId,
@@ -166,7 +177,8 @@ public class HiveMetadata
             TableParameterCodec tableParameterCodec,
             JsonCodec<PartitionUpdate> partitionUpdateCodec,
             TypeTranslator typeTranslator,
-            String prestoVersion)
+            String prestoVersion,
+            CachingDirectoryLister cachingDirectoryLister)
     {
         this.connectorId = requireNonNull(connectorId, "connectorId is null");
 
@@ -186,6 +198,7 @@ public class HiveMetadata
         this.defaultStorageFormat = requireNonNull(defaultStorageFormat, "defaultStorageFormat is null");
         this.typeTranslator = requireNonNull(typeTranslator, "typeTranslator is null");
         this.prestoVersion = requireNonNull(prestoVersion, "prestoVersion is null");
+        this.cachingDirectoryLister = requireNonNull(cachingDirectoryLister, "cachingDirectoryLister is null");
     }
 
     public SemiTransactionalHiveMetastore getMetastore()
@@ -595,6 +608,7 @@ public class HiveMetadata
         }
 
         metastore.createTable(session, table, principalPrivilegeSet, Optional.of(writePath));
+        partitionUpdates.forEach(partitionUpdate -> writtenPaths.add(partitionUpdate.getTargetPath()));
 
         if (!handle.getPartitionedBy().isEmpty()) {
             if (respectTableFormat) {
@@ -769,6 +783,7 @@ public class HiveMetadata
         }
 
         for (PartitionUpdate partitionUpdate : partitionUpdates) {
+            writtenPaths.add(partitionUpdate.getTargetPath());
             if (partitionUpdate.getName().isEmpty()) {
                 // insert into unpartitioned table
                 metastore.finishInsertIntoExistingTable(
@@ -1007,6 +1022,111 @@ public class HiveMetadata
                 hivePartitionResult.getUnenforcedConstraint()));
     }
 
+    @Override
+    public TableStatistics getTableStatistics(ConnectorSession session, ConnectorTableHandle tableHandle, Constraint<ColumnHandle> constraint)
+    {
+        HiveTableHandle handle = checkType(tableHandle, HiveTableHandle.class, "tableHandle");
+
+        HivePartitionResult hivePartitionResult = partitionManager.getPartitions(session, metastore, tableHandle, constraint.getSummary());
+        List<HivePartition> partitions = hivePartitionResult.getPartitions().stream()
+                .filter(partition -> constraint.predicate().test(partition.getKeys()))
+                .collect(toList());
+
+        TableStatistics.Builder statistics = TableStatistics.builder()
+                .setRowCount(getRowCount(handle.getSchemaTableName(), partitions));
+        if (partitions.isEmpty()) {
+            return statistics.build();
+        }
+        // only the partition key statistics can be derived without the column statistics of the metastore
+        for (HiveColumnHandle column : hivePartitionResult.getPartitionColumns()) {
+            statistics.setColumnStatistics(column, getPartitionKeyStatistics(column, partitions));
+        }
+        return statistics.build();
+    }
+
+    private Estimate getRowCount(SchemaTableName tableName, List<HivePartition> partitions)
+    {
+        if (partitions.isEmpty()) {
+            return Estimate.zeroValue();
+        }
+
+        List<Map<String, String>> parameters;
+        if (partitions.size() == 1 && partitions.get(0).getPartitionId().equals(HivePartition.UNPARTITIONED_ID)) {
+            Table table = metastore.getTable(tableName.getSchemaName(), tableName.getTableName())
+                    .orElseThrow(() -> new TableNotFoundException(tableName));
+            parameters = ImmutableList.of(table.getParameters());
+        }
+        else {
+            List<String> partitionNames = partitions.stream()
+                    .map(HivePartition::getPartitionId)
+                    .collect(toList());
+            Collection<Optional<Partition>> metastorePartitions = metastore.getPartitionsByNames(tableName.getSchemaName(), tableName.getTableName(), partitionNames).values();
+            if (metastorePartitions.stream().anyMatch(partition -> !partition.isPresent())) {
+                return Estimate.unknownValue();
+            }
+            parameters = metastorePartitions.stream()
+                    .map(partition -> partition.get().getParameters())
+                    .collect(toList());
+        }
+
+        long rowCount = 0;
+        for (Map<String, String> partitionParameters : parameters) {
+            OptionalLong partitionRowCount = parseNumRows(partitionParameters.get(NUM_ROWS_PARAMETER));
+            if (!partitionRowCount.isPresent()) {
+                return Estimate.unknownValue();
+            }
+            rowCount += partitionRowCount.getAsLong();
+        }
+        return Estimate.of(rowCount);
+    }
+
+    private static OptionalLong parseNumRows(String numRows)
+    {
+        if (numRows == null) {
+            return OptionalLong.empty();
+        }
+        try {
+            long value = Long.parseLong(numRows);
+            return value < 0 ? OptionalLong.empty() : OptionalLong.of(value);
+        }
+        catch (NumberFormatException e) {
+            return OptionalLong.empty();
+        }
+    }
+
+    private static ColumnStatistics getPartitionKeyStatistics(HiveColumnHandle column, List<HivePartition> partitions)
+    {
+        Set<Object> distinctValues = new HashSet<>();
+        int nullPartitions = 0;
+        Comparable<Object> low = null;
+        Comparable<Object> high = null;
+        for (HivePartition partition : partitions) {
+            NullableValue value = partition.getKeys().get(column);
+            if (value == null || value.isNull()) {
+                nullPartitions++;
+                continue;
+            }
+            distinctValues.add(value.getValue());
+            if (value.getType().isOrderable() && value.getValue() instanceof Comparable) {
+                Comparable<Object> comparable = (Comparable<Object>) value.getValue();
+                if (low == null || comparable.compareTo(low) < 0) {
+                    low = comparable;
+                }
+                if (high == null || comparable.compareTo(high) > 0) {
+                    high = comparable;
+                }
+            }
+        }
+
+        // the partitions are assumed to be of the same size
+        return ColumnStatistics.builder()
+                .setDistinctValuesCount(Estimate.of(distinctValues.size()))
+                .setNullsFraction(Estimate.of(((double) nullPartitions) / partitions.size()))
+                .setLowValue(Optional.<Object>ofNullable(low))
+                .setHighValue(Optional.<Object>ofNullable(high))
+                .build();
+    }
+
     @Override
     public ConnectorTableLayout getTableLayout(ConnectorSession session, ConnectorTableLayoutHandle layoutHandle)
     {
@@ -1245,5 +1365,6 @@ public class HiveMetadata
     public void commit()
     {
         metastore.commit();
+        writtenPaths.forEach(cachingDirectoryLister::invalidate);
     }
 }
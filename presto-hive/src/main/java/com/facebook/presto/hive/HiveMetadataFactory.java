@@ -50,6 +50,7 @@ public class HiveMetadataFactory
     private final BoundedExecutor renameExecution;
     private final TypeTranslator typeTranslator;
     private final String prestoVersion;
+    private final CachingDirectoryLister cachingDirectoryLister;
 
     @Inject
     @SuppressWarnings("deprecation")
@@ -65,7 +66,8 @@ public class HiveMetadataFactory
             TableParameterCodec tableParameterCodec,
             JsonCodec<PartitionUpdate> partitionUpdateCodec,
             TypeTranslator typeTranslator,
-            NodeVersion nodeVersion)
+            NodeVersion nodeVersion,
+            CachingDirectoryLister cachingDirectoryLister)
     {
         this(connectorId,
                 metastore,
@@ -85,7 +87,8 @@ public class HiveMetadataFactory
                 partitionUpdateCodec,
                 executorService,
                 typeTranslator,
-                nodeVersion.toString());
+                nodeVersion.toString(),
+                cachingDirectoryLister);
     }
 
     public HiveMetadataFactory(
@@ -107,7 +110,8 @@ public class HiveMetadataFactory
             JsonCodec<PartitionUpdate> partitionUpdateCodec,
             ExecutorService executorService,
             TypeTranslator typeTranslator,
-            String prestoVersion)
+            String prestoVersion,
+            CachingDirectoryLister cachingDirectoryLister)
     {
         this.connectorId = requireNonNull(connectorId, "connectorId is null").toString();
 
@@ -128,6 +132,7 @@ public class HiveMetadataFactory
         this.partitionUpdateCodec = requireNonNull(partitionUpdateCodec, "partitionUpdateCodec is null");
         this.typeTranslator = requireNonNull(typeTranslator, "typeTranslator is null");
         this.prestoVersion = requireNonNull(prestoVersion, "prestoVersion is null");
+        this.cachingDirectoryLister = requireNonNull(cachingDirectoryLister, "cachingDirectoryLister is null");
 
         if (!allowCorruptWritesForTesting && !timeZone.equals(DateTimeZone.getDefault())) {
             log.warn("Hive writes are disabled. " +
@@ -161,6 +166,7 @@ public class HiveMetadataFactory
                 tableParameterCodec,
                 partitionUpdateCodec,
                 typeTranslator,
-                prestoVersion);
+                prestoVersion,
+                cachingDirectoryLister);
     }
 }
@@ -186,17 +186,48 @@ public class HivePageSink
     private CompletableFuture<?> doAppend(Page page)
     {
         int[] writerIndexes = getWriterIndexes(page);
+        Page dataPage = new Page(page.getPositionCount(), getDataBlocks(page));
 
-        Block[] dataBlocks = getDataBlocks(page);
+        // common case: all rows of the page go to the same writer
+        if (writers.size() == 1) {
+            writers.get(0).append(dataPage);
+            return NOT_BLOCKED;
+        }
+
+        List<List<Integer>> writerPositions = new ArrayList<>(writers.size());
+        for (int i = 0; i < writers.size(); i++) {
+            writerPositions.add(new ArrayList<>());
+        }
         for (int position = 0; position < page.getPositionCount(); position++) {
-            int writerIndex = writerIndexes[position];
+            writerPositions.get(writerIndexes[position]).add(position);
+        }
+
+        for (int writerIndex = 0; writerIndex < writers.size(); writerIndex++) {
+            List<Integer> positions = writerPositions.get(writerIndex);
+            if (positions.isEmpty()) {
+                continue;
+            }
             HiveWriter writer = writers.get(writerIndex);
-            writer.addRow(dataBlocks, position);
+            if (positions.size() == dataPage.getPositionCount()) {
+                writer.append(dataPage);
+            }
+            else {
+                writer.append(copyPositions(dataPage, positions));
+            }
         }
 
         return NOT_BLOCKED;
     }
 
+    private static Page copyPositions(Page page, List<Integer> positions)
+    {
+        Block[] blocks = new Block[page.getChannelCount()];
+        for (int channel = 0; channel < blocks.length; channel++) {
+            blocks[channel] = page.getBlock(channel).copyPositions(positions);
+        }
+        return new Page(positions.size(), blocks);
+    }
+
     private int[] getWriterIndexes(Page page)
     {
         Page partitionColumns = extractColumns(page, partitionColumnsInputIndex);
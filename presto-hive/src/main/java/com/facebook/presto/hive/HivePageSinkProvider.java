@@ -24,6 +24,7 @@ import com.facebook.presto.spi.connector.ConnectorPageSinkProvider;
 import com.facebook.presto.spi.connector.ConnectorTransactionHandle;
 import com.facebook.presto.spi.type.TypeManager;
 import io.airlift.json.JsonCodec;
+import org.joda.time.DateTimeZone;
 
 import javax.inject.Inject;
 
@@ -41,6 +42,8 @@ public class HivePageSinkProvider
     private final TypeManager typeManager;
     private final int maxOpenPartitions;
     private final boolean immutablePartitions;
+    private final HiveCompressionCodec compressionCodec;
+    private final DateTimeZone hiveStorageTimeZone;
     private final LocationService locationService;
     private final JsonCodec<PartitionUpdate> partitionUpdateCodec;
 
@@ -62,6 +65,8 @@ public class HivePageSinkProvider
         this.typeManager = requireNonNull(typeManager, "typeManager is null");
         this.maxOpenPartitions = config.getMaxPartitionsPerWriter();
         this.immutablePartitions = config.isImmutablePartitions();
+        this.compressionCodec = config.getHiveCompressionCodec();
+        this.hiveStorageTimeZone = config.getDateTimeZone();
         this.locationService = requireNonNull(locationService, "locationService is null");
         this.partitionUpdateCodec = requireNonNull(partitionUpdateCodec, "partitionUpdateCodec is null");
     }
@@ -98,6 +103,8 @@ public class HivePageSinkProvider
                 new HivePageSinkMetadataProvider(handle.getPageSinkMetadata(), metastore),
                 typeManager,
                 hdfsEnvironment,
+                compressionCodec,
+                hiveStorageTimeZone,
                 immutablePartitions,
                 session);
 
@@ -75,6 +75,17 @@ public class HivePageSourceProvider
 
     @Override
     public ConnectorPageSource createPageSource(ConnectorTransactionHandle transaction, ConnectorSession session, ConnectorSplit split, List<ColumnHandle> columns)
+    {
+        return createPageSource(transaction, session, split, columns, TupleDomain.all());
+    }
+
+    @Override
+    public ConnectorPageSource createPageSource(
+            ConnectorTransactionHandle transaction,
+            ConnectorSession session,
+            ConnectorSplit split,
+            List<ColumnHandle> columns,
+            TupleDomain<ColumnHandle> dynamicFilter)
     {
         List<HiveColumnHandle> hiveColumns = columns.stream()
                 .map(HiveColumnHandle::toHiveColumnHandle)
@@ -83,6 +94,10 @@ public class HivePageSourceProvider
         HiveSplit hiveSplit = checkType(split, HiveSplit.class, "split");
         Path path = new Path(hiveSplit.getPath());
 
+        // the dynamic filter is only used to skip data the same way as the effective predicate
+        TupleDomain<HiveColumnHandle> effectivePredicate = hiveSplit.getEffectivePredicate()
+                .intersect(dynamicFilter.transform(HiveColumnHandle::toHiveColumnHandle));
+
         Optional<ConnectorPageSource> pageSource = createHivePageSource(
                 cursorProviders,
                 pageSourceFactories,
@@ -93,7 +108,7 @@ public class HivePageSourceProvider
                 hiveSplit.getStart(),
                 hiveSplit.getLength(),
                 hiveSplit.getSchema(),
-                hiveSplit.getEffectivePredicate(),
+                effectivePredicate,
                 hiveColumns,
                 hiveSplit.getPartitionKeys(),
                 hiveStorageTimeZone,
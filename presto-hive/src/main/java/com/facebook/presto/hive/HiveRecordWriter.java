@@ -15,6 +15,7 @@ package com.facebook.presto.hive;
 
 import com.facebook.presto.hive.HiveWriteUtils.FieldSetter;
 import com.facebook.presto.hive.metastore.StorageFormat;
+import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.type.Type;
@@ -52,6 +53,7 @@ import static org.apache.hadoop.hive.metastore.api.hive_metastoreConstants.META_
 import static org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory.getStandardStructObjectInspector;
 
 public class HiveRecordWriter
+        implements HiveFileWriter
 {
     private final Path path;
     private final int fieldCount;
@@ -104,6 +106,15 @@ public class HiveRecordWriter
         }
     }
 
+    @Override
+    public void appendRows(Page dataPage)
+    {
+        Block[] columns = dataPage.getBlocks();
+        for (int position = 0; position < dataPage.getPositionCount(); position++) {
+            addRow(columns, position);
+        }
+    }
+
     public void addRow(Block[] columns, int position)
     {
         for (int field = 0; field < fieldCount; field++) {
@@ -123,6 +134,7 @@ public class HiveRecordWriter
         }
     }
 
+    @Override
     public void commit()
     {
         try {
@@ -133,6 +145,7 @@ public class HiveRecordWriter
         }
     }
 
+    @Override
     public void rollback()
     {
         try {
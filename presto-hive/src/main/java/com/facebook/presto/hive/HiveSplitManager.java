@@ -21,11 +21,13 @@ import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.ConnectorSplitSource;
 import com.facebook.presto.spi.ConnectorTableLayoutHandle;
 import com.facebook.presto.spi.FixedSplitSource;
+import com.facebook.presto.spi.NodeManager;
 import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.SchemaTableName;
 import com.facebook.presto.spi.TableNotFoundException;
 import com.facebook.presto.spi.connector.ConnectorSplitManager;
 import com.facebook.presto.spi.connector.ConnectorTransactionHandle;
+import com.google.common.base.Throwables;
 import com.google.common.base.Verify;
 import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ImmutableList;
@@ -42,8 +44,10 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.function.Function;
 
@@ -60,7 +64,6 @@ import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Strings.isNullOrEmpty;
 import static com.google.common.collect.Iterables.concat;
 import static com.google.common.collect.Iterables.getOnlyElement;
-import static com.google.common.collect.Iterables.transform;
 import static java.lang.Math.min;
 import static java.lang.String.format;
 import static java.util.Objects.requireNonNull;
@@ -76,12 +79,15 @@ public class HiveSplitManager
     private final NamenodeStats namenodeStats;
     private final HdfsEnvironment hdfsEnvironment;
     private final DirectoryLister directoryLister;
+    private final Optional<DirectoryLister> immutablePartitionDirectoryLister;
     private final Executor executor;
     private final int maxOutstandingSplits;
     private final int minPartitionBatchSize;
     private final int maxPartitionBatchSize;
     private final int maxInitialSplits;
     private final boolean recursiveDfsWalkerEnabled;
+    private final Optional<SplitAffinityProvider> splitAffinityProvider;
+    private final int maxPrefetchedDirectoryListings;
 
     @Inject
     public HiveSplitManager(
@@ -91,20 +97,24 @@ public class HiveSplitManager
             NamenodeStats namenodeStats,
             HdfsEnvironment hdfsEnvironment,
             DirectoryLister directoryLister,
-            @ForHiveClient ExecutorService executorService)
+            CachingDirectoryLister cachingDirectoryLister,
+            @ForHiveClient ExecutorService executorService,
+            NodeManager nodeManager)
     {
         this(connectorId,
                 metastoreProvider,
                 namenodeStats,
                 hdfsEnvironment,
                 directoryLister,
+                hiveClientConfig.isImmutablePartitions() ? Optional.of(cachingDirectoryLister) : Optional.empty(),
                 new BoundedExecutor(executorService, hiveClientConfig.getMaxSplitIteratorThreads()),
                 hiveClientConfig.getMaxOutstandingSplits(),
                 hiveClientConfig.getMinPartitionBatchSize(),
                 hiveClientConfig.getMaxPartitionBatchSize(),
                 hiveClientConfig.getMaxInitialSplits(),
-                hiveClientConfig.getRecursiveDirWalkerEnabled()
-        );
+                hiveClientConfig.getRecursiveDirWalkerEnabled(),
+                hiveClientConfig.isSplitAffinityEnabled() ? Optional.of(new SplitAffinityProvider(nodeManager)) : Optional.empty(),
+                hiveClientConfig.getMaxPrefetchedDirectoryListings());
     }
 
     public HiveSplitManager(
@@ -119,12 +129,45 @@ public class HiveSplitManager
             int maxPartitionBatchSize,
             int maxInitialSplits,
             boolean recursiveDfsWalkerEnabled)
+    {
+        this(connectorId,
+                metastoreProvider,
+                namenodeStats,
+                hdfsEnvironment,
+                directoryLister,
+                Optional.empty(),
+                executor,
+                maxOutstandingSplits,
+                minPartitionBatchSize,
+                maxPartitionBatchSize,
+                maxInitialSplits,
+                recursiveDfsWalkerEnabled,
+                Optional.empty(),
+                0);
+    }
+
+    public HiveSplitManager(
+            HiveConnectorId connectorId,
+            Function<HiveTransactionHandle, SemiTransactionalHiveMetastore> metastoreProvider,
+            NamenodeStats namenodeStats,
+            HdfsEnvironment hdfsEnvironment,
+            DirectoryLister directoryLister,
+            Optional<DirectoryLister> immutablePartitionDirectoryLister,
+            Executor executor,
+            int maxOutstandingSplits,
+            int minPartitionBatchSize,
+            int maxPartitionBatchSize,
+            int maxInitialSplits,
+            boolean recursiveDfsWalkerEnabled,
+            Optional<SplitAffinityProvider> splitAffinityProvider,
+            int maxPrefetchedDirectoryListings)
     {
         this.connectorId = requireNonNull(connectorId, "connectorId is null").toString();
         this.metastoreProvider = requireNonNull(metastoreProvider, "metastore is null");
         this.namenodeStats = requireNonNull(namenodeStats, "namenodeStats is null");
         this.hdfsEnvironment = requireNonNull(hdfsEnvironment, "hdfsEnvironment is null");
         this.directoryLister = requireNonNull(directoryLister, "directoryLister is null");
+        this.immutablePartitionDirectoryLister = requireNonNull(immutablePartitionDirectoryLister, "immutablePartitionDirectoryLister is null");
         this.executor = new ErrorCodedExecutor(executor);
         checkArgument(maxOutstandingSplits >= 1, "maxOutstandingSplits must be at least 1");
         this.maxOutstandingSplits = maxOutstandingSplits;
@@ -132,6 +175,9 @@ public class HiveSplitManager
         this.maxPartitionBatchSize = maxPartitionBatchSize;
         this.maxInitialSplits = maxInitialSplits;
         this.recursiveDfsWalkerEnabled = recursiveDfsWalkerEnabled;
+        this.splitAffinityProvider = requireNonNull(splitAffinityProvider, "splitAffinityProvider is null");
+        checkArgument(maxPrefetchedDirectoryListings >= 0, "maxPrefetchedDirectoryListings is negative");
+        this.maxPrefetchedDirectoryListings = maxPrefetchedDirectoryListings;
     }
 
     @Override
@@ -159,6 +205,12 @@ public class HiveSplitManager
         }
         Iterable<HivePartitionMetadata> hivePartitions = getPartitionMetadata(metastore, table.get(), tableName, partitions, bucketHandle.map(HiveBucketHandle::toBucketProperty));
 
+        // only partitions are immutable, the directory of an unpartitioned table changes with every insert
+        DirectoryLister directoryLister = this.directoryLister;
+        if (!table.get().getPartitionColumns().isEmpty() && immutablePartitionDirectoryLister.isPresent()) {
+            directoryLister = immutablePartitionDirectoryLister.get();
+        }
+
         HiveSplitLoader hiveSplitLoader = new BackgroundHiveSplitLoader(
                 connectorId,
                 table.get(),
@@ -172,7 +224,9 @@ public class HiveSplitManager
                 executor,
                 maxPartitionBatchSize,
                 maxInitialSplits,
-                recursiveDfsWalkerEnabled);
+                recursiveDfsWalkerEnabled,
+                splitAffinityProvider,
+                maxPrefetchedDirectoryListings);
 
         HiveSplitSource splitSource = new HiveSplitSource(maxOutstandingSplits, hiveSplitLoader, executor);
         hiveSplitLoader.start(splitSource);
@@ -194,7 +248,7 @@ public class HiveSplitManager
         }
 
         Iterable<List<HivePartition>> partitionNameBatches = partitionExponentially(hivePartitions, minPartitionBatchSize, maxPartitionBatchSize);
-        Iterable<List<HivePartitionMetadata>> partitionBatches = transform(partitionNameBatches, partitionBatch -> {
+        Function<List<HivePartition>, List<HivePartitionMetadata>> partitionBatchLoader = partitionBatch -> {
             Map<String, Optional<Partition>> batch = metastore.getPartitionsByNames(
                     tableName.getSchemaName(),
                     tableName.getTableName(),
@@ -271,8 +325,53 @@ public class HiveSplitManager
             }
 
             return results.build();
-        });
-        return concat(partitionBatches);
+        };
+        return concat(prefetchPartitionBatches(partitionNameBatches, partitionBatchLoader));
+    }
+
+    /**
+     * Loads each batch of partitions in the background while the previous batch is consumed
+     */
+    private Iterable<List<HivePartitionMetadata>> prefetchPartitionBatches(Iterable<List<HivePartition>> partitionBatches, Function<List<HivePartition>, List<HivePartitionMetadata>> loader)
+    {
+        return () -> new AbstractIterator<List<HivePartitionMetadata>>()
+        {
+            private final Iterator<List<HivePartition>> iterator = partitionBatches.iterator();
+            private FutureTask<List<HivePartitionMetadata>> nextBatch = prefetchNextBatch();
+
+            @Override
+            protected List<HivePartitionMetadata> computeNext()
+            {
+                if (nextBatch == null) {
+                    return endOfData();
+                }
+                FutureTask<List<HivePartitionMetadata>> batch = nextBatch;
+                // the batch is loaded here if the executor has not started it yet
+                batch.run();
+                nextBatch = prefetchNextBatch();
+                try {
+                    return batch.get();
+                }
+                catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new RuntimeException(e);
+                }
+                catch (ExecutionException e) {
+                    throw Throwables.propagate(e.getCause());
+                }
+            }
+
+            private FutureTask<List<HivePartitionMetadata>> prefetchNextBatch()
+            {
+                if (!iterator.hasNext()) {
+                    return null;
+                }
+                List<HivePartition> partitionBatch = iterator.next();
+                FutureTask<List<HivePartitionMetadata>> task = new FutureTask<>(() -> loader.apply(partitionBatch));
+                executor.execute(task);
+                return task;
+            }
+        };
     }
 
     /**
@@ -17,6 +17,15 @@ import com.facebook.presto.hive.metastore.HivePageSinkMetadataProvider;
 import com.facebook.presto.hive.metastore.Partition;
 import com.facebook.presto.hive.metastore.StorageFormat;
 import com.facebook.presto.hive.metastore.Table;
+import com.facebook.presto.hive.orc.OrcFileWriter;
+import com.facebook.presto.hive.rcfile.RcFileFileWriter;
+import com.facebook.presto.orc.OrcWriterOptions;
+import com.facebook.presto.orc.metadata.CompressionKind;
+import com.facebook.presto.orc.writer.ColumnWriters;
+import com.facebook.presto.rcfile.AircompressorCodecFactory;
+import com.facebook.presto.rcfile.HadoopCodecFactory;
+import com.facebook.presto.rcfile.RcFileEncoding;
+import com.facebook.presto.rcfile.binary.BinaryRcFileEncoding;
 import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.PrestoException;
@@ -26,15 +35,23 @@ import com.google.common.base.Splitter;
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Sets;
+import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hive.common.FileUtils;
 import org.apache.hadoop.hive.conf.HiveConf;
 import org.apache.hadoop.hive.ql.io.HiveIgnoreKeyTextOutputFormat;
+import org.apache.hadoop.hive.ql.io.RCFileOutputFormat;
+import org.apache.hadoop.hive.ql.io.orc.OrcOutputFormat;
+import org.apache.hadoop.hive.serde2.columnar.ColumnarSerDe;
+import org.apache.hadoop.hive.serde2.columnar.LazyBinaryColumnarSerDe;
 import org.apache.hadoop.io.compress.CompressionCodec;
 import org.apache.hadoop.io.compress.DefaultCodec;
 import org.apache.hadoop.mapred.JobConf;
 import org.apache.hive.common.util.ReflectionUtil;
+import org.joda.time.DateTimeZone;
 
+import java.io.IOException;
+import java.io.OutputStream;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
@@ -48,11 +65,15 @@ import static com.facebook.presto.hive.HiveErrorCode.HIVE_PARTITION_READ_ONLY;
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_PARTITION_SCHEMA_MISMATCH;
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_PATH_ALREADY_EXISTS;
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_UNSUPPORTED_FORMAT;
+import static com.facebook.presto.hive.HiveErrorCode.HIVE_WRITER_OPEN_ERROR;
 import static com.facebook.presto.hive.HivePartitionKey.HIVE_DEFAULT_DYNAMIC_PARTITION;
+import static com.facebook.presto.hive.HiveSessionProperties.isOrcOptimizedWriterEnabled;
+import static com.facebook.presto.hive.HiveSessionProperties.isRcfileOptimizedWriterEnabled;
 import static com.facebook.presto.hive.HiveType.toHiveTypes;
 import static com.facebook.presto.hive.HiveWriteUtils.getField;
 import static com.facebook.presto.hive.metastore.MetastoreUtil.getHiveSchema;
 import static com.facebook.presto.hive.metastore.StorageFormat.fromHiveStorageFormat;
+import static com.facebook.presto.hive.rcfile.RcFilePageSourceFactory.createTextVectorEncoding;
 import static com.facebook.presto.spi.StandardErrorCode.NOT_FOUND;
 import static com.google.common.base.Preconditions.checkArgument;
 import static java.lang.String.format;
@@ -89,6 +110,8 @@ public class HiveWriterFactory
     private final TypeManager typeManager;
     private final HdfsEnvironment hdfsEnvironment;
     private final JobConf conf;
+    private final HiveCompressionCodec compressionCodec;
+    private final DateTimeZone hiveStorageTimeZone;
 
     private final Table table;
     private final boolean immutablePartitions;
@@ -110,6 +133,8 @@ public class HiveWriterFactory
             HivePageSinkMetadataProvider pageSinkMetadataProvider,
             TypeManager typeManager,
             HdfsEnvironment hdfsEnvironment,
+            HiveCompressionCodec compressionCodec,
+            DateTimeZone hiveStorageTimeZone,
             boolean immutablePartitions,
             ConnectorSession session)
     {
@@ -127,6 +152,8 @@ public class HiveWriterFactory
         this.typeManager = requireNonNull(typeManager, "typeManager is null");
 
         this.hdfsEnvironment = requireNonNull(hdfsEnvironment, "hdfsEnvironment is null");
+        this.compressionCodec = requireNonNull(compressionCodec, "compressionCodec is null");
+        this.hiveStorageTimeZone = requireNonNull(hiveStorageTimeZone, "hiveStorageTimeZone is null");
         this.immutablePartitions = immutablePartitions;
 
         // divide input columns into partition and data columns
@@ -292,16 +319,123 @@ public class HiveWriterFactory
         validateSchema(partitionName, schema);
 
         String fileNameWithExtension = fileName + getFileExtension(conf, outputStorageFormat);
-        HiveRecordWriter hiveRecordWriter = new HiveRecordWriter(
-                new Path(write, fileNameWithExtension),
-                dataColumns.stream()
-                        .map(DataColumn::getName)
-                        .collect(toList()),
-                outputStorageFormat,
-                schema,
-                typeManager,
-                conf);
-        return new HiveWriter(hiveRecordWriter, partitionName, isNew, fileNameWithExtension, write.toString(), target.toString());
+        Path path = new Path(write, fileNameWithExtension);
+
+        HiveFileWriter fileWriter = null;
+        if (isOrcOptimizedWriterEnabled(session) && OrcOutputFormat.class.getName().equals(outputStorageFormat.getOutputFormat())) {
+            fileWriter = createOrcFileWriter(path, schema).orElse(null);
+        }
+        if (isRcfileOptimizedWriterEnabled(session) && RCFileOutputFormat.class.getName().equals(outputStorageFormat.getOutputFormat())) {
+            fileWriter = createRcFileWriter(path, schema, outputStorageFormat).orElse(null);
+        }
+        if (fileWriter == null) {
+            fileWriter = new HiveRecordWriter(
+                    path,
+                    dataColumns.stream()
+                            .map(DataColumn::getName)
+                            .collect(toList()),
+                    outputStorageFormat,
+                    schema,
+                    typeManager,
+                    conf);
+        }
+        return new HiveWriter(fileWriter, partitionName, isNew, fileNameWithExtension, write.toString(), target.toString());
+    }
+
+    private Optional<HiveFileWriter> createOrcFileWriter(Path path, Properties schema)
+    {
+        // existing tables may have columns in a different order
+        List<String> fileColumnNames = Splitter.on(',').trimResults().omitEmptyStrings().splitToList(schema.getProperty(META_TABLE_COLUMNS, ""));
+        List<Type> fileColumnTypes = toHiveTypes(schema.getProperty(META_TABLE_COLUMN_TYPES, "")).stream()
+                .map(hiveType -> hiveType.getType(typeManager))
+                .collect(toList());
+
+        // fall back to the Hive writer for types the native writer does not support
+        if (!fileColumnTypes.stream().allMatch(ColumnWriters::isSupportedType)) {
+            return Optional.empty();
+        }
+
+        List<String> inputColumnNames = dataColumns.stream()
+                .map(DataColumn::getName)
+                .collect(toList());
+        int[] fileInputColumnIndexes = fileColumnNames.stream()
+                .mapToInt(inputColumnNames::indexOf)
+                .toArray();
+
+        try {
+            FileSystem fileSystem = hdfsEnvironment.getFileSystem(session.getUser(), path, conf);
+            OutputStream outputStream = fileSystem.create(path);
+            return Optional.of(new OrcFileWriter(
+                    fileSystem,
+                    path,
+                    outputStream,
+                    fileColumnNames,
+                    fileColumnTypes,
+                    fileInputColumnIndexes,
+                    toOrcCompressionKind(compressionCodec),
+                    new OrcWriterOptions(),
+                    hiveStorageTimeZone));
+        }
+        catch (IOException e) {
+            throw new PrestoException(HIVE_WRITER_OPEN_ERROR, "Error creating ORC file", e);
+        }
+    }
+
+    private Optional<HiveFileWriter> createRcFileWriter(Path path, Properties schema, StorageFormat storageFormat)
+    {
+        RcFileEncoding rcFileEncoding;
+        if (LazyBinaryColumnarSerDe.class.getName().equals(storageFormat.getSerDe())) {
+            rcFileEncoding = new BinaryRcFileEncoding();
+        }
+        else if (ColumnarSerDe.class.getName().equals(storageFormat.getSerDe())) {
+            rcFileEncoding = createTextVectorEncoding(schema, hiveStorageTimeZone);
+        }
+        else {
+            return Optional.empty();
+        }
+
+        // existing tables may have columns in a different order
+        List<String> fileColumnNames = Splitter.on(',').trimResults().omitEmptyStrings().splitToList(schema.getProperty(META_TABLE_COLUMNS, ""));
+        List<Type> fileColumnTypes = toHiveTypes(schema.getProperty(META_TABLE_COLUMN_TYPES, "")).stream()
+                .map(hiveType -> hiveType.getType(typeManager))
+                .collect(toList());
+
+        List<String> inputColumnNames = dataColumns.stream()
+                .map(DataColumn::getName)
+                .collect(toList());
+        int[] fileInputColumnIndexes = fileColumnNames.stream()
+                .mapToInt(inputColumnNames::indexOf)
+                .toArray();
+
+        try {
+            FileSystem fileSystem = hdfsEnvironment.getFileSystem(session.getUser(), path, conf);
+            OutputStream outputStream = fileSystem.create(path);
+            return Optional.of(new RcFileFileWriter(
+                    fileSystem,
+                    path,
+                    outputStream,
+                    fileColumnTypes,
+                    fileInputColumnIndexes,
+                    rcFileEncoding,
+                    compressionCodec.getCodec().map(Class::getName),
+                    new AircompressorCodecFactory(new HadoopCodecFactory(conf.getClassLoader()))));
+        }
+        catch (IOException e) {
+            throw new PrestoException(HIVE_WRITER_OPEN_ERROR, "Error creating RCFile file", e);
+        }
+    }
+
+    private static CompressionKind toOrcCompressionKind(HiveCompressionCodec compressionCodec)
+    {
+        switch (compressionCodec) {
+            case NONE:
+                return CompressionKind.UNCOMPRESSED;
+            case SNAPPY:
+                return CompressionKind.SNAPPY;
+            case GZIP:
+                return CompressionKind.ZLIB;
+        }
+        throw new IllegalArgumentException("Unsupported compression codec: " + compressionCodec);
     }
 
     private void validateSchema(Optional<String> partitionName, Properties schema)
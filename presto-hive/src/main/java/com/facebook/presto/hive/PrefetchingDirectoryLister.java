@@ -0,0 +1,129 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.google.common.collect.ImmutableList;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.LocatedFileStatus;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RemoteIterator;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Lists directories of upcoming partitions in the background, so the listing is
+ * usually complete when the split loader gets to the partition. Directories that
+ * were not prefetched are listed by the delegate on demand.
+ */
+@ThreadSafe
+class PrefetchingDirectoryLister
+        implements DirectoryLister
+{
+    private final DirectoryLister delegate;
+    private final Executor executor;
+    private final ConcurrentMap<Path, Listing> listings = new ConcurrentHashMap<>();
+
+    public PrefetchingDirectoryLister(DirectoryLister delegate, Executor executor)
+    {
+        this.delegate = requireNonNull(delegate, "delegate is null");
+        this.executor = requireNonNull(executor, "executor is null");
+    }
+
+    public void prefetch(FileSystem fs, Path path)
+    {
+        Listing listing = new Listing(fs, path);
+        if (listings.putIfAbsent(path, listing) == null) {
+            executor.execute(listing::load);
+        }
+    }
+
+    @Override
+    public RemoteIterator<LocatedFileStatus> list(FileSystem fs, Path path)
+            throws IOException
+    {
+        Listing listing = listings.remove(path);
+        if (listing == null) {
+            return delegate.list(fs, path);
+        }
+        return new SimpleRemoteIterator(listing.get().iterator());
+    }
+
+    private class Listing
+    {
+        private final FileSystem fs;
+        private final Path path;
+        private final AtomicBoolean started = new AtomicBoolean();
+        private final CompletableFuture<List<LocatedFileStatus>> files = new CompletableFuture<>();
+
+        public Listing(FileSystem fs, Path path)
+        {
+            this.fs = requireNonNull(fs, "fs is null");
+            this.path = requireNonNull(path, "path is null");
+        }
+
+        public void load()
+        {
+            // the listing is run by whoever gets to it first, so a consumer never
+            // waits for a prefetch that is still queued behind other work
+            if (!started.compareAndSet(false, true)) {
+                return;
+            }
+            try {
+                ImmutableList.Builder<LocatedFileStatus> builder = ImmutableList.builder();
+                RemoteIterator<LocatedFileStatus> iterator = delegate.list(fs, path);
+                while (iterator.hasNext()) {
+                    builder.add(iterator.next());
+                }
+                files.complete(builder.build());
+            }
+            catch (IOException | RuntimeException e) {
+                files.completeExceptionally(e);
+            }
+        }
+
+        public List<LocatedFileStatus> get()
+                throws IOException
+        {
+            load();
+            try {
+                return files.get();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            }
+            catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof IOException) {
+                    throw (IOException) cause;
+                }
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw new RuntimeException(cause);
+            }
+        }
+    }
+}
@@ -0,0 +1,64 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import com.facebook.presto.spi.HostAddress;
+import com.facebook.presto.spi.Node;
+import com.facebook.presto.spi.NodeManager;
+import com.google.common.collect.ImmutableList;
+import io.airlift.slice.XxHash64;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+import static io.airlift.slice.Slices.utf8Slice;
+import static java.lang.Math.min;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Chooses preferred workers for the splits of a file, so repeated reads of the file
+ * are scheduled on workers that have it in their local file cache. The workers are
+ * chosen with rendezvous hashing, so the choice for a file only changes when one of
+ * its preferred workers leaves or a new worker outranks them.
+ */
+public class SplitAffinityProvider
+{
+    private static final int PREFERRED_WORKER_COUNT = 2;
+
+    private final NodeManager nodeManager;
+
+    public SplitAffinityProvider(NodeManager nodeManager)
+    {
+        this.nodeManager = requireNonNull(nodeManager, "nodeManager is null");
+    }
+
+    public List<HostAddress> getPreferredAddresses(String path)
+    {
+        long pathHash = XxHash64.hash(utf8Slice(path));
+        List<Node> nodes = new ArrayList<>(nodeManager.getWorkerNodes());
+        nodes.sort(Comparator.comparingLong((Node node) -> score(pathHash, node)).reversed());
+
+        ImmutableList.Builder<HostAddress> addresses = ImmutableList.builder();
+        for (Node node : nodes.subList(0, min(PREFERRED_WORKER_COUNT, nodes.size()))) {
+            addresses.add(node.getHostAndPort());
+        }
+        return addresses.build();
+    }
+
+    private static long score(long pathHash, Node node)
+    {
+        return XxHash64.hash(pathHash ^ XxHash64.hash(utf8Slice(node.getNodeIdentifier())));
+    }
+}
@@ -0,0 +1,148 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.cache;
+
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FSInputStream;
+
+import java.io.EOFException;
+import java.io.IOException;
+
+import static com.google.common.base.Preconditions.checkPositionIndexes;
+import static com.google.common.base.Preconditions.checkState;
+import static java.lang.Math.min;
+import static java.lang.Math.toIntExact;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Input stream that serves reads from the chunks of the file in the {@link LocalFileCache}
+ * and loads missing chunks from the remote stream.
+ */
+class CachingInputStream
+        extends FSInputStream
+{
+    private final LocalFileCache fileCache;
+    private final String path;
+    private final long length;
+    private final long modificationTime;
+    private final FSDataInputStream remote;
+
+    private long position;
+    private boolean closed;
+
+    public CachingInputStream(LocalFileCache fileCache, String path, long length, long modificationTime, FSDataInputStream remote)
+    {
+        this.fileCache = requireNonNull(fileCache, "fileCache is null");
+        this.path = requireNonNull(path, "path is null");
+        this.length = length;
+        this.modificationTime = modificationTime;
+        this.remote = requireNonNull(remote, "remote is null");
+    }
+
+    @Override
+    public int read(long position, byte[] buffer, int offset, int length)
+            throws IOException
+    {
+        checkState(!closed, "Stream is closed");
+        checkPositionIndexes(offset, offset + length, buffer.length);
+        if (position >= this.length) {
+            return -1;
+        }
+        int readLength = toIntExact(min(length, this.length - position));
+
+        long chunkSize = fileCache.getChunkSize();
+        int bytesRead = 0;
+        while (bytesRead < readLength) {
+            long currentPosition = position + bytesRead;
+            long chunkStart = (currentPosition / chunkSize) * chunkSize;
+            int chunkLength = toIntExact(min(chunkSize, this.length - chunkStart));
+            int offsetInChunk = toIntExact(currentPosition - chunkStart);
+            int bytesInChunk = min(readLength - bytesRead, chunkLength - offsetInChunk);
+
+            fileCache.readChunk(path, modificationTime, chunkStart, chunkLength, remote, offsetInChunk, buffer, offset + bytesRead, bytesInChunk);
+            bytesRead += bytesInChunk;
+        }
+        return readLength;
+    }
+
+    @Override
+    public void readFully(long position, byte[] buffer, int offset, int length)
+            throws IOException
+    {
+        if (position + length > this.length) {
+            throw new EOFException("Reading past end of file: " + path);
+        }
+        read(position, buffer, offset, length);
+    }
+
+    @Override
+    public int read()
+            throws IOException
+    {
+        byte[] buffer = new byte[1];
+        int bytesRead = read(buffer, 0, 1);
+        return bytesRead < 0 ? -1 : buffer[0] & 0xFF;
+    }
+
+    @Override
+    public int read(byte[] buffer, int offset, int length)
+            throws IOException
+    {
+        int bytesRead = read(position, buffer, offset, length);
+        if (bytesRead > 0) {
+            position += bytesRead;
+        }
+        return bytesRead;
+    }
+
+    @Override
+    public void seek(long position)
+            throws IOException
+    {
+        checkState(!closed, "Stream is closed");
+        if (position < 0 || position > length) {
+            throw new EOFException("Seek position is outside of the file: " + position);
+        }
+        this.position = position;
+    }
+
+    @Override
+    public long getPos()
+    {
+        return position;
+    }
+
+    @Override
+    public boolean seekToNewSource(long targetPosition)
+    {
+        return false;
+    }
+
+    @Override
+    public int available()
+    {
+        return toIntExact(min(Integer.MAX_VALUE, length - position));
+    }
+
+    @Override
+    public void close()
+            throws IOException
+    {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        remote.close();
+    }
+}
@@ -0,0 +1,315 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.cache;
+
+import com.facebook.presto.hive.HiveClientConfig;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
+import io.airlift.log.Logger;
+import io.airlift.stats.CounterStat;
+import io.airlift.units.DataSize;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
+
+import javax.annotation.concurrent.ThreadSafe;
+import javax.inject.Inject;
+
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.Math.toIntExact;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Read-through cache of remote file data on local disk. Files are cached in aligned
+ * chunks of a fixed size, keyed on the path and modification time of the file, and
+ * the least recently used chunks are evicted when the cache exceeds its size quota.
+ */
+@ThreadSafe
+public class LocalFileCache
+{
+    private static final Logger log = Logger.get(LocalFileCache.class);
+    private static final String CHUNK_FILE_PREFIX = "chunk-";
+
+    private final boolean enabled;
+    private final File directory;
+    private final int chunkSize;
+    private final Cache<ChunkKey, File> chunks;
+    private final AtomicLong nextChunkId = new AtomicLong();
+    private final AtomicLong cachedBytes = new AtomicLong();
+
+    private final CounterStat hits = new CounterStat();
+    private final CounterStat misses = new CounterStat();
+    private final CounterStat bytesReadFromCache = new CounterStat();
+    private final CounterStat bytesReadFromRemote = new CounterStat();
+    private final CounterStat writeFailures = new CounterStat();
+
+    @Inject
+    public LocalFileCache(HiveClientConfig config)
+    {
+        this(config.isFileCacheEnabled(), config.getFileCacheDirectory(), config.getFileCacheMaxSize(), config.getFileCacheChunkSize());
+    }
+
+    public LocalFileCache(boolean enabled, File directory, DataSize maxSize, DataSize chunkSize)
+    {
+        this.enabled = enabled;
+        this.directory = requireNonNull(directory, "directory is null");
+        this.chunkSize = toIntExact(requireNonNull(chunkSize, "chunkSize is null").toBytes());
+        requireNonNull(maxSize, "maxSize is null");
+        checkArgument(this.chunkSize > 0, "chunkSize must be positive");
+
+        this.chunks = CacheBuilder.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((ChunkKey key, File file) -> key.getLength())
+                .removalListener(this::chunkRemoved)
+                .build();
+
+        if (enabled) {
+            // the cache index is not persisted, so chunks of a previous run can not be used
+            try {
+                Files.createDirectories(directory.toPath());
+            }
+            catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            File[] files = directory.listFiles((dir, name) -> name.startsWith(CHUNK_FILE_PREFIX));
+            if (files != null) {
+                for (File file : files) {
+                    deleteChunkFile(file);
+                }
+            }
+        }
+    }
+
+    /**
+     * Opens the file for reading. If the cache is enabled, positioned reads of the
+     * returned stream are served from the local chunks of the file when present.
+     */
+    public FSDataInputStream open(FileSystem fileSystem, Path path, FileStatus fileStatus)
+            throws IOException
+    {
+        FSDataInputStream inputStream = fileSystem.open(path);
+        if (!enabled) {
+            return inputStream;
+        }
+        return new FSDataInputStream(new CachingInputStream(this, path.toString(), fileStatus.getLen(), fileStatus.getModificationTime(), inputStream));
+    }
+
+    int getChunkSize()
+    {
+        return chunkSize;
+    }
+
+    /**
+     * Reads from the chunk starting at {@code chunkStart} into the buffer, loading the
+     * chunk from the remote stream if it is not cached.
+     */
+    void readChunk(String path, long modificationTime, long chunkStart, int chunkLength, FSDataInputStream remote, int offsetInChunk, byte[] buffer, int bufferOffset, int length)
+            throws IOException
+    {
+        ChunkKey key = new ChunkKey(path, modificationTime, chunkStart, chunkLength);
+        File file = chunks.getIfPresent(key);
+        if (file != null) {
+            try (RandomAccessFile input = new RandomAccessFile(file, "r")) {
+                input.seek(offsetInChunk);
+                input.readFully(buffer, bufferOffset, length);
+                hits.update(1);
+                bytesReadFromCache.update(length);
+                return;
+            }
+            catch (FileNotFoundException e) {
+                // evicted concurrently
+                chunks.invalidate(key);
+            }
+        }
+
+        misses.update(1);
+        byte[] chunk = new byte[chunkLength];
+        remote.readFully(chunkStart, chunk, 0, chunkLength);
+        bytesReadFromRemote.update(chunkLength);
+        System.arraycopy(chunk, offsetInChunk, buffer, bufferOffset, length);
+
+        storeChunk(key, chunk);
+    }
+
+    private void storeChunk(ChunkKey key, byte[] chunk)
+    {
+        File file = new File(directory, CHUNK_FILE_PREFIX + nextChunkId.incrementAndGet());
+        try (OutputStream output = new FileOutputStream(file)) {
+            output.write(chunk);
+        }
+        catch (IOException e) {
+            // a failure of the local disk must not fail the query
+            writeFailures.update(1);
+            log.warn(e, "Failed to write chunk of %s to file cache", key.getPath());
+            deleteChunkFile(file);
+            return;
+        }
+        cachedBytes.addAndGet(key.getLength());
+        chunks.put(key, file);
+    }
+
+    private void chunkRemoved(RemovalNotification<ChunkKey, File> notification)
+    {
+        cachedBytes.addAndGet(-notification.getKey().getLength());
+        deleteChunkFile(notification.getValue());
+    }
+
+    private static void deleteChunkFile(File file)
+    {
+        if (!file.delete() && file.exists()) {
+            log.warn("Failed to delete %s", file);
+        }
+    }
+
+    @Managed
+    public boolean isEnabled()
+    {
+        return enabled;
+    }
+
+    @Managed
+    public long getCachedChunks()
+    {
+        return chunks.size();
+    }
+
+    @Managed
+    public long getCachedBytes()
+    {
+        return cachedBytes.get();
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getHits()
+    {
+        return hits;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getMisses()
+    {
+        return misses;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getBytesReadFromCache()
+    {
+        return bytesReadFromCache;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getBytesReadFromRemote()
+    {
+        return bytesReadFromRemote;
+    }
+
+    @Managed
+    @Nested
+    public CounterStat getWriteFailures()
+    {
+        return writeFailures;
+    }
+
+    @Managed
+    public void flush()
+    {
+        chunks.invalidateAll();
+    }
+
+    @VisibleForTesting
+    void cleanUp()
+    {
+        chunks.cleanUp();
+    }
+
+    private static final class ChunkKey
+    {
+        private final String path;
+        private final long modificationTime;
+        private final long start;
+        private final int length;
+
+        public ChunkKey(String path, long modificationTime, long start, int length)
+        {
+            this.path = requireNonNull(path, "path is null");
+            this.modificationTime = modificationTime;
+            this.start = start;
+            this.length = length;
+        }
+
+        public String getPath()
+        {
+            return path;
+        }
+
+        public int getLength()
+        {
+            return length;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            ChunkKey other = (ChunkKey) o;
+            return modificationTime == other.modificationTime &&
+                    start == other.start &&
+                    length == other.length &&
+                    path.equals(other.path);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(path, modificationTime, start, length);
+        }
+
+        @Override
+        public String toString()
+        {
+            return toStringHelper(this)
+                    .add("path", path)
+                    .add("modificationTime", modificationTime)
+                    .add("start", start)
+                    .add("length", length)
+                    .toString();
+        }
+    }
+}
@@ -23,7 +23,10 @@ import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
 import com.google.common.util.concurrent.UncheckedExecutionException;
 import io.airlift.units.Duration;
 import org.apache.hadoop.hive.metastore.api.Database;
@@ -31,10 +34,12 @@ import org.apache.hadoop.hive.metastore.api.PrincipalPrivilegeSet;
 import org.apache.hadoop.hive.metastore.api.PrivilegeGrantInfo;
 import org.weakref.jmx.Managed;
 
+import javax.annotation.concurrent.GuardedBy;
 import javax.annotation.concurrent.ThreadSafe;
 import javax.inject.Inject;
 
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -44,6 +49,7 @@ import java.util.OptionalLong;
 import java.util.Set;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
 
 import static com.facebook.presto.hive.HiveUtil.toPartitionValues;
 import static com.google.common.base.MoreObjects.toStringHelper;
@@ -62,6 +68,9 @@ public class CachingHiveMetastore
         implements ExtendedHiveMetastore
 {
     protected final ExtendedHiveMetastore delegate;
+    private final ExecutorService executor;
+    private final int maxPartitionsPerRequest;
+    private final PartitionReloader partitionReloader = new PartitionReloader();
     private final LoadingCache<String, Optional<Database>> databaseCache;
     private final LoadingCache<String, List<String>> databaseNamesCache;
     private final LoadingCache<HiveTableName, Optional<Table>> tableCache;
@@ -79,15 +88,17 @@ public class CachingHiveMetastore
         this(requireNonNull(delegate, "delegate is null"),
                 requireNonNull(executor, "executor is null"),
                 requireNonNull(hiveClientConfig, "hiveClientConfig is null").getMetastoreCacheTtl(),
-                hiveClientConfig.getMetastoreRefreshInterval());
+                hiveClientConfig.getMetastoreRefreshInterval(),
+                hiveClientConfig.getMaxPartitionBatchSize());
     }
 
-    public CachingHiveMetastore(ExtendedHiveMetastore delegate, ExecutorService executor, Duration cacheTtl, Duration refreshInterval)
+    public CachingHiveMetastore(ExtendedHiveMetastore delegate, ExecutorService executor, Duration cacheTtl, Duration refreshInterval, int maxPartitionsPerRequest)
     {
         this(requireNonNull(delegate, "delegate is null"),
                 requireNonNull(executor, "executor is null"),
                 OptionalLong.of(requireNonNull(cacheTtl, "cacheTtl is null").toMillis()),
-                OptionalLong.of(requireNonNull(refreshInterval, "refreshInterval is null").toMillis()));
+                OptionalLong.of(requireNonNull(refreshInterval, "refreshInterval is null").toMillis()),
+                maxPartitionsPerRequest);
     }
 
     public static CachingHiveMetastore memoizeMetastore(ExtendedHiveMetastore delegate)
@@ -95,12 +106,16 @@ public class CachingHiveMetastore
         return new CachingHiveMetastore(requireNonNull(delegate, "delegate is null"),
                 newDirectExecutorService(),
                 OptionalLong.empty(),
-                OptionalLong.empty());
+                OptionalLong.empty(),
+                Integer.MAX_VALUE);
     }
 
-    private CachingHiveMetastore(ExtendedHiveMetastore delegate, ExecutorService executor, OptionalLong expiresAfterWriteMillis, OptionalLong refreshMills)
+    private CachingHiveMetastore(ExtendedHiveMetastore delegate, ExecutorService executor, OptionalLong expiresAfterWriteMillis, OptionalLong refreshMills, int maxPartitionsPerRequest)
     {
+        checkArgument(maxPartitionsPerRequest > 0, "maxPartitionsPerRequest must be positive");
         this.delegate = delegate;
+        this.executor = executor;
+        this.maxPartitionsPerRequest = maxPartitionsPerRequest;
 
         databaseNamesCache = newCacheBuilder(expiresAfterWriteMillis, refreshMills)
                 .build(asyncReloading(new CacheLoader<String, List<String>>()
@@ -180,7 +195,7 @@ public class CachingHiveMetastore
                 }, executor));
 
         partitionCache = newCacheBuilder(expiresAfterWriteMillis, refreshMills)
-                .build(asyncReloading(new CacheLoader<HivePartitionName, Optional<Partition>>()
+                .build(new CacheLoader<HivePartitionName, Optional<Partition>>()
                 {
                     @Override
                     public Optional<Partition> load(HivePartitionName partitionName)
@@ -195,7 +210,13 @@ public class CachingHiveMetastore
                     {
                         return loadPartitionsByNames(partitionNames);
                     }
-                }, executor));
+
+                    @Override
+                    public ListenableFuture<Optional<Partition>> reload(HivePartitionName partitionName, Optional<Partition> oldValue)
+                    {
+                        return partitionReloader.reload(partitionName);
+                    }
+                });
 
         userRolesCache = newCacheBuilder(expiresAfterWriteMillis, refreshMills)
                 .build(asyncReloading(new CacheLoader<String, Set<String>>()
@@ -505,12 +526,45 @@ public class CachingHiveMetastore
             partitionsToFetch.add(partitionName.getPartitionName());
         }
 
+        // large requests are split into batches that are fetched concurrently,
+        // with the first batch fetched by the calling thread
+        List<List<String>> batches = Lists.partition(partitionsToFetch, maxPartitionsPerRequest);
+        List<Future<Map<HivePartitionName, Optional<Partition>>>> futures = new ArrayList<>();
+        for (List<String> batch : batches.subList(1, batches.size())) {
+            futures.add(executor.submit(() -> fetchPartitions(hiveTableName, batch)));
+        }
+
         ImmutableMap.Builder<HivePartitionName, Optional<Partition>> partitions = ImmutableMap.builder();
-        Map<String, Optional<Partition>> partitionsByNames = delegate.getPartitionsByNames(databaseName, tableName, partitionsToFetch);
+        try {
+            partitions.putAll(fetchPartitions(hiveTableName, batches.get(0)));
+            for (Future<Map<HivePartitionName, Optional<Partition>>> future : futures) {
+                partitions.putAll(future.get());
+            }
+        }
+        catch (ExecutionException e) {
+            throw Throwables.propagate(e.getCause());
+        }
+        finally {
+            for (Future<?> future : futures) {
+                future.cancel(true);
+            }
+        }
+        return partitions.build();
+    }
+
+    private Map<HivePartitionName, Optional<Partition>> fetchPartitions(HiveTableName hiveTableName, List<String> partitionNames)
+    {
+        Map<String, Optional<Partition>> partitionsByNames = delegate.getPartitionsByNames(hiveTableName.getDatabaseName(), hiveTableName.getTableName(), partitionNames);
+
+        // partitions that do not exist are cached as absent, so they are not fetched again
+        Map<HivePartitionName, Optional<Partition>> partitions = new HashMap<>();
+        for (String partitionName : partitionNames) {
+            partitions.put(HivePartitionName.partition(hiveTableName, partitionName), Optional.empty());
+        }
         for (Entry<String, Optional<Partition>> entry : partitionsByNames.entrySet()) {
             partitions.put(HivePartitionName.partition(hiveTableName, entry.getKey()), entry.getValue());
         }
-        return partitions.build();
+        return partitions;
     }
 
     @Override
@@ -622,6 +676,69 @@ public class CachingHiveMetastore
         return cacheBuilder;
     }
 
+    /**
+     * Refreshes expired partitions in the background. Partitions that become due for a
+     * refresh while the previous refreshes are running are fetched together, so the
+     * partitions of frequently queried tables are refreshed with few metastore requests.
+     */
+    private class PartitionReloader
+    {
+        @GuardedBy("this")
+        private Map<HivePartitionName, SettableFuture<Optional<Partition>>> pendingReloads = new HashMap<>();
+
+        public synchronized ListenableFuture<Optional<Partition>> reload(HivePartitionName partitionName)
+        {
+            SettableFuture<Optional<Partition>> future = pendingReloads.get(partitionName);
+            if (future == null) {
+                future = SettableFuture.create();
+                pendingReloads.put(partitionName, future);
+                if (pendingReloads.size() == 1) {
+                    executor.execute(this::reloadPendingPartitions);
+                }
+            }
+            return future;
+        }
+
+        private void reloadPendingPartitions()
+        {
+            Map<HivePartitionName, SettableFuture<Optional<Partition>>> reloads;
+            synchronized (this) {
+                reloads = pendingReloads;
+                pendingReloads = new HashMap<>();
+            }
+
+            Map<HiveTableName, List<String>> partitionNamesByTable = new HashMap<>();
+            for (HivePartitionName partitionName : reloads.keySet()) {
+                if (partitionName.hasPartitionName()) {
+                    partitionNamesByTable.computeIfAbsent(partitionName.getHiveTableName(), table -> new ArrayList<>()).add(partitionName.getPartitionName());
+                }
+                else {
+                    try {
+                        reloads.get(partitionName).set(loadPartitionByName(partitionName));
+                    }
+                    catch (Throwable t) {
+                        reloads.get(partitionName).setException(t);
+                    }
+                }
+            }
+
+            for (Entry<HiveTableName, List<String>> entry : partitionNamesByTable.entrySet()) {
+                for (List<String> batch : Lists.partition(entry.getValue(), maxPartitionsPerRequest)) {
+                    try {
+                        for (Entry<HivePartitionName, Optional<Partition>> partition : fetchPartitions(entry.getKey(), batch).entrySet()) {
+                            reloads.get(partition.getKey()).set(partition.getValue());
+                        }
+                    }
+                    catch (Throwable t) {
+                        for (String partitionName : batch) {
+                            reloads.get(HivePartitionName.partition(entry.getKey(), partitionName)).setException(t);
+                        }
+                    }
+                }
+            }
+        }
+    }
+
     private static class HiveTableName
     {
         private final String databaseName;
@@ -717,6 +834,11 @@ public class CachingHiveMetastore
             return partitionValues;
         }
 
+        public boolean hasPartitionName()
+        {
+            return partitionName != null;
+        }
+
         public String getPartitionName()
         {
             return requireNonNull(partitionName, "partitionName is null");
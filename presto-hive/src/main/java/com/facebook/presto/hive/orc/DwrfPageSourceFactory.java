@@ -15,13 +15,16 @@ package com.facebook.presto.hive.orc;
 
 import com.facebook.hive.orc.OrcSerde;
 import com.facebook.presto.hive.HdfsEnvironment;
+import com.facebook.presto.hive.HiveClientConfig;
 import com.facebook.presto.hive.HiveColumnHandle;
 import com.facebook.presto.hive.HivePageSourceFactory;
+import com.facebook.presto.hive.cache.LocalFileCache;
 import com.facebook.presto.orc.metadata.DwrfMetadataReader;
 import com.facebook.presto.spi.ConnectorPageSource;
 import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.predicate.TupleDomain;
 import com.facebook.presto.spi.type.TypeManager;
+import io.airlift.units.DataSize;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.Path;
 import org.joda.time.DateTimeZone;
@@ -37,6 +40,7 @@ import static com.facebook.presto.hive.HiveSessionProperties.getOrcMaxMergeDista
 import static com.facebook.presto.hive.HiveSessionProperties.getOrcStreamBufferSize;
 import static com.facebook.presto.hive.HiveUtil.isDeserializerClass;
 import static com.facebook.presto.hive.orc.OrcPageSourceFactory.createOrcPageSource;
+import static io.airlift.units.DataSize.Unit.BYTE;
 import static java.util.Objects.requireNonNull;
 
 public class DwrfPageSourceFactory
@@ -44,12 +48,21 @@ public class DwrfPageSourceFactory
 {
     private final TypeManager typeManager;
     private final HdfsEnvironment hdfsEnvironment;
+    private final OrcMetadataCache metadataCache;
+    private final LocalFileCache fileCache;
 
-    @Inject
     public DwrfPageSourceFactory(TypeManager typeManager, HdfsEnvironment hdfsEnvironment)
+    {
+        this(typeManager, hdfsEnvironment, new OrcMetadataCache(new DataSize(0, BYTE)), new LocalFileCache(new HiveClientConfig()));
+    }
+
+    @Inject
+    public DwrfPageSourceFactory(TypeManager typeManager, HdfsEnvironment hdfsEnvironment, OrcMetadataCache metadataCache, LocalFileCache fileCache)
     {
         this.typeManager = requireNonNull(typeManager, "typeManager is null");
         this.hdfsEnvironment = requireNonNull(hdfsEnvironment, "hdfsEnvironment is null");
+        this.metadataCache = requireNonNull(metadataCache, "metadataCache is null");
+        this.fileCache = requireNonNull(fileCache, "fileCache is null");
     }
 
     @Override
@@ -70,6 +83,8 @@ public class DwrfPageSourceFactory
         return Optional.of(createOrcPageSource(
                 new DwrfMetadataReader(),
                 hdfsEnvironment,
+                metadataCache,
+                fileCache,
                 session.getUser(),
                 configuration,
                 path,
@@ -83,6 +98,7 @@ public class DwrfPageSourceFactory
                 getOrcMaxMergeDistance(session),
                 getOrcMaxBufferSize(session),
                 getOrcStreamBufferSize(session),
-                false));
+                false,
+                Optional.empty()));
     }
 }
@@ -0,0 +1,152 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.orc;
+
+import com.facebook.presto.hive.HiveFileWriter;
+import com.facebook.presto.orc.OrcWriter;
+import com.facebook.presto.orc.OrcWriterOptions;
+import com.facebook.presto.orc.metadata.CompressionKind;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilderStatus;
+import com.facebook.presto.spi.block.RunLengthEncodedBlock;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.joda.time.DateTimeZone;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+import static com.facebook.presto.hive.HiveErrorCode.HIVE_WRITER_CLOSE_ERROR;
+import static com.facebook.presto.hive.HiveErrorCode.HIVE_WRITER_DATA_ERROR;
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Writes ORC files with the native Presto ORC writer instead of the Hive record writer.
+ */
+public class OrcFileWriter
+        implements HiveFileWriter
+{
+    private final FileSystem fileSystem;
+    private final Path path;
+    private final OrcWriter orcWriter;
+    private final List<Type> fileColumnTypes;
+    private final int[] fileInputColumnIndexes;
+    private final Block[] nullBlocks;
+
+    /**
+     * @param fileInputColumnIndexes for each column of the file, the index of the
+     * input data column, or -1 if the column is not written and must be null
+     */
+    public OrcFileWriter(
+            FileSystem fileSystem,
+            Path path,
+            OutputStream outputStream,
+            List<String> fileColumnNames,
+            List<Type> fileColumnTypes,
+            int[] fileInputColumnIndexes,
+            CompressionKind compression,
+            OrcWriterOptions options,
+            DateTimeZone hiveStorageTimeZone)
+    {
+        this.fileSystem = requireNonNull(fileSystem, "fileSystem is null");
+        this.path = requireNonNull(path, "path is null");
+        this.fileColumnTypes = ImmutableList.copyOf(requireNonNull(fileColumnTypes, "fileColumnTypes is null"));
+        this.fileInputColumnIndexes = requireNonNull(fileInputColumnIndexes, "fileInputColumnIndexes is null").clone();
+        checkArgument(fileColumnTypes.size() == fileInputColumnIndexes.length, "fileColumnTypes and fileInputColumnIndexes have different sizes");
+
+        this.orcWriter = new OrcWriter(
+                outputStream,
+                fileColumnNames,
+                fileColumnTypes,
+                compression,
+                options,
+                ImmutableMap.of(),
+                hiveStorageTimeZone);
+
+        this.nullBlocks = new Block[fileColumnTypes.size()];
+        for (int fileIndex = 0; fileIndex < nullBlocks.length; fileIndex++) {
+            if (fileInputColumnIndexes[fileIndex] < 0) {
+                nullBlocks[fileIndex] = fileColumnTypes.get(fileIndex).createBlockBuilder(new BlockBuilderStatus(), 1)
+                        .appendNull()
+                        .build();
+            }
+        }
+    }
+
+    @Override
+    public void appendRows(Page dataPage)
+    {
+        Block[] blocks = new Block[fileColumnTypes.size()];
+        for (int fileIndex = 0; fileIndex < blocks.length; fileIndex++) {
+            int inputColumnIndex = fileInputColumnIndexes[fileIndex];
+            if (inputColumnIndex < 0) {
+                blocks[fileIndex] = new RunLengthEncodedBlock(nullBlocks[fileIndex], dataPage.getPositionCount());
+            }
+            else {
+                blocks[fileIndex] = dataPage.getBlock(inputColumnIndex);
+            }
+        }
+
+        try {
+            orcWriter.write(new Page(dataPage.getPositionCount(), blocks));
+        }
+        catch (IOException e) {
+            throw new PrestoException(HIVE_WRITER_DATA_ERROR, e);
+        }
+    }
+
+    @Override
+    public void commit()
+    {
+        try {
+            orcWriter.close();
+        }
+        catch (IOException e) {
+            throw new PrestoException(HIVE_WRITER_CLOSE_ERROR, "Error committing write to Hive", e);
+        }
+    }
+
+    @Override
+    public void rollback()
+    {
+        try {
+            try {
+                orcWriter.close();
+            }
+            finally {
+                // the partially written file must not be left behind
+                fileSystem.delete(path, false);
+            }
+        }
+        catch (IOException e) {
+            throw new PrestoException(HIVE_WRITER_CLOSE_ERROR, "Error rolling back write to Hive", e);
+        }
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("path", path)
+                .toString();
+    }
+}
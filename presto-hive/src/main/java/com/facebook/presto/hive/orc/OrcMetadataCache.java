@@ -0,0 +1,316 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.orc;
+
+import com.facebook.presto.hive.HiveClientConfig;
+import com.facebook.presto.orc.OrcFileMetadataCache;
+import com.facebook.presto.orc.OrcFileTail;
+import com.facebook.presto.orc.metadata.RowGroupIndex;
+import com.facebook.presto.orc.metadata.StripeFooter;
+import com.facebook.presto.orc.metadata.StripeInformation;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheStats;
+import com.google.common.util.concurrent.ExecutionError;
+import com.google.common.util.concurrent.UncheckedExecutionException;
+import io.airlift.units.DataSize;
+import org.weakref.jmx.Managed;
+
+import javax.annotation.concurrent.ThreadSafe;
+import javax.inject.Inject;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Throwables.propagateIfPossible;
+import static java.lang.Math.min;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Worker wide cache of decoded ORC and DWRF metadata: file tails, stripe footers and
+ * row group indexes. Entries are keyed on the path, length and modification time of
+ * the file, so a rewritten file is never served stale metadata.
+ */
+@ThreadSafe
+public class OrcMetadataCache
+{
+    // decoded metadata objects are several times larger than their encoded form
+    private static final int DECODED_SIZE_FACTOR = 4;
+    private static final int ENTRY_OVERHEAD = 128;
+
+    private final Cache<CacheKey, CacheEntry> cache;
+    private final AtomicLong weight = new AtomicLong();
+    private final boolean enabled;
+
+    @Inject
+    public OrcMetadataCache(HiveClientConfig config)
+    {
+        this(config.getOrcMetadataCacheMaxSize());
+    }
+
+    public OrcMetadataCache(DataSize maxSize)
+    {
+        requireNonNull(maxSize, "maxSize is null");
+        this.enabled = maxSize.toBytes() > 0;
+        this.cache = CacheBuilder.newBuilder()
+                .maximumWeight(maxSize.toBytes())
+                .weigher((CacheKey key, CacheEntry entry) -> entry.getWeight())
+                .removalListener(notification -> weight.addAndGet(-notification.getValue().getWeight()))
+                .recordStats()
+                .build();
+    }
+
+    /**
+     * Returns the metadata cache for the given version of the file.
+     */
+    public OrcFileMetadataCache getFileMetadataCache(String path, long length, long modificationTime)
+    {
+        if (!enabled) {
+            return OrcFileMetadataCache.NO_CACHE;
+        }
+        return new FileMetadataCache(new FileKey(path, length, modificationTime));
+    }
+
+    @Managed
+    public long getSize()
+    {
+        return cache.size();
+    }
+
+    @Managed
+    public long getRetainedSizeInBytes()
+    {
+        return weight.get();
+    }
+
+    @Managed
+    public long getHitCount()
+    {
+        return cache.stats().hitCount();
+    }
+
+    @Managed
+    public long getMissCount()
+    {
+        return cache.stats().missCount();
+    }
+
+    @Managed
+    public double getHitRate()
+    {
+        return cache.stats().hitRate();
+    }
+
+    @Managed
+    public long getEvictionCount()
+    {
+        return cache.stats().evictionCount();
+    }
+
+    @Managed
+    public void flushCache()
+    {
+        cache.invalidateAll();
+    }
+
+    @VisibleForTesting
+    CacheStats getStats()
+    {
+        return cache.stats();
+    }
+
+    private <T> T get(CacheKey key, long encodedSize, OrcFileMetadataCache.MetadataLoader<T> loader)
+            throws IOException
+    {
+        try {
+            @SuppressWarnings("unchecked")
+            T value = (T) cache.get(key, () -> newEntry(loader.load(), encodedSize)).getValue();
+            return value;
+        }
+        catch (ExecutionException | UncheckedExecutionException | ExecutionError e) {
+            propagateIfPossible(e.getCause(), IOException.class);
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
+    private CacheEntry newEntry(Object value, long encodedSize)
+    {
+        int entryWeight = (int) min(Integer.MAX_VALUE, ENTRY_OVERHEAD + encodedSize * DECODED_SIZE_FACTOR);
+        weight.addAndGet(entryWeight);
+        return new CacheEntry(value, entryWeight);
+    }
+
+    private class FileMetadataCache
+            implements OrcFileMetadataCache
+    {
+        private final FileKey fileKey;
+
+        public FileMetadataCache(FileKey fileKey)
+        {
+            this.fileKey = requireNonNull(fileKey, "fileKey is null");
+        }
+
+        @Override
+        public OrcFileTail getFileTail(MetadataLoader<OrcFileTail> loader)
+                throws IOException
+        {
+            CacheKey key = new CacheKey(fileKey, -1, -1);
+            CacheEntry entry = cache.getIfPresent(key);
+            if (entry != null) {
+                return (OrcFileTail) entry.getValue();
+            }
+            // the size of the tail is only known after it was read
+            OrcFileTail fileTail = loader.load();
+            cache.put(key, newEntry(fileTail, fileTail.getTailSize()));
+            return fileTail;
+        }
+
+        @Override
+        public StripeFooter getStripeFooter(StripeInformation stripe, MetadataLoader<StripeFooter> loader)
+                throws IOException
+        {
+            return get(new CacheKey(fileKey, stripe.getOffset(), -1), stripe.getFooterLength(), loader);
+        }
+
+        @Override
+        public Optional<List<RowGroupIndex>> getRowGroupIndexes(StripeInformation stripe, int column)
+        {
+            CacheEntry entry = cache.getIfPresent(new CacheKey(fileKey, stripe.getOffset(), column));
+            if (entry == null) {
+                return Optional.empty();
+            }
+            @SuppressWarnings("unchecked")
+            List<RowGroupIndex> rowGroupIndexes = (List<RowGroupIndex>) entry.getValue();
+            return Optional.of(rowGroupIndexes);
+        }
+
+        @Override
+        public void putRowGroupIndexes(StripeInformation stripe, int column, List<RowGroupIndex> rowGroupIndexes, long indexSize)
+        {
+            cache.put(new CacheKey(fileKey, stripe.getOffset(), column), newEntry(rowGroupIndexes, indexSize));
+        }
+    }
+
+    private static final class FileKey
+    {
+        private final String path;
+        private final long length;
+        private final long modificationTime;
+
+        public FileKey(String path, long length, long modificationTime)
+        {
+            this.path = requireNonNull(path, "path is null");
+            this.length = length;
+            this.modificationTime = modificationTime;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            FileKey other = (FileKey) o;
+            return length == other.length &&
+                    modificationTime == other.modificationTime &&
+                    path.equals(other.path);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(path, length, modificationTime);
+        }
+
+        @Override
+        public String toString()
+        {
+            return toStringHelper(this)
+                    .add("path", path)
+                    .add("length", length)
+                    .add("modificationTime", modificationTime)
+                    .toString();
+        }
+    }
+
+    /**
+     * Key of a metadata entry of a file. The file tail has no stripe offset, the stripe
+     * footer has no column, and the row group indexes have both.
+     */
+    private static final class CacheKey
+    {
+        private final FileKey fileKey;
+        private final long stripeOffset;
+        private final int column;
+
+        public CacheKey(FileKey fileKey, long stripeOffset, int column)
+        {
+            this.fileKey = requireNonNull(fileKey, "fileKey is null");
+            this.stripeOffset = stripeOffset;
+            this.column = column;
+        }
+
+        @Override
+        public boolean equals(Object o)
+        {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            CacheKey other = (CacheKey) o;
+            return stripeOffset == other.stripeOffset &&
+                    column == other.column &&
+                    fileKey.equals(other.fileKey);
+        }
+
+        @Override
+        public int hashCode()
+        {
+            return Objects.hash(fileKey, stripeOffset, column);
+        }
+    }
+
+    private static final class CacheEntry
+    {
+        private final Object value;
+        private final int weight;
+
+        public CacheEntry(Object value, int weight)
+        {
+            this.value = requireNonNull(value, "value is null");
+            this.weight = weight;
+        }
+
+        public Object getValue()
+        {
+            return value;
+        }
+
+        public int getWeight()
+        {
+            return weight;
+        }
+    }
+}
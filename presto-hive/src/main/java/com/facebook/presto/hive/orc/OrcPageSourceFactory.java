@@ -13,11 +13,14 @@
  */
 package com.facebook.presto.hive.orc;
 
+import com.facebook.presto.hive.ForHiveClient;
 import com.facebook.presto.hive.HdfsEnvironment;
 import com.facebook.presto.hive.HiveClientConfig;
 import com.facebook.presto.hive.HiveColumnHandle;
 import com.facebook.presto.hive.HivePageSourceFactory;
+import com.facebook.presto.hive.cache.LocalFileCache;
 import com.facebook.presto.orc.OrcDataSource;
+import com.facebook.presto.orc.OrcFileMetadataCache;
 import com.facebook.presto.orc.OrcPredicate;
 import com.facebook.presto.orc.OrcReader;
 import com.facebook.presto.orc.OrcRecordReader;
@@ -37,6 +40,7 @@ import com.google.common.collect.ImmutableMap;
 import io.airlift.units.DataSize;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.apache.hadoop.hive.ql.io.orc.OrcSerde;
@@ -50,6 +54,8 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Properties;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.regex.Pattern;
 
 import static com.facebook.presto.hive.HiveColumnHandle.ColumnType.REGULAR;
@@ -60,8 +66,11 @@ import static com.facebook.presto.hive.HiveSessionProperties.getOrcMaxBufferSize
 import static com.facebook.presto.hive.HiveSessionProperties.getOrcMaxMergeDistance;
 import static com.facebook.presto.hive.HiveSessionProperties.getOrcStreamBufferSize;
 import static com.facebook.presto.hive.HiveSessionProperties.isOrcBloomFiltersEnabled;
+import static com.facebook.presto.hive.HiveSessionProperties.isOrcStripePrefetchEnabled;
 import static com.facebook.presto.hive.HiveUtil.isDeserializerClass;
 import static com.google.common.base.Strings.nullToEmpty;
+import static com.google.common.util.concurrent.MoreExecutors.directExecutor;
+import static io.airlift.units.DataSize.Unit.BYTE;
 import static java.lang.String.format;
 import static java.util.Objects.requireNonNull;
 
@@ -72,18 +81,46 @@ public class OrcPageSourceFactory
     private final TypeManager typeManager;
     private final boolean useOrcColumnNames;
     private final HdfsEnvironment hdfsEnvironment;
+    private final OrcMetadataCache metadataCache;
+    private final LocalFileCache fileCache;
+    private final Executor stripePrefetchExecutor;
 
     @Inject
-    public OrcPageSourceFactory(TypeManager typeManager, HiveClientConfig config, HdfsEnvironment hdfsEnvironment)
+    public OrcPageSourceFactory(
+            TypeManager typeManager,
+            HiveClientConfig config,
+            HdfsEnvironment hdfsEnvironment,
+            OrcMetadataCache metadataCache,
+            LocalFileCache fileCache,
+            @ForHiveClient ExecutorService stripePrefetchExecutor)
+    {
+        this(typeManager, requireNonNull(config, "hiveClientConfig is null").isUseOrcColumnNames(), hdfsEnvironment, metadataCache, fileCache, stripePrefetchExecutor);
+    }
+
+    public OrcPageSourceFactory(TypeManager typeManager, HiveClientConfig config, HdfsEnvironment hdfsEnvironment, OrcMetadataCache metadataCache, LocalFileCache fileCache)
     {
-        this(typeManager, requireNonNull(config, "hiveClientConfig is null").isUseOrcColumnNames(), hdfsEnvironment);
+        this(typeManager, requireNonNull(config, "hiveClientConfig is null").isUseOrcColumnNames(), hdfsEnvironment, metadataCache, fileCache, directExecutor());
     }
 
     public OrcPageSourceFactory(TypeManager typeManager, boolean useOrcColumnNames, HdfsEnvironment hdfsEnvironment)
+    {
+        this(typeManager, useOrcColumnNames, hdfsEnvironment, new OrcMetadataCache(new DataSize(0, BYTE)), new LocalFileCache(new HiveClientConfig()), directExecutor());
+    }
+
+    public OrcPageSourceFactory(
+            TypeManager typeManager,
+            boolean useOrcColumnNames,
+            HdfsEnvironment hdfsEnvironment,
+            OrcMetadataCache metadataCache,
+            LocalFileCache fileCache,
+            Executor stripePrefetchExecutor)
     {
         this.typeManager = requireNonNull(typeManager, "typeManager is null");
         this.useOrcColumnNames = useOrcColumnNames;
         this.hdfsEnvironment = requireNonNull(hdfsEnvironment, "hdfsEnvironment is null");
+        this.metadataCache = requireNonNull(metadataCache, "metadataCache is null");
+        this.fileCache = requireNonNull(fileCache, "fileCache is null");
+        this.stripePrefetchExecutor = requireNonNull(stripePrefetchExecutor, "stripePrefetchExecutor is null");
     }
 
     @Override
@@ -105,6 +142,8 @@ public class OrcPageSourceFactory
         return Optional.of(createOrcPageSource(
                 new OrcMetadataReader(),
                 hdfsEnvironment,
+                metadataCache,
+                fileCache,
                 session.getUser(),
                 configuration,
                 path,
@@ -118,12 +157,15 @@ public class OrcPageSourceFactory
                 getOrcMaxMergeDistance(session),
                 getOrcMaxBufferSize(session),
                 getOrcStreamBufferSize(session),
-                isOrcBloomFiltersEnabled(session)));
+                isOrcBloomFiltersEnabled(session),
+                isOrcStripePrefetchEnabled(session) ? Optional.of(stripePrefetchExecutor) : Optional.empty()));
     }
 
     public static OrcPageSource createOrcPageSource(
             MetadataReader metadataReader,
             HdfsEnvironment hdfsEnvironment,
+            OrcMetadataCache metadataCache,
+            LocalFileCache fileCache,
             String sessionUser,
             Configuration configuration,
             Path path,
@@ -137,13 +179,17 @@ public class OrcPageSourceFactory
             DataSize maxMergeDistance,
             DataSize maxBufferSize,
             DataSize streamBufferSize,
-            boolean orcBloomFiltersEnabled)
+            boolean orcBloomFiltersEnabled,
+            Optional<Executor> stripePrefetchExecutor)
     {
         OrcDataSource orcDataSource;
+        OrcFileMetadataCache fileMetadataCache;
         try {
             FileSystem fileSystem = hdfsEnvironment.getFileSystem(sessionUser, path, configuration);
-            long size = fileSystem.getFileStatus(path).getLen();
-            FSDataInputStream inputStream = fileSystem.open(path);
+            FileStatus fileStatus = fileSystem.getFileStatus(path);
+            long size = fileStatus.getLen();
+            fileMetadataCache = metadataCache.getFileMetadataCache(path.toString(), size, fileStatus.getModificationTime());
+            FSDataInputStream inputStream = fileCache.open(fileSystem, path, fileStatus);
             orcDataSource = new HdfsOrcDataSource(path.toString(), size, maxMergeDistance, maxBufferSize, streamBufferSize, inputStream);
         }
         catch (Exception e) {
@@ -156,7 +202,7 @@ public class OrcPageSourceFactory
 
         AggregatedMemoryContext systemMemoryUsage = new AggregatedMemoryContext();
         try {
-            OrcReader reader = new OrcReader(orcDataSource, metadataReader, maxMergeDistance, maxBufferSize);
+            OrcReader reader = new OrcReader(orcDataSource, metadataReader, maxMergeDistance, maxBufferSize, fileMetadataCache);
 
             List<HiveColumnHandle> physicalColumns = getPhysicalHiveColumnHandles(columns, useOrcColumnNames, reader, path);
             ImmutableMap.Builder<Integer, Type> includedColumns = ImmutableMap.builder();
@@ -177,7 +223,8 @@ public class OrcPageSourceFactory
                     start,
                     length,
                     hiveStorageTimeZone,
-                    systemMemoryUsage);
+                    systemMemoryUsage,
+                    stripePrefetchExecutor);
 
             return new OrcPageSource(
                     recordReader,
@@ -13,8 +13,10 @@
  */
 package com.facebook.presto.hive.parquet;
 
+import com.facebook.presto.hive.cache.LocalFileCache;
 import com.facebook.presto.spi.PrestoException;
 import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileStatus;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 
@@ -98,11 +100,28 @@ public class HdfsParquetDataSource
             return new HdfsParquetDataSource(path, size, inputStream);
         }
         catch (Exception e) {
-            if (nullToEmpty(e.getMessage()).trim().equals("Filesystem closed") ||
-                    e instanceof FileNotFoundException) {
-                throw new PrestoException(HIVE_CANNOT_OPEN_SPLIT, e);
-            }
-            throw new PrestoException(HIVE_CANNOT_OPEN_SPLIT, format("Error opening Hive split %s (offset=%s, length=%s): %s", path, start, length, e.getMessage()), e);
+            throw openError(e, path, start, length);
         }
     }
+
+    public static HdfsParquetDataSource buildHdfsParquetDataSource(FileSystem fileSystem, LocalFileCache fileCache, Path path, long start, long length)
+    {
+        try {
+            FileStatus fileStatus = fileSystem.getFileStatus(path);
+            FSDataInputStream inputStream = fileCache.open(fileSystem, path, fileStatus);
+            return new HdfsParquetDataSource(path, fileStatus.getLen(), inputStream);
+        }
+        catch (Exception e) {
+            throw openError(e, path, start, length);
+        }
+    }
+
+    private static PrestoException openError(Exception e, Path path, long start, long length)
+    {
+        if (nullToEmpty(e.getMessage()).trim().equals("Filesystem closed") ||
+                e instanceof FileNotFoundException) {
+            return new PrestoException(HIVE_CANNOT_OPEN_SPLIT, e);
+        }
+        return new PrestoException(HIVE_CANNOT_OPEN_SPLIT, format("Error opening Hive split %s (offset=%s, length=%s): %s", path, start, length, e.getMessage()), e);
+    }
 }
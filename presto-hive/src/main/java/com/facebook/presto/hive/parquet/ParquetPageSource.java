@@ -29,16 +29,16 @@ import com.facebook.presto.spi.type.TypeManager;
 import com.google.common.base.Throwables;
 import com.google.common.collect.ImmutableList;
 import io.airlift.units.DataSize;
-import parquet.column.ColumnDescriptor;
 import parquet.schema.MessageType;
 
 import java.io.IOException;
-import java.util.Arrays;
 import java.util.List;
+import java.util.Optional;
 import java.util.Properties;
 
 import static com.facebook.presto.hive.HiveColumnHandle.ColumnType.REGULAR;
 import static com.facebook.presto.hive.HiveErrorCode.HIVE_CURSOR_ERROR;
+import static com.facebook.presto.hive.parquet.ParquetTypeUtils.constructField;
 import static com.facebook.presto.hive.parquet.ParquetTypeUtils.getParquetType;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
@@ -60,12 +60,12 @@ public class ParquetPageSource
 
     private final Block[] constantBlocks;
     private final int[] hiveColumnIndexes;
+    private final ParquetField[] fields;
 
     private final long totalBytes;
     private int batchId;
     private boolean closed;
     private long readTimeNanos;
-    private final boolean useParquetColumnNames;
 
     public ParquetPageSource(
             ParquetReader parquetReader,
@@ -89,11 +89,11 @@ public class ParquetPageSource
         this.fileSchema = requireNonNull(fileSchema, "fileSchema is null");
         this.requestedSchema = requireNonNull(requestedSchema, "requestedSchema is null");
         this.totalBytes = totalBytes;
-        this.useParquetColumnNames = useParquetColumnNames;
 
         int size = columns.size();
         this.constantBlocks = new Block[size];
         this.hiveColumnIndexes = new int[size];
+        this.fields = new ParquetField[size];
 
         ImmutableList.Builder<String> namesBuilder = ImmutableList.builder();
         ImmutableList.Builder<Type> typesBuilder = ImmutableList.builder();
@@ -109,13 +109,19 @@ public class ParquetPageSource
 
             hiveColumnIndexes[columnIndex] = column.getHiveColumnIndex();
 
-            if (getParquetType(column, fileSchema, useParquetColumnNames) == null) {
+            parquet.schema.Type parquetType = getParquetType(column, fileSchema, useParquetColumnNames);
+            if (parquetType == null) {
                 BlockBuilder blockBuilder = type.createBlockBuilder(new BlockBuilderStatus(), MAX_VECTOR_LENGTH);
                 for (int i = 0; i < MAX_VECTOR_LENGTH; i++) {
                     blockBuilder.appendNull();
                 }
                 constantBlocks[columnIndex] = blockBuilder.build();
             }
+            else {
+                Optional<ParquetField> field = constructField(type, parquetType);
+                checkArgument(field.isPresent(), "Unsupported layout of Parquet column %s for type %s", parquetType, type);
+                fields[columnIndex] = field.get();
+            }
         }
         types = typesBuilder.build();
         columnNames = namesBuilder.build();
@@ -169,33 +175,11 @@ public class ParquetPageSource
 
             Block[] blocks = new Block[hiveColumnIndexes.length];
             for (int fieldId = 0; fieldId < blocks.length; fieldId++) {
-                Type type = types.get(fieldId);
                 if (constantBlocks[fieldId] != null) {
                     blocks[fieldId] = constantBlocks[fieldId].getRegion(0, batchSize);
                 }
                 else {
-                    int fieldIndex;
-                    if (useParquetColumnNames) {
-                        fieldIndex = fileSchema.getFieldIndex(columnNames.get(fieldId));
-                    }
-                    else {
-                        fieldIndex = hiveColumnIndexes[fieldId];
-                    }
-
-                    // Since we only support primitives in the new reader we just create the path
-                    // from the field name and lookup the column descriptor with that path.
-                    // With complex type support this lookup logic has to be rewritten.
-                    parquet.schema.Type field = fileSchema.getFields().get(fieldIndex);
-                    String[] path = new String[] {field.getName()};
-                    ColumnDescriptor columnDescriptor = null;
-                    for (ColumnDescriptor column : fileSchema.getColumns()) {
-                        if (Arrays.equals(column.getPath(), path)) {
-                            columnDescriptor = column;
-                            break;
-                        }
-                    }
-                    checkState(columnDescriptor != null, "columnDescriptor is null");
-                    blocks[fieldId] = new LazyBlock(batchSize, new ParquetBlockLoader(columnDescriptor, type));
+                    blocks[fieldId] = new LazyBlock(batchSize, new ParquetBlockLoader(fields[fieldId]));
                 }
             }
             return new Page(batchSize, blocks);
@@ -247,14 +231,12 @@ public class ParquetPageSource
             implements LazyBlockLoader<LazyBlock>
     {
         private final int expectedBatchId = batchId;
-        private final ColumnDescriptor columnDescriptor;
-        private final Type type;
+        private final ParquetField field;
         private boolean loaded;
 
-        public ParquetBlockLoader(ColumnDescriptor columnDescriptor, Type type)
+        public ParquetBlockLoader(ParquetField field)
         {
-            this.columnDescriptor = columnDescriptor;
-            this.type = requireNonNull(type, "type is null");
+            this.field = requireNonNull(field, "field is null");
         }
 
         @Override
@@ -267,7 +249,14 @@ public class ParquetPageSource
             checkState(batchId == expectedBatchId);
 
             try {
-                Block block = parquetReader.readBlock(columnDescriptor, type);
+                Block block;
+                if (field instanceof ParquetPrimitiveField) {
+                    // top level primitive columns are flat, so every value is a row
+                    block = parquetReader.readBlock(((ParquetPrimitiveField) field).getDescriptor(), field.getType());
+                }
+                else {
+                    block = parquetReader.readBlock(field);
+                }
                 lazyBlock.setBlock(block);
             }
             catch (IOException e) {
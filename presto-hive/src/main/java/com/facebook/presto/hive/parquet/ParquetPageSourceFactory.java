@@ -17,6 +17,7 @@ import com.facebook.presto.hive.HdfsEnvironment;
 import com.facebook.presto.hive.HiveClientConfig;
 import com.facebook.presto.hive.HiveColumnHandle;
 import com.facebook.presto.hive.HivePageSourceFactory;
+import com.facebook.presto.hive.cache.LocalFileCache;
 import com.facebook.presto.hive.parquet.predicate.ParquetPredicate;
 import com.facebook.presto.hive.parquet.reader.ParquetMetadataReader;
 import com.facebook.presto.hive.parquet.reader.ParquetReader;
@@ -26,12 +27,15 @@ import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.predicate.TupleDomain;
 import com.facebook.presto.spi.type.TypeManager;
 import com.facebook.presto.spi.type.TypeSignature;
+import com.facebook.presto.spi.type.TypeSignatureParameter;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import org.apache.hadoop.conf.Configuration;
 import org.apache.hadoop.fs.FileSystem;
 import org.apache.hadoop.fs.Path;
 import org.joda.time.DateTimeZone;
+import parquet.column.ColumnDescriptor;
 import parquet.hadoop.metadata.BlockMetaData;
 import parquet.hadoop.metadata.FileMetaData;
 import parquet.hadoop.metadata.ParquetMetadata;
@@ -54,9 +58,12 @@ import static com.facebook.presto.hive.HiveSessionProperties.isParquetOptimizedR
 import static com.facebook.presto.hive.HiveSessionProperties.isParquetPredicatePushdownEnabled;
 import static com.facebook.presto.hive.HiveUtil.getDeserializerClassName;
 import static com.facebook.presto.hive.parquet.HdfsParquetDataSource.buildHdfsParquetDataSource;
+import static com.facebook.presto.hive.parquet.ParquetTypeUtils.constructField;
 import static com.facebook.presto.hive.parquet.ParquetTypeUtils.getParquetType;
 import static com.facebook.presto.hive.parquet.predicate.ParquetPredicateUtils.buildParquetPredicate;
+import static com.facebook.presto.hive.parquet.predicate.ParquetPredicateUtils.getPredicateColumns;
 import static com.facebook.presto.hive.parquet.predicate.ParquetPredicateUtils.predicateMatches;
+import static com.facebook.presto.spi.type.StandardTypes.ARRAY;
 import static com.facebook.presto.spi.type.StandardTypes.BIGINT;
 import static com.facebook.presto.spi.type.StandardTypes.BOOLEAN;
 import static com.facebook.presto.spi.type.StandardTypes.CHAR;
@@ -64,7 +71,9 @@ import static com.facebook.presto.spi.type.StandardTypes.DATE;
 import static com.facebook.presto.spi.type.StandardTypes.DECIMAL;
 import static com.facebook.presto.spi.type.StandardTypes.DOUBLE;
 import static com.facebook.presto.spi.type.StandardTypes.INTEGER;
+import static com.facebook.presto.spi.type.StandardTypes.MAP;
 import static com.facebook.presto.spi.type.StandardTypes.REAL;
+import static com.facebook.presto.spi.type.StandardTypes.ROW;
 import static com.facebook.presto.spi.type.StandardTypes.SMALLINT;
 import static com.facebook.presto.spi.type.StandardTypes.TIMESTAMP;
 import static com.facebook.presto.spi.type.StandardTypes.TINYINT;
@@ -88,18 +97,25 @@ public class ParquetPageSourceFactory
     private final TypeManager typeManager;
     private final boolean useParquetColumnNames;
     private final HdfsEnvironment hdfsEnvironment;
+    private final LocalFileCache fileCache;
 
     @Inject
-    public ParquetPageSourceFactory(TypeManager typeManager, HiveClientConfig config, HdfsEnvironment hdfsEnvironment)
+    public ParquetPageSourceFactory(TypeManager typeManager, HiveClientConfig config, HdfsEnvironment hdfsEnvironment, LocalFileCache fileCache)
     {
-        this(typeManager, requireNonNull(config, "hiveClientConfig is null").isUseParquetColumnNames(), hdfsEnvironment);
+        this(typeManager, requireNonNull(config, "hiveClientConfig is null").isUseParquetColumnNames(), hdfsEnvironment, fileCache);
     }
 
     public ParquetPageSourceFactory(TypeManager typeManager, boolean useParquetColumnNames, HdfsEnvironment hdfsEnvironment)
+    {
+        this(typeManager, useParquetColumnNames, hdfsEnvironment, new LocalFileCache(new HiveClientConfig()));
+    }
+
+    public ParquetPageSourceFactory(TypeManager typeManager, boolean useParquetColumnNames, HdfsEnvironment hdfsEnvironment, LocalFileCache fileCache)
     {
         this.typeManager = requireNonNull(typeManager, "typeManager is null");
         this.useParquetColumnNames = useParquetColumnNames;
         this.hdfsEnvironment = requireNonNull(hdfsEnvironment, "hdfsEnvironment is null");
+        this.fileCache = requireNonNull(fileCache, "fileCache is null");
     }
 
     @Override
@@ -126,8 +142,9 @@ public class ParquetPageSourceFactory
             return Optional.empty();
         }
 
-        return Optional.of(createParquetPageSource(
+        return createParquetPageSource(
                 hdfsEnvironment,
+                fileCache,
                 session.getUser(),
                 configuration,
                 path,
@@ -138,11 +155,12 @@ public class ParquetPageSourceFactory
                 useParquetColumnNames,
                 typeManager,
                 isParquetPredicatePushdownEnabled(session),
-                effectivePredicate));
+                effectivePredicate);
     }
 
-    public static ParquetPageSource createParquetPageSource(
+    public static Optional<ParquetPageSource> createParquetPageSource(
             HdfsEnvironment hdfsEnvironment,
+            LocalFileCache fileCache,
             String user,
             Configuration configuration,
             Path path,
@@ -158,11 +176,16 @@ public class ParquetPageSourceFactory
         ParquetDataSource dataSource = null;
         try {
             FileSystem fileSystem = hdfsEnvironment.getFileSystem(user, path, configuration);
-            dataSource = buildHdfsParquetDataSource(fileSystem, path, start, length);
+            dataSource = buildHdfsParquetDataSource(fileSystem, fileCache, path, start, length);
             ParquetMetadata parquetMetadata = ParquetMetadataReader.readFooter(fileSystem, path);
             FileMetaData fileMetaData = parquetMetadata.getFileMetaData();
             MessageType fileSchema = fileMetaData.getSchema();
 
+            if (!nestedColumnsSupported(columns, fileSchema, useParquetColumnNames, typeManager)) {
+                dataSource.close();
+                return Optional.empty();
+            }
+
             List<parquet.schema.Type> fields = columns.stream()
                     .filter(column -> column.getColumnType() == REGULAR)
                     .map(column -> getParquetType(column, fileSchema, useParquetColumnNames))
@@ -179,20 +202,26 @@ public class ParquetPageSourceFactory
                 }
             }
 
+            ParquetPredicate parquetPredicate = ParquetPredicate.TRUE;
+            List<ColumnDescriptor> predicateColumns = ImmutableList.of();
             if (predicatePushdownEnabled) {
-                ParquetPredicate parquetPredicate = buildParquetPredicate(columns, effectivePredicate, fileMetaData.getSchema(), typeManager);
+                parquetPredicate = buildParquetPredicate(columns, effectivePredicate, fileMetaData.getSchema(), typeManager);
+                final ParquetPredicate finalParquetPredicate = parquetPredicate;
                 final ParquetDataSource finalDataSource = dataSource;
                 blocks = blocks.stream()
-                        .filter(block -> predicateMatches(parquetPredicate, block, finalDataSource, requestedSchema, effectivePredicate))
+                        .filter(block -> predicateMatches(finalParquetPredicate, block, finalDataSource, requestedSchema, effectivePredicate))
                         .collect(toList());
+                predicateColumns = getPredicateColumns(requestedSchema, effectivePredicate);
             }
 
             ParquetReader parquetReader = new ParquetReader(
                     requestedSchema,
                     blocks,
-                    dataSource);
+                    dataSource,
+                    parquetPredicate,
+                    predicateColumns);
 
-            return new ParquetPageSource(
+            return Optional.of(new ParquetPageSource(
                     parquetReader,
                     dataSource,
                     fileSchema,
@@ -202,7 +231,7 @@ public class ParquetPageSourceFactory
                     columns,
                     effectivePredicate,
                     typeManager,
-                    useParquetColumnNames);
+                    useParquetColumnNames));
         }
         catch (Exception e) {
             try {
@@ -223,14 +252,12 @@ public class ParquetPageSourceFactory
         }
     }
 
-    // TODO: support complex types
     private static boolean columnTypeSupported(List<HiveColumnHandle> columns)
     {
         boolean regularColumnsSupported = columns.stream()
                 .filter(column -> column.getColumnType() == REGULAR)
                 .map(HiveColumnHandle::getTypeSignature)
-                .map(TypeSignature::getBase)
-                .allMatch(SUPPORTED_COLUMN_TYPES::contains);
+                .allMatch(ParquetPageSourceFactory::typeSupported);
 
         boolean partitionColumnsSupported = columns.stream()
                 .filter(HiveColumnHandle::isPartitionKey)
@@ -240,4 +267,30 @@ public class ParquetPageSourceFactory
 
         return regularColumnsSupported && partitionColumnsSupported;
     }
+
+    private static boolean typeSupported(TypeSignature typeSignature)
+    {
+        String base = typeSignature.getBase();
+        if (base.equals(ARRAY) || base.equals(MAP) || base.equals(ROW)) {
+            return typeSignature.getParameters().stream()
+                    .map(TypeSignatureParameter::getTypeSignatureOrNamedTypeSignature)
+                    .allMatch(parameter -> parameter.isPresent() && typeSupported(parameter.get()));
+        }
+        return SUPPORTED_COLUMN_TYPES.contains(base);
+    }
+
+    // arrays, maps and rows are only read if they use one of the layouts written by Hive
+    private static boolean nestedColumnsSupported(List<HiveColumnHandle> columns, MessageType fileSchema, boolean useParquetColumnNames, TypeManager typeManager)
+    {
+        for (HiveColumnHandle column : columns) {
+            if (column.getColumnType() != REGULAR) {
+                continue;
+            }
+            parquet.schema.Type parquetType = getParquetType(column, fileSchema, useParquetColumnNames);
+            if (parquetType != null && !constructField(typeManager.getType(column.getTypeSignature()), parquetType).isPresent()) {
+                return false;
+            }
+        }
+        return true;
+    }
 }
@@ -14,10 +14,25 @@
 package com.facebook.presto.hive.parquet;
 
 import com.facebook.presto.hive.HiveColumnHandle;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spi.type.TypeSignatureParameter;
+import com.google.common.collect.ImmutableList;
 import parquet.column.Encoding;
 import parquet.io.ParquetDecodingException;
+import parquet.schema.GroupType;
 import parquet.schema.MessageType;
-import parquet.schema.Type;
+import parquet.schema.PrimitiveType;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+
+import static com.facebook.presto.hive.HiveUtil.isArrayType;
+import static com.facebook.presto.hive.HiveUtil.isMapType;
+import static com.facebook.presto.hive.HiveUtil.isRowType;
+import static parquet.schema.Type.Repetition.OPTIONAL;
+import static parquet.schema.Type.Repetition.REPEATED;
+import static parquet.schema.Type.Repetition.REQUIRED;
 
 public final class ParquetTypeUtils
 {
@@ -37,6 +52,108 @@ public final class ParquetTypeUtils
         return null;
     }
 
+    /**
+     * Maps the Presto type of a column to the layout of the column in the file. Returns empty if
+     * the column is missing or its layout is not one of the array, map and row encodings written by Hive.
+     */
+    public static Optional<ParquetField> constructField(Type type, parquet.schema.Type parquetType)
+    {
+        return constructField(type, parquetType, new String[0], 0, 0);
+    }
+
+    private static Optional<ParquetField> constructField(Type type, parquet.schema.Type parquetType, String[] parentPath, int parentRepetitionLevel, int parentDefinitionLevel)
+    {
+        if (parquetType == null) {
+            return Optional.empty();
+        }
+        String[] path = Arrays.copyOf(parentPath, parentPath.length + 1);
+        path[parentPath.length] = parquetType.getName();
+        int repetitionLevel = parentRepetitionLevel + (parquetType.isRepetition(REPEATED) ? 1 : 0);
+        int definitionLevel = parentDefinitionLevel + (parquetType.isRepetition(REQUIRED) ? 0 : 1);
+        boolean required = !parquetType.isRepetition(OPTIONAL);
+
+        if (parquetType.isPrimitive()) {
+            if (isArrayType(type) || isMapType(type) || isRowType(type)) {
+                return Optional.empty();
+            }
+            PrimitiveType primitiveType = parquetType.asPrimitiveType();
+            RichColumnDescriptor descriptor = new RichColumnDescriptor(path, primitiveType, repetitionLevel, definitionLevel);
+            return Optional.of(new ParquetPrimitiveField(type, repetitionLevel, definitionLevel, required, descriptor));
+        }
+
+        GroupType groupType = parquetType.asGroupType();
+        if (isArrayType(type)) {
+            if (groupType.getFieldCount() != 1 || !groupType.getType(0).isRepetition(REPEATED)) {
+                return Optional.empty();
+            }
+            parquet.schema.Type repeatedType = groupType.getType(0);
+            Type elementType = type.getTypeParameters().get(0);
+            Optional<ParquetField> element;
+            if (isRepeatedElementGroup(repeatedType, groupType.getName())) {
+                // three-level list: optional group list (LIST) { repeated group bag { optional <element> } }
+                String[] repeatedPath = Arrays.copyOf(path, path.length + 1);
+                repeatedPath[path.length] = repeatedType.getName();
+                element = constructField(elementType, repeatedType.asGroupType().getType(0), repeatedPath, repetitionLevel + 1, definitionLevel + 1);
+            }
+            else {
+                // two-level list, where the repeated field is the element itself
+                element = constructField(elementType, repeatedType, path, repetitionLevel, definitionLevel);
+            }
+            if (!element.isPresent()) {
+                return Optional.empty();
+            }
+            return Optional.of(new ParquetGroupField(type, repetitionLevel, definitionLevel, required, ImmutableList.of(element)));
+        }
+
+        if (isMapType(type)) {
+            // optional group map (MAP) { repeated group key_value { required <key>; optional <value> } }
+            if (groupType.getFieldCount() != 1 || groupType.getType(0).isPrimitive() || !groupType.getType(0).isRepetition(REPEATED)) {
+                return Optional.empty();
+            }
+            GroupType keyValueType = groupType.getType(0).asGroupType();
+            if (keyValueType.getFieldCount() != 2) {
+                return Optional.empty();
+            }
+            String[] keyValuePath = Arrays.copyOf(path, path.length + 1);
+            keyValuePath[path.length] = keyValueType.getName();
+            Optional<ParquetField> key = constructField(type.getTypeParameters().get(0), keyValueType.getType(0), keyValuePath, repetitionLevel + 1, definitionLevel + 1);
+            Optional<ParquetField> value = constructField(type.getTypeParameters().get(1), keyValueType.getType(1), keyValuePath, repetitionLevel + 1, definitionLevel + 1);
+            if (!key.isPresent() || !value.isPresent()) {
+                return Optional.empty();
+            }
+            return Optional.of(new ParquetGroupField(type, repetitionLevel, definitionLevel, required, ImmutableList.of(key, value)));
+        }
+
+        if (isRowType(type)) {
+            List<TypeSignatureParameter> parameters = type.getTypeSignature().getParameters();
+            ImmutableList.Builder<Optional<ParquetField>> fields = ImmutableList.builder();
+            boolean anyFieldPresent = false;
+            for (int i = 0; i < parameters.size(); i++) {
+                String name = parameters.get(i).getNamedTypeSignature().getName();
+                parquet.schema.Type fieldType = getParquetTypeByName(name, groupType);
+                Optional<ParquetField> field = constructField(type.getTypeParameters().get(i), fieldType, path, repetitionLevel, definitionLevel);
+                anyFieldPresent |= field.isPresent();
+                fields.add(field);
+            }
+            // the nulls of the row can only be read from the levels of one of its fields
+            if (!anyFieldPresent) {
+                return Optional.empty();
+            }
+            return Optional.of(new ParquetGroupField(type, repetitionLevel, definitionLevel, required, fields.build()));
+        }
+        return Optional.empty();
+    }
+
+    private static boolean isRepeatedElementGroup(parquet.schema.Type repeatedType, String listName)
+    {
+        // a repeated group with a single field wraps the element, unless it uses one of the
+        // legacy names for a repeated group that is itself a single field struct element
+        return !repeatedType.isPrimitive() &&
+                repeatedType.asGroupType().getFieldCount() == 1 &&
+                !repeatedType.getName().equals("array") &&
+                !repeatedType.getName().equals(listName + "_tuple");
+    }
+
     public static ParquetEncoding getParquetEncoding(Encoding encoding)
     {
         switch (encoding) {
@@ -61,14 +178,14 @@ public final class ParquetTypeUtils
         }
     }
 
-    private static parquet.schema.Type getParquetTypeByName(String columnName, MessageType messageType)
+    private static parquet.schema.Type getParquetTypeByName(String columnName, GroupType groupType)
     {
-        if (messageType.containsField(columnName)) {
-            return messageType.getType(columnName);
+        if (groupType.containsField(columnName)) {
+            return groupType.getType(columnName);
         }
         // parquet is case-sensitive, but hive is not. all hive columns get converted to lowercase
         // check for direct match above but if no match found, try case-insensitive match
-        for (Type type : messageType.getFields()) {
+        for (parquet.schema.Type type : groupType.getFields()) {
             if (type.getName().equalsIgnoreCase(columnName)) {
                 return type;
             }
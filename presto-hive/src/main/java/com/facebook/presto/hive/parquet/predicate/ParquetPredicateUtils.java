@@ -95,6 +95,24 @@ public final class ParquetPredicateUtils
         return parquetFieldIndex;
     }
 
+    /**
+     * Returns the top level primitive columns of the requested schema that are constrained by the
+     * predicate. Their values are rows, so the statistics of their pages can be used to skip rows.
+     */
+    public static List<ColumnDescriptor> getPredicateColumns(MessageType requestedSchema, TupleDomain<HiveColumnHandle> effectivePredicate)
+    {
+        if (!effectivePredicate.getDomains().isPresent()) {
+            return ImmutableList.of();
+        }
+        ImmutableList.Builder<ColumnDescriptor> columns = ImmutableList.builder();
+        for (ColumnDescriptor column : requestedSchema.getColumns()) {
+            if (column.getPath().length == 1 && column.getMaxRepetitionLevel() == 0 && isColumnPredicate(column, effectivePredicate)) {
+                columns.add(column);
+            }
+        }
+        return columns.build();
+    }
+
     public static boolean predicateMatches(ParquetPredicate parquetPredicate,
             BlockMetaData block,
             ParquetDataSource dataSource,
@@ -25,6 +25,7 @@ import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.BlockBuilder;
 import com.facebook.presto.spi.type.Type;
 import io.airlift.slice.Slice;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
 import parquet.bytes.BytesUtils;
 import parquet.column.ColumnDescriptor;
 import parquet.column.values.ValuesReader;
@@ -63,12 +64,14 @@ public abstract class ParquetColumnReader
     private ParquetDataPage page;
     private int remainingValueCountInPage;
     private int readOffset;
+    // repetition level of the next value, which was read to find the end of the previous row
+    private int nextRepetitionLevel = -1;
 
     public abstract BlockBuilder createBlockBuilder(Type type);
 
-    public abstract void readValues(BlockBuilder blockBuilder, int valueNumber, Type type);
+    protected abstract void readValue(BlockBuilder blockBuilder, Type type);
 
-    public abstract void skipValues(int offsetNumber);
+    protected abstract void skipValue();
 
     public static ParquetColumnReader createReader(RichColumnDescriptor descriptor)
     {
@@ -137,6 +140,15 @@ public abstract class ParquetColumnReader
         nextBatchSize = batchSize;
     }
 
+    /**
+     * Skips rows that are not returned in any batch. Must be followed by {@link #prepareNextRead}.
+     */
+    public void skipRows(int rowCount)
+    {
+        readOffset = readOffset + nextBatchSize + rowCount;
+        nextBatchSize = 0;
+    }
+
     public int getCurrentRepetitionLevel()
     {
         return repetitionLevel;
@@ -167,6 +179,14 @@ public abstract class ParquetColumnReader
             int valuePosition = 0;
             while (valuePosition < readOffset) {
                 if (page == null) {
+                    // pages that are skipped entirely are not decompressed
+                    if (pageReader.hasNextPage() && pageReader.getNextPageValueCount() <= readOffset - valuePosition) {
+                        int skippedValueCount = pageReader.getNextPageValueCount();
+                        pageReader.skipPage();
+                        valuePosition += skippedValueCount;
+                        currentValueCount += skippedValueCount;
+                        continue;
+                    }
                     readNextPage();
                 }
                 int offsetNumber = Math.min(remainingValueCountInPage, readOffset - valuePosition);
@@ -195,6 +215,92 @@ public abstract class ParquetColumnReader
         return blockBuilder.build();
     }
 
+    /**
+     * Reads the next batch of rows of a column nested in repeated or optional groups, where
+     * a row can have any number of values. Values with a definition level of at least
+     * {@code minimumDefinitionLevel} are written to the block, as nulls unless fully defined.
+     */
+    public ParquetNestedBlock readNestedBlock(Type type, int minimumDefinitionLevel)
+            throws IOException
+    {
+        checkArgument(currentValueCount <= totalValueCount, "Already read all values in column chunk");
+        if (readOffset != 0) {
+            readRows(readOffset, null, type, minimumDefinitionLevel, null, null);
+        }
+
+        BlockBuilder blockBuilder = createBlockBuilder(type);
+        IntArrayList definitionLevels = new IntArrayList(nextBatchSize);
+        IntArrayList repetitionLevels = new IntArrayList(nextBatchSize);
+        readRows(nextBatchSize, blockBuilder, type, minimumDefinitionLevel, definitionLevels, repetitionLevels);
+
+        readOffset = 0;
+        nextBatchSize = 0;
+        return new ParquetNestedBlock(blockBuilder.build(), definitionLevels.toIntArray(), repetitionLevels.toIntArray());
+    }
+
+    private void readRows(int rowCount, BlockBuilder blockBuilder, Type type, int minimumDefinitionLevel, IntArrayList definitionLevels, IntArrayList repetitionLevels)
+            throws IOException
+    {
+        int maxDefinitionLevel = columnDescriptor.getMaxDefinitionLevel();
+        int rows = 0;
+        while (currentValueCount < totalValueCount) {
+            if (page == null) {
+                readNextPage();
+            }
+            if (nextRepetitionLevel < 0) {
+                nextRepetitionLevel = repetitionReader.readLevel();
+            }
+            if (nextRepetitionLevel == 0) {
+                if (rows == rowCount) {
+                    break;
+                }
+                rows++;
+            }
+            repetitionLevel = nextRepetitionLevel;
+            nextRepetitionLevel = -1;
+            definitionLevel = definitionReader.readLevel();
+
+            if (blockBuilder == null) {
+                if (definitionLevel == maxDefinitionLevel) {
+                    skipValue();
+                }
+            }
+            else {
+                if (definitionLevel == maxDefinitionLevel) {
+                    readValue(blockBuilder, type);
+                }
+                else if (definitionLevel >= minimumDefinitionLevel) {
+                    blockBuilder.appendNull();
+                }
+                definitionLevels.add(definitionLevel);
+                repetitionLevels.add(repetitionLevel);
+            }
+            updatePosition(1);
+        }
+        checkArgument(rows == rowCount, "rows " + rows + " not equals to rowCount " + rowCount);
+    }
+
+    private void readValues(BlockBuilder blockBuilder, int valueNumber, Type type)
+    {
+        for (int i = 0; i < valueNumber; i++) {
+            if (definitionReader.readLevel() == columnDescriptor.getMaxDefinitionLevel()) {
+                readValue(blockBuilder, type);
+            }
+            else {
+                blockBuilder.appendNull();
+            }
+        }
+    }
+
+    private void skipValues(int offsetNumber)
+    {
+        for (int i = 0; i < offsetNumber; i++) {
+            if (definitionReader.readLevel() == columnDescriptor.getMaxDefinitionLevel()) {
+                skipValue();
+            }
+        }
+    }
+
     private void readNextPage()
             throws IOException
     {
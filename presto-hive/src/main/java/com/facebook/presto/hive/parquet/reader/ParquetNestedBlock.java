@@ -0,0 +1,51 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.parquet.reader;
+
+import com.facebook.presto.spi.block.Block;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Values of a nested field together with the repetition and definition levels of one of the
+ * columns below it, which are needed to assemble the enclosing arrays, maps and rows.
+ */
+public class ParquetNestedBlock
+{
+    private final Block block;
+    private final int[] definitionLevels;
+    private final int[] repetitionLevels;
+
+    public ParquetNestedBlock(Block block, int[] definitionLevels, int[] repetitionLevels)
+    {
+        this.block = requireNonNull(block, "block is null");
+        this.definitionLevels = requireNonNull(definitionLevels, "definitionLevels is null");
+        this.repetitionLevels = requireNonNull(repetitionLevels, "repetitionLevels is null");
+    }
+
+    public Block getBlock()
+    {
+        return block;
+    }
+
+    public int[] getDefinitionLevels()
+    {
+        return definitionLevels;
+    }
+
+    public int[] getRepetitionLevels()
+    {
+        return repetitionLevels;
+    }
+}
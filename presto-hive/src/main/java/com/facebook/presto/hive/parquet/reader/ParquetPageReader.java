@@ -21,6 +21,7 @@ import parquet.Ints;
 import parquet.hadoop.metadata.CompressionCodecName;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.LinkedList;
 import java.util.List;
 
@@ -52,6 +53,29 @@ class ParquetPageReader
         return valueCount;
     }
 
+    /**
+     * Returns the data pages that were not read yet, without decompressing them.
+     */
+    public List<ParquetDataPage> getCompressedPages()
+    {
+        return Collections.unmodifiableList(compressedPages);
+    }
+
+    public boolean hasNextPage()
+    {
+        return !compressedPages.isEmpty();
+    }
+
+    public int getNextPageValueCount()
+    {
+        return compressedPages.get(0).getValueCount();
+    }
+
+    public void skipPage()
+    {
+        compressedPages.remove(0);
+    }
+
     public ParquetDataPage readPage()
     {
         if (compressedPages.isEmpty()) {
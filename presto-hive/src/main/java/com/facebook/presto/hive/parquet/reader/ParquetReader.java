@@ -14,11 +14,28 @@
 package com.facebook.presto.hive.parquet.reader;
 
 import com.facebook.presto.hive.parquet.ParquetCorruptionException;
+import com.facebook.presto.hive.parquet.ParquetDataPage;
 import com.facebook.presto.hive.parquet.ParquetDataSource;
+import com.facebook.presto.hive.parquet.ParquetField;
+import com.facebook.presto.hive.parquet.ParquetGroupField;
+import com.facebook.presto.hive.parquet.ParquetPrimitiveField;
 import com.facebook.presto.hive.parquet.RichColumnDescriptor;
+import com.facebook.presto.hive.parquet.predicate.ParquetPredicate;
+import com.facebook.presto.spi.block.ArrayBlock;
 import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.BlockBuilderStatus;
+import com.facebook.presto.spi.block.InterleavedBlock;
 import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Range;
+import com.google.common.collect.RangeSet;
+import com.google.common.collect.TreeRangeSet;
 import com.google.common.primitives.Ints;
+import io.airlift.slice.Slices;
+import it.unimi.dsi.fastutil.bytes.ByteArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
 import parquet.column.ColumnDescriptor;
 import parquet.hadoop.metadata.BlockMetaData;
 import parquet.hadoop.metadata.ColumnChunkMetaData;
@@ -32,8 +49,13 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
 
+import static com.facebook.presto.hive.HiveUtil.isArrayType;
+import static com.facebook.presto.hive.HiveUtil.isMapType;
 import static com.facebook.presto.hive.parquet.ParquetValidationUtils.validateParquet;
+import static java.util.Objects.requireNonNull;
 
 public class ParquetReader
         implements Closeable
@@ -43,6 +65,8 @@ public class ParquetReader
     private final MessageType requestedSchema;
     private final List<BlockMetaData> blocks;
     private final ParquetDataSource dataSource;
+    private final ParquetPredicate predicate;
+    private final List<ColumnDescriptor> predicateColumns;
 
     private int currentBlock;
     private BlockMetaData currentBlockMetadata;
@@ -50,16 +74,34 @@ public class ParquetReader
     private long currentPosition;
     private long currentGroupRowCount;
     private long nextRowInGroup;
+    // rows of the current row group in pages that may match the predicate
+    private RangeSet<Long> candidateRows;
     private Map<ColumnDescriptor, ParquetColumnReader> columnReadersMap = new HashMap<>();
 
     public ParquetReader(MessageType requestedSchema,
             List<BlockMetaData> blocks,
             ParquetDataSource dataSource)
             throws IOException
+    {
+        this(requestedSchema, blocks, dataSource, ParquetPredicate.TRUE, ImmutableList.of());
+    }
+
+    /**
+     * @param predicateColumns flat columns of the requested schema whose page statistics
+     * are matched against the predicate to skip the rows of pages that cannot match
+     */
+    public ParquetReader(MessageType requestedSchema,
+            List<BlockMetaData> blocks,
+            ParquetDataSource dataSource,
+            ParquetPredicate predicate,
+            List<ColumnDescriptor> predicateColumns)
+            throws IOException
     {
         this.requestedSchema = requestedSchema;
         this.blocks = blocks;
         this.dataSource = dataSource;
+        this.predicate = requireNonNull(predicate, "predicate is null");
+        this.predicateColumns = ImmutableList.copyOf(requireNonNull(predicateColumns, "predicateColumns is null"));
         for (BlockMetaData block : blocks) {
             fileRowCount += block.getRowCount();
         }
@@ -90,41 +132,245 @@ public class ParquetReader
     public int nextBatch()
             throws IOException, InterruptedException
     {
-        if (nextRowInGroup >= currentGroupRowCount) {
+        Range<Long> candidateRange = getNextCandidateRange();
+        while (candidateRange == null) {
             if (!advanceToNextRowGroup()) {
                 return -1;
             }
+            candidateRange = getNextCandidateRange();
         }
 
-        int batchSize = Ints.checkedCast(Math.min(MAX_VECTOR_LENGTH, currentGroupRowCount - nextRowInGroup));
+        // rows before the candidate range are in pages that cannot match the predicate
+        long firstRow = candidateRange.lowerEndpoint();
+        int skippedRows = Ints.checkedCast(firstRow - nextRowInGroup);
+        int batchSize = Ints.checkedCast(Math.min(MAX_VECTOR_LENGTH, candidateRange.upperEndpoint() - firstRow));
 
-        nextRowInGroup += batchSize;
-        currentPosition += batchSize;
-        for (ColumnDescriptor column : getColumns(requestedSchema)) {
-            ParquetColumnReader columnReader = columnReadersMap.get(column);
+        nextRowInGroup = firstRow + batchSize;
+        currentPosition += skippedRows + batchSize;
+        for (ParquetColumnReader columnReader : columnReadersMap.values()) {
+            if (skippedRows > 0) {
+                columnReader.skipRows(skippedRows);
+            }
             columnReader.prepareNextRead(batchSize);
         }
         return batchSize;
     }
 
+    private Range<Long> getNextCandidateRange()
+    {
+        if (candidateRows == null) {
+            return null;
+        }
+        Set<Range<Long>> ranges = candidateRows.subRangeSet(Range.closedOpen(nextRowInGroup, currentGroupRowCount)).asRanges();
+        if (ranges.isEmpty()) {
+            return null;
+        }
+        return ranges.iterator().next();
+    }
+
     private boolean advanceToNextRowGroup()
-            throws InterruptedException
+            throws IOException
     {
-        if (currentBlock == blocks.size()) {
-            return false;
+        while (currentBlock < blocks.size()) {
+            currentBlockMetadata = blocks.get(currentBlock);
+            currentBlock = currentBlock + 1;
+
+            nextRowInGroup = 0L;
+            currentGroupRowCount = currentBlockMetadata.getRowCount();
+            columnReadersMap.clear();
+            initializeColumnReaders();
+            candidateRows = getCandidateRows();
+            if (!candidateRows.isEmpty()) {
+                return true;
+            }
+            currentPosition += currentGroupRowCount;
         }
-        currentBlockMetadata = blocks.get(currentBlock);
-        currentBlock = currentBlock + 1;
+        return false;
+    }
 
-        nextRowInGroup = 0L;
-        currentGroupRowCount = currentBlockMetadata.getRowCount();
-        columnReadersMap.clear();
-        initializeColumnReaders();
-        return true;
+    private RangeSet<Long> getCandidateRows()
+            throws IOException
+    {
+        RangeSet<Long> rows = TreeRangeSet.create();
+        rows.add(Range.closedOpen(0L, currentGroupRowCount));
+        for (ColumnDescriptor column : predicateColumns) {
+            int ordinal = getColumnOrdinal(column);
+            // the values of a flat column are its rows
+            long firstRow = 0;
+            for (ParquetDataPage page : getColumnReader(column).getPageReader().getCompressedPages()) {
+                long endRow = firstRow + page.getValueCount();
+                if (!predicate.matches(page.getValueCount(), ImmutableMap.of(ordinal, page.getStatistics()))) {
+                    rows.remove(Range.closedOpen(firstRow, endRow));
+                }
+                firstRow = endRow;
+            }
+        }
+        return rows;
     }
 
     public Block readBlock(ColumnDescriptor columnDescriptor, Type type)
             throws IOException
+    {
+        return getColumnReader(columnDescriptor).readBlock(type);
+    }
+
+    /**
+     * Reads a column that may be nested, assembling arrays, maps and rows from the
+     * repetition and definition levels of the columns below it.
+     */
+    public Block readBlock(ParquetField field)
+            throws IOException
+    {
+        return readField(field).getBlock();
+    }
+
+    private ParquetNestedBlock readField(ParquetField field)
+            throws IOException
+    {
+        if (field instanceof ParquetPrimitiveField) {
+            ParquetPrimitiveField primitiveField = (ParquetPrimitiveField) field;
+            // optional values that are null at the leaf level still take a position in the block
+            int minimumDefinitionLevel = field.getDefinitionLevel() - (field.isRequired() ? 0 : 1);
+            return getColumnReader(primitiveField.getDescriptor()).readNestedBlock(field.getType(), minimumDefinitionLevel);
+        }
+
+        ParquetGroupField groupField = (ParquetGroupField) field;
+        if (isArrayType(field.getType())) {
+            return readArray(groupField);
+        }
+        if (isMapType(field.getType())) {
+            return readMap(groupField);
+        }
+        return readRow(groupField);
+    }
+
+    private ParquetNestedBlock readArray(ParquetGroupField field)
+            throws IOException
+    {
+        ParquetNestedBlock elements = readField(field.getChildren().get(0).get());
+        IntArrayList offsets = new IntArrayList();
+        ByteArrayList valueIsNull = new ByteArrayList();
+        calculateCollectionOffsets(field, 1, elements, offsets, valueIsNull);
+        Block block = new ArrayBlock(elements.getBlock(), Slices.wrappedIntArray(offsets.toIntArray()), 0, Slices.wrappedBuffer(valueIsNull.toByteArray()));
+        return new ParquetNestedBlock(block, elements.getDefinitionLevels(), elements.getRepetitionLevels());
+    }
+
+    private ParquetNestedBlock readMap(ParquetGroupField field)
+            throws IOException
+    {
+        ParquetNestedBlock keys = readField(field.getChildren().get(0).get());
+        ParquetNestedBlock values = readField(field.getChildren().get(1).get());
+        IntArrayList offsets = new IntArrayList();
+        ByteArrayList valueIsNull = new ByteArrayList();
+        // keys and values are interleaved, so every entry takes two positions
+        calculateCollectionOffsets(field, 2, keys, offsets, valueIsNull);
+        Block entries = new InterleavedBlock(new Block[] {keys.getBlock(), values.getBlock()});
+        Block block = new ArrayBlock(entries, Slices.wrappedIntArray(offsets.toIntArray()), 0, Slices.wrappedBuffer(valueIsNull.toByteArray()));
+        return new ParquetNestedBlock(block, keys.getDefinitionLevels(), keys.getRepetitionLevels());
+    }
+
+    private ParquetNestedBlock readRow(ParquetGroupField field)
+            throws IOException
+    {
+        List<Type> fieldTypes = field.getType().getTypeParameters();
+        Block[] fieldBlocks = new Block[fieldTypes.size()];
+        ParquetNestedBlock levels = null;
+        for (int i = 0; i < fieldBlocks.length; i++) {
+            Optional<ParquetField> child = field.getChildren().get(i);
+            if (child.isPresent()) {
+                ParquetNestedBlock nestedBlock = readField(child.get());
+                fieldBlocks[i] = nestedBlock.getBlock();
+                levels = nestedBlock;
+            }
+        }
+
+        int fieldCount = fieldBlocks.length;
+        int maxDefinitionLevel = field.getDefinitionLevel();
+        int maxRepetitionLevel = field.getRepetitionLevel();
+        int[] definitionLevels = levels.getDefinitionLevels();
+        int[] repetitionLevels = levels.getRepetitionLevels();
+        IntArrayList offsets = new IntArrayList();
+        ByteArrayList valueIsNull = new ByteArrayList();
+        int offset = 0;
+        for (int i = 0; i < definitionLevels.length; i++) {
+            // values with a higher repetition level belong to a collection inside the row
+            if (repetitionLevels[i] > maxRepetitionLevel) {
+                continue;
+            }
+            if (isValueNull(field, definitionLevels[i])) {
+                offsets.add(offset);
+                valueIsNull.add((byte) 1);
+            }
+            else if (definitionLevels[i] >= maxDefinitionLevel) {
+                offset += fieldCount;
+                offsets.add(offset);
+                valueIsNull.add((byte) 0);
+            }
+        }
+
+        int nonNullCount = offset / fieldCount;
+        for (int i = 0; i < fieldBlocks.length; i++) {
+            if (fieldBlocks[i] == null) {
+                BlockBuilder blockBuilder = fieldTypes.get(i).createBlockBuilder(new BlockBuilderStatus(), nonNullCount);
+                for (int position = 0; position < nonNullCount; position++) {
+                    blockBuilder.appendNull();
+                }
+                fieldBlocks[i] = blockBuilder.build();
+            }
+        }
+        Block block = new ArrayBlock(new InterleavedBlock(fieldBlocks), Slices.wrappedIntArray(offsets.toIntArray()), 0, Slices.wrappedBuffer(valueIsNull.toByteArray()));
+        return new ParquetNestedBlock(block, definitionLevels, repetitionLevels);
+    }
+
+    /**
+     * Computes the end offsets of the arrays or maps of a batch from the levels of a column below them.
+     * A collection starts at every value with a repetition level up to the level of the collection,
+     * and the values with the repetition level of its elements are the following elements.
+     */
+    private static void calculateCollectionOffsets(ParquetField field, int positionsPerElement, ParquetNestedBlock elements, IntArrayList offsets, ByteArrayList valueIsNull)
+    {
+        int maxDefinitionLevel = field.getDefinitionLevel();
+        int elementRepetitionLevel = field.getRepetitionLevel() + 1;
+        int[] definitionLevels = elements.getDefinitionLevels();
+        int[] repetitionLevels = elements.getRepetitionLevels();
+        int offset = 0;
+        int i = 0;
+        while (i < definitionLevels.length) {
+            int definitionLevel = definitionLevels[i];
+            int elementCount = 1;
+            i++;
+            while (i < definitionLevels.length && repetitionLevels[i] >= elementRepetitionLevel) {
+                if (repetitionLevels[i] == elementRepetitionLevel) {
+                    elementCount++;
+                }
+                i++;
+            }
+
+            if (isValueNull(field, definitionLevel)) {
+                offsets.add(offset);
+                valueIsNull.add((byte) 1);
+            }
+            else if (definitionLevel == maxDefinitionLevel) {
+                // defined but empty
+                offsets.add(offset);
+                valueIsNull.add((byte) 0);
+            }
+            else if (definitionLevel > maxDefinitionLevel) {
+                offset += elementCount * positionsPerElement;
+                offsets.add(offset);
+                valueIsNull.add((byte) 0);
+            }
+            // otherwise an enclosing group is null or empty and the collection is not present
+        }
+    }
+
+    private static boolean isValueNull(ParquetField field, int definitionLevel)
+    {
+        return !field.isRequired() && definitionLevel == field.getDefinitionLevel() - 1;
+    }
+
+    private ParquetColumnReader getColumnReader(ColumnDescriptor columnDescriptor)
+            throws IOException
     {
         ParquetColumnReader columnReader = columnReadersMap.get(columnDescriptor);
         if (columnReader.getPageReader() == null) {
@@ -138,7 +384,19 @@ public class ParquetReader
             ParquetColumnChunk columnChunk = new ParquetColumnChunk(descriptor, buffer, 0);
             columnReader.setPageReader(columnChunk.readAllPages());
         }
-        return columnReader.readBlock(type);
+        return columnReader;
+    }
+
+    private int getColumnOrdinal(ColumnDescriptor columnDescriptor)
+            throws IOException
+    {
+        List<ColumnChunkMetaData> columns = currentBlockMetadata.getColumns();
+        for (int ordinal = 0; ordinal < columns.size(); ordinal++) {
+            if (columns.get(ordinal).getPath().equals(ColumnPath.get(columnDescriptor.getPath()))) {
+                return ordinal;
+            }
+        }
+        throw new ParquetCorruptionException("Metadata is missing for column: %s", columnDescriptor);
     }
 
     private ColumnChunkMetaData getColumnChunkMetaData(ColumnDescriptor columnDescriptor)
@@ -35,26 +35,15 @@ public class ParquetTimestampColumnReader
     }
 
     @Override
-    public void readValues(BlockBuilder blockBuilder, int valueNumber, Type type)
+    protected void readValue(BlockBuilder blockBuilder, Type type)
     {
-        for (int i = 0; i < valueNumber; i++) {
-            if (definitionReader.readLevel() == columnDescriptor.getMaxDefinitionLevel()) {
-                Binary binary = valuesReader.readBytes();
-                type.writeLong(blockBuilder, getTimestampMillis(binary));
-            }
-            else {
-                blockBuilder.appendNull();
-            }
-        }
+        Binary binary = valuesReader.readBytes();
+        type.writeLong(blockBuilder, getTimestampMillis(binary));
     }
 
     @Override
-    public void skipValues(int offsetNumber)
+    protected void skipValue()
     {
-        for (int i = 0; i < offsetNumber; i++) {
-            if (definitionReader.readLevel() == columnDescriptor.getMaxDefinitionLevel()) {
-                valuesReader.readBytes();
-            }
-        }
+        valuesReader.readBytes();
     }
 }
@@ -156,7 +156,7 @@ public class RcFilePageSourceFactory
         }
     }
 
-    private static TextRcFileEncoding createTextVectorEncoding(Properties schema, DateTimeZone hiveStorageTimeZone)
+    public static TextRcFileEncoding createTextVectorEncoding(Properties schema, DateTimeZone hiveStorageTimeZone)
     {
         // separators
         int nestingLevels;
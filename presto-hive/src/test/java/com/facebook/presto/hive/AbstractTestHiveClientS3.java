@@ -181,7 +181,8 @@ public abstract class AbstractTestHiveClientS3
                 new TableParameterCodec(),
                 partitionUpdateCodec,
                 new HiveTypeTranslator(),
-                new NodeVersion("test_version"));
+                new NodeVersion("test_version"),
+                new CachingDirectoryLister(hiveClientConfig));
         transactionManager = new HiveTransactionManager();
         splitManager = new HiveSplitManager(
                 connectorId,
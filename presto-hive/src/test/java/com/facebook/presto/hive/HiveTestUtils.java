@@ -14,7 +14,9 @@
 package com.facebook.presto.hive;
 
 import com.facebook.presto.hive.authentication.NoHdfsAuthentication;
+import com.facebook.presto.hive.cache.LocalFileCache;
 import com.facebook.presto.hive.orc.DwrfPageSourceFactory;
+import com.facebook.presto.hive.orc.OrcMetadataCache;
 import com.facebook.presto.hive.orc.OrcPageSourceFactory;
 import com.facebook.presto.hive.parquet.ParquetRecordCursorProvider;
 import com.facebook.presto.spi.ColumnHandle;
@@ -44,9 +46,11 @@ public final class HiveTestUtils
     public static Set<HivePageSourceFactory> getDefaultHiveDataStreamFactories(HiveClientConfig hiveClientConfig)
     {
         HdfsEnvironment testHdfsEnvironment = createTestHdfsEnvironment(hiveClientConfig);
+        OrcMetadataCache orcMetadataCache = new OrcMetadataCache(hiveClientConfig);
+        LocalFileCache fileCache = new LocalFileCache(hiveClientConfig);
         return ImmutableSet.<HivePageSourceFactory>builder()
-                .add(new OrcPageSourceFactory(TYPE_MANAGER, hiveClientConfig, testHdfsEnvironment))
-                .add(new DwrfPageSourceFactory(TYPE_MANAGER, testHdfsEnvironment))
+                .add(new OrcPageSourceFactory(TYPE_MANAGER, hiveClientConfig, testHdfsEnvironment, orcMetadataCache, fileCache))
+                .add(new DwrfPageSourceFactory(TYPE_MANAGER, testHdfsEnvironment, orcMetadataCache, fileCache))
                 .build();
     }
 
@@ -0,0 +1,111 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive;
+
+import io.airlift.units.Duration;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.LocatedFileStatus;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.fs.RemoteIterator;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static com.google.common.io.Files.createTempDir;
+import static io.airlift.testing.FileUtils.deleteRecursively;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.testng.Assert.assertEquals;
+
+public class TestCachingDirectoryLister
+{
+    private File tempDirectory;
+    private Path path;
+    private FileSystem fileSystem;
+
+    @BeforeMethod
+    public void setUp()
+            throws IOException
+    {
+        tempDirectory = createTempDir();
+        path = new Path(tempDirectory.toURI());
+        fileSystem = FileSystem.getLocal(new Configuration());
+        Files.write(new File(tempDirectory, "a").toPath(), new byte[] {1});
+    }
+
+    @AfterMethod
+    public void tearDown()
+    {
+        deleteRecursively(tempDirectory);
+    }
+
+    @Test
+    public void testCachedListing()
+            throws IOException
+    {
+        CachingDirectoryLister lister = new CachingDirectoryLister(new HadoopDirectoryLister(), new Duration(10, MINUTES), 1000);
+        assertEquals(countFiles(lister.list(fileSystem, path)), 1);
+
+        // the cached listing does not see the new file
+        Files.write(new File(tempDirectory, "b").toPath(), new byte[] {2});
+        assertEquals(countFiles(lister.list(fileSystem, path)), 1);
+
+        assertEquals(lister.getMisses().getTotalCount(), 1);
+        assertEquals(lister.getHits().getTotalCount(), 1);
+        assertEquals(lister.getCachedDirectories(), 1);
+    }
+
+    @Test
+    public void testInvalidate()
+            throws IOException
+    {
+        CachingDirectoryLister lister = new CachingDirectoryLister(new HadoopDirectoryLister(), new Duration(10, MINUTES), 1000);
+        assertEquals(countFiles(lister.list(fileSystem, path)), 1);
+
+        // a written directory is listed again after it is invalidated
+        Files.write(new File(tempDirectory, "b").toPath(), new byte[] {2});
+        lister.invalidate(path);
+        assertEquals(lister.getCachedDirectories(), 0);
+        assertEquals(countFiles(lister.list(fileSystem, path)), 2);
+        assertEquals(lister.getMisses().getTotalCount(), 2);
+    }
+
+    @Test
+    public void testDisabled()
+            throws IOException
+    {
+        CachingDirectoryLister lister = new CachingDirectoryLister(new HadoopDirectoryLister(), new Duration(0, SECONDS), 1000);
+        assertEquals(countFiles(lister.list(fileSystem, path)), 1);
+
+        Files.write(new File(tempDirectory, "b").toPath(), new byte[] {2});
+        assertEquals(countFiles(lister.list(fileSystem, path)), 2);
+        assertEquals(lister.getCachedDirectories(), 0);
+    }
+
+    private static int countFiles(RemoteIterator<LocatedFileStatus> iterator)
+            throws IOException
+    {
+        int count = 0;
+        while (iterator.hasNext()) {
+            iterator.next();
+            count++;
+        }
+        return count;
+    }
+}
@@ -93,10 +93,22 @@ public class TestHiveClientConfig
                 .setParquetOptimizedReaderEnabled(false)
                 .setAssumeCanonicalPartitionKeys(false)
                 .setOrcBloomFiltersEnabled(false)
+                .setOrcOptimizedWriterEnabled(false)
+                .setOrcStripePrefetchEnabled(false)
                 .setOrcMaxMergeDistance(new DataSize(1, Unit.MEGABYTE))
                 .setOrcMaxBufferSize(new DataSize(8, Unit.MEGABYTE))
                 .setOrcStreamBufferSize(new DataSize(8, Unit.MEGABYTE))
+                .setOrcMetadataCacheMaxSize(new DataSize(64, Unit.MEGABYTE))
                 .setRcfileOptimizedReaderEnabled(false)
+                .setRcfileOptimizedWriterEnabled(false)
+                .setFileCacheEnabled(false)
+                .setFileCacheDirectory(new File(StandardSystemProperty.JAVA_IO_TMPDIR.value(), "presto-hive-cache"))
+                .setFileCacheMaxSize(new DataSize(10, Unit.GIGABYTE))
+                .setFileCacheChunkSize(new DataSize(1, Unit.MEGABYTE))
+                .setSplitAffinityEnabled(false)
+                .setMaxPrefetchedDirectoryListings(10)
+                .setFileStatusCacheExpireTime(new Duration(0, TimeUnit.SECONDS))
+                .setFileStatusCacheMaxSize(1_000_000)
                 .setHiveMetastoreAuthenticationType(HiveClientConfig.HiveMetastoreAuthenticationType.NONE)
                 .setHiveMetastoreServicePrincipal(null)
                 .setHiveMetastoreClientPrincipal(null)
@@ -171,10 +183,22 @@ public class TestHiveClientConfig
                 .put("hive.parquet-predicate-pushdown.enabled", "true")
                 .put("hive.parquet-optimized-reader.enabled", "true")
                 .put("hive.orc.bloom-filters.enabled", "true")
+                .put("hive.orc.optimized-writer.enabled", "true")
+                .put("hive.orc.stripe-prefetch.enabled", "true")
                 .put("hive.orc.max-merge-distance", "22kB")
                 .put("hive.orc.max-buffer-size", "44kB")
                 .put("hive.orc.stream-buffer-size", "55kB")
+                .put("hive.orc.metadata-cache.max-size", "17MB")
                 .put("hive.rcfile-optimized-reader.enabled", "true")
+                .put("hive.rcfile-optimized-writer.enabled", "true")
+                .put("hive.file-cache.enabled", "true")
+                .put("hive.file-cache.directory", "/file-cache")
+                .put("hive.file-cache.max-size", "3GB")
+                .put("hive.file-cache.chunk-size", "256kB")
+                .put("hive.split-affinity.enabled", "true")
+                .put("hive.max-prefetched-directory-listings", "5")
+                .put("hive.file-status-cache-expire-time", "10m")
+                .put("hive.file-status-cache-size", "1000")
                 .put("hive.metastore.authentication.type", "KERBEROS")
                 .put("hive.metastore.service.principal", "hive/_HOST@EXAMPLE.COM")
                 .put("hive.metastore.client.principal", "metastore@EXAMPLE.COM")
@@ -246,10 +270,22 @@ public class TestHiveClientConfig
                 .setParquetOptimizedReaderEnabled(true)
                 .setAssumeCanonicalPartitionKeys(true)
                 .setOrcBloomFiltersEnabled(true)
+                .setOrcOptimizedWriterEnabled(true)
+                .setOrcStripePrefetchEnabled(true)
                 .setOrcMaxMergeDistance(new DataSize(22, Unit.KILOBYTE))
                 .setOrcMaxBufferSize(new DataSize(44, Unit.KILOBYTE))
                 .setOrcStreamBufferSize(new DataSize(55, Unit.KILOBYTE))
+                .setOrcMetadataCacheMaxSize(new DataSize(17, Unit.MEGABYTE))
                 .setRcfileOptimizedReaderEnabled(true)
+                .setRcfileOptimizedWriterEnabled(true)
+                .setFileCacheEnabled(true)
+                .setFileCacheDirectory(new File("/file-cache"))
+                .setFileCacheMaxSize(new DataSize(3, Unit.GIGABYTE))
+                .setFileCacheChunkSize(new DataSize(256, Unit.KILOBYTE))
+                .setSplitAffinityEnabled(true)
+                .setMaxPrefetchedDirectoryListings(5)
+                .setFileStatusCacheExpireTime(new Duration(10, TimeUnit.MINUTES))
+                .setFileStatusCacheMaxSize(1000)
                 .setHiveMetastoreAuthenticationType(HiveClientConfig.HiveMetastoreAuthenticationType.KERBEROS)
                 .setHiveMetastoreServicePrincipal("hive/_HOST@EXAMPLE.COM")
                 .setHiveMetastoreClientPrincipal("metastore@EXAMPLE.COM")
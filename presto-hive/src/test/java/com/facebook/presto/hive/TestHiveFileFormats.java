@@ -293,6 +293,22 @@ public class TestHiveFileFormats
                 .isReadableByPageSource(new ParquetPageSourceFactory(TYPE_MANAGER, false, HDFS_ENVIRONMENT));
     }
 
+    @Test(dataProvider = "rowCount")
+    public void testParquetPageSourceNested(int rowCount)
+            throws Exception
+    {
+        // tinyint and smallint are not supported by the page source
+        List<TestColumn> testColumns = getTestColumnsSupportedByParquet().stream()
+                .filter(column -> column.getObjectInspector().getCategory() != Category.PRIMITIVE)
+                .filter(column -> !hasType(column.getObjectInspector(), PrimitiveCategory.BYTE, PrimitiveCategory.SHORT))
+                .collect(toList());
+        assertThatFileFormat(PARQUET)
+                .withColumns(testColumns)
+                .withSession(parquetPageSourceSession)
+                .withRowsCount(rowCount)
+                .isReadableByPageSource(new ParquetPageSourceFactory(TYPE_MANAGER, false, HDFS_ENVIRONMENT));
+    }
+
     @Test(dataProvider = "rowCount")
     public void testParquetPageSourceSchemaEvolution(int rowCount)
             throws Exception
@@ -114,6 +114,34 @@ public class TestHivePageSink
         }
     }
 
+    @Test
+    public void testOrcOptimizedWriter()
+            throws Exception
+    {
+        HiveClientConfig config = new HiveClientConfig()
+                .setHiveStorageFormat(HiveStorageFormat.ORC)
+                .setOrcOptimizedWriterEnabled(true);
+        File tempDir = Files.createTempDir();
+        try {
+            ExtendedHiveMetastore metastore = new BridgingHiveMetastore(new InMemoryHiveMetastore(new File(tempDir, "metastore")));
+            config.setHiveCompressionCodec(NONE);
+            long uncompressedLength = writeTestFile(config, metastore, makeFileName(tempDir, config));
+            assertGreaterThan(uncompressedLength, 0L);
+
+            for (HiveCompressionCodec codec : HiveCompressionCodec.values()) {
+                if (codec == NONE) {
+                    continue;
+                }
+                config.setHiveCompressionCodec(codec);
+                long length = writeTestFile(config, metastore, makeFileName(tempDir, config));
+                assertTrue(uncompressedLength > length, format("ORC with %s compressed to %s which is not less than %s", codec, length, uncompressedLength));
+            }
+        }
+        finally {
+            FileUtils.deleteRecursively(tempDir);
+        }
+    }
+
     private static String makeFileName(File tempDir, HiveClientConfig config)
     {
         return tempDir.getAbsolutePath() + "/" + config.getHiveStorageFormat().name() + "." + config.getHiveCompressionCodec().name();
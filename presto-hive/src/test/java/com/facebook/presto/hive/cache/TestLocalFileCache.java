@@ -0,0 +1,123 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.cache;
+
+import io.airlift.units.DataSize;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FSDataInputStream;
+import org.apache.hadoop.fs.FileStatus;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Random;
+
+import static com.google.common.io.Files.createTempDir;
+import static io.airlift.testing.FileUtils.deleteRecursively;
+import static io.airlift.units.DataSize.Unit.KILOBYTE;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestLocalFileCache
+{
+    private static final int FILE_SIZE = 10_000;
+
+    private File tempDirectory;
+    private File dataFile;
+    private byte[] data;
+    private FileSystem fileSystem;
+
+    @BeforeMethod
+    public void setUp()
+            throws IOException
+    {
+        tempDirectory = createTempDir();
+        dataFile = new File(tempDirectory, "data");
+        data = new byte[FILE_SIZE];
+        new Random(42).nextBytes(data);
+        Files.write(dataFile.toPath(), data);
+        fileSystem = FileSystem.getLocal(new Configuration());
+    }
+
+    @AfterMethod
+    public void tearDown()
+    {
+        deleteRecursively(tempDirectory);
+    }
+
+    @Test
+    public void testReadThrough()
+            throws IOException
+    {
+        LocalFileCache fileCache = new LocalFileCache(true, new File(tempDirectory, "cache"), new DataSize(100, KILOBYTE), new DataSize(1, KILOBYTE));
+        assertRead(fileCache, 0, 100);
+        assertRead(fileCache, 1000, 3000);
+        assertRead(fileCache, FILE_SIZE - 10, 10);
+        long misses = fileCache.getMisses().getTotalCount();
+        long cachedBytes = fileCache.getCachedBytes();
+        assertTrue(cachedBytes > 0);
+
+        // the same ranges are served from the local chunks
+        assertRead(fileCache, 0, 100);
+        assertRead(fileCache, 1500, 2000);
+        assertRead(fileCache, FILE_SIZE - 10, 10);
+        assertEquals(fileCache.getMisses().getTotalCount(), misses);
+        assertEquals(fileCache.getCachedBytes(), cachedBytes);
+        assertTrue(fileCache.getHits().getTotalCount() > 0);
+    }
+
+    @Test
+    public void testEviction()
+            throws IOException
+    {
+        LocalFileCache fileCache = new LocalFileCache(true, new File(tempDirectory, "cache"), new DataSize(8, KILOBYTE), new DataSize(1, KILOBYTE));
+        assertRead(fileCache, 0, FILE_SIZE);
+        fileCache.cleanUp();
+        assertTrue(fileCache.getCachedBytes() <= 8 * 1024);
+        assertTrue(fileCache.getCachedBytes() < FILE_SIZE);
+        assertEquals(new File(tempDirectory, "cache").list().length, fileCache.getCachedChunks());
+
+        fileCache.flush();
+        assertEquals(fileCache.getCachedBytes(), 0);
+        assertEquals(new File(tempDirectory, "cache").list().length, 0);
+    }
+
+    @Test
+    public void testDisabled()
+            throws IOException
+    {
+        LocalFileCache fileCache = new LocalFileCache(false, new File(tempDirectory, "cache"), new DataSize(100, KILOBYTE), new DataSize(1, KILOBYTE));
+        assertRead(fileCache, 0, FILE_SIZE);
+        assertEquals(fileCache.getCachedBytes(), 0);
+        assertEquals(fileCache.getMisses().getTotalCount(), 0);
+    }
+
+    private void assertRead(LocalFileCache fileCache, long position, int length)
+            throws IOException
+    {
+        Path path = new Path(dataFile.toURI());
+        FileStatus fileStatus = fileSystem.getFileStatus(path);
+        try (FSDataInputStream inputStream = fileCache.open(fileSystem, path, fileStatus)) {
+            byte[] buffer = new byte[length];
+            inputStream.readFully(position, buffer);
+            assertEquals(buffer, Arrays.copyOfRange(data, (int) position, (int) position + length));
+        }
+    }
+}
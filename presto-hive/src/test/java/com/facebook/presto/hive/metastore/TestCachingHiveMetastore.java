@@ -41,6 +41,8 @@ import static org.testng.Assert.assertNotNull;
 public class TestCachingHiveMetastore
 {
     private MockHiveMetastoreClient mockClient;
+    private ListeningExecutorService executor;
+    private ThriftHiveMetastore thriftHiveMetastore;
     private ExtendedHiveMetastore metastore;
     private ThriftHiveMetastoreStats stats;
 
@@ -50,13 +52,14 @@ public class TestCachingHiveMetastore
     {
         mockClient = new MockHiveMetastoreClient();
         MockHiveCluster mockHiveCluster = new MockHiveCluster(mockClient);
-        ListeningExecutorService executor = listeningDecorator(newCachedThreadPool(daemonThreadsNamed("test-%s")));
-        ThriftHiveMetastore thriftHiveMetastore = new ThriftHiveMetastore(mockHiveCluster);
+        executor = listeningDecorator(newCachedThreadPool(daemonThreadsNamed("test-%s")));
+        thriftHiveMetastore = new ThriftHiveMetastore(mockHiveCluster);
         metastore = new CachingHiveMetastore(
                 new BridgingHiveMetastore(thriftHiveMetastore),
                 executor,
                 new Duration(5, TimeUnit.MINUTES),
-                new Duration(1, TimeUnit.MINUTES));
+                new Duration(1, TimeUnit.MINUTES),
+                100);
         stats = thriftHiveMetastore.getStats();
     }
 
@@ -203,6 +206,36 @@ public class TestCachingHiveMetastore
         assertEquals(mockClient.getAccessCount(), 4);
     }
 
+    @Test
+    public void testGetPartitionsByNamesInBatches()
+            throws Exception
+    {
+        ExtendedHiveMetastore batchingMetastore = new CachingHiveMetastore(
+                new BridgingHiveMetastore(thriftHiveMetastore),
+                executor,
+                new Duration(5, TimeUnit.MINUTES),
+                new Duration(1, TimeUnit.MINUTES),
+                1);
+
+        // Each partition is fetched with a separate request
+        assertEquals(batchingMetastore.getPartitionsByNames(TEST_DATABASE, TEST_TABLE, ImmutableList.of(TEST_PARTITION1, TEST_PARTITION2)).size(), 2);
+        assertEquals(mockClient.getAccessCount(), 2);
+
+        assertEquals(batchingMetastore.getPartitionsByNames(TEST_DATABASE, TEST_TABLE, ImmutableList.of(TEST_PARTITION1, TEST_PARTITION2)).size(), 2);
+        assertEquals(mockClient.getAccessCount(), 2);
+    }
+
+    @Test
+    public void testMissingPartitionIsCached()
+            throws Exception
+    {
+        String missingPartition = "key=missing";
+        assertFalse(metastore.getPartitionsByNames(TEST_DATABASE, TEST_TABLE, ImmutableList.of(missingPartition)).get(missingPartition).isPresent());
+        assertEquals(mockClient.getAccessCount(), 1);
+        assertFalse(metastore.getPartitionsByNames(TEST_DATABASE, TEST_TABLE, ImmutableList.of(missingPartition)).get(missingPartition).isPresent());
+        assertEquals(mockClient.getAccessCount(), 1);
+    }
+
     public void testInvalidGetPartitionsByNames()
             throws Exception
     {
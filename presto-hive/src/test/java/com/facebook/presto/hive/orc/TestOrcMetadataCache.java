@@ -0,0 +1,105 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.orc;
+
+import com.facebook.presto.orc.OrcFileMetadataCache;
+import com.facebook.presto.orc.metadata.StripeFooter;
+import com.facebook.presto.orc.metadata.StripeInformation;
+import com.google.common.collect.ImmutableList;
+import io.airlift.units.DataSize;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertSame;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class TestOrcMetadataCache
+{
+    private static final StripeInformation STRIPE = new StripeInformation(100, 3, 10, 1000, 50);
+
+    @Test
+    public void testStripeFooter()
+            throws Exception
+    {
+        OrcMetadataCache cache = new OrcMetadataCache(new DataSize(1, MEGABYTE));
+        AtomicInteger loads = new AtomicInteger();
+        StripeFooter stripeFooter = new StripeFooter(ImmutableList.of(), ImmutableList.of());
+
+        OrcFileMetadataCache fileCache = cache.getFileMetadataCache("file", 1234, 1);
+        assertSame(fileCache.getStripeFooter(STRIPE, () -> load(loads, stripeFooter)), stripeFooter);
+        assertSame(fileCache.getStripeFooter(STRIPE, () -> load(loads, stripeFooter)), stripeFooter);
+        assertEquals(loads.get(), 1);
+        assertEquals(cache.getHitCount(), 1);
+        assertEquals(cache.getMissCount(), 1);
+        assertTrue(cache.getRetainedSizeInBytes() > 0);
+
+        // a new version of the file must not see the old metadata
+        OrcFileMetadataCache modifiedFileCache = cache.getFileMetadataCache("file", 1234, 2);
+        modifiedFileCache.getStripeFooter(STRIPE, () -> load(loads, stripeFooter));
+        assertEquals(loads.get(), 2);
+
+        cache.flushCache();
+        assertEquals(cache.getSize(), 0);
+        assertEquals(cache.getRetainedSizeInBytes(), 0);
+    }
+
+    @Test
+    public void testRowGroupIndexes()
+    {
+        OrcMetadataCache cache = new OrcMetadataCache(new DataSize(1, MEGABYTE));
+        OrcFileMetadataCache fileCache = cache.getFileMetadataCache("file", 1234, 1);
+
+        assertFalse(fileCache.getRowGroupIndexes(STRIPE, 1).isPresent());
+        fileCache.putRowGroupIndexes(STRIPE, 1, ImmutableList.of(), 10);
+        assertTrue(fileCache.getRowGroupIndexes(STRIPE, 1).isPresent());
+        assertFalse(fileCache.getRowGroupIndexes(STRIPE, 2).isPresent());
+    }
+
+    @Test
+    public void testLoadFailure()
+    {
+        OrcMetadataCache cache = new OrcMetadataCache(new DataSize(1, MEGABYTE));
+        OrcFileMetadataCache fileCache = cache.getFileMetadataCache("file", 1234, 1);
+        try {
+            fileCache.getStripeFooter(STRIPE, () -> {
+                throw new IOException("test");
+            });
+            fail("expected IOException");
+        }
+        catch (IOException e) {
+            assertEquals(e.getMessage(), "test");
+        }
+        assertEquals(cache.getSize(), 0);
+    }
+
+    @Test
+    public void testDisabled()
+    {
+        OrcMetadataCache cache = new OrcMetadataCache(new DataSize(0, BYTE));
+        assertSame(cache.getFileMetadataCache("file", 1234, 1), OrcFileMetadataCache.NO_CACHE);
+    }
+
+    private static <T> T load(AtomicInteger loads, T value)
+    {
+        loads.incrementAndGet();
+        return value;
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.hive.parquet;
+
+import com.facebook.presto.hive.parquet.ParquetTester.TempFile;
+import com.facebook.presto.hive.parquet.predicate.ParquetPredicate;
+import com.facebook.presto.hive.parquet.predicate.TupleDomainParquetPredicate;
+import com.facebook.presto.hive.parquet.predicate.TupleDomainParquetPredicate.ColumnReference;
+import com.facebook.presto.hive.parquet.reader.ParquetMetadataReader;
+import com.facebook.presto.hive.parquet.reader.ParquetReader;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.predicate.Domain;
+import com.facebook.presto.spi.predicate.Range;
+import com.facebook.presto.spi.predicate.TupleDomain;
+import com.facebook.presto.spi.predicate.ValueSet;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.ql.exec.FileSinkOperator.RecordWriter;
+import org.apache.hadoop.hive.ql.io.parquet.MapredParquetOutputFormat;
+import org.apache.hadoop.hive.ql.io.parquet.serde.ParquetHiveSerDe;
+import org.apache.hadoop.hive.serde2.objectinspector.SettableStructObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.StructField;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.JobConf;
+import org.testng.annotations.Test;
+import parquet.column.ColumnDescriptor;
+import parquet.hadoop.ParquetOutputFormat;
+import parquet.hadoop.metadata.ParquetMetadata;
+import parquet.schema.MessageType;
+
+import java.util.List;
+import java.util.Properties;
+
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory.getStandardStructObjectInspector;
+import static org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory.javaLongObjectInspector;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static parquet.hadoop.metadata.CompressionCodecName.SNAPPY;
+
+public class TestParquetPageSkipping
+{
+    private static final int ROW_COUNT = 10_000;
+    private static final long MIN_ID = 5_000;
+    private static final long MAX_ID = 5_009;
+
+    @Test
+    public void testSkipPagesThatCannotMatch()
+            throws Exception
+    {
+        try (TempFile tempFile = new TempFile("test", "parquet")) {
+            JobConf jobConf = new JobConf();
+            jobConf.setEnum(ParquetOutputFormat.COMPRESSION, SNAPPY);
+            jobConf.setBoolean(ParquetOutputFormat.ENABLE_DICTIONARY, false);
+            // small pages so that every column chunk has many pages
+            jobConf.setInt(ParquetOutputFormat.PAGE_SIZE, 1024);
+            writeRows(jobConf, tempFile);
+
+            Path path = new Path(tempFile.getFile().toURI());
+            FileSystem fileSystem = path.getFileSystem(jobConf);
+            ParquetMetadata parquetMetadata = ParquetMetadataReader.readFooter(fileSystem, path);
+            MessageType fileSchema = parquetMetadata.getFileMetaData().getSchema();
+            ColumnDescriptor idColumn = fileSchema.getColumns().get(0);
+            ColumnDescriptor valueColumn = fileSchema.getColumns().get(1);
+
+            TupleDomain<ColumnDescriptor> effectivePredicate = TupleDomain.withColumnDomains(ImmutableMap.of(
+                    idColumn, Domain.create(ValueSet.ofRanges(Range.range(BIGINT, MIN_ID, true, MAX_ID, true)), false)));
+            ParquetPredicate predicate = new TupleDomainParquetPredicate<>(effectivePredicate, ImmutableList.of(new ColumnReference<>(idColumn, 0, BIGINT)));
+
+            long size = fileSystem.getFileStatus(path).getLen();
+            ParquetDataSource dataSource = new HdfsParquetDataSource(path, size, fileSystem.open(path));
+            try (ParquetReader parquetReader = new ParquetReader(fileSchema, parquetMetadata.getBlocks(), dataSource, predicate, ImmutableList.of(idColumn))) {
+                int rowsRead = 0;
+                long firstRowRead = -1;
+                long matchingRows = 0;
+                for (int batchSize = parquetReader.nextBatch(); batchSize >= 0; batchSize = parquetReader.nextBatch()) {
+                    // the position includes the rows of the pages that were skipped
+                    long firstRowOfBatch = parquetReader.getPosition() - batchSize;
+                    if (firstRowRead < 0) {
+                        firstRowRead = firstRowOfBatch;
+                    }
+
+                    Block ids = parquetReader.readBlock(idColumn, BIGINT);
+                    Block values = parquetReader.readBlock(valueColumn, BIGINT);
+                    assertEquals(ids.getPositionCount(), batchSize);
+                    assertEquals(values.getPositionCount(), batchSize);
+                    for (int position = 0; position < batchSize; position++) {
+                        long id = BIGINT.getLong(ids, position);
+                        assertEquals(id, firstRowOfBatch + position);
+                        assertValue(values, position, id);
+                        if (id >= MIN_ID && id <= MAX_ID) {
+                            matchingRows++;
+                        }
+                    }
+                    rowsRead += batchSize;
+                }
+
+                assertEquals(matchingRows, MAX_ID - MIN_ID + 1);
+                assertEquals(parquetReader.getPosition(), ROW_COUNT);
+                // only the pages around the matching ids are read
+                assertTrue(firstRowRead > 0, "rows before the matching page were not skipped");
+                assertTrue(rowsRead < ROW_COUNT / 10, "only " + (ROW_COUNT - rowsRead) + " rows were skipped");
+            }
+        }
+    }
+
+    private static void assertValue(Block values, int position, long id)
+    {
+        if (id % 7 == 0) {
+            assertTrue(values.isNull(position));
+        }
+        else {
+            assertFalse(values.isNull(position));
+            assertEquals(BIGINT.getLong(values, position), id * 3);
+        }
+    }
+
+    private static void writeRows(JobConf jobConf, TempFile tempFile)
+            throws Exception
+    {
+        Properties tableProperties = new Properties();
+        tableProperties.setProperty("columns", "id,value");
+        tableProperties.setProperty("columns.types", "bigint,bigint");
+
+        RecordWriter recordWriter = new MapredParquetOutputFormat().getHiveRecordWriter(
+                jobConf,
+                new Path(tempFile.getFile().toURI()),
+                Text.class,
+                true,
+                tableProperties,
+                () -> { });
+        SettableStructObjectInspector objectInspector = getStandardStructObjectInspector(
+                ImmutableList.of("id", "value"),
+                ImmutableList.of(javaLongObjectInspector, javaLongObjectInspector));
+        List<StructField> fields = ImmutableList.copyOf(objectInspector.getAllStructFieldRefs());
+        ParquetHiveSerDe serde = new ParquetHiveSerDe();
+        serde.initialize(jobConf, tableProperties, null);
+
+        Object row = objectInspector.create();
+        for (long id = 0; id < ROW_COUNT; id++) {
+            objectInspector.setStructFieldData(row, fields.get(0), id);
+            // nulls in the other column make its values and rows differ
+            objectInspector.setStructFieldData(row, fields.get(1), id % 7 == 0 ? null : id * 3);
+            recordWriter.write(serde.serialize(row, objectInspector));
+        }
+        recordWriter.close(false);
+    }
+}
@@ -13,20 +13,37 @@
  */
 package com.facebook.presto.hive.parquet.predicate;
 
+import com.facebook.presto.hive.HiveColumnHandle;
+import com.facebook.presto.spi.predicate.Domain;
+import com.facebook.presto.spi.predicate.TupleDomain;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import org.testng.annotations.Test;
+import parquet.column.ColumnDescriptor;
 import parquet.column.Encoding;
+import parquet.schema.GroupType;
+import parquet.schema.MessageType;
+import parquet.schema.PrimitiveType;
 
+import java.util.List;
 import java.util.Set;
 
+import static com.facebook.presto.hive.HiveColumnHandle.ColumnType.REGULAR;
+import static com.facebook.presto.hive.HiveType.HIVE_LONG;
+import static com.facebook.presto.hive.parquet.predicate.ParquetPredicateUtils.getPredicateColumns;
 import static com.facebook.presto.hive.parquet.predicate.ParquetPredicateUtils.isOnlyDictionaryEncodingPages;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.google.common.collect.Sets.union;
+import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
 import static org.testng.Assert.assertTrue;
 import static parquet.column.Encoding.BIT_PACKED;
 import static parquet.column.Encoding.PLAIN;
 import static parquet.column.Encoding.PLAIN_DICTIONARY;
 import static parquet.column.Encoding.RLE;
+import static parquet.schema.PrimitiveType.PrimitiveTypeName.INT64;
+import static parquet.schema.Type.Repetition.OPTIONAL;
+import static parquet.schema.Type.Repetition.REPEATED;
 
 public class TestParquetPredicateUtils
 {
@@ -52,4 +69,27 @@ public class TestParquetPredicateUtils
         assertTrue(isOnlyDictionaryEncodingPages(union(optional, dictionary)), "optional dictionary");
         assertTrue(isOnlyDictionaryEncodingPages(union(repeated, dictionary)), "repeated dictionary");
     }
+
+    @Test
+    public void testPredicateColumns()
+    {
+        MessageType schema = new MessageType("hive_schema",
+                new PrimitiveType(OPTIONAL, INT64, "id"),
+                new PrimitiveType(OPTIONAL, INT64, "other"),
+                new GroupType(OPTIONAL, "nested", new PrimitiveType(OPTIONAL, INT64, "id")),
+                new PrimitiveType(REPEATED, INT64, "repeated"));
+        HiveColumnHandle id = new HiveColumnHandle("test", "id", HIVE_LONG, HIVE_LONG.getTypeSignature(), 0, REGULAR);
+        HiveColumnHandle repeated = new HiveColumnHandle("test", "repeated", HIVE_LONG, HIVE_LONG.getTypeSignature(), 3, REGULAR);
+        TupleDomain<HiveColumnHandle> predicate = TupleDomain.withColumnDomains(ImmutableMap.of(
+                id, Domain.singleValue(BIGINT, 1L),
+                repeated, Domain.singleValue(BIGINT, 1L)));
+
+        // only top level columns that are not repeated have a value per row
+        List<ColumnDescriptor> columns = getPredicateColumns(schema, predicate);
+        assertEquals(columns.size(), 1);
+        assertEquals(columns.get(0).getPath(), new String[] {"id"});
+
+        assertEquals(getPredicateColumns(schema, TupleDomain.all()).size(), 0);
+        assertEquals(getPredicateColumns(schema, TupleDomain.none()).size(), 0);
+    }
 }
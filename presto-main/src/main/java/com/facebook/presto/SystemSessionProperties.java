@@ -29,6 +29,7 @@ import javax.inject.Inject;
 import java.util.List;
 
 import static com.facebook.presto.spi.session.PropertyMetadata.booleanSessionProperty;
+import static com.facebook.presto.spi.session.PropertyMetadata.doubleSessionProperty;
 import static com.facebook.presto.spi.session.PropertyMetadata.integerSessionProperty;
 import static com.facebook.presto.spi.session.PropertyMetadata.stringSessionProperty;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
@@ -64,6 +65,14 @@ public final class SystemSessionProperties
     public static final String SPILL_ENABLED = "spill_enabled";
     public static final String OPERATOR_MEMORY_LIMIT_BEFORE_SPILL = "operator_memory_limit_before_spill";
     public static final String OPTIMIZE_DISTINCT_AGGREGATIONS = "optimize_mixed_distinct_aggregations";
+    public static final String DYNAMIC_FILTERING_ENABLED = "dynamic_filtering_enabled";
+    public static final String JOIN_REORDERING_ENABLED = "join_reordering_enabled";
+    public static final String COST_BASED_JOIN_DISTRIBUTION_ENABLED = "cost_based_join_distribution_enabled";
+    public static final String JOIN_MAX_BROADCAST_TABLE_SIZE = "join_max_broadcast_table_size";
+    public static final String FLAT_GROUP_BY_HASH_ENABLED = "flat_group_by_hash_enabled";
+    public static final String FLAT_GROUP_BY_HASH_OFF_HEAP = "flat_group_by_hash_off_heap";
+    public static final String ADAPTIVE_PARTIAL_AGGREGATION = "adaptive_partial_aggregation";
+    public static final String ADAPTIVE_PARTIAL_AGGREGATION_UNIQUE_ROWS_RATIO_THRESHOLD = "adaptive_partial_aggregation_unique_rows_ratio_threshold";
 
     private final List<PropertyMetadata<?>> sessionProperties;
 
@@ -253,6 +262,50 @@ public final class SystemSessionProperties
                         OPTIMIZE_DISTINCT_AGGREGATIONS,
                         "Optimize mixed non-distinct and distinct aggregations",
                         featuresConfig.isOptimizeMixedDistinctAggregations(),
+                        false),
+                booleanSessionProperty(
+                        DYNAMIC_FILTERING_ENABLED,
+                        "Experimental: Filter the probe side table scan of a join with the keys of the build side",
+                        featuresConfig.isDynamicFilteringEnabled(),
+                        false),
+                booleanSessionProperty(
+                        JOIN_REORDERING_ENABLED,
+                        "Reorder inner joins based on the estimated row counts of the join sources",
+                        featuresConfig.isJoinReorderingEnabled(),
+                        false),
+                booleanSessionProperty(
+                        COST_BASED_JOIN_DISTRIBUTION_ENABLED,
+                        "Choose between a broadcast and a distributed join based on the estimated size of the build side",
+                        featuresConfig.isCostBasedJoinDistributionEnabled(),
+                        false),
+                new PropertyMetadata<>(
+                        JOIN_MAX_BROADCAST_TABLE_SIZE,
+                        "Maximum estimated size of the build side of a broadcast join",
+                        VARCHAR,
+                        DataSize.class,
+                        featuresConfig.getJoinMaxBroadcastTableSize(),
+                        false,
+                        value -> DataSize.valueOf((String) value),
+                        DataSize::toString),
+                booleanSessionProperty(
+                        FLAT_GROUP_BY_HASH_ENABLED,
+                        "Experimental: Use a flat open addressing hash table for aggregations with fixed width or varchar keys",
+                        featuresConfig.isFlatGroupByHashEnabled(),
+                        false),
+                booleanSessionProperty(
+                        FLAT_GROUP_BY_HASH_OFF_HEAP,
+                        "Experimental: Allocate the flat aggregation hash table off-heap",
+                        featuresConfig.isFlatGroupByHashOffHeap(),
+                        false),
+                booleanSessionProperty(
+                        ADAPTIVE_PARTIAL_AGGREGATION,
+                        "Experimental: Disable partial aggregations at runtime when they don't reduce the number of rows",
+                        featuresConfig.isAdaptivePartialAggregationEnabled(),
+                        false),
+                doubleSessionProperty(
+                        ADAPTIVE_PARTIAL_AGGREGATION_UNIQUE_ROWS_RATIO_THRESHOLD,
+                        "Experimental: Ratio of output to input rows of a partial aggregation above which the aggregation is disabled",
+                        featuresConfig.getAdaptivePartialAggregationUniqueRowsRatioThreshold(),
                         false));
     }
 
@@ -383,6 +436,26 @@ public final class SystemSessionProperties
         return session.getSystemProperty(SPILL_ENABLED, Boolean.class);
     }
 
+    public static boolean isDynamicFilteringEnabled(Session session)
+    {
+        return session.getSystemProperty(DYNAMIC_FILTERING_ENABLED, Boolean.class);
+    }
+
+    public static boolean isJoinReorderingEnabled(Session session)
+    {
+        return session.getSystemProperty(JOIN_REORDERING_ENABLED, Boolean.class);
+    }
+
+    public static boolean isCostBasedJoinDistributionEnabled(Session session)
+    {
+        return session.getSystemProperty(COST_BASED_JOIN_DISTRIBUTION_ENABLED, Boolean.class);
+    }
+
+    public static DataSize getJoinMaxBroadcastTableSize(Session session)
+    {
+        return session.getSystemProperty(JOIN_MAX_BROADCAST_TABLE_SIZE, DataSize.class);
+    }
+
     public static DataSize getOperatorMemoryLimitBeforeSpill(Session session)
     {
         DataSize memoryLimitBeforeSpill = session.getSystemProperty(OPERATOR_MEMORY_LIMIT_BEFORE_SPILL, DataSize.class);
@@ -394,4 +467,24 @@ public final class SystemSessionProperties
     {
         return session.getSystemProperty(OPTIMIZE_DISTINCT_AGGREGATIONS, Boolean.class);
     }
+
+    public static boolean isFlatGroupByHashEnabled(Session session)
+    {
+        return session.getSystemProperty(FLAT_GROUP_BY_HASH_ENABLED, Boolean.class);
+    }
+
+    public static boolean isFlatGroupByHashOffHeap(Session session)
+    {
+        return session.getSystemProperty(FLAT_GROUP_BY_HASH_OFF_HEAP, Boolean.class);
+    }
+
+    public static boolean isAdaptivePartialAggregationEnabled(Session session)
+    {
+        return session.getSystemProperty(ADAPTIVE_PARTIAL_AGGREGATION, Boolean.class);
+    }
+
+    public static double getAdaptivePartialAggregationUniqueRowsRatioThreshold(Session session)
+    {
+        return session.getSystemProperty(ADAPTIVE_PARTIAL_AGGREGATION_UNIQUE_ROWS_RATIO_THRESHOLD, Double.class);
+    }
 }
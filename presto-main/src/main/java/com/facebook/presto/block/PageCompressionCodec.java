@@ -0,0 +1,76 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.block;
+
+import io.airlift.compress.Compressor;
+import io.airlift.compress.Decompressor;
+import io.airlift.compress.lz4.Lz4Compressor;
+import io.airlift.compress.lz4.Lz4Decompressor;
+import io.airlift.compress.snappy.SnappyCompressor;
+import io.airlift.compress.snappy.SnappyDecompressor;
+
+import java.util.Optional;
+
+/**
+ * Codec used to compress the pages sent over the exchange. Compressed pages are only
+ * sent when the consumer asks for them, so workers that don't know about a codec keep
+ * receiving uncompressed pages.
+ */
+public enum PageCompressionCodec
+{
+    NONE,
+    LZ4,
+    SNAPPY;
+
+    public Compressor createCompressor()
+    {
+        switch (this) {
+            case LZ4:
+                return new Lz4Compressor();
+            case SNAPPY:
+                return new SnappyCompressor();
+            default:
+                throw new IllegalStateException("No compressor for codec " + this);
+        }
+    }
+
+    public Decompressor createDecompressor()
+    {
+        switch (this) {
+            case LZ4:
+                return new Lz4Decompressor();
+            case SNAPPY:
+                return new SnappyDecompressor();
+            default:
+                throw new IllegalStateException("No decompressor for codec " + this);
+        }
+    }
+
+    /**
+     * Returns the codec with the given name, or empty if the name is null or not known
+     * by this version.
+     */
+    public static Optional<PageCompressionCodec> fromHeader(String name)
+    {
+        if (name == null) {
+            return Optional.empty();
+        }
+        for (PageCompressionCodec codec : values()) {
+            if (codec != NONE && codec.name().equalsIgnoreCase(name.trim())) {
+                return Optional.of(codec);
+            }
+        }
+        return Optional.empty();
+    }
+}
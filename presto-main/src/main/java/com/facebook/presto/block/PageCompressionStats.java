@@ -0,0 +1,61 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.block;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+/**
+ * Sizes and codec CPU time of the pages written or read by the compressed {@link PagesSerde} layout.
+ */
+@NotThreadSafe
+public class PageCompressionStats
+{
+    private long compressedBytes;
+    private long uncompressedBytes;
+    private long compressionNanos;
+
+    public void addPage(long compressedBytes, long uncompressedBytes)
+    {
+        this.compressedBytes += compressedBytes;
+        this.uncompressedBytes += uncompressedBytes;
+    }
+
+    public void addCompressionNanos(long nanos)
+    {
+        this.compressionNanos += nanos;
+    }
+
+    public long getCompressedBytes()
+    {
+        return compressedBytes;
+    }
+
+    public long getUncompressedBytes()
+    {
+        return uncompressedBytes;
+    }
+
+    public long getBytesSaved()
+    {
+        return uncompressedBytes - compressedBytes;
+    }
+
+    /**
+     * Time spent compressing when writing, or decompressing when reading.
+     */
+    public long getCompressionNanos()
+    {
+        return compressionNanos;
+    }
+}
@@ -14,18 +14,30 @@
 package com.facebook.presto.block;
 
 import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.BlockEncodingSerde;
 import com.google.common.collect.AbstractIterator;
+import io.airlift.compress.Compressor;
+import io.airlift.compress.Decompressor;
+import io.airlift.slice.DynamicSliceOutput;
+import io.airlift.slice.Slice;
 import io.airlift.slice.SliceInput;
 import io.airlift.slice.SliceOutput;
+import io.airlift.slice.XxHash64;
 
 import java.util.Iterator;
 
 import static com.facebook.presto.block.BlockSerdeUtil.readBlock;
 import static com.facebook.presto.block.BlockSerdeUtil.writeBlock;
+import static com.facebook.presto.block.PageCompressionCodec.NONE;
+import static com.facebook.presto.spi.StandardErrorCode.PAGE_TRANSPORT_ERROR;
+import static com.google.common.base.Preconditions.checkArgument;
+import static io.airlift.slice.Slices.wrappedBuffer;
+import static java.lang.String.format;
 import static java.util.Arrays.asList;
 import static java.util.Objects.requireNonNull;
+import static sun.misc.Unsafe.ARRAY_BYTE_BASE_OFFSET;
 
 // layout is:
 //   - position count (int)
@@ -33,8 +45,18 @@ import static java.util.Objects.requireNonNull;
 //   - sequence of:
 //       - block encoding
 //       - block
+//
+// the compressed layout wraps every page in a header:
+//   - compressed flag (byte)
+//   - uncompressed size (int)
+//   - size of the data (int)
+//   - checksum of the uncompressed data (long)
+//   - data: the page in the layout above, compressed if the flag is set
 public final class PagesSerde
 {
+    private static final byte UNCOMPRESSED = 0;
+    private static final byte COMPRESSED = 1;
+
     private PagesSerde() {}
 
     public static long writePages(BlockEncodingSerde blockEncodingSerde, SliceOutput sliceOutput, Page... pages)
@@ -64,6 +86,55 @@ public final class PagesSerde
         return new PagesReader(blockEncodingSerde, sliceInput);
     }
 
+    public static long writeCompressedPages(BlockEncodingSerde blockEncodingSerde, SliceOutput sliceOutput, Iterable<Page> pages, PageCompressionCodec codec)
+    {
+        return writeCompressedPages(blockEncodingSerde, sliceOutput, pages.iterator(), codec, new PageCompressionStats());
+    }
+
+    public static long writeCompressedPages(
+            BlockEncodingSerde blockEncodingSerde,
+            SliceOutput sliceOutput,
+            Iterator<Page> pages,
+            PageCompressionCodec codec,
+            PageCompressionStats stats)
+    {
+        long size = 0;
+        CompressedPagesWriter pagesWriter = new CompressedPagesWriter(blockEncodingSerde, sliceOutput, codec, stats);
+        while (pages.hasNext()) {
+            Page page = pages.next();
+            pagesWriter.append(page);
+            size += page.getSizeInBytes();
+        }
+        return size;
+    }
+
+    public static Iterator<Page> readCompressedPages(BlockEncodingSerde blockEncodingSerde, SliceInput sliceInput, PageCompressionCodec codec, PageCompressionStats stats)
+    {
+        return new CompressedPagesReader(blockEncodingSerde, sliceInput, codec, stats);
+    }
+
+    private static void writePage(BlockEncodingSerde serde, SliceOutput output, Page page)
+    {
+        Block[] blocks = page.getBlocks();
+
+        output.writeInt(page.getPositionCount());
+        output.writeInt(blocks.length);
+        for (int i = 0; i < blocks.length; i++) {
+            writeBlock(serde, output, blocks[i]);
+        }
+    }
+
+    private static Page readPage(BlockEncodingSerde serde, SliceInput input)
+    {
+        int positions = input.readInt();
+        int numberOfBlocks = input.readInt();
+        Block[] blocks = new Block[numberOfBlocks];
+        for (int i = 0; i < blocks.length; i++) {
+            blocks[i] = readBlock(serde, input);
+        }
+        return new Page(positions, blocks);
+    }
+
     private static class PagesWriter
     {
         private final BlockEncodingSerde serde;
@@ -78,29 +149,114 @@ public final class PagesSerde
         public PagesWriter append(Page page)
         {
             requireNonNull(page, "page is null");
+            writePage(serde, output, page);
+            return this;
+        }
+    }
 
-            Block[] blocks = page.getBlocks();
+    private static class PagesReader
+            extends AbstractIterator<Page>
+    {
+        private final BlockEncodingSerde serde;
+        private final SliceInput input;
 
-            output.writeInt(page.getPositionCount());
-            output.writeInt(blocks.length);
-            for (int i = 0; i < blocks.length; i++) {
-                writeBlock(serde, output, blocks[i]);
+        public PagesReader(BlockEncodingSerde serde, SliceInput input)
+        {
+            this.serde = requireNonNull(serde, "serde is null");
+            this.input = requireNonNull(input, "input is null");
+        }
+
+        @Override
+        protected Page computeNext()
+        {
+            if (!input.isReadable()) {
+                return endOfData();
             }
 
+            return readPage(serde, input);
+        }
+    }
+
+    private static class CompressedPagesWriter
+    {
+        private final BlockEncodingSerde serde;
+        private final SliceOutput output;
+        private final Compressor compressor;
+        private final PageCompressionStats stats;
+        private final DynamicSliceOutput buffer = new DynamicSliceOutput(64 * 1024);
+        private byte[] compressed = new byte[0];
+
+        private CompressedPagesWriter(BlockEncodingSerde serde, SliceOutput output, PageCompressionCodec codec, PageCompressionStats stats)
+        {
+            this.serde = requireNonNull(serde, "serde is null");
+            this.output = requireNonNull(output, "output is null");
+            requireNonNull(codec, "codec is null");
+            checkArgument(codec != NONE, "codec is NONE");
+            this.compressor = codec.createCompressor();
+            this.stats = requireNonNull(stats, "stats is null");
+        }
+
+        public CompressedPagesWriter append(Page page)
+        {
+            requireNonNull(page, "page is null");
+
+            buffer.reset();
+            writePage(serde, buffer, page);
+            Slice serialized = buffer.slice();
+            int uncompressedSize = serialized.length();
+            long checksum = XxHash64.hash(serialized);
+
+            long start = System.nanoTime();
+            int maxCompressedLength = compressor.maxCompressedLength(uncompressedSize);
+            if (compressed.length < maxCompressedLength) {
+                compressed = new byte[maxCompressedLength];
+            }
+            int compressedSize = compressor.compress(
+                    (byte[]) serialized.getBase(),
+                    (int) (serialized.getAddress() - ARRAY_BYTE_BASE_OFFSET),
+                    uncompressedSize,
+                    compressed,
+                    0,
+                    maxCompressedLength);
+            stats.addCompressionNanos(System.nanoTime() - start);
+
+            // pages that don't compress, e.g. already encoded dictionaries, are sent as is
+            if (compressedSize < uncompressedSize) {
+                output.writeByte(COMPRESSED);
+                output.writeInt(uncompressedSize);
+                output.writeInt(compressedSize);
+                output.writeLong(checksum);
+                output.writeBytes(compressed, 0, compressedSize);
+                stats.addPage(compressedSize, uncompressedSize);
+            }
+            else {
+                output.writeByte(UNCOMPRESSED);
+                output.writeInt(uncompressedSize);
+                output.writeInt(uncompressedSize);
+                output.writeLong(checksum);
+                output.writeBytes(serialized);
+                stats.addPage(uncompressedSize, uncompressedSize);
+            }
             return this;
         }
     }
 
-    private static class PagesReader
+    private static class CompressedPagesReader
             extends AbstractIterator<Page>
     {
         private final BlockEncodingSerde serde;
         private final SliceInput input;
+        private final Decompressor decompressor;
+        private final PageCompressionStats stats;
 
-        public PagesReader(BlockEncodingSerde serde, SliceInput input)
+        public CompressedPagesReader(BlockEncodingSerde serde, SliceInput input, PageCompressionCodec codec, PageCompressionStats stats)
         {
             this.serde = requireNonNull(serde, "serde is null");
             this.input = requireNonNull(input, "input is null");
+            requireNonNull(codec, "codec is null");
+            checkArgument(codec != NONE, "codec is NONE");
+            this.decompressor = codec.createDecompressor();
+            this.stats = requireNonNull(stats, "stats is null");
         }
 
         @Override
@@ -110,16 +266,42 @@ public final class PagesSerde
                 return endOfData();
             }
 
-            int positions = input.readInt();
-            int numberOfBlocks = input.readInt();
-            Block[] blocks = new Block[numberOfBlocks];
-            for (int i = 0; i < blocks.length; i++) {
-                blocks[i] = readBlock(serde, input);
+            byte flag = input.readByte();
+            int uncompressedSize = input.readInt();
+            int size = input.readInt();
+            long checksum = input.readLong();
+            byte[] data = new byte[size];
+            input.readBytes(data);
+
+            Slice serialized;
+            if (flag == COMPRESSED) {
+                long start = System.nanoTime();
+                byte[] uncompressed = new byte[uncompressedSize];
+                int actualSize;
+                try {
+                    actualSize = decompressor.decompress(data, 0, size, uncompressed, 0, uncompressedSize);
+                }
+                catch (RuntimeException e) {
+                    throw new PrestoException(PAGE_TRANSPORT_ERROR, "Compressed page is corrupt", e);
+                }
+                stats.addCompressionNanos(System.nanoTime() - start);
+                if (actualSize != uncompressedSize) {
+                    throw new PrestoException(PAGE_TRANSPORT_ERROR, format("Expected page of %s bytes, but decompressed %s bytes", uncompressedSize, actualSize));
+                }
+                serialized = wrappedBuffer(uncompressed);
+            }
+            else if (flag == UNCOMPRESSED) {
+                serialized = wrappedBuffer(data);
+            }
+            else {
+                throw new PrestoException(PAGE_TRANSPORT_ERROR, format("Invalid page compression flag: %s", flag));
             }
 
-            @SuppressWarnings("UnnecessaryLocalVariable")
-            Page page = new Page(positions, blocks);
-            return page;
+            if (XxHash64.hash(serialized) != checksum) {
+                throw new PrestoException(PAGE_TRANSPORT_ERROR, "Page checksum mismatch");
+            }
+            stats.addPage(size, uncompressedSize);
+            return readPage(serde, serialized.getInput());
         }
     }
 }
@@ -0,0 +1,89 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.cost;
+
+import com.facebook.presto.spi.statistics.Estimate;
+import com.facebook.presto.spi.type.FixedWidthType;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.sql.planner.Symbol;
+import com.google.common.collect.ImmutableMap;
+
+import java.util.Collection;
+import java.util.Map;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Estimated number of rows produced by a plan node, together with the estimated
+ * number of distinct values of its output symbols, where known.
+ */
+public class PlanNodeStatsEstimate
+{
+    public static final PlanNodeStatsEstimate UNKNOWN = new PlanNodeStatsEstimate(Estimate.unknownValue(), ImmutableMap.of());
+
+    // assumed size of a value of a variable width type
+    private static final int DEFAULT_VARIABLE_WIDTH_SIZE = 16;
+
+    private final Estimate outputRowCount;
+    private final Map<Symbol, Estimate> distinctValuesCounts;
+
+    public PlanNodeStatsEstimate(Estimate outputRowCount, Map<Symbol, Estimate> distinctValuesCounts)
+    {
+        this.outputRowCount = requireNonNull(outputRowCount, "outputRowCount is null");
+        this.distinctValuesCounts = ImmutableMap.copyOf(requireNonNull(distinctValuesCounts, "distinctValuesCounts is null"));
+    }
+
+    public Estimate getOutputRowCount()
+    {
+        return outputRowCount;
+    }
+
+    public Map<Symbol, Estimate> getDistinctValuesCounts()
+    {
+        return distinctValuesCounts;
+    }
+
+    /**
+     * Returns the number of distinct values of the symbol, which is never more than the number of rows.
+     */
+    public Estimate getDistinctValuesCount(Symbol symbol)
+    {
+        Estimate distinctValuesCount = distinctValuesCounts.getOrDefault(symbol, Estimate.unknownValue());
+        if (distinctValuesCount.isValueUnknown() || outputRowCount.isValueUnknown()) {
+            return distinctValuesCount;
+        }
+        return Estimate.of(Math.min(distinctValuesCount.getValue(), outputRowCount.getValue()));
+    }
+
+    public Estimate getOutputSizeInBytes(Collection<Symbol> outputSymbols, Map<Symbol, Type> types)
+    {
+        int rowSize = 0;
+        for (Symbol symbol : outputSymbols) {
+            Type type = types.get(symbol);
+            rowSize += (type instanceof FixedWidthType) ? ((FixedWidthType) type).getFixedSize() : DEFAULT_VARIABLE_WIDTH_SIZE;
+        }
+        int finalRowSize = rowSize;
+        return outputRowCount.map(rowCount -> rowCount * finalRowSize);
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("outputRowCount", outputRowCount)
+                .add("distinctValuesCounts", distinctValuesCounts)
+                .toString();
+    }
+}
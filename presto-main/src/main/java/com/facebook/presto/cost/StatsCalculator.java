@@ -0,0 +1,311 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.cost;
+
+import com.facebook.presto.Session;
+import com.facebook.presto.metadata.Metadata;
+import com.facebook.presto.spi.ColumnHandle;
+import com.facebook.presto.spi.Constraint;
+import com.facebook.presto.spi.statistics.ColumnStatistics;
+import com.facebook.presto.spi.statistics.Estimate;
+import com.facebook.presto.spi.statistics.TableStatistics;
+import com.facebook.presto.sql.planner.Symbol;
+import com.facebook.presto.sql.planner.plan.AggregationNode;
+import com.facebook.presto.sql.planner.plan.EnforceSingleRowNode;
+import com.facebook.presto.sql.planner.plan.ExchangeNode;
+import com.facebook.presto.sql.planner.plan.FilterNode;
+import com.facebook.presto.sql.planner.plan.JoinNode;
+import com.facebook.presto.sql.planner.plan.LimitNode;
+import com.facebook.presto.sql.planner.plan.MarkDistinctNode;
+import com.facebook.presto.sql.planner.plan.PlanNode;
+import com.facebook.presto.sql.planner.plan.PlanNodeId;
+import com.facebook.presto.sql.planner.plan.PlanVisitor;
+import com.facebook.presto.sql.planner.plan.ProjectNode;
+import com.facebook.presto.sql.planner.plan.SemiJoinNode;
+import com.facebook.presto.sql.planner.plan.SortNode;
+import com.facebook.presto.sql.planner.plan.TableScanNode;
+import com.facebook.presto.sql.planner.plan.TopNNode;
+import com.facebook.presto.sql.planner.plan.UnionNode;
+import com.facebook.presto.sql.planner.plan.ValuesNode;
+import com.facebook.presto.sql.planner.plan.WindowNode;
+import com.facebook.presto.sql.tree.Expression;
+import com.facebook.presto.sql.tree.SymbolReference;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.collect.Iterables.getOnlyElement;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Estimates the number of rows produced by plan nodes from the table statistics of the
+ * connectors. The estimates are deliberately simple: predicates without statistics use a
+ * fixed selectivity, and the join keys are assumed to be independent and uniformly distributed.
+ * <p>
+ * The table statistics are cached, so an instance should only be used while optimizing a single plan.
+ */
+public class StatsCalculator
+{
+    // selectivity of a predicate that can't be estimated from the statistics
+    private static final double UNKNOWN_FILTER_SELECTIVITY = 0.5;
+
+    private final Metadata metadata;
+    private final Session session;
+    private final Map<PlanNodeId, TableStatistics> tableStatistics = new HashMap<>();
+    private final Visitor visitor = new Visitor();
+
+    public StatsCalculator(Metadata metadata, Session session)
+    {
+        this.metadata = requireNonNull(metadata, "metadata is null");
+        this.session = requireNonNull(session, "session is null");
+    }
+
+    public PlanNodeStatsEstimate calculateStats(PlanNode node)
+    {
+        return node.accept(visitor, null);
+    }
+
+    private TableStatistics getTableStatistics(TableScanNode node)
+    {
+        return tableStatistics.computeIfAbsent(node.getId(), id -> {
+            Constraint<ColumnHandle> constraint = new Constraint<>(node.getCurrentConstraint(), bindings -> true);
+            return metadata.getTableStatistics(session, node.getTable(), constraint);
+        });
+    }
+
+    /**
+     * Estimates the output of a join of the sources with the given estimates.
+     */
+    public static PlanNodeStatsEstimate estimateJoin(
+            JoinNode.Type type,
+            List<JoinNode.EquiJoinClause> criteria,
+            boolean hasFilter,
+            PlanNodeStatsEstimate left,
+            PlanNodeStatsEstimate right)
+    {
+        Map<Symbol, Estimate> distinctValuesCounts = new HashMap<>(left.getDistinctValuesCounts());
+        distinctValuesCounts.putAll(right.getDistinctValuesCounts());
+
+        Estimate leftRows = left.getOutputRowCount();
+        Estimate rightRows = right.getOutputRowCount();
+        if (leftRows.isValueUnknown() || rightRows.isValueUnknown()) {
+            return new PlanNodeStatsEstimate(Estimate.unknownValue(), distinctValuesCounts);
+        }
+
+        double rowCount = leftRows.getValue() * rightRows.getValue();
+        if (!criteria.isEmpty()) {
+            // use the most selective clause, as the clauses are often correlated
+            double maxDistinctValues = 0;
+            for (JoinNode.EquiJoinClause clause : criteria) {
+                Estimate leftDistinctValues = left.getDistinctValuesCount(clause.getLeft());
+                Estimate rightDistinctValues = right.getDistinctValuesCount(clause.getRight());
+                if (!leftDistinctValues.isValueUnknown() && !rightDistinctValues.isValueUnknown()) {
+                    maxDistinctValues = Math.max(maxDistinctValues, Math.max(leftDistinctValues.getValue(), rightDistinctValues.getValue()));
+                }
+            }
+            if (maxDistinctValues > 0) {
+                rowCount /= maxDistinctValues;
+            }
+            else {
+                // without statistics assume a foreign key join
+                rowCount = Math.max(leftRows.getValue(), rightRows.getValue());
+            }
+        }
+        if (hasFilter) {
+            rowCount *= UNKNOWN_FILTER_SELECTIVITY;
+        }
+
+        switch (type) {
+            case LEFT:
+                rowCount = Math.max(rowCount, leftRows.getValue());
+                break;
+            case RIGHT:
+                rowCount = Math.max(rowCount, rightRows.getValue());
+                break;
+            case FULL:
+                rowCount = Math.max(rowCount, leftRows.getValue() + rightRows.getValue());
+                break;
+        }
+        return new PlanNodeStatsEstimate(Estimate.of(rowCount), distinctValuesCounts);
+    }
+
+    private class Visitor
+            extends PlanVisitor<Void, PlanNodeStatsEstimate>
+    {
+        @Override
+        protected PlanNodeStatsEstimate visitPlan(PlanNode node, Void context)
+        {
+            return PlanNodeStatsEstimate.UNKNOWN;
+        }
+
+        @Override
+        public PlanNodeStatsEstimate visitTableScan(TableScanNode node, Void context)
+        {
+            TableStatistics tableStatistics = getTableStatistics(node);
+
+            Map<Symbol, Estimate> distinctValuesCounts = new HashMap<>();
+            for (Map.Entry<Symbol, ColumnHandle> entry : node.getAssignments().entrySet()) {
+                ColumnStatistics columnStatistics = tableStatistics.getColumnStatistics().get(entry.getValue());
+                if (columnStatistics != null) {
+                    distinctValuesCounts.put(entry.getKey(), columnStatistics.getDistinctValuesCount());
+                }
+            }
+            return new PlanNodeStatsEstimate(tableStatistics.getRowCount(), distinctValuesCounts);
+        }
+
+        @Override
+        public PlanNodeStatsEstimate visitFilter(FilterNode node, Void context)
+        {
+            PlanNodeStatsEstimate source = node.getSource().accept(this, context);
+            return new PlanNodeStatsEstimate(
+                    source.getOutputRowCount().map(rowCount -> rowCount * UNKNOWN_FILTER_SELECTIVITY),
+                    source.getDistinctValuesCounts());
+        }
+
+        @Override
+        public PlanNodeStatsEstimate visitProject(ProjectNode node, Void context)
+        {
+            PlanNodeStatsEstimate source = node.getSource().accept(this, context);
+
+            Map<Symbol, Estimate> distinctValuesCounts = new HashMap<>();
+            for (Map.Entry<Symbol, Expression> entry : node.getAssignments().entrySet()) {
+                if (entry.getValue() instanceof SymbolReference) {
+                    distinctValuesCounts.put(entry.getKey(), source.getDistinctValuesCount(Symbol.from(entry.getValue())));
+                }
+            }
+            return new PlanNodeStatsEstimate(source.getOutputRowCount(), distinctValuesCounts);
+        }
+
+        @Override
+        public PlanNodeStatsEstimate visitJoin(JoinNode node, Void context)
+        {
+            PlanNodeStatsEstimate left = node.getLeft().accept(this, context);
+            PlanNodeStatsEstimate right = node.getRight().accept(this, context);
+            return estimateJoin(node.getType(), node.getCriteria(), node.getFilter().isPresent(), left, right);
+        }
+
+        @Override
+        public PlanNodeStatsEstimate visitSemiJoin(SemiJoinNode node, Void context)
+        {
+            return node.getSource().accept(this, context);
+        }
+
+        @Override
+        public PlanNodeStatsEstimate visitAggregation(AggregationNode node, Void context)
+        {
+            PlanNodeStatsEstimate source = node.getSource().accept(this, context);
+            if (node.getGroupingKeys().isEmpty()) {
+                return new PlanNodeStatsEstimate(Estimate.of(1), source.getDistinctValuesCounts());
+            }
+            if (node.getGroupingSets().size() > 1) {
+                return new PlanNodeStatsEstimate(source.getOutputRowCount(), source.getDistinctValuesCounts());
+            }
+
+            Estimate groups = Estimate.of(1);
+            for (Symbol groupingKey : node.getGroupingKeys()) {
+                Estimate distinctValues = source.getDistinctValuesCount(groupingKey);
+                if (distinctValues.isValueUnknown()) {
+                    groups = source.getOutputRowCount();
+                    break;
+                }
+                groups = groups.map(value -> value * distinctValues.getValue());
+            }
+            Estimate sourceRows = source.getOutputRowCount();
+            if (!groups.isValueUnknown() && !sourceRows.isValueUnknown()) {
+                groups = Estimate.of(Math.min(groups.getValue(), sourceRows.getValue()));
+            }
+            return new PlanNodeStatsEstimate(groups, source.getDistinctValuesCounts());
+        }
+
+        @Override
+        public PlanNodeStatsEstimate visitLimit(LimitNode node, Void context)
+        {
+            return limit(node.getSource().accept(this, context), node.getCount());
+        }
+
+        @Override
+        public PlanNodeStatsEstimate visitTopN(TopNNode node, Void context)
+        {
+            return limit(node.getSource().accept(this, context), node.getCount());
+        }
+
+        @Override
+        public PlanNodeStatsEstimate visitEnforceSingleRow(EnforceSingleRowNode node, Void context)
+        {
+            return limit(node.getSource().accept(this, context), 1);
+        }
+
+        @Override
+        public PlanNodeStatsEstimate visitValues(ValuesNode node, Void context)
+        {
+            return new PlanNodeStatsEstimate(Estimate.of(node.getRows().size()), new HashMap<>());
+        }
+
+        @Override
+        public PlanNodeStatsEstimate visitSort(SortNode node, Void context)
+        {
+            return node.getSource().accept(this, context);
+        }
+
+        @Override
+        public PlanNodeStatsEstimate visitWindow(WindowNode node, Void context)
+        {
+            return node.getSource().accept(this, context);
+        }
+
+        @Override
+        public PlanNodeStatsEstimate visitMarkDistinct(MarkDistinctNode node, Void context)
+        {
+            return node.getSource().accept(this, context);
+        }
+
+        @Override
+        public PlanNodeStatsEstimate visitExchange(ExchangeNode node, Void context)
+        {
+            if (node.getSources().size() == 1 && node.getInputs().size() == 1 && getOnlyElement(node.getInputs()).equals(node.getOutputSymbols())) {
+                return getOnlyElement(node.getSources()).accept(this, context);
+            }
+            return sumRowCounts(node.getSources(), context);
+        }
+
+        @Override
+        public PlanNodeStatsEstimate visitUnion(UnionNode node, Void context)
+        {
+            return sumRowCounts(node.getSources(), context);
+        }
+
+        private PlanNodeStatsEstimate sumRowCounts(List<PlanNode> sources, Void context)
+        {
+            Estimate rowCount = Estimate.zeroValue();
+            for (PlanNode source : sources) {
+                Estimate sourceRowCount = source.accept(this, context).getOutputRowCount();
+                if (sourceRowCount.isValueUnknown()) {
+                    return PlanNodeStatsEstimate.UNKNOWN;
+                }
+                rowCount = rowCount.map(value -> value + sourceRowCount.getValue());
+            }
+            return new PlanNodeStatsEstimate(rowCount, new HashMap<>());
+        }
+
+        private PlanNodeStatsEstimate limit(PlanNodeStatsEstimate source, long count)
+        {
+            Estimate rowCount = source.getOutputRowCount();
+            if (rowCount.isValueUnknown()) {
+                return new PlanNodeStatsEstimate(Estimate.of(count), source.getDistinctValuesCounts());
+            }
+            return new PlanNodeStatsEstimate(Estimate.of(Math.min(rowCount.getValue(), count)), source.getDistinctValuesCounts());
+        }
+    }
+}
@@ -27,6 +27,7 @@ import com.facebook.presto.execution.TaskInfo;
 import com.facebook.presto.execution.TaskState;
 import com.facebook.presto.operator.DriverStats;
 import com.facebook.presto.operator.TaskStats;
+import com.facebook.presto.spi.eventlistener.LowMemoryKillInfo;
 import com.facebook.presto.spi.eventlistener.QueryCompletedEvent;
 import com.facebook.presto.spi.eventlistener.QueryContext;
 import com.facebook.presto.spi.eventlistener.QueryCreatedEvent;
@@ -117,6 +118,11 @@ public class QueryMonitor
     }
 
     public void queryCompletedEvent(QueryInfo queryInfo)
+    {
+        queryCompletedEvent(queryInfo, Optional.empty());
+    }
+
+    public void queryCompletedEvent(QueryInfo queryInfo, Optional<LowMemoryKillInfo> lowMemoryKillInfo)
     {
         try {
             Optional<QueryFailureInfo> queryFailureInfo = Optional.empty();
@@ -190,6 +196,7 @@ public class QueryMonitor
                                     environment),
                             new QueryIOMetadata(inputs.build(), output),
                             queryFailureInfo,
+                            lowMemoryKillInfo,
                             ofEpochMilli(queryStats.getCreateTime().getMillis()),
                             ofEpochMilli(queryStats.getExecutionStartTime().getMillis()),
                             ofEpochMilli(queryStats.getEndTime().getMillis())));
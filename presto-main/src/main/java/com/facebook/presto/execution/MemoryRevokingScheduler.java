@@ -0,0 +1,156 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution;
+
+import com.facebook.presto.memory.MemoryPool;
+import com.facebook.presto.memory.MemoryPoolListener;
+import com.facebook.presto.memory.QueryContext;
+import com.facebook.presto.operator.DriverContext;
+import com.facebook.presto.operator.OperatorContext;
+import com.facebook.presto.operator.PipelineContext;
+import com.facebook.presto.operator.TaskContext;
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
+import io.airlift.log.Logger;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Asks the operators holding the most revocable memory to release it, once a memory pool is
+ * filled above the revoking threshold, so queries spill instead of blocking on a full pool.
+ */
+public class MemoryRevokingScheduler
+{
+    private static final Logger log = Logger.get(MemoryRevokingScheduler.class);
+
+    private final List<MemoryPool> memoryPools;
+    private final Supplier<? extends Collection<QueryContext>> queryContexts;
+    private final ScheduledExecutorService executor;
+    private final double memoryRevokingThreshold;
+    private final double memoryRevokingTarget;
+
+    private final MemoryPoolListener memoryPoolListener = this::onMemoryReserved;
+    private final AtomicBoolean checkPending = new AtomicBoolean();
+
+    public MemoryRevokingScheduler(
+            List<MemoryPool> memoryPools,
+            Supplier<? extends Collection<QueryContext>> queryContexts,
+            ScheduledExecutorService executor,
+            double memoryRevokingThreshold,
+            double memoryRevokingTarget)
+    {
+        this.memoryPools = ImmutableList.copyOf(requireNonNull(memoryPools, "memoryPools is null"));
+        this.queryContexts = requireNonNull(queryContexts, "queryContexts is null");
+        this.executor = requireNonNull(executor, "executor is null");
+        checkArgument(memoryRevokingThreshold >= 0 && memoryRevokingThreshold <= 1, "memoryRevokingThreshold should be within [0, 1] range");
+        checkArgument(memoryRevokingTarget >= 0 && memoryRevokingTarget <= memoryRevokingThreshold, "memoryRevokingTarget should be within [0, memoryRevokingThreshold] range");
+        this.memoryRevokingThreshold = memoryRevokingThreshold;
+        this.memoryRevokingTarget = memoryRevokingTarget;
+    }
+
+    public void start()
+    {
+        memoryPools.forEach(memoryPool -> memoryPool.addListener(memoryPoolListener));
+
+        // the periodic check catches pools that are filled without new reservations, e.g. after a pool assignment changed
+        executor.scheduleWithFixedDelay(() -> {
+            try {
+                requestMemoryRevokingIfNeeded();
+            }
+            catch (Throwable e) {
+                log.warn(e, "Error requesting memory revoking");
+            }
+        }, 1, 1, TimeUnit.SECONDS);
+    }
+
+    private void onMemoryReserved(MemoryPool memoryPool)
+    {
+        // the listener is called with query locks held, so the operators are inspected on the executor
+        if (isOverThreshold(memoryPool) && checkPending.compareAndSet(false, true)) {
+            executor.execute(() -> {
+                checkPending.set(false);
+                try {
+                    requestMemoryRevokingIfNeeded();
+                }
+                catch (Throwable e) {
+                    log.warn(e, "Error requesting memory revoking");
+                }
+            });
+        }
+    }
+
+    @VisibleForTesting
+    synchronized void requestMemoryRevokingIfNeeded()
+    {
+        for (MemoryPool memoryPool : memoryPools) {
+            if (isOverThreshold(memoryPool)) {
+                requestMemoryRevoking(memoryPool);
+            }
+        }
+    }
+
+    private void requestMemoryRevoking(MemoryPool memoryPool)
+    {
+        long maxBytes = memoryPool.getMaxBytes();
+        long remainingBytesToRevoke = (maxBytes - memoryPool.getFreeBytes()) - (long) (maxBytes * memoryRevokingTarget);
+
+        List<OperatorContext> operatorContexts = new ArrayList<>();
+        for (QueryContext queryContext : queryContexts.get()) {
+            if (queryContext.getMemoryPool() != memoryPool) {
+                continue;
+            }
+            for (TaskContext taskContext : queryContext.getTaskContexts()) {
+                if (taskContext.isDone() || taskContext.getRevocableMemoryReservation() == 0) {
+                    continue;
+                }
+                for (PipelineContext pipelineContext : taskContext.getPipelineContexts()) {
+                    for (DriverContext driverContext : pipelineContext.getDriverContexts()) {
+                        for (OperatorContext operatorContext : driverContext.getOperatorContexts()) {
+                            if (operatorContext.getReservedRevocableBytes() > 0) {
+                                operatorContexts.add(operatorContext);
+                            }
+                        }
+                    }
+                }
+            }
+        }
+
+        // revoke the largest holders first, so as few operators as possible need to spill
+        operatorContexts.sort(Comparator.comparingLong(OperatorContext::getReservedRevocableBytes).reversed());
+        for (OperatorContext operatorContext : operatorContexts) {
+            if (remainingBytesToRevoke <= 0) {
+                break;
+            }
+            // operators that were already asked are counted as well, since their memory is about to be released
+            operatorContext.requestMemoryRevoking();
+            remainingBytesToRevoke -= operatorContext.getReservedRevocableBytes();
+        }
+    }
+
+    private boolean isOverThreshold(MemoryPool memoryPool)
+    {
+        long maxBytes = memoryPool.getMaxBytes();
+        return maxBytes - memoryPool.getFreeBytes() > maxBytes * memoryRevokingThreshold && memoryPool.getReservedRevocableBytes() > 0;
+    }
+}
@@ -0,0 +1,238 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution;
+
+import com.facebook.presto.execution.TaskExecutor.PrioritizedSplitRunner;
+import io.airlift.stats.TimeStat;
+import io.airlift.units.Duration;
+import org.weakref.jmx.Managed;
+import org.weakref.jmx.Nested;
+
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.util.Collection;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Splits waiting for a runner thread, kept in one lock-free queue per priority level.
+ * Within a level, splits are ordered as before by {@link PrioritizedSplitRunner#compareTo}.
+ * Across levels, the next split is taken from the non-empty level that used the least
+ * thread time relative to its share, where each level is entitled to half the thread
+ * time of the level below it. This keeps long running tasks from being starved by a
+ * constant stream of short ones, while still strongly favoring the short ones.
+ */
+@ThreadSafe
+public class MultilevelSplitQueue
+{
+    static final int LEVEL_COUNT = 5;
+
+    private final ConcurrentSkipListSet<PrioritizedSplitRunner>[] levelWaitingSplits;
+    private final AtomicLong[] levelScheduledNanos = new AtomicLong[LEVEL_COUNT];
+    private final TimeStat[] levelQueuedTime = new TimeStat[LEVEL_COUNT];
+
+    // one permit for each waiting split
+    private final Semaphore waitingSplitPermits = new Semaphore(0);
+
+    MultilevelSplitQueue()
+    {
+        this.levelWaitingSplits = (ConcurrentSkipListSet<PrioritizedSplitRunner>[]) new ConcurrentSkipListSet<?>[LEVEL_COUNT];
+        for (int level = 0; level < LEVEL_COUNT; level++) {
+            levelWaitingSplits[level] = new ConcurrentSkipListSet<>();
+            levelScheduledNanos[level] = new AtomicLong();
+            levelQueuedTime[level] = new TimeStat(NANOSECONDS);
+        }
+    }
+
+    public void offer(PrioritizedSplitRunner split)
+    {
+        int level = split.getPriorityLevel();
+        ConcurrentSkipListSet<PrioritizedSplitRunner> waitingSplits = levelWaitingSplits[level];
+        if (waitingSplits.isEmpty()) {
+            // a level that was idle has not accumulated any thread time, so without this
+            // it would be preferred over all other levels until it caught up with them
+            levelScheduledNanos[level].accumulateAndGet(getMinimumScheduledNanos(level), Math::max);
+        }
+
+        split.setReadyNanos(System.nanoTime());
+        waitingSplits.add(split);
+        waitingSplitPermits.release();
+    }
+
+    public PrioritizedSplitRunner take()
+            throws InterruptedException
+    {
+        while (true) {
+            waitingSplitPermits.acquire();
+
+            // the split for this permit may have been removed concurrently, so retry until a split is found
+            PrioritizedSplitRunner split = pollSplit();
+            if (split != null) {
+                levelQueuedTime[split.getPriorityLevel()].add(Duration.nanosSince(split.getReadyNanos()));
+                return split;
+            }
+        }
+    }
+
+    public void removeAll(Collection<PrioritizedSplitRunner> splits)
+    {
+        for (PrioritizedSplitRunner split : splits) {
+            for (ConcurrentSkipListSet<PrioritizedSplitRunner> waitingSplits : levelWaitingSplits) {
+                if (waitingSplits.remove(split)) {
+                    // if a taker already holds the permit it will find the queue empty and retry
+                    waitingSplitPermits.tryAcquire();
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Records thread time used by a split of the level, which is used to select the level of the next split.
+     */
+    public void addLevelScheduledNanos(int level, long nanos)
+    {
+        checkArgument(nanos >= 0, "nanos is negative");
+        levelScheduledNanos[level].addAndGet(nanos);
+    }
+
+    public int size()
+    {
+        int size = 0;
+        for (ConcurrentSkipListSet<PrioritizedSplitRunner> waitingSplits : levelWaitingSplits) {
+            size += waitingSplits.size();
+        }
+        return size;
+    }
+
+    private PrioritizedSplitRunner pollSplit()
+    {
+        while (true) {
+            int selectedLevel = -1;
+            long selectedNormalizedNanos = Long.MAX_VALUE;
+            for (int level = 0; level < LEVEL_COUNT; level++) {
+                if (levelWaitingSplits[level].isEmpty()) {
+                    continue;
+                }
+                long normalizedNanos = getNormalizedScheduledNanos(level);
+                if (normalizedNanos < selectedNormalizedNanos) {
+                    selectedLevel = level;
+                    selectedNormalizedNanos = normalizedNanos;
+                }
+            }
+            if (selectedLevel == -1) {
+                return null;
+            }
+
+            PrioritizedSplitRunner split = levelWaitingSplits[selectedLevel].pollFirst();
+            if (split != null) {
+                return split;
+            }
+            // another runner emptied the level in the meantime
+        }
+    }
+
+    private long getNormalizedScheduledNanos(int level)
+    {
+        // level n is entitled to 1/2^n of the thread time of level 0
+        long nanos = levelScheduledNanos[level].get();
+        if (nanos > (Long.MAX_VALUE >> level)) {
+            return Long.MAX_VALUE;
+        }
+        return nanos << level;
+    }
+
+    private long getMinimumScheduledNanos(int targetLevel)
+    {
+        long minimum = Long.MAX_VALUE;
+        for (int level = 0; level < LEVEL_COUNT; level++) {
+            if (level != targetLevel && !levelWaitingSplits[level].isEmpty()) {
+                minimum = Math.min(minimum, getNormalizedScheduledNanos(level));
+            }
+        }
+        if (minimum == Long.MAX_VALUE) {
+            return 0;
+        }
+        return minimum >> targetLevel;
+    }
+
+    @Managed
+    @Nested
+    public TimeStat getLevel0QueuedTime()
+    {
+        return levelQueuedTime[0];
+    }
+
+    @Managed
+    @Nested
+    public TimeStat getLevel1QueuedTime()
+    {
+        return levelQueuedTime[1];
+    }
+
+    @Managed
+    @Nested
+    public TimeStat getLevel2QueuedTime()
+    {
+        return levelQueuedTime[2];
+    }
+
+    @Managed
+    @Nested
+    public TimeStat getLevel3QueuedTime()
+    {
+        return levelQueuedTime[3];
+    }
+
+    @Managed
+    @Nested
+    public TimeStat getLevel4QueuedTime()
+    {
+        return levelQueuedTime[4];
+    }
+
+    @Managed
+    public long getLevel0ScheduledNanos()
+    {
+        return levelScheduledNanos[0].get();
+    }
+
+    @Managed
+    public long getLevel1ScheduledNanos()
+    {
+        return levelScheduledNanos[1].get();
+    }
+
+    @Managed
+    public long getLevel2ScheduledNanos()
+    {
+        return levelScheduledNanos[2].get();
+    }
+
+    @Managed
+    public long getLevel3ScheduledNanos()
+    {
+        return levelScheduledNanos[3].get();
+    }
+
+    @Managed
+    public long getLevel4ScheduledNanos()
+    {
+        return levelScheduledNanos[4].get();
+    }
+}
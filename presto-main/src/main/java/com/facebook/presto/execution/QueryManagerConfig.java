@@ -14,6 +14,7 @@
 package com.facebook.presto.execution;
 
 import io.airlift.configuration.Config;
+import io.airlift.configuration.ConfigDescription;
 import io.airlift.configuration.DefunctConfig;
 import io.airlift.configuration.LegacyConfig;
 import io.airlift.units.Duration;
@@ -45,6 +46,10 @@ public class QueryManagerConfig
 
     private Duration remoteTaskMinErrorDuration = new Duration(2, TimeUnit.MINUTES);
     private int remoteTaskMaxCallbackThreads = 1000;
+    private boolean remoteTaskBinaryEncodingEnabled;
+    private boolean remoteTaskDeltaInfoEnabled;
+    private int remoteTaskMaxSplitsPerUpdate = 1000;
+    private Duration remoteTaskUpdateBatchDelay = new Duration(0, TimeUnit.MILLISECONDS);
 
     private String queryExecutionPolicy = "all-at-once";
     private Duration queryMaxRunTime = new Duration(100, TimeUnit.DAYS);
@@ -226,6 +231,61 @@ public class QueryManagerConfig
         return this;
     }
 
+    public boolean isRemoteTaskBinaryEncodingEnabled()
+    {
+        return remoteTaskBinaryEncodingEnabled;
+    }
+
+    @Config("query.remote-task.binary-encoding-enabled")
+    @ConfigDescription("Fetch task status and task info from workers encoded as Smile instead of JSON")
+    public QueryManagerConfig setRemoteTaskBinaryEncodingEnabled(boolean remoteTaskBinaryEncodingEnabled)
+    {
+        this.remoteTaskBinaryEncodingEnabled = remoteTaskBinaryEncodingEnabled;
+        return this;
+    }
+
+    public boolean isRemoteTaskDeltaInfoEnabled()
+    {
+        return remoteTaskDeltaInfoEnabled;
+    }
+
+    @Config("query.remote-task.delta-info-enabled")
+    @ConfigDescription("Only fetch the pipeline stats of a task that changed since the last task info")
+    public QueryManagerConfig setRemoteTaskDeltaInfoEnabled(boolean remoteTaskDeltaInfoEnabled)
+    {
+        this.remoteTaskDeltaInfoEnabled = remoteTaskDeltaInfoEnabled;
+        return this;
+    }
+
+    @Min(1)
+    public int getRemoteTaskMaxSplitsPerUpdate()
+    {
+        return remoteTaskMaxSplitsPerUpdate;
+    }
+
+    @Config("query.remote-task.max-splits-per-update")
+    @ConfigDescription("Maximum number of splits sent to a task in a single update request")
+    public QueryManagerConfig setRemoteTaskMaxSplitsPerUpdate(int remoteTaskMaxSplitsPerUpdate)
+    {
+        this.remoteTaskMaxSplitsPerUpdate = remoteTaskMaxSplitsPerUpdate;
+        return this;
+    }
+
+    @NotNull
+    @MinDuration("0ms")
+    public Duration getRemoteTaskUpdateBatchDelay()
+    {
+        return remoteTaskUpdateBatchDelay;
+    }
+
+    @Config("query.remote-task.update-batch-delay")
+    @ConfigDescription("Time to wait for more splits before sending new splits to an idle task")
+    public QueryManagerConfig setRemoteTaskUpdateBatchDelay(Duration remoteTaskUpdateBatchDelay)
+    {
+        this.remoteTaskUpdateBatchDelay = remoteTaskUpdateBatchDelay;
+        return this;
+    }
+
     @NotNull
     public String getQueryExecutionPolicy()
     {
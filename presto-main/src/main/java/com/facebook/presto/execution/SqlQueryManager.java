@@ -332,7 +332,7 @@ public class SqlQueryManager
                 try {
                     QueryInfo info = queryExecution.getQueryInfo();
                     stats.queryFinished(info);
-                    queryMonitor.queryCompletedEvent(info);
+                    queryMonitor.queryCompletedEvent(info, memoryManager.removeLowMemoryKillInfo(queryId));
                 }
                 finally {
                     // execution MUST be added to the expiration queue or there will be a leak
@@ -21,6 +21,7 @@ import com.facebook.presto.event.query.QueryMonitor;
 import com.facebook.presto.execution.StateMachine.StateChangeListener;
 import com.facebook.presto.execution.buffer.BufferResult;
 import com.facebook.presto.memory.LocalMemoryManager;
+import com.facebook.presto.memory.MemoryPool;
 import com.facebook.presto.memory.MemoryPoolAssignment;
 import com.facebook.presto.memory.MemoryPoolAssignmentsRequest;
 import com.facebook.presto.memory.NodeMemoryConfig;
@@ -61,6 +62,7 @@ import java.util.concurrent.TimeUnit;
 import static com.facebook.presto.SystemSessionProperties.resourceOvercommit;
 import static com.facebook.presto.spi.StandardErrorCode.ABANDONED_TASK;
 import static com.facebook.presto.spi.StandardErrorCode.SERVER_SHUTTING_DOWN;
+import static com.facebook.presto.util.ImmutableCollectors.toImmutableList;
 import static com.google.common.base.Predicates.notNull;
 import static com.google.common.collect.Iterables.filter;
 import static com.google.common.collect.Iterables.transform;
@@ -87,6 +89,7 @@ public class SqlTaskManager
     private final LocalMemoryManager localMemoryManager;
     private final LoadingCache<QueryId, QueryContext> queryContexts;
     private final LoadingCache<TaskId, SqlTask> tasks;
+    private final MemoryRevokingScheduler memoryRevokingScheduler;
 
     private final SqlTaskIoStats cachedStats = new SqlTaskIoStats();
     private final SqlTaskIoStats finishedTaskStats = new SqlTaskIoStats();
@@ -136,6 +139,17 @@ public class SqlTaskManager
             }
         });
 
+        // revocable memory is only reserved in the pools used for query memory
+        List<MemoryPool> revocableMemoryPools = localMemoryManager.getPools().stream()
+                .filter(pool -> !pool.getId().equals(LocalMemoryManager.SYSTEM_POOL))
+                .collect(toImmutableList());
+        memoryRevokingScheduler = new MemoryRevokingScheduler(
+                revocableMemoryPools,
+                () -> queryContexts.asMap().values(),
+                taskManagementExecutor,
+                config.getMemoryRevokingThreshold(),
+                config.getMemoryRevokingTarget());
+
         tasks = CacheBuilder.newBuilder().build(new CacheLoader<TaskId, SqlTask>()
         {
             @Override
@@ -179,6 +193,8 @@ public class SqlTaskManager
     @PostConstruct
     public void start()
     {
+        memoryRevokingScheduler.start();
+
         taskManagementExecutor.scheduleWithFixedDelay(() -> {
             try {
                 removeOldTasks();
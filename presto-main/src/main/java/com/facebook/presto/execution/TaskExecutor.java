@@ -36,7 +36,6 @@ import javax.inject.Inject;
 
 import java.util.ArrayDeque;
 import java.util.ArrayList;
-import java.util.HashSet;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.List;
@@ -46,7 +45,6 @@ import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
-import java.util.concurrent.PriorityBlockingQueue;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
@@ -93,13 +91,12 @@ public class TaskExecutor
     /**
      * All splits registered with the task executor.
      */
-    @GuardedBy("this")
-    private final Set<PrioritizedSplitRunner> allSplits = new HashSet<>();
+    private final Set<PrioritizedSplitRunner> allSplits = newConcurrentHashSet();
 
     /**
      * Splits waiting for a runner thread.
      */
-    private final PriorityBlockingQueue<PrioritizedSplitRunner> pendingSplits;
+    private final MultilevelSplitQueue pendingSplits = new MultilevelSplitQueue();
 
     /**
      * Splits running on a thread.
@@ -111,7 +108,7 @@ public class TaskExecutor
      */
     private final Map<PrioritizedSplitRunner, Future<?>> blockedSplits = new ConcurrentHashMap<>();
 
-    private final AtomicLongArray completedTasksPerLevel = new AtomicLongArray(5);
+    private final AtomicLongArray completedTasksPerLevel = new AtomicLongArray(MultilevelSplitQueue.LEVEL_COUNT);
 
     private final TimeStat queuedTime = new TimeStat(NANOSECONDS);
     private final TimeStat wallTime = new TimeStat(NANOSECONDS);
@@ -142,7 +139,6 @@ public class TaskExecutor
         this.ticker = requireNonNull(ticker, "ticker is null");
 
         this.minimumNumberOfDrivers = minDrivers;
-        this.pendingSplits = new PriorityBlockingQueue<>(Runtime.getRuntime().availableProcessors() * 10);
         this.tasks = new LinkedList<>();
     }
 
@@ -163,7 +159,7 @@ public class TaskExecutor
     }
 
     @Override
-    public synchronized String toString()
+    public String toString()
     {
         return toStringHelper(this)
                 .add("runnerThreads", runnerThreads)
@@ -302,10 +298,10 @@ public class TaskExecutor
         }
     }
 
-    private synchronized void startSplit(PrioritizedSplitRunner split)
+    private void startSplit(PrioritizedSplitRunner split)
     {
         allSplits.add(split);
-        pendingSplits.put(split);
+        pendingSplits.offer(split);
     }
 
     private synchronized PrioritizedSplitRunner pollNextSplitWorker()
@@ -449,7 +445,7 @@ public class TaskExecutor
         }
     }
 
-    private static class PrioritizedSplitRunner
+    static class PrioritizedSplitRunner
             implements Comparable<PrioritizedSplitRunner>
     {
         private final long createdNanos = System.nanoTime();
@@ -474,6 +470,10 @@ public class TaskExecutor
         private final AtomicLong cpuTime = new AtomicLong();
         private final AtomicLong processCalls = new AtomicLong();
 
+        // only accessed by the runner thread processing the split
+        private long lastQuantaNanos;
+        private volatile long readyNanos;
+
         private PrioritizedSplitRunner(TaskHandle taskHandle, SplitRunner split, Ticker ticker)
         {
             this.taskHandle = taskHandle;
@@ -537,6 +537,7 @@ public class TaskExecutor
 
                 // update priority level base on total thread usage of task
                 long durationNanos = elapsed.getWall().roundTo(NANOSECONDS);
+                lastQuantaNanos = durationNanos;
                 this.splitThreadUsageNanos.addAndGet(durationNanos);
                 long threadUsageNanos = taskHandle.addThreadUsageNanos(durationNanos);
                 this.threadUsageNanos.set(threadUsageNanos);
@@ -594,6 +595,26 @@ public class TaskExecutor
             return splitId;
         }
 
+        int getPriorityLevel()
+        {
+            return priorityLevel.get();
+        }
+
+        long getLastQuantaNanos()
+        {
+            return lastQuantaNanos;
+        }
+
+        long getReadyNanos()
+        {
+            return readyNanos;
+        }
+
+        void setReadyNanos(long readyNanos)
+        {
+            this.readyNanos = readyNanos;
+        }
+
         public String getInfo()
         {
             return String.format("Split %-15s-%d %s (start = %s, wall = %s ms, cpu = %s ms, calls = %s)",
@@ -652,7 +673,7 @@ public class TaskExecutor
                         split = pendingSplits.take();
                         if (split.updatePriorityLevel()) {
                             // priority level changed, return split to queue for re-prioritization
-                            pendingSplits.put(split);
+                            pendingSplits.offer(split);
                             continue;
                         }
                     }
@@ -664,10 +685,12 @@ public class TaskExecutor
                     try (SetThreadName splitName = new SetThreadName(split.getTaskHandle().getTaskId() + "-" + split.getSplitId())) {
                         runningSplits.add(split);
 
+                        int level = split.getPriorityLevel();
                         boolean finished;
                         ListenableFuture<?> blocked;
                         try {
                             blocked = split.process();
+                            pendingSplits.addLevelScheduledNanos(level, split.getLastQuantaNanos());
                             finished = split.isFinished();
                         }
                         finally {
@@ -680,7 +703,7 @@ public class TaskExecutor
                         }
                         else {
                             if (blocked.isDone()) {
-                                pendingSplits.put(split);
+                                pendingSplits.offer(split);
                             }
                             else {
                                 blockedSplits.put(split, blocked);
@@ -691,7 +714,7 @@ public class TaskExecutor
                                     {
                                         blockedSplits.remove(split);
                                         split.updatePriorityLevel();
-                                        pendingSplits.put(split);
+                                        pendingSplits.offer(split);
                                     }
                                 }, executor);
                             }
@@ -744,7 +767,7 @@ public class TaskExecutor
     }
 
     @Managed
-    public synchronized int getTotalSplits()
+    public int getTotalSplits()
     {
         return allSplits.size();
     }
@@ -841,6 +864,13 @@ public class TaskExecutor
         return wallTime;
     }
 
+    @Managed
+    @Nested
+    public MultilevelSplitQueue getPendingSplitQueue()
+    {
+        return pendingSplits;
+    }
+
     private synchronized int calculateRunningTasksForLevel(int level)
     {
         int count = 0;
@@ -24,6 +24,8 @@ import io.airlift.units.Duration;
 import io.airlift.units.MaxDuration;
 import io.airlift.units.MinDuration;
 
+import javax.validation.constraints.DecimalMax;
+import javax.validation.constraints.DecimalMin;
 import javax.validation.constraints.Min;
 import javax.validation.constraints.NotNull;
 
@@ -64,6 +66,9 @@ public class TaskManagerConfig
 
     private int taskNotificationThreads = 5;
 
+    private double memoryRevokingThreshold = 0.9;
+    private double memoryRevokingTarget = 0.5;
+
     @MinDuration("1ms")
     @MaxDuration("10s")
     @NotNull
@@ -352,4 +357,34 @@ public class TaskManagerConfig
         this.taskNotificationThreads = taskNotificationThreads;
         return this;
     }
+
+    @DecimalMin("0.0")
+    @DecimalMax("1.0")
+    public double getMemoryRevokingThreshold()
+    {
+        return memoryRevokingThreshold;
+    }
+
+    @Config("task.memory-revoking-threshold")
+    @ConfigDescription("Fraction of a memory pool that can be reserved before operators are asked to revoke their memory")
+    public TaskManagerConfig setMemoryRevokingThreshold(double memoryRevokingThreshold)
+    {
+        this.memoryRevokingThreshold = memoryRevokingThreshold;
+        return this;
+    }
+
+    @DecimalMin("0.0")
+    @DecimalMax("1.0")
+    public double getMemoryRevokingTarget()
+    {
+        return memoryRevokingTarget;
+    }
+
+    @Config("task.memory-revoking-target")
+    @ConfigDescription("Fraction of a memory pool that memory revoking tries to get the pool usage down to")
+    public TaskManagerConfig setMemoryRevokingTarget(double memoryRevokingTarget)
+    {
+        this.memoryRevokingTarget = memoryRevokingTarget;
+        return this;
+    }
 }
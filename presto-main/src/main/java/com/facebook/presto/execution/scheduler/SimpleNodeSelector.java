@@ -17,6 +17,7 @@ import com.facebook.presto.execution.NodeTaskMap;
 import com.facebook.presto.execution.RemoteTask;
 import com.facebook.presto.metadata.InternalNodeManager;
 import com.facebook.presto.metadata.Split;
+import com.facebook.presto.spi.HostAddress;
 import com.facebook.presto.spi.Node;
 import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.sql.planner.NodePartitionMap;
@@ -123,11 +124,23 @@ public class SimpleNodeSelector
             Node chosenNode = null;
             int min = Integer.MAX_VALUE;
 
-            for (Node node : candidateNodes) {
-                int totalSplitCount = assignmentStats.getTotalSplitCount(node);
-                if (totalSplitCount < min && totalSplitCount < maxSplitsPerNode) {
-                    chosenNode = node;
-                    min = totalSplitCount;
+            if (split.isRemotelyAccessible()) {
+                // soft affinity: use the workers preferred by the split while they have capacity
+                for (Node node : selectPreferredNodes(nodeMap, split.getAddresses(), includeCoordinator)) {
+                    int totalSplitCount = assignmentStats.getTotalSplitCount(node);
+                    if (totalSplitCount < min && totalSplitCount < maxSplitsPerNode) {
+                        chosenNode = node;
+                        min = totalSplitCount;
+                    }
+                }
+            }
+            if (chosenNode == null) {
+                for (Node node : candidateNodes) {
+                    int totalSplitCount = assignmentStats.getTotalSplitCount(node);
+                    if (totalSplitCount < min && totalSplitCount < maxSplitsPerNode) {
+                        chosenNode = node;
+                        min = totalSplitCount;
+                    }
                 }
             }
             if (chosenNode == null) {
@@ -148,6 +161,27 @@ public class SimpleNodeSelector
         return assignment;
     }
 
+    /**
+     * Returns the nodes that exactly match the host and port of the addresses. Addresses
+     * without a port only describe data locality and do not name a preferred node.
+     */
+    private static List<Node> selectPreferredNodes(NodeMap nodeMap, List<HostAddress> addresses, boolean includeCoordinator)
+    {
+        Set<String> coordinatorIds = nodeMap.getCoordinatorNodeIds();
+        ImmutableList.Builder<Node> nodes = ImmutableList.builder();
+        for (HostAddress address : addresses) {
+            if (!address.hasPort()) {
+                continue;
+            }
+            for (Node node : nodeMap.getNodesByHostAndPort().get(address)) {
+                if (includeCoordinator || !coordinatorIds.contains(node.getNodeIdentifier())) {
+                    nodes.add(node);
+                }
+            }
+        }
+        return nodes.build();
+    }
+
     @Override
     public Multimap<Node, Split> computeAssignments(Set<Split> splits, List<RemoteTask> existingTasks, NodePartitionMap partitioning)
     {
@@ -18,11 +18,13 @@ import com.facebook.presto.execution.LocationFactory;
 import com.facebook.presto.execution.QueryExecution;
 import com.facebook.presto.execution.QueryIdGenerator;
 import com.facebook.presto.execution.QueryManagerConfig;
+import com.facebook.presto.memory.LowMemoryKiller.QueryMemoryInfo;
 import com.facebook.presto.metadata.InternalNodeManager;
 import com.facebook.presto.server.ServerConfig;
 import com.facebook.presto.spi.Node;
 import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.QueryId;
+import com.facebook.presto.spi.eventlistener.LowMemoryKillInfo;
 import com.facebook.presto.spi.memory.ClusterMemoryPoolManager;
 import com.facebook.presto.spi.memory.MemoryPoolId;
 import com.facebook.presto.spi.memory.MemoryPoolInfo;
@@ -50,6 +52,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.atomic.AtomicLong;
@@ -62,6 +65,7 @@ import static com.facebook.presto.SystemSessionProperties.getQueryMaxMemory;
 import static com.facebook.presto.SystemSessionProperties.resourceOvercommit;
 import static com.facebook.presto.memory.LocalMemoryManager.GENERAL_POOL;
 import static com.facebook.presto.memory.LocalMemoryManager.RESERVED_POOL;
+import static com.facebook.presto.memory.TotalReservationOnBlockedNodesLowMemoryKiller.getMemoryReservationsOnBlockedNodes;
 import static com.facebook.presto.spi.NodeState.ACTIVE;
 import static com.facebook.presto.spi.NodeState.SHUTTING_DOWN;
 import static com.facebook.presto.spi.StandardErrorCode.CLUSTER_OUT_OF_MEMORY;
@@ -89,12 +93,15 @@ public class ClusterMemoryManager
     private final boolean enabled;
     private final boolean killOnOutOfMemory;
     private final Duration killOnOutOfMemoryDelay;
+    private final LowMemoryKiller lowMemoryKiller;
+    private final String lowMemoryKillerPolicy;
     private final String coordinatorId;
     private final AtomicLong memoryPoolAssignmentsVersion = new AtomicLong();
     private final AtomicLong clusterMemoryUsageBytes = new AtomicLong();
     private final AtomicLong clusterMemoryBytes = new AtomicLong();
     private final AtomicLong queriesKilledDueToOutOfMemory = new AtomicLong();
     private final Map<String, RemoteNodeMemory> nodes = new HashMap<>();
+    private final Map<QueryId, LowMemoryKillInfo> lowMemoryKillInfos = new ConcurrentHashMap<>();
 
     @GuardedBy("this")
     private final Map<MemoryPoolId, List<Consumer<MemoryPoolInfo>>> changeListeners = new HashMap<>();
@@ -119,7 +126,8 @@ public class ClusterMemoryManager
             QueryIdGenerator queryIdGenerator,
             ServerConfig serverConfig,
             MemoryManagerConfig config,
-            QueryManagerConfig queryManagerConfig)
+            QueryManagerConfig queryManagerConfig,
+            LowMemoryKiller lowMemoryKiller)
     {
         requireNonNull(config, "config is null");
         this.nodeManager = requireNonNull(nodeManager, "nodeManager is null");
@@ -134,6 +142,8 @@ public class ClusterMemoryManager
         this.enabled = serverConfig.isCoordinator();
         this.killOnOutOfMemoryDelay = config.getKillOnOutOfMemoryDelay();
         this.killOnOutOfMemory = config.isKillOnOutOfMemory();
+        this.lowMemoryKiller = requireNonNull(lowMemoryKiller, "lowMemoryKiller is null");
+        this.lowMemoryKillerPolicy = config.getLowMemoryKillerPolicy();
     }
 
     @Override
@@ -182,26 +192,27 @@ public class ClusterMemoryManager
             if (!lastKilledQueryIsGone) {
                 ClusterMemoryPool generalPool = pools.get(GENERAL_POOL);
                 if (generalPool != null) {
-                    lastKilledQueryIsGone = generalPool.getQueryMemoryReservations().containsKey(lastKilledQuery);
+                    lastKilledQueryIsGone = !generalPool.getQueryMemoryReservations().containsKey(lastKilledQuery);
                 }
             }
 
             if (shouldKillQuery && lastKilledQueryIsGone && !queryKilled) {
-                // Kill the biggest query in the general pool
-                QueryExecution biggestQuery = null;
-                long maxMemory = -1;
+                List<QueryMemoryInfo> runningQueries = ImmutableList.copyOf(queries).stream()
+                        .map(query -> new QueryMemoryInfo(query.getQueryId(), query.getMemoryPool().getId(), query.getTotalMemoryReservation(), query.getSession().getStartTime()))
+                        .collect(toImmutableList());
+                List<MemoryInfo> nodeMemoryInfos = getNodeMemoryInfos();
+
+                Optional<QueryId> chosenQueryId = lowMemoryKiller.chooseQueryToKill(runningQueries, nodeMemoryInfos);
                 for (QueryExecution query : queries) {
-                    long bytesUsed = query.getTotalMemoryReservation();
-                    if (bytesUsed > maxMemory && query.getMemoryPool().getId().equals(GENERAL_POOL)) {
-                        biggestQuery = query;
-                        maxMemory = bytesUsed;
+                    if (chosenQueryId.isPresent() && query.getQueryId().equals(chosenQueryId.get())) {
+                        // record the decision before failing the query, so it is available to the query completed event
+                        lowMemoryKillInfos.put(query.getQueryId(), createLowMemoryKillInfo(query, runningQueries.size(), nodeMemoryInfos));
+                        query.fail(new PrestoException(CLUSTER_OUT_OF_MEMORY, "The cluster is out of memory, and your query was killed. Please try again in a few minutes."));
+                        queriesKilledDueToOutOfMemory.incrementAndGet();
+                        lastKilledQuery = query.getQueryId();
+                        break;
                     }
                 }
-                if (biggestQuery != null) {
-                    biggestQuery.fail(new PrestoException(CLUSTER_OUT_OF_MEMORY, "The cluster is out of memory, and your query was killed. Please try again in a few minutes."));
-                    queriesKilledDueToOutOfMemory.incrementAndGet();
-                    lastKilledQuery = biggestQuery.getQueryId();
-                }
             }
         }
 
@@ -226,6 +237,30 @@ public class ClusterMemoryManager
         }
     }
 
+    /**
+     * Returns the inputs of the low memory killer decision, if the query was killed by the low memory killer.
+     */
+    public Optional<LowMemoryKillInfo> removeLowMemoryKillInfo(QueryId queryId)
+    {
+        return Optional.ofNullable(lowMemoryKillInfos.remove(queryId));
+    }
+
+    private LowMemoryKillInfo createLowMemoryKillInfo(QueryExecution query, int runningQueries, List<MemoryInfo> nodeMemoryInfos)
+    {
+        int blockedNodes = (int) nodeMemoryInfos.stream()
+                .map(info -> info.getPools().get(GENERAL_POOL))
+                .filter(poolInfo -> poolInfo != null && poolInfo.getFreeBytes() <= 0)
+                .count();
+        long memoryReservationOnBlockedNodes = getMemoryReservationsOnBlockedNodes(nodeMemoryInfos).getOrDefault(query.getQueryId(), 0L);
+        return new LowMemoryKillInfo(
+                lowMemoryKillerPolicy,
+                query.getTotalMemoryReservation(),
+                memoryReservationOnBlockedNodes,
+                blockedNodes,
+                nodeMemoryInfos.size(),
+                runningQueries);
+    }
+
     @VisibleForTesting
     synchronized Map<MemoryPoolId, ClusterMemoryPool> getPools()
     {
@@ -328,11 +363,7 @@ public class ClusterMemoryManager
     private synchronized void updatePools(Map<MemoryPoolId, Integer> queryCounts)
     {
         // Update view of cluster memory and pools
-        List<MemoryInfo> nodeMemoryInfos = nodes.values().stream()
-                .map(RemoteNodeMemory::getInfo)
-                .filter(Optional::isPresent)
-                .map(Optional::get)
-                .collect(toImmutableList());
+        List<MemoryInfo> nodeMemoryInfos = getNodeMemoryInfos();
 
         long totalClusterMemory = nodeMemoryInfos.stream()
                 .map(MemoryInfo::getTotalNodeMemory)
@@ -377,6 +408,15 @@ public class ClusterMemoryManager
         }
     }
 
+    private synchronized List<MemoryInfo> getNodeMemoryInfos()
+    {
+        return nodes.values().stream()
+                .map(RemoteNodeMemory::getInfo)
+                .filter(Optional::isPresent)
+                .map(Optional::get)
+                .collect(toImmutableList());
+    }
+
     @PreDestroy
     public synchronized void destroy()
     {
@@ -20,17 +20,34 @@ import io.airlift.units.DataSize;
 import io.airlift.units.Duration;
 import io.airlift.units.MinDuration;
 
+import javax.validation.constraints.AssertTrue;
 import javax.validation.constraints.NotNull;
 
+import java.util.stream.Stream;
+
 import static io.airlift.units.DataSize.Unit.GIGABYTE;
 import static java.util.concurrent.TimeUnit.MINUTES;
 
 @DefunctConfig("experimental.cluster-memory-manager-enabled")
 public class MemoryManagerConfig
 {
+    public static class LowMemoryKillerPolicy
+    {
+        public static final String TOTAL_RESERVATION = "total-reservation";
+        public static final String TOTAL_RESERVATION_ON_BLOCKED_NODES = "total-reservation-on-blocked-nodes";
+        public static final String NEWEST_QUERY_FIRST = "newest-query-first";
+
+        public static boolean isValid(String policy)
+        {
+            return Stream.of(TOTAL_RESERVATION, TOTAL_RESERVATION_ON_BLOCKED_NODES, NEWEST_QUERY_FIRST)
+                    .anyMatch(validPolicy -> validPolicy.equalsIgnoreCase(policy));
+        }
+    }
+
     private DataSize maxQueryMemory = new DataSize(20, GIGABYTE);
     private boolean killOnOutOfMemory;
     private Duration killOnOutOfMemoryDelay = new Duration(5, MINUTES);
+    private String lowMemoryKillerPolicy = LowMemoryKillerPolicy.TOTAL_RESERVATION;
 
     public boolean isKillOnOutOfMemory()
     {
@@ -60,6 +77,26 @@ public class MemoryManagerConfig
         return this;
     }
 
+    @NotNull
+    public String getLowMemoryKillerPolicy()
+    {
+        return lowMemoryKillerPolicy;
+    }
+
+    @Config("query.low-memory-killer.policy")
+    @ConfigDescription("Policy used to choose the query killed by the low memory killer")
+    public MemoryManagerConfig setLowMemoryKillerPolicy(String lowMemoryKillerPolicy)
+    {
+        this.lowMemoryKillerPolicy = lowMemoryKillerPolicy;
+        return this;
+    }
+
+    @AssertTrue(message = "query.low-memory-killer.policy must be one of total-reservation, total-reservation-on-blocked-nodes or newest-query-first")
+    public boolean isLowMemoryKillerPolicyValid()
+    {
+        return lowMemoryKillerPolicy == null || LowMemoryKillerPolicy.isValid(lowMemoryKillerPolicy);
+    }
+
     @NotNull
     public DataSize getMaxQueryMemory()
     {
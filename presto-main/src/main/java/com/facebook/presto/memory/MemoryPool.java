@@ -25,7 +25,9 @@ import javax.annotation.Nullable;
 import javax.annotation.concurrent.GuardedBy;
 
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import static com.facebook.presto.operator.Operator.NOT_BLOCKED;
 import static com.google.common.base.MoreObjects.toStringHelper;
@@ -41,6 +43,9 @@ public class MemoryPool
     @GuardedBy("this")
     private long freeBytes;
 
+    @GuardedBy("this")
+    private long reservedRevocableBytes;
+
     @Nullable
     @GuardedBy("this")
     private SettableFuture<?> future;
@@ -49,6 +54,11 @@ public class MemoryPool
     // TODO: It would be better if we just tracked QueryContexts, but their lifecycle is managed by a weak reference, so we can't do that
     private final Map<QueryId, Long> queryMemoryReservations = new HashMap<>();
 
+    @GuardedBy("this")
+    private final Map<QueryId, Long> queryMemoryRevocableReservations = new HashMap<>();
+
+    private final List<MemoryPoolListener> listeners = new CopyOnWriteArrayList<>();
+
     public MemoryPool(MemoryPoolId id, DataSize size)
     {
         this.id = requireNonNull(id, "name is null");
@@ -62,6 +72,11 @@ public class MemoryPool
         return id;
     }
 
+    public void addListener(MemoryPoolListener listener)
+    {
+        listeners.add(requireNonNull(listener, "listener is null"));
+    }
+
     public synchronized MemoryPoolInfo getInfo()
     {
         return new MemoryPoolInfo(maxBytes, freeBytes, queryMemoryReservations);
@@ -70,12 +85,43 @@ public class MemoryPool
     /**
      * Reserves the given number of bytes. Caller should wait on the returned future, before allocating more memory.
      */
-    public synchronized ListenableFuture<?> reserve(QueryId queryId, long bytes)
+    public ListenableFuture<?> reserve(QueryId queryId, long bytes)
     {
-        checkArgument(bytes >= 0, "bytes is negative");
-        if (bytes != 0) {
-            queryMemoryReservations.merge(queryId, bytes, Long::sum);
+        ListenableFuture<?> result;
+        synchronized (this) {
+            checkArgument(bytes >= 0, "bytes is negative");
+            if (bytes != 0) {
+                queryMemoryReservations.merge(queryId, bytes, Long::sum);
+            }
+            result = reserveBytes(bytes);
+        }
+        onMemoryReserved();
+        return result;
+    }
+
+    /**
+     * Reserves the given number of bytes of revocable memory. Revocable memory counts against the pool
+     * like any other reservation, but its holders release it (e.g. by spilling) when asked to.
+     * Caller should wait on the returned future, before allocating more memory.
+     */
+    public ListenableFuture<?> reserveRevocable(QueryId queryId, long bytes)
+    {
+        ListenableFuture<?> result;
+        synchronized (this) {
+            checkArgument(bytes >= 0, "bytes is negative");
+            if (bytes != 0) {
+                queryMemoryRevocableReservations.merge(queryId, bytes, Long::sum);
+            }
+            reservedRevocableBytes += bytes;
+            result = reserveBytes(bytes);
         }
+        onMemoryReserved();
+        return result;
+    }
+
+    @GuardedBy("this")
+    private ListenableFuture<?> reserveBytes(long bytes)
+    {
         freeBytes -= bytes;
         if (freeBytes <= 0) {
             if (future == null) {
@@ -87,6 +133,14 @@ public class MemoryPool
         return NOT_BLOCKED;
     }
 
+    private void onMemoryReserved()
+    {
+        // listeners are called outside of the lock, so they can inspect the pool and the queries using it
+        for (MemoryPoolListener listener : listeners) {
+            listener.onMemoryReserved(this);
+        }
+    }
+
     /**
      * Try to reserve the given number of bytes. Return value indicates whether the caller may use the requested memory.
      */
@@ -129,6 +183,33 @@ public class MemoryPool
         }
     }
 
+    public synchronized void freeRevocable(QueryId queryId, long bytes)
+    {
+        checkArgument(bytes >= 0, "bytes is negative");
+        checkArgument(freeBytes + bytes <= maxBytes, "tried to free more revocable memory than is reserved");
+        if (bytes == 0) {
+            // Freeing zero bytes is a no-op
+            return;
+        }
+
+        Long queryReservation = queryMemoryRevocableReservations.get(queryId);
+        requireNonNull(queryReservation, "queryReservation is null");
+        checkArgument(queryReservation - bytes >= 0, "tried to free more revocable memory than is reserved by query");
+        queryReservation -= bytes;
+        if (queryReservation == 0) {
+            queryMemoryRevocableReservations.remove(queryId);
+        }
+        else {
+            queryMemoryRevocableReservations.put(queryId, queryReservation);
+        }
+        reservedRevocableBytes -= bytes;
+        freeBytes += bytes;
+        if (freeBytes > 0 && future != null) {
+            future.set(null);
+            future = null;
+        }
+    }
+
     /**
      * Returns the number of free bytes. This value may be negative, which indicates that the pool is over-committed.
      */
@@ -144,6 +225,12 @@ public class MemoryPool
         return maxBytes;
     }
 
+    @Managed
+    public synchronized long getReservedRevocableBytes()
+    {
+        return reservedRevocableBytes;
+    }
+
     @Override
     public synchronized String toString()
     {
@@ -151,6 +238,7 @@ public class MemoryPool
                 .add("id", id)
                 .add("maxBytes", maxBytes)
                 .add("freeBytes", freeBytes)
+                .add("reservedRevocableBytes", reservedRevocableBytes)
                 .add("future", future)
                 .toString();
     }
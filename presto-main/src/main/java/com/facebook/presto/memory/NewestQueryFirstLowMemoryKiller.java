@@ -0,0 +1,44 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.memory;
+
+import com.facebook.presto.spi.QueryId;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.facebook.presto.memory.LocalMemoryManager.GENERAL_POOL;
+import static com.facebook.presto.memory.TotalReservationOnBlockedNodesLowMemoryKiller.getMemoryReservationsOnBlockedNodes;
+
+/**
+ * Kills the most recently created query that holds memory on a blocked node, so long running
+ * queries that have already done most of their work are preserved.
+ */
+public class NewestQueryFirstLowMemoryKiller
+        implements LowMemoryKiller
+{
+    @Override
+    public Optional<QueryId> chooseQueryToKill(List<QueryMemoryInfo> runningQueries, List<MemoryInfo> nodes)
+    {
+        Map<QueryId, Long> reservationsOnBlockedNodes = getMemoryReservationsOnBlockedNodes(nodes);
+
+        return runningQueries.stream()
+                .filter(query -> query.getMemoryPoolId().equals(GENERAL_POOL))
+                .filter(query -> reservationsOnBlockedNodes.getOrDefault(query.getQueryId(), 0L) > 0)
+                .max(Comparator.comparingLong(QueryMemoryInfo::getCreateTime))
+                .map(QueryMemoryInfo::getQueryId);
+    }
+}
@@ -17,6 +17,7 @@ import com.facebook.presto.Session;
 import com.facebook.presto.execution.TaskStateMachine;
 import com.facebook.presto.operator.TaskContext;
 import com.facebook.presto.spi.QueryId;
+import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.FutureCallback;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
@@ -55,6 +56,9 @@ public class QueryContext
     @GuardedBy("this")
     private long systemReserved;
 
+    @GuardedBy("this")
+    private long revocableReserved;
+
     public QueryContext(QueryId queryId, DataSize maxMemory, MemoryPool memoryPool, MemoryPool systemMemoryPool, Executor executor)
     {
         this.queryId = requireNonNull(queryId, "queryId is null");
@@ -84,6 +88,19 @@ public class QueryContext
         return future;
     }
 
+    /**
+     * Revocable memory is not counted against the query memory limit, since the operators holding it
+     * release it when the memory pool runs low.
+     */
+    public synchronized ListenableFuture<?> reserveRevocableMemory(long bytes)
+    {
+        checkArgument(bytes >= 0, "bytes is negative");
+
+        ListenableFuture<?> future = memoryPool.reserveRevocable(queryId, bytes);
+        revocableReserved += bytes;
+        return future;
+    }
+
     public synchronized ListenableFuture<?> reserveSystemMemory(long bytes)
     {
         checkArgument(bytes >= 0, "bytes is negative");
@@ -114,6 +131,14 @@ public class QueryContext
         memoryPool.free(queryId, bytes);
     }
 
+    public synchronized void freeRevocableMemory(long bytes)
+    {
+        checkArgument(bytes >= 0, "bytes is negative");
+        checkArgument(revocableReserved - bytes >= 0, "tried to free more revocable memory than is reserved");
+        revocableReserved -= bytes;
+        memoryPool.freeRevocable(queryId, bytes);
+    }
+
     public synchronized void freeSystemMemory(long bytes)
     {
         checkArgument(bytes >= 0, "bytes is negative");
@@ -131,13 +156,16 @@ public class QueryContext
         }
         MemoryPool originalPool = memoryPool;
         long originalReserved = reserved;
+        long originalRevocableReserved = revocableReserved;
         memoryPool = pool;
         ListenableFuture<?> future = pool.reserve(queryId, reserved);
+        pool.reserveRevocable(queryId, revocableReserved);
         Futures.addCallback(future, new FutureCallback<Object>() {
             @Override
             public void onSuccess(Object result)
             {
                 originalPool.free(queryId, originalReserved);
+                originalPool.freeRevocable(queryId, originalRevocableReserved);
                 // Unblock all the tasks, if they were waiting for memory, since we're in a new pool.
                 taskContexts.stream().forEach(TaskContext::moreMemoryAvailable);
             }
@@ -146,12 +174,28 @@ public class QueryContext
             public void onFailure(Throwable t)
             {
                 originalPool.free(queryId, originalReserved);
+                originalPool.freeRevocable(queryId, originalRevocableReserved);
                 // Unblock all the tasks, if they were waiting for memory, since we're in a new pool.
                 taskContexts.stream().forEach(TaskContext::moreMemoryAvailable);
             }
         });
     }
 
+    public QueryId getQueryId()
+    {
+        return queryId;
+    }
+
+    public synchronized MemoryPool getMemoryPool()
+    {
+        return memoryPool;
+    }
+
+    public List<TaskContext> getTaskContexts()
+    {
+        return ImmutableList.copyOf(taskContexts);
+    }
+
     public TaskContext addTaskContext(TaskStateMachine taskStateMachine, Session session, boolean verboseStats, boolean cpuTimerEnabled)
     {
         TaskContext taskContext = new TaskContext(this, taskStateMachine, executor, session, verboseStats, cpuTimerEnabled);
@@ -0,0 +1,62 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.memory;
+
+import com.facebook.presto.spi.QueryId;
+import com.facebook.presto.spi.memory.MemoryPoolInfo;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.facebook.presto.memory.LocalMemoryManager.GENERAL_POOL;
+
+/**
+ * Kills the query with the largest memory reservation on the nodes whose general pool is blocked,
+ * since only memory on those nodes is keeping queries from making progress.
+ */
+public class TotalReservationOnBlockedNodesLowMemoryKiller
+        implements LowMemoryKiller
+{
+    @Override
+    public Optional<QueryId> chooseQueryToKill(List<QueryMemoryInfo> runningQueries, List<MemoryInfo> nodes)
+    {
+        Map<QueryId, Long> reservationsOnBlockedNodes = getMemoryReservationsOnBlockedNodes(nodes);
+
+        QueryId biggestQuery = null;
+        long maxMemory = 0;
+        for (QueryMemoryInfo query : runningQueries) {
+            long bytesUsed = reservationsOnBlockedNodes.getOrDefault(query.getQueryId(), 0L);
+            if (bytesUsed > maxMemory && query.getMemoryPoolId().equals(GENERAL_POOL)) {
+                biggestQuery = query.getQueryId();
+                maxMemory = bytesUsed;
+            }
+        }
+        return Optional.ofNullable(biggestQuery);
+    }
+
+    public static Map<QueryId, Long> getMemoryReservationsOnBlockedNodes(List<MemoryInfo> nodes)
+    {
+        Map<QueryId, Long> reservations = new HashMap<>();
+        for (MemoryInfo node : nodes) {
+            MemoryPoolInfo generalPool = node.getPools().get(GENERAL_POOL);
+            if (generalPool == null || generalPool.getFreeBytes() > 0) {
+                continue;
+            }
+            generalPool.getQueryMemoryReservations().forEach((queryId, bytes) -> reservations.merge(queryId, bytes, Long::sum));
+        }
+        return reservations;
+    }
+}
@@ -189,6 +189,16 @@ public class BigintGroupByHash
         return putIfAbsent(position, block);
     }
 
+    @Override
+    public long getRawHash(int groupId)
+    {
+        checkArgument(groupId >= 0, "groupId is negative");
+        if (groupId == nullGroupId) {
+            return NULL_HASH_CODE;
+        }
+        return BigintOperators.hashCode(valuesByGroupId.get(groupId));
+    }
+
     private int putIfAbsent(int position, Block block)
     {
         if (block.isNull(position)) {
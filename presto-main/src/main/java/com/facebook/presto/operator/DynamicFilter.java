@@ -0,0 +1,66 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.spi.ColumnHandle;
+import com.facebook.presto.spi.predicate.TupleDomain;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+
+import java.util.function.Supplier;
+
+import static com.google.common.util.concurrent.Futures.immediateFuture;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Predicate a table scan receives from the build sides of the joins it is probing. The
+ * predicate is only known once the builds have finished, which is signalled by the
+ * complete future.
+ */
+public final class DynamicFilter
+{
+    private static final DynamicFilter ALL = new DynamicFilter(TupleDomain::all, immediateFuture(null));
+
+    private final Supplier<TupleDomain<ColumnHandle>> predicate;
+    private final ListenableFuture<?> complete;
+
+    public DynamicFilter(Supplier<TupleDomain<ColumnHandle>> predicate, ListenableFuture<?> complete)
+    {
+        this.predicate = requireNonNull(predicate, "predicate is null");
+        this.complete = requireNonNull(complete, "complete is null");
+    }
+
+    public static DynamicFilter all()
+    {
+        return ALL;
+    }
+
+    public TupleDomain<ColumnHandle> getPredicate()
+    {
+        return predicate.get();
+    }
+
+    public ListenableFuture<?> isComplete()
+    {
+        return complete;
+    }
+
+    public DynamicFilter intersect(DynamicFilter other)
+    {
+        requireNonNull(other, "other is null");
+        return new DynamicFilter(
+                () -> getPredicate().intersect(other.getPredicate()),
+                Futures.allAsList(complete, other.complete));
+    }
+}
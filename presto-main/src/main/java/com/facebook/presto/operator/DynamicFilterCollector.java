@@ -0,0 +1,148 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.spi.ColumnHandle;
+import com.facebook.presto.spi.predicate.Domain;
+import com.facebook.presto.spi.predicate.TupleDomain;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Collects the join key domains of all build partitions of a hash join. Once every partition
+ * has reported, the union of the domains can be used to filter the probe side table scan.
+ * Until then the predicate is {@link TupleDomain#all()}. The probe side scans wait for the
+ * collector to complete before opening their splits.
+ */
+@ThreadSafe
+public class DynamicFilterCollector
+{
+    private static final int MAX_DISTINCT_VALUES = 1_000;
+
+    private final List<Type> keyTypes;
+    private final SettableFuture<?> complete = SettableFuture.create();
+
+    @GuardedBy("this")
+    private int partitionCount = -1;
+
+    @GuardedBy("this")
+    private int reportedPartitions;
+
+    @GuardedBy("this")
+    private TupleDomain<Integer> collectedDomain = TupleDomain.none();
+
+    public DynamicFilterCollector(List<Type> keyTypes)
+    {
+        this.keyTypes = ImmutableList.copyOf(requireNonNull(keyTypes, "keyTypes is null"));
+    }
+
+    public List<Type> getKeyTypes()
+    {
+        return keyTypes;
+    }
+
+    /**
+     * Sets the number of build partitions. The build side is planned after the probe side,
+     * so this is not known when the collector is created.
+     */
+    public synchronized void setPartitionCount(int partitionCount)
+    {
+        checkArgument(partitionCount > 0, "partitionCount must be positive");
+        checkState(this.partitionCount == -1, "partitionCount is already set");
+        this.partitionCount = partitionCount;
+    }
+
+    public JoinKeyDomainBuilder createDomainBuilder(List<Integer> keyChannels)
+    {
+        return new JoinKeyDomainBuilder(keyTypes, keyChannels, MAX_DISTINCT_VALUES);
+    }
+
+    public void addPartitionDomain(TupleDomain<Integer> domain)
+    {
+        requireNonNull(domain, "domain is null");
+        synchronized (this) {
+            checkState(partitionCount != -1, "partitionCount is not set");
+            checkState(reportedPartitions < partitionCount, "All partitions have already been reported");
+
+            collectedDomain = TupleDomain.columnWiseUnion(collectedDomain, domain);
+            reportedPartitions++;
+            if (reportedPartitions < partitionCount) {
+                return;
+            }
+        }
+        // the waiting scans are notified outside of the lock
+        complete.set(null);
+    }
+
+    /**
+     * Returns the predicate over the join key indexes, which is all until every partition has been reported.
+     */
+    public synchronized TupleDomain<Integer> getPredicate()
+    {
+        if (!complete.isDone()) {
+            return TupleDomain.all();
+        }
+        return collectedDomain;
+    }
+
+    public ListenableFuture<?> isComplete()
+    {
+        return complete;
+    }
+
+    /**
+     * Returns the dynamic filter of a probe side table scan which reads the join keys from the columns.
+     */
+    public DynamicFilter createDynamicFilter(Map<Integer, ColumnHandle> keyColumns)
+    {
+        Map<Integer, ColumnHandle> columns = ImmutableMap.copyOf(requireNonNull(keyColumns, "keyColumns is null"));
+        return new DynamicFilter(() -> getPredicate(columns), complete);
+    }
+
+    /**
+     * Returns the predicate over the columns the join keys are read from. Keys that are
+     * not read from a column are not part of the predicate.
+     */
+    public <T> TupleDomain<T> getPredicate(Map<Integer, T> keyColumns)
+    {
+        TupleDomain<Integer> predicate = getPredicate();
+        if (predicate.isNone()) {
+            return TupleDomain.none();
+        }
+
+        Map<T, Domain> domains = new HashMap<>();
+        for (Map.Entry<Integer, Domain> entry : predicate.getDomains().get().entrySet()) {
+            T column = keyColumns.get(entry.getKey());
+            if (column != null) {
+                // a column can be joined with several keys
+                domains.merge(column, entry.getValue(), Domain::intersect);
+            }
+        }
+        return TupleDomain.withColumnDomains(domains);
+    }
+}
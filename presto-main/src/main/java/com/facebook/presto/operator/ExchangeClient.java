@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.operator;
 
+import com.facebook.presto.block.PageCompressionCodec;
 import com.facebook.presto.execution.SystemMemoryUsageListener;
 import com.facebook.presto.operator.HttpPageBufferClient.ClientCallback;
 import com.facebook.presto.spi.Page;
@@ -61,6 +62,7 @@ public class ExchangeClient
     private final DataSize maxResponseSize;
     private final int concurrentRequestMultiplier;
     private final Duration minErrorDuration;
+    private final PageCompressionCodec pageCompressionCodec;
     private final HttpClient httpClient;
     private final ScheduledExecutorService executor;
 
@@ -102,12 +104,27 @@ public class ExchangeClient
             HttpClient httpClient,
             ScheduledExecutorService executor,
             SystemMemoryUsageListener systemMemoryUsageListener)
+    {
+        this(blockEncodingSerde, maxBufferedBytes, maxResponseSize, concurrentRequestMultiplier, minErrorDuration, PageCompressionCodec.NONE, httpClient, executor, systemMemoryUsageListener);
+    }
+
+    public ExchangeClient(
+            BlockEncodingSerde blockEncodingSerde,
+            DataSize maxBufferedBytes,
+            DataSize maxResponseSize,
+            int concurrentRequestMultiplier,
+            Duration minErrorDuration,
+            PageCompressionCodec pageCompressionCodec,
+            HttpClient httpClient,
+            ScheduledExecutorService executor,
+            SystemMemoryUsageListener systemMemoryUsageListener)
     {
         this.blockEncodingSerde = blockEncodingSerde;
         this.maxBufferedBytes = maxBufferedBytes.toBytes();
         this.maxResponseSize = maxResponseSize;
         this.concurrentRequestMultiplier = concurrentRequestMultiplier;
         this.minErrorDuration = minErrorDuration;
+        this.pageCompressionCodec = requireNonNull(pageCompressionCodec, "pageCompressionCodec is null");
         this.httpClient = httpClient;
         this.executor = executor;
         this.systemMemoryUsageListener = systemMemoryUsageListener;
@@ -120,11 +137,16 @@ public class ExchangeClient
             bufferedPages--;
         }
 
+        long compressionBytesSaved = 0;
+        long decompressionNanos = 0;
         ImmutableList.Builder<PageBufferClientStatus> exchangeStatus = ImmutableList.builder();
         for (HttpPageBufferClient client : allClients.values()) {
-            exchangeStatus.add(client.getStatus());
+            PageBufferClientStatus clientStatus = client.getStatus();
+            compressionBytesSaved += clientStatus.getCompressionBytesSaved();
+            decompressionNanos += clientStatus.getDecompressionNanos();
+            exchangeStatus.add(clientStatus);
         }
-        return new ExchangeClientStatus(bufferBytes, averageBytesPerRequest, bufferedPages, noMoreLocations, exchangeStatus.build());
+        return new ExchangeClientStatus(bufferBytes, averageBytesPerRequest, bufferedPages, noMoreLocations, compressionBytesSaved, decompressionNanos, exchangeStatus.build());
     }
 
     public synchronized void addLocation(URI location)
@@ -268,6 +290,7 @@ public class ExchangeClient
                         location,
                         new ExchangeClientCallback(),
                         blockEncodingSerde,
+                        pageCompressionCodec,
                         executor);
                 allClients.put(location, client);
                 queuedClients.add(client);
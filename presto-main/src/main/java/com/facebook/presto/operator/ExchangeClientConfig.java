@@ -13,7 +13,9 @@
  */
 package com.facebook.presto.operator;
 
+import com.facebook.presto.block.PageCompressionCodec;
 import io.airlift.configuration.Config;
+import io.airlift.configuration.ConfigDescription;
 import io.airlift.http.client.HttpClientConfig;
 import io.airlift.units.DataSize;
 import io.airlift.units.DataSize.Unit;
@@ -33,6 +35,7 @@ public class ExchangeClientConfig
     private Duration minErrorDuration = new Duration(1, TimeUnit.MINUTES);
     private DataSize maxResponseSize = new HttpClientConfig().getMaxContentLength();
     private int clientThreads = 25;
+    private PageCompressionCodec compressionCodec = PageCompressionCodec.NONE;
 
     @NotNull
     public DataSize getMaxBufferSize()
@@ -100,4 +103,18 @@ public class ExchangeClientConfig
         this.clientThreads = clientThreads;
         return this;
     }
+
+    @NotNull
+    public PageCompressionCodec getCompressionCodec()
+    {
+        return compressionCodec;
+    }
+
+    @Config("exchange.compression-codec")
+    @ConfigDescription("Codec the exchange asks the upstream workers to compress pages with")
+    public ExchangeClientConfig setCompressionCodec(PageCompressionCodec compressionCodec)
+    {
+        this.compressionCodec = compressionCodec;
+        return this;
+    }
 }
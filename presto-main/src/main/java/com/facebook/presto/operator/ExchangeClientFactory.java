@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.operator;
 
+import com.facebook.presto.block.PageCompressionCodec;
 import com.facebook.presto.execution.SystemMemoryUsageListener;
 import com.facebook.presto.spi.block.BlockEncodingSerde;
 import io.airlift.http.client.HttpClient;
@@ -34,6 +35,7 @@ public class ExchangeClientFactory
     private final DataSize maxBufferedBytes;
     private final int concurrentRequestMultiplier;
     private final Duration minErrorDuration;
+    private final PageCompressionCodec pageCompressionCodec;
     private final HttpClient httpClient;
     private final DataSize maxResponseSize;
     private final ScheduledExecutorService executor;
@@ -49,6 +51,7 @@ public class ExchangeClientFactory
                 config.getMaxResponseSize(),
                 config.getConcurrentRequestMultiplier(),
                 config.getMinErrorDuration(),
+                config.getCompressionCodec(),
                 httpClient,
                 executor);
     }
@@ -61,11 +64,25 @@ public class ExchangeClientFactory
             Duration minErrorDuration,
             HttpClient httpClient,
             ScheduledExecutorService executor)
+    {
+        this(blockEncodingSerde, maxBufferedBytes, maxResponseSize, concurrentRequestMultiplier, minErrorDuration, PageCompressionCodec.NONE, httpClient, executor);
+    }
+
+    public ExchangeClientFactory(
+            BlockEncodingSerde blockEncodingSerde,
+            DataSize maxBufferedBytes,
+            DataSize maxResponseSize,
+            int concurrentRequestMultiplier,
+            Duration minErrorDuration,
+            PageCompressionCodec pageCompressionCodec,
+            HttpClient httpClient,
+            ScheduledExecutorService executor)
     {
         this.blockEncodingSerde = blockEncodingSerde;
         this.maxBufferedBytes = requireNonNull(maxBufferedBytes, "maxBufferedBytes is null");
         this.concurrentRequestMultiplier = concurrentRequestMultiplier;
         this.minErrorDuration = requireNonNull(minErrorDuration, "minErrorDuration is null");
+        this.pageCompressionCodec = requireNonNull(pageCompressionCodec, "pageCompressionCodec is null");
         this.httpClient = requireNonNull(httpClient, "httpClient is null");
 
         // Use only 0.75 of the maxResponseSize to leave room for additional bytes from the encoding
@@ -90,6 +107,7 @@ public class ExchangeClientFactory
                 maxResponseSize,
                 concurrentRequestMultiplier,
                 minErrorDuration,
+                pageCompressionCodec,
                 httpClient,
                 executor,
                 systemMemoryUsageListener);
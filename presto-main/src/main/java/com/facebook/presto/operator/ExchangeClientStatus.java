@@ -28,6 +28,8 @@ public class ExchangeClientStatus
     private final long averageBytesPerRequest;
     private final int bufferedPages;
     private final boolean noMoreLocations;
+    private final long compressionBytesSaved;
+    private final long decompressionNanos;
     private final List<PageBufferClientStatus> pageBufferClientStatuses;
 
     @JsonCreator
@@ -36,12 +38,16 @@ public class ExchangeClientStatus
             @JsonProperty("averageBytesPerRequest") long averageBytesPerRequest,
             @JsonProperty("bufferedPages") int bufferedPages,
             @JsonProperty("noMoreLocations") boolean noMoreLocations,
+            @JsonProperty("compressionBytesSaved") long compressionBytesSaved,
+            @JsonProperty("decompressionNanos") long decompressionNanos,
             @JsonProperty("pageBufferClientStatuses") List<PageBufferClientStatus> pageBufferClientStatuses)
     {
         this.bufferedBytes = bufferedBytes;
         this.averageBytesPerRequest = averageBytesPerRequest;
         this.bufferedPages = bufferedPages;
         this.noMoreLocations = noMoreLocations;
+        this.compressionBytesSaved = compressionBytesSaved;
+        this.decompressionNanos = decompressionNanos;
         this.pageBufferClientStatuses = ImmutableList.copyOf(requireNonNull(pageBufferClientStatuses, "pageBufferClientStatuses is null"));
     }
 
@@ -69,8 +75,22 @@ public class ExchangeClientStatus
         return noMoreLocations;
     }
 
+    /**
+     * Bytes not sent over the network because the pages were compressed.
+     */
     @JsonProperty
+    public long getCompressionBytesSaved()
+    {
+        return compressionBytesSaved;
+    }
 
+    @JsonProperty
+    public long getDecompressionNanos()
+    {
+        return decompressionNanos;
+    }
+
+    @JsonProperty
     public List<PageBufferClientStatus> getPageBufferClientStatuses()
     {
         return pageBufferClientStatuses;
@@ -84,6 +104,8 @@ public class ExchangeClientStatus
                 .add("averageBytesPerRequest", averageBytesPerRequest)
                 .add("bufferedPages", bufferedPages)
                 .add("noMoreLocations", noMoreLocations)
+                .add("compressionBytesSaved", compressionBytesSaved)
+                .add("decompressionNanos", decompressionNanos)
                 .add("pageBufferClientStatuses", pageBufferClientStatuses)
                 .toString();
     }
@@ -0,0 +1,470 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.array.IntBigArray;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PageBuilder;
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spi.type.VarcharType;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterables;
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static com.facebook.presto.operator.SyntheticAddress.decodePosition;
+import static com.facebook.presto.operator.SyntheticAddress.decodeSliceIndex;
+import static com.facebook.presto.operator.SyntheticAddress.encodeSyntheticAddress;
+import static com.facebook.presto.spi.StandardErrorCode.GENERIC_INSUFFICIENT_RESOURCES;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.DateType.DATE;
+import static com.facebook.presto.spi.type.IntegerType.INTEGER;
+import static com.facebook.presto.spi.type.SmallintType.SMALLINT;
+import static com.facebook.presto.spi.type.TimestampType.TIMESTAMP;
+import static com.facebook.presto.spi.type.TinyintType.TINYINT;
+import static com.facebook.presto.spi.type.VarbinaryType.VARBINARY;
+import static com.google.common.base.Preconditions.checkArgument;
+import static it.unimi.dsi.fastutil.HashCommon.arraySize;
+import static it.unimi.dsi.fastutil.HashCommon.murmurHash3;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Group by hash that keeps the open addressing hash table in a few large flat memory segments,
+ * which can be allocated off-heap. Every slot of the table holds the group id, the null flags,
+ * the raw hash and the keys of a group inline, so a lookup usually touches a single cache line
+ * and the number of objects doesn't grow with the number of groups. Variable width keys are
+ * copied to a separate arena, and the slot holds their address.
+ * <p>
+ * Only the key types accepted by {@link #isSupportedType} can be used.
+ */
+public class FlatGroupByHash
+        implements GroupByHash
+{
+    private static final float FILL_RATIO = 0.75f;
+
+    private static final int MAX_TABLE_SEGMENT_BYTES = 1 << 30;
+    private static final int MIN_ARENA_SEGMENT_BYTES = 16 * 1024;
+    private static final int MAX_ARENA_SEGMENT_BYTES = 4 * 1024 * 1024;
+
+    // slot layout: group id + 1 (so that zeroed memory is an empty slot), null flags, raw hash, keys
+    private static final int GROUP_ID_OFFSET = 0;
+    private static final int NULL_FLAGS_OFFSET = 4;
+    private static final int RAW_HASH_OFFSET = 8;
+    private static final int KEYS_OFFSET = 16;
+
+    private final List<Type> hashTypes;
+    private final List<Type> types;
+    private final int[] channels;
+    private final boolean[] variableWidth;
+    private final boolean outputRawHash;
+    private final HashGenerator hashGenerator;
+    private final boolean offHeap;
+    private final int slotSize;
+
+    private Table table;
+    private int maxFill;
+
+    // reverse index from the groupId back to its slot
+    private final IntBigArray slotByGroupId = new IntBigArray();
+
+    private final List<Slice> arenaSegments = new ArrayList<>();
+    private int arenaSegmentOffset;
+    private long arenaSizeInBytes;
+
+    private int[] lastContainsChannels;
+    private HashGenerator containsHashGenerator;
+
+    private int nextGroupId;
+
+    public FlatGroupByHash(
+            List<? extends Type> hashTypes,
+            int[] hashChannels,
+            Optional<Integer> inputHashChannel,
+            int expectedSize,
+            boolean offHeap)
+    {
+        this.hashTypes = ImmutableList.copyOf(requireNonNull(hashTypes, "hashTypes is null"));
+        requireNonNull(hashChannels, "hashChannels is null");
+        requireNonNull(inputHashChannel, "inputHashChannel is null");
+        checkArgument(hashTypes.size() == hashChannels.length, "hashTypes and hashChannels have different sizes");
+        checkArgument(hashChannels.length <= Integer.SIZE, "at most %s hash channels are supported", Integer.SIZE);
+        checkArgument(expectedSize > 0, "expectedSize must be greater than zero");
+
+        this.channels = hashChannels.clone();
+        this.variableWidth = new boolean[hashChannels.length];
+        for (int i = 0; i < hashChannels.length; i++) {
+            Type type = this.hashTypes.get(i);
+            checkArgument(isSupportedType(type), "Unsupported type: %s", type);
+            variableWidth[i] = !type.getJavaType().equals(long.class);
+        }
+
+        this.outputRawHash = inputHashChannel.isPresent();
+        this.types = outputRawHash ? ImmutableList.copyOf(Iterables.concat(this.hashTypes, ImmutableList.of(BIGINT))) : this.hashTypes;
+        this.hashGenerator = inputHashChannel.isPresent() ? new PrecomputedHashGenerator(inputHashChannel.get()) : new InterpretedHashGenerator(this.hashTypes, hashChannels);
+        this.offHeap = offHeap;
+        this.slotSize = KEYS_OFFSET + Long.BYTES * hashChannels.length;
+
+        int hashCapacity = arraySize(expectedSize, FILL_RATIO);
+        table = new Table(hashCapacity, slotSize, offHeap);
+        maxFill = calculateMaxFill(hashCapacity);
+        slotByGroupId.ensureCapacity(maxFill);
+    }
+
+    public static boolean isSupportedType(Type type)
+    {
+        // types with a fixed width representation that is equal iff the values are equal,
+        // and variable width types that are equal iff their bytes are equal
+        return type.equals(BIGINT) ||
+                type.equals(INTEGER) ||
+                type.equals(SMALLINT) ||
+                type.equals(TINYINT) ||
+                type.equals(DATE) ||
+                type.equals(TIMESTAMP) ||
+                type instanceof VarcharType ||
+                type.equals(VARBINARY);
+    }
+
+    @Override
+    public long getEstimatedSize()
+    {
+        return table.getSizeInBytes() +
+                slotByGroupId.sizeOf() +
+                arenaSizeInBytes;
+    }
+
+    @Override
+    public List<Type> getTypes()
+    {
+        return types;
+    }
+
+    @Override
+    public int getGroupCount()
+    {
+        return nextGroupId;
+    }
+
+    @Override
+    public void appendValuesTo(int groupId, PageBuilder pageBuilder, int outputChannelOffset)
+    {
+        checkArgument(groupId >= 0, "groupId is negative");
+        int slot = slotByGroupId.get(groupId);
+        Slice segment = table.getSegment(slot);
+        int offset = table.getOffset(slot);
+
+        int nullFlags = segment.getInt(offset + NULL_FLAGS_OFFSET);
+        for (int i = 0; i < channels.length; i++) {
+            Type type = hashTypes.get(i);
+            BlockBuilder blockBuilder = pageBuilder.getBlockBuilder(outputChannelOffset + i);
+            long key = segment.getLong(offset + KEYS_OFFSET + Long.BYTES * i);
+            if ((nullFlags & (1 << i)) != 0) {
+                blockBuilder.appendNull();
+            }
+            else if (variableWidth[i]) {
+                Slice arenaSegment = arenaSegments.get(decodeSliceIndex(key));
+                int position = decodePosition(key);
+                type.writeSlice(blockBuilder, arenaSegment, position + Integer.BYTES, arenaSegment.getInt(position));
+            }
+            else {
+                type.writeLong(blockBuilder, key);
+            }
+        }
+
+        if (outputRawHash) {
+            BIGINT.writeLong(pageBuilder.getBlockBuilder(outputChannelOffset + channels.length), segment.getLong(offset + RAW_HASH_OFFSET));
+        }
+    }
+
+    @Override
+    public void addPage(Page page)
+    {
+        int positionCount = page.getPositionCount();
+        for (int position = 0; position < positionCount; position++) {
+            putIfAbsent(position, page);
+        }
+    }
+
+    @Override
+    public GroupByIdBlock getGroupIds(Page page)
+    {
+        int positionCount = page.getPositionCount();
+
+        // we know the exact size required for the block
+        BlockBuilder blockBuilder = BIGINT.createFixedSizeBlockBuilder(positionCount);
+        for (int position = 0; position < positionCount; position++) {
+            BIGINT.writeLong(blockBuilder, putIfAbsent(position, page));
+        }
+        return new GroupByIdBlock(nextGroupId, blockBuilder.build());
+    }
+
+    @Override
+    public boolean contains(int position, Page page, int[] hashChannels)
+    {
+        if (hashChannels != lastContainsChannels) {
+            containsHashGenerator = new InterpretedHashGenerator(hashTypes, hashChannels);
+            lastContainsChannels = hashChannels;
+        }
+        return findGroupId(position, page, hashChannels, containsHashGenerator.hashPosition(position, page)) >= 0;
+    }
+
+    @Override
+    public int putIfAbsent(int position, Page page)
+    {
+        long rawHash = hashGenerator.hashPosition(position, page);
+        int slot = findSlot(position, page, channels, rawHash);
+        int groupId = getGroupId(slot);
+        if (groupId >= 0) {
+            return groupId;
+        }
+        return addNewGroup(slot, position, page, rawHash);
+    }
+
+    @Override
+    public long getRawHash(int groupId)
+    {
+        checkArgument(groupId >= 0, "groupId is negative");
+        int slot = slotByGroupId.get(groupId);
+        return table.getSegment(slot).getLong(table.getOffset(slot) + RAW_HASH_OFFSET);
+    }
+
+    private int findGroupId(int position, Page page, int[] hashChannels, long rawHash)
+    {
+        return getGroupId(findSlot(position, page, hashChannels, rawHash));
+    }
+
+    private int getGroupId(int slot)
+    {
+        return table.getSegment(slot).getInt(table.getOffset(slot) + GROUP_ID_OFFSET) - 1;
+    }
+
+    /**
+     * Returns the slot of the group of the row, or the empty slot where the group should be added.
+     */
+    private int findSlot(int position, Page page, int[] hashChannels, long rawHash)
+    {
+        int mask = table.getMask();
+        int slot = getHashPosition(rawHash, mask);
+        while (true) {
+            Slice segment = table.getSegment(slot);
+            int offset = table.getOffset(slot);
+            if (segment.getInt(offset + GROUP_ID_OFFSET) == 0) {
+                return slot;
+            }
+            if (segment.getLong(offset + RAW_HASH_OFFSET) == rawHash && keysEqual(segment, offset, position, page, hashChannels)) {
+                return slot;
+            }
+            // increment position and mask to handle wrap around
+            slot = (slot + 1) & mask;
+        }
+    }
+
+    private boolean keysEqual(Slice segment, int offset, int position, Page page, int[] hashChannels)
+    {
+        int nullFlags = segment.getInt(offset + NULL_FLAGS_OFFSET);
+        for (int i = 0; i < hashChannels.length; i++) {
+            Block block = page.getBlock(hashChannels[i]);
+            boolean storedNull = (nullFlags & (1 << i)) != 0;
+            if (block.isNull(position)) {
+                if (!storedNull) {
+                    return false;
+                }
+                continue;
+            }
+            if (storedNull) {
+                return false;
+            }
+
+            long key = segment.getLong(offset + KEYS_OFFSET + Long.BYTES * i);
+            if (variableWidth[i]) {
+                Slice arenaSegment = arenaSegments.get(decodeSliceIndex(key));
+                int arenaPosition = decodePosition(key);
+                int length = arenaSegment.getInt(arenaPosition);
+                if (block.getLength(position) != length || !block.bytesEqual(position, 0, arenaSegment, arenaPosition + Integer.BYTES, length)) {
+                    return false;
+                }
+            }
+            else if (hashTypes.get(i).getLong(block, position) != key) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int addNewGroup(int slot, int position, Page page, long rawHash)
+    {
+        int groupId = nextGroupId++;
+
+        Slice segment = table.getSegment(slot);
+        int offset = table.getOffset(slot);
+
+        int nullFlags = 0;
+        for (int i = 0; i < channels.length; i++) {
+            Block block = page.getBlock(channels[i]);
+            long key = 0;
+            if (block.isNull(position)) {
+                nullFlags |= 1 << i;
+            }
+            else if (variableWidth[i]) {
+                key = appendToArena(block, position);
+            }
+            else {
+                key = hashTypes.get(i).getLong(block, position);
+            }
+            segment.setLong(offset + KEYS_OFFSET + Long.BYTES * i, key);
+        }
+        segment.setInt(offset + NULL_FLAGS_OFFSET, nullFlags);
+        segment.setLong(offset + RAW_HASH_OFFSET, rawHash);
+        segment.setInt(offset + GROUP_ID_OFFSET, groupId + 1);
+        slotByGroupId.set(groupId, slot);
+
+        // increase capacity, if necessary
+        if (nextGroupId >= maxFill) {
+            rehash();
+        }
+        return groupId;
+    }
+
+    private long appendToArena(Block block, int position)
+    {
+        int length = block.getLength(position);
+        int requiredBytes = Integer.BYTES + length;
+
+        Slice arenaSegment = arenaSegments.isEmpty() ? null : arenaSegments.get(arenaSegments.size() - 1);
+        if (arenaSegment == null || arenaSegmentOffset + requiredBytes > arenaSegment.length()) {
+            // grow the segments geometrically, so small aggregations don't reserve a lot of memory
+            int segmentBytes = arenaSegment == null ? MIN_ARENA_SEGMENT_BYTES : Math.min(arenaSegment.length() * 2, MAX_ARENA_SEGMENT_BYTES);
+            arenaSegment = allocate(Math.max(segmentBytes, requiredBytes), offHeap);
+            arenaSegments.add(arenaSegment);
+            arenaSegmentOffset = 0;
+            arenaSizeInBytes += arenaSegment.length();
+        }
+
+        arenaSegment.setInt(arenaSegmentOffset, length);
+        arenaSegment.setBytes(arenaSegmentOffset + Integer.BYTES, block.getSlice(position, 0, length));
+        long address = encodeSyntheticAddress(arenaSegments.size() - 1, arenaSegmentOffset);
+        arenaSegmentOffset += requiredBytes;
+        return address;
+    }
+
+    private void rehash()
+    {
+        long newCapacityLong = table.getCapacity() * 2L;
+        if (newCapacityLong > Integer.MAX_VALUE) {
+            throw new PrestoException(GENERIC_INSUFFICIENT_RESOURCES, "Size of hash table cannot exceed 1 billion entries");
+        }
+        int newCapacity = (int) newCapacityLong;
+
+        Table newTable = new Table(newCapacity, slotSize, offHeap);
+        int newMask = newTable.getMask();
+        for (int groupId = 0; groupId < nextGroupId; groupId++) {
+            int slot = slotByGroupId.get(groupId);
+            Slice segment = table.getSegment(slot);
+            int offset = table.getOffset(slot);
+
+            // find an empty slot for the group
+            int newSlot = getHashPosition(segment.getLong(offset + RAW_HASH_OFFSET), newMask);
+            while (newTable.getSegment(newSlot).getInt(newTable.getOffset(newSlot) + GROUP_ID_OFFSET) != 0) {
+                newSlot = (newSlot + 1) & newMask;
+            }
+
+            newTable.getSegment(newSlot).setBytes(newTable.getOffset(newSlot), segment, offset, slotSize);
+            slotByGroupId.set(groupId, newSlot);
+        }
+
+        table = newTable;
+        maxFill = calculateMaxFill(newCapacity);
+        slotByGroupId.ensureCapacity(maxFill);
+    }
+
+    private static Slice allocate(int bytes, boolean offHeap)
+    {
+        // both allocations return zeroed memory
+        return offHeap ? Slices.allocateDirect(bytes) : Slices.allocate(bytes);
+    }
+
+    private static int getHashPosition(long rawHash, int mask)
+    {
+        return (int) (murmurHash3(rawHash) & mask);
+    }
+
+    private static int calculateMaxFill(int hashSize)
+    {
+        checkArgument(hashSize > 0, "hashSize must greater than 0");
+        int maxFill = (int) Math.ceil(hashSize * FILL_RATIO);
+        if (maxFill == hashSize) {
+            maxFill--;
+        }
+        checkArgument(hashSize > maxFill, "hashSize must be larger than maxFill");
+        return maxFill;
+    }
+
+    /**
+     * Slots of the hash table, split in power of 2 sized segments, as a single slice can't exceed 2GB.
+     */
+    private static final class Table
+    {
+        private final int capacity;
+        private final int slotSize;
+        private final int segmentShift;
+        private final int segmentMask;
+        private final Slice[] segments;
+
+        public Table(int capacity, int slotSize, boolean offHeap)
+        {
+            checkArgument(Integer.bitCount(capacity) == 1, "capacity must be a power of 2");
+            this.capacity = capacity;
+            this.slotSize = slotSize;
+
+            int slotsPerSegment = Math.min(capacity, Integer.highestOneBit(MAX_TABLE_SEGMENT_BYTES / slotSize));
+            this.segmentShift = Integer.numberOfTrailingZeros(slotsPerSegment);
+            this.segmentMask = slotsPerSegment - 1;
+            this.segments = new Slice[capacity / slotsPerSegment];
+            for (int i = 0; i < segments.length; i++) {
+                segments[i] = allocate(slotsPerSegment * slotSize, offHeap);
+            }
+        }
+
+        public int getCapacity()
+        {
+            return capacity;
+        }
+
+        public int getMask()
+        {
+            return capacity - 1;
+        }
+
+        public Slice getSegment(int slot)
+        {
+            return segments[slot >>> segmentShift];
+        }
+
+        public int getOffset(int slot)
+        {
+            return (slot & segmentMask) * slotSize;
+        }
+
+        public long getSizeInBytes()
+        {
+            return (long) capacity * slotSize;
+        }
+    }
+}
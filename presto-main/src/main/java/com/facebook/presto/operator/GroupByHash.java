@@ -22,6 +22,8 @@ import java.util.List;
 import java.util.Optional;
 
 import static com.facebook.presto.SystemSessionProperties.isDictionaryAggregationEnabled;
+import static com.facebook.presto.SystemSessionProperties.isFlatGroupByHashEnabled;
+import static com.facebook.presto.SystemSessionProperties.isFlatGroupByHashOffHeap;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
 
 public interface GroupByHash
@@ -33,7 +35,14 @@ public interface GroupByHash
             Optional<Integer> inputHashChannel,
             int expectedSize)
     {
-        return createGroupByHash(hashTypes, hashChannels, inputHashChannel, expectedSize, isDictionaryAggregationEnabled(session));
+        return createGroupByHash(
+                hashTypes,
+                hashChannels,
+                inputHashChannel,
+                expectedSize,
+                isDictionaryAggregationEnabled(session),
+                isFlatGroupByHashEnabled(session),
+                isFlatGroupByHashOffHeap(session));
     }
 
     static GroupByHash createGroupByHash(
@@ -43,6 +52,21 @@ public interface GroupByHash
             int expectedSize,
             boolean processDictionary)
     {
+        return createGroupByHash(hashTypes, hashChannels, inputHashChannel, expectedSize, processDictionary, false, false);
+    }
+
+    static GroupByHash createGroupByHash(
+            List<? extends Type> hashTypes,
+            int[] hashChannels,
+            Optional<Integer> inputHashChannel,
+            int expectedSize,
+            boolean processDictionary,
+            boolean flatGroupByHash,
+            boolean offHeap)
+    {
+        if (flatGroupByHash && hashChannels.length <= Integer.SIZE && hashTypes.stream().allMatch(FlatGroupByHash::isSupportedType)) {
+            return new FlatGroupByHash(hashTypes, hashChannels, inputHashChannel, expectedSize, offHeap);
+        }
         if (hashTypes.size() == 1 && hashTypes.get(0).equals(BIGINT) && hashChannels.length == 1) {
             return new BigintGroupByHash(hashChannels[0], inputHashChannel.isPresent(), expectedSize);
         }
@@ -64,4 +88,6 @@ public interface GroupByHash
     boolean contains(int position, Page page, int[] hashChannels);
 
     int putIfAbsent(int position, Page page);
+
+    long getRawHash(int groupId);
 }
@@ -15,15 +15,24 @@ package com.facebook.presto.operator;
 
 import com.facebook.presto.operator.aggregation.Accumulator;
 import com.facebook.presto.operator.aggregation.AccumulatorFactory;
+import com.facebook.presto.operator.aggregation.GroupedAccumulator;
 import com.facebook.presto.operator.aggregation.builder.HashAggregationBuilder;
 import com.facebook.presto.operator.aggregation.builder.InMemoryHashAggregationBuilder;
+import com.facebook.presto.operator.aggregation.builder.SpillableHashAggregationBuilder;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.PageBuilder;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.BlockBuilderStatus;
 import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.SpillerFactory;
 import com.facebook.presto.sql.planner.plan.AggregationNode.Step;
 import com.facebook.presto.sql.planner.plan.PlanNodeId;
 import com.facebook.presto.type.TypeUtils;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
 import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListenableFuture;
 import io.airlift.units.DataSize;
 
 import java.util.Iterator;
@@ -32,7 +41,11 @@ import java.util.Optional;
 import java.util.stream.Collectors;
 
 import static com.facebook.presto.operator.aggregation.builder.InMemoryHashAggregationBuilder.toTypes;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
 import static java.util.Objects.requireNonNull;
 
 public class HashAggregationOperator
@@ -54,6 +67,11 @@ public class HashAggregationOperator
         private final int expectedGroups;
         private final List<Type> types;
         private final DataSize maxPartialMemory;
+        private final boolean spillEnabled;
+        private final DataSize memoryLimitBeforeSpill;
+        private final SpillerFactory spillerFactory;
+        private final boolean adaptivePartialAggregationEnabled;
+        private final double uniqueRowsRatioThreshold;
 
         private boolean closed;
 
@@ -69,6 +87,76 @@ public class HashAggregationOperator
                 Optional<Integer> groupIdChannel,
                 int expectedGroups,
                 DataSize maxPartialMemory)
+        {
+            this(operatorId,
+                    planNodeId,
+                    groupByTypes,
+                    groupByChannels,
+                    globalAggregationGroupIds,
+                    step,
+                    accumulatorFactories,
+                    hashChannel,
+                    groupIdChannel,
+                    expectedGroups,
+                    maxPartialMemory,
+                    false,
+                    new DataSize(0, MEGABYTE),
+                    types -> {
+                        throw new UnsupportedOperationException("Spilling is not enabled");
+                    });
+        }
+
+        public HashAggregationOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                List<? extends Type> groupByTypes,
+                List<Integer> groupByChannels,
+                List<Integer> globalAggregationGroupIds,
+                Step step,
+                List<AccumulatorFactory> accumulatorFactories,
+                Optional<Integer> hashChannel,
+                Optional<Integer> groupIdChannel,
+                int expectedGroups,
+                DataSize maxPartialMemory,
+                boolean spillEnabled,
+                DataSize memoryLimitBeforeSpill,
+                SpillerFactory spillerFactory)
+        {
+            this(operatorId,
+                    planNodeId,
+                    groupByTypes,
+                    groupByChannels,
+                    globalAggregationGroupIds,
+                    step,
+                    accumulatorFactories,
+                    hashChannel,
+                    groupIdChannel,
+                    expectedGroups,
+                    maxPartialMemory,
+                    spillEnabled,
+                    memoryLimitBeforeSpill,
+                    spillerFactory,
+                    false,
+                    1.0);
+        }
+
+        public HashAggregationOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                List<? extends Type> groupByTypes,
+                List<Integer> groupByChannels,
+                List<Integer> globalAggregationGroupIds,
+                Step step,
+                List<AccumulatorFactory> accumulatorFactories,
+                Optional<Integer> hashChannel,
+                Optional<Integer> groupIdChannel,
+                int expectedGroups,
+                DataSize maxPartialMemory,
+                boolean spillEnabled,
+                DataSize memoryLimitBeforeSpill,
+                SpillerFactory spillerFactory,
+                boolean adaptivePartialAggregationEnabled,
+                double uniqueRowsRatioThreshold)
         {
             this.operatorId = operatorId;
             this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
@@ -81,6 +169,11 @@ public class HashAggregationOperator
             this.accumulatorFactories = ImmutableList.copyOf(accumulatorFactories);
             this.expectedGroups = expectedGroups;
             this.maxPartialMemory = requireNonNull(maxPartialMemory, "maxPartialMemory is null");
+            this.spillEnabled = spillEnabled;
+            this.memoryLimitBeforeSpill = requireNonNull(memoryLimitBeforeSpill, "memoryLimitBeforeSpill is null");
+            this.spillerFactory = requireNonNull(spillerFactory, "spillerFactory is null");
+            this.adaptivePartialAggregationEnabled = adaptivePartialAggregationEnabled;
+            this.uniqueRowsRatioThreshold = uniqueRowsRatioThreshold;
 
             this.types = toTypes(groupByTypes, step, accumulatorFactories, hashChannel);
         }
@@ -107,7 +200,12 @@ public class HashAggregationOperator
                     hashChannel,
                     groupIdChannel,
                     expectedGroups,
-                    maxPartialMemory);
+                    maxPartialMemory,
+                    spillEnabled,
+                    memoryLimitBeforeSpill,
+                    spillerFactory,
+                    adaptivePartialAggregationEnabled,
+                    uniqueRowsRatioThreshold);
             return hashAggregationOperator;
         }
 
@@ -131,10 +229,18 @@ public class HashAggregationOperator
                     hashChannel,
                     groupIdChannel,
                     expectedGroups,
-                    maxPartialMemory);
+                    maxPartialMemory,
+                    spillEnabled,
+                    memoryLimitBeforeSpill,
+                    spillerFactory,
+                    adaptivePartialAggregationEnabled,
+                    uniqueRowsRatioThreshold);
         }
     }
 
+    // partial aggregation only decides to pass rows through after seeing this many input rows
+    private static final long ADAPTIVE_PARTIAL_AGGREGATION_MIN_ROWS = 100_000;
+
     private final OperatorContext operatorContext;
     private final List<Type> groupByTypes;
     private final List<Integer> groupByChannels;
@@ -145,11 +251,24 @@ public class HashAggregationOperator
     private final Optional<Integer> groupIdChannel;
     private final int expectedGroups;
     private final DataSize maxPartialMemory;
+    private final boolean spillEnabled;
+    private final DataSize memoryLimitBeforeSpill;
+    private final SpillerFactory spillerFactory;
+    private final boolean adaptivePartialAggregationEnabled;
+    private final double uniqueRowsRatioThreshold;
 
     private final List<Type> types;
 
     private HashAggregationBuilder aggregationBuilder;
     private Iterator<Page> outputIterator;
+
+    // rows aggregated, and rows flushed by the aggregation builders, used to decide whether partial aggregation is worthwhile
+    private long aggregatedInputRows;
+    private long aggregatedOutputRows;
+    private boolean passThrough;
+    private long passThroughRows;
+    private Page passThroughOutput;
+
     private boolean inputProcessed;
     private boolean finishing;
     private boolean finished;
@@ -164,7 +283,44 @@ public class HashAggregationOperator
             Optional<Integer> hashChannel,
             Optional<Integer> groupIdChannel,
             int expectedGroups,
-            DataSize maxPartialMemory)
+            DataSize maxPartialMemory,
+            boolean spillEnabled,
+            DataSize memoryLimitBeforeSpill,
+            SpillerFactory spillerFactory)
+    {
+        this(operatorContext,
+                groupByTypes,
+                groupByChannels,
+                globalAggregationGroupIds,
+                step,
+                accumulatorFactories,
+                hashChannel,
+                groupIdChannel,
+                expectedGroups,
+                maxPartialMemory,
+                spillEnabled,
+                memoryLimitBeforeSpill,
+                spillerFactory,
+                false,
+                1.0);
+    }
+
+    public HashAggregationOperator(
+            OperatorContext operatorContext,
+            List<Type> groupByTypes,
+            List<Integer> groupByChannels,
+            List<Integer> globalAggregationGroupIds,
+            Step step,
+            List<AccumulatorFactory> accumulatorFactories,
+            Optional<Integer> hashChannel,
+            Optional<Integer> groupIdChannel,
+            int expectedGroups,
+            DataSize maxPartialMemory,
+            boolean spillEnabled,
+            DataSize memoryLimitBeforeSpill,
+            SpillerFactory spillerFactory,
+            boolean adaptivePartialAggregationEnabled,
+            double uniqueRowsRatioThreshold)
     {
         this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
         requireNonNull(step, "step is null");
@@ -180,7 +336,23 @@ public class HashAggregationOperator
         this.step = step;
         this.expectedGroups = expectedGroups;
         this.maxPartialMemory = requireNonNull(maxPartialMemory, "maxPartialMemory is null");
+        this.spillEnabled = spillEnabled;
+        this.memoryLimitBeforeSpill = requireNonNull(memoryLimitBeforeSpill, "memoryLimitBeforeSpill is null");
+        this.spillerFactory = requireNonNull(spillerFactory, "spillerFactory is null");
+        checkArgument(uniqueRowsRatioThreshold >= 0, "uniqueRowsRatioThreshold is negative");
+        // only a partial aggregation of raw input can emit every input row as its own intermediate group
+        this.adaptivePartialAggregationEnabled = adaptivePartialAggregationEnabled && step == Step.PARTIAL;
+        this.uniqueRowsRatioThreshold = uniqueRowsRatioThreshold;
         this.types = toTypes(groupByTypes, step, accumulatorFactories, hashChannel);
+
+        if (this.adaptivePartialAggregationEnabled) {
+            operatorContext.setInfoSupplier(this::getInfo);
+        }
+    }
+
+    public PartialAggregationInfo getInfo()
+    {
+        return new PartialAggregationInfo(passThrough ? 1 : 0, aggregatedInputRows, aggregatedOutputRows, passThroughRows);
     }
 
     @Override
@@ -207,10 +379,19 @@ public class HashAggregationOperator
         return finished;
     }
 
+    @Override
+    public ListenableFuture<?> isBlocked()
+    {
+        if (aggregationBuilder == null) {
+            return NOT_BLOCKED;
+        }
+        return aggregationBuilder.isBlocked();
+    }
+
     @Override
     public boolean needsInput()
     {
-        return !finishing && outputIterator == null && (aggregationBuilder == null || !aggregationBuilder.isFull());
+        return !finishing && outputIterator == null && passThroughOutput == null && (aggregationBuilder == null || !aggregationBuilder.isFull());
     }
 
     @Override
@@ -220,16 +401,40 @@ public class HashAggregationOperator
         requireNonNull(page, "page is null");
         inputProcessed = true;
 
+        if (passThrough) {
+            checkState(passThroughOutput == null, "Pass through output is not consumed");
+            passThroughRows += page.getPositionCount();
+            passThroughOutput = createPassThroughPage(page);
+            return;
+        }
+
+        aggregatedInputRows += page.getPositionCount();
         if (aggregationBuilder == null) {
-            aggregationBuilder = new InMemoryHashAggregationBuilder(
-                    accumulatorFactories,
-                    step,
-                    expectedGroups,
-                    groupByTypes,
-                    groupByChannels,
-                    hashChannel,
-                    operatorContext,
-                    maxPartialMemory);
+            // partial aggregations flush when they are full, so only final aggregations need to spill
+            if (step.isOutputPartial() || !spillEnabled) {
+                aggregationBuilder = new InMemoryHashAggregationBuilder(
+                        accumulatorFactories,
+                        step,
+                        expectedGroups,
+                        groupByTypes,
+                        groupByChannels,
+                        hashChannel,
+                        operatorContext,
+                        maxPartialMemory);
+            }
+            else {
+                aggregationBuilder = new SpillableHashAggregationBuilder(
+                        accumulatorFactories,
+                        step,
+                        expectedGroups,
+                        groupByTypes,
+                        groupByChannels,
+                        hashChannel,
+                        operatorContext,
+                        maxPartialMemory,
+                        memoryLimitBeforeSpill,
+                        spillerFactory);
+            }
 
             // assume initial aggregationBuilder is not full
         }
@@ -246,6 +451,12 @@ public class HashAggregationOperator
             return null;
         }
 
+        if (passThroughOutput != null) {
+            Page output = passThroughOutput;
+            passThroughOutput = null;
+            return output;
+        }
+
         if (outputIterator == null) {
             // current output iterator is done
             outputIterator = null;
@@ -268,6 +479,11 @@ public class HashAggregationOperator
                 return null;
             }
 
+            // wait for any spill in progress to finish
+            if (!aggregationBuilder.isBlocked().isDone()) {
+                return null;
+            }
+
             outputIterator = aggregationBuilder.buildResult();
 
             if (!outputIterator.hasNext()) {
@@ -278,12 +494,58 @@ public class HashAggregationOperator
         }
 
         Page output = outputIterator.next();
+        aggregatedOutputRows += output.getPositionCount();
         if (!outputIterator.hasNext()) {
             closeAggregationBuilder();
+            if (!finishing) {
+                updatePassThrough();
+            }
         }
         return output;
     }
 
+    private void updatePassThrough()
+    {
+        // the hash table was flushed because it was full, if it barely reduced the number
+        // of rows, building it isn't worth the CPU and memory for the rest of the input
+        if (adaptivePartialAggregationEnabled &&
+                aggregatedInputRows >= ADAPTIVE_PARTIAL_AGGREGATION_MIN_ROWS &&
+                aggregatedOutputRows > aggregatedInputRows * uniqueRowsRatioThreshold) {
+            passThrough = true;
+        }
+    }
+
+    private Page createPassThroughPage(Page page)
+    {
+        int positionCount = page.getPositionCount();
+        Block[] blocks = new Block[types.size()];
+        int channel = 0;
+        for (int groupByChannel : groupByChannels) {
+            blocks[channel++] = page.getBlock(groupByChannel);
+        }
+        if (hashChannel.isPresent()) {
+            blocks[channel++] = page.getBlock(hashChannel.get());
+        }
+
+        // every input row is a group of its own
+        BlockBuilder groupIdsBuilder = BIGINT.createFixedSizeBlockBuilder(positionCount);
+        for (int position = 0; position < positionCount; position++) {
+            BIGINT.writeLong(groupIdsBuilder, position);
+        }
+        GroupByIdBlock groupIds = new GroupByIdBlock(positionCount, groupIdsBuilder.build());
+
+        for (AccumulatorFactory accumulatorFactory : accumulatorFactories) {
+            GroupedAccumulator accumulator = accumulatorFactory.createGroupedAccumulator();
+            accumulator.addInput(groupIds, page);
+            BlockBuilder output = accumulator.getIntermediateType().createBlockBuilder(new BlockBuilderStatus(), positionCount);
+            for (int groupId = 0; groupId < positionCount; groupId++) {
+                accumulator.evaluateIntermediate(groupId, output);
+            }
+            blocks[channel++] = output.build();
+        }
+        return new Page(positionCount, blocks);
+    }
+
     @Override
     public void close()
     {
@@ -334,4 +596,71 @@ public class HashAggregationOperator
         }
         return output.build();
     }
+
+    public static class PartialAggregationInfo
+            implements Mergeable<PartialAggregationInfo>
+    {
+        private final long passThroughOperators;
+        private final long aggregatedInputRows;
+        private final long aggregatedOutputRows;
+        private final long passThroughRows;
+
+        @JsonCreator
+        public PartialAggregationInfo(
+                @JsonProperty("passThroughOperators") long passThroughOperators,
+                @JsonProperty("aggregatedInputRows") long aggregatedInputRows,
+                @JsonProperty("aggregatedOutputRows") long aggregatedOutputRows,
+                @JsonProperty("passThroughRows") long passThroughRows)
+        {
+            this.passThroughOperators = passThroughOperators;
+            this.aggregatedInputRows = aggregatedInputRows;
+            this.aggregatedOutputRows = aggregatedOutputRows;
+            this.passThroughRows = passThroughRows;
+        }
+
+        @JsonProperty
+        public long getPassThroughOperators()
+        {
+            return passThroughOperators;
+        }
+
+        @JsonProperty
+        public long getAggregatedInputRows()
+        {
+            return aggregatedInputRows;
+        }
+
+        @JsonProperty
+        public long getAggregatedOutputRows()
+        {
+            return aggregatedOutputRows;
+        }
+
+        @JsonProperty
+        public long getPassThroughRows()
+        {
+            return passThroughRows;
+        }
+
+        @Override
+        public PartialAggregationInfo mergeWith(PartialAggregationInfo other)
+        {
+            return new PartialAggregationInfo(
+                    passThroughOperators + other.passThroughOperators,
+                    aggregatedInputRows + other.aggregatedInputRows,
+                    aggregatedOutputRows + other.aggregatedOutputRows,
+                    passThroughRows + other.passThroughRows);
+        }
+
+        @Override
+        public String toString()
+        {
+            return toStringHelper(this)
+                    .add("passThroughOperators", passThroughOperators)
+                    .add("aggregatedInputRows", aggregatedInputRows)
+                    .add("aggregatedOutputRows", aggregatedOutputRows)
+                    .add("passThroughRows", passThroughRows)
+                    .toString();
+        }
+    }
 }
@@ -15,22 +15,30 @@ package com.facebook.presto.operator;
 
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.SpillerFactory;
 import com.facebook.presto.sql.gen.JoinFilterFunctionCompiler.JoinFilterFunctionFactory;
 import com.facebook.presto.sql.planner.Symbol;
 import com.facebook.presto.sql.planner.plan.PlanNodeId;
 import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.Ints;
 import com.google.common.util.concurrent.ListenableFuture;
 import io.airlift.concurrent.MoreFutures;
+import io.airlift.units.DataSize;
 
 import javax.annotation.concurrent.ThreadSafe;
 
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.function.Supplier;
 
+import static com.facebook.presto.util.ImmutableCollectors.toImmutableList;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.Iterators.singletonIterator;
+import static io.airlift.concurrent.MoreFutures.getFutureValue;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
 import static java.util.Objects.requireNonNull;
 
 @ThreadSafe
@@ -46,6 +54,9 @@ public class HashBuilderOperator
         private final List<Integer> hashChannels;
         private final Optional<Integer> preComputedHashChannel;
         private final Optional<JoinFilterFunctionFactory> filterFunctionFactory;
+        private final Optional<SpilledLookupSources> spilledLookupSources;
+        private final DataSize memoryLimitBeforeSpill;
+        private final Optional<DynamicFilterCollector> dynamicFilterCollector;
 
         private final int expectedPositions;
 
@@ -63,21 +74,92 @@ public class HashBuilderOperator
                 Optional<JoinFilterFunctionFactory> filterFunctionFactory,
                 int expectedPositions,
                 int partitionCount)
+        {
+            this(operatorId,
+                    planNodeId,
+                    types,
+                    layout,
+                    hashChannels,
+                    preComputedHashChannel,
+                    outer,
+                    filterFunctionFactory,
+                    expectedPositions,
+                    partitionCount,
+                    false,
+                    new DataSize(0, MEGABYTE),
+                    spillTypes -> {
+                        throw new UnsupportedOperationException("Spilling is not enabled");
+                    });
+        }
+
+        public HashBuilderOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                List<Type> types,
+                Map<Symbol, Integer> layout,
+                List<Integer> hashChannels,
+                Optional<Integer> preComputedHashChannel,
+                boolean outer,
+                Optional<JoinFilterFunctionFactory> filterFunctionFactory,
+                int expectedPositions,
+                int partitionCount,
+                boolean spillEnabled,
+                DataSize memoryLimitBeforeSpill,
+                SpillerFactory spillerFactory)
+        {
+            this(operatorId,
+                    planNodeId,
+                    types,
+                    layout,
+                    hashChannels,
+                    preComputedHashChannel,
+                    outer,
+                    filterFunctionFactory,
+                    expectedPositions,
+                    partitionCount,
+                    spillEnabled,
+                    memoryLimitBeforeSpill,
+                    spillerFactory,
+                    Optional.empty());
+        }
+
+        public HashBuilderOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                List<Type> types,
+                Map<Symbol, Integer> layout,
+                List<Integer> hashChannels,
+                Optional<Integer> preComputedHashChannel,
+                boolean outer,
+                Optional<JoinFilterFunctionFactory> filterFunctionFactory,
+                int expectedPositions,
+                int partitionCount,
+                boolean spillEnabled,
+                DataSize memoryLimitBeforeSpill,
+                SpillerFactory spillerFactory,
+                Optional<DynamicFilterCollector> dynamicFilterCollector)
         {
             this.operatorId = operatorId;
             this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
 
             checkArgument(Integer.bitCount(partitionCount) == 1, "partitionCount must be a power of 2");
+            checkArgument(!spillEnabled || !outer, "Spilling is not supported for outer joins");
+            requireNonNull(spillerFactory, "spillerFactory is null");
+            this.spilledLookupSources = spillEnabled ? Optional.of(new SpilledLookupSources(types, partitionCount, spillerFactory)) : Optional.empty();
+            this.memoryLimitBeforeSpill = requireNonNull(memoryLimitBeforeSpill, "memoryLimitBeforeSpill is null");
             lookupSourceFactory = new PartitionedLookupSourceFactory(
                     types,
                     hashChannels,
                     partitionCount,
                     requireNonNull(layout, "layout is null"),
-                    outer);
+                    outer,
+                    spilledLookupSources);
 
             this.hashChannels = ImmutableList.copyOf(requireNonNull(hashChannels, "hashChannels is null"));
             this.preComputedHashChannel = requireNonNull(preComputedHashChannel, "preComputedHashChannel is null");
             this.filterFunctionFactory = requireNonNull(filterFunctionFactory, "filterFunctionFactory is null");
+            this.dynamicFilterCollector = requireNonNull(dynamicFilterCollector, "dynamicFilterCollector is null");
+            dynamicFilterCollector.ifPresent(collector -> collector.setPartitionCount(partitionCount));
 
             this.expectedPositions = expectedPositions;
         }
@@ -105,7 +187,10 @@ public class HashBuilderOperator
                     hashChannels,
                     preComputedHashChannel,
                     filterFunctionFactory,
-                    expectedPositions);
+                    expectedPositions,
+                    spilledLookupSources,
+                    memoryLimitBeforeSpill,
+                    dynamicFilterCollector);
 
             partitionIndex++;
             return operator;
@@ -131,9 +216,16 @@ public class HashBuilderOperator
     private final List<Integer> hashChannels;
     private final Optional<Integer> preComputedHashChannel;
     private final Optional<JoinFilterFunctionFactory> filterFunctionFactory;
+    private final Optional<SpilledLookupSources> spilledLookupSources;
+    private final long memoryLimitBeforeSpill;
+    private final Optional<DynamicFilterCollector> dynamicFilterCollector;
+    private final Optional<JoinKeyDomainBuilder> keyDomainBuilder;
 
     private final PagesIndex index;
 
+    private Optional<PartitioningSpiller> spiller = Optional.empty();
+    private CompletableFuture<?> spillInProgress = CompletableFuture.completedFuture(null);
+    private boolean indexSpilled;
     private boolean finishing;
 
     public HashBuilderOperator(
@@ -144,16 +236,67 @@ public class HashBuilderOperator
             Optional<Integer> preComputedHashChannel,
             Optional<JoinFilterFunctionFactory> filterFunctionFactory,
             int expectedPositions)
+    {
+        this(operatorContext,
+                lookupSourceFactory,
+                partitionIndex,
+                hashChannels,
+                preComputedHashChannel,
+                filterFunctionFactory,
+                expectedPositions,
+                Optional.empty(),
+                new DataSize(0, MEGABYTE));
+    }
+
+    public HashBuilderOperator(
+            OperatorContext operatorContext,
+            PartitionedLookupSourceFactory lookupSourceFactory,
+            int partitionIndex,
+            List<Integer> hashChannels,
+            Optional<Integer> preComputedHashChannel,
+            Optional<JoinFilterFunctionFactory> filterFunctionFactory,
+            int expectedPositions,
+            Optional<SpilledLookupSources> spilledLookupSources,
+            DataSize memoryLimitBeforeSpill)
+    {
+        this(operatorContext,
+                lookupSourceFactory,
+                partitionIndex,
+                hashChannels,
+                preComputedHashChannel,
+                filterFunctionFactory,
+                expectedPositions,
+                spilledLookupSources,
+                memoryLimitBeforeSpill,
+                Optional.empty());
+    }
+
+    public HashBuilderOperator(
+            OperatorContext operatorContext,
+            PartitionedLookupSourceFactory lookupSourceFactory,
+            int partitionIndex,
+            List<Integer> hashChannels,
+            Optional<Integer> preComputedHashChannel,
+            Optional<JoinFilterFunctionFactory> filterFunctionFactory,
+            int expectedPositions,
+            Optional<SpilledLookupSources> spilledLookupSources,
+            DataSize memoryLimitBeforeSpill,
+            Optional<DynamicFilterCollector> dynamicFilterCollector)
     {
         this.operatorContext = operatorContext;
         this.partitionIndex = partitionIndex;
         this.filterFunctionFactory = filterFunctionFactory;
+        this.spilledLookupSources = requireNonNull(spilledLookupSources, "spilledLookupSources is null");
+        this.memoryLimitBeforeSpill = requireNonNull(memoryLimitBeforeSpill, "memoryLimitBeforeSpill is null").toBytes();
 
         this.index = new PagesIndex(lookupSourceFactory.getTypes(), expectedPositions);
         this.lookupSourceFactory = lookupSourceFactory;
 
         this.hashChannels = hashChannels;
         this.preComputedHashChannel = preComputedHashChannel;
+
+        this.dynamicFilterCollector = requireNonNull(dynamicFilterCollector, "dynamicFilterCollector is null");
+        this.keyDomainBuilder = dynamicFilterCollector.map(collector -> collector.createDomainBuilder(hashChannels));
     }
 
     @Override
@@ -176,27 +319,60 @@ public class HashBuilderOperator
         }
         finishing = true;
 
-        Supplier<LookupSource> partition = index.createLookupSourceSupplier(operatorContext.getSession(), hashChannels, preComputedHashChannel, filterFunctionFactory);
+        // publish the key domain before the lookup source, so it is complete once the probe side is unblocked
+        if (dynamicFilterCollector.isPresent()) {
+            dynamicFilterCollector.get().addPartitionDomain(keyDomainBuilder.get().build());
+        }
+
+        if (spiller.isPresent()) {
+            // the partition is published once all of its rows are on disk
+            PartitioningSpiller partitionSpiller = spiller.get();
+            spillInProgress = partitionSpiller.flush().thenRun(() -> {
+                spilledLookupSources.get().addSpilledBuildPartition(partitionIndex, partitionSpiller, this::createLookupSourceSupplier);
+                lookupSourceFactory.setPartitionLookupSourceSupplier(partitionIndex, createLookupSourceSupplier(index));
+            });
+            return;
+        }
+
+        Supplier<LookupSource> partition = createLookupSourceSupplier(index);
         lookupSourceFactory.setPartitionLookupSourceSupplier(partitionIndex, partition);
 
+        // the published lookup source can no longer be spilled
+        operatorContext.setRevocableMemoryReservation(0);
         operatorContext.setMemoryReservation(partition.get().getInMemorySizeInBytes());
     }
 
+    private Supplier<LookupSource> createLookupSourceSupplier(PagesIndex pagesIndex)
+    {
+        return pagesIndex.createLookupSourceSupplier(operatorContext.getSession(), hashChannels, preComputedHashChannel, filterFunctionFactory);
+    }
+
     @Override
     public boolean isFinished()
     {
-        return finishing && lookupSourceFactory.isDestroyed().isDone();
+        return finishing && spillInProgress.isDone() && lookupSourceFactory.isDestroyed().isDone();
     }
 
     @Override
     public boolean needsInput()
     {
-        return !finishing;
+        return !finishing && spillInProgress.isDone();
     }
 
     @Override
     public ListenableFuture<?> isBlocked()
     {
+        if (!spillInProgress.isDone()) {
+            return MoreFutures.toListenableFuture(spillInProgress);
+        }
+        // propagate the failure of the last spill
+        getFutureValue(spillInProgress);
+
+        if (indexSpilled) {
+            indexSpilled = false;
+            operatorContext.resetMemoryRevokingRequested();
+        }
+
         if (!finishing) {
             return NOT_BLOCKED;
         }
@@ -208,13 +384,54 @@ public class HashBuilderOperator
     {
         requireNonNull(page, "page is null");
         checkState(!isFinished(), "Operator is already finished");
+        checkState(spillInProgress.isDone(), "Previous spill hasn't yet finished");
+
+        operatorContext.recordGeneratedOutput(page.getSizeInBytes(), page.getPositionCount());
+        keyDomainBuilder.ifPresent(builder -> builder.addPage(page));
+
+        if (spiller.isPresent()) {
+            spillInProgress = spiller.get().spill(singletonIterator(page));
+            return;
+        }
 
         index.addPage(page);
+        if (spilledLookupSources.isPresent()) {
+            // the index is revocable until the lookup source is published, since it can be spilled until then
+            long indexSize = index.getEstimatedSize().toBytes();
+            if (indexSize > memoryLimitBeforeSpill || operatorContext.isMemoryRevokingRequested()) {
+                spillToDisk();
+                return;
+            }
+            operatorContext.setRevocableMemoryReservation(indexSize);
+            return;
+        }
+
         if (!operatorContext.trySetMemoryReservation(index.getEstimatedSize().toBytes())) {
             index.compact();
         }
         operatorContext.setMemoryReservation(index.getEstimatedSize().toBytes());
-        operatorContext.recordGeneratedOutput(page.getSizeInBytes(), page.getPositionCount());
+    }
+
+    private void spillToDisk()
+    {
+        HashGenerator hashGenerator;
+        if (preComputedHashChannel.isPresent()) {
+            hashGenerator = new PrecomputedHashGenerator(preComputedHashChannel.get());
+        }
+        else {
+            List<Type> hashChannelTypes = hashChannels.stream()
+                    .map(index::getType)
+                    .collect(toImmutableList());
+            hashGenerator = new InterpretedHashGenerator(hashChannelTypes, Ints.toArray(hashChannels));
+        }
+        PartitioningSpiller partitionSpiller = spilledLookupSources.get().createBuildSpiller(hashGenerator);
+        spiller = Optional.of(partitionSpiller);
+
+        // all rows of this partition go to disk from now on
+        spillInProgress = partitionSpiller.spill(index.getPages());
+        index.clear();
+        indexSpilled = true;
+        operatorContext.setRevocableMemoryReservation(0);
     }
 
     @Override
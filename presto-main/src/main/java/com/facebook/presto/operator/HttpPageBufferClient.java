@@ -13,6 +13,8 @@
  */
 package com.facebook.presto.operator;
 
+import com.facebook.presto.block.PageCompressionCodec;
+import com.facebook.presto.block.PageCompressionStats;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.block.BlockEncodingSerde;
@@ -47,6 +49,7 @@ import java.io.IOException;
 import java.io.InputStreamReader;
 import java.net.URI;
 import java.util.List;
+import java.util.Optional;
 import java.util.OptionalInt;
 import java.util.OptionalLong;
 import java.util.concurrent.Future;
@@ -56,9 +59,13 @@ import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
 
 import static com.facebook.presto.PrestoMediaTypes.PRESTO_PAGES_TYPE;
+import static com.facebook.presto.block.PageCompressionCodec.NONE;
+import static com.facebook.presto.block.PagesSerde.readCompressedPages;
 import static com.facebook.presto.block.PagesSerde.readPages;
+import static com.facebook.presto.client.PrestoHeaders.PRESTO_ACCEPT_PAGE_CODEC;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_BUFFER_COMPLETE;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_MAX_SIZE;
+import static com.facebook.presto.client.PrestoHeaders.PRESTO_PAGE_CODEC;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_PAGE_NEXT_TOKEN;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_PAGE_TOKEN;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_TASK_INSTANCE_ID;
@@ -114,6 +121,7 @@ public final class HttpPageBufferClient
     private final URI location;
     private final ClientCallback clientCallback;
     private final BlockEncodingSerde blockEncodingSerde;
+    private final PageCompressionCodec pageCompressionCodec;
     private final ScheduledExecutorService executor;
 
     @GuardedBy("this")
@@ -146,6 +154,9 @@ public final class HttpPageBufferClient
     private final AtomicInteger requestsCompleted = new AtomicInteger();
     private final AtomicInteger requestsFailed = new AtomicInteger();
 
+    private final AtomicLong compressionBytesSaved = new AtomicLong();
+    private final AtomicLong decompressionNanos = new AtomicLong();
+
     public HttpPageBufferClient(
             HttpClient httpClient,
             DataSize maxResponseSize,
@@ -155,7 +166,33 @@ public final class HttpPageBufferClient
             BlockEncodingSerde blockEncodingSerde,
             ScheduledExecutorService executor)
     {
-        this(httpClient, maxResponseSize, minErrorDuration, location, clientCallback, blockEncodingSerde, executor, Stopwatch.createUnstarted());
+        this(httpClient, maxResponseSize, minErrorDuration, location, clientCallback, blockEncodingSerde, NONE, executor, Stopwatch.createUnstarted());
+    }
+
+    public HttpPageBufferClient(
+            HttpClient httpClient,
+            DataSize maxResponseSize,
+            Duration minErrorDuration,
+            URI location,
+            ClientCallback clientCallback,
+            BlockEncodingSerde blockEncodingSerde,
+            PageCompressionCodec pageCompressionCodec,
+            ScheduledExecutorService executor)
+    {
+        this(httpClient, maxResponseSize, minErrorDuration, location, clientCallback, blockEncodingSerde, pageCompressionCodec, executor, Stopwatch.createUnstarted());
+    }
+
+    public HttpPageBufferClient(
+            HttpClient httpClient,
+            DataSize maxResponseSize,
+            Duration minErrorDuration,
+            URI location,
+            ClientCallback clientCallback,
+            BlockEncodingSerde blockEncodingSerde,
+            ScheduledExecutorService executor,
+            Stopwatch errorStopwatch)
+    {
+        this(httpClient, maxResponseSize, minErrorDuration, location, clientCallback, blockEncodingSerde, NONE, executor, errorStopwatch);
     }
 
     public HttpPageBufferClient(
@@ -165,6 +202,7 @@ public final class HttpPageBufferClient
             URI location,
             ClientCallback clientCallback,
             BlockEncodingSerde blockEncodingSerde,
+            PageCompressionCodec pageCompressionCodec,
             ScheduledExecutorService executor,
             Stopwatch errorStopwatch)
     {
@@ -174,6 +212,7 @@ public final class HttpPageBufferClient
         this.location = requireNonNull(location, "location is null");
         this.clientCallback = requireNonNull(clientCallback, "clientCallback is null");
         this.blockEncodingSerde = requireNonNull(blockEncodingSerde, "blockEncodingManager is null");
+        this.pageCompressionCodec = requireNonNull(pageCompressionCodec, "pageCompressionCodec is null");
         this.executor = requireNonNull(executor, "executor is null");
         this.errorStopwatch = requireNonNull(errorStopwatch, "errorStopwatch is null").reset();
     }
@@ -215,7 +254,9 @@ public final class HttpPageBufferClient
                 requestsScheduled.get(),
                 requestsCompleted.get(),
                 requestsFailed.get(),
-                httpRequestState);
+                httpRequestState,
+                compressionBytesSaved.get(),
+                decompressionNanos.get());
     }
 
     public synchronized boolean isRunning()
@@ -294,11 +335,14 @@ public final class HttpPageBufferClient
     private synchronized void sendGetResults()
     {
         URI uri = HttpUriBuilder.uriBuilderFrom(location).appendPath(String.valueOf(token)).build();
-        HttpResponseFuture<PagesResponse> resultFuture = httpClient.executeAsync(
-                prepareGet()
-                        .setHeader(PRESTO_MAX_SIZE, maxResponseSize.toString())
-                        .setUri(uri).build(),
-                new PageResponseHandler(blockEncodingSerde));
+        Request.Builder request = prepareGet()
+                .setHeader(PRESTO_MAX_SIZE, maxResponseSize.toString())
+                .setUri(uri);
+        if (pageCompressionCodec != NONE) {
+            // servers that don't know the header or the codec respond with uncompressed pages
+            request.setHeader(PRESTO_ACCEPT_PAGE_CODEC, pageCompressionCodec.name());
+        }
+        HttpResponseFuture<PagesResponse> resultFuture = httpClient.executeAsync(request.build(), new PageResponseHandler(blockEncodingSerde));
 
         future = resultFuture;
         Futures.addCallback(resultFuture, new FutureCallback<PagesResponse>()
@@ -336,6 +380,9 @@ public final class HttpPageBufferClient
                     return;
                 }
 
+                compressionBytesSaved.addAndGet(result.getCompressionBytesSaved());
+                decompressionNanos.addAndGet(result.getDecompressionNanos());
+
                 // add pages
                 if (clientCallback.addPages(HttpPageBufferClient.this, pages)) {
                     pagesReceived.addAndGet(pages.size());
@@ -584,7 +631,14 @@ public final class HttpPageBufferClient
                 long nextToken = getNextToken(response);
                 boolean complete = getComplete(response);
 
+                Optional<PageCompressionCodec> codec = PageCompressionCodec.fromHeader(response.getHeader(PRESTO_PAGE_CODEC));
+
                 try (SliceInput input = new InputStreamSliceInput(response.getInputStream())) {
+                    if (codec.isPresent()) {
+                        PageCompressionStats stats = new PageCompressionStats();
+                        List<Page> pages = ImmutableList.copyOf(readCompressedPages(blockEncodingSerde, input, codec.get(), stats));
+                        return createPagesResponse(taskInstanceId, token, nextToken, pages, complete, stats.getBytesSaved(), stats.getCompressionNanos());
+                    }
                     List<Page> pages = ImmutableList.copyOf(readPages(blockEncodingSerde, input));
                     return createPagesResponse(taskInstanceId, token, nextToken, pages, complete);
                 }
@@ -648,12 +702,24 @@ public final class HttpPageBufferClient
     {
         public static PagesResponse createPagesResponse(String taskInstanceId, long token, long nextToken, Iterable<Page> pages, boolean complete)
         {
-            return new PagesResponse(taskInstanceId, token, nextToken, pages, complete);
+            return new PagesResponse(taskInstanceId, token, nextToken, pages, complete, 0, 0);
+        }
+
+        public static PagesResponse createPagesResponse(
+                String taskInstanceId,
+                long token,
+                long nextToken,
+                Iterable<Page> pages,
+                boolean complete,
+                long compressionBytesSaved,
+                long decompressionNanos)
+        {
+            return new PagesResponse(taskInstanceId, token, nextToken, pages, complete, compressionBytesSaved, decompressionNanos);
         }
 
         public static PagesResponse createEmptyPagesResponse(String taskInstanceId, long token, long nextToken, boolean complete)
         {
-            return new PagesResponse(taskInstanceId, token, nextToken, ImmutableList.<Page>of(), complete);
+            return new PagesResponse(taskInstanceId, token, nextToken, ImmutableList.<Page>of(), complete, 0, 0);
         }
 
         private final String taskInstanceId;
@@ -661,14 +727,25 @@ public final class HttpPageBufferClient
         private final long nextToken;
         private final List<Page> pages;
         private final boolean clientComplete;
-
-        private PagesResponse(String taskInstanceId, long token, long nextToken, Iterable<Page> pages, boolean clientComplete)
+        private final long compressionBytesSaved;
+        private final long decompressionNanos;
+
+        private PagesResponse(
+                String taskInstanceId,
+                long token,
+                long nextToken,
+                Iterable<Page> pages,
+                boolean clientComplete,
+                long compressionBytesSaved,
+                long decompressionNanos)
         {
             this.taskInstanceId = taskInstanceId;
             this.token = token;
             this.nextToken = nextToken;
             this.pages = ImmutableList.copyOf(pages);
             this.clientComplete = clientComplete;
+            this.compressionBytesSaved = compressionBytesSaved;
+            this.decompressionNanos = decompressionNanos;
         }
 
         public long getToken()
@@ -696,6 +773,16 @@ public final class HttpPageBufferClient
             return taskInstanceId;
         }
 
+        public long getCompressionBytesSaved()
+        {
+            return compressionBytesSaved;
+        }
+
+        public long getDecompressionNanos()
+        {
+            return decompressionNanos;
+        }
+
         @Override
         public String toString()
         {
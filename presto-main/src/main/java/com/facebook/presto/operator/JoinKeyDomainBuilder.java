@@ -0,0 +1,143 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.predicate.Domain;
+import com.facebook.presto.spi.predicate.Range;
+import com.facebook.presto.spi.predicate.TupleDomain;
+import com.facebook.presto.spi.predicate.ValueSet;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.RealType.REAL;
+import static com.facebook.presto.spi.type.TypeUtils.readNativeValue;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Summarizes the join keys of one build partition as a {@link TupleDomain} over the key indexes:
+ * the distinct values while there are only a few of them, otherwise the range between the
+ * minimum and the maximum. Null keys are ignored, as they never match. Floating point keys
+ * are not summarized, because NaN can't be represented in a domain.
+ */
+@NotThreadSafe
+public class JoinKeyDomainBuilder
+{
+    private final List<Type> keyTypes;
+    private final List<Integer> keyChannels;
+    private final int maxDistinctValues;
+
+    // null once a key has too many distinct values, or if its type can't be compared
+    private final Set<Object>[] distinctValues;
+    private final Block[] minValues;
+    private final Block[] maxValues;
+    private final boolean[] summarized;
+    private final boolean[] hasValues;
+
+    public JoinKeyDomainBuilder(List<Type> keyTypes, List<Integer> keyChannels, int maxDistinctValues)
+    {
+        this.keyTypes = ImmutableList.copyOf(requireNonNull(keyTypes, "keyTypes is null"));
+        this.keyChannels = ImmutableList.copyOf(requireNonNull(keyChannels, "keyChannels is null"));
+        checkArgument(keyTypes.size() == keyChannels.size(), "keyTypes and keyChannels must have the same size");
+        checkArgument(maxDistinctValues >= 0, "maxDistinctValues is negative");
+        this.maxDistinctValues = maxDistinctValues;
+
+        this.summarized = new boolean[keyTypes.size()];
+        this.distinctValues = (Set<Object>[]) new Set<?>[keyTypes.size()];
+        for (int key = 0; key < keyTypes.size(); key++) {
+            Type type = keyTypes.get(key);
+            summarized[key] = !type.equals(DOUBLE) && !type.equals(REAL);
+            if (summarized[key] && type.isComparable()) {
+                distinctValues[key] = new HashSet<>();
+            }
+        }
+        this.minValues = new Block[keyTypes.size()];
+        this.maxValues = new Block[keyTypes.size()];
+        this.hasValues = new boolean[keyTypes.size()];
+    }
+
+    public void addPage(Page page)
+    {
+        requireNonNull(page, "page is null");
+        for (int key = 0; key < keyTypes.size(); key++) {
+            if (!summarized[key]) {
+                continue;
+            }
+            Type type = keyTypes.get(key);
+            Block block = page.getBlock(keyChannels.get(key));
+            for (int position = 0; position < block.getPositionCount(); position++) {
+                if (block.isNull(position)) {
+                    continue;
+                }
+                hasValues[key] = true;
+
+                if (distinctValues[key] != null) {
+                    Object value = readNativeValue(type, block, position);
+                    if (value instanceof Slice) {
+                        value = Slices.copyOf((Slice) value);
+                    }
+                    distinctValues[key].add(value);
+                    if (distinctValues[key].size() > maxDistinctValues) {
+                        distinctValues[key] = null;
+                    }
+                }
+
+                if (type.isOrderable()) {
+                    // keep single value copies, so the pages of the build side are not retained
+                    if (minValues[key] == null || type.compareTo(block, position, minValues[key], 0) < 0) {
+                        minValues[key] = block.getSingleValueBlock(position);
+                    }
+                    if (maxValues[key] == null || type.compareTo(block, position, maxValues[key], 0) > 0) {
+                        maxValues[key] = block.getSingleValueBlock(position);
+                    }
+                }
+            }
+        }
+    }
+
+    public TupleDomain<Integer> build()
+    {
+        ImmutableMap.Builder<Integer, Domain> domains = ImmutableMap.builder();
+        for (int key = 0; key < keyTypes.size(); key++) {
+            if (!summarized[key]) {
+                continue;
+            }
+            Type type = keyTypes.get(key);
+            if (!hasValues[key]) {
+                // rows with a null key never match
+                return TupleDomain.none();
+            }
+            if (distinctValues[key] != null) {
+                domains.put(key, Domain.create(ValueSet.copyOf(type, distinctValues[key]), false));
+            }
+            else if (type.isOrderable()) {
+                Range range = Range.range(type, readNativeValue(type, minValues[key], 0), true, readNativeValue(type, maxValues[key], 0), true);
+                domains.put(key, Domain.create(ValueSet.ofRanges(range), false));
+            }
+        }
+        return TupleDomain.withColumnDomains(domains.build());
+    }
+}
@@ -14,18 +14,29 @@
 package com.facebook.presto.operator;
 
 import com.facebook.presto.operator.LookupJoinOperators.JoinType;
+import com.facebook.presto.operator.exchange.LocalPartitionGenerator;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.PageBuilder;
+import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.type.Type;
 import com.google.common.collect.ImmutableList;
+import com.google.common.primitives.Ints;
 import com.google.common.util.concurrent.ListenableFuture;
 
 import java.io.Closeable;
+import java.util.Arrays;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.Supplier;
 
 import static com.facebook.presto.operator.LookupJoinOperators.JoinType.FULL_OUTER;
 import static com.facebook.presto.operator.LookupJoinOperators.JoinType.PROBE_OUTER;
 import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.collect.Iterators.singletonIterator;
+import static io.airlift.concurrent.MoreFutures.getFutureValue;
+import static io.airlift.concurrent.MoreFutures.toListenableFuture;
 import static io.airlift.concurrent.MoreFutures.tryGetFutureValue;
 import static java.util.Objects.requireNonNull;
 
@@ -36,6 +47,9 @@ public class LookupJoinOperator
     private final List<Type> types;
     private final ListenableFuture<? extends LookupSource> lookupSourceFuture;
     private final JoinProbeFactory joinProbeFactory;
+    private final List<Type> probeTypes;
+    private final HashGenerator probeHashGenerator;
+    private final Supplier<Optional<SpilledLookupSources>> spilledLookupSourcesSupplier;
     private final Runnable onClose;
 
     private final PageBuilder pageBuilder;
@@ -45,6 +59,17 @@ public class LookupJoinOperator
     private LookupSource lookupSource;
     private JoinProbe probe;
 
+    private Optional<SpilledLookupSources> spilledLookupSources = Optional.empty();
+    private boolean[] spilledBuildPartitions;
+    private LocalPartitionGenerator buildPartitionGenerator;
+    private PartitioningSpiller probeSpiller;
+    private CompletableFuture<?> spillInProgress = CompletableFuture.completedFuture(null);
+    private boolean probeSpillFlushed;
+    private boolean unspillingFinished;
+    private int unspilledPartition = -1;
+    private Iterator<Page> unspilledProbePages;
+    private LookupSource unspilledLookupSource;
+
     private boolean closed;
     private boolean finishing;
     private long joinPosition = -1;
@@ -55,6 +80,9 @@ public class LookupJoinOperator
             JoinType joinType,
             ListenableFuture<LookupSource> lookupSourceFuture,
             JoinProbeFactory joinProbeFactory,
+            List<Type> probeTypes,
+            HashGenerator probeHashGenerator,
+            Supplier<Optional<SpilledLookupSources>> spilledLookupSourcesSupplier,
             Runnable onClose)
     {
         this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
@@ -66,6 +94,9 @@ public class LookupJoinOperator
 
         this.lookupSourceFuture = requireNonNull(lookupSourceFuture, "lookupSourceFuture is null");
         this.joinProbeFactory = requireNonNull(joinProbeFactory, "joinProbeFactory is null");
+        this.probeTypes = ImmutableList.copyOf(requireNonNull(probeTypes, "probeTypes is null"));
+        this.probeHashGenerator = requireNonNull(probeHashGenerator, "probeHashGenerator is null");
+        this.spilledLookupSourcesSupplier = requireNonNull(spilledLookupSourcesSupplier, "spilledLookupSourcesSupplier is null");
         this.onClose = requireNonNull(onClose, "onClose is null");
 
         this.pageBuilder = new PageBuilder(types);
@@ -92,7 +123,7 @@ public class LookupJoinOperator
     @Override
     public boolean isFinished()
     {
-        boolean finished = finishing && probe == null && pageBuilder.isEmpty();
+        boolean finished = finishing && probe == null && pageBuilder.isEmpty() && !hasSpilledProbeRows();
 
         // if finished drop references so memory is freed early
         if (finished) {
@@ -104,6 +135,9 @@ public class LookupJoinOperator
     @Override
     public ListenableFuture<?> isBlocked()
     {
+        if (!spillInProgress.isDone()) {
+            return toListenableFuture(spillInProgress);
+        }
         return lookupSourceFuture;
     }
 
@@ -116,8 +150,11 @@ public class LookupJoinOperator
 
         if (lookupSource == null) {
             lookupSource = tryGetFutureValue(lookupSourceFuture).orElse(null);
+            if (lookupSource != null) {
+                initializeSpilledLookupSources();
+            }
         }
-        return lookupSource != null && probe == null;
+        return lookupSource != null && probe == null && spillInProgress.isDone();
     }
 
     @Override
@@ -127,6 +164,14 @@ public class LookupJoinOperator
         checkState(!finishing, "Operator is finishing");
         checkState(lookupSource != null, "Lookup source has not been built yet");
         checkState(probe == null, "Current page has not been completely processed yet");
+        checkState(spillInProgress.isDone(), "Previous spill hasn't yet finished");
+
+        if (spilledLookupSources.isPresent()) {
+            page = spillProbeRows(page);
+            if (page == null) {
+                return;
+            }
+        }
 
         // create probe
         probe = joinProbeFactory.createJoinProbe(lookupSource, page);
@@ -142,6 +187,21 @@ public class LookupJoinOperator
             return null;
         }
 
+        // once all probe input has been processed, join the spilled rows one spill partition at a time
+        if (probe == null && finishing && hasSpilledProbeRows()) {
+            if (!spillInProgress.isDone()) {
+                return null;
+            }
+            // propagate the failure of the last spill
+            getFutureValue(spillInProgress);
+            if (!probeSpillFlushed) {
+                probeSpillFlushed = true;
+                spillInProgress = probeSpiller.flush();
+                return null;
+            }
+            advanceUnspilledProbe();
+        }
+
         // join probe page with the lookup source
         if (probe != null) {
             while (joinCurrentPosition()) {
@@ -155,7 +215,7 @@ public class LookupJoinOperator
         }
 
         // only flush full pages unless we are done
-        if (pageBuilder.isFull() || (finishing && !pageBuilder.isEmpty() && probe == null)) {
+        if (pageBuilder.isFull() || (finishing && !pageBuilder.isEmpty() && probe == null && !hasSpilledProbeRows())) {
             Page page = pageBuilder.build();
             pageBuilder.reset();
             return page;
@@ -174,6 +234,10 @@ public class LookupJoinOperator
         closed = true;
         probe = null;
         pageBuilder.reset();
+        releaseUnspilledLookupSource();
+        if (probeSpiller != null) {
+            probeSpiller.close();
+        }
         onClose.run();
         // closing lookup source is only here for index join
         if (lookupSource != null) {
@@ -181,6 +245,103 @@ public class LookupJoinOperator
         }
     }
 
+    private void initializeSpilledLookupSources()
+    {
+        spilledLookupSources = spilledLookupSourcesSupplier.get();
+        if (spilledLookupSources.isPresent()) {
+            spilledBuildPartitions = spilledLookupSources.get().getSpilledBuildPartitions();
+            buildPartitionGenerator = new LocalPartitionGenerator(probeHashGenerator, spilledLookupSources.get().getBuildPartitionCount());
+        }
+    }
+
+    /**
+     * Spills the rows that belong to spilled build partitions and returns the remaining rows,
+     * or null if all rows were spilled.
+     */
+    private Page spillProbeRows(Page page)
+    {
+        int[] joinPositions = new int[page.getPositionCount()];
+        int joinPositionCount = 0;
+        int[] spillPositions = new int[page.getPositionCount()];
+        int spillPositionCount = 0;
+        for (int position = 0; position < page.getPositionCount(); position++) {
+            long rawHash = probeHashGenerator.hashPosition(position, page);
+            if (spilledBuildPartitions[buildPartitionGenerator.getPartition(rawHash)]) {
+                spillPositions[spillPositionCount++] = position;
+            }
+            else {
+                joinPositions[joinPositionCount++] = position;
+            }
+        }
+
+        if (spillPositionCount == 0) {
+            return page;
+        }
+
+        if (probeSpiller == null) {
+            probeSpiller = spilledLookupSources.get().createProbeSpiller(probeTypes, probeHashGenerator);
+        }
+        spillInProgress = probeSpiller.spill(singletonIterator(copyPositions(page, spillPositions, spillPositionCount)));
+
+        if (joinPositionCount == 0) {
+            return null;
+        }
+        return copyPositions(page, joinPositions, joinPositionCount);
+    }
+
+    private static Page copyPositions(Page page, int[] positions, int positionCount)
+    {
+        List<Integer> positionList = Ints.asList(Arrays.copyOf(positions, positionCount));
+        Block[] blocks = new Block[page.getChannelCount()];
+        for (int channel = 0; channel < blocks.length; channel++) {
+            blocks[channel] = page.getBlock(channel).copyPositions(positionList);
+        }
+        return new Page(positionCount, blocks);
+    }
+
+    private boolean hasSpilledProbeRows()
+    {
+        return probeSpiller != null && !unspillingFinished;
+    }
+
+    private void advanceUnspilledProbe()
+    {
+        while (unspilledProbePages == null || !unspilledProbePages.hasNext()) {
+            releaseUnspilledLookupSource();
+            unspilledPartition++;
+            if (unspilledPartition >= probeSpiller.getPartitionCount()) {
+                unspillingFinished = true;
+                probeSpiller.close();
+                return;
+            }
+            unspilledProbePages = probeSpiller.getSpilledPages(unspilledPartition);
+            if (unspilledProbePages.hasNext()) {
+                unspilledLookupSource = spilledLookupSources.get().acquireLookupSource(unspilledPartition);
+                operatorContext.setMemoryReservation(unspilledLookupSource.getInMemorySizeInBytes());
+            }
+        }
+
+        probe = joinProbeFactory.createJoinProbe(unspilledLookupSource, unspilledProbePages.next());
+        joinPosition = -1;
+    }
+
+    private void releaseUnspilledLookupSource()
+    {
+        if (unspilledLookupSource != null) {
+            unspilledLookupSource = null;
+            spilledLookupSources.get().releaseLookupSource(unspilledPartition);
+            operatorContext.setMemoryReservation(0);
+        }
+    }
+
+    private LookupSource getCurrentLookupSource()
+    {
+        if (unspilledLookupSource != null) {
+            return unspilledLookupSource;
+        }
+        return lookupSource;
+    }
+
     private boolean joinCurrentPosition()
     {
         // while we have a position to join against...
@@ -191,10 +352,10 @@ public class LookupJoinOperator
             probe.appendTo(pageBuilder);
 
             // write build columns
-            lookupSource.appendTo(joinPosition, pageBuilder, probe.getChannelCount());
+            getCurrentLookupSource().appendTo(joinPosition, pageBuilder, probe.getChannelCount());
 
             // get next join position for this row
-            joinPosition = lookupSource.getNextJoinPosition(joinPosition, probe.getPosition(), probe.getPage());
+            joinPosition = getCurrentLookupSource().getNextJoinPosition(joinPosition, probe.getPosition(), probe.getPage());
             if (pageBuilder.isFull()) {
                 return false;
             }
@@ -43,6 +43,7 @@ public class LookupJoinOperatorFactory
     private final JoinType joinType;
     private final LookupSourceFactory lookupSourceFactory;
     private final JoinProbeFactory joinProbeFactory;
+    private final HashGenerator probeHashGenerator;
     private final Optional<OperatorFactory> outerOperatorFactory;
     private final ReferenceCount referenceCount;
     private boolean closed;
@@ -52,7 +53,8 @@ public class LookupJoinOperatorFactory
             LookupSourceFactory lookupSourceFactory,
             List<Type> probeTypes,
             JoinType joinType,
-            JoinProbeFactory joinProbeFactory)
+            JoinProbeFactory joinProbeFactory,
+            HashGenerator probeHashGenerator)
     {
         this.operatorId = operatorId;
         this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
@@ -61,6 +63,7 @@ public class LookupJoinOperatorFactory
         this.buildTypes = ImmutableList.copyOf(lookupSourceFactory.getTypes());
         this.joinType = requireNonNull(joinType, "joinType is null");
         this.joinProbeFactory = requireNonNull(joinProbeFactory, "joinProbeFactory is null");
+        this.probeHashGenerator = requireNonNull(probeHashGenerator, "probeHashGenerator is null");
 
         this.referenceCount = new ReferenceCount();
 
@@ -98,6 +101,7 @@ public class LookupJoinOperatorFactory
         joinType = other.joinType;
         lookupSourceFactory = other.lookupSourceFactory;
         joinProbeFactory = other.joinProbeFactory;
+        probeHashGenerator = other.probeHashGenerator;
         referenceCount = other.referenceCount;
         outerOperatorFactory = other.outerOperatorFactory;
 
@@ -133,6 +137,9 @@ public class LookupJoinOperatorFactory
                 joinType,
                 lookupSourceFactory.createLookupSource(),
                 joinProbeFactory,
+                probeTypes,
+                probeHashGenerator,
+                lookupSourceFactory::getSpilledLookupSources,
                 referenceCount::release);
     }
 
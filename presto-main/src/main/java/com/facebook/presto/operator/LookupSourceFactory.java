@@ -19,6 +19,7 @@ import com.google.common.util.concurrent.ListenableFuture;
 
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 public interface LookupSourceFactory
 {
@@ -28,6 +29,14 @@ public interface LookupSourceFactory
 
     Map<Symbol, Integer> getLayout();
 
+    /**
+     * Returns the build partitions that were spilled to disk, once the lookup source has been created.
+     */
+    default Optional<SpilledLookupSources> getSpilledLookupSources()
+    {
+        return Optional.empty();
+    }
+
     // this is only here for the index lookup source
     default void setTaskContext(TaskContext taskContext) {}
 
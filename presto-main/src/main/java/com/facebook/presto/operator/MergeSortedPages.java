@@ -0,0 +1,136 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PageBuilder;
+import com.facebook.presto.spi.block.SortOrder;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableList;
+
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Streaming k-way merge of page streams that are each sorted on the same sort channels.
+ */
+public final class MergeSortedPages
+{
+    private MergeSortedPages() {}
+
+    public static Iterator<Page> mergeSortedPages(
+            List<Iterator<Page>> sortedStreams,
+            List<Type> types,
+            List<Integer> sortChannels,
+            List<SortOrder> sortOrders)
+    {
+        requireNonNull(sortedStreams, "sortedStreams is null");
+        List<Type> outputTypes = ImmutableList.copyOf(requireNonNull(types, "types is null"));
+        List<Integer> channels = ImmutableList.copyOf(requireNonNull(sortChannels, "sortChannels is null"));
+        List<SortOrder> orders = ImmutableList.copyOf(requireNonNull(sortOrders, "sortOrders is null"));
+        checkArgument(channels.size() == orders.size(), "Must have same number of sort channels as sort orders");
+
+        Comparator<PageCursor> comparator = (left, right) -> {
+            for (int i = 0; i < channels.size(); i++) {
+                int channel = channels.get(i);
+                int compare = orders.get(i).compareBlockValue(
+                        outputTypes.get(channel),
+                        left.getPage().getBlock(channel),
+                        left.getPosition(),
+                        right.getPage().getBlock(channel),
+                        right.getPosition());
+                if (compare != 0) {
+                    return compare;
+                }
+            }
+            return 0;
+        };
+
+        PriorityQueue<PageCursor> cursors = new PriorityQueue<>(Math.max(1, sortedStreams.size()), comparator);
+        for (Iterator<Page> pages : sortedStreams) {
+            PageCursor cursor = new PageCursor(pages);
+            if (cursor.advance()) {
+                cursors.add(cursor);
+            }
+        }
+
+        PageBuilder pageBuilder = new PageBuilder(outputTypes);
+        return new AbstractIterator<Page>()
+        {
+            @Override
+            protected Page computeNext()
+            {
+                if (cursors.isEmpty()) {
+                    return endOfData();
+                }
+
+                pageBuilder.reset();
+                while (!pageBuilder.isFull() && !cursors.isEmpty()) {
+                    PageCursor cursor = cursors.poll();
+                    Page page = cursor.getPage();
+                    int position = cursor.getPosition();
+                    pageBuilder.declarePosition();
+                    for (int channel = 0; channel < outputTypes.size(); channel++) {
+                        outputTypes.get(channel).appendTo(page.getBlock(channel), position, pageBuilder.getBlockBuilder(channel));
+                    }
+                    if (cursor.advance()) {
+                        cursors.add(cursor);
+                    }
+                }
+                return pageBuilder.build();
+            }
+        };
+    }
+
+    private static class PageCursor
+    {
+        private final Iterator<Page> pages;
+        private Page page;
+        private int position;
+
+        public PageCursor(Iterator<Page> pages)
+        {
+            this.pages = requireNonNull(pages, "pages is null");
+        }
+
+        public boolean advance()
+        {
+            position++;
+            while (page == null || position >= page.getPositionCount()) {
+                if (!pages.hasNext()) {
+                    return false;
+                }
+                page = pages.next();
+                position = 0;
+            }
+            return true;
+        }
+
+        public Page getPage()
+        {
+            return page;
+        }
+
+        public int getPosition()
+        {
+            return position;
+        }
+    }
+}
@@ -29,6 +29,7 @@ import java.lang.management.ManagementFactory;
 import java.lang.management.ThreadMXBean;
 import java.util.Optional;
 import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.function.Supplier;
@@ -82,6 +83,8 @@ public class OperatorContext
     private final AtomicLong finishUserNanos = new AtomicLong();
 
     private final AtomicLong memoryReservation = new AtomicLong();
+    private final AtomicLong revocableMemoryReservation = new AtomicLong();
+    private final AtomicBoolean memoryRevokingRequested = new AtomicBoolean();
     private final OperatorSystemMemoryContext systemMemoryContext;
 
     private final AtomicReference<Supplier<?>> infoSupplier = new AtomicReference<>();
@@ -215,7 +218,21 @@ public class OperatorContext
     public void reserveMemory(long bytes)
     {
         ListenableFuture<?> future = driverContext.reserveMemory(bytes);
-        if (!future.isDone()) {
+        updateMemoryFuture(future);
+        memoryReservation.addAndGet(bytes);
+    }
+
+    public void reserveRevocableMemory(long bytes)
+    {
+        ListenableFuture<?> future = driverContext.reserveRevocableMemory(bytes);
+        updateMemoryFuture(future);
+        revocableMemoryReservation.addAndGet(bytes);
+    }
+
+    private void updateMemoryFuture(ListenableFuture<?> future)
+    {
+        // don't block an operator that was asked to revoke its memory, otherwise it could not act on the request
+        if (!future.isDone() && !memoryRevokingRequested.get()) {
             SettableFuture<?> currentMemoryFuture = memoryFuture.get();
             while (currentMemoryFuture.isDone()) {
                 SettableFuture<?> settableFuture = SettableFuture.create();
@@ -245,7 +262,6 @@ public class OperatorContext
                 }
             });
         }
-        memoryReservation.addAndGet(bytes);
     }
 
     public void freeMemory(long bytes)
@@ -256,6 +272,14 @@ public class OperatorContext
         memoryReservation.getAndAdd(-bytes);
     }
 
+    public void freeRevocableMemory(long bytes)
+    {
+        checkArgument(bytes >= 0, "bytes is negative");
+        checkArgument(bytes <= revocableMemoryReservation.get(), "tried to free more revocable memory than is reserved");
+        driverContext.freeRevocableMemory(bytes);
+        revocableMemoryReservation.getAndAdd(-bytes);
+    }
+
     public AbstractAggregatedMemoryContext getSystemMemoryContext()
     {
         return systemMemoryContext;
@@ -305,6 +329,51 @@ public class OperatorContext
         }
     }
 
+    /**
+     * Sets the amount of memory held by this operator that can be released on request, e.g. by spilling.
+     * Revocable memory is not counted against the query memory limit. When the memory pool runs low,
+     * {@link #requestMemoryRevoking()} is called and the operator should release the memory as soon as possible.
+     */
+    public void setRevocableMemoryReservation(long newRevocableMemoryReservation)
+    {
+        checkArgument(newRevocableMemoryReservation >= 0, "newRevocableMemoryReservation is negative");
+
+        long delta = newRevocableMemoryReservation - revocableMemoryReservation.get();
+
+        if (delta > 0) {
+            reserveRevocableMemory(delta);
+        }
+        else {
+            freeRevocableMemory(-delta);
+        }
+    }
+
+    public long getReservedRevocableBytes()
+    {
+        return revocableMemoryReservation.get();
+    }
+
+    /**
+     * Asks the operator to release its revocable memory. The operator is unblocked if it is waiting
+     * for memory, so it can act on the request.
+     */
+    public void requestMemoryRevoking()
+    {
+        if (memoryRevokingRequested.compareAndSet(false, true)) {
+            memoryFuture.get().set(null);
+        }
+    }
+
+    public boolean isMemoryRevokingRequested()
+    {
+        return memoryRevokingRequested.get();
+    }
+
+    public void resetMemoryRevokingRequested()
+    {
+        memoryRevokingRequested.set(false);
+    }
+
     public boolean trySetMemoryReservation(long newMemoryReservation)
     {
         checkArgument(newMemoryReservation >= 0, "newMemoryReservation is negative");
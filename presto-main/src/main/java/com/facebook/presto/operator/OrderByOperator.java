@@ -15,15 +15,27 @@ package com.facebook.presto.operator;
 
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.PageBuilder;
+import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.SortOrder;
 import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.Spiller;
+import com.facebook.presto.spiller.SpillerFactory;
 import com.facebook.presto.sql.planner.plan.PlanNodeId;
 import com.google.common.collect.ImmutableList;
 import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.airlift.units.DataSize;
 
+import java.util.Iterator;
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 
+import static com.facebook.presto.operator.MergeSortedPages.mergeSortedPages;
 import static com.google.common.base.Preconditions.checkState;
+import static io.airlift.concurrent.MoreFutures.getFutureValue;
+import static io.airlift.concurrent.MoreFutures.toListenableFuture;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
 import static java.util.Objects.requireNonNull;
 
 public class OrderByOperator
@@ -40,6 +52,9 @@ public class OrderByOperator
         private final List<Integer> sortChannels;
         private final List<SortOrder> sortOrder;
         private final List<Type> types;
+        private final boolean spillEnabled;
+        private final DataSize memoryLimitBeforeSpill;
+        private final SpillerFactory spillerFactory;
         private boolean closed;
 
         public OrderByOperatorFactory(
@@ -50,6 +65,32 @@ public class OrderByOperator
                 int expectedPositions,
                 List<Integer> sortChannels,
                 List<SortOrder> sortOrder)
+        {
+            this(operatorId,
+                    planNodeId,
+                    sourceTypes,
+                    outputChannels,
+                    expectedPositions,
+                    sortChannels,
+                    sortOrder,
+                    false,
+                    new DataSize(0, MEGABYTE),
+                    types -> {
+                        throw new UnsupportedOperationException("Spilling is not enabled");
+                    });
+        }
+
+        public OrderByOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                List<? extends Type> sourceTypes,
+                List<Integer> outputChannels,
+                int expectedPositions,
+                List<Integer> sortChannels,
+                List<SortOrder> sortOrder,
+                boolean spillEnabled,
+                DataSize memoryLimitBeforeSpill,
+                SpillerFactory spillerFactory)
         {
             this.operatorId = operatorId;
             this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
@@ -58,6 +99,9 @@ public class OrderByOperator
             this.expectedPositions = expectedPositions;
             this.sortChannels = ImmutableList.copyOf(requireNonNull(sortChannels, "sortChannels is null"));
             this.sortOrder = ImmutableList.copyOf(requireNonNull(sortOrder, "sortOrder is null"));
+            this.spillEnabled = spillEnabled;
+            this.memoryLimitBeforeSpill = requireNonNull(memoryLimitBeforeSpill, "memoryLimitBeforeSpill is null");
+            this.spillerFactory = requireNonNull(spillerFactory, "spillerFactory is null");
 
             this.types = toTypes(sourceTypes, outputChannels);
         }
@@ -80,7 +124,10 @@ public class OrderByOperator
                     outputChannels,
                     expectedPositions,
                     sortChannels,
-                    sortOrder);
+                    sortOrder,
+                    spillEnabled,
+                    memoryLimitBeforeSpill,
+                    spillerFactory);
         }
 
         @Override
@@ -92,7 +139,17 @@ public class OrderByOperator
         @Override
         public OperatorFactory duplicate()
         {
-            return new OrderByOperatorFactory(operatorId, planNodeId, sourceTypes, outputChannels, expectedPositions, sortChannels, sortOrder);
+            return new OrderByOperatorFactory(
+                    operatorId,
+                    planNodeId,
+                    sourceTypes,
+                    outputChannels,
+                    expectedPositions,
+                    sortChannels,
+                    sortOrder,
+                    spillEnabled,
+                    memoryLimitBeforeSpill,
+                    spillerFactory);
         }
     }
 
@@ -104,16 +161,25 @@ public class OrderByOperator
     }
 
     private final OperatorContext operatorContext;
+    private final List<Type> sourceTypes;
     private final List<Integer> sortChannels;
     private final List<SortOrder> sortOrder;
     private final int[] outputChannels;
     private final List<Type> types;
+    private final boolean spillEnabled;
+    private final long memoryLimitBeforeSpill;
+    private final SpillerFactory spillerFactory;
 
     private final PagesIndex pageIndex;
 
     private final PageBuilder pageBuilder;
     private int currentPosition;
 
+    private Optional<Spiller> spiller = Optional.empty();
+    private CompletableFuture<?> spillInProgress = CompletableFuture.completedFuture(null);
+    private boolean pageIndexSpilled;
+    private Iterator<Page> mergedPages;
+
     private State state = State.NEEDS_INPUT;
 
     public OrderByOperator(
@@ -123,12 +189,40 @@ public class OrderByOperator
             int expectedPositions,
             List<Integer> sortChannels,
             List<SortOrder> sortOrder)
+    {
+        this(operatorContext,
+                sourceTypes,
+                outputChannels,
+                expectedPositions,
+                sortChannels,
+                sortOrder,
+                false,
+                new DataSize(0, MEGABYTE),
+                types -> {
+                    throw new UnsupportedOperationException("Spilling is not enabled");
+                });
+    }
+
+    public OrderByOperator(
+            OperatorContext operatorContext,
+            List<Type> sourceTypes,
+            List<Integer> outputChannels,
+            int expectedPositions,
+            List<Integer> sortChannels,
+            List<SortOrder> sortOrder,
+            boolean spillEnabled,
+            DataSize memoryLimitBeforeSpill,
+            SpillerFactory spillerFactory)
     {
         this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
+        this.sourceTypes = ImmutableList.copyOf(requireNonNull(sourceTypes, "sourceTypes is null"));
         this.outputChannels = Ints.toArray(requireNonNull(outputChannels, "outputChannels is null"));
         this.types = toTypes(sourceTypes, outputChannels);
         this.sortChannels = ImmutableList.copyOf(requireNonNull(sortChannels, "sortChannels is null"));
         this.sortOrder = ImmutableList.copyOf(requireNonNull(sortOrder, "sortOrder is null"));
+        this.spillEnabled = spillEnabled;
+        this.memoryLimitBeforeSpill = requireNonNull(memoryLimitBeforeSpill, "memoryLimitBeforeSpill is null").toBytes();
+        this.spillerFactory = requireNonNull(spillerFactory, "spillerFactory is null");
 
         this.pageIndex = new PagesIndex(sourceTypes, expectedPositions);
 
@@ -152,9 +246,12 @@ public class OrderByOperator
     {
         if (state == State.NEEDS_INPUT) {
             state = State.HAS_OUTPUT;
+            updateMemoryReservation();
 
-            // sort the index
-            pageIndex.sort(sortChannels, sortOrder);
+            // sort the index, spilled runs are merged with the index once the spill has finished
+            if (!spiller.isPresent()) {
+                pageIndex.sort(sortChannels, sortOrder);
+            }
         }
     }
 
@@ -167,7 +264,16 @@ public class OrderByOperator
     @Override
     public boolean needsInput()
     {
-        return state == State.NEEDS_INPUT;
+        return state == State.NEEDS_INPUT && hasPreviousSpillCompletedSuccessfully();
+    }
+
+    @Override
+    public ListenableFuture<?> isBlocked()
+    {
+        if (!spillInProgress.isDone()) {
+            return toListenableFuture(spillInProgress);
+        }
+        return NOT_BLOCKED;
     }
 
     @Override
@@ -176,8 +282,28 @@ public class OrderByOperator
         checkState(state == State.NEEDS_INPUT, "Operator is already finishing");
         requireNonNull(page, "page is null");
 
+        checkState(hasPreviousSpillCompletedSuccessfully(), "Previous spill hasn't yet finished");
+
         pageIndex.addPage(page);
-        operatorContext.setMemoryReservation(pageIndex.getEstimatedSize().toBytes());
+        updateMemoryReservation();
+
+        if (spillEnabled && (pageIndex.getEstimatedSize().toBytes() > memoryLimitBeforeSpill || operatorContext.isMemoryRevokingRequested())) {
+            spillToDisk();
+        }
+    }
+
+    private void updateMemoryReservation()
+    {
+        // the index can be spilled while the input is collected, so its memory is revocable until then
+        long bytes = pageIndex.getEstimatedSize().toBytes();
+        if (spillEnabled && state == State.NEEDS_INPUT) {
+            operatorContext.setMemoryReservation(0);
+            operatorContext.setRevocableMemoryReservation(bytes);
+        }
+        else {
+            operatorContext.setRevocableMemoryReservation(0);
+            operatorContext.setMemoryReservation(bytes);
+        }
     }
 
     @Override
@@ -187,6 +313,10 @@ public class OrderByOperator
             return null;
         }
 
+        if (spiller.isPresent()) {
+            return getMergedOutput();
+        }
+
         if (currentPosition >= pageIndex.getPositionCount()) {
             state = State.FINISHED;
             return null;
@@ -206,6 +336,72 @@ public class OrderByOperator
         return page;
     }
 
+    @Override
+    public void close()
+    {
+        if (spiller.isPresent()) {
+            spiller.get().close();
+        }
+    }
+
+    private Page getMergedOutput()
+    {
+        if (!hasPreviousSpillCompletedSuccessfully()) {
+            return null;
+        }
+
+        if (mergedPages == null) {
+            // merge the spilled runs with the rows that are still in memory
+            pageIndex.sort(sortChannels, sortOrder);
+            List<Iterator<Page>> sortedRuns = ImmutableList.<Iterator<Page>>builder()
+                    .addAll(spiller.get().getSpills())
+                    .add(pageIndex.getSortedPages())
+                    .build();
+            mergedPages = mergeSortedPages(sortedRuns, sourceTypes, sortChannels, sortOrder);
+        }
+
+        if (!mergedPages.hasNext()) {
+            state = State.FINISHED;
+            return null;
+        }
+
+        Page page = mergedPages.next();
+        Block[] blocks = new Block[outputChannels.length];
+        for (int i = 0; i < outputChannels.length; i++) {
+            blocks[i] = page.getBlock(outputChannels[i]);
+        }
+        return new Page(page.getPositionCount(), blocks);
+    }
+
+    private void spillToDisk()
+    {
+        if (!spiller.isPresent()) {
+            spiller = Optional.of(spillerFactory.create(sourceTypes));
+        }
+
+        // the spiller reads the sorted rows from the index, so the index is only cleared after the spill has finished
+        pageIndex.sort(sortChannels, sortOrder);
+        spillInProgress = spiller.get().spill(pageIndex.getSortedPages());
+        pageIndexSpilled = true;
+    }
+
+    private boolean hasPreviousSpillCompletedSuccessfully()
+    {
+        if (!spillInProgress.isDone()) {
+            return false;
+        }
+        // check for exception from previous spill for early failure
+        getFutureValue(spillInProgress);
+
+        if (pageIndexSpilled) {
+            pageIndexSpilled = false;
+            pageIndex.clear();
+            updateMemoryReservation();
+            operatorContext.resetMemoryRevokingRequested();
+        }
+        return true;
+    }
+
     private static List<Type> toTypes(List<? extends Type> sourceTypes, List<Integer> outputChannels)
     {
         ImmutableList.Builder<Type> types = ImmutableList.builder();
@@ -38,6 +38,8 @@ public class PageBufferClientStatus
     private final int requestsCompleted;
     private final int requestsFailed;
     private final String httpRequestState;
+    private final long compressionBytesSaved;
+    private final long decompressionNanos;
 
     @JsonCreator
     public PageBufferClientStatus(@JsonProperty("uri") URI uri,
@@ -50,7 +52,9 @@ public class PageBufferClientStatus
             @JsonProperty("requestsScheduled") int requestsScheduled,
             @JsonProperty("requestsCompleted") int requestsCompleted,
             @JsonProperty("requestsFailed") int requestsFailed,
-            @JsonProperty("httpRequestState") String httpRequestState)
+            @JsonProperty("httpRequestState") String httpRequestState,
+            @JsonProperty("compressionBytesSaved") long compressionBytesSaved,
+            @JsonProperty("decompressionNanos") long decompressionNanos)
     {
         this.uri = uri;
         this.state = state;
@@ -63,6 +67,8 @@ public class PageBufferClientStatus
         this.requestsCompleted = requestsCompleted;
         this.requestsFailed = requestsFailed;
         this.httpRequestState = httpRequestState;
+        this.compressionBytesSaved = compressionBytesSaved;
+        this.decompressionNanos = decompressionNanos;
     }
 
     @JsonProperty
@@ -131,6 +137,18 @@ public class PageBufferClientStatus
         return httpRequestState;
     }
 
+    @JsonProperty
+    public long getCompressionBytesSaved()
+    {
+        return compressionBytesSaved;
+    }
+
+    @JsonProperty
+    public long getDecompressionNanos()
+    {
+        return decompressionNanos;
+    }
+
     @Override
     public String toString()
     {
@@ -24,6 +24,7 @@ import com.facebook.presto.sql.gen.JoinCompiler;
 import com.facebook.presto.sql.gen.JoinCompiler.LookupSourceSupplierFactory;
 import com.facebook.presto.sql.gen.JoinFilterFunctionCompiler.JoinFilterFunctionFactory;
 import com.facebook.presto.sql.gen.OrderingCompiler;
+import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ImmutableList;
 import io.airlift.log.Logger;
 import io.airlift.slice.Slice;
@@ -32,6 +33,7 @@ import it.unimi.dsi.fastutil.Swapper;
 import it.unimi.dsi.fastutil.longs.LongArrayList;
 import it.unimi.dsi.fastutil.objects.ObjectArrayList;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
 import java.util.function.Supplier;
@@ -142,6 +144,61 @@ public class PagesIndex
         estimatedSize = calculateEstimatedSize();
     }
 
+    /**
+     * Returns the pages added to this index in insertion order, ignoring any sorting.
+     */
+    public Iterator<Page> getPages()
+    {
+        return new AbstractIterator<Page>()
+        {
+            private int pageCounter;
+
+            @Override
+            protected Page computeNext()
+            {
+                if (channels.length == 0 || pageCounter == channels[0].size()) {
+                    return endOfData();
+                }
+
+                Block[] blocks = new Block[channels.length];
+                for (int channel = 0; channel < channels.length; channel++) {
+                    blocks[channel] = channels[channel].get(pageCounter);
+                }
+                pageCounter++;
+                return new Page(blocks);
+            }
+        };
+    }
+
+    /**
+     * Returns all channels of the rows in the current position order, so the result is sorted after calling {@link #sort}.
+     */
+    public Iterator<Page> getSortedPages()
+    {
+        int[] outputChannels = new int[types.size()];
+        for (int channel = 0; channel < outputChannels.length; channel++) {
+            outputChannels[channel] = channel;
+        }
+        PageBuilder pageBuilder = new PageBuilder(types);
+
+        return new AbstractIterator<Page>()
+        {
+            private int currentPosition;
+
+            @Override
+            protected Page computeNext()
+            {
+                if (currentPosition >= positionCount) {
+                    return endOfData();
+                }
+
+                pageBuilder.reset();
+                currentPosition = buildPage(currentPosition, outputChannels, pageBuilder);
+                return pageBuilder.build();
+            }
+        };
+    }
+
     public DataSize getEstimatedSize()
     {
         return new DataSize(estimatedSize, BYTE);
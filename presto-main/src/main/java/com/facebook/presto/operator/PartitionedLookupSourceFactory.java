@@ -27,12 +27,14 @@ import javax.annotation.concurrent.GuardedBy;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.function.Supplier;
 
 import static com.facebook.presto.operator.OuterLookupSource.createOuterLookupSourceSupplier;
 import static com.facebook.presto.operator.PartitionedLookupSource.createPartitionedLookupSourceSupplier;
 import static com.facebook.presto.util.ImmutableCollectors.toImmutableList;
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static java.util.Objects.requireNonNull;
 
@@ -44,6 +46,7 @@ public final class PartitionedLookupSourceFactory
     private final List<Type> hashChannelTypes;
     private final Supplier<LookupSource>[] partitions;
     private final boolean outer;
+    private final Optional<SpilledLookupSources> spilledLookupSources;
     private final CompletableFuture<?> destroyed = new CompletableFuture<>();
 
     @GuardedBy("this")
@@ -56,11 +59,24 @@ public final class PartitionedLookupSourceFactory
     private final List<SettableFuture<LookupSource>> lookupSourceFutures = new ArrayList<>();
 
     public PartitionedLookupSourceFactory(List<Type> types, List<Integer> hashChannels, int partitionCount, Map<Symbol, Integer> layout, boolean outer)
+    {
+        this(types, hashChannels, partitionCount, layout, outer, Optional.empty());
+    }
+
+    public PartitionedLookupSourceFactory(
+            List<Type> types,
+            List<Integer> hashChannels,
+            int partitionCount,
+            Map<Symbol, Integer> layout,
+            boolean outer,
+            Optional<SpilledLookupSources> spilledLookupSources)
     {
         this.types = ImmutableList.copyOf(requireNonNull(types, "types is null"));
         this.layout = ImmutableMap.copyOf(layout);
         this.partitions = (Supplier<LookupSource>[]) new Supplier<?>[partitionCount];
         this.outer = outer;
+        this.spilledLookupSources = requireNonNull(spilledLookupSources, "spilledLookupSources is null");
+        checkArgument(!outer || !spilledLookupSources.isPresent(), "Spilling is not supported for outer lookup sources");
 
         hashChannelTypes = hashChannels.stream()
                 .map(types::get)
@@ -131,10 +147,17 @@ public final class PartitionedLookupSourceFactory
         }
     }
 
+    @Override
+    public Optional<SpilledLookupSources> getSpilledLookupSources()
+    {
+        return spilledLookupSources.filter(SpilledLookupSources::hasSpilledBuildPartitions);
+    }
+
     @Override
     public void destroy()
     {
         destroyed.complete(null);
+        spilledLookupSources.ifPresent(SpilledLookupSources::close);
     }
 
     public CompletableFuture<?> isDestroyed()
@@ -0,0 +1,189 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PageBuilder;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.Spiller;
+import com.facebook.presto.spiller.SpillerFactory;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterators;
+import com.google.common.io.Closer;
+import io.airlift.slice.XxHash64;
+
+import javax.annotation.concurrent.NotThreadSafe;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.Collections.emptyIterator;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Spills rows into a fixed number of partitions based on the raw hash of the rows,
+ * so the partitions can later be read back and processed one at a time.
+ */
+@NotThreadSafe
+public class PartitioningSpiller
+        implements Closeable
+{
+    private final List<Type> types;
+    private final HashGenerator hashGenerator;
+    private final int partitionCount;
+    private final SpillerFactory spillerFactory;
+    private final PageBuilder[] pageBuilders;
+    private final Spiller[] spillers;
+    private final CompletableFuture<?>[] partitionSpills;
+
+    private CompletableFuture<?> spillInProgress = CompletableFuture.completedFuture(null);
+    private boolean closed;
+
+    public PartitioningSpiller(List<Type> types, HashGenerator hashGenerator, int partitionCount, SpillerFactory spillerFactory)
+    {
+        this.types = ImmutableList.copyOf(requireNonNull(types, "types is null"));
+        this.hashGenerator = requireNonNull(hashGenerator, "hashGenerator is null");
+        checkArgument(Integer.bitCount(partitionCount) == 1, "partitionCount must be a power of 2");
+        this.partitionCount = partitionCount;
+        this.spillerFactory = requireNonNull(spillerFactory, "spillerFactory is null");
+
+        this.pageBuilders = new PageBuilder[partitionCount];
+        for (int partition = 0; partition < partitionCount; partition++) {
+            pageBuilders[partition] = new PageBuilder(types);
+        }
+        this.spillers = new Spiller[partitionCount];
+        this.partitionSpills = new CompletableFuture<?>[partitionCount];
+        Arrays.fill(partitionSpills, CompletableFuture.completedFuture(null));
+    }
+
+    public int getPartitionCount()
+    {
+        return partitionCount;
+    }
+
+    public static int getSpillPartition(long rawHash, int partitionCount)
+    {
+        // use other bits than the local exchange and the join hash table, so rows from
+        // a single local partition are spread over all spill partitions
+        return (int) (XxHash64.hash(rawHash) >>> 32) & (partitionCount - 1);
+    }
+
+    /**
+     * Buffers the rows of the pages in their partitions and spills the partitions that are full.
+     * Returns a future that is completed once all started spills have finished.
+     */
+    public CompletableFuture<?> spill(Iterator<Page> pages)
+    {
+        checkState(!closed, "Spiller is closed");
+        checkState(spillInProgress.isDone(), "Previous spill hasn't yet finished");
+
+        List<CompletableFuture<?>> spills = new ArrayList<>();
+        while (pages.hasNext()) {
+            Page page = pages.next();
+            for (int position = 0; position < page.getPositionCount(); position++) {
+                int partition = getSpillPartition(hashGenerator.hashPosition(position, page), partitionCount);
+                PageBuilder pageBuilder = pageBuilders[partition];
+                pageBuilder.declarePosition();
+                for (int channel = 0; channel < types.size(); channel++) {
+                    types.get(channel).appendTo(page.getBlock(channel), position, pageBuilder.getBlockBuilder(channel));
+                }
+            }
+
+            for (int partition = 0; partition < partitionCount; partition++) {
+                if (pageBuilders[partition].isFull()) {
+                    spills.add(spillPartition(partition));
+                }
+            }
+        }
+        spillInProgress = CompletableFuture.allOf(spills.toArray(new CompletableFuture<?>[spills.size()]));
+        return spillInProgress;
+    }
+
+    /**
+     * Spills all buffered rows. Returns a future that is completed once all spills have finished.
+     */
+    public CompletableFuture<?> flush()
+    {
+        checkState(!closed, "Spiller is closed");
+        checkState(spillInProgress.isDone(), "Previous spill hasn't yet finished");
+
+        List<CompletableFuture<?>> spills = new ArrayList<>();
+        for (int partition = 0; partition < partitionCount; partition++) {
+            if (!pageBuilders[partition].isEmpty()) {
+                spills.add(spillPartition(partition));
+            }
+        }
+        spillInProgress = CompletableFuture.allOf(spills.toArray(new CompletableFuture<?>[spills.size()]));
+        return spillInProgress;
+    }
+
+    /**
+     * Returns the rows spilled to the partition. All spills must have finished before calling this method.
+     */
+    public Iterator<Page> getSpilledPages(int partition)
+    {
+        checkState(!closed, "Spiller is closed");
+        checkState(spillInProgress.isDone(), "Spill hasn't yet finished");
+        checkState(pageBuilders[partition].isEmpty(), "Partition has not been flushed");
+
+        if (spillers[partition] == null) {
+            return emptyIterator();
+        }
+        return Iterators.concat(spillers[partition].getSpills().iterator());
+    }
+
+    private CompletableFuture<?> spillPartition(int partition)
+    {
+        Page page = pageBuilders[partition].build();
+        pageBuilders[partition].reset();
+
+        if (spillers[partition] == null) {
+            spillers[partition] = spillerFactory.create(types);
+        }
+        Spiller spiller = spillers[partition];
+
+        // all pages of a partition are appended to a single spilled stream, so a partition
+        // uses a single file no matter how much is spilled, and the appends must not overlap
+        partitionSpills[partition] = partitionSpills[partition].thenCompose(ignored -> spiller.append(Iterators.singletonIterator(page)));
+        return partitionSpills[partition];
+    }
+
+    @Override
+    public void close()
+    {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        try (Closer closer = Closer.create()) {
+            for (Spiller spiller : spillers) {
+                if (spiller != null) {
+                    closer.register(spiller);
+                }
+            }
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
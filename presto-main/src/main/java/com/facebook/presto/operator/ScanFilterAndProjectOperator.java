@@ -53,6 +53,7 @@ public class ScanFilterAndProjectOperator
     private final PageSourceProvider pageSourceProvider;
     private final List<Type> types;
     private final List<ColumnHandle> columns;
+    private final DynamicFilter dynamicFilter;
     private final PageBuilder pageBuilder;
     private final CursorProcessor cursorProcessor;
     private final PageProcessor pageProcessor;
@@ -81,6 +82,19 @@ public class ScanFilterAndProjectOperator
             PageProcessor pageProcessor,
             Iterable<ColumnHandle> columns,
             Iterable<Type> types)
+    {
+        this(operatorContext, sourceId, pageSourceProvider, cursorProcessor, pageProcessor, columns, types, DynamicFilter.all());
+    }
+
+    protected ScanFilterAndProjectOperator(
+            OperatorContext operatorContext,
+            PlanNodeId sourceId,
+            PageSourceProvider pageSourceProvider,
+            CursorProcessor cursorProcessor,
+            PageProcessor pageProcessor,
+            Iterable<ColumnHandle> columns,
+            Iterable<Type> types,
+            DynamicFilter dynamicFilter)
     {
         this.cursorProcessor = requireNonNull(cursorProcessor, "cursorProcessor is null");
         this.pageProcessor = requireNonNull(pageProcessor, "pageProcessor is null");
@@ -89,6 +103,7 @@ public class ScanFilterAndProjectOperator
         this.pageSourceProvider = requireNonNull(pageSourceProvider, "pageSourceProvider is null");
         this.types = ImmutableList.copyOf(requireNonNull(types, "types is null"));
         this.columns = ImmutableList.copyOf(requireNonNull(columns, "columns is null"));
+        this.dynamicFilter = requireNonNull(dynamicFilter, "dynamicFilter is null");
         this.pageSourceMemoryContext = operatorContext.getSystemMemoryContext().newLocalMemoryContext();
         this.pageBuilderMemoryContext = operatorContext.getSystemMemoryContext().newLocalMemoryContext();
         this.processingOptimization = getProcessingOptimization(operatorContext.getSession());
@@ -186,6 +201,10 @@ public class ScanFilterAndProjectOperator
     @Override
     public ListenableFuture<?> isBlocked()
     {
+        if (blocked.isDone() && !finishing && split != null && pageSource == null && cursor == null) {
+            // wait for the builds of the joins this scan is probing, so the split can be filtered
+            return dynamicFilter.isComplete();
+        }
         return blocked;
     }
 
@@ -210,7 +229,10 @@ public class ScanFilterAndProjectOperator
 
         if (!finishing) {
             if ((pageSource == null) && (cursor == null)) {
-                ConnectorPageSource source = pageSourceProvider.createPageSource(operatorContext.getSession(), split, columns);
+                if (!dynamicFilter.isComplete().isDone()) {
+                    return null;
+                }
+                ConnectorPageSource source = pageSourceProvider.createPageSource(operatorContext.getSession(), split, columns, dynamicFilter.getPredicate());
                 if (source instanceof RecordPageSource) {
                     cursor = ((RecordPageSource) source).getCursor();
                 }
@@ -305,6 +327,7 @@ public class ScanFilterAndProjectOperator
         private final PageSourceProvider pageSourceProvider;
         private final List<ColumnHandle> columns;
         private final List<Type> types;
+        private final DynamicFilter dynamicFilter;
         private boolean closed;
 
         public ScanFilterAndProjectOperatorFactory(
@@ -316,6 +339,20 @@ public class ScanFilterAndProjectOperator
                 Supplier<PageProcessor> pageProcessor,
                 Iterable<ColumnHandle> columns,
                 List<Type> types)
+        {
+            this(operatorId, planNodeId, sourceId, pageSourceProvider, cursorProcessor, pageProcessor, columns, types, DynamicFilter.all());
+        }
+
+        public ScanFilterAndProjectOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                PlanNodeId sourceId,
+                PageSourceProvider pageSourceProvider,
+                Supplier<CursorProcessor> cursorProcessor,
+                Supplier<PageProcessor> pageProcessor,
+                Iterable<ColumnHandle> columns,
+                List<Type> types,
+                DynamicFilter dynamicFilter)
         {
             this.operatorId = operatorId;
             this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
@@ -325,6 +362,7 @@ public class ScanFilterAndProjectOperator
             this.pageSourceProvider = requireNonNull(pageSourceProvider, "pageSourceProvider is null");
             this.columns = ImmutableList.copyOf(requireNonNull(columns, "columns is null"));
             this.types = requireNonNull(types, "types is null");
+            this.dynamicFilter = requireNonNull(dynamicFilter, "dynamicFilter is null");
         }
 
         @Override
@@ -351,7 +389,8 @@ public class ScanFilterAndProjectOperator
                     cursorProcessor.get(),
                     pageProcessor.get(),
                     columns,
-                    types);
+                    types,
+                    dynamicFilter);
         }
 
         @Override
@@ -0,0 +1,173 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.SpillerFactory;
+import com.google.common.collect.ImmutableList;
+
+import javax.annotation.concurrent.GuardedBy;
+import javax.annotation.concurrent.ThreadSafe;
+
+import java.io.Closeable;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Hash build partitions that were spilled to disk. Each spilled build partition is split
+ * into spill partitions, and the probe side spills its matching rows with the same
+ * partitioning. After the probe input is exhausted, the spill partitions are joined one
+ * by one, so only a single spill partition of the build side needs to fit in memory.
+ */
+@ThreadSafe
+public class SpilledLookupSources
+        implements Closeable
+{
+    public static final int SPILL_PARTITION_COUNT = 8;
+
+    private final List<Type> buildTypes;
+    private final int buildPartitionCount;
+    private final SpillerFactory spillerFactory;
+
+    @GuardedBy("this")
+    private final Map<Integer, PartitioningSpiller> spilledBuildPartitions = new HashMap<>();
+
+    @GuardedBy("this")
+    private Function<PagesIndex, Supplier<LookupSource>> lookupSourceSupplierFactory;
+
+    @GuardedBy("this")
+    private final Supplier<LookupSource>[] loadedLookupSources;
+
+    @GuardedBy("this")
+    private final int[] loadedLookupSourceReferences;
+
+    @GuardedBy("this")
+    private boolean closed;
+
+    public SpilledLookupSources(List<Type> buildTypes, int buildPartitionCount, SpillerFactory spillerFactory)
+    {
+        this.buildTypes = ImmutableList.copyOf(requireNonNull(buildTypes, "buildTypes is null"));
+        checkArgument(Integer.bitCount(buildPartitionCount) == 1, "buildPartitionCount must be a power of 2");
+        this.buildPartitionCount = buildPartitionCount;
+        this.spillerFactory = requireNonNull(spillerFactory, "spillerFactory is null");
+        this.loadedLookupSources = (Supplier<LookupSource>[]) new Supplier<?>[SPILL_PARTITION_COUNT];
+        this.loadedLookupSourceReferences = new int[SPILL_PARTITION_COUNT];
+    }
+
+    public int getBuildPartitionCount()
+    {
+        return buildPartitionCount;
+    }
+
+    public int getSpillPartitionCount()
+    {
+        return SPILL_PARTITION_COUNT;
+    }
+
+    public PartitioningSpiller createBuildSpiller(HashGenerator buildHashGenerator)
+    {
+        return new PartitioningSpiller(buildTypes, buildHashGenerator, SPILL_PARTITION_COUNT, spillerFactory);
+    }
+
+    public PartitioningSpiller createProbeSpiller(List<Type> probeTypes, HashGenerator probeHashGenerator)
+    {
+        return new PartitioningSpiller(probeTypes, probeHashGenerator, SPILL_PARTITION_COUNT, spillerFactory);
+    }
+
+    /**
+     * Registers a build partition whose rows were spilled with a spiller created by {@link #createBuildSpiller}.
+     * The spiller must be flushed and is closed together with this object.
+     */
+    public synchronized void addSpilledBuildPartition(
+            int buildPartition,
+            PartitioningSpiller spiller,
+            Function<PagesIndex, Supplier<LookupSource>> lookupSourceSupplierFactory)
+    {
+        requireNonNull(spiller, "spiller is null");
+        if (closed) {
+            spiller.close();
+            return;
+        }
+        checkState(!spilledBuildPartitions.containsKey(buildPartition), "Partition already spilled");
+        spilledBuildPartitions.put(buildPartition, spiller);
+        this.lookupSourceSupplierFactory = requireNonNull(lookupSourceSupplierFactory, "lookupSourceSupplierFactory is null");
+    }
+
+    public synchronized boolean hasSpilledBuildPartitions()
+    {
+        return !spilledBuildPartitions.isEmpty();
+    }
+
+    public synchronized boolean[] getSpilledBuildPartitions()
+    {
+        boolean[] spilled = new boolean[buildPartitionCount];
+        for (int buildPartition : spilledBuildPartitions.keySet()) {
+            spilled[buildPartition] = true;
+        }
+        return spilled;
+    }
+
+    /**
+     * Loads the spilled build rows of the spill partition into a lookup source. Every call
+     * must be followed by a call to {@link #releaseLookupSource} once the caller is done.
+     */
+    public synchronized LookupSource acquireLookupSource(int spillPartition)
+    {
+        checkState(!closed, "Spilled lookup sources are closed");
+        if (loadedLookupSources[spillPartition] == null) {
+            PagesIndex index = new PagesIndex(buildTypes, 10_000);
+            for (PartitioningSpiller spiller : spilledBuildPartitions.values()) {
+                Iterator<Page> pages = spiller.getSpilledPages(spillPartition);
+                while (pages.hasNext()) {
+                    index.addPage(pages.next());
+                }
+            }
+            loadedLookupSources[spillPartition] = lookupSourceSupplierFactory.apply(index);
+        }
+        loadedLookupSourceReferences[spillPartition]++;
+        return loadedLookupSources[spillPartition].get();
+    }
+
+    public synchronized void releaseLookupSource(int spillPartition)
+    {
+        checkState(loadedLookupSourceReferences[spillPartition] > 0, "Lookup source is not acquired");
+        loadedLookupSourceReferences[spillPartition]--;
+        if (loadedLookupSourceReferences[spillPartition] == 0) {
+            // the partition can be loaded again from disk if another probe needs it later
+            loadedLookupSources[spillPartition] = null;
+        }
+    }
+
+    @Override
+    public synchronized void close()
+    {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        for (PartitioningSpiller spiller : spilledBuildPartitions.values()) {
+            spiller.close();
+        }
+        spilledBuildPartitions.clear();
+    }
+}
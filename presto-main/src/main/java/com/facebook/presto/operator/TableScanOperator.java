@@ -47,6 +47,7 @@ public class TableScanOperator
         private final PageSourceProvider pageSourceProvider;
         private final List<Type> types;
         private final List<ColumnHandle> columns;
+        private final DynamicFilter dynamicFilter;
         private boolean closed;
 
         public TableScanOperatorFactory(
@@ -55,12 +56,24 @@ public class TableScanOperator
                 PageSourceProvider pageSourceProvider,
                 List<Type> types,
                 Iterable<ColumnHandle> columns)
+        {
+            this(operatorId, sourceId, pageSourceProvider, types, columns, DynamicFilter.all());
+        }
+
+        public TableScanOperatorFactory(
+                int operatorId,
+                PlanNodeId sourceId,
+                PageSourceProvider pageSourceProvider,
+                List<Type> types,
+                Iterable<ColumnHandle> columns,
+                DynamicFilter dynamicFilter)
         {
             this.operatorId = operatorId;
             this.sourceId = requireNonNull(sourceId, "sourceId is null");
             this.types = requireNonNull(types, "types is null");
             this.pageSourceProvider = requireNonNull(pageSourceProvider, "pageSourceProvider is null");
             this.columns = ImmutableList.copyOf(requireNonNull(columns, "columns is null"));
+            this.dynamicFilter = requireNonNull(dynamicFilter, "dynamicFilter is null");
         }
 
         @Override
@@ -85,7 +98,8 @@ public class TableScanOperator
                     sourceId,
                     pageSourceProvider,
                     types,
-                    columns);
+                    columns,
+                    dynamicFilter);
         }
 
         @Override
@@ -100,6 +114,7 @@ public class TableScanOperator
     private final PageSourceProvider pageSourceProvider;
     private final List<Type> types;
     private final List<ColumnHandle> columns;
+    private final DynamicFilter dynamicFilter;
     private final LocalMemoryContext systemMemoryContext;
     private final SettableFuture<?> blocked = SettableFuture.create();
 
@@ -117,12 +132,24 @@ public class TableScanOperator
             PageSourceProvider pageSourceProvider,
             List<Type> types,
             Iterable<ColumnHandle> columns)
+    {
+        this(operatorContext, planNodeId, pageSourceProvider, types, columns, DynamicFilter.all());
+    }
+
+    public TableScanOperator(
+            OperatorContext operatorContext,
+            PlanNodeId planNodeId,
+            PageSourceProvider pageSourceProvider,
+            List<Type> types,
+            Iterable<ColumnHandle> columns,
+            DynamicFilter dynamicFilter)
     {
         this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
         this.planNodeId = requireNonNull(planNodeId, "planNodeId is null");
         this.types = requireNonNull(types, "types is null");
         this.pageSourceProvider = requireNonNull(pageSourceProvider, "pageSourceProvider is null");
         this.columns = ImmutableList.copyOf(requireNonNull(columns, "columns is null"));
+        this.dynamicFilter = requireNonNull(dynamicFilter, "dynamicFilter is null");
         this.systemMemoryContext = operatorContext.getSystemMemoryContext().newLocalMemoryContext();
     }
 
@@ -219,6 +246,10 @@ public class TableScanOperator
     @Override
     public ListenableFuture<?> isBlocked()
     {
+        if (blocked.isDone() && !finished && split != null && source == null) {
+            // wait for the builds of the joins this scan is probing, so the split can be filtered
+            return dynamicFilter.isComplete();
+        }
         return blocked;
     }
 
@@ -241,7 +272,10 @@ public class TableScanOperator
             return null;
         }
         if (source == null) {
-            source = pageSourceProvider.createPageSource(operatorContext.getSession(), split, columns);
+            if (!dynamicFilter.isComplete().isDone()) {
+                return null;
+            }
+            source = pageSourceProvider.createPageSource(operatorContext.getSession(), split, columns, dynamicFilter.getPredicate());
         }
 
         Page page = source.getNextPage();
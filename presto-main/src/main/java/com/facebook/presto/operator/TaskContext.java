@@ -53,6 +53,7 @@ public class TaskContext
     private final Session session;
 
     private final AtomicLong memoryReservation = new AtomicLong();
+    private final AtomicLong revocableMemoryReservation = new AtomicLong();
     private final AtomicLong systemMemoryReservation = new AtomicLong();
 
     private final long createNanos = System.nanoTime();
@@ -156,6 +157,15 @@ public class TaskContext
         return future;
     }
 
+    public synchronized ListenableFuture<?> reserveRevocableMemory(long bytes)
+    {
+        checkArgument(bytes >= 0, "bytes is negative");
+
+        ListenableFuture<?> future = queryContext.reserveRevocableMemory(bytes);
+        revocableMemoryReservation.getAndAdd(bytes);
+        return future;
+    }
+
     public synchronized ListenableFuture<?> reserveSystemMemory(long bytes)
     {
         checkArgument(bytes >= 0, "bytes is negative");
@@ -183,6 +193,14 @@ public class TaskContext
         queryContext.freeMemory(bytes);
     }
 
+    public synchronized void freeRevocableMemory(long bytes)
+    {
+        checkArgument(bytes >= 0, "bytes is negative");
+        checkArgument(bytes <= revocableMemoryReservation.get(), "tried to free more revocable memory than is reserved");
+        revocableMemoryReservation.getAndAdd(-bytes);
+        queryContext.freeRevocableMemory(bytes);
+    }
+
     public synchronized void freeSystemMemory(long bytes)
     {
         checkArgument(bytes >= 0, "bytes is negative");
@@ -196,6 +214,16 @@ public class TaskContext
         pipelineContexts.stream().forEach(PipelineContext::moreMemoryAvailable);
     }
 
+    public long getRevocableMemoryReservation()
+    {
+        return revocableMemoryReservation.get();
+    }
+
+    public List<PipelineContext> getPipelineContexts()
+    {
+        return ImmutableList.copyOf(pipelineContexts);
+    }
+
     public boolean isVerboseStats()
     {
         return verboseStats;
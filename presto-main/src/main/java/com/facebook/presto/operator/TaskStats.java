@@ -371,6 +371,11 @@ public class TaskStats
     }
 
     public TaskStats summarize()
+    {
+        return withPipelines(ImmutableList.of());
+    }
+
+    public TaskStats withPipelines(List<PipelineStats> pipelines)
     {
         return new TaskStats(
                 createTime,
@@ -401,6 +406,6 @@ public class TaskStats
                 processedInputPositions,
                 outputDataSize,
                 outputPositions,
-                ImmutableList.<PipelineStats>of());
+                pipelines);
     }
 }
@@ -20,22 +20,32 @@ import com.facebook.presto.spi.PageBuilder;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.SortOrder;
 import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.Spiller;
+import com.facebook.presto.spiller.SpillerFactory;
 import com.facebook.presto.sql.planner.plan.PlanNodeId;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterables;
 import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.airlift.units.DataSize;
 
+import java.util.Iterator;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
 import java.util.stream.Stream;
 
+import static com.facebook.presto.operator.MergeSortedPages.mergeSortedPages;
 import static com.facebook.presto.spi.block.SortOrder.ASC_NULLS_LAST;
 import static com.facebook.presto.util.ImmutableCollectors.toImmutableList;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkPositionIndex;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.collect.Iterables.concat;
+import static io.airlift.concurrent.MoreFutures.getFutureValue;
+import static io.airlift.concurrent.MoreFutures.toListenableFuture;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
 import static java.util.Collections.nCopies;
 import static java.util.Objects.requireNonNull;
 
@@ -57,6 +67,9 @@ public class WindowOperator
         private final int preSortedChannelPrefix;
         private final int expectedPositions;
         private final List<Type> types;
+        private final boolean spillEnabled;
+        private final DataSize memoryLimitBeforeSpill;
+        private final SpillerFactory spillerFactory;
         private boolean closed;
 
         public WindowOperatorFactory(
@@ -71,6 +84,40 @@ public class WindowOperator
                 List<SortOrder> sortOrder,
                 int preSortedChannelPrefix,
                 int expectedPositions)
+        {
+            this(operatorId,
+                    planNodeId,
+                    sourceTypes,
+                    outputChannels,
+                    windowFunctionDefinitions,
+                    partitionChannels,
+                    preGroupedChannels,
+                    sortChannels,
+                    sortOrder,
+                    preSortedChannelPrefix,
+                    expectedPositions,
+                    false,
+                    new DataSize(0, MEGABYTE),
+                    types -> {
+                        throw new UnsupportedOperationException("Spilling is not enabled");
+                    });
+        }
+
+        public WindowOperatorFactory(
+                int operatorId,
+                PlanNodeId planNodeId,
+                List<? extends Type> sourceTypes,
+                List<Integer> outputChannels,
+                List<WindowFunctionDefinition> windowFunctionDefinitions,
+                List<Integer> partitionChannels,
+                List<Integer> preGroupedChannels,
+                List<Integer> sortChannels,
+                List<SortOrder> sortOrder,
+                int preSortedChannelPrefix,
+                int expectedPositions,
+                boolean spillEnabled,
+                DataSize memoryLimitBeforeSpill,
+                SpillerFactory spillerFactory)
         {
             requireNonNull(sourceTypes, "sourceTypes is null");
             requireNonNull(planNodeId, "planNodeId is null");
@@ -96,6 +143,9 @@ public class WindowOperator
             this.sortOrder = ImmutableList.copyOf(sortOrder);
             this.preSortedChannelPrefix = preSortedChannelPrefix;
             this.expectedPositions = expectedPositions;
+            this.spillEnabled = spillEnabled;
+            this.memoryLimitBeforeSpill = requireNonNull(memoryLimitBeforeSpill, "memoryLimitBeforeSpill is null");
+            this.spillerFactory = requireNonNull(spillerFactory, "spillerFactory is null");
             this.types = Stream.concat(
                     outputChannels.stream()
                             .map(sourceTypes::get),
@@ -126,7 +176,10 @@ public class WindowOperator
                     sortChannels,
                     sortOrder,
                     preSortedChannelPrefix,
-                    expectedPositions);
+                    expectedPositions,
+                    spillEnabled,
+                    memoryLimitBeforeSpill,
+                    spillerFactory);
         }
 
         @Override
@@ -149,7 +202,10 @@ public class WindowOperator
                 sortChannels,
                 sortOrder,
                 preSortedChannelPrefix,
-                expectedPositions);
+                expectedPositions,
+                spillEnabled,
+                memoryLimitBeforeSpill,
+                spillerFactory);
         }
     }
 
@@ -168,7 +224,13 @@ public class WindowOperator
     private final List<SortOrder> ordering;
     private final List<Type> types;
 
+    private final List<Type> sourceTypes;
     private final int[] preGroupedChannels;
+    private final List<Type> preGroupedTypes;
+    private final int[] unGroupedPartitionChannels;
+    private final boolean spillEnabled;
+    private final long memoryLimitBeforeSpill;
+    private final SpillerFactory spillerFactory;
 
     private final PagesHashStrategy preGroupedPartitionHashStrategy;
     private final PagesHashStrategy unGroupedPartitionHashStrategy;
@@ -185,6 +247,15 @@ public class WindowOperator
 
     private Page pendingInput;
 
+    // a pre-grouped partition that exceeds the memory limit is sorted in runs that are spilled to disk
+    private Optional<Spiller> spiller = Optional.empty();
+    private CompletableFuture<?> spillInProgress = CompletableFuture.completedFuture(null);
+    private boolean pagesIndexSpilled;
+    private Page spilledPreGroupRow;
+    private boolean mergeSpilledRuns;
+    private Iterator<Page> mergedPages;
+    private Page pendingMergedPage;
+
     public WindowOperator(
             OperatorContext operatorContext,
             List<Type> sourceTypes,
@@ -196,6 +267,38 @@ public class WindowOperator
             List<SortOrder> sortOrder,
             int preSortedChannelPrefix,
             int expectedPositions)
+    {
+        this(operatorContext,
+                sourceTypes,
+                outputChannels,
+                windowFunctionDefinitions,
+                partitionChannels,
+                preGroupedChannels,
+                sortChannels,
+                sortOrder,
+                preSortedChannelPrefix,
+                expectedPositions,
+                false,
+                new DataSize(0, MEGABYTE),
+                types -> {
+                    throw new UnsupportedOperationException("Spilling is not enabled");
+                });
+    }
+
+    public WindowOperator(
+            OperatorContext operatorContext,
+            List<Type> sourceTypes,
+            List<Integer> outputChannels,
+            List<WindowFunctionDefinition> windowFunctionDefinitions,
+            List<Integer> partitionChannels,
+            List<Integer> preGroupedChannels,
+            List<Integer> sortChannels,
+            List<SortOrder> sortOrder,
+            int preSortedChannelPrefix,
+            int expectedPositions,
+            boolean spillEnabled,
+            DataSize memoryLimitBeforeSpill,
+            SpillerFactory spillerFactory)
     {
         requireNonNull(operatorContext, "operatorContext is null");
         requireNonNull(outputChannels, "outputChannels is null");
@@ -222,13 +325,18 @@ public class WindowOperator
                         .map(WindowFunctionDefinition::getType))
                 .collect(toImmutableList());
 
+        this.sourceTypes = ImmutableList.copyOf(sourceTypes);
         this.pagesIndex = new PagesIndex(sourceTypes, expectedPositions);
         this.preGroupedChannels = Ints.toArray(preGroupedChannels);
+        this.preGroupedTypes = preGroupedChannels.stream()
+                .map(sourceTypes::get)
+                .collect(toImmutableList());
         this.preGroupedPartitionHashStrategy = pagesIndex.createPagesHashStrategy(preGroupedChannels, Optional.<Integer>empty());
         List<Integer> unGroupedPartitionChannels = partitionChannels.stream()
                 .filter(channel -> !preGroupedChannels.contains(channel))
                 .collect(toImmutableList());
         this.unGroupedPartitionHashStrategy = pagesIndex.createPagesHashStrategy(unGroupedPartitionChannels, Optional.empty());
+        this.unGroupedPartitionChannels = Ints.toArray(unGroupedPartitionChannels);
         List<Integer> preSortedChannels = sortChannels.stream()
                 .limit(preSortedChannelPrefix)
                 .collect(toImmutableList());
@@ -247,6 +355,12 @@ public class WindowOperator
             this.orderChannels = ImmutableList.copyOf(concat(unGroupedPartitionChannels, sortChannels));
             this.ordering = ImmutableList.copyOf(concat(nCopies(unGroupedPartitionChannels.size(), ASC_NULLS_LAST), sortOrder));
         }
+
+        // spilled runs can only be merged when the whole pre-grouped partition is sorted, and only
+        // help when the partition can be split further into window partitions
+        this.spillEnabled = spillEnabled && preSortedChannelPrefix == 0 && !unGroupedPartitionChannels.isEmpty();
+        this.memoryLimitBeforeSpill = requireNonNull(memoryLimitBeforeSpill, "memoryLimitBeforeSpill is null").toBytes();
+        this.spillerFactory = requireNonNull(spillerFactory, "spillerFactory is null");
     }
 
     @Override
@@ -268,8 +382,9 @@ public class WindowOperator
             return;
         }
         if (state == State.NEEDS_INPUT) {
+            checkState(hasPreviousSpillCompletedSuccessfully(), "Previous spill hasn't yet finished");
             // Since was waiting for more input, prepare what we have for output since we will not be getting any more input
-            sortPagesIndexIfNecessary();
+            finishPreGroupedPartition();
         }
         state = State.FINISHING;
     }
@@ -283,7 +398,16 @@ public class WindowOperator
     @Override
     public boolean needsInput()
     {
-        return state == State.NEEDS_INPUT;
+        return state == State.NEEDS_INPUT && hasPreviousSpillCompletedSuccessfully();
+    }
+
+    @Override
+    public ListenableFuture<?> isBlocked()
+    {
+        if (!spillInProgress.isDone()) {
+            return toListenableFuture(spillInProgress);
+        }
+        return NOT_BLOCKED;
     }
 
     @Override
@@ -292,6 +416,7 @@ public class WindowOperator
         checkState(state == State.NEEDS_INPUT, "Operator can not take input at this time");
         requireNonNull(page, "page is null");
         checkState(pendingInput == null, "Operator already has pending input");
+        checkState(hasPreviousSpillCompletedSuccessfully(), "Previous spill hasn't yet finished");
 
         if (page.getPositionCount() == 0) {
             return;
@@ -301,7 +426,25 @@ public class WindowOperator
         if (processPendingInput()) {
             state = State.HAS_OUTPUT;
         }
-        operatorContext.setMemoryReservation(pagesIndex.getEstimatedSize().toBytes());
+        updateMemoryReservation();
+
+        if (state == State.NEEDS_INPUT && spillEnabled && (pagesIndex.getEstimatedSize().toBytes() > memoryLimitBeforeSpill || operatorContext.isMemoryRevokingRequested())) {
+            spillToDisk();
+        }
+    }
+
+    private void updateMemoryReservation()
+    {
+        // the index can be spilled while the input is collected, so its memory is revocable until then
+        long bytes = pagesIndex.getEstimatedSize().toBytes();
+        if (spillEnabled && state == State.NEEDS_INPUT) {
+            operatorContext.setMemoryReservation(0);
+            operatorContext.setRevocableMemoryReservation(bytes);
+        }
+        else {
+            operatorContext.setRevocableMemoryReservation(0);
+            operatorContext.setMemoryReservation(bytes);
+        }
     }
 
     /**
@@ -314,7 +457,7 @@ public class WindowOperator
 
         // If we have unused input or are finishing, then we have buffered a full group
         if (pendingInput != null || state == State.FINISHING) {
-            sortPagesIndexIfNecessary();
+            finishPreGroupedPartition();
             return true;
         }
         else {
@@ -332,7 +475,7 @@ public class WindowOperator
 
         // TODO: Fix pagesHashStrategy to allow specifying channels for comparison, it currently requires us to rearrange the right side blocks in consecutive channel order
         Page preGroupedPage = rearrangePage(page, preGroupedChannels);
-        if (pagesIndex.getPositionCount() == 0 || pagesIndex.positionEqualsRow(preGroupedPartitionHashStrategy, 0, 0, preGroupedPage)) {
+        if (pagesIndex.getPositionCount() == 0 ? isSpilledPreGroup(preGroupedPage) : pagesIndex.positionEqualsRow(preGroupedPartitionHashStrategy, 0, 0, preGroupedPage)) {
             // Find the position where the pre-grouped columns change
             int groupEnd = findGroupEnd(preGroupedPage, preGroupedPartitionHashStrategy, 0);
 
@@ -354,6 +497,14 @@ public class WindowOperator
         }
     }
 
+    /**
+     * @return true if nothing is spilled or if the first row of the page belongs to the spilled pre-grouped partition
+     */
+    private boolean isSpilledPreGroup(Page preGroupedPage)
+    {
+        return spilledPreGroupRow == null || preGroupedPartitionHashStrategy.rowEqualsRow(0, spilledPreGroupRow, 0, preGroupedPage);
+    }
+
     private static Page rearrangePage(Page page, int[] channels)
     {
         Block[] newBlocks = new Block[channels.length];
@@ -369,9 +520,12 @@ public class WindowOperator
         if (state == State.NEEDS_INPUT || state == State.FINISHED) {
             return null;
         }
+        if (!hasPreviousSpillCompletedSuccessfully()) {
+            return null;
+        }
 
         Page page = extractOutput();
-        operatorContext.setMemoryReservation(pagesIndex.getEstimatedSize().toBytes());
+        updateMemoryReservation();
         return page;
     }
 
@@ -389,19 +543,21 @@ public class WindowOperator
                     partition = null;
                     pagesIndex.clear();
 
-                    // Try to extract more partitions from the pendingInput
-                    if (pendingInput != null && processPendingInput()) {
+                    // Load the next partitions of a spilled pre-grouped partition, or try to extract more partitions from the pendingInput
+                    if (loadMergedPartitions()) {
+                        partitionStart = 0;
+                    }
+                    else if (pendingInput != null && processPendingInput()) {
+                        if (pagesIndexSpilled) {
+                            // the rest of the pre-grouped partition is being spilled, so its partitions can only be loaded after the spill
+                            return flushPageBuilder();
+                        }
                         partitionStart = 0;
                     }
                     else if (state == State.FINISHING) {
                         state = State.FINISHED;
                         // Output the remaining page if we have anything buffered
-                        if (!pageBuilder.isEmpty()) {
-                            Page page = pageBuilder.build();
-                            pageBuilder.reset();
-                            return page;
-                        }
-                        return null;
+                        return flushPageBuilder();
                     }
                     else {
                         state = State.NEEDS_INPUT;
@@ -421,6 +577,145 @@ public class WindowOperator
         return page;
     }
 
+    private Page flushPageBuilder()
+    {
+        if (pageBuilder.isEmpty()) {
+            return null;
+        }
+        Page page = pageBuilder.build();
+        pageBuilder.reset();
+        return page;
+    }
+
+    @Override
+    public void close()
+    {
+        if (spiller.isPresent()) {
+            spiller.get().close();
+        }
+    }
+
+    private void finishPreGroupedPartition()
+    {
+        if (spiller.isPresent()) {
+            // spill the remaining rows, so the partition can be read back by merging the sorted runs
+            spillToDisk();
+            mergeSpilledRuns = true;
+        }
+        else {
+            sortPagesIndexIfNecessary();
+        }
+    }
+
+    private void spillToDisk()
+    {
+        if (!spiller.isPresent()) {
+            spiller = Optional.of(spillerFactory.create(sourceTypes));
+            if (preGroupedChannels.length > 0) {
+                spilledPreGroupRow = getPreGroupRow();
+            }
+        }
+
+        // the spiller reads the sorted rows from the index, so the index is only cleared after the spill has finished
+        pagesIndex.sort(orderChannels, ordering);
+        spillInProgress = spiller.get().spill(pagesIndex.getSortedPages());
+        pagesIndexSpilled = true;
+    }
+
+    private Page getPreGroupRow()
+    {
+        PageBuilder preGroupRowBuilder = new PageBuilder(preGroupedTypes);
+        preGroupRowBuilder.declarePosition();
+        for (int i = 0; i < preGroupedChannels.length; i++) {
+            pagesIndex.appendTo(preGroupedChannels[i], 0, preGroupRowBuilder.getBlockBuilder(i));
+        }
+        return preGroupRowBuilder.build();
+    }
+
+    private boolean hasPreviousSpillCompletedSuccessfully()
+    {
+        if (!spillInProgress.isDone()) {
+            return false;
+        }
+        // check for exception from previous spill for early failure
+        getFutureValue(spillInProgress);
+
+        if (pagesIndexSpilled) {
+            pagesIndexSpilled = false;
+            pagesIndex.clear();
+            updateMemoryReservation();
+            operatorContext.resetMemoryRevokingRequested();
+        }
+        return true;
+    }
+
+    /**
+     * Loads complete partitions of the merged spilled runs into the empty pagesIndex,
+     * stopping at the first partition boundary after the memory limit is exceeded.
+     *
+     * @return true if any rows were loaded, false if there are no spilled rows left
+     */
+    private boolean loadMergedPartitions()
+    {
+        if (mergeSpilledRuns) {
+            mergeSpilledRuns = false;
+            mergedPages = mergeSortedPages(spiller.get().getSpills(), sourceTypes, orderChannels, ordering);
+        }
+        if (mergedPages == null) {
+            return false;
+        }
+
+        while (pagesIndex.getEstimatedSize().toBytes() <= memoryLimitBeforeSpill) {
+            Page page = nextMergedPage();
+            if (page == null) {
+                break;
+            }
+            pagesIndex.addPage(page);
+        }
+
+        // the last partition may continue in the following pages
+        while (pagesIndex.getPositionCount() > 0) {
+            Page page = nextMergedPage();
+            if (page == null) {
+                break;
+            }
+            Page partitionPage = rearrangePage(page, unGroupedPartitionChannels);
+            if (!pagesIndex.positionEqualsRow(unGroupedPartitionHashStrategy, pagesIndex.getPositionCount() - 1, 0, partitionPage)) {
+                pendingMergedPage = page;
+                break;
+            }
+            int partitionEnd = findGroupEnd(partitionPage, unGroupedPartitionHashStrategy, 0);
+            pagesIndex.addPage(page.getRegion(0, partitionEnd));
+            if (partitionEnd < page.getPositionCount()) {
+                pendingMergedPage = page.getRegion(partitionEnd, page.getPositionCount() - partitionEnd);
+                break;
+            }
+        }
+
+        if (pagesIndex.getPositionCount() == 0) {
+            // all rows of the spilled pre-grouped partition have been processed
+            mergedPages = null;
+            spiller.get().close();
+            spiller = Optional.empty();
+            spilledPreGroupRow = null;
+            return false;
+        }
+        return true;
+    }
+
+    private Page nextMergedPage()
+    {
+        if (pendingMergedPage != null) {
+            Page page = pendingMergedPage;
+            pendingMergedPage = null;
+            return page;
+        }
+        if (mergedPages.hasNext()) {
+            return mergedPages.next();
+        }
+        return null;
+    }
+
     private void sortPagesIndexIfNecessary()
     {
         if (pagesIndex.getPositionCount() > 1 && !orderChannels.isEmpty()) {
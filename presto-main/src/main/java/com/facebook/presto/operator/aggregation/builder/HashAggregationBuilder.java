@@ -14,6 +14,7 @@
 package com.facebook.presto.operator.aggregation.builder;
 
 import com.facebook.presto.spi.Page;
+import com.google.common.util.concurrent.ListenableFuture;
 
 import java.util.Iterator;
 
@@ -26,6 +27,8 @@ public interface HashAggregationBuilder
 
     boolean isFull();
 
+    ListenableFuture<?> isBlocked();
+
     @Override
     void close();
 }
@@ -27,7 +27,10 @@ import com.facebook.presto.sql.planner.plan.AggregationNode.Step;
 import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ImmutableList;
 import com.google.common.primitives.Ints;
+import com.google.common.util.concurrent.ListenableFuture;
 import io.airlift.units.DataSize;
+import it.unimi.dsi.fastutil.ints.AbstractIntComparator;
+import it.unimi.dsi.fastutil.ints.IntArrays;
 
 import java.util.ArrayList;
 import java.util.Iterator;
@@ -35,6 +38,7 @@ import java.util.List;
 import java.util.Optional;
 
 import static com.facebook.presto.operator.GroupByHash.createGroupByHash;
+import static com.facebook.presto.operator.Operator.NOT_BLOCKED;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.google.common.base.Preconditions.checkArgument;
 import static java.util.Objects.requireNonNull;
@@ -48,6 +52,8 @@ public class InMemoryHashAggregationBuilder
     private final boolean partial;
     private final long maxPartialMemory;
     private final LocalMemoryContext systemMemoryContext;
+    private final boolean revocableMemory;
+    private final long memoryReservationOffset;
 
     private boolean full;
 
@@ -61,18 +67,102 @@ public class InMemoryHashAggregationBuilder
             OperatorContext operatorContext,
             DataSize maxPartialMemory)
     {
+        this(accumulatorFactories,
+                step,
+                expectedGroups,
+                groupByTypes,
+                groupByChannels,
+                hashChannel,
+                operatorContext,
+                maxPartialMemory,
+                Optional.empty());
+    }
+
+    public InMemoryHashAggregationBuilder(
+            List<AccumulatorFactory> accumulatorFactories,
+            Step step,
+            int expectedGroups,
+            List<Type> groupByTypes,
+            List<Integer> groupByChannels,
+            Optional<Integer> hashChannel,
+            OperatorContext operatorContext,
+            DataSize maxPartialMemory,
+            Optional<Integer> overwriteIntermediateChannelOffset)
+    {
+        this(accumulatorFactories,
+                step,
+                expectedGroups,
+                groupByTypes,
+                groupByChannels,
+                hashChannel,
+                operatorContext,
+                maxPartialMemory,
+                overwriteIntermediateChannelOffset,
+                false);
+    }
+
+    public InMemoryHashAggregationBuilder(
+            List<AccumulatorFactory> accumulatorFactories,
+            Step step,
+            int expectedGroups,
+            List<Type> groupByTypes,
+            List<Integer> groupByChannels,
+            Optional<Integer> hashChannel,
+            OperatorContext operatorContext,
+            DataSize maxPartialMemory,
+            Optional<Integer> overwriteIntermediateChannelOffset,
+            boolean revocableMemory)
+    {
+        this(accumulatorFactories,
+                step,
+                expectedGroups,
+                groupByTypes,
+                groupByChannels,
+                hashChannel,
+                operatorContext,
+                maxPartialMemory,
+                overwriteIntermediateChannelOffset,
+                revocableMemory,
+                0);
+    }
+
+    /**
+     * @param memoryReservationOffset bytes of the operator memory reservation held outside of this builder,
+     * which are added to the size of this builder when the reservation is updated
+     */
+    public InMemoryHashAggregationBuilder(
+            List<AccumulatorFactory> accumulatorFactories,
+            Step step,
+            int expectedGroups,
+            List<Type> groupByTypes,
+            List<Integer> groupByChannels,
+            Optional<Integer> hashChannel,
+            OperatorContext operatorContext,
+            DataSize maxPartialMemory,
+            Optional<Integer> overwriteIntermediateChannelOffset,
+            boolean revocableMemory,
+            long memoryReservationOffset)
+    {
+        checkArgument(memoryReservationOffset >= 0, "memoryReservationOffset is negative");
+        checkArgument(!revocableMemory || memoryReservationOffset == 0, "memoryReservationOffset is only supported for non revocable memory");
         this.groupByHash = createGroupByHash(operatorContext.getSession(), groupByTypes, Ints.toArray(groupByChannels), hashChannel, expectedGroups);
         this.operatorContext = operatorContext;
         this.partial = step.isOutputPartial();
         this.maxPartialMemory = maxPartialMemory.toBytes();
         this.systemMemoryContext = operatorContext.getSystemMemoryContext().newLocalMemoryContext();
+        this.revocableMemory = revocableMemory;
+        this.memoryReservationOffset = memoryReservationOffset;
 
         // wrapper each function with an aggregator
         ImmutableList.Builder<Aggregator> builder = ImmutableList.builder();
         requireNonNull(accumulatorFactories, "accumulatorFactories is null");
         for (int i = 0; i < accumulatorFactories.size(); i++) {
             AccumulatorFactory accumulatorFactory = accumulatorFactories.get(i);
-            builder.add(new Aggregator(accumulatorFactory, step));
+            Optional<Integer> overwriteIntermediateChannel = Optional.empty();
+            if (overwriteIntermediateChannelOffset.isPresent()) {
+                overwriteIntermediateChannel = Optional.of(overwriteIntermediateChannelOffset.get() + i);
+            }
+            builder.add(new Aggregator(accumulatorFactory, step, overwriteIntermediateChannel));
         }
         aggregators = builder.build();
     }
@@ -98,18 +188,27 @@ public class InMemoryHashAggregationBuilder
         updateMemory();
     }
 
-    private void updateMemory()
+    public long getSizeInMemory()
     {
         long memorySize = groupByHash.getEstimatedSize();
         for (Aggregator aggregator : aggregators) {
             memorySize += aggregator.getEstimatedSize();
         }
+        return memorySize;
+    }
+
+    private void updateMemory()
+    {
+        long memorySize = getSizeInMemory();
         if (partial) {
             systemMemoryContext.setBytes(memorySize);
             full = (memorySize > maxPartialMemory);
         }
+        else if (revocableMemory) {
+            operatorContext.setRevocableMemoryReservation(memorySize);
+        }
         else {
-            operatorContext.setMemoryReservation(memorySize);
+            operatorContext.setMemoryReservation(memoryReservationOffset + memorySize);
         }
     }
 
@@ -119,6 +218,12 @@ public class InMemoryHashAggregationBuilder
         return full;
     }
 
+    @Override
+    public ListenableFuture<?> isBlocked()
+    {
+        return NOT_BLOCKED;
+    }
+
     @Override
     public Iterator<Page> buildResult()
     {
@@ -161,18 +266,87 @@ public class InMemoryHashAggregationBuilder
         };
     }
 
+    /**
+     * Builds the intermediate state of all groups ordered by the raw hash of the group.
+     * The raw hash is appended as the last channel, so the result of several builders
+     * can be merged by {@link MergingHashAggregationBuilder}.
+     */
+    public Iterator<Page> buildHashSortedResult()
+    {
+        List<Type> types = new ArrayList<>(groupByHash.getTypes());
+        for (Aggregator aggregator : aggregators) {
+            types.add(aggregator.getIntermediateType());
+        }
+        types.add(BIGINT);
+        int hashChannel = types.size() - 1;
+
+        int groupCount = groupByHash.getGroupCount();
+        long[] rawHashes = new long[groupCount];
+        int[] groupIds = new int[groupCount];
+        for (int groupId = 0; groupId < groupCount; groupId++) {
+            rawHashes[groupId] = groupByHash.getRawHash(groupId);
+            groupIds[groupId] = groupId;
+        }
+        IntArrays.quickSort(groupIds, 0, groupCount, new AbstractIntComparator()
+        {
+            @Override
+            public int compare(int left, int right)
+            {
+                return Long.compare(rawHashes[left], rawHashes[right]);
+            }
+        });
+
+        PageBuilder pageBuilder = new PageBuilder(types);
+        return new AbstractIterator<Page>()
+        {
+            private int position;
+
+            @Override
+            protected Page computeNext()
+            {
+                if (position >= groupCount) {
+                    return endOfData();
+                }
+
+                pageBuilder.reset();
+
+                int groupByChannelCount = groupByHash.getTypes().size();
+                while (!pageBuilder.isFull() && position < groupCount) {
+                    int groupId = groupIds[position];
+                    groupByHash.appendValuesTo(groupId, pageBuilder, 0);
+
+                    pageBuilder.declarePosition();
+                    for (int i = 0; i < aggregators.size(); i++) {
+                        Aggregator aggregator = aggregators.get(i);
+                        BlockBuilder output = pageBuilder.getBlockBuilder(groupByChannelCount + i);
+                        aggregator.evaluateIntermediate(groupId, output);
+                    }
+                    BIGINT.writeLong(pageBuilder.getBlockBuilder(hashChannel), rawHashes[groupId]);
+
+                    position++;
+                }
+
+                return pageBuilder.build();
+            }
+        };
+    }
+
     private static class Aggregator
     {
         private final GroupedAccumulator aggregation;
         private final Step step;
         private final int intermediateChannel;
 
-        private Aggregator(AccumulatorFactory accumulatorFactory, Step step)
+        private Aggregator(AccumulatorFactory accumulatorFactory, Step step, Optional<Integer> overwriteIntermediateChannel)
         {
             if (step.isInputRaw()) {
                 this.intermediateChannel = -1;
                 this.aggregation = accumulatorFactory.createGroupedAccumulator();
             }
+            else if (overwriteIntermediateChannel.isPresent()) {
+                this.intermediateChannel = overwriteIntermediateChannel.get();
+                this.aggregation = accumulatorFactory.createGroupedIntermediateAccumulator();
+            }
             else {
                 checkArgument(accumulatorFactory.getInputChannels().size() == 1, "expected 1 input channel for intermediate aggregation");
                 this.intermediateChannel = accumulatorFactory.getInputChannels().get(0);
@@ -196,6 +370,11 @@ public class InMemoryHashAggregationBuilder
             }
         }
 
+        public Type getIntermediateType()
+        {
+            return aggregation.getIntermediateType();
+        }
+
         public void processPage(GroupByIdBlock groupIds, Page page)
         {
             if (step.isInputRaw()) {
@@ -215,6 +394,11 @@ public class InMemoryHashAggregationBuilder
                 aggregation.evaluateFinal(groupId, output);
             }
         }
+
+        public void evaluateIntermediate(int groupId, BlockBuilder output)
+        {
+            aggregation.evaluateIntermediate(groupId, output);
+        }
     }
 
     public static List<Type> toTypes(List<? extends Type> groupByType, Step step, List<AccumulatorFactory> factories, Optional<Integer> hashChannel)
@@ -225,8 +409,22 @@ public class InMemoryHashAggregationBuilder
             types.add(BIGINT);
         }
         for (AccumulatorFactory factory : factories) {
-            types.add(new Aggregator(factory, step).getType());
+            types.add(new Aggregator(factory, step, Optional.empty()).getType());
+        }
+        return types.build();
+    }
+
+    public static List<Type> toHashSortedResultTypes(List<? extends Type> groupByType, Step step, List<AccumulatorFactory> factories, Optional<Integer> hashChannel)
+    {
+        ImmutableList.Builder<Type> types = ImmutableList.builder();
+        types.addAll(groupByType);
+        if (hashChannel.isPresent()) {
+            types.add(BIGINT);
+        }
+        for (AccumulatorFactory factory : factories) {
+            types.add(new Aggregator(factory, step, Optional.empty()).getIntermediateType());
         }
+        types.add(BIGINT);
         return types.build();
     }
 }
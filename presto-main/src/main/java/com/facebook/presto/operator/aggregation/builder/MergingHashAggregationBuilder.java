@@ -0,0 +1,275 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator.aggregation.builder;
+
+import com.facebook.presto.operator.OperatorContext;
+import com.facebook.presto.operator.aggregation.AccumulatorFactory;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PageBuilder;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.sql.planner.plan.AggregationNode.Step;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableList;
+import io.airlift.units.DataSize;
+
+import java.io.Closeable;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.PriorityQueue;
+
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Merges streams of pages produced by {@link InMemoryHashAggregationBuilder#buildHashSortedResult()}.
+ * Because every stream is ordered by the raw hash of the group, all intermediate states of a
+ * group are adjacent in the merged stream, so groups can be combined in a hash aggregation
+ * that is flushed whenever it exceeds the memory limit and the raw hash changes.
+ * The memory of the merge is reserved on top of the given offset, which covers memory held by
+ * the merged streams, such as the groups of an in-memory builder that is still being read.
+ */
+public class MergingHashAggregationBuilder
+        implements Closeable
+{
+    private final List<AccumulatorFactory> accumulatorFactories;
+    private final Step step;
+    private final int expectedGroups;
+    private final List<Type> groupByTypes;
+    private final List<Integer> groupByPartialChannels;
+    private final Optional<Integer> hashPartialChannel;
+    private final int intermediateChannelOffset;
+    private final OperatorContext operatorContext;
+    private final long memoryLimitForMerge;
+    private final long memoryReservationOffset;
+    private final SortedRowIterator sortedRows;
+
+    private InMemoryHashAggregationBuilder hashAggregationBuilder;
+
+    public MergingHashAggregationBuilder(
+            List<AccumulatorFactory> accumulatorFactories,
+            Step step,
+            int expectedGroups,
+            List<Type> groupByTypes,
+            Optional<Integer> hashChannel,
+            OperatorContext operatorContext,
+            List<Iterator<Page>> sortedPages,
+            List<Type> sortedPagesTypes,
+            DataSize memoryLimitForMerge,
+            long memoryReservationOffset)
+    {
+        this.accumulatorFactories = ImmutableList.copyOf(requireNonNull(accumulatorFactories, "accumulatorFactories is null"));
+        this.step = requireNonNull(step, "step is null");
+        this.expectedGroups = expectedGroups;
+        this.groupByTypes = ImmutableList.copyOf(requireNonNull(groupByTypes, "groupByTypes is null"));
+        this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
+        this.memoryLimitForMerge = requireNonNull(memoryLimitForMerge, "memoryLimitForMerge is null").toBytes();
+        checkArgument(memoryReservationOffset >= 0, "memoryReservationOffset is negative");
+        this.memoryReservationOffset = memoryReservationOffset;
+
+        // sorted pages have the layout [group by channels, optional hash channel, intermediate states, raw hash]
+        ImmutableList.Builder<Integer> groupByPartialChannels = ImmutableList.builder();
+        for (int i = 0; i < groupByTypes.size(); i++) {
+            groupByPartialChannels.add(i);
+        }
+        this.groupByPartialChannels = groupByPartialChannels.build();
+        this.hashPartialChannel = requireNonNull(hashChannel, "hashChannel is null").map(channel -> groupByTypes.size());
+        this.intermediateChannelOffset = groupByTypes.size() + (hashChannel.isPresent() ? 1 : 0);
+        this.sortedRows = new SortedRowIterator(sortedPages, sortedPagesTypes);
+    }
+
+    public Iterator<Page> buildResult()
+    {
+        return new AbstractIterator<Page>()
+        {
+            private Iterator<Page> currentOutput;
+
+            @Override
+            protected Page computeNext()
+            {
+                while (true) {
+                    if (currentOutput != null) {
+                        if (currentOutput.hasNext()) {
+                            return currentOutput.next();
+                        }
+                        closeHashAggregationBuilder();
+                        currentOutput = null;
+                    }
+
+                    if (!sortedRows.hasNext()) {
+                        return endOfData();
+                    }
+
+                    rebuildHashAggregationBuilder();
+                    currentOutput = mergeNextGroups();
+                }
+            }
+        };
+    }
+
+    private Iterator<Page> mergeNextGroups()
+    {
+        PageBuilder pageBuilder = new PageBuilder(sortedRows.getTypes());
+        long lastRawHash = 0;
+        boolean memoryLimitExceeded = false;
+        while (sortedRows.hasNext()) {
+            long rawHash = sortedRows.peekRawHash();
+            // only flush when all states of the last group have been added
+            if (memoryLimitExceeded && rawHash != lastRawHash) {
+                break;
+            }
+            sortedRows.appendNextTo(pageBuilder);
+            lastRawHash = rawHash;
+
+            if (pageBuilder.isFull()) {
+                hashAggregationBuilder.processPage(pageBuilder.build());
+                pageBuilder.reset();
+                memoryLimitExceeded = hashAggregationBuilder.getSizeInMemory() > memoryLimitForMerge;
+            }
+        }
+        if (!pageBuilder.isEmpty()) {
+            hashAggregationBuilder.processPage(pageBuilder.build());
+        }
+        return hashAggregationBuilder.buildResult();
+    }
+
+    private void rebuildHashAggregationBuilder()
+    {
+        closeHashAggregationBuilder();
+        hashAggregationBuilder = new InMemoryHashAggregationBuilder(
+                accumulatorFactories,
+                step,
+                expectedGroups,
+                groupByTypes,
+                groupByPartialChannels,
+                hashPartialChannel,
+                operatorContext,
+                DataSize.succinctBytes(0),
+                Optional.of(intermediateChannelOffset),
+                false,
+                memoryReservationOffset);
+    }
+
+    private void closeHashAggregationBuilder()
+    {
+        if (hashAggregationBuilder != null) {
+            hashAggregationBuilder.close();
+            hashAggregationBuilder = null;
+        }
+    }
+
+    @Override
+    public void close()
+    {
+        closeHashAggregationBuilder();
+    }
+
+    /**
+     * K-way merge of hash sorted page streams. The raw hash is stored in the last channel.
+     */
+    private static class SortedRowIterator
+    {
+        private final List<Type> types;
+        private final int rawHashChannel;
+        private final PriorityQueue<PageCursor> cursors;
+
+        public SortedRowIterator(List<Iterator<Page>> sortedPages, List<Type> types)
+        {
+            this.types = ImmutableList.copyOf(requireNonNull(types, "types is null"));
+            this.rawHashChannel = types.size() - 1;
+            this.cursors = new PriorityQueue<>(Math.max(1, sortedPages.size()), Comparator.comparingLong(PageCursor::getRawHash));
+            for (Iterator<Page> pages : sortedPages) {
+                PageCursor cursor = new PageCursor(pages, rawHashChannel);
+                if (cursor.advance()) {
+                    cursors.add(cursor);
+                }
+            }
+        }
+
+        public List<Type> getTypes()
+        {
+            return types;
+        }
+
+        public boolean hasNext()
+        {
+            return !cursors.isEmpty();
+        }
+
+        public long peekRawHash()
+        {
+            return cursors.peek().getRawHash();
+        }
+
+        public void appendNextTo(PageBuilder pageBuilder)
+        {
+            PageCursor cursor = cursors.poll();
+            Page page = cursor.getPage();
+            int position = cursor.getPosition();
+            pageBuilder.declarePosition();
+            for (int channel = 0; channel < types.size(); channel++) {
+                types.get(channel).appendTo(page.getBlock(channel), position, pageBuilder.getBlockBuilder(channel));
+            }
+            if (cursor.advance()) {
+                cursors.add(cursor);
+            }
+        }
+    }
+
+    private static class PageCursor
+    {
+        private final Iterator<Page> pages;
+        private final int rawHashChannel;
+        private Page page;
+        private int position;
+        private long rawHash;
+
+        public PageCursor(Iterator<Page> pages, int rawHashChannel)
+        {
+            this.pages = requireNonNull(pages, "pages is null");
+            this.rawHashChannel = rawHashChannel;
+        }
+
+        public boolean advance()
+        {
+            position++;
+            while (page == null || position >= page.getPositionCount()) {
+                if (!pages.hasNext()) {
+                    return false;
+                }
+                page = pages.next();
+                position = 0;
+            }
+            rawHash = BIGINT.getLong(page.getBlock(rawHashChannel), position);
+            return true;
+        }
+
+        public Page getPage()
+        {
+            return page;
+        }
+
+        public int getPosition()
+        {
+            return position;
+        }
+
+        public long getRawHash()
+        {
+            return rawHash;
+        }
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator.aggregation.builder;
+
+import com.facebook.presto.operator.OperatorContext;
+import com.facebook.presto.operator.aggregation.AccumulatorFactory;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.Spiller;
+import com.facebook.presto.spiller.SpillerFactory;
+import com.facebook.presto.sql.planner.plan.AggregationNode.Step;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.airlift.units.DataSize;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import static com.facebook.presto.operator.aggregation.builder.InMemoryHashAggregationBuilder.toHashSortedResultTypes;
+import static com.google.common.base.Preconditions.checkState;
+import static io.airlift.concurrent.MoreFutures.getFutureValue;
+import static io.airlift.concurrent.MoreFutures.toListenableFuture;
+import static java.util.Objects.requireNonNull;
+
+public class SpillableHashAggregationBuilder
+        implements HashAggregationBuilder
+{
+    private final List<AccumulatorFactory> accumulatorFactories;
+    private final Step step;
+    private final int expectedGroups;
+    private final List<Type> groupByTypes;
+    private final List<Integer> groupByChannels;
+    private final Optional<Integer> hashChannel;
+    private final OperatorContext operatorContext;
+    private final DataSize maxPartialMemory;
+    private final DataSize memoryLimitBeforeSpill;
+    private final SpillerFactory spillerFactory;
+
+    private InMemoryHashAggregationBuilder hashAggregationBuilder;
+    private Optional<Spiller> spiller = Optional.empty();
+    private Optional<MergingHashAggregationBuilder> merger = Optional.empty();
+    private CompletableFuture<?> spillInProgress = CompletableFuture.completedFuture(null);
+    private boolean hashAggregationBuilderSpilled;
+
+    public SpillableHashAggregationBuilder(
+            List<AccumulatorFactory> accumulatorFactories,
+            Step step,
+            int expectedGroups,
+            List<Type> groupByTypes,
+            List<Integer> groupByChannels,
+            Optional<Integer> hashChannel,
+            OperatorContext operatorContext,
+            DataSize maxPartialMemory,
+            DataSize memoryLimitBeforeSpill,
+            SpillerFactory spillerFactory)
+    {
+        this.accumulatorFactories = ImmutableList.copyOf(requireNonNull(accumulatorFactories, "accumulatorFactories is null"));
+        this.step = requireNonNull(step, "step is null");
+        this.expectedGroups = expectedGroups;
+        this.groupByTypes = ImmutableList.copyOf(requireNonNull(groupByTypes, "groupByTypes is null"));
+        this.groupByChannels = ImmutableList.copyOf(requireNonNull(groupByChannels, "groupByChannels is null"));
+        this.hashChannel = requireNonNull(hashChannel, "hashChannel is null");
+        this.operatorContext = requireNonNull(operatorContext, "operatorContext is null");
+        this.maxPartialMemory = requireNonNull(maxPartialMemory, "maxPartialMemory is null");
+        this.memoryLimitBeforeSpill = requireNonNull(memoryLimitBeforeSpill, "memoryLimitBeforeSpill is null");
+        this.spillerFactory = requireNonNull(spillerFactory, "spillerFactory is null");
+
+        rebuildHashAggregationBuilder();
+    }
+
+    @Override
+    public void processPage(Page page)
+    {
+        checkState(hasPreviousSpillCompletedSuccessfully(), "Previous spill hasn't yet finished");
+
+        hashAggregationBuilder.processPage(page);
+
+        if (hashAggregationBuilder.getSizeInMemory() > memoryLimitBeforeSpill.toBytes() || operatorContext.isMemoryRevokingRequested()) {
+            spillToDisk();
+        }
+    }
+
+    @Override
+    public boolean isFull()
+    {
+        return false;
+    }
+
+    @Override
+    public ListenableFuture<?> isBlocked()
+    {
+        return toListenableFuture(spillInProgress);
+    }
+
+    @Override
+    public Iterator<Page> buildResult()
+    {
+        checkState(hasPreviousSpillCompletedSuccessfully(), "Previous spill hasn't yet finished");
+
+        // the groups can no longer be spilled once the result is built, so their memory is no longer revocable
+        long revocableBytes = operatorContext.getReservedRevocableBytes();
+        operatorContext.setRevocableMemoryReservation(0);
+        operatorContext.setMemoryReservation(revocableBytes);
+
+        if (!spiller.isPresent()) {
+            return hashAggregationBuilder.buildResult();
+        }
+
+        // merge the spilled runs together with the groups that are still in memory
+        ImmutableList.Builder<Iterator<Page>> sortedPages = ImmutableList.builder();
+        sortedPages.addAll(spiller.get().getSpills());
+        sortedPages.add(hashAggregationBuilder.buildHashSortedResult());
+
+        merger = Optional.of(new MergingHashAggregationBuilder(
+                accumulatorFactories,
+                step.isOutputPartial() ? Step.INTERMEDIATE : Step.FINAL,
+                expectedGroups,
+                groupByTypes,
+                hashChannel,
+                operatorContext,
+                sortedPages.build(),
+                toHashSortedResultTypes(groupByTypes, step, accumulatorFactories, hashChannel),
+                memoryLimitBeforeSpill,
+                // the in-memory groups stay allocated until the merge is done
+                hashAggregationBuilder.getSizeInMemory()));
+
+        return merger.get().buildResult();
+    }
+
+    @Override
+    public void close()
+    {
+        if (merger.isPresent()) {
+            merger.get().close();
+        }
+        if (hashAggregationBuilder != null) {
+            hashAggregationBuilder.close();
+        }
+        if (spiller.isPresent()) {
+            spiller.get().close();
+        }
+    }
+
+    private boolean hasPreviousSpillCompletedSuccessfully()
+    {
+        if (spillInProgress.isDone()) {
+            // check for exception from previous spill for early failure
+            getFutureValue(spillInProgress);
+
+            if (hashAggregationBuilderSpilled) {
+                // the spilled groups are on disk now, so only the new builder holds revocable memory
+                hashAggregationBuilderSpilled = false;
+                operatorContext.setRevocableMemoryReservation(hashAggregationBuilder.getSizeInMemory());
+                operatorContext.resetMemoryRevokingRequested();
+            }
+            return true;
+        }
+        return false;
+    }
+
+    private void spillToDisk()
+    {
+        if (!spiller.isPresent()) {
+            spiller = Optional.of(spillerFactory.create(toHashSortedResultTypes(groupByTypes, step, accumulatorFactories, hashChannel)));
+        }
+
+        // the spiller consumes the sorted result on its own thread, so ownership of the current
+        // builder is handed over to the spiller and a new builder is used for subsequent input
+        spillInProgress = spiller.get().spill(hashAggregationBuilder.buildHashSortedResult());
+        rebuildHashAggregationBuilder();
+        hashAggregationBuilderSpilled = true;
+    }
+
+    private void rebuildHashAggregationBuilder()
+    {
+        hashAggregationBuilder = new InMemoryHashAggregationBuilder(
+                accumulatorFactories,
+                step,
+                expectedGroups,
+                groupByTypes,
+                groupByChannels,
+                hashChannel,
+                operatorContext,
+                maxPartialMemory,
+                Optional.empty(),
+                true);
+    }
+}
@@ -56,6 +56,11 @@ import com.facebook.presto.execution.scheduler.ExecutionPolicy;
 import com.facebook.presto.execution.scheduler.PhasedExecutionPolicy;
 import com.facebook.presto.memory.ClusterMemoryManager;
 import com.facebook.presto.memory.ForMemoryManager;
+import com.facebook.presto.memory.LowMemoryKiller;
+import com.facebook.presto.memory.MemoryManagerConfig;
+import com.facebook.presto.memory.NewestQueryFirstLowMemoryKiller;
+import com.facebook.presto.memory.TotalReservationLowMemoryKiller;
+import com.facebook.presto.memory.TotalReservationOnBlockedNodesLowMemoryKiller;
 import com.facebook.presto.operator.ForScheduler;
 import com.facebook.presto.server.remotetask.RemoteTaskStats;
 import com.facebook.presto.spi.memory.ClusterMemoryPoolManager;
@@ -110,8 +115,12 @@ import java.util.concurrent.ExecutorService;
 import static com.facebook.presto.execution.DataDefinitionExecution.DataDefinitionExecutionFactory;
 import static com.facebook.presto.execution.QueryExecution.QueryExecutionFactory;
 import static com.facebook.presto.execution.SqlQueryExecution.SqlQueryExecutionFactory;
+import static com.facebook.presto.memory.MemoryManagerConfig.LowMemoryKillerPolicy.NEWEST_QUERY_FIRST;
+import static com.facebook.presto.memory.MemoryManagerConfig.LowMemoryKillerPolicy.TOTAL_RESERVATION;
+import static com.facebook.presto.memory.MemoryManagerConfig.LowMemoryKillerPolicy.TOTAL_RESERVATION_ON_BLOCKED_NODES;
 import static com.google.inject.multibindings.MapBinder.newMapBinder;
 import static io.airlift.concurrent.Threads.threadsNamed;
+import static io.airlift.configuration.ConditionalModule.installModuleIf;
 import static io.airlift.discovery.client.DiscoveryBinder.discoveryBinder;
 import static io.airlift.http.client.HttpClientBinder.httpClientBinder;
 import static io.airlift.http.server.HttpServerBinder.httpServerBinder;
@@ -138,6 +147,7 @@ public class CoordinatorModule
         jsonCodecBinder(binder).bindJsonCodec(TaskInfo.class);
         jsonCodecBinder(binder).bindJsonCodec(QueryResults.class);
         jaxrsBinder(binder).bind(StatementResource.class);
+        jaxrsBinder(binder).bind(PagedQueryResultsWriter.class);
 
         // execute resource
         jaxrsBinder(binder).bind(ExecuteResource.class);
@@ -171,6 +181,18 @@ public class CoordinatorModule
         // cluster memory manager
         binder.bind(ClusterMemoryManager.class).in(Scopes.SINGLETON);
         binder.bind(ClusterMemoryPoolManager.class).to(ClusterMemoryManager.class).in(Scopes.SINGLETON);
+        install(installModuleIf(
+                MemoryManagerConfig.class,
+                config -> TOTAL_RESERVATION.equalsIgnoreCase(config.getLowMemoryKillerPolicy()),
+                moduleBinder -> moduleBinder.bind(LowMemoryKiller.class).to(TotalReservationLowMemoryKiller.class).in(Scopes.SINGLETON)));
+        install(installModuleIf(
+                MemoryManagerConfig.class,
+                config -> TOTAL_RESERVATION_ON_BLOCKED_NODES.equalsIgnoreCase(config.getLowMemoryKillerPolicy()),
+                moduleBinder -> moduleBinder.bind(LowMemoryKiller.class).to(TotalReservationOnBlockedNodesLowMemoryKiller.class).in(Scopes.SINGLETON)));
+        install(installModuleIf(
+                MemoryManagerConfig.class,
+                config -> NEWEST_QUERY_FIRST.equalsIgnoreCase(config.getLowMemoryKillerPolicy()),
+                moduleBinder -> moduleBinder.bind(LowMemoryKiller.class).to(NewestQueryFirstLowMemoryKiller.class).in(Scopes.SINGLETON)));
         httpClientBinder(binder).bindHttpClient("memoryManager", ForMemoryManager.class)
                 .withTracing()
                 .withConfigDefaults(config -> {
@@ -187,6 +209,7 @@ public class CoordinatorModule
 
         // execution scheduler
         binder.bind(RemoteTaskFactory.class).to(HttpRemoteTaskFactory.class).in(Scopes.SINGLETON);
+        jsonCodecBinder(binder).bindJsonCodec(TaskInfoDelta.class);
         newExporter(binder).export(RemoteTaskFactory.class).withGeneratedName();
 
         binder.bind(RemoteTaskStats.class).in(Scopes.SINGLETON);
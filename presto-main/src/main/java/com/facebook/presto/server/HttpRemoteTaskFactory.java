@@ -28,9 +28,11 @@ import com.facebook.presto.metadata.Split;
 import com.facebook.presto.operator.ForScheduler;
 import com.facebook.presto.server.remotetask.HttpRemoteTask;
 import com.facebook.presto.server.remotetask.RemoteTaskStats;
+import com.facebook.presto.server.remotetask.ResponseDecoder;
 import com.facebook.presto.spi.Node;
 import com.facebook.presto.sql.planner.PlanFragment;
 import com.facebook.presto.sql.planner.plan.PlanNodeId;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.Multimap;
 import io.airlift.concurrent.BoundedExecutor;
 import io.airlift.concurrent.ThreadPoolExecutorMBean;
@@ -43,11 +45,15 @@ import org.weakref.jmx.Nested;
 import javax.annotation.PreDestroy;
 import javax.inject.Inject;
 
+import java.util.Optional;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadPoolExecutor;
 
+import static com.facebook.presto.server.remotetask.ResponseDecoder.jsonResponseDecoder;
+import static com.facebook.presto.server.remotetask.ResponseDecoder.smileResponseDecoder;
+import static com.facebook.presto.server.smile.SmileCodec.smileCodec;
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
 import static java.util.Objects.requireNonNull;
 import static java.util.concurrent.Executors.newCachedThreadPool;
@@ -58,12 +64,16 @@ public class HttpRemoteTaskFactory
 {
     private final HttpClient httpClient;
     private final LocationFactory locationFactory;
-    private final JsonCodec<TaskStatus> taskStatusCodec;
+    private final ResponseDecoder<TaskStatus> taskStatusDecoder;
+    private final ResponseDecoder<TaskInfo> taskInfoDecoder;
+    private final Optional<ResponseDecoder<TaskInfoDelta>> taskInfoDeltaDecoder;
     private final JsonCodec<TaskInfo> taskInfoCodec;
     private final JsonCodec<TaskUpdateRequest> taskUpdateRequestCodec;
     private final Duration minErrorDuration;
     private final Duration taskStatusRefreshMaxWait;
     private final Duration taskInfoUpdateInterval;
+    private final int maxSplitsPerUpdate;
+    private final Duration updateBatchDelay;
     private final ExecutorService coreExecutor;
     private final Executor executor;
     private final ThreadPoolExecutorMBean executorMBean;
@@ -79,16 +89,36 @@ public class HttpRemoteTaskFactory
             JsonCodec<TaskStatus> taskStatusCodec,
             JsonCodec<TaskInfo> taskInfoCodec,
             JsonCodec<TaskUpdateRequest> taskUpdateRequestCodec,
+            JsonCodec<TaskInfoDelta> taskInfoDeltaCodec,
+            ObjectMapper objectMapper,
             RemoteTaskStats stats)
     {
         this.httpClient = httpClient;
         this.locationFactory = locationFactory;
-        this.taskStatusCodec = taskStatusCodec;
+        if (config.isRemoteTaskBinaryEncodingEnabled()) {
+            this.taskStatusDecoder = smileResponseDecoder(smileCodec(objectMapper, TaskStatus.class));
+            this.taskInfoDecoder = smileResponseDecoder(smileCodec(objectMapper, TaskInfo.class));
+        }
+        else {
+            this.taskStatusDecoder = jsonResponseDecoder(taskStatusCodec);
+            this.taskInfoDecoder = jsonResponseDecoder(taskInfoCodec);
+        }
+        if (!config.isRemoteTaskDeltaInfoEnabled()) {
+            this.taskInfoDeltaDecoder = Optional.empty();
+        }
+        else if (config.isRemoteTaskBinaryEncodingEnabled()) {
+            this.taskInfoDeltaDecoder = Optional.of(smileResponseDecoder(smileCodec(objectMapper, TaskInfoDelta.class)));
+        }
+        else {
+            this.taskInfoDeltaDecoder = Optional.of(jsonResponseDecoder(taskInfoDeltaCodec));
+        }
         this.taskInfoCodec = taskInfoCodec;
         this.taskUpdateRequestCodec = taskUpdateRequestCodec;
         this.minErrorDuration = config.getRemoteTaskMinErrorDuration();
         this.taskStatusRefreshMaxWait = taskConfig.getStatusRefreshMaxWait();
         this.taskInfoUpdateInterval = taskConfig.getInfoUpdateInterval();
+        this.maxSplitsPerUpdate = config.getRemoteTaskMaxSplitsPerUpdate();
+        this.updateBatchDelay = config.getRemoteTaskUpdateBatchDelay();
         this.coreExecutor = newCachedThreadPool(daemonThreadsNamed("remote-task-callback-%s"));
         this.executor = new BoundedExecutor(coreExecutor, config.getRemoteTaskMaxCallbackThreads());
         this.executorMBean = new ThreadPoolExecutorMBean((ThreadPoolExecutor) coreExecutor);
@@ -137,8 +167,12 @@ public class HttpRemoteTaskFactory
                 minErrorDuration,
                 taskStatusRefreshMaxWait,
                 taskInfoUpdateInterval,
+                maxSplitsPerUpdate,
+                updateBatchDelay,
                 summarizeTaskInfo,
-                taskStatusCodec,
+                taskStatusDecoder,
+                taskInfoDecoder,
+                taskInfoDeltaDecoder,
                 taskInfoCodec,
                 taskUpdateRequestCodec,
                 partitionedSplitCountTracker,
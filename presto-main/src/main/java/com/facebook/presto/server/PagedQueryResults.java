@@ -0,0 +1,89 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.server;
+
+import com.facebook.presto.client.QueryResults;
+import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+
+import javax.annotation.Nullable;
+
+import java.util.List;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Query results together with the pages their data was read from, so the results can be
+ * sent as JSON or as serialized pages, depending on what the client accepts.
+ */
+public class PagedQueryResults
+{
+    private final QueryResults queryResults;
+    private final ConnectorSession session;
+    private final List<Type> types;
+    private final List<Page> pages;
+
+    public PagedQueryResults(QueryResults queryResults, ConnectorSession session, @Nullable List<Type> types, @Nullable List<Page> pages)
+    {
+        this.queryResults = requireNonNull(queryResults, "queryResults is null");
+        this.session = requireNonNull(session, "session is null");
+        this.types = (types != null) ? ImmutableList.copyOf(types) : null;
+        this.pages = (pages != null) ? ImmutableList.copyOf(pages) : null;
+        if (pages != null) {
+            requireNonNull(types, "types is null");
+        }
+    }
+
+    public QueryResults getQueryResults()
+    {
+        return queryResults;
+    }
+
+    /**
+     * Returns the results without the JSON data.
+     */
+    public QueryResults getMetadata()
+    {
+        return new QueryResults(
+                queryResults.getId(),
+                queryResults.getInfoUri(),
+                queryResults.getPartialCancelUri(),
+                queryResults.getNextUri(),
+                queryResults.getColumns(),
+                (Iterable<List<Object>>) null,
+                queryResults.getStats(),
+                queryResults.getError(),
+                queryResults.getUpdateType(),
+                queryResults.getUpdateCount());
+    }
+
+    public ConnectorSession getSession()
+    {
+        return session;
+    }
+
+    @Nullable
+    public List<Type> getTypes()
+    {
+        return types;
+    }
+
+    @Nullable
+    public List<Page> getPages()
+    {
+        return pages;
+    }
+}
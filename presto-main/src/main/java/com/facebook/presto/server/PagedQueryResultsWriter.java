@@ -0,0 +1,166 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.server;
+
+import com.facebook.presto.block.PageCompressionCodec;
+import com.facebook.presto.block.PagesSerde;
+import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.BlockBuilderStatus;
+import com.facebook.presto.spi.block.BlockEncodingSerde;
+import com.facebook.presto.spi.type.Type;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import io.airlift.slice.OutputStreamSliceOutput;
+import io.airlift.slice.RuntimeIOException;
+import io.airlift.slice.SliceOutput;
+
+import javax.inject.Inject;
+import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.util.List;
+import java.util.Optional;
+
+import static com.facebook.presto.client.PrestoHeaders.PRESTO_PAGE_CODEC;
+import static com.facebook.presto.client.QueryResultsPages.PRESTO_QUERY_RESULTS;
+import static com.facebook.presto.client.QueryResultsPages.isNativeType;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static io.airlift.slice.Slices.wrappedBuffer;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Writes {@link PagedQueryResults} in the layout read by
+ * {@link com.facebook.presto.client.QueryResultsPages}.
+ */
+@Provider
+@Produces(PRESTO_QUERY_RESULTS)
+public class PagedQueryResultsWriter
+        implements MessageBodyWriter<PagedQueryResults>
+{
+    private static final MediaType PRESTO_QUERY_RESULTS_TYPE = MediaType.valueOf(PRESTO_QUERY_RESULTS);
+
+    private final ObjectMapper objectMapper;
+    private final BlockEncodingSerde blockEncodingSerde;
+
+    @Inject
+    public PagedQueryResultsWriter(ObjectMapper objectMapper, BlockEncodingSerde blockEncodingSerde)
+    {
+        this.objectMapper = requireNonNull(objectMapper, "objectMapper is null");
+        this.blockEncodingSerde = requireNonNull(blockEncodingSerde, "blockEncodingSerde is null");
+    }
+
+    @Override
+    public boolean isWriteable(Class<?> type, java.lang.reflect.Type genericType, Annotation[] annotations, MediaType mediaType)
+    {
+        return PagedQueryResults.class.isAssignableFrom(type) && mediaType.isCompatible(PRESTO_QUERY_RESULTS_TYPE);
+    }
+
+    @Override
+    public long getSize(PagedQueryResults results, Class<?> type, java.lang.reflect.Type genericType, Annotation[] annotations, MediaType mediaType)
+    {
+        return -1;
+    }
+
+    @Override
+    public void writeTo(PagedQueryResults results,
+            Class<?> type,
+            java.lang.reflect.Type genericType,
+            Annotation[] annotations,
+            MediaType mediaType,
+            MultivaluedMap<String, Object> httpHeaders,
+            OutputStream output)
+            throws IOException, WebApplicationException
+    {
+        try {
+            // the resource sets the codec header when the client negotiated compression
+            Object codecHeader = httpHeaders.getFirst(PRESTO_PAGE_CODEC);
+            Optional<PageCompressionCodec> codec = PageCompressionCodec.fromHeader(codecHeader == null ? null : codecHeader.toString());
+
+            SliceOutput sliceOutput = new OutputStreamSliceOutput(output);
+            writeQueryResults(sliceOutput, results, codec);
+            // We use flush instead of close, because the underlying stream would be closed and that is not allowed.
+            sliceOutput.flush();
+        }
+        catch (RuntimeIOException e) {
+            // EOF exception occurs when the client disconnects while writing data
+            // This is not a "server" problem so we don't want to log this
+            if (!(e.getCause() instanceof EOFException)) {
+                throw e;
+            }
+        }
+    }
+
+    public void writeQueryResults(SliceOutput output, PagedQueryResults results, Optional<PageCompressionCodec> codec)
+            throws IOException
+    {
+        byte[] metadata = objectMapper.writeValueAsBytes(results.getMetadata());
+        output.writeInt(metadata.length);
+        output.writeBytes(metadata);
+
+        List<Page> pages = results.getPages();
+        output.writeBoolean(pages != null);
+        if (pages == null) {
+            return;
+        }
+
+        ImmutableList.Builder<Page> clientPages = ImmutableList.builder();
+        for (Page page : pages) {
+            clientPages.add(toClientPage(results.getSession(), results.getTypes(), page));
+        }
+        if (codec.isPresent()) {
+            PagesSerde.writeCompressedPages(blockEncodingSerde, output, clientPages.build(), codec.get());
+        }
+        else {
+            PagesSerde.writePages(blockEncodingSerde, output, clientPages.build());
+        }
+    }
+
+    private Page toClientPage(ConnectorSession session, List<Type> types, Page page)
+            throws IOException
+    {
+        Block[] blocks = new Block[types.size()];
+        for (int channel = 0; channel < types.size(); channel++) {
+            Type type = types.get(channel);
+            Block block = page.getBlock(channel);
+            if (isNativeType(type.getTypeSignature().getBase())) {
+                blocks[channel] = block;
+                continue;
+            }
+
+            // the client has no types for these values, so send them as they appear in the JSON rows
+            BlockBuilder builder = VARCHAR.createBlockBuilder(new BlockBuilderStatus(), block.getPositionCount());
+            for (int position = 0; position < block.getPositionCount(); position++) {
+                if (block.isNull(position)) {
+                    builder.appendNull();
+                }
+                else {
+                    VARCHAR.writeSlice(builder, wrappedBuffer(objectMapper.writeValueAsBytes(type.getObjectValue(session, block, position))));
+                }
+            }
+            blocks[channel] = builder.build();
+        }
+        return new Page(page.getPositionCount(), blocks);
+    }
+}
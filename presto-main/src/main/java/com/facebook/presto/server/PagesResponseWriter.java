@@ -13,6 +13,7 @@
  */
 package com.facebook.presto.server;
 
+import com.facebook.presto.block.PageCompressionCodec;
 import com.facebook.presto.block.PagesSerde;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.block.BlockEncodingSerde;
@@ -36,8 +37,10 @@ import java.io.OutputStream;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Type;
 import java.util.List;
+import java.util.Optional;
 
 import static com.facebook.presto.PrestoMediaTypes.PRESTO_PAGES;
+import static com.facebook.presto.client.PrestoHeaders.PRESTO_PAGE_CODEC;
 
 @Provider
 @Produces(PRESTO_PAGES)
@@ -89,8 +92,17 @@ public class PagesResponseWriter
             throws IOException, WebApplicationException
     {
         try {
+            // the resource sets the codec header when the client negotiated compression
+            Object codecHeader = httpHeaders.getFirst(PRESTO_PAGE_CODEC);
+            Optional<PageCompressionCodec> codec = PageCompressionCodec.fromHeader(codecHeader == null ? null : codecHeader.toString());
+
             SliceOutput sliceOutput = new OutputStreamSliceOutput(output);
-            PagesSerde.writePages(blockEncodingSerde, sliceOutput, pages);
+            if (codec.isPresent()) {
+                PagesSerde.writeCompressedPages(blockEncodingSerde, sliceOutput, pages, codec.get());
+            }
+            else {
+                PagesSerde.writePages(blockEncodingSerde, sliceOutput, pages);
+            }
             // We use flush instead of close, because the underlying stream would be closed and that is not allowed.
             sliceOutput.flush();
         }
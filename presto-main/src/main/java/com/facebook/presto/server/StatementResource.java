@@ -15,6 +15,7 @@ package com.facebook.presto.server;
 
 import com.facebook.presto.OutputBuffers.OutputBufferId;
 import com.facebook.presto.Session;
+import com.facebook.presto.block.PageCompressionCodec;
 import com.facebook.presto.client.ClientTypeSignature;
 import com.facebook.presto.client.Column;
 import com.facebook.presto.client.FailureInfo;
@@ -41,12 +42,15 @@ import com.facebook.presto.spi.ErrorCode;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.QueryId;
 import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.BlockBuilderStatus;
 import com.facebook.presto.spi.type.StandardTypes;
 import com.facebook.presto.spi.type.Type;
 import com.facebook.presto.spi.type.TypeSignature;
 import com.facebook.presto.transaction.TransactionId;
 import com.facebook.presto.transaction.TransactionManager;
 import com.google.common.base.Preconditions;
+import com.google.common.base.Splitter;
 import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
@@ -64,6 +68,7 @@ import javax.inject.Inject;
 import javax.servlet.http.HttpServletRequest;
 import javax.ws.rs.DELETE;
 import javax.ws.rs.GET;
+import javax.ws.rs.HeaderParam;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
@@ -92,19 +97,26 @@ import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.atomic.AtomicLong;
 
+import static com.facebook.presto.client.PrestoHeaders.PRESTO_ACCEPT_PAGE_CODEC;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_ADDED_PREPARE;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_CLEAR_SESSION;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_CLEAR_TRANSACTION_ID;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_DEALLOCATED_PREPARE;
+import static com.facebook.presto.client.PrestoHeaders.PRESTO_PAGE_CODEC;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_SET_SESSION;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_STARTED_TRANSACTION_ID;
+import static com.facebook.presto.client.QueryResultsPages.PRESTO_QUERY_RESULTS;
 import static com.facebook.presto.server.ResourceUtil.assertRequest;
 import static com.facebook.presto.server.ResourceUtil.createSessionForRequest;
 import static com.facebook.presto.server.ResourceUtil.urlEncode;
 import static com.facebook.presto.spi.StandardErrorCode.GENERIC_INTERNAL_ERROR;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
 import static com.facebook.presto.util.Failures.toFailure;
+import static com.facebook.presto.util.ImmutableCollectors.toImmutableList;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Strings.isNullOrEmpty;
+import static com.google.common.net.HttpHeaders.ACCEPT;
 import static io.airlift.concurrent.Threads.threadsNamed;
 import static io.airlift.http.client.HttpUriBuilder.uriBuilderFrom;
 import static io.airlift.units.DataSize.Unit.MEGABYTE;
@@ -174,16 +186,18 @@ public class StatementResource
         Query query = new Query(session, statement, queryManager, exchangeClient);
         queries.put(query.getQueryId(), query);
 
-        return getQueryResults(query, Optional.empty(), uriInfo, new Duration(1, MILLISECONDS));
+        return getQueryResults(query, Optional.empty(), uriInfo, new Duration(1, MILLISECONDS), false, Optional.empty());
     }
 
     @GET
     @Path("{queryId}/{token}")
-    @Produces(MediaType.APPLICATION_JSON)
+    @Produces({MediaType.APPLICATION_JSON, PRESTO_QUERY_RESULTS})
     public Response getQueryResults(
             @PathParam("queryId") QueryId queryId,
             @PathParam("token") long token,
             @QueryParam("maxWait") Duration maxWait,
+            @HeaderParam(ACCEPT) String accept,
+            @HeaderParam(PRESTO_ACCEPT_PAGE_CODEC) String acceptPageCodec,
             @Context UriInfo uriInfo)
             throws InterruptedException
     {
@@ -193,13 +207,13 @@ public class StatementResource
         }
 
         Duration wait = WAIT_ORDERING.min(MAX_WAIT_TIME, maxWait);
-        return getQueryResults(query, Optional.of(token), uriInfo, wait);
+        return getQueryResults(query, Optional.of(token), uriInfo, wait, acceptsQueryResultsPages(accept), PageCompressionCodec.fromHeader(acceptPageCodec));
     }
 
-    private static Response getQueryResults(Query query, Optional<Long> token, UriInfo uriInfo, Duration wait)
+    private static Response getQueryResults(Query query, Optional<Long> token, UriInfo uriInfo, Duration wait, boolean sendPages, Optional<PageCompressionCodec> pageCodec)
             throws InterruptedException
     {
-        QueryResults queryResults;
+        PagedQueryResults queryResults;
         if (token.isPresent()) {
             queryResults = query.getResults(token.get(), uriInfo, wait);
         }
@@ -207,7 +221,14 @@ public class StatementResource
             queryResults = query.getNextResults(uriInfo, wait);
         }
 
-        ResponseBuilder response = Response.ok(queryResults);
+        ResponseBuilder response;
+        if (sendPages) {
+            response = Response.ok(queryResults, PRESTO_QUERY_RESULTS);
+            pageCodec.ifPresent(codec -> response.header(PRESTO_PAGE_CODEC, codec.name()));
+        }
+        else {
+            response = Response.ok(queryResults.getQueryResults(), MediaType.APPLICATION_JSON);
+        }
 
         // add set session properties
         query.getSetSessionProperties().entrySet()
@@ -241,6 +262,20 @@ public class StatementResource
         return response.build();
     }
 
+    private static boolean acceptsQueryResultsPages(String accept)
+    {
+        if (accept == null) {
+            return false;
+        }
+        // wildcards don't count, only clients that can read the pages list them explicitly
+        for (String mediaType : Splitter.on(',').trimResults().omitEmptyStrings().split(accept)) {
+            if (Splitter.on(';').trimResults().split(mediaType).iterator().next().equalsIgnoreCase(PRESTO_QUERY_RESULTS)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
     @DELETE
     @Path("{queryId}/{token}")
     @Produces(MediaType.APPLICATION_JSON)
@@ -266,7 +301,7 @@ public class StatementResource
         private final Session session;
 
         @GuardedBy("this")
-        private QueryResults lastResult;
+        private PagedQueryResults lastResult;
 
         @GuardedBy("this")
         private String lastResultPath;
@@ -274,6 +309,9 @@ public class StatementResource
         @GuardedBy("this")
         private List<Column> columns;
 
+        @GuardedBy("this")
+        private List<Type> types;
+
         @GuardedBy("this")
         private Map<String, String> setSessionProperties;
 
@@ -359,7 +397,7 @@ public class StatementResource
             return clearTransactionId;
         }
 
-        public synchronized QueryResults getResults(long token, UriInfo uriInfo, Duration maxWaitTime)
+        public synchronized PagedQueryResults getResults(long token, UriInfo uriInfo, Duration maxWaitTime)
                 throws InterruptedException
         {
             // is the a repeated request for the last results?
@@ -376,7 +414,8 @@ public class StatementResource
             }
 
             // if this is not a request for the next results, return not found
-            if (lastResult.getNextUri() == null || !requestedPath.equals(lastResult.getNextUri().getPath())) {
+            URI lastNextUri = lastResult.getQueryResults().getNextUri();
+            if (lastNextUri == null || !requestedPath.equals(lastNextUri.getPath())) {
                 // unknown token
                 throw new WebApplicationException(Status.NOT_FOUND);
             }
@@ -384,10 +423,10 @@ public class StatementResource
             return getNextResults(uriInfo, maxWaitTime);
         }
 
-        public synchronized QueryResults getNextResults(UriInfo uriInfo, Duration maxWaitTime)
+        public synchronized PagedQueryResults getNextResults(UriInfo uriInfo, Duration maxWaitTime)
                 throws InterruptedException
         {
-            Iterable<List<Object>> data = getData(maxWaitTime);
+            List<Page> pages = getPages(maxWaitTime);
 
             // get the query info before returning
             // force update if query manager is closed
@@ -402,17 +441,23 @@ public class StatementResource
 
             // TODO: figure out a better way to do this
             // grab the update count for non-queries
-            if ((data != null) && (queryInfo.getUpdateType() != null) && (updateCount == null) &&
+            if ((pages != null) && (queryInfo.getUpdateType() != null) && (updateCount == null) &&
                     (columns.size() == 1) && (columns.get(0).getType().equals(StandardTypes.BIGINT))) {
-                Iterator<List<Object>> iterator = data.iterator();
-                if (iterator.hasNext()) {
-                    Number number = (Number) iterator.next().get(0);
-                    if (number != null) {
-                        updateCount = number.longValue();
-                    }
+                Optional<Page> page = pages.stream()
+                        .filter(candidate -> candidate.getPositionCount() > 0)
+                        .findFirst();
+                if (page.isPresent() && !page.get().getBlock(0).isNull(0)) {
+                    updateCount = BIGINT.getLong(page.get().getBlock(0), 0);
                 }
             }
 
+            Iterable<List<Object>> data = null;
+            if (pages != null) {
+                data = Iterables.concat(pages.stream()
+                        .map(page -> new RowIterable(session.toConnectorSession(), types, page))
+                        .collect(toImmutableList()));
+            }
+
             // close exchange client if the query has failed
             if (queryInfo.getState().isDone()) {
                 if (queryInfo.getState() != QueryState.FINISHED) {
@@ -426,6 +471,10 @@ public class StatementResource
                     // Return a single value for clients that require a result.
                     columns = ImmutableList.of(new Column("result", "boolean", new ClientTypeSignature(StandardTypes.BOOLEAN, ImmutableList.of())));
                     data = ImmutableSet.of(ImmutableList.of(true));
+                    types = ImmutableList.of(BOOLEAN);
+                    BlockBuilder result = BOOLEAN.createBlockBuilder(new BlockBuilderStatus(), 1);
+                    BOOLEAN.writeBoolean(result, true);
+                    pages = ImmutableList.of(new Page(result.build()));
                 }
             }
 
@@ -461,17 +510,17 @@ public class StatementResource
                     updateCount);
 
             // cache the last results
-            if (lastResult != null && lastResult.getNextUri() != null) {
-                lastResultPath = lastResult.getNextUri().getPath();
+            if (lastResult != null && lastResult.getQueryResults().getNextUri() != null) {
+                lastResultPath = lastResult.getQueryResults().getNextUri().getPath();
             }
             else {
                 lastResultPath = null;
             }
-            lastResult = queryResults;
-            return queryResults;
+            lastResult = new PagedQueryResults(queryResults, session.toConnectorSession(), types, pages);
+            return lastResult;
         }
 
-        private synchronized Iterable<List<Object>> getData(Duration maxWait)
+        private synchronized List<Page> getPages(Duration maxWait)
                 throws InterruptedException
         {
             // wait for query to start
@@ -490,13 +539,12 @@ public class StatementResource
 
             if (columns == null) {
                 columns = createColumnsList(queryInfo);
+                types = outputStage.getTypes();
             }
 
-            List<Type> types = outputStage.getTypes();
-
             updateExchangeClient(outputStage);
 
-            ImmutableList.Builder<RowIterable> pages = ImmutableList.builder();
+            ImmutableList.Builder<Page> pages = ImmutableList.builder();
             // wait up to max wait for data to arrive; then try to return at least DESIRED_RESULT_BYTES
             long bytes = 0;
             while (bytes < DESIRED_RESULT_BYTES) {
@@ -505,7 +553,7 @@ public class StatementResource
                     break;
                 }
                 bytes += page.getSizeInBytes();
-                pages.add(new RowIterable(session.toConnectorSession(), types, page));
+                pages.add(page);
 
                 // only wait on first call
                 maxWait = new Duration(0, MILLISECONDS);
@@ -515,7 +563,7 @@ public class StatementResource
                 return null;
             }
 
-            return Iterables.concat(pages.build());
+            return pages.build();
         }
 
         private static boolean isQueryStarted(QueryInfo queryInfo)
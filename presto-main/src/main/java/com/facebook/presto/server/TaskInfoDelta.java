@@ -0,0 +1,203 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.server;
+
+import com.facebook.presto.execution.TaskInfo;
+import com.facebook.presto.operator.PipelineStats;
+import com.fasterxml.jackson.annotation.JsonCreator;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
+import com.google.common.collect.ImmutableList;
+import com.google.common.hash.HashFunction;
+import com.google.common.hash.Hasher;
+
+import javax.annotation.concurrent.Immutable;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.List;
+
+import static com.facebook.presto.util.ImmutableCollectors.toImmutableList;
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.hash.Funnels.asOutputStream;
+import static com.google.common.hash.Hashing.murmur3_128;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Task info that only carries the pipeline stats that changed since the task info the
+ * coordinator already has. The coordinator sends the digests of the pipelines it knows
+ * about, and the worker leaves out every pipeline whose digest did not change. A digest
+ * is a hash of the serialized pipeline stats, so it covers every field the coordinator
+ * would receive, including the driver and operator stats and the operator info.
+ */
+@Immutable
+public class TaskInfoDelta
+{
+    private static final Joiner DIGEST_JOINER = Joiner.on(',');
+    private static final Splitter DIGEST_SPLITTER = Splitter.on(',').trimResults().omitEmptyStrings();
+    private static final HashFunction DIGEST_FUNCTION = murmur3_128();
+
+    private final TaskInfo taskInfo;
+    private final List<Long> pipelineDigests;
+
+    @JsonCreator
+    public TaskInfoDelta(
+            @JsonProperty("taskInfo") TaskInfo taskInfo,
+            @JsonProperty("pipelineDigests") List<Long> pipelineDigests)
+    {
+        this.taskInfo = requireNonNull(taskInfo, "taskInfo is null");
+        this.pipelineDigests = ImmutableList.copyOf(requireNonNull(pipelineDigests, "pipelineDigests is null"));
+        checkArgument(taskInfo.getStats().getPipelines().size() <= pipelineDigests.size(), "more pipelines than digests");
+    }
+
+    /**
+     * Task info whose stats only contain the pipelines that changed.
+     */
+    @JsonProperty
+    public TaskInfo getTaskInfo()
+    {
+        return taskInfo;
+    }
+
+    /**
+     * Digests of all pipelines of the task, in pipeline order.
+     */
+    @JsonProperty
+    public List<Long> getPipelineDigests()
+    {
+        return pipelineDigests;
+    }
+
+    public boolean isComplete()
+    {
+        return taskInfo.getStats().getPipelines().size() == pipelineDigests.size();
+    }
+
+    public int getOmittedPipelines()
+    {
+        return pipelineDigests.size() - taskInfo.getStats().getPipelines().size();
+    }
+
+    /**
+     * Creates the delta of the task info against the pipelines with the given digests. All
+     * pipelines are included once the task is done, so the final task info is always complete.
+     * The pipeline stats are serialized with the given mapper to compute their digests.
+     */
+    public static TaskInfoDelta createTaskInfoDelta(TaskInfo taskInfo, List<Long> knownPipelineDigests, ObjectMapper objectMapper)
+    {
+        requireNonNull(taskInfo, "taskInfo is null");
+        requireNonNull(knownPipelineDigests, "knownPipelineDigests is null");
+        requireNonNull(objectMapper, "objectMapper is null");
+
+        List<PipelineStats> pipelines = taskInfo.getStats().getPipelines();
+        List<Long> digests = pipelines.stream()
+                .map(pipeline -> digest(pipeline, objectMapper))
+                .collect(toImmutableList());
+
+        if (taskInfo.getTaskStatus().getState().isDone() || knownPipelineDigests.size() != digests.size()) {
+            return new TaskInfoDelta(taskInfo, digests);
+        }
+
+        ImmutableList.Builder<PipelineStats> changedPipelines = ImmutableList.builder();
+        for (int i = 0; i < pipelines.size(); i++) {
+            if (!digests.get(i).equals(knownPipelineDigests.get(i))) {
+                changedPipelines.add(pipelines.get(i));
+            }
+        }
+        return new TaskInfoDelta(withPipelines(taskInfo, changedPipelines.build()), digests);
+    }
+
+    /**
+     * Restores the full task info from the task info the delta was created against.
+     */
+    public TaskInfo apply(TaskInfo baseTaskInfo, List<Long> basePipelineDigests)
+    {
+        if (isComplete()) {
+            return taskInfo;
+        }
+
+        List<PipelineStats> basePipelines = baseTaskInfo.getStats().getPipelines();
+        checkArgument(basePipelines.size() == pipelineDigests.size() && basePipelineDigests.size() == pipelineDigests.size(), "delta does not match the base task info");
+
+        ImmutableList.Builder<PipelineStats> pipelines = ImmutableList.builder();
+        Iterator<PipelineStats> changedPipelines = taskInfo.getStats().getPipelines().iterator();
+        for (int i = 0; i < pipelineDigests.size(); i++) {
+            if (pipelineDigests.get(i).equals(basePipelineDigests.get(i))) {
+                pipelines.add(basePipelines.get(i));
+            }
+            else {
+                checkArgument(changedPipelines.hasNext(), "delta does not match the base task info");
+                pipelines.add(changedPipelines.next());
+            }
+        }
+        checkArgument(!changedPipelines.hasNext(), "delta does not match the base task info");
+        return withPipelines(taskInfo, pipelines.build());
+    }
+
+    public static String formatPipelineDigests(List<Long> pipelineDigests)
+    {
+        return DIGEST_JOINER.join(pipelineDigests.stream()
+                .map(Long::toHexString)
+                .iterator());
+    }
+
+    public static List<Long> parsePipelineDigests(String pipelineDigests)
+    {
+        if (pipelineDigests == null) {
+            return ImmutableList.of();
+        }
+        ImmutableList.Builder<Long> digests = ImmutableList.builder();
+        for (String digest : DIGEST_SPLITTER.split(pipelineDigests)) {
+            digests.add(Long.parseUnsignedLong(digest, 16));
+        }
+        return digests.build();
+    }
+
+    private static TaskInfo withPipelines(TaskInfo taskInfo, List<PipelineStats> pipelines)
+    {
+        return new TaskInfo(
+                taskInfo.getTaskStatus(),
+                taskInfo.getLastHeartbeat(),
+                taskInfo.getOutputBuffers(),
+                taskInfo.getNoMoreSplits(),
+                taskInfo.getStats().withPipelines(pipelines),
+                taskInfo.isNeedsPlan(),
+                taskInfo.isComplete());
+    }
+
+    private static long digest(PipelineStats pipeline, ObjectMapper objectMapper)
+    {
+        Hasher hasher = DIGEST_FUNCTION.newHasher();
+        try {
+            objectMapper.writeValue(asOutputStream(hasher), pipeline);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return hasher.hash().asLong();
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("taskInfo", taskInfo)
+                .add("pipelineDigests", pipelineDigests)
+                .toString();
+    }
+}
@@ -15,6 +15,7 @@ package com.facebook.presto.server;
 
 import com.facebook.presto.OutputBuffers.OutputBufferId;
 import com.facebook.presto.Session;
+import com.facebook.presto.block.PageCompressionCodec;
 import com.facebook.presto.execution.TaskId;
 import com.facebook.presto.execution.TaskInfo;
 import com.facebook.presto.execution.TaskManager;
@@ -23,6 +24,7 @@ import com.facebook.presto.execution.TaskStatus;
 import com.facebook.presto.execution.buffer.BufferResult;
 import com.facebook.presto.metadata.SessionPropertyManager;
 import com.facebook.presto.spi.Page;
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.collect.ImmutableList;
 import com.google.common.reflect.TypeToken;
 import io.airlift.concurrent.BoundedExecutor;
@@ -54,19 +56,26 @@ import javax.ws.rs.core.Response.Status;
 import javax.ws.rs.core.UriInfo;
 
 import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ThreadLocalRandom;
 
+import static com.facebook.presto.PrestoMediaTypes.APPLICATION_JACKSON_SMILE;
 import static com.facebook.presto.PrestoMediaTypes.PRESTO_PAGES;
+import static com.facebook.presto.client.PrestoHeaders.PRESTO_ACCEPT_PAGE_CODEC;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_BUFFER_COMPLETE;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_CURRENT_STATE;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_MAX_SIZE;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_MAX_WAIT;
+import static com.facebook.presto.client.PrestoHeaders.PRESTO_PAGE_CODEC;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_PAGE_NEXT_TOKEN;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_PAGE_TOKEN;
+import static com.facebook.presto.client.PrestoHeaders.PRESTO_TASK_INFO_PIPELINE_DIGESTS;
 import static com.facebook.presto.client.PrestoHeaders.PRESTO_TASK_INSTANCE_ID;
+import static com.facebook.presto.server.TaskInfoDelta.createTaskInfoDelta;
+import static com.facebook.presto.server.TaskInfoDelta.parsePipelineDigests;
 import static com.google.common.collect.Iterables.transform;
 import static io.airlift.concurrent.MoreFutures.addTimeout;
 import static io.airlift.http.server.AsyncResponseHandler.bindAsyncResponse;
@@ -87,6 +96,7 @@ public class TaskResource
     private final SessionPropertyManager sessionPropertyManager;
     private final Executor responseExecutor;
     private final ScheduledExecutorService timeoutExecutor;
+    private final ObjectMapper objectMapper;
     private final TimeStat readFromOutputBufferTime = new TimeStat();
     private final TimeStat resultsRequestTime = new TimeStat();
 
@@ -94,12 +104,14 @@ public class TaskResource
     public TaskResource(TaskManager taskManager,
             SessionPropertyManager sessionPropertyManager,
             @ForAsyncHttp BoundedExecutor responseExecutor,
-            @ForAsyncHttp ScheduledExecutorService timeoutExecutor)
+            @ForAsyncHttp ScheduledExecutorService timeoutExecutor,
+            ObjectMapper objectMapper)
     {
         this.taskManager = requireNonNull(taskManager, "taskManager is null");
         this.sessionPropertyManager = requireNonNull(sessionPropertyManager, "sessionPropertyManager is null");
         this.responseExecutor = requireNonNull(responseExecutor, "responseExecutor is null");
         this.timeoutExecutor = requireNonNull(timeoutExecutor, "timeoutExecutor is null");
+        this.objectMapper = requireNonNull(objectMapper, "objectMapper is null");
     }
 
     @GET
@@ -137,7 +149,7 @@ public class TaskResource
 
     @GET
     @Path("{taskId}")
-    @Produces(MediaType.APPLICATION_JSON)
+    @Produces({MediaType.APPLICATION_JSON, APPLICATION_JACKSON_SMILE})
     public void getTaskInfo(@PathParam("taskId") final TaskId taskId,
             @HeaderParam(PRESTO_CURRENT_STATE) TaskState currentState,
             @HeaderParam(PRESTO_MAX_WAIT) Duration maxWait,
@@ -172,9 +184,20 @@ public class TaskResource
                 .withTimeout(timeout);
     }
 
+    @GET
+    @Path("{taskId}/delta")
+    @Produces({MediaType.APPLICATION_JSON, APPLICATION_JACKSON_SMILE})
+    public TaskInfoDelta getTaskInfoDelta(@PathParam("taskId") TaskId taskId,
+            @HeaderParam(PRESTO_TASK_INFO_PIPELINE_DIGESTS) String pipelineDigests)
+    {
+        requireNonNull(taskId, "taskId is null");
+
+        return createTaskInfoDelta(taskManager.getTaskInfo(taskId), parsePipelineDigests(pipelineDigests), objectMapper);
+    }
+
     @GET
     @Path("{taskId}/status")
-    @Produces(MediaType.APPLICATION_JSON)
+    @Produces({MediaType.APPLICATION_JSON, APPLICATION_JACKSON_SMILE})
     public void getTaskStatus(@PathParam("taskId") TaskId taskId,
             @HeaderParam(PRESTO_CURRENT_STATE) TaskState currentState,
             @HeaderParam(PRESTO_MAX_WAIT) Duration maxWait,
@@ -224,12 +247,16 @@ public class TaskResource
             @PathParam("bufferId") OutputBufferId bufferId,
             @PathParam("token") final long token,
             @HeaderParam(PRESTO_MAX_SIZE) DataSize maxSize,
+            @HeaderParam(PRESTO_ACCEPT_PAGE_CODEC) String acceptPageCodec,
             @Suspended AsyncResponse asyncResponse)
             throws InterruptedException
     {
         requireNonNull(taskId, "taskId is null");
         requireNonNull(bufferId, "bufferId is null");
 
+        // only compress if the client asked for a codec this worker knows, so older clients and servers keep working
+        Optional<PageCompressionCodec> pageCodec = PageCompressionCodec.fromHeader(acceptPageCodec);
+
         long start = System.nanoTime();
         CompletableFuture<BufferResult> bufferResultFuture = taskManager.getTaskResults(taskId, bufferId, token, maxSize);
         Duration waitTime = randomizeWaitTime(DEFAULT_MAX_WAIT_TIME);
@@ -252,13 +279,16 @@ public class TaskResource
                 status = Status.OK;
             }
 
-            return Response.status(status)
+            Response.ResponseBuilder response = Response.status(status)
                     .entity(entity)
                     .header(PRESTO_TASK_INSTANCE_ID, result.getTaskInstanceId())
                     .header(PRESTO_PAGE_TOKEN, result.getToken())
                     .header(PRESTO_PAGE_NEXT_TOKEN, result.getNextToken())
-                    .header(PRESTO_BUFFER_COMPLETE, result.isBufferComplete())
-                    .build();
+                    .header(PRESTO_BUFFER_COMPLETE, result.isBufferComplete());
+            if (entity != null && pageCodec.isPresent()) {
+                response.header(PRESTO_PAGE_CODEC, pageCodec.get().name());
+            }
+            return response.build();
         });
 
         // For hard timeout, add an additional 5 seconds to max wait for thread scheduling contention and GC
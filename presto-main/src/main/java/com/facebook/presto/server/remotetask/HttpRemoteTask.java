@@ -16,6 +16,7 @@ package com.facebook.presto.server.remotetask;
 import com.facebook.presto.OutputBuffers;
 import com.facebook.presto.ScheduledSplit;
 import com.facebook.presto.Session;
+import com.facebook.presto.SessionRepresentation;
 import com.facebook.presto.TaskSource;
 import com.facebook.presto.execution.NodeTaskMap.PartitionedSplitCountTracker;
 import com.facebook.presto.execution.RemoteTask;
@@ -28,10 +29,13 @@ import com.facebook.presto.execution.buffer.BufferInfo;
 import com.facebook.presto.execution.buffer.PageBufferInfo;
 import com.facebook.presto.metadata.Split;
 import com.facebook.presto.operator.TaskStats;
+import com.facebook.presto.server.TaskInfoDelta;
 import com.facebook.presto.server.TaskUpdateRequest;
+import com.facebook.presto.server.smile.BaseResponse;
 import com.facebook.presto.sql.planner.PlanFragment;
 import com.facebook.presto.sql.planner.plan.PlanNode;
 import com.facebook.presto.sql.planner.plan.PlanNodeId;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.HashMultimap;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Multimap;
@@ -66,6 +70,7 @@ import java.util.concurrent.Executor;
 import java.util.concurrent.Future;
 import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicLong;
@@ -77,15 +82,18 @@ import static com.facebook.presto.execution.TaskState.ABORTED;
 import static com.facebook.presto.execution.TaskState.FAILED;
 import static com.facebook.presto.execution.TaskStatus.failWith;
 import static com.facebook.presto.server.remotetask.RequestErrorTracker.logError;
+import static com.facebook.presto.server.smile.AdaptingJsonResponseHandler.createAdaptingJsonResponseHandler;
 import static com.facebook.presto.util.Failures.toFailure;
 import static com.facebook.presto.util.ImmutableCollectors.toImmutableList;
+import static com.facebook.presto.util.ImmutableCollectors.toImmutableSet;
 import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
 import static io.airlift.http.client.FullJsonResponseHandler.createFullJsonResponseHandler;
 import static io.airlift.http.client.HttpUriBuilder.uriBuilderFrom;
-import static io.airlift.http.client.JsonBodyGenerator.jsonBodyGenerator;
 import static io.airlift.http.client.Request.Builder.prepareDelete;
 import static io.airlift.http.client.Request.Builder.preparePost;
+import static io.airlift.http.client.StaticBodyGenerator.createStaticBodyGenerator;
 import static java.util.Objects.requireNonNull;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.concurrent.TimeUnit.NANOSECONDS;
@@ -99,7 +107,7 @@ public final class HttpRemoteTask
 
     private final TaskId taskId;
 
-    private final Session session;
+    private final SessionRepresentation session;
     private final String nodeId;
     private final PlanFragment planFragment;
 
@@ -128,8 +136,14 @@ public final class HttpRemoteTask
 
     private final HttpClient httpClient;
     private final Executor executor;
+    private final ScheduledExecutorService updateScheduledExecutor;
     private final ScheduledExecutorService errorScheduledExecutor;
 
+    private final int maxSplitsPerUpdate;
+    private final long updateBatchDelayMillis;
+    @GuardedBy("this")
+    private ScheduledFuture<?> batchedUpdate;
+
     private final JsonCodec<TaskInfo> taskInfoCodec;
     private final JsonCodec<TaskUpdateRequest> taskUpdateRequestCodec;
 
@@ -154,8 +168,12 @@ public final class HttpRemoteTask
             Duration minErrorDuration,
             Duration taskStatusRefreshMaxWait,
             Duration taskInfoUpdateInterval,
+            int maxSplitsPerUpdate,
+            Duration updateBatchDelay,
             boolean summarizeTaskInfo,
-            JsonCodec<TaskStatus> taskStatusCodec,
+            ResponseDecoder<TaskStatus> taskStatusDecoder,
+            ResponseDecoder<TaskInfo> taskInfoDecoder,
+            Optional<ResponseDecoder<TaskInfoDelta>> taskInfoDeltaDecoder,
             JsonCodec<TaskInfo> taskInfoCodec,
             JsonCodec<TaskUpdateRequest> taskUpdateRequestCodec,
             PartitionedSplitCountTracker partitionedSplitCountTracker,
@@ -169,7 +187,11 @@ public final class HttpRemoteTask
         requireNonNull(outputBuffers, "outputBuffers is null");
         requireNonNull(httpClient, "httpClient is null");
         requireNonNull(executor, "executor is null");
-        requireNonNull(taskStatusCodec, "taskStatusCodec is null");
+        checkArgument(maxSplitsPerUpdate > 0, "maxSplitsPerUpdate must be positive");
+        requireNonNull(updateBatchDelay, "updateBatchDelay is null");
+        requireNonNull(taskStatusDecoder, "taskStatusDecoder is null");
+        requireNonNull(taskInfoDecoder, "taskInfoDecoder is null");
+        requireNonNull(taskInfoDeltaDecoder, "taskInfoDeltaDecoder is null");
         requireNonNull(taskInfoCodec, "taskInfoCodec is null");
         requireNonNull(taskUpdateRequestCodec, "taskUpdateRequestCodec is null");
         requireNonNull(partitionedSplitCountTracker, "partitionedSplitCountTracker is null");
@@ -177,13 +199,17 @@ public final class HttpRemoteTask
 
         try (SetThreadName ignored = new SetThreadName("HttpRemoteTask-%s", taskId)) {
             this.taskId = taskId;
-            this.session = session;
+            // the session does not change, so it is converted only once for all updates
+            this.session = session.toSessionRepresentation();
             this.nodeId = nodeId;
             this.planFragment = planFragment;
             this.outputBuffers.set(outputBuffers);
             this.httpClient = httpClient;
             this.executor = executor;
+            this.updateScheduledExecutor = updateScheduledExecutor;
             this.errorScheduledExecutor = errorScheduledExecutor;
+            this.maxSplitsPerUpdate = maxSplitsPerUpdate;
+            this.updateBatchDelayMillis = updateBatchDelay.toMillis();
             this.summarizeTaskInfo = summarizeTaskInfo;
             this.taskInfoCodec = taskInfoCodec;
             this.taskUpdateRequestCodec = taskUpdateRequestCodec;
@@ -211,7 +237,7 @@ public final class HttpRemoteTask
                     this::failTask,
                     initialTask.getTaskStatus(),
                     taskStatusRefreshMaxWait,
-                    taskStatusCodec,
+                    taskStatusDecoder,
                     executor,
                     httpClient,
                     minErrorDuration,
@@ -223,7 +249,8 @@ public final class HttpRemoteTask
                     initialTask,
                     httpClient,
                     taskInfoUpdateInterval,
-                    taskInfoCodec,
+                    taskInfoDecoder,
+                    taskInfoDeltaDecoder,
                     minErrorDuration,
                     summarizeTaskInfo,
                     executor,
@@ -311,7 +338,13 @@ public final class HttpRemoteTask
             needsUpdate.set(true);
         }
 
-        scheduleUpdate();
+        // wait a little for more splits, unless a full update is already pending
+        if (updateBatchDelayMillis > 0 && pendingSplits.size() < maxSplitsPerUpdate) {
+            scheduleBatchedUpdate();
+        }
+        else {
+            scheduleUpdate();
+        }
     }
 
     @Override
@@ -409,6 +442,14 @@ public final class HttpRemoteTask
         executor.execute(this::sendUpdate);
     }
 
+    private synchronized void scheduleBatchedUpdate()
+    {
+        if (batchedUpdate != null && !batchedUpdate.isDone()) {
+            return;
+        }
+        batchedUpdate = updateScheduledExecutor.schedule(this::scheduleUpdate, updateBatchDelayMillis, MILLISECONDS);
+    }
+
     private synchronized void sendUpdate()
     {
         TaskStatus taskStatus = getTaskStatus();
@@ -443,45 +484,84 @@ public final class HttpRemoteTask
         if (sendPlan.get()) {
             fragment = Optional.of(planFragment);
         }
-        TaskUpdateRequest updateRequest = new TaskUpdateRequest(session.toSessionRepresentation(),
+        TaskUpdateRequest updateRequest = new TaskUpdateRequest(session,
                 fragment,
                 sources,
                 outputBuffers.get());
+        byte[] updateRequestJson = taskUpdateRequestCodec.toJsonBytes(updateRequest);
+        int splitCount = sources.stream()
+                .mapToInt(source -> source.getSplits().size())
+                .sum();
+        stats.updateRequest(updateRequestJson.length, splitCount);
 
         HttpUriBuilder uriBuilder = getHttpUriBuilder(taskStatus);
         Request request = preparePost()
                 .setUri(uriBuilder.build())
                 .setHeader(HttpHeaders.CONTENT_TYPE, MediaType.JSON_UTF_8.toString())
-                .setBodyGenerator(jsonBodyGenerator(taskUpdateRequestCodec, updateRequest))
+                .setBodyGenerator(createStaticBodyGenerator(updateRequestJson))
                 .build();
 
         updateErrorTracker.startRequest();
 
-        ListenableFuture<JsonResponse<TaskInfo>> future = httpClient.executeAsync(request, createFullJsonResponseHandler(taskInfoCodec));
+        ListenableFuture<BaseResponse<TaskInfo>> future = httpClient.executeAsync(request, createAdaptingJsonResponseHandler(taskInfoCodec));
         currentRequest = future;
         currentRequestStartNanos = System.nanoTime();
 
         // The needsUpdate flag needs to be set to false BEFORE adding the Future callback since callback might change the flag value
         // and does so without grabbing the instance lock.
         needsUpdate.set(false);
+        if (splitCount < pendingSplits.size()) {
+            // the remaining splits are sent once this update is acknowledged
+            needsUpdate.set(true);
+        }
 
         Futures.addCallback(future, new SimpleHttpResponseHandler<>(new UpdateResponseHandler(sources), request.getUri(), stats), executor);
     }
 
     private synchronized List<TaskSource> getSources()
     {
-        return Stream.concat(planFragment.getPartitionedSourceNodes().stream(), planFragment.getRemoteSourceNodes().stream())
+        List<PlanNodeId> planNodeIds = Stream.concat(planFragment.getPartitionedSourceNodes().stream(), planFragment.getRemoteSourceNodes().stream())
                 .filter(Objects::nonNull)
                 .map(PlanNode::getId)
-                .map(this::getSource)
+                .collect(toImmutableList());
+        return getSources(planNodeIds, pendingSplits, noMoreSplits, maxSplitsPerUpdate);
+    }
+
+    @VisibleForTesting
+    static List<TaskSource> getSources(List<PlanNodeId> planNodeIds, SetMultimap<PlanNodeId, ScheduledSplit> pendingSplits, Set<PlanNodeId> noMoreSplits, int maxSplitsPerUpdate)
+    {
+        long maxSequenceIdInUpdate = getMaxSequenceIdInUpdate(pendingSplits, maxSplitsPerUpdate);
+        return planNodeIds.stream()
+                .map(planNodeId -> getSource(planNodeId, pendingSplits.get(planNodeId), noMoreSplits.contains(planNodeId), maxSequenceIdInUpdate))
                 .filter(Objects::nonNull)
                 .collect(toImmutableList());
     }
 
-    private synchronized TaskSource getSource(PlanNodeId planNodeId)
+    private static long getMaxSequenceIdInUpdate(SetMultimap<PlanNodeId, ScheduledSplit> pendingSplits, int maxSplitsPerUpdate)
     {
-        Set<ScheduledSplit> splits = pendingSplits.get(planNodeId);
-        boolean noMoreSplits = this.noMoreSplits.contains(planNodeId);
+        if (pendingSplits.size() <= maxSplitsPerUpdate) {
+            return Long.MAX_VALUE;
+        }
+        // The worker ignores splits with a lower sequence id than the splits it has already
+        // acknowledged, so a partial update must contain the splits with the lowest sequence ids.
+        return pendingSplits.values().stream()
+                .mapToLong(ScheduledSplit::getSequenceId)
+                .sorted()
+                .skip(maxSplitsPerUpdate - 1)
+                .findFirst()
+                .getAsLong();
+    }
+
+    private static TaskSource getSource(PlanNodeId planNodeId, Set<ScheduledSplit> splits, boolean noMoreSplits, long maxSequenceId)
+    {
+        if (maxSequenceId != Long.MAX_VALUE) {
+            Set<ScheduledSplit> splitsInUpdate = splits.stream()
+                    .filter(split -> split.getSequenceId() <= maxSequenceId)
+                    .collect(toImmutableSet());
+            // no more splits can only be sent together with the last splits of the source
+            noMoreSplits &= splitsInUpdate.size() == splits.size();
+            splits = splitsInUpdate;
+        }
         TaskSource element = null;
         if (!splits.isEmpty() || noMoreSplits) {
             element = new TaskSource(planNodeId, splits, noMoreSplits);
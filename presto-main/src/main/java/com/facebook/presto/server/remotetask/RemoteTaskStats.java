@@ -18,15 +18,21 @@ import org.weakref.jmx.Managed;
 
 import javax.annotation.concurrent.ThreadSafe;
 
+import java.util.concurrent.atomic.AtomicLong;
+
 public class RemoteTaskStats
 {
     private final IncrementalAverage updateRoundTripMillis = new IncrementalAverage();
     private final IncrementalAverage infoRoundTripMillis = new IncrementalAverage();
     private final IncrementalAverage statusRoundTripMillis = new IncrementalAverage();
     private final IncrementalAverage responseSizeBytes = new IncrementalAverage();
+    private final IncrementalAverage responseDecodeCpuNanos = new IncrementalAverage();
+    private final IncrementalAverage updateRequestSizeBytes = new IncrementalAverage();
+    private final IncrementalAverage updateRequestSplits = new IncrementalAverage();
 
     private long requestSuccess;
     private long requestFailure;
+    private final AtomicLong deltaOmittedPipelines = new AtomicLong();
 
     public void statusRoundTripMillis(long roundTripMillis)
     {
@@ -48,6 +54,22 @@ public class RemoteTaskStats
         this.responseSizeBytes.add(responseSizeBytes);
     }
 
+    public void updateRequest(long requestSizeBytes, int splits)
+    {
+        updateRequestSizeBytes.add(requestSizeBytes);
+        updateRequestSplits.add(splits);
+    }
+
+    public void responseDecodeCpuNanos(long decodeCpuNanos)
+    {
+        responseDecodeCpuNanos.add(decodeCpuNanos);
+    }
+
+    public void deltaOmittedPipelines(int omittedPipelines)
+    {
+        deltaOmittedPipelines.addAndGet(omittedPipelines);
+    }
+
     public void updateSuccess()
     {
         requestSuccess++;
@@ -64,6 +86,30 @@ public class RemoteTaskStats
         return responseSizeBytes.get();
     }
 
+    @Managed
+    public double getUpdateRequestSizeBytes()
+    {
+        return updateRequestSizeBytes.get();
+    }
+
+    @Managed
+    public double getUpdateRequestSplits()
+    {
+        return updateRequestSplits.get();
+    }
+
+    @Managed
+    public double getResponseDecodeCpuNanos()
+    {
+        return responseDecodeCpuNanos.get();
+    }
+
+    @Managed
+    public long getDeltaOmittedPipelines()
+    {
+        return deltaOmittedPipelines.get();
+    }
+
     @Managed
     public double getStatusRoundTripMillis()
     {
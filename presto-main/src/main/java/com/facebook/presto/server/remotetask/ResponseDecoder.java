@@ -0,0 +1,66 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.server.remotetask;
+
+import com.facebook.presto.server.smile.BaseResponse;
+import com.facebook.presto.server.smile.SmileCodec;
+import com.google.common.net.MediaType;
+import io.airlift.http.client.ResponseHandler;
+import io.airlift.json.JsonCodec;
+
+import java.util.function.Supplier;
+
+import static com.facebook.presto.PrestoMediaTypes.JACKSON_SMILE;
+import static com.facebook.presto.server.smile.AdaptingJsonResponseHandler.createAdaptingJsonResponseHandler;
+import static com.facebook.presto.server.smile.FullSmileResponseHandler.createFullSmileResponseHandler;
+import static com.google.common.net.MediaType.JSON_UTF_8;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Decodes the responses of a worker resource either from JSON or from Smile, and knows
+ * the media type to request from the worker.
+ */
+public class ResponseDecoder<T>
+{
+    private final MediaType mediaType;
+    private final Supplier<ResponseHandler<BaseResponse<T>, RuntimeException>> responseHandlerFactory;
+
+    public static <T> ResponseDecoder<T> jsonResponseDecoder(JsonCodec<T> jsonCodec)
+    {
+        requireNonNull(jsonCodec, "jsonCodec is null");
+        return new ResponseDecoder<>(JSON_UTF_8, () -> createAdaptingJsonResponseHandler(jsonCodec));
+    }
+
+    public static <T> ResponseDecoder<T> smileResponseDecoder(SmileCodec<T> smileCodec)
+    {
+        requireNonNull(smileCodec, "smileCodec is null");
+        return new ResponseDecoder<>(JACKSON_SMILE, () -> createFullSmileResponseHandler(smileCodec));
+    }
+
+    private ResponseDecoder(MediaType mediaType, Supplier<ResponseHandler<BaseResponse<T>, RuntimeException>> responseHandlerFactory)
+    {
+        this.mediaType = requireNonNull(mediaType, "mediaType is null");
+        this.responseHandlerFactory = requireNonNull(responseHandlerFactory, "responseHandlerFactory is null");
+    }
+
+    public MediaType getMediaType()
+    {
+        return mediaType;
+    }
+
+    public ResponseHandler<BaseResponse<T>, RuntimeException> createResponseHandler()
+    {
+        return responseHandlerFactory.get();
+    }
+}
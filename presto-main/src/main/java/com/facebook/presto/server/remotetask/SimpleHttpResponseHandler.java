@@ -13,9 +13,9 @@
  */
 package com.facebook.presto.server.remotetask;
 
+import com.facebook.presto.server.smile.BaseResponse;
 import com.facebook.presto.spi.PrestoException;
 import com.google.common.util.concurrent.FutureCallback;
-import io.airlift.http.client.FullJsonResponseHandler;
 import io.airlift.http.client.HttpStatus;
 
 import java.net.URI;
@@ -25,7 +25,7 @@ import static java.lang.String.format;
 import static java.util.Objects.requireNonNull;
 
 public class SimpleHttpResponseHandler<T>
-        implements FutureCallback<FullJsonResponseHandler.JsonResponse<T>>
+        implements FutureCallback<BaseResponse<T>>
 {
     private final SimpleHttpResponseCallback<T> callback;
 
@@ -40,10 +40,11 @@ public class SimpleHttpResponseHandler<T>
     }
 
     @Override
-    public void onSuccess(FullJsonResponseHandler.JsonResponse<T> response)
+    public void onSuccess(BaseResponse<T> response)
     {
         stats.updateSuccess();
         stats.responseSize(response.getResponseSize());
+        stats.responseDecodeCpuNanos(response.getDecodeCpuNanos());
         try {
             if (response.getStatusCode() == HttpStatus.OK.code() && response.hasValue()) {
                 callback.success(response.getValue());
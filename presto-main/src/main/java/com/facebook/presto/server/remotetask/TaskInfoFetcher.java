@@ -17,28 +17,33 @@ import com.facebook.presto.execution.StateMachine;
 import com.facebook.presto.execution.TaskId;
 import com.facebook.presto.execution.TaskInfo;
 import com.facebook.presto.execution.TaskStatus;
+import com.facebook.presto.server.TaskInfoDelta;
+import com.facebook.presto.server.smile.BaseResponse;
+import com.google.common.collect.ImmutableList;
 import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import io.airlift.concurrent.SetThreadName;
-import io.airlift.http.client.FullJsonResponseHandler;
 import io.airlift.http.client.HttpClient;
 import io.airlift.http.client.HttpUriBuilder;
 import io.airlift.http.client.Request;
-import io.airlift.json.JsonCodec;
 import io.airlift.units.Duration;
 
 import javax.annotation.concurrent.GuardedBy;
 
 import java.net.URI;
+import java.util.List;
+import java.util.Optional;
 import java.util.concurrent.Executor;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.Consumer;
 
+import static com.facebook.presto.client.PrestoHeaders.PRESTO_TASK_INFO_PIPELINE_DIGESTS;
+import static com.facebook.presto.server.TaskInfoDelta.formatPipelineDigests;
+import static com.google.common.net.HttpHeaders.ACCEPT;
 import static com.google.common.net.HttpHeaders.CONTENT_TYPE;
 import static com.google.common.net.MediaType.JSON_UTF_8;
-import static io.airlift.http.client.FullJsonResponseHandler.createFullJsonResponseHandler;
 import static io.airlift.http.client.HttpUriBuilder.uriBuilderFrom;
 import static io.airlift.http.client.Request.Builder.prepareGet;
 import static io.airlift.units.Duration.nanosSince;
@@ -51,7 +56,8 @@ public class TaskInfoFetcher
     private final TaskId taskId;
     private final Consumer<Throwable> onFail;
     private final StateMachine<TaskInfo> taskInfo;
-    private final JsonCodec<TaskInfo> taskInfoCodec;
+    private final ResponseDecoder<TaskInfo> taskInfoDecoder;
+    private final Optional<ResponseDecoder<TaskInfoDelta>> taskInfoDeltaDecoder;
 
     private final long updateIntervalMillis;
     private final AtomicLong lastUpdateNanos = new AtomicLong();
@@ -75,14 +81,19 @@ public class TaskInfoFetcher
     private ScheduledFuture<?> scheduledFuture;
 
     @GuardedBy("this")
-    private ListenableFuture<FullJsonResponseHandler.JsonResponse<TaskInfo>> future;
+    private ListenableFuture<?> future;
+
+    // digests of the pipelines of the current task info, empty if unknown
+    @GuardedBy("this")
+    private List<Long> pipelineDigests = ImmutableList.of();
 
     public TaskInfoFetcher(
             Consumer<Throwable> onFail,
             TaskInfo initialTask,
             HttpClient httpClient,
             Duration updateInterval,
-            JsonCodec<TaskInfo> taskInfoCodec,
+            ResponseDecoder<TaskInfo> taskInfoDecoder,
+            Optional<ResponseDecoder<TaskInfoDelta>> taskInfoDeltaDecoder,
             Duration minErrorDuration,
             boolean summarizeTaskInfo,
             Executor executor,
@@ -97,7 +108,8 @@ public class TaskInfoFetcher
         this.taskId = initialTask.getTaskStatus().getTaskId();
         this.onFail = requireNonNull(onFail, "onFail is null");
         this.taskInfo = new StateMachine<>("task " + taskId, executor, initialTask);
-        this.taskInfoCodec = requireNonNull(taskInfoCodec, "taskInfoCodec is null");
+        this.taskInfoDecoder = requireNonNull(taskInfoDecoder, "taskInfoDecoder is null");
+        this.taskInfoDeltaDecoder = requireNonNull(taskInfoDeltaDecoder, "taskInfoDeltaDecoder is null");
 
         this.updateIntervalMillis = requireNonNull(updateInterval, "updateInterval is null").toMillis();
         this.updateScheduledExecutor = requireNonNull(updateScheduledExecutor, "updateScheduledExecutor is null");
@@ -178,20 +190,51 @@ public class TaskInfoFetcher
             return;
         }
 
+        if (taskInfoDeltaDecoder.isPresent() && !summarizeTaskInfo) {
+            sendDeltaRequest(taskStatus, taskInfoDeltaDecoder.get());
+            return;
+        }
+
         HttpUriBuilder httpUriBuilder = uriBuilderFrom(taskStatus.getSelf());
         URI uri = summarizeTaskInfo ? httpUriBuilder.addParameter("summarize").build() : httpUriBuilder.build();
         Request request = prepareGet()
                 .setUri(uri)
                 .setHeader(CONTENT_TYPE, JSON_UTF_8.toString())
+                .setHeader(ACCEPT, taskInfoDecoder.getMediaType().toString())
+                .build();
+
+        errorTracker.startRequest();
+        ListenableFuture<BaseResponse<TaskInfo>> infoFuture = httpClient.executeAsync(request, taskInfoDecoder.createResponseHandler());
+        this.future = infoFuture;
+        currentRequestStartNanos.set(System.nanoTime());
+        Futures.addCallback(infoFuture, new SimpleHttpResponseHandler<>(this, request.getUri(), stats), executor);
+    }
+
+    private synchronized void sendDeltaRequest(TaskStatus taskStatus, ResponseDecoder<TaskInfoDelta> deltaDecoder)
+    {
+        // the delta is resolved against the task info we have now, even if the task info changes while the request is running
+        TaskInfoDeltaCallback callback = new TaskInfoDeltaCallback(getTaskInfo(), pipelineDigests);
+        Request request = prepareGet()
+                .setUri(uriBuilderFrom(taskStatus.getSelf()).appendPath("delta").build())
+                .setHeader(CONTENT_TYPE, JSON_UTF_8.toString())
+                .setHeader(ACCEPT, deltaDecoder.getMediaType().toString())
+                .setHeader(PRESTO_TASK_INFO_PIPELINE_DIGESTS, formatPipelineDigests(pipelineDigests))
                 .build();
 
         errorTracker.startRequest();
-        future = httpClient.executeAsync(request, createFullJsonResponseHandler(taskInfoCodec));
+        ListenableFuture<BaseResponse<TaskInfoDelta>> deltaFuture = httpClient.executeAsync(request, deltaDecoder.createResponseHandler());
+        this.future = deltaFuture;
         currentRequestStartNanos.set(System.nanoTime());
-        Futures.addCallback(future, new SimpleHttpResponseHandler<>(this, request.getUri(), stats), executor);
+        Futures.addCallback(deltaFuture, new SimpleHttpResponseHandler<>(callback, request.getUri(), stats), executor);
     }
 
     synchronized void updateTaskInfo(TaskInfo newValue)
+    {
+        // the pipeline digests of a task info from another source are not known
+        updateTaskInfo(newValue, ImmutableList.of());
+    }
+
+    private synchronized void updateTaskInfo(TaskInfo newValue, List<Long> newPipelineDigests)
     {
         boolean updated = taskInfo.setIf(newValue, oldValue -> {
             TaskStatus oldTaskStatus = oldValue.getTaskStatus();
@@ -204,6 +247,10 @@ public class TaskInfoFetcher
             return newTaskStatus.getVersion() >= oldTaskStatus.getVersion();
         });
 
+        if (updated) {
+            pipelineDigests = newPipelineDigests;
+        }
+
         if (updated && newValue.getTaskStatus().getState().isDone()) {
             stop();
         }
@@ -225,6 +272,23 @@ public class TaskInfoFetcher
         }
     }
 
+    private void success(TaskInfoDelta delta, TaskInfo baseTaskInfo, List<Long> basePipelineDigests)
+    {
+        try (SetThreadName ignored = new SetThreadName("TaskInfoFetcher-%s", taskId)) {
+            lastUpdateNanos.set(System.nanoTime());
+
+            long startNanos;
+            synchronized (this) {
+                startNanos = this.currentRequestStartNanos.get();
+            }
+            updateStats(startNanos);
+            stats.deltaOmittedPipelines(delta.getOmittedPipelines());
+            TaskInfo newValue = delta.apply(baseTaskInfo, basePipelineDigests);
+            errorTracker.requestSucceeded();
+            updateTaskInfo(newValue, delta.getPipelineDigests());
+        }
+    }
+
     @Override
     public void failed(Throwable cause)
     {
@@ -264,4 +328,35 @@ public class TaskInfoFetcher
     {
         return taskInfo.getTaskStatus().getState().isDone();
     }
+
+    private class TaskInfoDeltaCallback
+            implements SimpleHttpResponseCallback<TaskInfoDelta>
+    {
+        private final TaskInfo baseTaskInfo;
+        private final List<Long> basePipelineDigests;
+
+        public TaskInfoDeltaCallback(TaskInfo baseTaskInfo, List<Long> basePipelineDigests)
+        {
+            this.baseTaskInfo = requireNonNull(baseTaskInfo, "baseTaskInfo is null");
+            this.basePipelineDigests = requireNonNull(basePipelineDigests, "basePipelineDigests is null");
+        }
+
+        @Override
+        public void success(TaskInfoDelta delta)
+        {
+            TaskInfoFetcher.this.success(delta, baseTaskInfo, basePipelineDigests);
+        }
+
+        @Override
+        public void failed(Throwable cause)
+        {
+            TaskInfoFetcher.this.failed(cause);
+        }
+
+        @Override
+        public void fatal(Throwable cause)
+        {
+            TaskInfoFetcher.this.fatal(cause);
+        }
+    }
 }
@@ -0,0 +1,124 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.server.smile;
+
+import io.airlift.http.client.FullJsonResponseHandler;
+import io.airlift.http.client.FullJsonResponseHandler.JsonResponse;
+import io.airlift.http.client.Request;
+import io.airlift.http.client.Response;
+import io.airlift.http.client.ResponseHandler;
+import io.airlift.json.JsonCodec;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import static io.airlift.http.client.FullJsonResponseHandler.createFullJsonResponseHandler;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Exposes the responses of {@link FullJsonResponseHandler} as {@link BaseResponse}, so callers
+ * can handle JSON and Smile responses the same way.
+ */
+public class AdaptingJsonResponseHandler<T>
+        implements ResponseHandler<BaseResponse<T>, RuntimeException>
+{
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+    private final FullJsonResponseHandler<T> delegate;
+
+    public static <T> AdaptingJsonResponseHandler<T> createAdaptingJsonResponseHandler(JsonCodec<T> jsonCodec)
+    {
+        return new AdaptingJsonResponseHandler<>(createFullJsonResponseHandler(jsonCodec));
+    }
+
+    private AdaptingJsonResponseHandler(FullJsonResponseHandler<T> delegate)
+    {
+        this.delegate = requireNonNull(delegate, "delegate is null");
+    }
+
+    @Override
+    public BaseResponse<T> handleException(Request request, Exception exception)
+    {
+        return new JsonResponseWrapper<>(delegate.handleException(request, exception), 0);
+    }
+
+    @Override
+    public BaseResponse<T> handle(Request request, Response response)
+    {
+        long start = THREAD_MX_BEAN.getCurrentThreadCpuTime();
+        JsonResponse<T> jsonResponse = delegate.handle(request, response);
+        return new JsonResponseWrapper<>(jsonResponse, THREAD_MX_BEAN.getCurrentThreadCpuTime() - start);
+    }
+
+    private static class JsonResponseWrapper<T>
+            implements BaseResponse<T>
+    {
+        private final JsonResponse<T> response;
+        private final long decodeCpuNanos;
+
+        private JsonResponseWrapper(JsonResponse<T> response, long decodeCpuNanos)
+        {
+            this.response = requireNonNull(response, "response is null");
+            this.decodeCpuNanos = decodeCpuNanos;
+        }
+
+        @Override
+        public int getStatusCode()
+        {
+            return response.getStatusCode();
+        }
+
+        @Override
+        public String getStatusMessage()
+        {
+            return response.getStatusMessage();
+        }
+
+        @Override
+        public boolean hasValue()
+        {
+            return response.hasValue();
+        }
+
+        @Override
+        public T getValue()
+        {
+            return response.getValue();
+        }
+
+        @Override
+        public long getResponseSize()
+        {
+            return response.getResponseSize();
+        }
+
+        @Override
+        public String getResponseBody()
+        {
+            return response.getResponseBody();
+        }
+
+        @Override
+        public Exception getException()
+        {
+            return response.getException();
+        }
+
+        @Override
+        public long getDecodeCpuNanos()
+        {
+            return decodeCpuNanos;
+        }
+    }
+}
@@ -0,0 +1,39 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.server.smile;
+
+/**
+ * Response of a request to a worker, independent of the encoding of the response body.
+ */
+public interface BaseResponse<T>
+{
+    int getStatusCode();
+
+    String getStatusMessage();
+
+    boolean hasValue();
+
+    T getValue();
+
+    long getResponseSize();
+
+    String getResponseBody();
+
+    Exception getException();
+
+    /**
+     * CPU time spent reading and decoding the response body.
+     */
+    long getDecodeCpuNanos();
+}
@@ -0,0 +1,157 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.server.smile;
+
+import com.google.common.io.ByteStreams;
+import io.airlift.http.client.Request;
+import io.airlift.http.client.Response;
+import io.airlift.http.client.ResponseHandler;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+
+import static com.facebook.presto.PrestoMediaTypes.JACKSON_SMILE;
+import static com.google.common.net.HttpHeaders.CONTENT_TYPE;
+import static com.google.common.net.MediaType.parse;
+import static io.airlift.http.client.ResponseHandlerUtils.propagate;
+import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.Objects.requireNonNull;
+
+public class FullSmileResponseHandler<T>
+        implements ResponseHandler<BaseResponse<T>, RuntimeException>
+{
+    private static final ThreadMXBean THREAD_MX_BEAN = ManagementFactory.getThreadMXBean();
+
+    private final SmileCodec<T> smileCodec;
+
+    public static <T> FullSmileResponseHandler<T> createFullSmileResponseHandler(SmileCodec<T> smileCodec)
+    {
+        return new FullSmileResponseHandler<>(smileCodec);
+    }
+
+    private FullSmileResponseHandler(SmileCodec<T> smileCodec)
+    {
+        this.smileCodec = requireNonNull(smileCodec, "smileCodec is null");
+    }
+
+    @Override
+    public BaseResponse<T> handleException(Request request, Exception exception)
+    {
+        throw propagate(request, exception);
+    }
+
+    @Override
+    public BaseResponse<T> handle(Request request, Response response)
+    {
+        long start = THREAD_MX_BEAN.getCurrentThreadCpuTime();
+        byte[] bytes;
+        try {
+            bytes = ByteStreams.toByteArray(response.getInputStream());
+        }
+        catch (IOException e) {
+            throw new RuntimeException("Error reading response from server", e);
+        }
+
+        String contentType = response.getHeader(CONTENT_TYPE);
+        if (contentType == null || !parse(contentType).is(JACKSON_SMILE)) {
+            // error responses are plain text or JSON
+            return new SmileResponse<>(response.getStatusCode(), response.getStatusMessage(), bytes, null, null, THREAD_MX_BEAN.getCurrentThreadCpuTime() - start);
+        }
+
+        try {
+            T value = smileCodec.fromSmile(bytes);
+            return new SmileResponse<>(response.getStatusCode(), response.getStatusMessage(), bytes, value, null, THREAD_MX_BEAN.getCurrentThreadCpuTime() - start);
+        }
+        catch (IllegalArgumentException e) {
+            return new SmileResponse<>(response.getStatusCode(), response.getStatusMessage(), bytes, null, e, THREAD_MX_BEAN.getCurrentThreadCpuTime() - start);
+        }
+    }
+
+    public static class SmileResponse<T>
+            implements BaseResponse<T>
+    {
+        private final int statusCode;
+        private final String statusMessage;
+        private final byte[] bytes;
+        private final T value;
+        private final IllegalArgumentException exception;
+        private final long decodeCpuNanos;
+
+        public SmileResponse(int statusCode, String statusMessage, byte[] bytes, T value, IllegalArgumentException exception, long decodeCpuNanos)
+        {
+            this.statusCode = statusCode;
+            this.statusMessage = statusMessage;
+            this.bytes = requireNonNull(bytes, "bytes is null");
+            this.value = value;
+            this.exception = exception;
+            this.decodeCpuNanos = decodeCpuNanos;
+        }
+
+        @Override
+        public int getStatusCode()
+        {
+            return statusCode;
+        }
+
+        @Override
+        public String getStatusMessage()
+        {
+            return statusMessage;
+        }
+
+        @Override
+        public boolean hasValue()
+        {
+            return value != null;
+        }
+
+        @Override
+        public T getValue()
+        {
+            if (value == null) {
+                throw new IllegalStateException("Response does not contain a SMILE value", exception);
+            }
+            return value;
+        }
+
+        @Override
+        public long getResponseSize()
+        {
+            return bytes.length;
+        }
+
+        @Override
+        public String getResponseBody()
+        {
+            if (value != null) {
+                return format("<%s bytes of SMILE>", bytes.length);
+            }
+            return new String(bytes, UTF_8);
+        }
+
+        @Override
+        public Exception getException()
+        {
+            return exception;
+        }
+
+        @Override
+        public long getDecodeCpuNanos()
+        {
+            return decodeCpuNanos;
+        }
+    }
+}
@@ -0,0 +1,70 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.server.smile;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+
+import java.io.IOException;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Encodes objects as Smile, the binary form of JSON. It uses the same object mapper configuration,
+ * and therefore the same serializers, as the JSON codecs.
+ */
+public class SmileCodec<T>
+{
+    static final SmileFactory SMILE_FACTORY = new SmileFactory();
+
+    private final ObjectReader reader;
+    private final ObjectWriter writer;
+
+    public static <T> SmileCodec<T> smileCodec(ObjectMapper objectMapper, Class<T> type)
+    {
+        requireNonNull(objectMapper, "objectMapper is null");
+        return new SmileCodec<>(objectMapper, objectMapper.constructType(requireNonNull(type, "type is null")));
+    }
+
+    private SmileCodec(ObjectMapper objectMapper, JavaType type)
+    {
+        this.reader = objectMapper.readerFor(type).with(SMILE_FACTORY);
+        this.writer = objectMapper.writerFor(type).with(SMILE_FACTORY);
+    }
+
+    public T fromSmile(byte[] bytes)
+            throws IllegalArgumentException
+    {
+        try {
+            return reader.readValue(bytes);
+        }
+        catch (IOException e) {
+            throw new IllegalArgumentException("Invalid SMILE bytes", e);
+        }
+    }
+
+    public byte[] toSmile(T instance)
+            throws IllegalArgumentException
+    {
+        try {
+            return writer.writeValueAsBytes(instance);
+        }
+        catch (IOException e) {
+            throw new IllegalArgumentException("Instance can not be converted to SMILE", e);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.server.smile;
+
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import javax.inject.Inject;
+import javax.ws.rs.Consumes;
+import javax.ws.rs.Produces;
+import javax.ws.rs.WebApplicationException;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.MultivaluedMap;
+import javax.ws.rs.core.Response.Status;
+import javax.ws.rs.ext.MessageBodyReader;
+import javax.ws.rs.ext.MessageBodyWriter;
+import javax.ws.rs.ext.Provider;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Type;
+
+import static com.facebook.presto.PrestoMediaTypes.APPLICATION_JACKSON_SMILE;
+import static com.facebook.presto.server.smile.SmileCodec.SMILE_FACTORY;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Reads and writes resource entities as Smile when the client asks for it.
+ */
+@Provider
+@Consumes(APPLICATION_JACKSON_SMILE)
+@Produces(APPLICATION_JACKSON_SMILE)
+public class SmileMapper
+        implements MessageBodyReader<Object>, MessageBodyWriter<Object>
+{
+    private static final MediaType SMILE_MEDIA_TYPE = MediaType.valueOf(APPLICATION_JACKSON_SMILE);
+
+    private final ObjectMapper objectMapper;
+
+    @Inject
+    public SmileMapper(ObjectMapper objectMapper)
+    {
+        this.objectMapper = requireNonNull(objectMapper, "objectMapper is null");
+    }
+
+    @Override
+    public boolean isReadable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType)
+    {
+        return canReadOrWrite(type, mediaType);
+    }
+
+    @Override
+    public Object readFrom(Class<Object> type, Type genericType, Annotation[] annotations, MediaType mediaType, MultivaluedMap<String, String> httpHeaders, InputStream inputStream)
+            throws IOException
+    {
+        JavaType javaType = objectMapper.getTypeFactory().constructType(genericType);
+        try {
+            return objectMapper.readerFor(javaType).with(SMILE_FACTORY).readValue(inputStream);
+        }
+        catch (IOException e) {
+            throw new WebApplicationException(e, Status.BAD_REQUEST);
+        }
+    }
+
+    @Override
+    public boolean isWriteable(Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType)
+    {
+        return canReadOrWrite(type, mediaType);
+    }
+
+    @Override
+    public long getSize(Object value, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType)
+    {
+        return -1;
+    }
+
+    @Override
+    public void writeTo(Object value, Class<?> type, Type genericType, Annotation[] annotations, MediaType mediaType, MultivaluedMap<String, Object> httpHeaders, OutputStream outputStream)
+            throws IOException
+    {
+        JavaType javaType = objectMapper.getTypeFactory().constructType(genericType);
+        outputStream.write(objectMapper.writerFor(javaType).with(SMILE_FACTORY).writeValueAsBytes(value));
+    }
+
+    private static boolean canReadOrWrite(Class<?> type, MediaType mediaType)
+    {
+        return mediaType.isCompatible(SMILE_MEDIA_TYPE) &&
+                !InputStream.class.isAssignableFrom(type) &&
+                !OutputStream.class.isAssignableFrom(type) &&
+                !byte[].class.equals(type) &&
+                !String.class.equals(type);
+    }
+}
@@ -17,6 +17,7 @@ import com.facebook.presto.block.PagesSerde;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.block.BlockEncodingSerde;
+import com.google.common.collect.AbstractIterator;
 import com.google.common.io.Closer;
 import com.google.common.util.concurrent.ListeningExecutorService;
 import io.airlift.concurrent.MoreFutures;
@@ -73,13 +74,26 @@ public class BinaryFileSpiller
         Path spillPath = getPath(spillsCount++);
 
         return MoreFutures.toCompletableFuture(executor.submit(
-                () -> writePages(pageIterator, spillPath)
+                () -> writePages(pageIterator, spillPath, false)
         ));
     }
 
-    private void writePages(Iterator<Page> pageIterator, Path spillPath)
+    @Override
+    public CompletableFuture<?> append(Iterator<Page> pageIterator)
+    {
+        if (spillsCount == 0) {
+            return spill(pageIterator);
+        }
+        Path spillPath = getPath(spillsCount - 1);
+
+        return MoreFutures.toCompletableFuture(executor.submit(
+                () -> writePages(pageIterator, spillPath, true)
+        ));
+    }
+
+    private void writePages(Iterator<Page> pageIterator, Path spillPath, boolean append)
     {
-        try (SliceOutput output = new OutputStreamSliceOutput(new BufferedOutputStream(new FileOutputStream(spillPath.toFile())))) {
+        try (SliceOutput output = new OutputStreamSliceOutput(new BufferedOutputStream(new FileOutputStream(spillPath.toFile(), append)))) {
             PagesSerde.writePages(blockEncodingSerde, output, pageIterator);
         }
         catch (RuntimeIOException | IOException e) {
@@ -97,14 +111,32 @@ public class BinaryFileSpiller
 
     private Iterator<Page> readPages(Path spillPath)
     {
-        try {
-            InputStream input = new BufferedInputStream(new FileInputStream(spillPath.toFile()));
-            closer.register(input);
-            return PagesSerde.readPages(blockEncodingSerde, new InputStreamSliceInput(input));
-        }
-        catch (IOException e) {
-            throw new PrestoException(GENERIC_INTERNAL_ERROR, "Failed to read spilled pages", e);
-        }
+        // the file is opened only once the stream is read and closed as soon as it is exhausted,
+        // so reading many spilled streams one after another does not keep all of them open
+        return new AbstractIterator<Page>()
+        {
+            private InputStream input;
+            private Iterator<Page> pages;
+
+            @Override
+            protected Page computeNext()
+            {
+                try {
+                    if (pages == null) {
+                        input = closer.register(new BufferedInputStream(new FileInputStream(spillPath.toFile())));
+                        pages = PagesSerde.readPages(blockEncodingSerde, new InputStreamSliceInput(input));
+                    }
+                    if (!pages.hasNext()) {
+                        input.close();
+                        return endOfData();
+                    }
+                    return pages.next();
+                }
+                catch (IOException e) {
+                    throw new PrestoException(GENERIC_INTERNAL_ERROR, "Failed to read spilled pages", e);
+                }
+            }
+        };
     }
 
     @Override
@@ -28,6 +28,13 @@ public interface Spiller
      */
     CompletableFuture<?> spill(Iterator<Page> pageIterator);
 
+    /**
+     * Initiate appending of pages stream to the last spilled stream, or to a new stream if nothing
+     * was spilled yet. Returns completed future once spilling has finished. The previous spill
+     * must have finished before calling this method.
+     */
+    CompletableFuture<?> append(Iterator<Page> pageIterator);
+
     /**
      * Returns list of previously spilled Pages streams.
      */
@@ -20,6 +20,7 @@ import com.facebook.presto.spi.ColumnHandle;
 import com.facebook.presto.spi.ConnectorPageSource;
 import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.connector.ConnectorPageSourceProvider;
+import com.facebook.presto.spi.predicate.TupleDomain;
 
 import java.util.List;
 import java.util.concurrent.ConcurrentHashMap;
@@ -56,6 +57,21 @@ public class PageSourceManager
         return getPageSourceProvider(split).createPageSource(split.getTransactionHandle(), connectorSession, split.getConnectorSplit(), columns);
     }
 
+    @Override
+    public ConnectorPageSource createPageSource(Session session, Split split, List<ColumnHandle> columns, TupleDomain<ColumnHandle> dynamicFilter)
+    {
+        requireNonNull(split, "split is null");
+        requireNonNull(columns, "columns is null");
+        requireNonNull(dynamicFilter, "dynamicFilter is null");
+
+        if (dynamicFilter.isAll()) {
+            return createPageSource(session, split, columns);
+        }
+
+        ConnectorSession connectorSession = session.toConnectorSession(split.getConnectorId());
+        return getPageSourceProvider(split).createPageSource(split.getTransactionHandle(), connectorSession, split.getConnectorSplit(), columns, dynamicFilter);
+    }
+
     private ConnectorPageSourceProvider getPageSourceProvider(Split split)
     {
         ConnectorPageSourceProvider provider = pageSourceProviders.get(split.getConnectorId());
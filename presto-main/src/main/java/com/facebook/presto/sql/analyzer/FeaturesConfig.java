@@ -65,6 +65,14 @@ public class FeaturesConfig
     private DataSize operatorMemoryLimitBeforeSpill = new DataSize(4, DataSize.Unit.MEGABYTE);
     private Path spillerSpillPath = Paths.get(System.getProperty("java.io.tmpdir"), "presto", "spills");
     private int spillerThreads = 4;
+    private boolean dynamicFilteringEnabled;
+    private boolean joinReorderingEnabled;
+    private boolean costBasedJoinDistributionEnabled;
+    private DataSize joinMaxBroadcastTableSize = new DataSize(100, DataSize.Unit.MEGABYTE);
+    private boolean flatGroupByHashEnabled;
+    private boolean flatGroupByHashOffHeap;
+    private boolean adaptivePartialAggregationEnabled;
+    private double adaptivePartialAggregationUniqueRowsRatioThreshold = 0.8;
 
     public boolean isResourceGroupsEnabled()
     {
@@ -300,6 +308,56 @@ public class FeaturesConfig
         return this;
     }
 
+    public boolean isDynamicFilteringEnabled()
+    {
+        return dynamicFilteringEnabled;
+    }
+
+    @Config("experimental.dynamic-filtering-enabled")
+    public FeaturesConfig setDynamicFilteringEnabled(boolean dynamicFilteringEnabled)
+    {
+        this.dynamicFilteringEnabled = dynamicFilteringEnabled;
+        return this;
+    }
+
+    public boolean isJoinReorderingEnabled()
+    {
+        return joinReorderingEnabled;
+    }
+
+    @Config("optimizer.join-reordering-enabled")
+    @ConfigDescription("Reorder inner joins based on the estimated row counts of the join sources")
+    public FeaturesConfig setJoinReorderingEnabled(boolean joinReorderingEnabled)
+    {
+        this.joinReorderingEnabled = joinReorderingEnabled;
+        return this;
+    }
+
+    public boolean isCostBasedJoinDistributionEnabled()
+    {
+        return costBasedJoinDistributionEnabled;
+    }
+
+    @Config("optimizer.cost-based-join-distribution-enabled")
+    @ConfigDescription("Choose between a broadcast and a distributed join based on the estimated size of the build side")
+    public FeaturesConfig setCostBasedJoinDistributionEnabled(boolean costBasedJoinDistributionEnabled)
+    {
+        this.costBasedJoinDistributionEnabled = costBasedJoinDistributionEnabled;
+        return this;
+    }
+
+    public DataSize getJoinMaxBroadcastTableSize()
+    {
+        return joinMaxBroadcastTableSize;
+    }
+
+    @Config("optimizer.join-max-broadcast-table-size")
+    public FeaturesConfig setJoinMaxBroadcastTableSize(DataSize joinMaxBroadcastTableSize)
+    {
+        this.joinMaxBroadcastTableSize = joinMaxBroadcastTableSize;
+        return this;
+    }
+
     public boolean isOptimizeMixedDistinctAggregations()
     {
         return optimizeMixedDistinctAggregations;
@@ -311,4 +369,53 @@ public class FeaturesConfig
         this.optimizeMixedDistinctAggregations = value;
         return this;
     }
+
+    public boolean isFlatGroupByHashEnabled()
+    {
+        return flatGroupByHashEnabled;
+    }
+
+    @Config("experimental.flat-group-by-hash-enabled")
+    public FeaturesConfig setFlatGroupByHashEnabled(boolean flatGroupByHashEnabled)
+    {
+        this.flatGroupByHashEnabled = flatGroupByHashEnabled;
+        return this;
+    }
+
+    public boolean isFlatGroupByHashOffHeap()
+    {
+        return flatGroupByHashOffHeap;
+    }
+
+    @Config("experimental.flat-group-by-hash-off-heap")
+    public FeaturesConfig setFlatGroupByHashOffHeap(boolean flatGroupByHashOffHeap)
+    {
+        this.flatGroupByHashOffHeap = flatGroupByHashOffHeap;
+        return this;
+    }
+
+    public boolean isAdaptivePartialAggregationEnabled()
+    {
+        return adaptivePartialAggregationEnabled;
+    }
+
+    @Config("experimental.adaptive-partial-aggregation-enabled")
+    public FeaturesConfig setAdaptivePartialAggregationEnabled(boolean adaptivePartialAggregationEnabled)
+    {
+        this.adaptivePartialAggregationEnabled = adaptivePartialAggregationEnabled;
+        return this;
+    }
+
+    public double getAdaptivePartialAggregationUniqueRowsRatioThreshold()
+    {
+        return adaptivePartialAggregationUniqueRowsRatioThreshold;
+    }
+
+    @Config("experimental.adaptive-partial-aggregation-unique-rows-ratio-threshold")
+    @ConfigDescription("Ratio of output to input rows of a partial aggregation above which the aggregation is disabled")
+    public FeaturesConfig setAdaptivePartialAggregationUniqueRowsRatioThreshold(double adaptivePartialAggregationUniqueRowsRatioThreshold)
+    {
+        this.adaptivePartialAggregationUniqueRowsRatioThreshold = adaptivePartialAggregationUniqueRowsRatioThreshold;
+        return this;
+    }
 }
@@ -0,0 +1,404 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.gen;
+
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.IntArrayBlock;
+import com.facebook.presto.spi.block.LazyBlock;
+import com.facebook.presto.spi.block.LongArrayBlock;
+import com.facebook.presto.spi.function.OperatorType;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.sql.relational.CallExpression;
+import com.facebook.presto.sql.relational.ConstantExpression;
+import com.facebook.presto.sql.relational.InputReferenceExpression;
+import com.facebook.presto.sql.relational.RowExpression;
+import com.google.common.collect.ImmutableList;
+
+import javax.annotation.Nullable;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.facebook.presto.metadata.FunctionRegistry.mangleOperatorName;
+import static com.facebook.presto.spi.function.OperatorType.BETWEEN;
+import static com.facebook.presto.spi.function.OperatorType.EQUAL;
+import static com.facebook.presto.spi.function.OperatorType.GREATER_THAN;
+import static com.facebook.presto.spi.function.OperatorType.GREATER_THAN_OR_EQUAL;
+import static com.facebook.presto.spi.function.OperatorType.LESS_THAN;
+import static com.facebook.presto.spi.function.OperatorType.LESS_THAN_OR_EQUAL;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.DateType.DATE;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.IntegerType.INTEGER;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Evaluates a filter that is a conjunction of comparisons between a fixed width column
+ * and a constant directly on the arrays of {@link LongArrayBlock} and {@link IntArrayBlock},
+ * one column at a time, producing a selection vector of the matching positions.
+ * <p>
+ * The comparisons on each column are combined into a single closed range, so every column
+ * is visited once, and only the positions selected by the previous columns are checked.
+ */
+public final class ColumnarFilter
+{
+    private final List<ColumnRange> ranges;
+
+    private ColumnarFilter(List<ColumnRange> ranges)
+    {
+        this.ranges = ImmutableList.copyOf(requireNonNull(ranges, "ranges is null"));
+    }
+
+    /**
+     * Returns a columnar filter equivalent to the filter expression, if the expression
+     * only consists of supported comparisons.
+     */
+    public static Optional<ColumnarFilter> create(RowExpression filter)
+    {
+        Map<Integer, ColumnRange> ranges = new LinkedHashMap<>();
+        if (!extractRanges(filter, ranges)) {
+            return Optional.empty();
+        }
+        return Optional.of(new ColumnarFilter(ImmutableList.copyOf(ranges.values())));
+    }
+
+    /**
+     * Returns the positions in {@code [start, end)} that match the filter, or null if
+     * the blocks of the page are not encoded in a way that can be filtered columnar.
+     */
+    @Nullable
+    public int[] filter(Page page, int start, int end)
+    {
+        Block[] blocks = new Block[ranges.size()];
+        for (int i = 0; i < ranges.size(); i++) {
+            ColumnRange range = ranges.get(i);
+            Block block = page.getBlock(range.getChannel());
+            if (block instanceof LazyBlock) {
+                block = ((LazyBlock) block).getBlock();
+            }
+            if (!range.supports(block)) {
+                return null;
+            }
+            blocks[i] = block;
+        }
+
+        int[] positions = new int[end - start];
+        for (int i = 0; i < positions.length; i++) {
+            positions[i] = start + i;
+        }
+
+        int selectedCount = positions.length;
+        for (int i = 0; i < ranges.size() && selectedCount > 0; i++) {
+            selectedCount = ranges.get(i).filter(blocks[i], positions, selectedCount);
+        }
+
+        if (selectedCount == positions.length) {
+            return positions;
+        }
+        return Arrays.copyOf(positions, selectedCount);
+    }
+
+    private static boolean extractRanges(RowExpression expression, Map<Integer, ColumnRange> ranges)
+    {
+        if (!(expression instanceof CallExpression)) {
+            return false;
+        }
+        CallExpression call = (CallExpression) expression;
+        String name = call.getSignature().getName();
+        List<RowExpression> arguments = call.getArguments();
+
+        if (name.equals("AND")) {
+            return extractRanges(arguments.get(0), ranges) && extractRanges(arguments.get(1), ranges);
+        }
+
+        if (name.equals(mangleOperatorName(BETWEEN))) {
+            return addComparison(GREATER_THAN_OR_EQUAL, arguments.get(0), arguments.get(1), ranges) &&
+                    addComparison(LESS_THAN_OR_EQUAL, arguments.get(0), arguments.get(2), ranges);
+        }
+
+        for (OperatorType operator : ImmutableList.of(EQUAL, LESS_THAN, LESS_THAN_OR_EQUAL, GREATER_THAN, GREATER_THAN_OR_EQUAL)) {
+            if (name.equals(mangleOperatorName(operator))) {
+                if (arguments.get(0) instanceof InputReferenceExpression) {
+                    return addComparison(operator, arguments.get(0), arguments.get(1), ranges);
+                }
+                return addComparison(flip(operator), arguments.get(1), arguments.get(0), ranges);
+            }
+        }
+        return false;
+    }
+
+    private static boolean addComparison(OperatorType operator, RowExpression column, RowExpression constant, Map<Integer, ColumnRange> ranges)
+    {
+        if (!(column instanceof InputReferenceExpression) || !(constant instanceof ConstantExpression)) {
+            return false;
+        }
+        Type type = column.getType();
+        Object value = ((ConstantExpression) constant).getValue();
+        if (value == null || !type.equals(constant.getType())) {
+            return false;
+        }
+
+        int channel = ((InputReferenceExpression) column).getField();
+        ColumnRange range = ranges.get(channel);
+        if (range == null) {
+            if (type.equals(BIGINT)) {
+                range = new LongRange(channel);
+            }
+            else if (type.equals(INTEGER) || type.equals(DATE)) {
+                range = new IntRange(channel);
+            }
+            else if (type.equals(DOUBLE)) {
+                range = new DoubleRange(channel);
+            }
+            else {
+                return false;
+            }
+            ranges.put(channel, range);
+        }
+        range.add(operator, value);
+        return true;
+    }
+
+    private static OperatorType flip(OperatorType operator)
+    {
+        switch (operator) {
+            case LESS_THAN:
+                return GREATER_THAN;
+            case LESS_THAN_OR_EQUAL:
+                return GREATER_THAN_OR_EQUAL;
+            case GREATER_THAN:
+                return LESS_THAN;
+            case GREATER_THAN_OR_EQUAL:
+                return LESS_THAN_OR_EQUAL;
+            default:
+                return operator;
+        }
+    }
+
+    private abstract static class ColumnRange
+    {
+        private final int channel;
+
+        protected ColumnRange(int channel)
+        {
+            this.channel = channel;
+        }
+
+        public int getChannel()
+        {
+            return channel;
+        }
+
+        public abstract void add(OperatorType operator, Object value);
+
+        public abstract boolean supports(Block block);
+
+        /**
+         * Retains the positions in {@code positions[0..positionCount)} whose value is in the range,
+         * moving them to the front of the array, and returns the number of retained positions.
+         */
+        public abstract int filter(Block block, int[] positions, int positionCount);
+    }
+
+    private static class LongRange
+            extends ColumnRange
+    {
+        protected long low = Long.MIN_VALUE;
+        protected long high = Long.MAX_VALUE;
+
+        public LongRange(int channel)
+        {
+            super(channel);
+        }
+
+        @Override
+        public void add(OperatorType operator, Object value)
+        {
+            long constant = ((Number) value).longValue();
+            switch (operator) {
+                case EQUAL:
+                    low = Math.max(low, constant);
+                    high = Math.min(high, constant);
+                    break;
+                case LESS_THAN:
+                    if (constant == Long.MIN_VALUE) {
+                        // empty range
+                        low = Long.MAX_VALUE;
+                        high = Long.MIN_VALUE;
+                    }
+                    else {
+                        high = Math.min(high, constant - 1);
+                    }
+                    break;
+                case LESS_THAN_OR_EQUAL:
+                    high = Math.min(high, constant);
+                    break;
+                case GREATER_THAN:
+                    if (constant == Long.MAX_VALUE) {
+                        low = Long.MAX_VALUE;
+                        high = Long.MIN_VALUE;
+                    }
+                    else {
+                        low = Math.max(low, constant + 1);
+                    }
+                    break;
+                case GREATER_THAN_OR_EQUAL:
+                    low = Math.max(low, constant);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unsupported operator: " + operator);
+            }
+        }
+
+        @Override
+        public boolean supports(Block block)
+        {
+            return block instanceof LongArrayBlock;
+        }
+
+        @Override
+        public int filter(Block block, int[] positions, int positionCount)
+        {
+            LongArrayBlock longBlock = (LongArrayBlock) block;
+            long[] values = longBlock.getRawValues();
+            boolean[] valueIsNull = longBlock.getRawValueIsNull();
+            int offset = longBlock.getRawArrayOffset();
+
+            int selectedCount = 0;
+            for (int i = 0; i < positionCount; i++) {
+                int position = positions[i];
+                long value = values[offset + position];
+                positions[selectedCount] = position;
+                selectedCount += (value >= low & value <= high & !valueIsNull[offset + position]) ? 1 : 0;
+            }
+            return selectedCount;
+        }
+    }
+
+    private static class IntRange
+            extends LongRange
+    {
+        public IntRange(int channel)
+        {
+            super(channel);
+        }
+
+        @Override
+        public boolean supports(Block block)
+        {
+            return block instanceof IntArrayBlock;
+        }
+
+        @Override
+        public int filter(Block block, int[] positions, int positionCount)
+        {
+            IntArrayBlock intBlock = (IntArrayBlock) block;
+            int[] values = intBlock.getRawValues();
+            boolean[] valueIsNull = intBlock.getRawValueIsNull();
+            int offset = intBlock.getRawArrayOffset();
+
+            int selectedCount = 0;
+            for (int i = 0; i < positionCount; i++) {
+                int position = positions[i];
+                long value = values[offset + position];
+                positions[selectedCount] = position;
+                selectedCount += (value >= low & value <= high & !valueIsNull[offset + position]) ? 1 : 0;
+            }
+            return selectedCount;
+        }
+    }
+
+    private static class DoubleRange
+            extends ColumnRange
+    {
+        // NaN never matches, as any comparison with NaN is false
+        private double low = Double.NEGATIVE_INFINITY;
+        private double high = Double.POSITIVE_INFINITY;
+
+        public DoubleRange(int channel)
+        {
+            super(channel);
+        }
+
+        @Override
+        public void add(OperatorType operator, Object value)
+        {
+            double constant = ((Number) value).doubleValue();
+            if (Double.isNaN(constant)) {
+                low = Double.NaN;
+                high = Double.NaN;
+                return;
+            }
+            switch (operator) {
+                case EQUAL:
+                    low = max(low, constant);
+                    high = min(high, constant);
+                    break;
+                case LESS_THAN:
+                    high = min(high, Math.nextDown(constant));
+                    break;
+                case LESS_THAN_OR_EQUAL:
+                    high = min(high, constant);
+                    break;
+                case GREATER_THAN:
+                    low = max(low, Math.nextUp(constant));
+                    break;
+                case GREATER_THAN_OR_EQUAL:
+                    low = max(low, constant);
+                    break;
+                default:
+                    throw new IllegalArgumentException("Unsupported operator: " + operator);
+            }
+        }
+
+        private static double max(double current, double bound)
+        {
+            // keep NaN, which marks the range as empty
+            return current >= bound || Double.isNaN(current) ? current : bound;
+        }
+
+        private static double min(double current, double bound)
+        {
+            return current <= bound || Double.isNaN(current) ? current : bound;
+        }
+
+        @Override
+        public boolean supports(Block block)
+        {
+            return block instanceof LongArrayBlock;
+        }
+
+        @Override
+        public int filter(Block block, int[] positions, int positionCount)
+        {
+            LongArrayBlock longBlock = (LongArrayBlock) block;
+            long[] values = longBlock.getRawValues();
+            boolean[] valueIsNull = longBlock.getRawValueIsNull();
+            int offset = longBlock.getRawArrayOffset();
+
+            int selectedCount = 0;
+            for (int i = 0; i < positionCount; i++) {
+                int position = positions[i];
+                double value = Double.longBitsToDouble(values[offset + position]);
+                positions[selectedCount] = position;
+                selectedCount += (value >= low & value <= high & !valueIsNull[offset + position]) ? 1 : 0;
+            }
+            return selectedCount;
+        }
+    }
+}
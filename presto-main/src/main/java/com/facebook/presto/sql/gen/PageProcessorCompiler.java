@@ -54,6 +54,7 @@ import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 import java.util.TreeSet;
 import java.util.stream.IntStream;
 
@@ -73,6 +74,7 @@ import static com.facebook.presto.bytecode.expression.BytecodeExpressions.invoke
 import static com.facebook.presto.bytecode.expression.BytecodeExpressions.lessThan;
 import static com.facebook.presto.bytecode.expression.BytecodeExpressions.newArray;
 import static com.facebook.presto.bytecode.expression.BytecodeExpressions.newInstance;
+import static com.facebook.presto.bytecode.expression.BytecodeExpressions.notEqual;
 import static com.facebook.presto.bytecode.instruction.JumpInstruction.jump;
 import static com.facebook.presto.sql.gen.BytecodeUtils.generateWrite;
 import static com.facebook.presto.sql.gen.BytecodeUtils.loadConstant;
@@ -118,12 +120,14 @@ public class PageProcessorCompiler
         List<MethodDefinition> projectColumnarMethodDefinitions = projectColumnarMethods.build();
         List<MethodDefinition> projectDictionaryMethodDefinitions = projectDictionaryMethods.build();
 
-        generateProcessMethod(classDefinition, filter, projections, projectMethodDefinitions);
+        Optional<ColumnarFilter> columnarFilter = ColumnarFilter.create(filter);
+
+        generateProcessMethod(classDefinition, callSiteBinder, filter, columnarFilter, projections, projectMethodDefinitions);
         generateGetNonLazyPageMethod(classDefinition, filter, projections);
         generateProcessColumnarMethod(classDefinition, projections, projectColumnarMethodDefinitions);
         generateProcessColumnarDictionaryMethod(classDefinition, projections, projectDictionaryMethodDefinitions);
 
-        generateFilterPageMethod(classDefinition, filter);
+        generateFilterPageMethod(classDefinition, callSiteBinder, filter, columnarFilter);
         generateFilterMethod(classDefinition, callSiteBinder, cachedInstanceBinder, filter);
         generateConstructor(classDefinition, cachedInstanceBinder, projections.size());
     }
@@ -154,7 +158,13 @@ public class PageProcessorCompiler
         body.ret();
     }
 
-    private static void generateProcessMethod(ClassDefinition classDefinition, RowExpression filter, List<RowExpression> projections, List<MethodDefinition> projectionMethods)
+    private static void generateProcessMethod(
+            ClassDefinition classDefinition,
+            CallSiteBinder callSiteBinder,
+            RowExpression filter,
+            Optional<ColumnarFilter> columnarFilter,
+            List<RowExpression> projections,
+            List<MethodDefinition> projectionMethods)
     {
         Parameter session = arg("session", ConnectorSession.class);
         Parameter page = arg("page", Page.class);
@@ -180,13 +190,31 @@ public class PageProcessorCompiler
         // projection body
         Variable position = scope.declareVariable(int.class, "position");
 
-        BytecodeBlock project = new BytecodeBlock()
-                .append(pageBuilder.invoke("declarePosition", void.class));
+        if (columnarFilter.isPresent()) {
+            // if the filter blocks can be filtered columnar, only project the selected positions
+            Variable selectedPositions = scope.declareVariable(
+                    "selectedPositions",
+                    body,
+                    loadConstant(callSiteBinder, columnarFilter.get(), ColumnarFilter.class).invoke("filter", int[].class, page, start, end));
+            Variable index = scope.declareVariable(int.class, "index");
 
-        for (int projectionIndex = 0; projectionIndex < projections.size(); projectionIndex++) {
-            RowExpression projection = projections.get(projectionIndex);
-            project.append(invokeProject(thisVariable, session, expressionInputBlocks.get(projection), position, pageBuilder, constantInt(projectionIndex), projectionMethods.get(projectionIndex)));
+            body.append(new IfStatement()
+                    .condition(notEqual(selectedPositions, constantNull(int[].class)))
+                    .ifTrue(new BytecodeBlock()
+                            .append(new ForLoop()
+                                    .initialize(index.set(constantInt(0)))
+                                    .condition(lessThan(index, selectedPositions.length()))
+                                    .update(index.increment())
+                                    .body(new BytecodeBlock()
+                                            .append(position.set(selectedPositions.getElement(index)))
+                                            .append(new IfStatement()
+                                                    .condition(pageBuilder.invoke("isFull", boolean.class))
+                                                    .ifTrue(position.ret()))
+                                            .append(generateProjectPosition(thisVariable, session, pageBuilder, position, projections, expressionInputBlocks, projectionMethods))))
+                            .append(end.ret())));
         }
+
+        BytecodeBlock project = generateProjectPosition(thisVariable, session, pageBuilder, position, projections, expressionInputBlocks, projectionMethods);
         LabelNode done = new LabelNode("done");
 
         // for loop loop body
@@ -208,6 +236,25 @@ public class PageProcessorCompiler
                 .append(position.ret());
     }
 
+    private static BytecodeBlock generateProjectPosition(
+            Variable thisVariable,
+            Variable session,
+            Variable pageBuilder,
+            Variable position,
+            List<RowExpression> projections,
+            Map<RowExpression, List<Variable>> expressionInputBlocks,
+            List<MethodDefinition> projectionMethods)
+    {
+        BytecodeBlock project = new BytecodeBlock()
+                .append(pageBuilder.invoke("declarePosition", void.class));
+
+        for (int projectionIndex = 0; projectionIndex < projections.size(); projectionIndex++) {
+            RowExpression projection = projections.get(projectionIndex);
+            project.append(invokeProject(thisVariable, session, expressionInputBlocks.get(projection), position, pageBuilder, constantInt(projectionIndex), projectionMethods.get(projectionIndex)));
+        }
+        return project;
+    }
+
     private static void generateProcessColumnarMethod(
             ClassDefinition classDefinition,
             List<RowExpression> projections,
@@ -607,7 +654,7 @@ public class PageProcessorCompiler
         body.append(page.ret());
     }
 
-    private void generateFilterPageMethod(ClassDefinition classDefinition, RowExpression filter)
+    private void generateFilterPageMethod(ClassDefinition classDefinition, CallSiteBinder callSiteBinder, RowExpression filter, Optional<ColumnarFilter> columnarFilter)
     {
         Parameter session = arg("session", ConnectorSession.class);
         Parameter page = arg("page", Page.class);
@@ -624,6 +671,16 @@ public class PageProcessorCompiler
         Variable selectedCount = scope.declareVariable("selectedCount", body, constantInt(0));
         Variable position = scope.declareVariable(int.class, "position");
 
+        if (columnarFilter.isPresent()) {
+            Variable columnarSelectedPositions = scope.declareVariable(
+                    "columnarSelectedPositions",
+                    body,
+                    loadConstant(callSiteBinder, columnarFilter.get(), ColumnarFilter.class).invoke("filter", int[].class, page, constantInt(0), positionCount));
+            body.append(new IfStatement()
+                    .condition(notEqual(columnarSelectedPositions, constantNull(int[].class)))
+                    .ifTrue(columnarSelectedPositions.ret()));
+        }
+
         List<Integer> filterChannels = getInputChannels(filter);
 
         // extract block variables
@@ -26,6 +26,8 @@ import com.facebook.presto.operator.AssignUniqueIdOperator;
 import com.facebook.presto.operator.CursorProcessor;
 import com.facebook.presto.operator.DeleteOperator.DeleteOperatorFactory;
 import com.facebook.presto.operator.DriverFactory;
+import com.facebook.presto.operator.DynamicFilter;
+import com.facebook.presto.operator.DynamicFilterCollector;
 import com.facebook.presto.operator.EnforceSingleRowOperator;
 import com.facebook.presto.operator.ExchangeClientSupplier;
 import com.facebook.presto.operator.ExchangeOperator.ExchangeOperatorFactory;
@@ -175,8 +177,13 @@ import java.util.function.Function;
 import java.util.function.Supplier;
 import java.util.stream.Collectors;
 
+import static com.facebook.presto.SystemSessionProperties.getAdaptivePartialAggregationUniqueRowsRatioThreshold;
+import static com.facebook.presto.SystemSessionProperties.getOperatorMemoryLimitBeforeSpill;
 import static com.facebook.presto.SystemSessionProperties.getTaskConcurrency;
 import static com.facebook.presto.SystemSessionProperties.getTaskWriterCount;
+import static com.facebook.presto.SystemSessionProperties.isAdaptivePartialAggregationEnabled;
+import static com.facebook.presto.SystemSessionProperties.isDynamicFilteringEnabled;
+import static com.facebook.presto.SystemSessionProperties.isSpillEnabled;
 import static com.facebook.presto.metadata.FunctionKind.SCALAR;
 import static com.facebook.presto.operator.DistinctLimitOperator.DistinctLimitOperatorFactory;
 import static com.facebook.presto.operator.NestedLoopBuildOperator.NestedLoopBuildOperatorFactory;
@@ -414,6 +421,7 @@ public class LocalExecutionPlanner
         private final Map<Symbol, Type> types;
         private final List<DriverFactory> driverFactories;
         private final Optional<IndexSourceContext> indexSourceContext;
+        private final Map<PlanNodeId, List<DynamicFilter>> dynamicFilters;
 
         private int nextOperatorId;
         private boolean inputDriver = true;
@@ -421,19 +429,21 @@ public class LocalExecutionPlanner
 
         public LocalExecutionPlanContext(Session session, Map<Symbol, Type> types)
         {
-            this(session, types, new ArrayList<>(), Optional.empty());
+            this(session, types, new ArrayList<>(), Optional.empty(), new HashMap<>());
         }
 
         private LocalExecutionPlanContext(
                 Session session,
                 Map<Symbol, Type> types,
                 List<DriverFactory> driverFactories,
-                Optional<IndexSourceContext> indexSourceContext)
+                Optional<IndexSourceContext> indexSourceContext,
+                Map<PlanNodeId, List<DynamicFilter>> dynamicFilters)
         {
             this.session = session;
             this.types = types;
             this.driverFactories = driverFactories;
             this.indexSourceContext = indexSourceContext;
+            this.dynamicFilters = dynamicFilters;
         }
 
         public void addDriverFactory(DriverFactory driverFactory)
@@ -479,12 +489,26 @@ public class LocalExecutionPlanner
         public LocalExecutionPlanContext createSubContext()
         {
             checkState(!indexSourceContext.isPresent(), "index build plan can not have sub-contexts");
-            return new LocalExecutionPlanContext(session, types, driverFactories, indexSourceContext);
+            return new LocalExecutionPlanContext(session, types, driverFactories, indexSourceContext, dynamicFilters);
         }
 
         public LocalExecutionPlanContext createIndexSourceSubContext(IndexSourceContext indexSourceContext)
         {
-            return new LocalExecutionPlanContext(session, types, driverFactories, Optional.of(indexSourceContext));
+            return new LocalExecutionPlanContext(session, types, driverFactories, Optional.of(indexSourceContext), dynamicFilters);
+        }
+
+        public void addDynamicFilter(PlanNodeId tableScanId, DynamicFilter dynamicFilter)
+        {
+            dynamicFilters.computeIfAbsent(tableScanId, id -> new ArrayList<>()).add(requireNonNull(dynamicFilter, "dynamicFilter is null"));
+        }
+
+        public DynamicFilter getDynamicFilter(PlanNodeId tableScanId)
+        {
+            DynamicFilter dynamicFilter = DynamicFilter.all();
+            for (DynamicFilter filter : dynamicFilters.getOrDefault(tableScanId, ImmutableList.of())) {
+                dynamicFilter = dynamicFilter.intersect(filter);
+            }
+            return dynamicFilter;
         }
 
         public OptionalInt getDriverInstanceCount()
@@ -739,7 +763,10 @@ public class LocalExecutionPlanner
                     sortChannels,
                     sortOrder,
                     node.getPreSortedOrderPrefix(),
-                    10_000);
+                    10_000,
+                    isSpillEnabled(session),
+                    getOperatorMemoryLimitBeforeSpill(session),
+                    spillerFactory);
 
             return new PhysicalOperation(operatorFactory, outputMappings.build(), source);
         }
@@ -797,7 +824,10 @@ public class LocalExecutionPlanner
                     outputChannels.build(),
                     10_000,
                     orderByChannels,
-                    sortOrder.build());
+                    sortOrder.build(),
+                    isSpillEnabled(session),
+                    getOperatorMemoryLimitBeforeSpill(session),
+                    spillerFactory);
 
             return new PhysicalOperation(operator, source.getLayout(), source);
         }
@@ -1032,7 +1062,8 @@ public class LocalExecutionPlanner
                             cursorProcessor,
                             pageProcessor,
                             columns,
-                            Lists.transform(rewrittenProjections, forMap(expressionTypes)));
+                            Lists.transform(rewrittenProjections, forMap(expressionTypes)),
+                            context.getDynamicFilter(sourceNode.getId()));
 
                     return new PhysicalOperation(operatorFactory, outputMappings);
                 }
@@ -1096,7 +1127,8 @@ public class LocalExecutionPlanner
                         () -> new GenericCursorProcessor(filterFunction, projectionFunctions),
                         () -> new GenericPageProcessor(filterFunction, projectionFunctions),
                         columns,
-                        toTypes(projectionFunctions));
+                        toTypes(projectionFunctions),
+                        context.getDynamicFilter(sourceNode.getId()));
 
                 return new PhysicalOperation(operatorFactory, outputMappings);
             }
@@ -1134,7 +1166,7 @@ public class LocalExecutionPlanner
             }
 
             List<Type> types = getSourceOperatorTypes(node, context.getTypes());
-            OperatorFactory operatorFactory = new TableScanOperatorFactory(context.getNextOperatorId(), node.getId(), pageSourceProvider, types, columns);
+            OperatorFactory operatorFactory = new TableScanOperatorFactory(context.getNextOperatorId(), node.getId(), pageSourceProvider, types, columns, context.getDynamicFilter(node.getId()));
             return new PhysicalOperation(operatorFactory, makeLayout(node));
         }
 
@@ -1476,11 +1508,14 @@ public class LocalExecutionPlanner
                 Optional<Symbol> buildHashSymbol,
                 LocalExecutionPlanContext context)
         {
+            // the dynamic filter must be registered before the probe side table scan is planned
+            Optional<DynamicFilterCollector> dynamicFilterCollector = createDynamicFilter(node, probeNode, probeSymbols, buildSymbols, context);
+
             // Plan probe
             PhysicalOperation probeSource = probeNode.accept(this, context);
 
             // Plan build
-            LookupSourceFactory lookupSourceFactory = createLookupSourceFactory(node, buildNode, buildSymbols, buildHashSymbol, probeSource.getLayout(), context);
+            LookupSourceFactory lookupSourceFactory = createLookupSourceFactory(node, buildNode, buildSymbols, buildHashSymbol, probeSource.getLayout(), dynamicFilterCollector, context);
 
             OperatorFactory operator = createLookupJoin(node, probeSource, probeSymbols, probeHashSymbol, lookupSourceFactory, context);
 
@@ -1494,12 +1529,70 @@ public class LocalExecutionPlanner
             return new PhysicalOperation(operator, outputMappings.build(), probeSource);
         }
 
+        private Optional<DynamicFilterCollector> createDynamicFilter(
+                JoinNode node,
+                PlanNode probeNode,
+                List<Symbol> probeSymbols,
+                List<Symbol> buildSymbols,
+                LocalExecutionPlanContext context)
+        {
+            // only inner and right joins drop the probe rows without a match
+            if (!isDynamicFilteringEnabled(session) || (node.getType() != INNER && node.getType() != RIGHT)) {
+                return Optional.empty();
+            }
+
+            // follow the probe keys through the filters and projections that are fused with the table scan
+            Map<Symbol, Integer> keyIndexes = new HashMap<>();
+            for (int i = 0; i < probeSymbols.size(); i++) {
+                keyIndexes.putIfAbsent(probeSymbols.get(i), i);
+            }
+            PlanNode source = probeNode;
+            while (source instanceof FilterNode || source instanceof ProjectNode) {
+                if (source instanceof ProjectNode) {
+                    ProjectNode projectNode = (ProjectNode) source;
+                    Map<Symbol, Integer> sourceKeyIndexes = new HashMap<>();
+                    for (Map.Entry<Symbol, Integer> entry : keyIndexes.entrySet()) {
+                        Expression expression = projectNode.getAssignments().get(entry.getKey());
+                        if (expression instanceof SymbolReference) {
+                            sourceKeyIndexes.putIfAbsent(Symbol.from(expression), entry.getValue());
+                        }
+                    }
+                    keyIndexes = sourceKeyIndexes;
+                }
+                source = getOnlyElement(source.getSources());
+            }
+            if (!(source instanceof TableScanNode)) {
+                return Optional.empty();
+            }
+
+            TableScanNode tableScanNode = (TableScanNode) source;
+            ImmutableMap.Builder<Integer, ColumnHandle> keyColumns = ImmutableMap.builder();
+            for (Map.Entry<Symbol, Integer> entry : keyIndexes.entrySet()) {
+                ColumnHandle column = tableScanNode.getAssignments().get(entry.getKey());
+                if (column != null) {
+                    keyColumns.put(entry.getValue(), column);
+                }
+            }
+            Map<Integer, ColumnHandle> columns = keyColumns.build();
+            if (columns.isEmpty()) {
+                return Optional.empty();
+            }
+
+            List<Type> keyTypes = buildSymbols.stream()
+                    .map(symbol -> context.getTypes().get(symbol))
+                    .collect(toImmutableList());
+            DynamicFilterCollector collector = new DynamicFilterCollector(keyTypes);
+            context.addDynamicFilter(tableScanNode.getId(), collector.createDynamicFilter(columns));
+            return Optional.of(collector);
+        }
+
         private LookupSourceFactory createLookupSourceFactory(
                 JoinNode node,
                 PlanNode buildNode,
                 List<Symbol> buildSymbols,
                 Optional<Symbol> buildHashSymbol,
                 Map<Symbol, Integer> probeLayout,
+                Optional<DynamicFilterCollector> dynamicFilterCollector,
                 LocalExecutionPlanContext context)
         {
             LocalExecutionPlanContext buildContext = context.createSubContext();
@@ -1510,6 +1603,7 @@ public class LocalExecutionPlanner
             Optional<JoinFilterFunctionFactory> filterFunctionFactory = node.getFilter()
                     .map(filterExpression -> compileJoinFilterFunction(filterExpression, probeLayout, buildSource.getLayout(), context.getTypes(), context.getSession()));
 
+            boolean buildOuter = node.getType() == RIGHT || node.getType() == FULL;
             HashBuilderOperatorFactory hashBuilderOperatorFactory = new HashBuilderOperatorFactory(
                     buildContext.getNextOperatorId(),
                     node.getId(),
@@ -1517,10 +1611,15 @@ public class LocalExecutionPlanner
                     buildSource.getLayout(),
                     buildChannels,
                     buildHashChannel,
-                    node.getType() == RIGHT || node.getType() == FULL,
+                    buildOuter,
                     filterFunctionFactory,
                     10_000,
-                    buildContext.getDriverInstanceCount().orElse(1));
+                    buildContext.getDriverInstanceCount().orElse(1),
+                    // unmatched build rows of outer joins are tracked in memory, so those can't be spilled
+                    isSpillEnabled(session) && !buildOuter,
+                    getOperatorMemoryLimitBeforeSpill(session),
+                    spillerFactory,
+                    dynamicFilterCollector);
 
             context.addDriverFactory(new DriverFactory(
                     buildContext.isInputDriver(),
@@ -1911,7 +2010,12 @@ public class LocalExecutionPlanner
                     hashChannel,
                     node.getGroupIdSymbol().map(mappings::get),
                     10_000,
-                    maxPartialAggregationMemorySize);
+                    maxPartialAggregationMemorySize,
+                    isSpillEnabled(session),
+                    getOperatorMemoryLimitBeforeSpill(session),
+                    spillerFactory,
+                    isAdaptivePartialAggregationEnabled(session),
+                    getAdaptivePartialAggregationUniqueRowsRatioThreshold(session));
 
             return new PhysicalOperation(operatorFactory, mappings, source);
         }
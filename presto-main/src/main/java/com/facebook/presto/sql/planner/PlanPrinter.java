@@ -435,6 +435,7 @@ public class PlanPrinter
                         formatHash(node.getLeftHashSymbol(), node.getRightHashSymbol()),
                         formatOutputs(node.getOutputSymbols()));
             }
+            node.getDistributionType().ifPresent(distributionType -> print(indent + 2, "Distribution: %s", distributionType));
 
             printStats(indent + 2, node.getId());
             node.getLeft().accept(this, indent + 1);
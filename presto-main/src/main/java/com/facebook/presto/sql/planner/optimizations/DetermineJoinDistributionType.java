@@ -0,0 +1,100 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner.optimizations;
+
+import com.facebook.presto.Session;
+import com.facebook.presto.cost.StatsCalculator;
+import com.facebook.presto.metadata.Metadata;
+import com.facebook.presto.spi.statistics.Estimate;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.sql.planner.PlanNodeIdAllocator;
+import com.facebook.presto.sql.planner.Symbol;
+import com.facebook.presto.sql.planner.SymbolAllocator;
+import com.facebook.presto.sql.planner.plan.JoinNode;
+import com.facebook.presto.sql.planner.plan.PlanNode;
+import com.facebook.presto.sql.planner.plan.SimplePlanRewriter;
+
+import java.util.Map;
+
+import static com.facebook.presto.SystemSessionProperties.getJoinMaxBroadcastTableSize;
+import static com.facebook.presto.SystemSessionProperties.isCostBasedJoinDistributionEnabled;
+import static com.facebook.presto.sql.planner.plan.JoinNode.DistributionType.PARTITIONED;
+import static com.facebook.presto.sql.planner.plan.JoinNode.DistributionType.REPLICATED;
+import static com.facebook.presto.sql.planner.plan.JoinNode.Type.FULL;
+import static com.facebook.presto.sql.planner.plan.JoinNode.Type.RIGHT;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Chooses a broadcast join when the estimated size of the build side is small enough,
+ * and a distributed join otherwise. Joins without an estimate are left to the session default.
+ */
+public class DetermineJoinDistributionType
+        implements PlanOptimizer
+{
+    private final Metadata metadata;
+
+    public DetermineJoinDistributionType(Metadata metadata)
+    {
+        this.metadata = requireNonNull(metadata, "metadata is null");
+    }
+
+    @Override
+    public PlanNode optimize(PlanNode plan, Session session, Map<Symbol, Type> types, SymbolAllocator symbolAllocator, PlanNodeIdAllocator idAllocator)
+    {
+        requireNonNull(plan, "plan is null");
+        requireNonNull(session, "session is null");
+        requireNonNull(types, "types is null");
+        requireNonNull(symbolAllocator, "symbolAllocator is null");
+        requireNonNull(idAllocator, "idAllocator is null");
+
+        if (!isCostBasedJoinDistributionEnabled(session)) {
+            return plan;
+        }
+        long maxBroadcastTableSize = getJoinMaxBroadcastTableSize(session).toBytes();
+        return SimplePlanRewriter.rewriteWith(new Rewriter(new StatsCalculator(metadata, session), types, maxBroadcastTableSize), plan);
+    }
+
+    private static class Rewriter
+            extends SimplePlanRewriter<Void>
+    {
+        private final StatsCalculator statsCalculator;
+        private final Map<Symbol, Type> types;
+        private final long maxBroadcastTableSize;
+
+        public Rewriter(StatsCalculator statsCalculator, Map<Symbol, Type> types, long maxBroadcastTableSize)
+        {
+            this.statsCalculator = requireNonNull(statsCalculator, "statsCalculator is null");
+            this.types = requireNonNull(types, "types is null");
+            this.maxBroadcastTableSize = maxBroadcastTableSize;
+        }
+
+        @Override
+        public PlanNode visitJoin(JoinNode node, RewriteContext<Void> context)
+        {
+            JoinNode rewritten = (JoinNode) context.defaultRewrite(node);
+
+            // right and full outer joins and cross joins have a fixed distribution
+            if (rewritten.getType() == RIGHT || rewritten.getType() == FULL || rewritten.getCriteria().isEmpty()) {
+                return rewritten;
+            }
+
+            PlanNode build = rewritten.getRight();
+            Estimate buildSize = statsCalculator.calculateStats(build).getOutputSizeInBytes(build.getOutputSymbols(), types);
+            if (buildSize.isValueUnknown()) {
+                return rewritten;
+            }
+            return rewritten.withDistributionType(buildSize.getValue() <= maxBroadcastTableSize ? REPLICATED : PARTITIONED);
+        }
+    }
+}
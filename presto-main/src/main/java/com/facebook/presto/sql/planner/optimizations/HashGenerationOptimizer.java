@@ -294,7 +294,8 @@ public class HashGenerationOptimizer
                                 node.getCriteria(),
                                 node.getFilter(),
                                 Optional.empty(),
-                                Optional.empty()),
+                                Optional.empty(),
+                                node.getDistributionType()),
                         allHashSymbols);
             }
 
@@ -328,7 +329,8 @@ public class HashGenerationOptimizer
                             node.getCriteria(),
                             node.getFilter(),
                             Optional.of(leftHashSymbol),
-                            Optional.of(rightHashSymbol)),
+                            Optional.of(rightHashSymbol),
+                            node.getDistributionType()),
                     allHashSymbols);
         }
 
@@ -0,0 +1,310 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.sql.planner.optimizations;
+
+import com.facebook.presto.Session;
+import com.facebook.presto.cost.PlanNodeStatsEstimate;
+import com.facebook.presto.cost.StatsCalculator;
+import com.facebook.presto.metadata.Metadata;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.sql.planner.PlanNodeIdAllocator;
+import com.facebook.presto.sql.planner.Symbol;
+import com.facebook.presto.sql.planner.SymbolAllocator;
+import com.facebook.presto.sql.planner.plan.JoinNode;
+import com.facebook.presto.sql.planner.plan.JoinNode.EquiJoinClause;
+import com.facebook.presto.sql.planner.plan.PlanNode;
+import com.facebook.presto.sql.planner.plan.ProjectNode;
+import com.facebook.presto.sql.planner.plan.SimplePlanRewriter;
+import com.facebook.presto.sql.tree.Expression;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import static com.facebook.presto.SystemSessionProperties.isJoinReorderingEnabled;
+import static com.facebook.presto.cost.StatsCalculator.estimateJoin;
+import static com.facebook.presto.sql.planner.plan.ChildReplacer.replaceChildren;
+import static com.facebook.presto.sql.planner.plan.JoinNode.Type.INNER;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Reorders trees of inner equi-joins based on the estimated row counts of the join sources.
+ * <p>
+ * The sources are joined greedily, starting with the pair that produces the fewest rows and
+ * then adding the source that keeps the intermediate result smallest. The smaller input of
+ * each join is used as the build side. The original order is kept if any estimate is unknown,
+ * if the sources can't be joined without a cross join, or if the new order is not cheaper.
+ */
+public class ReorderJoins
+        implements PlanOptimizer
+{
+    private final Metadata metadata;
+
+    public ReorderJoins(Metadata metadata)
+    {
+        this.metadata = requireNonNull(metadata, "metadata is null");
+    }
+
+    @Override
+    public PlanNode optimize(PlanNode plan, Session session, Map<Symbol, Type> types, SymbolAllocator symbolAllocator, PlanNodeIdAllocator idAllocator)
+    {
+        requireNonNull(plan, "plan is null");
+        requireNonNull(session, "session is null");
+        requireNonNull(types, "types is null");
+        requireNonNull(symbolAllocator, "symbolAllocator is null");
+        requireNonNull(idAllocator, "idAllocator is null");
+
+        if (!isJoinReorderingEnabled(session)) {
+            return plan;
+        }
+        return SimplePlanRewriter.rewriteWith(new Rewriter(new StatsCalculator(metadata, session), idAllocator), plan);
+    }
+
+    private static class Rewriter
+            extends SimplePlanRewriter<Void>
+    {
+        private final StatsCalculator statsCalculator;
+        private final PlanNodeIdAllocator idAllocator;
+
+        public Rewriter(StatsCalculator statsCalculator, PlanNodeIdAllocator idAllocator)
+        {
+            this.statsCalculator = requireNonNull(statsCalculator, "statsCalculator is null");
+            this.idAllocator = requireNonNull(idAllocator, "idAllocator is null");
+        }
+
+        @Override
+        public PlanNode visitJoin(JoinNode node, RewriteContext<Void> context)
+        {
+            if (!isReorderable(node)) {
+                return context.defaultRewrite(node);
+            }
+
+            List<PlanNode> sources = new ArrayList<>();
+            List<EquiJoinClause> criteria = new ArrayList<>();
+            flatten(node, sources, criteria);
+
+            List<PlanNodeStatsEstimate> stats = new ArrayList<>();
+            for (PlanNode source : sources) {
+                PlanNodeStatsEstimate sourceStats = statsCalculator.calculateStats(source);
+                if (sourceStats.getOutputRowCount().isValueUnknown()) {
+                    return context.defaultRewrite(node);
+                }
+                stats.add(sourceStats);
+            }
+
+            List<PlanNode> rewrittenSourceList = new ArrayList<>();
+            Map<PlanNode, PlanNode> rewrittenSources = new IdentityHashMap<>();
+            Map<PlanNode, PlanNodeStatsEstimate> sourceStats = new IdentityHashMap<>();
+            Map<PlanNode, PlanNodeStatsEstimate> rewrittenSourceStats = new IdentityHashMap<>();
+            for (int i = 0; i < sources.size(); i++) {
+                PlanNode rewrittenSource = context.rewrite(sources.get(i));
+                rewrittenSourceList.add(rewrittenSource);
+                rewrittenSources.put(sources.get(i), rewrittenSource);
+                sourceStats.put(sources.get(i), stats.get(i));
+                rewrittenSourceStats.put(rewrittenSource, stats.get(i));
+            }
+
+            Optional<JoinTree> reordered = reorder(rewrittenSourceList, criteria, rewrittenSourceStats);
+            if (!reordered.isPresent() || reordered.get().getCost() >= estimate(node, sourceStats).getCost()) {
+                return replaceSources(node, rewrittenSources);
+            }
+
+            PlanNode result = reordered.get().getNode();
+            if (result.getOutputSymbols().equals(node.getOutputSymbols())) {
+                return result;
+            }
+            // restore the order of the output symbols
+            ImmutableMap.Builder<Symbol, Expression> assignments = ImmutableMap.builder();
+            for (Symbol symbol : node.getOutputSymbols()) {
+                assignments.put(symbol, symbol.toSymbolReference());
+            }
+            return new ProjectNode(idAllocator.getNextId(), result, assignments.build());
+        }
+
+        private static PlanNode replaceSources(PlanNode node, Map<PlanNode, PlanNode> rewrittenSources)
+        {
+            PlanNode rewrittenSource = rewrittenSources.get(node);
+            if (rewrittenSource != null) {
+                return rewrittenSource;
+            }
+            JoinNode joinNode = (JoinNode) node;
+            return replaceChildren(joinNode, ImmutableList.of(
+                    replaceSources(joinNode.getLeft(), rewrittenSources),
+                    replaceSources(joinNode.getRight(), rewrittenSources)));
+        }
+
+        private Optional<JoinTree> reorder(List<PlanNode> sources, List<EquiJoinClause> criteria, Map<PlanNode, PlanNodeStatsEstimate> sourceStats)
+        {
+            List<JoinTree> remaining = new ArrayList<>();
+            for (PlanNode source : sources) {
+                remaining.add(new JoinTree(source, sourceStats.get(source), 0));
+            }
+
+            // start with the pair of sources that produces the fewest rows
+            JoinTree current = null;
+            for (int i = 0; i < remaining.size(); i++) {
+                for (int j = i + 1; j < remaining.size(); j++) {
+                    Optional<JoinTree> candidate = join(remaining.get(i), remaining.get(j), criteria);
+                    if (candidate.isPresent() && (current == null || isSmaller(candidate.get(), current))) {
+                        current = candidate.get();
+                    }
+                }
+            }
+            if (current == null) {
+                return Optional.empty();
+            }
+            Set<PlanNode> joined = ImmutableSet.copyOf(current.getNode().getSources());
+            remaining.removeIf(tree -> joined.contains(tree.getNode()));
+
+            while (!remaining.isEmpty()) {
+                JoinTree next = null;
+                JoinTree nextSource = null;
+                for (JoinTree source : remaining) {
+                    Optional<JoinTree> candidate = join(current, source, criteria);
+                    if (candidate.isPresent() && (next == null || isSmaller(candidate.get(), next))) {
+                        next = candidate.get();
+                        nextSource = source;
+                    }
+                }
+                if (next == null) {
+                    // the remaining sources can only be added with a cross join
+                    return Optional.empty();
+                }
+                current = next;
+                remaining.remove(nextSource);
+            }
+            return Optional.of(current);
+        }
+
+        private Optional<JoinTree> join(JoinTree first, JoinTree second, List<EquiJoinClause> criteria)
+        {
+            // the smaller input is used as the build side
+            JoinTree probe = first;
+            JoinTree build = second;
+            if (first.getRowCount() < second.getRowCount()) {
+                probe = second;
+                build = first;
+            }
+
+            Set<Symbol> probeSymbols = ImmutableSet.copyOf(probe.getNode().getOutputSymbols());
+            Set<Symbol> buildSymbols = ImmutableSet.copyOf(build.getNode().getOutputSymbols());
+            ImmutableList.Builder<EquiJoinClause> clauses = ImmutableList.builder();
+            for (EquiJoinClause clause : criteria) {
+                if (probeSymbols.contains(clause.getLeft()) && buildSymbols.contains(clause.getRight())) {
+                    clauses.add(clause);
+                }
+                else if (probeSymbols.contains(clause.getRight()) && buildSymbols.contains(clause.getLeft())) {
+                    clauses.add(new EquiJoinClause(clause.getRight(), clause.getLeft()));
+                }
+            }
+            List<EquiJoinClause> joinClauses = clauses.build();
+            if (joinClauses.isEmpty()) {
+                return Optional.empty();
+            }
+
+            JoinNode joinNode = new JoinNode(idAllocator.getNextId(), INNER, probe.getNode(), build.getNode(), joinClauses, Optional.empty(), Optional.empty(), Optional.empty());
+            return Optional.of(createJoinTree(joinNode, probe, build));
+        }
+
+        private static JoinTree estimate(PlanNode node, Map<PlanNode, PlanNodeStatsEstimate> sourceStats)
+        {
+            PlanNodeStatsEstimate stats = sourceStats.get(node);
+            if (stats != null) {
+                return new JoinTree(node, stats, 0);
+            }
+            JoinNode joinNode = (JoinNode) node;
+            return createJoinTree(joinNode, estimate(joinNode.getLeft(), sourceStats), estimate(joinNode.getRight(), sourceStats));
+        }
+
+        private static JoinTree createJoinTree(JoinNode joinNode, JoinTree probe, JoinTree build)
+        {
+            PlanNodeStatsEstimate stats = estimateJoin(INNER, joinNode.getCriteria(), false, probe.getStats(), build.getStats());
+            // the cost of a join is the size of its build side, which is kept in memory, and of its output
+            double cost = probe.getCost() + build.getCost() + build.getRowCount() + stats.getOutputRowCount().getValue();
+            return new JoinTree(joinNode, stats, cost);
+        }
+
+        private static boolean isSmaller(JoinTree candidate, JoinTree current)
+        {
+            return candidate.getRowCount() < current.getRowCount() ||
+                    (candidate.getRowCount() == current.getRowCount() && candidate.getCost() < current.getCost());
+        }
+
+        private static boolean isReorderable(PlanNode node)
+        {
+            if (!(node instanceof JoinNode)) {
+                return false;
+            }
+            JoinNode joinNode = (JoinNode) node;
+            return joinNode.getType() == INNER &&
+                    !joinNode.getCriteria().isEmpty() &&
+                    !joinNode.getFilter().isPresent() &&
+                    !joinNode.getLeftHashSymbol().isPresent() &&
+                    !joinNode.getRightHashSymbol().isPresent() &&
+                    !joinNode.getDistributionType().isPresent();
+        }
+
+        private static void flatten(PlanNode node, List<PlanNode> sources, List<EquiJoinClause> criteria)
+        {
+            if (!isReorderable(node)) {
+                sources.add(node);
+                return;
+            }
+            JoinNode joinNode = (JoinNode) node;
+            criteria.addAll(joinNode.getCriteria());
+            flatten(joinNode.getLeft(), sources, criteria);
+            flatten(joinNode.getRight(), sources, criteria);
+        }
+    }
+
+    private static class JoinTree
+    {
+        private final PlanNode node;
+        private final PlanNodeStatsEstimate stats;
+        private final double cost;
+
+        public JoinTree(PlanNode node, PlanNodeStatsEstimate stats, double cost)
+        {
+            this.node = requireNonNull(node, "node is null");
+            this.stats = requireNonNull(stats, "stats is null");
+            this.cost = cost;
+        }
+
+        public PlanNode getNode()
+        {
+            return node;
+        }
+
+        public PlanNodeStatsEstimate getStats()
+        {
+            return stats;
+        }
+
+        public double getRowCount()
+        {
+            return stats.getOutputRowCount().getValue();
+        }
+
+        public double getCost()
+        {
+            return cost;
+        }
+    }
+}
@@ -38,6 +38,19 @@ public class JoinNode
     private final Optional<Expression> filter;
     private final Optional<Symbol> leftHashSymbol;
     private final Optional<Symbol> rightHashSymbol;
+    private final Optional<DistributionType> distributionType;
+
+    public JoinNode(PlanNodeId id,
+            Type type,
+            PlanNode left,
+            PlanNode right,
+            List<EquiJoinClause> criteria,
+            Optional<Expression> filter,
+            Optional<Symbol> leftHashSymbol,
+            Optional<Symbol> rightHashSymbol)
+    {
+        this(id, type, left, right, criteria, filter, leftHashSymbol, rightHashSymbol, Optional.empty());
+    }
 
     @JsonCreator
     public JoinNode(@JsonProperty("id") PlanNodeId id,
@@ -47,7 +60,8 @@ public class JoinNode
             @JsonProperty("criteria") List<EquiJoinClause> criteria,
             @JsonProperty("filter") Optional<Expression> filter,
             @JsonProperty("leftHashSymbol") Optional<Symbol> leftHashSymbol,
-            @JsonProperty("rightHashSymbol") Optional<Symbol> rightHashSymbol)
+            @JsonProperty("rightHashSymbol") Optional<Symbol> rightHashSymbol,
+            @JsonProperty("distributionType") Optional<DistributionType> distributionType)
     {
         super(id);
         requireNonNull(type, "type is null");
@@ -57,6 +71,7 @@ public class JoinNode
         requireNonNull(filter, "filter is null");
         requireNonNull(leftHashSymbol, "leftHashSymbol is null");
         requireNonNull(rightHashSymbol, "rightHashSymbol is null");
+        requireNonNull(distributionType, "distributionType is null");
 
         this.type = type;
         this.left = left;
@@ -65,6 +80,13 @@ public class JoinNode
         this.filter = filter;
         this.leftHashSymbol = leftHashSymbol;
         this.rightHashSymbol = rightHashSymbol;
+        this.distributionType = distributionType;
+    }
+
+    public enum DistributionType
+    {
+        PARTITIONED,
+        REPLICATED
     }
 
     public enum Type
@@ -148,6 +170,20 @@ public class JoinNode
         return rightHashSymbol;
     }
 
+    /**
+     * Returns how the join is distributed, or empty if this is left to the session default.
+     */
+    @JsonProperty("distributionType")
+    public Optional<DistributionType> getDistributionType()
+    {
+        return distributionType;
+    }
+
+    public JoinNode withDistributionType(DistributionType distributionType)
+    {
+        return new JoinNode(getId(), type, left, right, criteria, filter, leftHashSymbol, rightHashSymbol, Optional.of(distributionType));
+    }
+
     @Override
     public List<PlanNode> getSources()
     {
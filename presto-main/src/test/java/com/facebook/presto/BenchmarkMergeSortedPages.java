@@ -0,0 +1,159 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto;
+
+import com.facebook.presto.operator.PagesIndex;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.BlockBuilderStatus;
+import com.facebook.presto.spi.block.SortOrder;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.VerboseMode;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static com.facebook.presto.operator.MergeSortedPages.mergeSortedPages;
+import static com.facebook.presto.spi.block.SortOrder.ASC_NULLS_FIRST;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static java.util.Collections.nCopies;
+
+/**
+ * Compares sorting all pages in a single {@link PagesIndex} with sorting them in
+ * separate runs that are merged afterwards, as done by the external sort of the
+ * order by and window operators.
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(3)
+@Warmup(iterations = 10, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+public class BenchmarkMergeSortedPages
+{
+    private static final int POSITIONS_PER_PAGE = 1024;
+
+    @Benchmark
+    public int sortInMemory(BenchmarkData data)
+    {
+        PagesIndex pagesIndex = new PagesIndex(data.types, 10_000);
+        for (Page page : data.pages) {
+            pagesIndex.addPage(page);
+        }
+        pagesIndex.sort(data.sortChannels, data.sortOrders);
+        return countPositions(pagesIndex.getSortedPages());
+    }
+
+    @Benchmark
+    public int sortRunsAndMerge(BenchmarkData data)
+    {
+        int pagesPerRun = (data.pages.size() + data.runCount - 1) / data.runCount;
+        ImmutableList.Builder<Iterator<Page>> sortedRuns = ImmutableList.builder();
+        for (int start = 0; start < data.pages.size(); start += pagesPerRun) {
+            PagesIndex pagesIndex = new PagesIndex(data.types, 10_000);
+            for (Page page : data.pages.subList(start, Math.min(start + pagesPerRun, data.pages.size()))) {
+                pagesIndex.addPage(page);
+            }
+            pagesIndex.sort(data.sortChannels, data.sortOrders);
+            sortedRuns.add(pagesIndex.getSortedPages());
+        }
+        return countPositions(mergeSortedPages(sortedRuns.build(), data.types, data.sortChannels, data.sortOrders));
+    }
+
+    private static int countPositions(Iterator<Page> pages)
+    {
+        int positions = 0;
+        while (pages.hasNext()) {
+            positions += pages.next().getPositionCount();
+        }
+        return positions;
+    }
+
+    private static List<Page> createPages(int pageCount, int channelCount)
+    {
+        Random random = new Random(0);
+        List<Page> pages = new ArrayList<>(pageCount);
+        for (int numPage = 0; numPage < pageCount; numPage++) {
+            Block[] blocks = new Block[channelCount];
+            for (int numChannel = 0; numChannel < channelCount; numChannel++) {
+                BlockBuilder blockBuilder = BIGINT.createBlockBuilder(new BlockBuilderStatus(), POSITIONS_PER_PAGE);
+                for (int position = 0; position < POSITIONS_PER_PAGE; position++) {
+                    BIGINT.writeLong(blockBuilder, random.nextInt(1_000_000));
+                }
+                blocks[numChannel] = blockBuilder.build();
+            }
+            pages.add(new Page(blocks));
+        }
+        return pages;
+    }
+
+    @State(Scope.Thread)
+    public static class BenchmarkData
+    {
+        @Param({ "1", "2", "3" })
+        private int numSortChannels;
+
+        @Param({ "2", "8", "32" })
+        private int runCount;
+
+        private final int maxPages = 500;
+        private final int totalChannels = 5;
+
+        private List<Page> pages;
+        private List<Type> types;
+        private List<Integer> sortChannels;
+        private List<SortOrder> sortOrders;
+
+        @Setup
+        public void setup()
+        {
+            pages = createPages(maxPages, totalChannels);
+            types = nCopies(totalChannels, BIGINT);
+
+            sortChannels = new ArrayList<>();
+            for (int i = 0; i < numSortChannels; i++) {
+                sortChannels.add(i);
+            }
+            sortOrders = nCopies(numSortChannels, ASC_NULLS_FIRST);
+        }
+    }
+
+    public static void main(String[] args)
+            throws RunnerException
+    {
+        Options options = new OptionsBuilder()
+                .verbosity(VerboseMode.NORMAL)
+                .include(".*" + BenchmarkMergeSortedPages.class.getSimpleName() + ".*")
+                .build();
+
+        new Runner(options).run();
+    }
+}
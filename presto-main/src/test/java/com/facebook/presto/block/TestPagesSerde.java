@@ -14,6 +14,7 @@
 package com.facebook.presto.block;
 
 import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PrestoException;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.BlockBuilder;
 import com.facebook.presto.spi.block.BlockBuilderStatus;
@@ -27,13 +28,17 @@ import org.testng.annotations.Test;
 import java.util.Iterator;
 import java.util.List;
 
+import static com.facebook.presto.block.PagesSerde.readCompressedPages;
 import static com.facebook.presto.block.PagesSerde.readPages;
+import static com.facebook.presto.block.PagesSerde.writeCompressedPages;
 import static com.facebook.presto.block.PagesSerde.writePages;
 import static com.facebook.presto.operator.PageAssertions.assertPageEquals;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
 
 public class TestPagesSerde
 {
@@ -62,6 +67,71 @@ public class TestPagesSerde
         assertFalse(pageIterator.hasNext());
     }
 
+    @Test
+    public void testCompressedRoundTrip()
+    {
+        BlockBuilder blockBuilder = BIGINT.createBlockBuilder(new BlockBuilderStatus(), 1000);
+        for (int i = 0; i < 1000; i++) {
+            BIGINT.writeLong(blockBuilder, i % 10);
+        }
+        Page page = new Page(blockBuilder.build());
+        List<Page> pages = ImmutableList.of(page, page);
+
+        for (PageCompressionCodec codec : ImmutableList.of(PageCompressionCodec.LZ4, PageCompressionCodec.SNAPPY)) {
+            DynamicSliceOutput sliceOutput = new DynamicSliceOutput(1024);
+            PageCompressionStats writeStats = new PageCompressionStats();
+            writeCompressedPages(blockEncodingManager, sliceOutput, pages.iterator(), codec, writeStats);
+            assertTrue(writeStats.getBytesSaved() > 0);
+
+            PageCompressionStats readStats = new PageCompressionStats();
+            Iterator<Page> pageIterator = readCompressedPages(blockEncodingManager, sliceOutput.slice().getInput(), codec, readStats);
+            assertPageEquals(ImmutableList.of(BIGINT), pageIterator.next(), page);
+            assertPageEquals(ImmutableList.of(BIGINT), pageIterator.next(), page);
+            assertFalse(pageIterator.hasNext());
+            assertEquals(readStats.getCompressedBytes(), writeStats.getCompressedBytes());
+            assertEquals(readStats.getUncompressedBytes(), writeStats.getUncompressedBytes());
+        }
+    }
+
+    @Test
+    public void testIncompressibleRoundTrip()
+    {
+        BlockBuilder expectedBlockBuilder = VARCHAR.createBlockBuilder(new BlockBuilderStatus(), 1);
+        VARCHAR.writeString(expectedBlockBuilder, "alice");
+        Page page = new Page(expectedBlockBuilder.build());
+
+        DynamicSliceOutput sliceOutput = new DynamicSliceOutput(1024);
+        PageCompressionStats writeStats = new PageCompressionStats();
+        writeCompressedPages(blockEncodingManager, sliceOutput, ImmutableList.of(page).iterator(), PageCompressionCodec.LZ4, writeStats);
+        assertEquals(writeStats.getBytesSaved(), 0);
+
+        Iterator<Page> pageIterator = readCompressedPages(blockEncodingManager, sliceOutput.slice().getInput(), PageCompressionCodec.LZ4, new PageCompressionStats());
+        assertPageEquals(ImmutableList.of(VARCHAR), pageIterator.next(), page);
+        assertFalse(pageIterator.hasNext());
+    }
+
+    @Test
+    public void testChecksumMismatch()
+    {
+        BlockBuilder expectedBlockBuilder = VARCHAR.createBlockBuilder(new BlockBuilderStatus(), 1);
+        VARCHAR.writeString(expectedBlockBuilder, "alice");
+        Page page = new Page(expectedBlockBuilder.build());
+
+        DynamicSliceOutput sliceOutput = new DynamicSliceOutput(1024);
+        writeCompressedPages(blockEncodingManager, sliceOutput, ImmutableList.of(page), PageCompressionCodec.LZ4);
+        Slice slice = sliceOutput.slice();
+        // flip a bit in the last byte of the page data
+        slice.setByte(slice.length() - 1, slice.getByte(slice.length() - 1) ^ 1);
+
+        try {
+            readCompressedPages(blockEncodingManager, slice.getInput(), PageCompressionCodec.LZ4, new PageCompressionStats()).next();
+            fail("expected exception");
+        }
+        catch (PrestoException e) {
+            assertEquals(e.getMessage(), "Page checksum mismatch");
+        }
+    }
+
     @Test
     public void testBigintSerializedSize()
     {
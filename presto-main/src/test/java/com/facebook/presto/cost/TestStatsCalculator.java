@@ -0,0 +1,79 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.cost;
+
+import com.facebook.presto.spi.statistics.Estimate;
+import com.facebook.presto.sql.planner.Symbol;
+import com.facebook.presto.sql.planner.plan.JoinNode.EquiJoinClause;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.testng.annotations.Test;
+
+import static com.facebook.presto.cost.StatsCalculator.estimateJoin;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static com.facebook.presto.sql.planner.plan.JoinNode.Type.INNER;
+import static com.facebook.presto.sql.planner.plan.JoinNode.Type.LEFT;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestStatsCalculator
+{
+    private static final Symbol A = new Symbol("a");
+    private static final Symbol B = new Symbol("b");
+
+    @Test
+    public void testJoinWithDistinctValues()
+    {
+        PlanNodeStatsEstimate left = new PlanNodeStatsEstimate(Estimate.of(1000), ImmutableMap.of(A, Estimate.of(100)));
+        PlanNodeStatsEstimate right = new PlanNodeStatsEstimate(Estimate.of(50), ImmutableMap.of(B, Estimate.of(50)));
+
+        PlanNodeStatsEstimate join = estimateJoin(INNER, ImmutableList.of(new EquiJoinClause(A, B)), false, left, right);
+        assertEquals(join.getOutputRowCount(), Estimate.of(500));
+        assertEquals(join.getDistinctValuesCount(A), Estimate.of(100));
+        assertEquals(join.getDistinctValuesCount(B), Estimate.of(50));
+
+        join = estimateJoin(INNER, ImmutableList.of(new EquiJoinClause(A, B)), true, left, right);
+        assertEquals(join.getOutputRowCount(), Estimate.of(250));
+    }
+
+    @Test
+    public void testJoinWithoutDistinctValues()
+    {
+        PlanNodeStatsEstimate left = new PlanNodeStatsEstimate(Estimate.of(1000), ImmutableMap.of());
+        PlanNodeStatsEstimate right = new PlanNodeStatsEstimate(Estimate.of(10), ImmutableMap.of());
+
+        assertEquals(estimateJoin(INNER, ImmutableList.of(new EquiJoinClause(A, B)), false, left, right).getOutputRowCount(), Estimate.of(1000));
+        assertEquals(estimateJoin(INNER, ImmutableList.of(), false, left, right).getOutputRowCount(), Estimate.of(10_000));
+        assertTrue(estimateJoin(INNER, ImmutableList.of(), false, left, PlanNodeStatsEstimate.UNKNOWN).getOutputRowCount().isValueUnknown());
+    }
+
+    @Test
+    public void testOuterJoin()
+    {
+        PlanNodeStatsEstimate left = new PlanNodeStatsEstimate(Estimate.of(1000), ImmutableMap.of(A, Estimate.of(1000)));
+        PlanNodeStatsEstimate right = new PlanNodeStatsEstimate(Estimate.of(10), ImmutableMap.of(B, Estimate.of(10)));
+
+        assertEquals(estimateJoin(INNER, ImmutableList.of(new EquiJoinClause(A, B)), false, left, right).getOutputRowCount(), Estimate.of(10));
+        assertEquals(estimateJoin(LEFT, ImmutableList.of(new EquiJoinClause(A, B)), false, left, right).getOutputRowCount(), Estimate.of(1000));
+    }
+
+    @Test
+    public void testOutputSize()
+    {
+        PlanNodeStatsEstimate stats = new PlanNodeStatsEstimate(Estimate.of(10), ImmutableMap.of());
+        assertEquals(stats.getOutputSizeInBytes(ImmutableList.of(A, B), ImmutableMap.of(A, BIGINT, B, VARCHAR)), Estimate.of(240));
+        assertTrue(PlanNodeStatsEstimate.UNKNOWN.getOutputSizeInBytes(ImmutableList.of(A), ImmutableMap.of(A, BIGINT)).isValueUnknown());
+    }
+}
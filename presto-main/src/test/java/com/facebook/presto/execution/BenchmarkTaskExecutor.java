@@ -0,0 +1,158 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution;
+
+import com.facebook.presto.execution.TaskExecutor.TaskHandle;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import io.airlift.units.Duration;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.VerboseMode;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+/**
+ * Runs many splits that each yield after a tiny amount of work, so the run time is
+ * dominated by taking splits from and returning them to the task executor queue.
+ */
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(3)
+@Warmup(iterations = 10, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+public class BenchmarkTaskExecutor
+{
+    private static final int TASK_COUNT = 32;
+    private static final int SPLITS_PER_TASK = 64;
+    private static final int QUANTA_PER_SPLIT = 16;
+
+    @Benchmark
+    public int runTinySplits(BenchmarkData data)
+            throws Exception
+    {
+        List<TaskHandle> taskHandles = new ArrayList<>(TASK_COUNT);
+        List<ListenableFuture<?>> finishedFutures = new ArrayList<>(TASK_COUNT * SPLITS_PER_TASK);
+        for (int task = 0; task < TASK_COUNT; task++) {
+            TaskHandle taskHandle = data.taskExecutor.addTask(
+                    new TaskId("benchmark", data.nextStageId++, task),
+                    () -> 0,
+                    SPLITS_PER_TASK,
+                    new Duration(1, MILLISECONDS));
+            taskHandles.add(taskHandle);
+
+            ImmutableList.Builder<SplitRunner> splits = ImmutableList.builder();
+            for (int split = 0; split < SPLITS_PER_TASK; split++) {
+                splits.add(new TinySplit(QUANTA_PER_SPLIT));
+            }
+            finishedFutures.addAll(data.taskExecutor.enqueueSplits(taskHandle, false, splits.build()));
+        }
+
+        Futures.allAsList(finishedFutures).get();
+        for (TaskHandle taskHandle : taskHandles) {
+            data.taskExecutor.removeTask(taskHandle);
+        }
+        return finishedFutures.size();
+    }
+
+    private static class TinySplit
+            implements SplitRunner
+    {
+        private int remainingQuanta;
+        private long result;
+
+        public TinySplit(int quanta)
+        {
+            this.remainingQuanta = quanta;
+        }
+
+        @Override
+        public ListenableFuture<?> processFor(Duration duration)
+        {
+            for (int i = 0; i < 100; i++) {
+                result = result * 31 + i;
+            }
+            remainingQuanta--;
+            return Futures.immediateFuture(null);
+        }
+
+        @Override
+        public boolean isFinished()
+        {
+            return remainingQuanta <= 0;
+        }
+
+        @Override
+        public String getInfo()
+        {
+            return "tiny-split-" + result;
+        }
+
+        @Override
+        public void close()
+        {
+        }
+    }
+
+    @State(Scope.Thread)
+    public static class BenchmarkData
+    {
+        @Param({ "4", "16", "64" })
+        private int runnerThreads;
+
+        private TaskExecutor taskExecutor;
+        private int nextStageId;
+
+        @Setup
+        public void setup()
+        {
+            taskExecutor = new TaskExecutor(runnerThreads, runnerThreads * 2);
+            taskExecutor.start();
+        }
+
+        @TearDown
+        public void tearDown()
+        {
+            taskExecutor.stop();
+        }
+    }
+
+    public static void main(String[] args)
+            throws RunnerException
+    {
+        Options options = new OptionsBuilder()
+                .verbosity(VerboseMode.NORMAL)
+                .include(".*" + BenchmarkTaskExecutor.class.getSimpleName() + ".*")
+                .build();
+
+        new Runner(options).run();
+    }
+}
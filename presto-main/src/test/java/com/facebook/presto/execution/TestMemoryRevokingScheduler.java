@@ -0,0 +1,136 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.execution;
+
+import com.facebook.presto.memory.MemoryPool;
+import com.facebook.presto.memory.QueryContext;
+import com.facebook.presto.operator.DriverContext;
+import com.facebook.presto.operator.OperatorContext;
+import com.facebook.presto.spi.QueryId;
+import com.facebook.presto.spi.memory.MemoryPoolId;
+import com.facebook.presto.sql.planner.plan.PlanNodeId;
+import com.google.common.collect.ImmutableList;
+import io.airlift.units.DataSize;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.ScheduledExecutorService;
+
+import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
+import static com.facebook.presto.testing.TestingTaskContext.createTaskContext;
+import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static java.util.concurrent.Executors.newScheduledThreadPool;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestMemoryRevokingScheduler
+{
+    private static final long ONE_MEGABYTE = new DataSize(1, MEGABYTE).toBytes();
+
+    private ScheduledExecutorService executor;
+    private MemoryPool memoryPool;
+    private QueryContext queryContext;
+    private DriverContext driverContext;
+
+    @BeforeClass
+    public void setUp()
+    {
+        executor = newScheduledThreadPool(1, daemonThreadsNamed("test-%s"));
+    }
+
+    @AfterClass
+    public void tearDown()
+    {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testRevokesLargestReservationsFirst()
+    {
+        createContexts();
+        OperatorContext small = driverContext.addOperatorContext(1, new PlanNodeId("small"), "test");
+        OperatorContext large = driverContext.addOperatorContext(2, new PlanNodeId("large"), "test");
+        OperatorContext regular = driverContext.addOperatorContext(3, new PlanNodeId("regular"), "test");
+
+        small.setRevocableMemoryReservation(2 * ONE_MEGABYTE);
+        large.setRevocableMemoryReservation(5 * ONE_MEGABYTE);
+        regular.setMemoryReservation(2 * ONE_MEGABYTE);
+        assertEquals(memoryPool.getReservedRevocableBytes(), 7 * ONE_MEGABYTE);
+        assertEquals(memoryPool.getFreeBytes(), ONE_MEGABYTE);
+
+        // 9MB are used, revoking the largest operator gets the pool below the 5MB target
+        MemoryRevokingScheduler scheduler = new MemoryRevokingScheduler(ImmutableList.of(memoryPool), () -> ImmutableList.of(queryContext), executor, 0.8, 0.5);
+        scheduler.requestMemoryRevokingIfNeeded();
+        assertTrue(large.isMemoryRevokingRequested());
+        assertFalse(small.isMemoryRevokingRequested());
+        assertFalse(regular.isMemoryRevokingRequested());
+
+        // the operator releases its memory and the pool is below the threshold again
+        large.setRevocableMemoryReservation(0);
+        large.resetMemoryRevokingRequested();
+        scheduler.requestMemoryRevokingIfNeeded();
+        assertFalse(large.isMemoryRevokingRequested());
+        assertFalse(small.isMemoryRevokingRequested());
+    }
+
+    @Test
+    public void testRevokingUnblocksOperator()
+    {
+        createContexts();
+        OperatorContext operatorContext = driverContext.addOperatorContext(1, new PlanNodeId("test"), "test");
+
+        operatorContext.setRevocableMemoryReservation(11 * ONE_MEGABYTE);
+        assertFalse(operatorContext.isWaitingForMemory().isDone());
+
+        operatorContext.requestMemoryRevoking();
+        assertTrue(operatorContext.isWaitingForMemory().isDone());
+
+        // the operator is not blocked again while it is releasing its memory
+        operatorContext.setRevocableMemoryReservation(12 * ONE_MEGABYTE);
+        assertTrue(operatorContext.isWaitingForMemory().isDone());
+
+        operatorContext.setRevocableMemoryReservation(0);
+        operatorContext.resetMemoryRevokingRequested();
+        assertEquals(memoryPool.getFreeBytes(), memoryPool.getMaxBytes());
+        assertEquals(memoryPool.getReservedRevocableBytes(), 0);
+    }
+
+    @Test
+    public void testRevocableMemoryIsNotLimitedByQueryMemory()
+    {
+        createContexts();
+        OperatorContext operatorContext = driverContext.addOperatorContext(1, new PlanNodeId("test"), "test");
+
+        // the query limit is 3MB, but revocable memory is only limited by the pool
+        operatorContext.setRevocableMemoryReservation(5 * ONE_MEGABYTE);
+        assertEquals(memoryPool.getReservedRevocableBytes(), 5 * ONE_MEGABYTE);
+
+        driverContext.finished();
+        assertEquals(memoryPool.getReservedRevocableBytes(), 0);
+        assertEquals(memoryPool.getFreeBytes(), memoryPool.getMaxBytes());
+    }
+
+    private void createContexts()
+    {
+        memoryPool = new MemoryPool(new MemoryPoolId("test"), new DataSize(10, MEGABYTE));
+        MemoryPool systemMemoryPool = new MemoryPool(new MemoryPoolId("testSystem"), new DataSize(10, MEGABYTE));
+        queryContext = new QueryContext(new QueryId("query"), new DataSize(3, MEGABYTE), memoryPool, systemMemoryPool, executor);
+        driverContext = createTaskContext(queryContext, executor, TEST_SESSION)
+                .addPipelineContext(true, true)
+                .addDriverContext();
+    }
+}
@@ -299,6 +299,40 @@ public class TestNodeScheduler
         assertEquals(assignments.size(), 1);
     }
 
+    @Test
+    public void testScheduleRemoteWithPreferredNode()
+            throws Exception
+    {
+        TestingTransactionHandle transactionHandle = TestingTransactionHandle.create();
+        Node preferredNode = nodeManager.getActiveConnectorNodes(CONNECTOR_ID).stream()
+                .filter(node -> node.getNodeIdentifier().equals("other2"))
+                .findFirst()
+                .get();
+
+        Set<Split> splits = new HashSet<>();
+        for (int i = 0; i < 5; i++) {
+            splits.add(new Split(CONNECTOR_ID, transactionHandle, new TestSplitRemote(preferredNode.getHostAndPort())));
+        }
+        Multimap<Node, Split> assignments = nodeSelector.computeAssignments(splits, ImmutableList.copyOf(taskMap.values()));
+        assertEquals(assignments.keySet(), ImmutableSet.of(preferredNode));
+
+        // splits go to other nodes once the preferred node is full
+        MockRemoteTaskFactory remoteTaskFactory = new MockRemoteTaskFactory(remoteTaskExecutor);
+        ImmutableList.Builder<Split> initialSplits = ImmutableList.builder();
+        for (int i = 0; i < 20; i++) {
+            initialSplits.add(new Split(CONNECTOR_ID, transactionHandle, new TestSplitRemote()));
+        }
+        TaskId taskId = new TaskId("test", 1, 1);
+        RemoteTask remoteTask = remoteTaskFactory.createTableScanTask(taskId, preferredNode, initialSplits.build(), nodeTaskMap.createPartitionedSplitCountTracker(preferredNode, taskId));
+        nodeTaskMap.addTask(preferredNode, remoteTask);
+
+        assignments = nodeSelector.computeAssignments(splits, ImmutableList.copyOf(taskMap.values()));
+        assertEquals(assignments.size(), 5);
+        assertFalse(assignments.keySet().contains(preferredNode));
+
+        remoteTask.abort();
+    }
+
     @Test
     public void testBasicAssignment()
             throws Exception
@@ -485,7 +519,7 @@ public class TestNodeScheduler
 
         public TestSplitRemote()
         {
-            this(HostAddress.fromString("127.0.0.1:" + ThreadLocalRandom.current().nextInt(5000)));
+            this(HostAddress.fromString("127.0.0.1:" + ThreadLocalRandom.current().nextInt(1000, 5000)));
         }
 
         public TestSplitRemote(HostAddress host)
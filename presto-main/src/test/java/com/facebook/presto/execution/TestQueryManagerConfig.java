@@ -38,6 +38,10 @@ public class TestQueryManagerConfig
                 .setQueryManagerExecutorPoolSize(5)
                 .setRemoteTaskMinErrorDuration(new Duration(2, TimeUnit.MINUTES))
                 .setRemoteTaskMaxCallbackThreads(1000)
+                .setRemoteTaskBinaryEncodingEnabled(false)
+                .setRemoteTaskDeltaInfoEnabled(false)
+                .setRemoteTaskMaxSplitsPerUpdate(1000)
+                .setRemoteTaskUpdateBatchDelay(new Duration(0, TimeUnit.MILLISECONDS))
                 .setQueryExecutionPolicy("all-at-once")
                 .setQueryMaxRunTime(new Duration(100, TimeUnit.DAYS))
                 .setQueryMaxCpuTime(new Duration(1_000_000_000, TimeUnit.DAYS))
@@ -59,6 +63,10 @@ public class TestQueryManagerConfig
                 .put("query.manager-executor-pool-size", "11")
                 .put("query.remote-task.min-error-duration", "30s")
                 .put("query.remote-task.max-callback-threads", "10")
+                .put("query.remote-task.binary-encoding-enabled", "true")
+                .put("query.remote-task.delta-info-enabled", "true")
+                .put("query.remote-task.max-splits-per-update", "100")
+                .put("query.remote-task.update-batch-delay", "50ms")
                 .put("query.execution-policy", "phased")
                 .put("query.max-run-time", "2h")
                 .put("query.max-cpu-time", "2d")
@@ -76,6 +84,10 @@ public class TestQueryManagerConfig
                 .setQueryManagerExecutorPoolSize(11)
                 .setRemoteTaskMinErrorDuration(new Duration(30, TimeUnit.SECONDS))
                 .setRemoteTaskMaxCallbackThreads(10)
+                .setRemoteTaskBinaryEncodingEnabled(true)
+                .setRemoteTaskDeltaInfoEnabled(true)
+                .setRemoteTaskMaxSplitsPerUpdate(100)
+                .setRemoteTaskUpdateBatchDelay(new Duration(50, TimeUnit.MILLISECONDS))
                 .setQueryExecutionPolicy("phased")
                 .setQueryMaxRunTime(new Duration(2, TimeUnit.HOURS))
                 .setQueryMaxCpuTime(new Duration(2, TimeUnit.DAYS));
@@ -20,6 +20,8 @@ import com.google.common.util.concurrent.ListenableFuture;
 import io.airlift.units.Duration;
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.Phaser;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -150,6 +152,67 @@ public class TestTaskExecutor
         }
     }
 
+    @Test
+    public void testManyShortSplits()
+            throws Exception
+    {
+        TaskExecutor taskExecutor = new TaskExecutor(8, 16);
+        taskExecutor.start();
+
+        try {
+            List<ListenableFuture<?>> futures = new ArrayList<>();
+            for (int task = 0; task < 8; task++) {
+                TaskHandle taskHandle = taskExecutor.addTask(new TaskId("test", 0, task), () -> 0, 10, new Duration(1, MILLISECONDS));
+                ImmutableList.Builder<SplitRunner> splits = ImmutableList.builder();
+                for (int split = 0; split < 100; split++) {
+                    splits.add(new ShortJob(5));
+                }
+                futures.addAll(taskExecutor.enqueueSplits(taskHandle, false, splits.build()));
+            }
+
+            Futures.allAsList(futures).get(10, TimeUnit.SECONDS);
+            assertEquals(taskExecutor.getPendingSplits(), 0);
+        }
+        finally {
+            taskExecutor.stop();
+        }
+    }
+
+    private static class ShortJob
+            implements SplitRunner
+    {
+        private final AtomicInteger remainingCalls;
+
+        public ShortJob(int calls)
+        {
+            this.remainingCalls = new AtomicInteger(calls);
+        }
+
+        @Override
+        public ListenableFuture<?> processFor(Duration duration)
+        {
+            remainingCalls.decrementAndGet();
+            return Futures.immediateFuture(null);
+        }
+
+        @Override
+        public String getInfo()
+        {
+            return "short-split";
+        }
+
+        @Override
+        public boolean isFinished()
+        {
+            return remainingCalls.get() <= 0;
+        }
+
+        @Override
+        public void close()
+        {
+        }
+    }
+
     private static class TestingJob
             implements SplitRunner
     {
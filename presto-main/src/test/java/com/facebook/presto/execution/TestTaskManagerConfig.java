@@ -52,7 +52,9 @@ public class TestTaskManagerConfig
                 .setTaskConcurrency(16)
                 .setHttpResponseThreads(100)
                 .setHttpTimeoutThreads(3)
-                .setTaskNotificationThreads(5));
+                .setTaskNotificationThreads(5)
+                .setMemoryRevokingThreshold(0.9)
+                .setMemoryRevokingTarget(0.5));
     }
 
     @Test
@@ -80,6 +82,8 @@ public class TestTaskManagerConfig
                 .put("task.http-response-threads", "4")
                 .put("task.http-timeout-threads", "10")
                 .put("task.task-notification-threads", "13")
+                .put("task.memory-revoking-threshold", "0.8")
+                .put("task.memory-revoking-target", "0.6")
                 .build();
 
         TaskManagerConfig expected = new TaskManagerConfig()
@@ -103,7 +107,9 @@ public class TestTaskManagerConfig
                 .setTaskConcurrency(8)
                 .setHttpResponseThreads(4)
                 .setHttpTimeoutThreads(10)
-                .setTaskNotificationThreads(13);
+                .setTaskNotificationThreads(13)
+                .setMemoryRevokingThreshold(0.8)
+                .setMemoryRevokingTarget(0.6);
 
         assertFullMapping(properties, expected);
     }
@@ -0,0 +1,81 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.memory;
+
+import com.facebook.presto.memory.LowMemoryKiller.QueryMemoryInfo;
+import com.facebook.presto.spi.QueryId;
+import com.facebook.presto.spi.memory.MemoryPoolInfo;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.units.DataSize;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static com.facebook.presto.memory.LocalMemoryManager.GENERAL_POOL;
+import static com.facebook.presto.memory.LocalMemoryManager.RESERVED_POOL;
+import static io.airlift.units.DataSize.Unit.GIGABYTE;
+import static org.testng.Assert.assertEquals;
+
+public class TestLowMemoryKillers
+{
+    private static final QueryId OLD_QUERY = new QueryId("old");
+    private static final QueryId NEW_QUERY = new QueryId("new");
+    private static final QueryId BIG_QUERY = new QueryId("big");
+    private static final QueryId RESERVED_QUERY = new QueryId("reserved");
+
+    // the big query only holds memory on the node that is not blocked
+    private static final List<MemoryInfo> NODES = ImmutableList.of(
+            createNode(0, ImmutableMap.of(OLD_QUERY, 60L, NEW_QUERY, 40L)),
+            createNode(100, ImmutableMap.of(BIG_QUERY, 500L)));
+
+    private static final List<QueryMemoryInfo> QUERIES = ImmutableList.of(
+            new QueryMemoryInfo(OLD_QUERY, GENERAL_POOL, 60, 1000),
+            new QueryMemoryInfo(NEW_QUERY, GENERAL_POOL, 40, 2000),
+            new QueryMemoryInfo(BIG_QUERY, GENERAL_POOL, 500, 1500),
+            new QueryMemoryInfo(RESERVED_QUERY, RESERVED_POOL, 1000, 3000));
+
+    @Test
+    public void testTotalReservation()
+    {
+        assertEquals(new TotalReservationLowMemoryKiller().chooseQueryToKill(QUERIES, NODES), Optional.of(BIG_QUERY));
+    }
+
+    @Test
+    public void testTotalReservationOnBlockedNodes()
+    {
+        assertEquals(new TotalReservationOnBlockedNodesLowMemoryKiller().chooseQueryToKill(QUERIES, NODES), Optional.of(OLD_QUERY));
+    }
+
+    @Test
+    public void testNewestQueryFirst()
+    {
+        assertEquals(new NewestQueryFirstLowMemoryKiller().chooseQueryToKill(QUERIES, NODES), Optional.of(NEW_QUERY));
+    }
+
+    @Test
+    public void testNoBlockedNodes()
+    {
+        List<MemoryInfo> nodes = ImmutableList.of(createNode(100, ImmutableMap.of(OLD_QUERY, 60L)));
+        assertEquals(new TotalReservationOnBlockedNodesLowMemoryKiller().chooseQueryToKill(QUERIES, nodes), Optional.empty());
+        assertEquals(new NewestQueryFirstLowMemoryKiller().chooseQueryToKill(QUERIES, nodes), Optional.empty());
+    }
+
+    private static MemoryInfo createNode(long freeBytes, Map<QueryId, Long> reservations)
+    {
+        return new MemoryInfo(new DataSize(1, GIGABYTE), ImmutableMap.of(GENERAL_POOL, new MemoryPoolInfo(1000, freeBytes, reservations)));
+    }
+}
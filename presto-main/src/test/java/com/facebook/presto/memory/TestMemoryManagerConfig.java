@@ -19,10 +19,16 @@ import io.airlift.units.DataSize;
 import io.airlift.units.Duration;
 import org.testng.annotations.Test;
 
+import javax.validation.constraints.AssertTrue;
+
 import java.util.Map;
 
+import static com.facebook.presto.memory.MemoryManagerConfig.LowMemoryKillerPolicy.NEWEST_QUERY_FIRST;
+import static com.facebook.presto.memory.MemoryManagerConfig.LowMemoryKillerPolicy.TOTAL_RESERVATION;
 import static io.airlift.configuration.testing.ConfigAssertions.assertFullMapping;
 import static io.airlift.configuration.testing.ConfigAssertions.assertRecordedDefaults;
+import static io.airlift.testing.ValidationAssertions.assertFailsValidation;
+import static io.airlift.testing.ValidationAssertions.assertValidates;
 import static io.airlift.units.DataSize.Unit.GIGABYTE;
 import static java.util.concurrent.TimeUnit.MINUTES;
 import static java.util.concurrent.TimeUnit.SECONDS;
@@ -35,6 +41,7 @@ public class TestMemoryManagerConfig
         assertRecordedDefaults(ConfigAssertions.recordDefaults(MemoryManagerConfig.class)
                 .setKillOnOutOfMemory(false)
                 .setKillOnOutOfMemoryDelay(new Duration(5, MINUTES))
+                .setLowMemoryKillerPolicy(TOTAL_RESERVATION)
                 .setMaxQueryMemory(new DataSize(20, GIGABYTE)));
     }
 
@@ -44,14 +51,28 @@ public class TestMemoryManagerConfig
         Map<String, String> properties = new ImmutableMap.Builder<String, String>()
                 .put("query.low-memory-killer.enabled", "true")
                 .put("query.low-memory-killer.delay", "20s")
+                .put("query.low-memory-killer.policy", "newest-query-first")
                 .put("query.max-memory", "2GB")
                 .build();
 
         MemoryManagerConfig expected = new MemoryManagerConfig()
                 .setKillOnOutOfMemory(true)
                 .setKillOnOutOfMemoryDelay(new Duration(20, SECONDS))
+                .setLowMemoryKillerPolicy(NEWEST_QUERY_FIRST)
                 .setMaxQueryMemory(new DataSize(2, GIGABYTE));
 
         assertFullMapping(properties, expected);
     }
+
+    @Test
+    public void testLowMemoryKillerPolicyValidation()
+    {
+        assertValidates(new MemoryManagerConfig().setLowMemoryKillerPolicy(NEWEST_QUERY_FIRST));
+        assertValidates(new MemoryManagerConfig().setLowMemoryKillerPolicy("TOTAL-RESERVATION"));
+        assertFailsValidation(
+                new MemoryManagerConfig().setLowMemoryKillerPolicy("largest-query"),
+                "lowMemoryKillerPolicyValid",
+                "query.low-memory-killer.policy must be one of total-reservation, total-reservation-on-blocked-nodes or newest-query-first",
+                AssertTrue.class);
+    }
 }
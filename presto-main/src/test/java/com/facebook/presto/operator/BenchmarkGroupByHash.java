@@ -106,6 +106,48 @@ public class BenchmarkGroupByHash
         return pageBuilder.build();
     }
 
+    @Benchmark
+    @OperationsPerInvocation(POSITIONS)
+    public Object flatGroupByHash(BenchmarkData data)
+    {
+        GroupByHash groupByHash = new FlatGroupByHash(data.getTypes(), data.getChannels(), data.getHashChannel(), EXPECTED_SIZE, false);
+        data.getPages().forEach(groupByHash::addPage);
+
+        ImmutableList.Builder<Page> pages = ImmutableList.builder();
+        PageBuilder pageBuilder = new PageBuilder(groupByHash.getTypes());
+        for (int groupId = 0; groupId < groupByHash.getGroupCount(); groupId++) {
+            pageBuilder.declarePosition();
+            groupByHash.appendValuesTo(groupId, pageBuilder, 0);
+            if (pageBuilder.isFull()) {
+                pages.add(pageBuilder.build());
+                pageBuilder.reset();
+            }
+        }
+        pages.add(pageBuilder.build());
+        return pageBuilder.build();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(POSITIONS)
+    public Object flatGroupByHashOffHeap(BenchmarkData data)
+    {
+        GroupByHash groupByHash = new FlatGroupByHash(data.getTypes(), data.getChannels(), data.getHashChannel(), EXPECTED_SIZE, true);
+        data.getPages().forEach(groupByHash::addPage);
+
+        ImmutableList.Builder<Page> pages = ImmutableList.builder();
+        PageBuilder pageBuilder = new PageBuilder(groupByHash.getTypes());
+        for (int groupId = 0; groupId < groupByHash.getGroupCount(); groupId++) {
+            pageBuilder.declarePosition();
+            groupByHash.appendValuesTo(groupId, pageBuilder, 0);
+            if (pageBuilder.isFull()) {
+                pages.add(pageBuilder.build());
+                pageBuilder.reset();
+            }
+        }
+        pages.add(pageBuilder.build());
+        return pageBuilder.build();
+    }
+
     @Benchmark
     @OperationsPerInvocation(POSITIONS)
     public Object bigintGroupByHash(SingleChannelBenchmarkData data)
@@ -344,6 +386,8 @@ public class BenchmarkGroupByHash
         data.setup();
         new BenchmarkGroupByHash().groupByHashPreCompute(data);
         new BenchmarkGroupByHash().addPagePreCompute(data);
+        new BenchmarkGroupByHash().flatGroupByHash(data);
+        new BenchmarkGroupByHash().flatGroupByHashOffHeap(data);
 
         SingleChannelBenchmarkData singleChannelBenchmarkData = new SingleChannelBenchmarkData();
         singleChannelBenchmarkData.setup();
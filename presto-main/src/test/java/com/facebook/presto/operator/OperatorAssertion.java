@@ -32,6 +32,7 @@ import java.util.Optional;
 import static com.facebook.presto.operator.PageAssertions.assertPageEquals;
 import static com.facebook.presto.type.TypeJsonUtils.appendToBlockBuilder;
 import static com.google.common.base.Preconditions.checkArgument;
+import static io.airlift.concurrent.MoreFutures.getFutureValue;
 import static io.airlift.testing.Assertions.assertEqualsIgnoreOrder;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
@@ -51,9 +52,11 @@ public final class OperatorAssertion
 
         while (operator.needsInput() && input.hasNext()) {
             operator.addInput(input.next());
+            waitForUnblocked(operator);
         }
 
         for (int loops = 0; !operator.isFinished() && loops < 10_000; loops++) {
+            waitForUnblocked(operator);
             if (operator.needsInput()) {
                 if (input.hasNext()) {
                     Page inputPage = input.next();
@@ -78,6 +81,12 @@ public final class OperatorAssertion
         return outputPages.build();
     }
 
+    private static void waitForUnblocked(Operator operator)
+    {
+        // operators that spill are blocked while the spill is in progress
+        getFutureValue(operator.isBlocked());
+    }
+
     public static List<Page> toPages(OperatorFactory operatorFactory, DriverContext driverContext, List<Page> input)
     {
         try (Operator operator = operatorFactory.createOperator(driverContext)) {
@@ -0,0 +1,118 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.RowPagesBuilder;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.predicate.Domain;
+import com.facebook.presto.spi.predicate.Range;
+import com.facebook.presto.spi.predicate.TupleDomain;
+import com.facebook.presto.spi.predicate.ValueSet;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import org.testng.annotations.Test;
+
+import static com.facebook.presto.RowPagesBuilder.rowPagesBuilder;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static io.airlift.slice.Slices.utf8Slice;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestDynamicFilterCollector
+{
+    @Test
+    public void testDistinctValues()
+    {
+        DynamicFilterCollector collector = new DynamicFilterCollector(ImmutableList.of(BIGINT, VARCHAR));
+        collector.setPartitionCount(2);
+
+        JoinKeyDomainBuilder first = collector.createDomainBuilder(ImmutableList.of(0, 1));
+        addPages(first, rowPagesBuilder(BIGINT, VARCHAR)
+                .row(1L, "a")
+                .row(2L, "b")
+                .build());
+        JoinKeyDomainBuilder second = collector.createDomainBuilder(ImmutableList.of(0, 1));
+        addPages(second, rowPagesBuilder(BIGINT, VARCHAR)
+                .row(3L, "a")
+                .row(null, null)
+                .build());
+
+        collector.addPartitionDomain(first.build());
+        // the predicate must not be used before all partitions have reported
+        assertEquals(collector.getPredicate(), TupleDomain.all());
+        assertFalse(collector.isComplete().isDone());
+
+        collector.addPartitionDomain(second.build());
+        assertTrue(collector.isComplete().isDone());
+        assertEquals(collector.getPredicate(), TupleDomain.withColumnDomains(ImmutableMap.of(
+                0, Domain.multipleValues(BIGINT, ImmutableList.of(1L, 2L, 3L)),
+                1, Domain.multipleValues(VARCHAR, ImmutableList.of(utf8Slice("a"), utf8Slice("b"))))));
+    }
+
+    @Test
+    public void testRangeWhenTooManyValues()
+    {
+        DynamicFilterCollector collector = new DynamicFilterCollector(ImmutableList.of(BIGINT));
+        collector.setPartitionCount(1);
+
+        JoinKeyDomainBuilder builder = collector.createDomainBuilder(ImmutableList.of(0));
+        RowPagesBuilder pages = rowPagesBuilder(BIGINT);
+        for (long value = 10; value < 10_000; value++) {
+            pages.row(value);
+        }
+        addPages(builder, pages.build());
+        collector.addPartitionDomain(builder.build());
+
+        assertEquals(collector.getPredicate(), TupleDomain.withColumnDomains(ImmutableMap.of(
+                0, Domain.create(ValueSet.ofRanges(Range.range(BIGINT, 10L, true, 9_999L, true)), false))));
+    }
+
+    @Test
+    public void testEmptyBuild()
+    {
+        DynamicFilterCollector collector = new DynamicFilterCollector(ImmutableList.of(BIGINT));
+        collector.setPartitionCount(1);
+        collector.addPartitionDomain(collector.createDomainBuilder(ImmutableList.of(0)).build());
+
+        assertEquals(collector.getPredicate(), TupleDomain.none());
+        assertEquals(collector.getPredicate(ImmutableMap.of(0, "column")), TupleDomain.none());
+    }
+
+    @Test
+    public void testKeyColumns()
+    {
+        DynamicFilterCollector collector = new DynamicFilterCollector(ImmutableList.of(BIGINT, BIGINT, BIGINT));
+        collector.setPartitionCount(1);
+
+        JoinKeyDomainBuilder builder = collector.createDomainBuilder(ImmutableList.of(0, 1, 2));
+        addPages(builder, rowPagesBuilder(BIGINT, BIGINT, BIGINT)
+                .row(1L, 2L, 5L)
+                .row(2L, 3L, 6L)
+                .build());
+        collector.addPartitionDomain(builder.build());
+
+        // keys 0 and 1 are read from the same column and key 2 is not read from a column
+        assertEquals(collector.getPredicate(ImmutableMap.of(0, "a", 1, "a")), TupleDomain.withColumnDomains(ImmutableMap.of(
+                "a", Domain.singleValue(BIGINT, 2L))));
+    }
+
+    private static void addPages(JoinKeyDomainBuilder builder, Iterable<Page> pages)
+    {
+        for (Page page : pages) {
+            builder.addPage(page);
+        }
+    }
+}
@@ -21,6 +21,7 @@ import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.testing.TestingSession;
 import com.facebook.presto.type.TypeUtils;
 import com.google.common.collect.ImmutableList;
+import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
 import java.util.ArrayList;
@@ -29,6 +30,7 @@ import java.util.Optional;
 
 import static com.facebook.presto.block.BlockAssertions.createLongSequenceBlock;
 import static com.facebook.presto.block.BlockAssertions.createLongsBlock;
+import static com.facebook.presto.block.BlockAssertions.createStringsBlock;
 import static com.facebook.presto.operator.GroupByHash.createGroupByHash;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
@@ -231,4 +233,68 @@ public class TestGroupByHash
             assertTrue(groupByHash.contains(i, new Page(valuesBlock, hashBlock), CONTAINS_CHANNELS));
         }
     }
+
+    @DataProvider(name = "offHeap")
+    public static Object[][] offHeap()
+    {
+        return new Object[][] {{true}, {false}};
+    }
+
+    @Test(dataProvider = "offHeap")
+    public void testFlatGroupByHash(boolean offHeap)
+            throws Exception
+    {
+        List<Long> longValues = new ArrayList<>();
+        List<String> stringValues = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            longValues.add(i % 7 == 0 ? null : (long) (i % MAX_GROUP_ID));
+            stringValues.add(i % 11 == 0 ? null : String.valueOf(i % MAX_GROUP_ID));
+        }
+        Block longsBlock = createLongsBlock(longValues);
+        Block stringsBlock = createStringsBlock(stringValues);
+        Block hashBlock = getHashBlock(ImmutableList.of(BIGINT, VARCHAR), longsBlock, stringsBlock);
+        Page page = new Page(longsBlock, stringsBlock, hashBlock);
+
+        // small expected size to force several rehashes
+        GroupByHash groupByHash = createGroupByHash(ImmutableList.of(BIGINT, VARCHAR), new int[] {0, 1}, Optional.of(2), 4, false, true, offHeap);
+        assertTrue(groupByHash instanceof FlatGroupByHash);
+
+        GroupByIdBlock groupIds = groupByHash.getGroupIds(page);
+        GroupByIdBlock groupIdsAgain = groupByHash.getGroupIds(page);
+        for (int position = 0; position < page.getPositionCount(); position++) {
+            assertEquals(groupIdsAgain.getGroupId(position), groupIds.getGroupId(position));
+            assertTrue(groupByHash.contains(position, page, new int[] {0, 1}));
+        }
+
+        PageBuilder pageBuilder = new PageBuilder(groupByHash.getTypes());
+        for (int position = 0; position < page.getPositionCount(); position++) {
+            int groupId = (int) groupIds.getGroupId(position);
+            pageBuilder.reset();
+            pageBuilder.declarePosition();
+            groupByHash.appendValuesTo(groupId, pageBuilder, 0);
+            Page outputPage = pageBuilder.build();
+
+            Long expectedLong = longValues.get(position);
+            if (expectedLong == null) {
+                assertTrue(outputPage.getBlock(0).isNull(0));
+            }
+            else {
+                assertEquals(BIGINT.getLong(outputPage.getBlock(0), 0), (long) expectedLong);
+            }
+            String expectedString = stringValues.get(position);
+            if (expectedString == null) {
+                assertTrue(outputPage.getBlock(1).isNull(0));
+            }
+            else {
+                assertEquals(VARCHAR.getSlice(outputPage.getBlock(1), 0).toStringUtf8(), expectedString);
+            }
+            assertEquals(BIGINT.getLong(outputPage.getBlock(2), 0), BIGINT.getLong(hashBlock, position));
+            assertEquals(groupByHash.getRawHash(groupId), BIGINT.getLong(hashBlock, position));
+        }
+
+        Block missingLongs = createLongsBlock(-1L);
+        Block missingStrings = createStringsBlock("-1");
+        Page missingPage = new Page(missingLongs, missingStrings, getHashBlock(ImmutableList.of(BIGINT, VARCHAR), missingLongs, missingStrings));
+        assertFalse(groupByHash.contains(0, missingPage, new int[] {0, 1}));
+    }
 }
@@ -15,6 +15,7 @@ package com.facebook.presto.operator;
 
 import com.facebook.presto.ExceededMemoryLimitException;
 import com.facebook.presto.RowPagesBuilder;
+import com.facebook.presto.block.BlockEncodingManager;
 import com.facebook.presto.metadata.MetadataManager;
 import com.facebook.presto.metadata.Signature;
 import com.facebook.presto.operator.HashAggregationOperator.HashAggregationOperatorFactory;
@@ -25,9 +26,12 @@ import com.facebook.presto.spi.block.BlockBuilderStatus;
 import com.facebook.presto.spi.block.PageBuilderStatus;
 import com.facebook.presto.spi.type.StandardTypes;
 import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.BinarySpillerFactory;
+import com.facebook.presto.sql.analyzer.FeaturesConfig;
 import com.facebook.presto.sql.planner.plan.AggregationNode.Step;
 import com.facebook.presto.sql.planner.plan.PlanNodeId;
 import com.facebook.presto.testing.MaterializedResult;
+import com.facebook.presto.type.TypeRegistry;
 import com.google.common.collect.ImmutableList;
 import com.google.common.primitives.Ints;
 import io.airlift.slice.Slices;
@@ -65,8 +69,10 @@ import static io.airlift.slice.SizeOf.SIZE_OF_DOUBLE;
 import static io.airlift.slice.SizeOf.SIZE_OF_LONG;
 import static io.airlift.testing.Assertions.assertEqualsIgnoreOrder;
 import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static java.lang.String.format;
 import static java.util.concurrent.Executors.newCachedThreadPool;
 import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNotNull;
 import static org.testng.Assert.assertTrue;
 
 @Test(singleThreaded = true)
@@ -159,6 +165,189 @@ public class TestHashAggregationOperator
         assertOperatorEqualsIgnoreOrder(operatorFactory, driverContext, input, expected, hashEnabled, Optional.of(hashChannels.size()));
     }
 
+    @Test(dataProvider = "hashEnabledValues")
+    public void testHashAggregationWithSpill(boolean hashEnabled)
+            throws Exception
+    {
+        MetadataManager metadata = MetadataManager.createTestMetadataManager();
+        InternalAggregationFunction maxVarcharColumn = metadata.getFunctionRegistry().getAggregateFunctionImplementation(
+                new Signature("max", AGGREGATE, parseTypeSignature(StandardTypes.VARCHAR), parseTypeSignature(StandardTypes.VARCHAR)));
+        List<Integer> hashChannels = Ints.asList(1);
+        RowPagesBuilder rowPagesBuilder = rowPagesBuilder(hashEnabled, hashChannels, VARCHAR, VARCHAR, VARCHAR, BIGINT);
+        List<Page> input = rowPagesBuilder
+                .addSequencePage(10, 100, 0, 100, 0)
+                .addSequencePage(10, 100, 0, 200, 0)
+                .addSequencePage(10, 100, 0, 300, 0)
+                .build();
+
+        HashAggregationOperatorFactory operatorFactory = new HashAggregationOperatorFactory(
+                0,
+                new PlanNodeId("test"),
+                ImmutableList.of(VARCHAR),
+                hashChannels,
+                ImmutableList.of(),
+                Step.SINGLE,
+                ImmutableList.of(COUNT.bind(ImmutableList.of(0), Optional.empty()),
+                        LONG_SUM.bind(ImmutableList.of(3), Optional.empty()),
+                        LONG_AVERAGE.bind(ImmutableList.of(3), Optional.empty()),
+                        maxVarcharColumn.bind(ImmutableList.of(2), Optional.empty())),
+                rowPagesBuilder.getHashChannel(),
+                Optional.empty(),
+                100_000,
+                new DataSize(16, MEGABYTE),
+                true,
+                new DataSize(1, Unit.BYTE),
+                new BinarySpillerFactory(new BlockEncodingManager(new TypeRegistry()), new FeaturesConfig()));
+
+        MaterializedResult expected = resultBuilder(driverContext.getSession(), VARCHAR, BIGINT, BIGINT, DOUBLE, VARCHAR)
+                .row("0", 3L, 0L, 0.0, "300")
+                .row("1", 3L, 3L, 1.0, "301")
+                .row("2", 3L, 6L, 2.0, "302")
+                .row("3", 3L, 9L, 3.0, "303")
+                .row("4", 3L, 12L, 4.0, "304")
+                .row("5", 3L, 15L, 5.0, "305")
+                .row("6", 3L, 18L, 6.0, "306")
+                .row("7", 3L, 21L, 7.0, "307")
+                .row("8", 3L, 24L, 8.0, "308")
+                .row("9", 3L, 27L, 9.0, "309")
+                .build();
+
+        assertOperatorEqualsIgnoreOrder(operatorFactory, driverContext, input, expected, hashEnabled, Optional.of(hashChannels.size()));
+    }
+
+    @Test(dataProvider = "hashEnabledValues")
+    public void testRevocableMemoryConvertedWhenFinishing(boolean hashEnabled)
+            throws Exception
+    {
+        List<Integer> hashChannels = Ints.asList(0);
+        RowPagesBuilder rowPagesBuilder = rowPagesBuilder(hashEnabled, hashChannels, BIGINT, BIGINT);
+        List<Page> input = rowPagesBuilder
+                .addSequencePage(100, 0, 0)
+                .addSequencePage(100, 50, 0)
+                .build();
+
+        HashAggregationOperatorFactory operatorFactory = new HashAggregationOperatorFactory(
+                0,
+                new PlanNodeId("test"),
+                ImmutableList.of(BIGINT),
+                hashChannels,
+                ImmutableList.of(),
+                Step.SINGLE,
+                ImmutableList.of(LONG_SUM.bind(ImmutableList.of(1), Optional.empty())),
+                rowPagesBuilder.getHashChannel(),
+                Optional.empty(),
+                100_000,
+                new DataSize(16, MEGABYTE),
+                true,
+                new DataSize(16, MEGABYTE),
+                new BinarySpillerFactory(new BlockEncodingManager(new TypeRegistry()), new FeaturesConfig()));
+
+        Operator operator = operatorFactory.createOperator(driverContext);
+        OperatorContext operatorContext = operator.getOperatorContext();
+        for (Page page : input) {
+            assertTrue(operator.needsInput());
+            operator.addInput(page);
+        }
+
+        // the groups can be spilled while the input is consumed
+        assertTrue(operatorContext.getReservedRevocableBytes() > 0);
+        assertEquals(operatorContext.getOperatorStats().getMemoryReservation().toBytes(), 0);
+
+        operator.finish();
+        assertNotNull(operator.getOutput());
+
+        // the result is built from memory, which can no longer be revoked
+        assertEquals(operatorContext.getReservedRevocableBytes(), 0);
+        assertTrue(operatorContext.getOperatorStats().getMemoryReservation().toBytes() > 0);
+
+        operator.close();
+    }
+
+    @Test(dataProvider = "hashEnabledValues")
+    public void testMemoryReservationDuringMerge(boolean hashEnabled)
+            throws Exception
+    {
+        List<Integer> hashChannels = Ints.asList(0);
+        RowPagesBuilder rowPagesBuilder = rowPagesBuilder(hashEnabled, hashChannels, BIGINT, BIGINT);
+        List<Page> input = rowPagesBuilder
+                .addSequencePage(100, 0, 0)
+                .addSequencePage(100, 0, 0)
+                .addSequencePage(100, 0, 0)
+                .addSequencePage(100, 0, 0)
+                .addSequencePage(1000, 0, 0)
+                .build();
+
+        HashAggregationOperatorFactory operatorFactory = new HashAggregationOperatorFactory(
+                0,
+                new PlanNodeId("test"),
+                ImmutableList.of(BIGINT),
+                hashChannels,
+                ImmutableList.of(),
+                Step.SINGLE,
+                ImmutableList.of(LONG_SUM.bind(ImmutableList.of(1), Optional.empty()),
+                        COUNT.bind(ImmutableList.of(0), Optional.empty())),
+                rowPagesBuilder.getHashChannel(),
+                Optional.empty(),
+                10,
+                new DataSize(16, MEGABYTE),
+                true,
+                new DataSize(16, MEGABYTE),
+                new BinarySpillerFactory(new BlockEncodingManager(new TypeRegistry()), new FeaturesConfig()));
+
+        Operator operator = operatorFactory.createOperator(driverContext);
+        OperatorContext operatorContext = operator.getOperatorContext();
+
+        // spill the groups of the second and the fourth page, so the merge reads two spilled runs
+        for (int i = 0; i < input.size(); i++) {
+            operator.isBlocked().get();
+            if (i == 1 || i == 3) {
+                operatorContext.requestMemoryRevoking();
+            }
+            operator.addInput(input.get(i));
+        }
+        operator.isBlocked().get();
+        long inMemoryBytes = operatorContext.getReservedRevocableBytes();
+        assertTrue(inMemoryBytes > 0);
+
+        operator.finish();
+        List<Page> outputPages = new ArrayList<>();
+        Page output = operator.getOutput();
+        assertNotNull(output);
+        outputPages.add(output);
+
+        // the merge holds at least as many groups as the in-memory builder, which is still
+        // allocated, so the reservation must cover both
+        long mergeReservation = operatorContext.getOperatorStats().getMemoryReservation().toBytes();
+        assertTrue(mergeReservation > inMemoryBytes + inMemoryBytes / 2, format("reservation %s does not cover the in-memory groups of %s bytes", mergeReservation, inMemoryBytes));
+
+        while (!operator.isFinished()) {
+            output = operator.getOutput();
+            if (output != null) {
+                outputPages.add(output);
+            }
+        }
+
+        List<Type> types = operator.getTypes();
+        if (hashEnabled) {
+            outputPages = dropChannel(outputPages, ImmutableList.of(1));
+            types = without(types, ImmutableList.of(1));
+        }
+        MaterializedResult actual = toMaterializedResult(operatorContext.getSession(), types, outputPages);
+
+        MaterializedResult.Builder expected = resultBuilder(driverContext.getSession(), BIGINT, BIGINT, BIGINT);
+        for (long key = 0; key < 1000; key++) {
+            if (key < 100) {
+                expected.row(key, 5 * key, 5L);
+            }
+            else {
+                expected.row(key, key, 1L);
+            }
+        }
+        assertEqualsIgnoreOrder(actual.getMaterializedRows(), expected.build().getMaterializedRows());
+
+        operator.close();
+    }
+
     @Test(dataProvider = "hashEnabledValues")
     public void testHashAggregationWithGlobals(boolean hashEnabled)
             throws Exception
@@ -420,4 +609,57 @@ public class TestHashAggregationOperator
             assertEqualsIgnoreOrder(actual.getMaterializedRows(), expected.getMaterializedRows());
         }
     }
+
+    @Test(dataProvider = "hashEnabledValues")
+    public void testAdaptivePartialAggregation(boolean hashEnabled)
+            throws Exception
+    {
+        List<Integer> hashChannels = Ints.asList(0);
+        RowPagesBuilder rowPagesBuilder = rowPagesBuilder(hashEnabled, hashChannels, BIGINT);
+        for (int i = 0; i < 100; i++) {
+            rowPagesBuilder.addSequencePage(2000, i * 2000);
+        }
+        List<Page> input = rowPagesBuilder.build();
+
+        HashAggregationOperatorFactory operatorFactory = new HashAggregationOperatorFactory(
+                0,
+                new PlanNodeId("test"),
+                ImmutableList.of(BIGINT),
+                hashChannels,
+                ImmutableList.of(),
+                Step.PARTIAL,
+                ImmutableList.of(LONG_SUM.bind(ImmutableList.of(0), Optional.empty())),
+                rowPagesBuilder.getHashChannel(),
+                Optional.empty(),
+                100_000,
+                new DataSize(1, Unit.KILOBYTE),
+                false,
+                new DataSize(0, MEGABYTE),
+                types -> {
+                    throw new UnsupportedOperationException("Spilling is not enabled");
+                },
+                true,
+                0.8);
+
+        try (Operator operator = operatorFactory.createOperator(driverContext)) {
+            List<Page> outputPages = toPages(operator, input.iterator());
+
+            // every key is unique, so the operator must have switched to pass through
+            HashAggregationOperator.PartialAggregationInfo info = ((HashAggregationOperator) operator).getInfo();
+            assertEquals(info.getPassThroughOperators(), 1);
+            assertTrue(info.getPassThroughRows() > 0);
+            assertEquals(info.getAggregatedInputRows() + info.getPassThroughRows(), 200_000);
+
+            List<Type> types = operator.getTypes();
+            if (hashEnabled) {
+                outputPages = dropChannel(outputPages, ImmutableList.of(1));
+                types = without(types, ImmutableList.of(1));
+            }
+            MaterializedResult actual = toMaterializedResult(operator.getOperatorContext().getSession(), types, outputPages);
+            MaterializedResult expected = resultBuilder(driverContext.getSession(), BIGINT, BIGINT)
+                    .pages(rowPagesBuilder(BIGINT, BIGINT).addSequencePage(200_000, 0, 0).build())
+                    .build();
+            assertEqualsIgnoreOrder(actual.getMaterializedRows(), expected.getMaterializedRows());
+        }
+    }
 }
@@ -15,19 +15,37 @@ package com.facebook.presto.operator;
 
 import com.facebook.presto.ExceededMemoryLimitException;
 import com.facebook.presto.RowPagesBuilder;
+import com.facebook.presto.Session;
+import com.facebook.presto.block.BlockEncodingManager;
+import com.facebook.presto.connector.ConnectorId;
+import com.facebook.presto.metadata.Split;
 import com.facebook.presto.operator.HashBuilderOperator.HashBuilderOperatorFactory;
+import com.facebook.presto.operator.TableScanOperator.TableScanOperatorFactory;
 import com.facebook.presto.operator.ValuesOperator.ValuesOperatorFactory;
 import com.facebook.presto.operator.exchange.LocalExchange;
 import com.facebook.presto.operator.exchange.LocalExchange.LocalExchangeSinkFactory;
 import com.facebook.presto.operator.exchange.LocalExchangeSinkOperator.LocalExchangeSinkOperatorFactory;
 import com.facebook.presto.operator.exchange.LocalExchangeSourceOperator.LocalExchangeSourceOperatorFactory;
+import com.facebook.presto.spi.ColumnHandle;
+import com.facebook.presto.spi.ConnectorPageSource;
+import com.facebook.presto.spi.FixedPageSource;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.predicate.Domain;
+import com.facebook.presto.spi.predicate.TupleDomain;
 import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.BinarySpillerFactory;
+import com.facebook.presto.spiller.SpillerFactory;
+import com.facebook.presto.split.PageSourceProvider;
+import com.facebook.presto.sql.analyzer.FeaturesConfig;
 import com.facebook.presto.sql.gen.JoinFilterFunctionCompiler.JoinFilterFunctionFactory;
+import com.facebook.presto.sql.planner.TestingColumnHandle;
 import com.facebook.presto.sql.planner.plan.PlanNodeId;
 import com.facebook.presto.testing.MaterializedResult;
+import com.facebook.presto.testing.TestingSplit;
 import com.facebook.presto.testing.TestingTaskContext;
+import com.facebook.presto.testing.TestingTransactionHandle;
+import com.facebook.presto.type.TypeRegistry;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
@@ -38,6 +56,7 @@ import org.testng.annotations.BeforeClass;
 import org.testng.annotations.DataProvider;
 import org.testng.annotations.Test;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.ExecutorService;
@@ -46,18 +65,29 @@ import java.util.function.Function;
 import static com.facebook.presto.RowPagesBuilder.rowPagesBuilder;
 import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
 import static com.facebook.presto.operator.OperatorAssertion.assertOperatorEquals;
+import static com.facebook.presto.operator.OperatorAssertion.dropChannel;
+import static com.facebook.presto.operator.OperatorAssertion.toMaterializedResult;
+import static com.facebook.presto.operator.OperatorAssertion.toPages;
+import static com.facebook.presto.operator.OperatorAssertion.without;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
 import static com.facebook.presto.sql.planner.SystemPartitioningHandle.FIXED_HASH_DISTRIBUTION;
 import static com.google.common.collect.Iterables.concat;
 import static io.airlift.concurrent.Threads.daemonThreadsNamed;
+import static io.airlift.testing.Assertions.assertEqualsIgnoreOrder;
 import static io.airlift.units.DataSize.Unit.BYTE;
+import static java.util.Collections.emptyIterator;
 import static java.util.concurrent.Executors.newCachedThreadPool;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
 
 @Test(singleThreaded = true)
 public class TestHashJoinOperator
 {
     private static final int PARTITION_COUNT = 4;
+    private static final SpillerFactory SPILLER_FACTORY = new BinarySpillerFactory(new BlockEncodingManager(new TypeRegistry()), new FeaturesConfig());
 
     private ExecutorService executor;
 
@@ -644,6 +674,55 @@ public class TestHashJoinOperator
         assertOperatorEquals(joinOperatorFactory, taskContext.addPipelineContext(true, true).addDriverContext(), probeInput, expected, true, getHashChannels(probePages, buildPages));
     }
 
+    @Test(dataProvider = "hashEnabledValues")
+    public void testInnerJoinWithSpill(boolean parallelBuild, boolean probeHashEnabled, boolean buildHashEnabled)
+            throws Exception
+    {
+        TaskContext taskContext = createTaskContext();
+
+        // build, spilling every build partition
+        RowPagesBuilder buildPages = rowPagesBuilder(buildHashEnabled, Ints.asList(0), ImmutableList.of(VARCHAR, BIGINT, BIGINT))
+                .addSequencePage(10, 20, 30, 40);
+        LookupSourceFactory lookupSourceFactory = buildHash(parallelBuild, taskContext, Ints.asList(0), buildPages, Optional.empty(), true);
+        assertTrue(lookupSourceFactory.getSpilledLookupSources().isPresent());
+
+        // probe
+        RowPagesBuilder probePages = rowPagesBuilder(probeHashEnabled, Ints.asList(0), ImmutableList.<Type>of(VARCHAR, BIGINT, BIGINT));
+        List<Page> probeInput = probePages
+                .addSequencePage(1000, 0, 1000, 2000)
+                .build();
+        OperatorFactory joinOperatorFactory = LookupJoinOperators.innerJoin(
+                0,
+                new PlanNodeId("test"),
+                lookupSourceFactory,
+                probePages.getTypes(),
+                Ints.asList(0),
+                probePages.getHashChannel(),
+                false
+        );
+
+        // expected
+        MaterializedResult expected = MaterializedResult.resultBuilder(taskContext.getSession(), concat(probePages.getTypes(), buildPages.getTypes()))
+                .row("20", 1020L, 2020L, "20", 30L, 40L)
+                .row("21", 1021L, 2021L, "21", 31L, 41L)
+                .row("22", 1022L, 2022L, "22", 32L, 42L)
+                .row("23", 1023L, 2023L, "23", 33L, 43L)
+                .row("24", 1024L, 2024L, "24", 34L, 44L)
+                .row("25", 1025L, 2025L, "25", 35L, 45L)
+                .row("26", 1026L, 2026L, "26", 36L, 46L)
+                .row("27", 1027L, 2027L, "27", 37L, 47L)
+                .row("28", 1028L, 2028L, "28", 38L, 48L)
+                .row("29", 1029L, 2029L, "29", 39L, 49L)
+                .build();
+
+        // spilled rows are joined after the in-memory rows, so the output order is not preserved
+        DriverContext driverContext = taskContext.addPipelineContext(true, true).addDriverContext();
+        List<Integer> hashChannels = getHashChannels(probePages, buildPages);
+        List<Page> pages = dropChannel(toPages(joinOperatorFactory, driverContext, probeInput), hashChannels);
+        MaterializedResult actual = toMaterializedResult(driverContext.getSession(), without(joinOperatorFactory.getTypes(), hashChannels), pages);
+        assertEqualsIgnoreOrder(actual.getMaterializedRows(), expected.getMaterializedRows());
+    }
+
     @Test(expectedExceptions = ExceededMemoryLimitException.class, expectedExceptionsMessageRegExp = "Query exceeded local memory limit of.*", dataProvider = "hashEnabledValues")
     public void testMemoryLimit(boolean parallelBuild, boolean probeHashEnabled, boolean buildHashEnabled)
             throws Exception
@@ -655,6 +734,73 @@ public class TestHashJoinOperator
         buildHash(parallelBuild, taskContext, Ints.asList(0), buildPages, Optional.empty());
     }
 
+    @Test
+    public void testDynamicFilter()
+            throws Exception
+    {
+        TaskContext taskContext = createTaskContext();
+        ColumnHandle probeColumn = new TestingColumnHandle("probe_key");
+        DynamicFilterCollector dynamicFilterCollector = new DynamicFilterCollector(ImmutableList.of(BIGINT));
+
+        // probe side scan, whose page source skips the rows outside of the dynamic filter like a connector would
+        List<TupleDomain<ColumnHandle>> dynamicFilters = new ArrayList<>();
+        PageSourceProvider pageSourceProvider = new PageSourceProvider()
+        {
+            @Override
+            public ConnectorPageSource createPageSource(Session session, Split split, List<ColumnHandle> columns)
+            {
+                throw new UnsupportedOperationException();
+            }
+
+            @Override
+            public ConnectorPageSource createPageSource(Session session, Split split, List<ColumnHandle> columns, TupleDomain<ColumnHandle> dynamicFilter)
+            {
+                dynamicFilters.add(dynamicFilter);
+                Domain domain = dynamicFilter.getDomains().get().get(probeColumn);
+                RowPagesBuilder probePages = rowPagesBuilder(BIGINT);
+                for (long value = 0; value < 1000; value++) {
+                    if (domain.includesNullableValue(value)) {
+                        probePages.row(value);
+                    }
+                }
+                return new FixedPageSource(probePages.build());
+            }
+        };
+        TableScanOperatorFactory scanOperatorFactory = new TableScanOperatorFactory(
+                0,
+                new PlanNodeId("scan"),
+                pageSourceProvider,
+                ImmutableList.of(BIGINT),
+                ImmutableList.of(probeColumn),
+                dynamicFilterCollector.createDynamicFilter(ImmutableMap.of(0, probeColumn)));
+        SourceOperator scanOperator = scanOperatorFactory.createOperator(taskContext.addPipelineContext(true, true).addDriverContext());
+        scanOperator.addSplit(new Split(new ConnectorId("test"), TestingTransactionHandle.create(), TestingSplit.createLocalSplit()));
+        scanOperator.noMoreSplits();
+
+        // the split is not opened before the build has finished
+        assertFalse(scanOperator.isBlocked().isDone());
+        assertNull(scanOperator.getOutput());
+        assertTrue(dynamicFilters.isEmpty());
+
+        RowPagesBuilder buildPages = rowPagesBuilder(BIGINT)
+                .row(10L)
+                .row(20L)
+                .row(30L);
+        buildHash(true, taskContext, Ints.asList(0), buildPages, Optional.empty(), false, Optional.of(dynamicFilterCollector));
+
+        assertTrue(scanOperator.isBlocked().isDone());
+        List<Page> pages = toPages(scanOperator, emptyIterator());
+        assertEquals(dynamicFilters, ImmutableList.of(TupleDomain.withColumnDomains(ImmutableMap.of(
+                probeColumn, Domain.multipleValues(BIGINT, ImmutableList.of(10L, 20L, 30L))))));
+
+        MaterializedResult expected = MaterializedResult.resultBuilder(taskContext.getSession(), BIGINT)
+                .row(10L)
+                .row(20L)
+                .row(30L)
+                .build();
+        assertEquals(toMaterializedResult(taskContext.getSession(), ImmutableList.of(BIGINT), pages), expected);
+    }
+
     private TaskContext createTaskContext()
     {
         return TestingTaskContext.createTaskContext(executor, TEST_SESSION);
@@ -673,6 +819,29 @@ public class TestHashJoinOperator
     }
 
     private static LookupSourceFactory buildHash(boolean parallelBuild, TaskContext taskContext, List<Integer> hashChannels, RowPagesBuilder buildPages, Optional<InternalJoinFilterFunction> filterFunction)
+    {
+        return buildHash(parallelBuild, taskContext, hashChannels, buildPages, filterFunction, false);
+    }
+
+    private static LookupSourceFactory buildHash(
+            boolean parallelBuild,
+            TaskContext taskContext,
+            List<Integer> hashChannels,
+            RowPagesBuilder buildPages,
+            Optional<InternalJoinFilterFunction> filterFunction,
+            boolean spillEnabled)
+    {
+        return buildHash(parallelBuild, taskContext, hashChannels, buildPages, filterFunction, spillEnabled, Optional.empty());
+    }
+
+    private static LookupSourceFactory buildHash(
+            boolean parallelBuild,
+            TaskContext taskContext,
+            List<Integer> hashChannels,
+            RowPagesBuilder buildPages,
+            Optional<InternalJoinFilterFunction> filterFunction,
+            boolean spillEnabled,
+            Optional<DynamicFilterCollector> dynamicFilterCollector)
     {
         Optional<JoinFilterFunctionFactory> filterFunctionFactory = filterFunction
                 .map(function -> ((session, addresses, channels) -> new StandardJoinFilterFunction(function, addresses, channels)));
@@ -708,7 +877,11 @@ public class TestHashJoinOperator
                 false,
                 filterFunctionFactory,
                 100,
-                partitionCount);
+                partitionCount,
+                spillEnabled,
+                new DataSize(1, BYTE),
+                SPILLER_FACTORY,
+                dynamicFilterCollector);
         PipelineContext buildPipeline = taskContext.addPipelineContext(true, true);
 
         Driver[] buildDrivers = new Driver[partitionCount];
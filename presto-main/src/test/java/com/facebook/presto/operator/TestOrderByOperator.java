@@ -14,10 +14,14 @@
 package com.facebook.presto.operator;
 
 import com.facebook.presto.ExceededMemoryLimitException;
+import com.facebook.presto.block.BlockEncodingManager;
 import com.facebook.presto.operator.OrderByOperator.OrderByOperatorFactory;
 import com.facebook.presto.spi.Page;
+import com.facebook.presto.spiller.BinarySpillerFactory;
+import com.facebook.presto.sql.analyzer.FeaturesConfig;
 import com.facebook.presto.sql.planner.plan.PlanNodeId;
 import com.facebook.presto.testing.MaterializedResult;
+import com.facebook.presto.type.TypeRegistry;
 import com.google.common.collect.ImmutableList;
 import io.airlift.units.DataSize;
 import io.airlift.units.DataSize.Unit;
@@ -125,6 +129,46 @@ public class TestOrderByOperator
         assertOperatorEquals(operatorFactory, driverContext, input, expected);
     }
 
+    @Test
+    public void testMultiFieldKeyWithSpill()
+            throws Exception
+    {
+        List<Page> input = rowPagesBuilder(VARCHAR, BIGINT)
+                .row("a", 1L)
+                .row("b", 2L)
+                .pageBreak()
+                .row("b", 3L)
+                .row("a", 4L)
+                .pageBreak()
+                .row("c", 5L)
+                .row("a", 6L)
+                .build();
+
+        // every page exceeds the limit, so each page is spilled as a sorted run
+        OrderByOperatorFactory operatorFactory = new OrderByOperatorFactory(
+                0,
+                new PlanNodeId("test"),
+                ImmutableList.of(VARCHAR, BIGINT),
+                ImmutableList.of(0, 1),
+                10,
+                ImmutableList.of(0, 1),
+                ImmutableList.of(ASC_NULLS_LAST, DESC_NULLS_LAST),
+                true,
+                new DataSize(1, Unit.BYTE),
+                new BinarySpillerFactory(new BlockEncodingManager(new TypeRegistry()), new FeaturesConfig()));
+
+        MaterializedResult expected = MaterializedResult.resultBuilder(driverContext.getSession(), VARCHAR, BIGINT)
+                .row("a", 6L)
+                .row("a", 4L)
+                .row("a", 1L)
+                .row("b", 3L)
+                .row("b", 2L)
+                .row("c", 5L)
+                .build();
+
+        assertOperatorEquals(operatorFactory, driverContext, input, expected);
+    }
+
     @Test
     public void testReverseOrder()
             throws Exception
@@ -0,0 +1,105 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.operator;
+
+import com.facebook.presto.block.BlockEncodingManager;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.BlockBuilderStatus;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.BinarySpillerFactory;
+import com.facebook.presto.spiller.Spiller;
+import com.facebook.presto.spiller.SpillerFactory;
+import com.facebook.presto.sql.analyzer.FeaturesConfig;
+import com.facebook.presto.type.TypeRegistry;
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableList;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static com.facebook.presto.operator.PartitioningSpiller.getSpillPartition;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static io.airlift.slice.Slices.utf8Slice;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestPartitioningSpiller
+{
+    private static final List<Type> TYPES = ImmutableList.of(BIGINT, VARCHAR);
+    private static final int PARTITION_COUNT = 4;
+
+    @Test
+    public void testSingleStreamPerPartition()
+            throws Exception
+    {
+        SpillerFactory binarySpillerFactory = new BinarySpillerFactory(new BlockEncodingManager(new TypeRegistry()), new FeaturesConfig());
+        List<Spiller> spillers = new ArrayList<>();
+        SpillerFactory spillerFactory = types -> {
+            Spiller spiller = binarySpillerFactory.create(types);
+            spillers.add(spiller);
+            return spiller;
+        };
+        HashGenerator hashGenerator = new InterpretedHashGenerator(ImmutableList.of(BIGINT), new int[] {0});
+
+        // enough data to fill several pages in every partition
+        int pageCount = 100;
+        int positionsPerPage = 1000;
+        String padding = Strings.repeat("x", 100);
+
+        try (PartitioningSpiller spiller = new PartitioningSpiller(TYPES, hashGenerator, PARTITION_COUNT, spillerFactory)) {
+            for (int i = 0; i < pageCount; i++) {
+                List<Page> pages = ImmutableList.of(createPage(i * positionsPerPage, positionsPerPage, padding));
+                spiller.spill(pages.iterator()).get();
+            }
+            spiller.flush().get();
+
+            assertEquals(spillers.size(), PARTITION_COUNT);
+            for (Spiller partitionSpiller : spillers) {
+                assertEquals(partitionSpiller.getSpills().size(), 1);
+            }
+
+            long positions = 0;
+            for (int partition = 0; partition < PARTITION_COUNT; partition++) {
+                Iterator<Page> spilledPages = spiller.getSpilledPages(partition);
+                int spilledPageCount = 0;
+                while (spilledPages.hasNext()) {
+                    Page page = spilledPages.next();
+                    spilledPageCount++;
+                    for (int position = 0; position < page.getPositionCount(); position++) {
+                        assertEquals(getSpillPartition(hashGenerator.hashPosition(position, page), PARTITION_COUNT), partition);
+                        assertEquals(VARCHAR.getSlice(page.getBlock(1), position).toStringUtf8(), padding);
+                    }
+                    positions += page.getPositionCount();
+                }
+                assertTrue(spilledPageCount > 1, "partition should be spilled in multiple appends");
+            }
+            assertEquals(positions, pageCount * positionsPerPage);
+        }
+    }
+
+    private static Page createPage(int start, int positionCount, String padding)
+    {
+        BlockBuilder bigintBuilder = BIGINT.createBlockBuilder(new BlockBuilderStatus(), positionCount);
+        BlockBuilder varcharBuilder = VARCHAR.createBlockBuilder(new BlockBuilderStatus(), positionCount);
+        for (int i = 0; i < positionCount; i++) {
+            BIGINT.writeLong(bigintBuilder, start + i);
+            VARCHAR.writeSlice(varcharBuilder, utf8Slice(padding));
+        }
+        return new Page(bigintBuilder.build(), varcharBuilder.build());
+    }
+}
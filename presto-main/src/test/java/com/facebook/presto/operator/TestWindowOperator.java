@@ -14,6 +14,7 @@
 package com.facebook.presto.operator;
 
 import com.facebook.presto.ExceededMemoryLimitException;
+import com.facebook.presto.block.BlockEncodingManager;
 import com.facebook.presto.operator.WindowOperator.WindowOperatorFactory;
 import com.facebook.presto.operator.window.FirstValueFunction;
 import com.facebook.presto.operator.window.FrameInfo;
@@ -26,8 +27,11 @@ import com.facebook.presto.operator.window.RowNumberFunction;
 import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.block.SortOrder;
 import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spiller.BinarySpillerFactory;
+import com.facebook.presto.sql.analyzer.FeaturesConfig;
 import com.facebook.presto.sql.planner.plan.PlanNodeId;
 import com.facebook.presto.testing.MaterializedResult;
+import com.facebook.presto.type.TypeRegistry;
 import com.google.common.collect.ImmutableList;
 import com.google.common.primitives.Ints;
 import io.airlift.units.DataSize;
@@ -169,6 +173,47 @@ public class TestWindowOperator
         assertOperatorEquals(operatorFactory, driverContext, input, expected);
     }
 
+    @Test
+    public void testRowNumberPartitionWithSpill()
+            throws Exception
+    {
+        List<Page> input = rowPagesBuilder(VARCHAR, BIGINT, DOUBLE, BOOLEAN)
+                .row("b", -1L, -0.1, true)
+                .row("a", 2L, 0.3, false)
+                .row("a", 4L, 0.2, true)
+                .pageBreak()
+                .row("b", 5L, 0.4, false)
+                .row("a", 6L, 0.1, true)
+                .pageBreak()
+                .row("c", 3L, 0.5, false)
+                .row("a", 1L, 0.6, true)
+                .build();
+
+        // every page exceeds the limit, so each page is spilled as a sorted run
+        WindowOperatorFactory operatorFactory = createFactoryUnbounded(
+                ImmutableList.of(VARCHAR, BIGINT, DOUBLE, BOOLEAN),
+                Ints.asList(0, 1, 2, 3),
+                ROW_NUMBER,
+                Ints.asList(0),
+                ImmutableList.of(),
+                Ints.asList(1),
+                ImmutableList.copyOf(new SortOrder[] {SortOrder.ASC_NULLS_LAST}),
+                0,
+                true);
+
+        MaterializedResult expected = resultBuilder(driverContext.getSession(), VARCHAR, BIGINT, DOUBLE, BOOLEAN, BIGINT)
+                .row("a", 1L, 0.6, true, 1L)
+                .row("a", 2L, 0.3, false, 2L)
+                .row("a", 4L, 0.2, true, 3L)
+                .row("a", 6L, 0.1, true, 4L)
+                .row("b", -1L, -0.1, true, 1L)
+                .row("b", 5L, 0.4, false, 2L)
+                .row("c", 3L, 0.5, false, 1L)
+                .build();
+
+        assertOperatorEquals(operatorFactory, driverContext, input, expected);
+    }
+
     @Test
     public void testRowNumberArbitrary()
             throws Exception
@@ -467,6 +512,46 @@ public class TestWindowOperator
         assertOperatorEqualsIgnoreOrder(operatorFactory, driverContext, input, expected);
     }
 
+    @Test
+    public void testPartiallyPreGroupedPartitionWithSpill()
+            throws Exception
+    {
+        List<Page> input = rowPagesBuilder(BIGINT, VARCHAR, BIGINT, VARCHAR)
+                .pageBreak()
+                .row(1L, "a", 100L, "A")
+                .row(2L, "a", 101L, "B")
+                .pageBreak()
+                .row(3L, "b", 102L, "E")
+                .row(1L, "b", 103L, "D")
+                .pageBreak()
+                .row(3L, "b", 104L, "C")
+                .row(1L, "c", 105L, "F")
+                .pageBreak()
+                .build();
+
+        WindowOperatorFactory operatorFactory = createFactoryUnbounded(
+                ImmutableList.of(BIGINT, VARCHAR, BIGINT, VARCHAR),
+                Ints.asList(0, 1, 2, 3),
+                ROW_NUMBER,
+                Ints.asList(0, 1),
+                Ints.asList(1),
+                Ints.asList(3),
+                ImmutableList.of(SortOrder.ASC_NULLS_LAST),
+                0,
+                true);
+
+        MaterializedResult expected = resultBuilder(driverContext.getSession(), BIGINT, VARCHAR, BIGINT, VARCHAR, BIGINT)
+                .row(1L, "a", 100L, "A", 1L)
+                .row(2L, "a", 101L, "B", 1L)
+                .row(3L, "b", 104L, "C", 1L)
+                .row(3L, "b", 102L, "E", 2L)
+                .row(1L, "b", 103L, "D", 1L)
+                .row(1L, "c", 105L, "F", 1L)
+                .build();
+
+        assertOperatorEqualsIgnoreOrder(operatorFactory, driverContext, input, expected);
+    }
+
     @Test
     public void testFullyPreGroupedPartition()
             throws Exception
@@ -623,6 +708,29 @@ public class TestWindowOperator
             List<Integer> sortChannels,
             List<SortOrder> sortOrder,
             int preSortedChannelPrefix)
+    {
+        return createFactoryUnbounded(
+                sourceTypes,
+                outputChannels,
+                functions,
+                partitionChannels,
+                preGroupedChannels,
+                sortChannels,
+                sortOrder,
+                preSortedChannelPrefix,
+                false);
+    }
+
+    private static WindowOperatorFactory createFactoryUnbounded(
+            List<? extends Type> sourceTypes,
+            List<Integer> outputChannels,
+            List<WindowFunctionDefinition> functions,
+            List<Integer> partitionChannels,
+            List<Integer> preGroupedChannels,
+            List<Integer> sortChannels,
+            List<SortOrder> sortOrder,
+            int preSortedChannelPrefix,
+            boolean spillEnabled)
     {
         return new WindowOperatorFactory(
                 0,
@@ -635,6 +743,9 @@ public class TestWindowOperator
                 sortChannels,
                 sortOrder,
                 preSortedChannelPrefix,
-                10);
+                10,
+                spillEnabled,
+                new DataSize(1, Unit.BYTE),
+                new BinarySpillerFactory(new BlockEncodingManager(new TypeRegistry()), new FeaturesConfig()));
     }
 }
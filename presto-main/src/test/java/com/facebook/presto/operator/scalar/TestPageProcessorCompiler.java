@@ -17,6 +17,9 @@ import com.facebook.presto.metadata.MetadataManager;
 import com.facebook.presto.metadata.Signature;
 import com.facebook.presto.operator.PageProcessor;
 import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PageBuilder;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.BlockBuilderStatus;
 import com.facebook.presto.spi.block.DictionaryBlock;
 import com.facebook.presto.spi.block.RunLengthEncodedBlock;
 import com.facebook.presto.spi.block.SliceArrayBlock;
@@ -42,8 +45,12 @@ import static com.facebook.presto.metadata.Signature.internalOperator;
 import static com.facebook.presto.spi.function.OperatorType.LESS_THAN;
 import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
 import static com.facebook.presto.spi.type.TypeSignature.parseTypeSignature;
 import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static com.facebook.presto.sql.relational.Signatures.betweenSignature;
+import static com.facebook.presto.sql.relational.Signatures.logicalExpressionSignature;
+import static com.facebook.presto.sql.tree.LogicalBinaryExpression.Type.AND;
 import static io.airlift.slice.Slices.wrappedIntArray;
 import static java.lang.Boolean.TRUE;
 import static java.util.Collections.singletonList;
@@ -182,6 +189,51 @@ public class TestPageProcessorCompiler
         assertFalse(outputPage.getBlock(0) instanceof DictionaryBlock);
     }
 
+    @Test
+    public void testColumnarFilterOnArrayBlocks()
+            throws Exception
+    {
+        Signature lessThan = internalOperator(LESS_THAN, BOOLEAN, ImmutableList.of(BIGINT, BIGINT));
+        CallExpression bigintFilter = new CallExpression(lessThan, BOOLEAN, ImmutableList.of(new InputReferenceExpression(0, BIGINT), new ConstantExpression(60L, BIGINT)));
+        CallExpression doubleFilter = new CallExpression(
+                betweenSignature(DOUBLE, DOUBLE, DOUBLE),
+                BOOLEAN,
+                ImmutableList.of(new InputReferenceExpression(1, DOUBLE), new ConstantExpression(0.5, DOUBLE), new ConstantExpression(1.0, DOUBLE)));
+        CallExpression filter = new CallExpression(logicalExpressionSignature(AND), BOOLEAN, ImmutableList.of(bigintFilter, doubleFilter));
+
+        PageProcessor processor = new ExpressionCompiler(createTestMetadataManager())
+                .compilePageProcessor(filter, ImmutableList.of(new InputReferenceExpression(0, BIGINT))).get();
+
+        BlockBuilder bigintBlockBuilder = BIGINT.createBlockBuilder(new BlockBuilderStatus(), 100);
+        BlockBuilder doubleBlockBuilder = DOUBLE.createBlockBuilder(new BlockBuilderStatus(), 100);
+        for (int position = 0; position < 100; position++) {
+            if (position % 7 == 0) {
+                bigintBlockBuilder.appendNull();
+            }
+            else {
+                BIGINT.writeLong(bigintBlockBuilder, position);
+            }
+            DOUBLE.writeDouble(doubleBlockBuilder, position / 50.0);
+        }
+        Page page = new Page(bigintBlockBuilder.build(), doubleBlockBuilder.build());
+
+        // positions 25 to 50 match the double filter, and the null positions 28, 35, 42 and 49 are filtered out
+        Page outputPage = processor.processColumnar(null, page, ImmutableList.of(BIGINT));
+        assertEquals(outputPage.getPositionCount(), 22);
+        assertEquals(BIGINT.getLong(outputPage.getBlock(0), 0), 25L);
+        assertEquals(BIGINT.getLong(outputPage.getBlock(0), 21), 50L);
+
+        PageBuilder pageBuilder = new PageBuilder(ImmutableList.of(BIGINT));
+        assertEquals(processor.process(null, page, 0, 100, pageBuilder), 100);
+        assertEquals(pageBuilder.getPositionCount(), 22);
+
+        // a range starting after the first match
+        pageBuilder.reset();
+        assertEquals(processor.process(null, page, 40, 100, pageBuilder), 100);
+        assertEquals(pageBuilder.getPositionCount(), 9);
+        assertEquals(BIGINT.getLong(pageBuilder.build().getBlock(0), 0), 40L);
+    }
+
     private static DictionaryBlock createDictionaryBlock(Slice[] expectedValues, int positionCount)
     {
         int dictionarySize = expectedValues.length;
@@ -0,0 +1,176 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.server;
+
+import com.facebook.presto.block.BlockEncodingManager;
+import com.facebook.presto.block.PageCompressionCodec;
+import com.facebook.presto.client.ClientTypeSignature;
+import com.facebook.presto.client.Column;
+import com.facebook.presto.client.QueryResults;
+import com.facebook.presto.client.StatementStats;
+import com.facebook.presto.spi.ConnectorSession;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.type.ArrayType;
+import com.facebook.presto.type.TypeRegistry;
+import com.google.common.collect.ImmutableList;
+import io.airlift.json.JsonCodec;
+import io.airlift.json.ObjectMapperProvider;
+import io.airlift.slice.DynamicSliceOutput;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+
+import static com.facebook.presto.RowPagesBuilder.rowPagesBuilder;
+import static com.facebook.presto.SessionTestUtils.TEST_SESSION;
+import static com.facebook.presto.block.PageCompressionCodec.LZ4;
+import static com.facebook.presto.client.QueryResultsPages.readQueryResults;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.spi.type.DateType.DATE;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.IntegerType.INTEGER;
+import static com.facebook.presto.spi.type.RealType.REAL;
+import static com.facebook.presto.spi.type.SmallintType.SMALLINT;
+import static com.facebook.presto.spi.type.TinyintType.TINYINT;
+import static com.facebook.presto.spi.type.VarbinaryType.VARBINARY;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static io.airlift.json.JsonCodec.jsonCodec;
+import static io.airlift.slice.Slices.wrappedBuffer;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class TestPagedQueryResultsWriter
+{
+    private static final JsonCodec<QueryResults> QUERY_RESULTS_CODEC = jsonCodec(QueryResults.class);
+    private static final ConnectorSession SESSION = TEST_SESSION.toConnectorSession();
+    private static final PagedQueryResultsWriter WRITER = new PagedQueryResultsWriter(new ObjectMapperProvider().get(), new BlockEncodingManager(new TypeRegistry()));
+
+    @Test
+    public void testMatchesJsonResults()
+            throws Exception
+    {
+        List<Type> types = ImmutableList.of(BIGINT, INTEGER, SMALLINT, TINYINT, DOUBLE, REAL, BOOLEAN, VARCHAR, DATE, new ArrayType(BIGINT));
+        List<Page> pages = rowPagesBuilder(types)
+                .row(1L, 2L, 3L, 4L, 5.5, 6.5f, true, "seven", 8L, ImmutableList.of(9L, 10L))
+                .row(null, null, null, null, null, null, null, null, null, null)
+                .pageBreak()
+                .row(-1L, -2L, -3L, -4L, -5.5, -6.5f, false, "", 0L, ImmutableList.of())
+                .build();
+
+        assertEquals(ImmutableList.copyOf(pagesRoundTrip(types, pages, Optional.empty()).getData()), jsonRoundTrip(types, pages));
+    }
+
+    @Test
+    public void testVarbinary()
+            throws Exception
+    {
+        List<Page> pages = rowPagesBuilder(VARBINARY)
+                .row(new byte[] {1, 2, 3})
+                .row((Object) null)
+                .build();
+
+        List<List<Object>> rows = ImmutableList.copyOf(pagesRoundTrip(ImmutableList.of(VARBINARY), pages, Optional.empty()).getData());
+        assertEquals(rows.size(), 2);
+        assertEquals((byte[]) rows.get(0).get(0), new byte[] {1, 2, 3});
+        assertNull(rows.get(1).get(0));
+    }
+
+    @Test
+    public void testCompression()
+            throws Exception
+    {
+        List<Type> types = ImmutableList.of(BIGINT, VARCHAR);
+        List<Page> pages = rowPagesBuilder(types)
+                .addSequencePage(10_000, 0, 0)
+                .build();
+
+        assertTrue(write(types, pages, Optional.of(LZ4)).length < write(types, pages, Optional.empty()).length);
+        assertEquals(ImmutableList.copyOf(pagesRoundTrip(types, pages, Optional.of(LZ4)).getData()), jsonRoundTrip(types, pages));
+    }
+
+    @Test
+    public void testNoData()
+            throws Exception
+    {
+        List<Type> types = ImmutableList.of(BIGINT);
+        PagedQueryResults results = new PagedQueryResults(createQueryResults(types, null), SESSION, null, null);
+        DynamicSliceOutput output = new DynamicSliceOutput(1024);
+        WRITER.writeQueryResults(output, results, Optional.empty());
+
+        QueryResults queryResults = readQueryResults(QUERY_RESULTS_CODEC, output.slice(), Optional.empty());
+        assertNull(queryResults.getData());
+        assertEquals(queryResults.getColumns(), results.getQueryResults().getColumns());
+        assertEquals(queryResults.getId(), "query");
+    }
+
+    private static QueryResults pagesRoundTrip(List<Type> types, List<Page> pages, Optional<PageCompressionCodec> codec)
+            throws IOException
+    {
+        byte[] bytes = write(types, pages, codec);
+        return readQueryResults(QUERY_RESULTS_CODEC, wrappedBuffer(bytes), codec.map(PageCompressionCodec::name));
+    }
+
+    private static byte[] write(List<Type> types, List<Page> pages, Optional<PageCompressionCodec> codec)
+            throws IOException
+    {
+        PagedQueryResults results = new PagedQueryResults(createQueryResults(types, null), SESSION, types, pages);
+        DynamicSliceOutput output = new DynamicSliceOutput(1024);
+        WRITER.writeQueryResults(output, results, codec);
+        return output.slice().getBytes();
+    }
+
+    private static List<List<Object>> jsonRoundTrip(List<Type> types, List<Page> pages)
+    {
+        List<List<Object>> rows = new ArrayList<>();
+        for (Page page : pages) {
+            for (int position = 0; position < page.getPositionCount(); position++) {
+                List<Object> row = new ArrayList<>();
+                for (int channel = 0; channel < types.size(); channel++) {
+                    Block block = page.getBlock(channel);
+                    row.add(types.get(channel).getObjectValue(SESSION, block, position));
+                }
+                rows.add(row);
+            }
+        }
+        QueryResults results = createQueryResults(types, rows);
+        return ImmutableList.copyOf(QUERY_RESULTS_CODEC.fromJson(QUERY_RESULTS_CODEC.toJson(results)).getData());
+    }
+
+    private static QueryResults createQueryResults(List<Type> types, Iterable<List<Object>> data)
+    {
+        ImmutableList.Builder<Column> columns = ImmutableList.builder();
+        for (int channel = 0; channel < types.size(); channel++) {
+            Type type = types.get(channel);
+            columns.add(new Column("col" + channel, type.getTypeSignature().toString(), new ClientTypeSignature(type.getTypeSignature())));
+        }
+        return new QueryResults(
+                "query",
+                URI.create("http://localhost/query.html?query"),
+                null,
+                null,
+                columns.build(),
+                data,
+                new StatementStats("FINISHED", false, true, 0, 0, 0, 0, 0, 0, 0, 0, 0, 0, null),
+                null,
+                null,
+                null);
+    }
+}
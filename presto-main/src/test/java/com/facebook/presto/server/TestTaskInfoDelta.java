@@ -0,0 +1,159 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.server;
+
+import com.facebook.presto.execution.TaskId;
+import com.facebook.presto.execution.TaskInfo;
+import com.facebook.presto.operator.PipelineStats;
+import com.facebook.presto.operator.TaskStats;
+import com.facebook.presto.operator.TestPipelineStats;
+import com.facebook.presto.operator.TestTaskStats;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import com.google.common.collect.ImmutableList;
+import io.airlift.json.JsonCodec;
+import io.airlift.json.ObjectMapperProvider;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URI;
+import java.util.List;
+import java.util.function.Consumer;
+
+import static com.facebook.presto.execution.TaskInfo.createInitialTask;
+import static com.facebook.presto.execution.TaskState.FINISHED;
+import static com.facebook.presto.execution.TaskStatus.failWith;
+import static com.facebook.presto.server.TaskInfoDelta.createTaskInfoDelta;
+import static com.facebook.presto.server.TaskInfoDelta.formatPipelineDigests;
+import static com.facebook.presto.server.TaskInfoDelta.parsePipelineDigests;
+import static io.airlift.json.JsonCodec.jsonCodec;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNotEquals;
+import static org.testng.Assert.assertTrue;
+
+public class TestTaskInfoDelta
+{
+    private static final ObjectMapper OBJECT_MAPPER = new ObjectMapperProvider().get();
+    private static final TaskInfo TASK_INFO = createTaskInfo(ImmutableList.of(TestPipelineStats.EXPECTED, TestPipelineStats.EXPECTED));
+
+    @Test
+    public void testUnknownPipelines()
+    {
+        TaskInfoDelta delta = createTaskInfoDelta(TASK_INFO, ImmutableList.of(), OBJECT_MAPPER);
+        assertTrue(delta.isComplete());
+        assertEquals(delta.getOmittedPipelines(), 0);
+        assertEquals(delta.getPipelineDigests().size(), 2);
+        assertEquals(delta.apply(createTaskInfo(ImmutableList.of()), ImmutableList.of()), delta.getTaskInfo());
+    }
+
+    @Test
+    public void testUnchangedPipelines()
+    {
+        List<Long> digests = createTaskInfoDelta(TASK_INFO, ImmutableList.of(), OBJECT_MAPPER).getPipelineDigests();
+
+        TaskInfoDelta delta = createTaskInfoDelta(TASK_INFO, digests, OBJECT_MAPPER);
+        assertFalse(delta.isComplete());
+        assertEquals(delta.getOmittedPipelines(), 2);
+        assertEquals(delta.getPipelineDigests(), digests);
+        assertEquals(delta.apply(TASK_INFO, digests).getStats().getPipelines(), TASK_INFO.getStats().getPipelines());
+    }
+
+    @Test
+    public void testChangedPipeline()
+    {
+        List<Long> digests = createTaskInfoDelta(TASK_INFO, ImmutableList.of(), OBJECT_MAPPER).getPipelineDigests();
+        List<Long> knownDigests = ImmutableList.of(digests.get(0), digests.get(1) + 1);
+
+        TaskInfoDelta delta = createTaskInfoDelta(TASK_INFO, knownDigests, OBJECT_MAPPER);
+        assertFalse(delta.isComplete());
+        assertEquals(delta.getOmittedPipelines(), 1);
+        assertEquals(delta.getTaskInfo().getStats().getPipelines().size(), 1);
+
+        TaskInfo taskInfo = delta.apply(TASK_INFO, knownDigests);
+        assertEquals(taskInfo.getStats().getPipelines(), TASK_INFO.getStats().getPipelines());
+    }
+
+    @Test
+    public void testDigestCoversAllStats()
+    {
+        assertPipelineChanged(pipeline -> pipeline.put("queuedPartitionedDrivers", 99));
+        assertPipelineChanged(pipeline -> pipeline.put("totalUserTime", "99ns"));
+        assertPipelineChanged(pipeline -> pipeline.put("processedInputDataSize", "99B"));
+        assertPipelineChanged(pipeline -> pipeline.with("queuedTime").put("max", 99.0));
+        assertPipelineChanged(pipeline -> ((ObjectNode) pipeline.withArray("operatorSummaries").get(0)).put("addInputUser", "99ns"));
+        assertPipelineChanged(pipeline -> ((ObjectNode) pipeline.withArray("operatorSummaries").get(0)).put("info", "99"));
+        assertPipelineChanged(pipeline -> ((ObjectNode) pipeline.withArray("drivers").get(0)).put("rawInputPositions", 99));
+    }
+
+    @Test
+    public void testFinalTaskInfoIsComplete()
+    {
+        TaskInfo taskInfo = TASK_INFO.withTaskStatus(failWith(TASK_INFO.getTaskStatus(), FINISHED, ImmutableList.of()));
+        List<Long> digests = createTaskInfoDelta(taskInfo, ImmutableList.of(), OBJECT_MAPPER).getPipelineDigests();
+
+        TaskInfoDelta delta = createTaskInfoDelta(taskInfo, digests, OBJECT_MAPPER);
+        assertTrue(delta.isComplete());
+        assertEquals(delta.getOmittedPipelines(), 0);
+    }
+
+    @Test
+    public void testPipelineDigestsHeader()
+    {
+        List<Long> digests = ImmutableList.of(0L, 42L, -1L, Long.MIN_VALUE);
+        assertEquals(parsePipelineDigests(formatPipelineDigests(digests)), digests);
+        assertEquals(parsePipelineDigests(formatPipelineDigests(ImmutableList.of())), ImmutableList.of());
+        assertEquals(parsePipelineDigests(null), ImmutableList.of());
+    }
+
+    @Test
+    public void testJson()
+    {
+        JsonCodec<TaskInfoDelta> codec = jsonCodec(TaskInfoDelta.class);
+        TaskInfoDelta expected = createTaskInfoDelta(TASK_INFO, ImmutableList.of(), OBJECT_MAPPER);
+
+        TaskInfoDelta actual = codec.fromJson(codec.toJson(expected));
+        assertEquals(actual.getPipelineDigests(), expected.getPipelineDigests());
+        assertEquals(actual.getTaskInfo().getStats().getPipelines().size(), 2);
+    }
+
+    private static void assertPipelineChanged(Consumer<ObjectNode> change)
+    {
+        ObjectNode node = OBJECT_MAPPER.valueToTree(TestPipelineStats.EXPECTED);
+        change.accept(node);
+        PipelineStats changedPipeline;
+        try {
+            changedPipeline = OBJECT_MAPPER.treeToValue(node, PipelineStats.class);
+        }
+        catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+
+        List<Long> digests = createTaskInfoDelta(TASK_INFO, ImmutableList.of(), OBJECT_MAPPER).getPipelineDigests();
+        TaskInfo changedTaskInfo = createTaskInfo(ImmutableList.of(TestPipelineStats.EXPECTED, changedPipeline));
+
+        TaskInfoDelta delta = createTaskInfoDelta(changedTaskInfo, digests, OBJECT_MAPPER);
+        assertEquals(delta.getPipelineDigests().get(0), digests.get(0));
+        assertNotEquals(delta.getPipelineDigests().get(1), digests.get(1));
+        assertEquals(delta.getTaskInfo().getStats().getPipelines(), ImmutableList.of(changedPipeline));
+        assertEquals(delta.apply(TASK_INFO, digests).getStats().getPipelines(), changedTaskInfo.getStats().getPipelines());
+    }
+
+    private static TaskInfo createTaskInfo(List<PipelineStats> pipelines)
+    {
+        TaskStats taskStats = TestTaskStats.EXPECTED.withPipelines(pipelines);
+        return createInitialTask(new TaskId("query", 0, 0), URI.create("http://localhost/v1/task/query.0.0"), ImmutableList.of(), taskStats);
+    }
+}
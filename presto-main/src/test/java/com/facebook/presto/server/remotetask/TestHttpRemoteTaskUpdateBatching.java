@@ -0,0 +1,161 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.server.remotetask;
+
+import com.facebook.presto.ScheduledSplit;
+import com.facebook.presto.TaskSource;
+import com.facebook.presto.connector.ConnectorId;
+import com.facebook.presto.metadata.Split;
+import com.facebook.presto.sql.planner.plan.PlanNodeId;
+import com.facebook.presto.testing.TestingSplit;
+import com.facebook.presto.testing.TestingTransactionHandle;
+import com.google.common.collect.HashMultimap;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.SetMultimap;
+import org.testng.annotations.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static com.facebook.presto.server.remotetask.HttpRemoteTask.getSources;
+import static com.facebook.presto.util.ImmutableCollectors.toImmutableSet;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+
+public class TestHttpRemoteTaskUpdateBatching
+{
+    private static final PlanNodeId SOURCE_A = new PlanNodeId("a");
+    private static final PlanNodeId SOURCE_B = new PlanNodeId("b");
+    private static final List<PlanNodeId> PLAN_NODE_IDS = ImmutableList.of(SOURCE_A, SOURCE_B);
+
+    @Test
+    public void testAllSplitsFitInOneUpdate()
+    {
+        SetMultimap<PlanNodeId, ScheduledSplit> pendingSplits = HashMultimap.create();
+        addSplits(pendingSplits, SOURCE_A, 0, 2);
+        addSplits(pendingSplits, SOURCE_B, 1);
+        Set<PlanNodeId> noMoreSplits = ImmutableSet.of(SOURCE_A, SOURCE_B);
+
+        List<TaskSource> sources = getSources(PLAN_NODE_IDS, pendingSplits, noMoreSplits, 3);
+        assertEquals(sources.size(), 2);
+        assertSource(sources.get(0), SOURCE_A, ImmutableSet.of(0L, 2L), true);
+        assertSource(sources.get(1), SOURCE_B, ImmutableSet.of(1L), true);
+    }
+
+    @Test
+    public void testSplitsAreSentInBatches()
+    {
+        SetMultimap<PlanNodeId, ScheduledSplit> pendingSplits = HashMultimap.create();
+        addSplits(pendingSplits, SOURCE_A, 0, 2, 4, 6);
+        addSplits(pendingSplits, SOURCE_B, 1, 3, 5);
+        Set<PlanNodeId> noMoreSplits = ImmutableSet.of(SOURCE_A, SOURCE_B);
+
+        // the first update holds the three lowest sequence ids and no source is finished yet
+        List<TaskSource> sources = getSources(PLAN_NODE_IDS, pendingSplits, noMoreSplits, 3);
+        assertEquals(sources.size(), 2);
+        assertSource(sources.get(0), SOURCE_A, ImmutableSet.of(0L, 2L), false);
+        assertSource(sources.get(1), SOURCE_B, ImmutableSet.of(1L), false);
+
+        // nothing changes until the update is acknowledged
+        List<TaskSource> resentSources = getSources(PLAN_NODE_IDS, pendingSplits, noMoreSplits, 3);
+        assertSource(resentSources.get(0), SOURCE_A, ImmutableSet.of(0L, 2L), false);
+        assertSource(resentSources.get(1), SOURCE_B, ImmutableSet.of(1L), false);
+        acknowledge(pendingSplits, sources);
+
+        // source b is finished with its last splits
+        sources = getSources(PLAN_NODE_IDS, pendingSplits, noMoreSplits, 3);
+        assertEquals(sources.size(), 2);
+        assertSource(sources.get(0), SOURCE_A, ImmutableSet.of(4L), false);
+        assertSource(sources.get(1), SOURCE_B, ImmutableSet.of(3L, 5L), true);
+        acknowledge(pendingSplits, sources);
+
+        // the remaining split fits in the last update, which finishes source a
+        sources = getSources(PLAN_NODE_IDS, pendingSplits, noMoreSplits, 3);
+        assertEquals(sources.size(), 1);
+        assertSource(sources.get(0), SOURCE_A, ImmutableSet.of(6L), true);
+        acknowledge(pendingSplits, sources);
+
+        assertTrue(pendingSplits.isEmpty());
+    }
+
+    @Test
+    public void testNoMoreSplitsOnlyInFinalBatch()
+    {
+        SetMultimap<PlanNodeId, ScheduledSplit> pendingSplits = HashMultimap.create();
+        for (long sequenceId = 0; sequenceId < 100; sequenceId++) {
+            addSplits(pendingSplits, sequenceId % 3 == 0 ? SOURCE_B : SOURCE_A, sequenceId);
+        }
+        Set<PlanNodeId> noMoreSplits = ImmutableSet.of(SOURCE_A, SOURCE_B);
+
+        int maxSplitsPerUpdate = 7;
+        long nextSequenceId = 0;
+        Set<PlanNodeId> finishedSources = ImmutableSet.of();
+        while (!pendingSplits.isEmpty()) {
+            List<TaskSource> sources = getSources(PLAN_NODE_IDS, pendingSplits, noMoreSplits, maxSplitsPerUpdate);
+
+            // each update holds the next splits by sequence id, up to the limit
+            Set<Long> sequenceIds = sources.stream()
+                    .flatMap(source -> source.getSplits().stream())
+                    .map(ScheduledSplit::getSequenceId)
+                    .collect(toImmutableSet());
+            int expectedSplits = Math.min(maxSplitsPerUpdate, pendingSplits.size());
+            assertEquals(sequenceIds.size(), expectedSplits);
+            for (long sequenceId = nextSequenceId; sequenceId < nextSequenceId + expectedSplits; sequenceId++) {
+                assertTrue(sequenceIds.contains(sequenceId));
+            }
+            nextSequenceId += expectedSplits;
+
+            for (TaskSource source : sources) {
+                assertFalse(finishedSources.contains(source.getPlanNodeId()));
+                // no more splits is sent exactly with the last pending splits of the source
+                assertEquals(source.isNoMoreSplits(), source.getSplits().size() == pendingSplits.get(source.getPlanNodeId()).size());
+                if (source.isNoMoreSplits()) {
+                    finishedSources = ImmutableSet.<PlanNodeId>builder()
+                            .addAll(finishedSources)
+                            .add(source.getPlanNodeId())
+                            .build();
+                }
+            }
+            acknowledge(pendingSplits, sources);
+        }
+        assertEquals(nextSequenceId, 100);
+        assertEquals(finishedSources, noMoreSplits);
+    }
+
+    private static void addSplits(SetMultimap<PlanNodeId, ScheduledSplit> pendingSplits, PlanNodeId planNodeId, long... sequenceIds)
+    {
+        for (long sequenceId : sequenceIds) {
+            Split split = new Split(new ConnectorId("test"), TestingTransactionHandle.create(), TestingSplit.createLocalSplit());
+            pendingSplits.put(planNodeId, new ScheduledSplit(sequenceId, planNodeId, split));
+        }
+    }
+
+    private static void acknowledge(SetMultimap<PlanNodeId, ScheduledSplit> pendingSplits, List<TaskSource> sources)
+    {
+        for (TaskSource source : sources) {
+            for (ScheduledSplit split : source.getSplits()) {
+                assertTrue(pendingSplits.remove(source.getPlanNodeId(), split));
+            }
+        }
+    }
+
+    private static void assertSource(TaskSource source, PlanNodeId planNodeId, Set<Long> sequenceIds, boolean noMoreSplits)
+    {
+        assertEquals(source.getPlanNodeId(), planNodeId);
+        assertEquals(source.getSplits().stream().map(ScheduledSplit::getSequenceId).collect(toImmutableSet()), sequenceIds);
+        assertEquals(source.isNoMoreSplits(), noMoreSplits);
+    }
+}
@@ -74,6 +74,31 @@ public class TestBinaryFileSpiller
         }
     }
 
+    @Test
+    public void testAppend()
+            throws Exception
+    {
+        List<Page> firstPages = RowPagesBuilder.rowPagesBuilder(TYPES)
+                .addSequencePage(10, 0, 5, 10, 15)
+                .build();
+        List<Page> secondPages = RowPagesBuilder.rowPagesBuilder(TYPES)
+                .addSequencePage(10, 10, 15, 20, 25)
+                .build();
+
+        try (Spiller spiller = factory.create(TYPES)) {
+            spiller.append(firstPages.iterator()).get();
+            spiller.append(secondPages.iterator()).get();
+
+            List<Iterator<Page>> actualSpills = spiller.getSpills();
+            assertEquals(actualSpills.size(), 1);
+
+            List<Page> actualPages = ImmutableList.copyOf(actualSpills.get(0));
+            assertEquals(actualPages.size(), 2);
+            assertPageEquals(TYPES, actualPages.get(0), firstPages.get(0));
+            assertPageEquals(TYPES, actualPages.get(1), secondPages.get(0));
+        }
+    }
+
     private void testSimpleSpiller(Spiller spiller)
             throws ExecutionException, InterruptedException
     {
@@ -54,7 +54,15 @@ public class TestFeaturesConfig
                 .setOperatorMemoryLimitBeforeSpill(DataSize.valueOf("4MB"))
                 .setSpillerSpillPath(Paths.get(System.getProperty("java.io.tmpdir"), "presto", "spills").toString())
                 .setSpillerThreads(4)
-                .setOptimizeMixedDistinctAggregations(false));
+                .setDynamicFilteringEnabled(false)
+                .setJoinReorderingEnabled(false)
+                .setCostBasedJoinDistributionEnabled(false)
+                .setJoinMaxBroadcastTableSize(DataSize.valueOf("100MB"))
+                .setOptimizeMixedDistinctAggregations(false)
+                .setFlatGroupByHashEnabled(false)
+                .setFlatGroupByHashOffHeap(false)
+                .setAdaptivePartialAggregationEnabled(false)
+                .setAdaptivePartialAggregationUniqueRowsRatioThreshold(0.8));
     }
 
     @Test
@@ -81,6 +89,14 @@ public class TestFeaturesConfig
                 .put("experimental.operator-memory-limit-before-spill", "100MB")
                 .put("experimental.spiller-spill-path", "/tmp/custom/spill/path")
                 .put("experimental.spiller-threads", "42")
+                .put("experimental.dynamic-filtering-enabled", "true")
+                .put("optimizer.join-reordering-enabled", "true")
+                .put("optimizer.cost-based-join-distribution-enabled", "true")
+                .put("optimizer.join-max-broadcast-table-size", "10MB")
+                .put("experimental.flat-group-by-hash-enabled", "true")
+                .put("experimental.flat-group-by-hash-off-heap", "true")
+                .put("experimental.adaptive-partial-aggregation-enabled", "true")
+                .put("experimental.adaptive-partial-aggregation-unique-rows-ratio-threshold", "0.5")
                 .build();
         Map<String, String> properties = new ImmutableMap.Builder<String, String>()
                 .put("experimental.resource-groups-enabled", "true")
@@ -103,6 +119,14 @@ public class TestFeaturesConfig
                 .put("experimental.operator-memory-limit-before-spill", "100MB")
                 .put("experimental.spiller-spill-path", "/tmp/custom/spill/path")
                 .put("experimental.spiller-threads", "42")
+                .put("experimental.dynamic-filtering-enabled", "true")
+                .put("optimizer.join-reordering-enabled", "true")
+                .put("optimizer.cost-based-join-distribution-enabled", "true")
+                .put("optimizer.join-max-broadcast-table-size", "10MB")
+                .put("experimental.flat-group-by-hash-enabled", "true")
+                .put("experimental.flat-group-by-hash-off-heap", "true")
+                .put("experimental.adaptive-partial-aggregation-enabled", "true")
+                .put("experimental.adaptive-partial-aggregation-unique-rows-ratio-threshold", "0.5")
                 .build();
 
         FeaturesConfig expected = new FeaturesConfig()
@@ -125,7 +149,15 @@ public class TestFeaturesConfig
                 .setSpillEnabled(true)
                 .setOperatorMemoryLimitBeforeSpill(DataSize.valueOf("100MB"))
                 .setSpillerSpillPath("/tmp/custom/spill/path")
-                .setSpillerThreads(42);
+                .setSpillerThreads(42)
+                .setDynamicFilteringEnabled(true)
+                .setJoinReorderingEnabled(true)
+                .setCostBasedJoinDistributionEnabled(true)
+                .setJoinMaxBroadcastTableSize(DataSize.valueOf("10MB"))
+                .setFlatGroupByHashEnabled(true)
+                .setFlatGroupByHashOffHeap(true)
+                .setAdaptivePartialAggregationEnabled(true)
+                .setAdaptivePartialAggregationUniqueRowsRatioThreshold(0.5);
 
         assertFullMapping(properties, expected);
         assertDeprecatedEquivalence(FeaturesConfig.class, properties, propertiesLegacy);
@@ -28,6 +28,7 @@ import java.io.IOException;
 import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicLong;
 
 import static com.facebook.presto.orc.OrcDataSourceUtils.getDiskRangeSlice;
 import static com.facebook.presto.orc.OrcDataSourceUtils.mergeAdjacentDiskRanges;
@@ -42,8 +43,9 @@ public abstract class AbstractOrcDataSource
     private final DataSize maxMergeDistance;
     private final DataSize maxBufferSize;
     private final DataSize streamBufferSize;
-    private long readTimeNanos;
-    private long readBytes;
+    // updated concurrently when the next stripe is prefetched in the background
+    private final AtomicLong readTimeNanos = new AtomicLong();
+    private final AtomicLong readBytes = new AtomicLong();
 
     public AbstractOrcDataSource(String name, long size, DataSize maxMergeDistance, DataSize maxBufferSize, DataSize streamBufferSize)
     {
@@ -63,13 +65,13 @@ public abstract class AbstractOrcDataSource
     @Override
     public final long getReadBytes()
     {
-        return readBytes;
+        return readBytes.get();
     }
 
     @Override
     public final long getReadTimeNanos()
     {
-        return readTimeNanos;
+        return readTimeNanos.get();
     }
 
     @Override
@@ -93,8 +95,8 @@ public abstract class AbstractOrcDataSource
 
         readInternal(position, buffer, bufferOffset, bufferLength);
 
-        readTimeNanos += System.nanoTime() - start;
-        readBytes += bufferLength;
+        readTimeNanos.addAndGet(System.nanoTime() - start);
+        readBytes.addAndGet(bufferLength);
     }
 
     @Override
@@ -26,6 +26,22 @@ public interface OrcDataSource
 
     long getReadTimeNanos();
 
+    /**
+     * Returns the number of reads that were served from data prefetched in the background.
+     */
+    default long getPrefetchHitCount()
+    {
+        return 0;
+    }
+
+    /**
+     * Returns the time readers spent waiting for background prefetches to complete.
+     */
+    default long getPrefetchWaitNanos()
+    {
+        return 0;
+    }
+
     long getSize();
 
     void readFully(long position, byte[] buffer)
@@ -0,0 +1,76 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc;
+
+import com.facebook.presto.orc.metadata.RowGroupIndex;
+import com.facebook.presto.orc.metadata.StripeFooter;
+import com.facebook.presto.orc.metadata.StripeInformation;
+
+import java.io.IOException;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Cache for the decoded metadata of a single ORC file. Implementations must only
+ * return entries for the exact version of the file that is being read.
+ */
+public interface OrcFileMetadataCache
+{
+    OrcFileMetadataCache NO_CACHE = new OrcFileMetadataCache()
+    {
+        @Override
+        public OrcFileTail getFileTail(MetadataLoader<OrcFileTail> loader)
+                throws IOException
+        {
+            return loader.load();
+        }
+
+        @Override
+        public StripeFooter getStripeFooter(StripeInformation stripe, MetadataLoader<StripeFooter> loader)
+                throws IOException
+        {
+            return loader.load();
+        }
+
+        @Override
+        public Optional<List<RowGroupIndex>> getRowGroupIndexes(StripeInformation stripe, int column)
+        {
+            return Optional.empty();
+        }
+
+        @Override
+        public void putRowGroupIndexes(StripeInformation stripe, int column, List<RowGroupIndex> rowGroupIndexes, long indexSize)
+        {
+        }
+    };
+
+    OrcFileTail getFileTail(MetadataLoader<OrcFileTail> loader)
+            throws IOException;
+
+    StripeFooter getStripeFooter(StripeInformation stripe, MetadataLoader<StripeFooter> loader)
+            throws IOException;
+
+    /**
+     * Returns the row group indexes of the column in the stripe, including the bloom filters.
+     */
+    Optional<List<RowGroupIndex>> getRowGroupIndexes(StripeInformation stripe, int column);
+
+    void putRowGroupIndexes(StripeInformation stripe, int column, List<RowGroupIndex> rowGroupIndexes, long indexSize);
+
+    interface MetadataLoader<T>
+    {
+        T load()
+                throws IOException;
+    }
+}
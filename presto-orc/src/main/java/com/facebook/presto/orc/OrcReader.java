@@ -34,6 +34,8 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.Executor;
 
 import static io.airlift.slice.SizeOf.SIZE_OF_BYTE;
 import static java.lang.Math.min;
@@ -58,17 +60,35 @@ public class OrcReader
     private final int bufferSize;
     private final Footer footer;
     private final Metadata metadata;
+    private final OrcFileMetadataCache metadataCache;
 
-    // This is based on the Apache Hive ORC code
     public OrcReader(OrcDataSource orcDataSource, MetadataReader metadataReader, DataSize maxMergeDistance, DataSize maxReadSize)
             throws IOException
+    {
+        this(orcDataSource, metadataReader, maxMergeDistance, maxReadSize, OrcFileMetadataCache.NO_CACHE);
+    }
+
+    public OrcReader(OrcDataSource orcDataSource, MetadataReader metadataReader, DataSize maxMergeDistance, DataSize maxReadSize, OrcFileMetadataCache metadataCache)
+            throws IOException
     {
         orcDataSource = wrapWithCacheIfTiny(requireNonNull(orcDataSource, "orcDataSource is null"), maxMergeDistance);
         this.orcDataSource = orcDataSource;
         this.metadataReader = requireNonNull(metadataReader, "metadataReader is null");
         this.maxMergeDistance = requireNonNull(maxMergeDistance, "maxMergeDistance is null");
         this.maxReadSize = requireNonNull(maxReadSize, "maxReadSize is null");
+        this.metadataCache = requireNonNull(metadataCache, "metadataCache is null");
+
+        OrcFileTail fileTail = metadataCache.getFileTail(() -> readFileTail(this.orcDataSource, metadataReader));
+        this.compressionKind = fileTail.getCompressionKind();
+        this.bufferSize = fileTail.getBufferSize();
+        this.footer = fileTail.getFooter();
+        this.metadata = fileTail.getMetadata();
+    }
 
+    // This is based on the Apache Hive ORC code
+    private static OrcFileTail readFileTail(OrcDataSource orcDataSource, MetadataReader metadataReader)
+            throws IOException
+    {
         //
         // Read the file tail:
         //
@@ -102,9 +122,9 @@ public class OrcReader
         checkOrcVersion(orcDataSource, postScript.getVersion());
 
         // check compression codec is supported
-        this.compressionKind = postScript.getCompression();
+        CompressionKind compressionKind = postScript.getCompression();
 
-        this.bufferSize = Ints.checkedCast(postScript.getCompressionBlockSize());
+        int bufferSize = Ints.checkedCast(postScript.getCompressionBlockSize());
 
         int footerSize = Ints.checkedCast(postScript.getFooterLength());
         int metadataSize = Ints.checkedCast(postScript.getMetadataLength());
@@ -130,15 +150,19 @@ public class OrcReader
 
         // read metadata
         Slice metadataSlice = completeFooterSlice.slice(0, metadataSize);
+        Metadata metadata;
         try (InputStream metadataInputStream = new OrcInputStream(orcDataSource.toString(), metadataSlice.getInput(), compressionKind, bufferSize, new AggregatedMemoryContext())) {
-            this.metadata = metadataReader.readMetadata(metadataInputStream);
+            metadata = metadataReader.readMetadata(metadataInputStream);
         }
 
         // read footer
         Slice footerSlice = completeFooterSlice.slice(metadataSize, footerSize);
+        Footer footer;
         try (InputStream footerInputStream = new OrcInputStream(orcDataSource.toString(), footerSlice.getInput(), compressionKind, bufferSize, new AggregatedMemoryContext())) {
-            this.footer = metadataReader.readFooter(footerInputStream);
+            footer = metadataReader.readFooter(footerInputStream);
         }
+
+        return new OrcFileTail(compressionKind, bufferSize, footer, metadata, completeFooterSize);
     }
 
     public List<String> getColumnNames()
@@ -180,6 +204,23 @@ public class OrcReader
             DateTimeZone hiveStorageTimeZone,
             AbstractAggregatedMemoryContext systemMemoryUsage)
             throws IOException
+    {
+        return createRecordReader(includedColumns, predicate, offset, length, hiveStorageTimeZone, systemMemoryUsage, Optional.empty());
+    }
+
+    /**
+     * Creates a record reader that reads the regions of the next stripe with the
+     * {@code stripePrefetchExecutor} while the current stripe is decoded, if present.
+     */
+    public OrcRecordReader createRecordReader(
+            Map<Integer, Type> includedColumns,
+            OrcPredicate predicate,
+            long offset,
+            long length,
+            DateTimeZone hiveStorageTimeZone,
+            AbstractAggregatedMemoryContext systemMemoryUsage,
+            Optional<Executor> stripePrefetchExecutor)
+            throws IOException
     {
         return new OrcRecordReader(
                 requireNonNull(includedColumns, "includedColumns is null"),
@@ -200,7 +241,9 @@ public class OrcReader
                 maxMergeDistance,
                 maxReadSize,
                 footer.getUserMetadata(),
-                systemMemoryUsage);
+                metadataCache,
+                systemMemoryUsage,
+                stripePrefetchExecutor);
     }
 
     private static OrcDataSource wrapWithCacheIfTiny(OrcDataSource dataSource, DataSize maxCacheSize)
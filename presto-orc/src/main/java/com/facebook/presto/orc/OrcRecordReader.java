@@ -47,6 +47,7 @@ import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
+import java.util.concurrent.Executor;
 import java.util.stream.Collectors;
 
 import static com.facebook.presto.orc.OrcDataSourceUtils.mergeAdjacentDiskRanges;
@@ -70,6 +71,8 @@ public class OrcRecordReader
 
     private final List<StripeInformation> stripes;
     private final StripeReader stripeReader;
+    // reads the regions of the next stripe in the background, null if prefetching is disabled
+    private final StripeReader prefetchStripeReader;
     private int currentStripe = -1;
     private AggregatedMemoryContext currentStripeSystemMemoryContext;
 
@@ -104,7 +107,9 @@ public class OrcRecordReader
             DataSize maxMergeDistance,
             DataSize maxReadSize,
             Map<String, Slice> userMetadata,
-            AbstractAggregatedMemoryContext systemMemoryUsage)
+            OrcFileMetadataCache metadataCache,
+            AbstractAggregatedMemoryContext systemMemoryUsage,
+            Optional<Executor> stripePrefetchExecutor)
             throws IOException
     {
         requireNonNull(includedColumns, "includedColumns is null");
@@ -116,6 +121,8 @@ public class OrcRecordReader
         requireNonNull(compressionKind, "compressionKind is null");
         requireNonNull(hiveStorageTimeZone, "hiveStorageTimeZone is null");
         requireNonNull(userMetadata, "userMetadata is null");
+        requireNonNull(stripePrefetchExecutor, "stripePrefetchExecutor is null");
+        this.systemMemoryUsage = requireNonNull(systemMemoryUsage, "systemMemoryUsage is null").newAggregatedMemoryContext();
 
         // reduce the included columns to the set that is also present
         ImmutableSet.Builder<Integer> presentColumns = ImmutableSet.builder();
@@ -167,6 +174,23 @@ public class OrcRecordReader
         this.stripeFilePositions = stripeFilePositions.build();
 
         orcDataSource = wrapWithCacheIfTinyStripes(orcDataSource, this.stripes, maxMergeDistance, maxReadSize);
+        if (stripePrefetchExecutor.isPresent() && !(orcDataSource instanceof CachingOrcDataSource) && this.stripes.size() > 1) {
+            // the prefetch must bypass the prefetching data source
+            this.prefetchStripeReader = new StripeReader(
+                    orcDataSource,
+                    compressionKind,
+                    types,
+                    bufferSize,
+                    this.presentColumns,
+                    rowsInRowGroup,
+                    predicate,
+                    metadataReader,
+                    metadataCache);
+            orcDataSource = new PrefetchingOrcDataSource(orcDataSource, stripePrefetchExecutor.get(), maxMergeDistance, maxReadSize, this.systemMemoryUsage);
+        }
+        else {
+            this.prefetchStripeReader = null;
+        }
         this.orcDataSource = orcDataSource;
         this.splitLength = splitLength;
 
@@ -177,7 +201,6 @@ public class OrcRecordReader
 
         this.userMetadata = ImmutableMap.copyOf(Maps.transformValues(userMetadata, Slices::copyOf));
 
-        this.systemMemoryUsage = requireNonNull(systemMemoryUsage, "systemMemoryUsage is null").newAggregatedMemoryContext();
         this.currentStripeSystemMemoryContext = systemMemoryUsage.newAggregatedMemoryContext();
 
         stripeReader = new StripeReader(
@@ -188,7 +211,8 @@ public class OrcRecordReader
                 this.presentColumns,
                 rowsInRowGroup,
                 predicate,
-                metadataReader);
+                metadataReader,
+                metadataCache);
 
         streamReaders = createStreamReaders(orcDataSource, types, hiveStorageTimeZone, presentColumnsAndTypes.build());
     }
@@ -281,6 +305,16 @@ public class OrcRecordReader
         orcDataSource.close();
     }
 
+    public long getPrefetchHitCount()
+    {
+        return orcDataSource.getPrefetchHitCount();
+    }
+
+    public long getPrefetchWaitNanos()
+    {
+        return orcDataSource.getPrefetchWaitNanos();
+    }
+
     public boolean isColumnPresent(int hiveColumnIndex)
     {
         return presentColumns.contains(hiveColumnIndex);
@@ -381,6 +415,15 @@ public class OrcRecordReader
         StripeInformation stripeInformation = stripes.get(currentStripe);
 
         Stripe stripe = stripeReader.readStripe(stripeInformation, currentStripeSystemMemoryContext);
+
+        if (prefetchStripeReader != null && currentStripe + 1 < stripes.size()) {
+            // read the next stripe in the background while this stripe is decoded; this replaces
+            // the prefetch of this stripe, so it can only start after this stripe has been read
+            StripeInformation nextStripe = stripes.get(currentStripe + 1);
+            ((PrefetchingOrcDataSource) orcDataSource).prefetch(
+                    new DiskRange(nextStripe.getOffset(), Ints.checkedCast(nextStripe.getTotalLength())),
+                    prefetchStripeReader.getStripeDiskRanges(nextStripe, currentStripeSystemMemoryContext));
+        }
         if (stripe != null) {
             // Give readers access to dictionary streams
             StreamSources dictionaryStreamSources = stripe.getDictionaryStreamSources();
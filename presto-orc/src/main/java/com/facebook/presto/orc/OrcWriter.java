@@ -0,0 +1,343 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc;
+
+import com.facebook.presto.orc.metadata.ColumnEncoding;
+import com.facebook.presto.orc.metadata.ColumnStatistics;
+import com.facebook.presto.orc.metadata.CompressedMetadataWriter;
+import com.facebook.presto.orc.metadata.CompressionKind;
+import com.facebook.presto.orc.metadata.Footer;
+import com.facebook.presto.orc.metadata.Metadata;
+import com.facebook.presto.orc.metadata.OrcMetadataWriter;
+import com.facebook.presto.orc.metadata.OrcType;
+import com.facebook.presto.orc.metadata.RowGroupIndex;
+import com.facebook.presto.orc.metadata.Stream;
+import com.facebook.presto.orc.metadata.StripeFooter;
+import com.facebook.presto.orc.metadata.StripeInformation;
+import com.facebook.presto.orc.metadata.StripeStatistics;
+import com.facebook.presto.orc.stream.StreamDataOutput;
+import com.facebook.presto.orc.writer.ColumnWriter;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.slice.DynamicSliceOutput;
+import io.airlift.slice.OutputStreamSliceOutput;
+import io.airlift.slice.Slice;
+import io.airlift.slice.SliceOutput;
+import io.airlift.slice.Slices;
+import org.joda.time.DateTimeZone;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Optional;
+import java.util.OptionalDouble;
+
+import static com.facebook.presto.orc.metadata.ColumnEncoding.ColumnEncodingKind.DIRECT;
+import static com.facebook.presto.orc.metadata.OrcType.OrcTypeKind.STRUCT;
+import static com.facebook.presto.orc.metadata.Stream.StreamKind.ROW_INDEX;
+import static com.facebook.presto.orc.writer.ColumnStatisticsMerger.mergeColumnStatistics;
+import static com.facebook.presto.orc.writer.ColumnWriters.createColumnWriter;
+import static com.facebook.presto.orc.writer.ColumnWriters.toOrcType;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static java.lang.Math.toIntExact;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Writes pages to an ORC file. Columns are buffered in memory, encoded and compressed
+ * until a stripe is full, at which point the stripe is written to the output stream.
+ */
+public class OrcWriter
+        implements Closeable
+{
+    private static final Slice MAGIC = Slices.utf8Slice("ORC");
+    private static final ColumnEncoding ROOT_COLUMN_ENCODING = new ColumnEncoding(DIRECT, 0);
+
+    private final SliceOutput output;
+    private final CompressionKind compression;
+    private final OrcWriterOptions options;
+    private final List<OrcType> orcTypes;
+    private final List<ColumnWriter> columnWriters;
+    private final Map<String, Slice> userMetadata;
+    private final OrcMetadataWriter metadataWriter = new OrcMetadataWriter();
+    private final CompressedMetadataWriter compressedMetadataWriter;
+
+    private final List<StripeInformation> closedStripes = new ArrayList<>();
+    private final List<StripeStatistics> closedStripeStatistics = new ArrayList<>();
+    private final List<ColumnStatistics> rootRowGroupStatistics = new ArrayList<>();
+    private long fileLength;
+    private long fileRowCount;
+    private int stripeRowCount;
+    private int rowGroupRowCount;
+    private boolean closed;
+
+    public OrcWriter(
+            OutputStream outputStream,
+            List<String> columnNames,
+            List<Type> types,
+            CompressionKind compression,
+            OrcWriterOptions options,
+            Map<String, String> userMetadata,
+            DateTimeZone hiveStorageTimeZone)
+    {
+        this.output = new OutputStreamSliceOutput(requireNonNull(outputStream, "outputStream is null"));
+        requireNonNull(columnNames, "columnNames is null");
+        requireNonNull(types, "types is null");
+        checkArgument(columnNames.size() == types.size(), "columnNames and types have different sizes");
+        this.compression = requireNonNull(compression, "compression is null");
+        this.options = requireNonNull(options, "options is null");
+        requireNonNull(userMetadata, "userMetadata is null");
+        requireNonNull(hiveStorageTimeZone, "hiveStorageTimeZone is null");
+
+        int bufferSize = toIntExact(options.getMaxCompressionBufferSize().toBytes());
+        this.compressedMetadataWriter = new CompressedMetadataWriter(metadataWriter, compression, bufferSize);
+
+        // column 0 is the root struct and the columns of the file are its fields
+        ImmutableList.Builder<OrcType> orcTypes = ImmutableList.builder();
+        ImmutableList.Builder<Integer> fieldTypeIndexes = ImmutableList.builder();
+        ImmutableList.Builder<ColumnWriter> columnWriters = ImmutableList.builder();
+        for (int field = 0; field < types.size(); field++) {
+            int column = field + 1;
+            Type type = types.get(field);
+            fieldTypeIndexes.add(column);
+            orcTypes.add(toOrcType(type));
+
+            OptionalDouble bloomFilterFpp = OptionalDouble.empty();
+            if (options.getBloomFilterColumns().contains(columnNames.get(field))) {
+                bloomFilterFpp = OptionalDouble.of(options.getBloomFilterFpp());
+            }
+            columnWriters.add(createColumnWriter(
+                    column,
+                    type,
+                    compression,
+                    bufferSize,
+                    bloomFilterFpp,
+                    options.getRowGroupMaxRowCount(),
+                    options.getDictionaryMaxMemory().toBytes(),
+                    hiveStorageTimeZone));
+        }
+        this.orcTypes = ImmutableList.<OrcType>builder()
+                .add(new OrcType(STRUCT, fieldTypeIndexes.build(), columnNames, Optional.empty(), Optional.empty()))
+                .addAll(orcTypes.build())
+                .build();
+        this.columnWriters = columnWriters.build();
+
+        ImmutableMap.Builder<String, Slice> userMetadataSlices = ImmutableMap.builder();
+        for (Entry<String, String> entry : userMetadata.entrySet()) {
+            userMetadataSlices.put(entry.getKey(), Slices.utf8Slice(entry.getValue()));
+        }
+        this.userMetadata = userMetadataSlices.build();
+
+        writeSlice(MAGIC);
+    }
+
+    /**
+     * Number of rows written, including the rows still buffered.
+     */
+    public long getRowCount()
+    {
+        return fileRowCount + stripeRowCount;
+    }
+
+    /**
+     * Size of the file written so far, plus the estimated size of the buffered stripe.
+     */
+    public long getWrittenBytes()
+    {
+        return fileLength + getStripeBufferedBytes();
+    }
+
+    public long getRetainedBytes()
+    {
+        long retainedBytes = 0;
+        for (ColumnWriter columnWriter : columnWriters) {
+            retainedBytes += columnWriter.getRetainedBytes();
+        }
+        return retainedBytes;
+    }
+
+    public void write(Page page)
+            throws IOException
+    {
+        checkState(!closed, "Writer is closed");
+        checkArgument(page.getChannelCount() == columnWriters.size(), "Expected page with %s channels, but got %s", columnWriters.size(), page.getChannelCount());
+
+        while (page.getPositionCount() > 0) {
+            int chunkRows = Math.min(page.getPositionCount(), options.getRowGroupMaxRowCount() - rowGroupRowCount);
+            chunkRows = Math.min(chunkRows, options.getStripeMaxRowCount() - stripeRowCount);
+            writeChunk(page.getRegion(0, chunkRows));
+            page = page.getRegion(chunkRows, page.getPositionCount() - chunkRows);
+        }
+    }
+
+    private void writeChunk(Page chunk)
+            throws IOException
+    {
+        if (rowGroupRowCount == 0) {
+            for (ColumnWriter columnWriter : columnWriters) {
+                columnWriter.beginRowGroup();
+            }
+        }
+
+        for (int channel = 0; channel < chunk.getChannelCount(); channel++) {
+            columnWriters.get(channel).writeBlock(chunk.getBlock(channel));
+        }
+        rowGroupRowCount += chunk.getPositionCount();
+        stripeRowCount += chunk.getPositionCount();
+
+        if (rowGroupRowCount == options.getRowGroupMaxRowCount()) {
+            finishRowGroup();
+        }
+
+        if (stripeRowCount == options.getStripeMaxRowCount() || getStripeBufferedBytes() >= options.getStripeMaxSize().toBytes()) {
+            flushStripe();
+        }
+    }
+
+    private long getStripeBufferedBytes()
+    {
+        long bufferedBytes = 0;
+        for (ColumnWriter columnWriter : columnWriters) {
+            bufferedBytes += columnWriter.getBufferedBytes();
+        }
+        return bufferedBytes;
+    }
+
+    private void finishRowGroup()
+    {
+        for (ColumnWriter columnWriter : columnWriters) {
+            columnWriter.finishRowGroup();
+        }
+        rootRowGroupStatistics.add(new ColumnStatistics((long) rowGroupRowCount, null, null, null, null, null, null, null));
+        rowGroupRowCount = 0;
+    }
+
+    private void flushStripe()
+            throws IOException
+    {
+        if (rowGroupRowCount > 0) {
+            finishRowGroup();
+        }
+        if (stripeRowCount == 0) {
+            return;
+        }
+
+        for (ColumnWriter columnWriter : columnWriters) {
+            columnWriter.close();
+        }
+
+        // the root struct has no streams so its row group index has no positions
+        ImmutableList.Builder<RowGroupIndex> rootRowGroupIndexes = ImmutableList.builder();
+        for (ColumnStatistics statistics : rootRowGroupStatistics) {
+            rootRowGroupIndexes.add(new RowGroupIndex(ImmutableList.of(), statistics));
+        }
+        Slice rootRowIndex = compressedMetadataWriter.writeRowIndexes(rootRowGroupIndexes.build());
+
+        ImmutableList.Builder<StreamDataOutput> indexStreams = ImmutableList.builder();
+        indexStreams.add(new StreamDataOutput(rootRowIndex, new Stream(0, ROW_INDEX, rootRowIndex.length(), false)));
+        ImmutableList.Builder<StreamDataOutput> dataStreams = ImmutableList.builder();
+        ImmutableList.Builder<ColumnEncoding> columnEncodings = ImmutableList.builder();
+        columnEncodings.add(ROOT_COLUMN_ENCODING);
+        ImmutableList.Builder<ColumnStatistics> stripeStatistics = ImmutableList.builder();
+        stripeStatistics.add(new ColumnStatistics((long) stripeRowCount, null, null, null, null, null, null, null));
+        for (ColumnWriter columnWriter : columnWriters) {
+            indexStreams.addAll(columnWriter.getIndexStreams(compressedMetadataWriter));
+            dataStreams.addAll(columnWriter.getDataStreams());
+            columnEncodings.add(columnWriter.getColumnEncoding());
+            stripeStatistics.add(columnWriter.getColumnStripeStatistics());
+        }
+
+        long stripeOffset = fileLength;
+        ImmutableList.Builder<Stream> streams = ImmutableList.builder();
+        long indexLength = 0;
+        for (StreamDataOutput indexStream : indexStreams.build()) {
+            indexStream.writeData(output);
+            indexLength += indexStream.size();
+            streams.add(indexStream.getStream());
+        }
+        long dataLength = 0;
+        for (StreamDataOutput dataStream : dataStreams.build()) {
+            dataStream.writeData(output);
+            dataLength += dataStream.size();
+            streams.add(dataStream.getStream());
+        }
+        fileLength += indexLength + dataLength;
+
+        Slice stripeFooter = compressedMetadataWriter.writeStripeFooter(new StripeFooter(streams.build(), columnEncodings.build()));
+        writeSlice(stripeFooter);
+
+        closedStripes.add(new StripeInformation(stripeRowCount, stripeOffset, indexLength, dataLength, stripeFooter.length()));
+        closedStripeStatistics.add(new StripeStatistics(stripeStatistics.build()));
+        fileRowCount += stripeRowCount;
+
+        for (ColumnWriter columnWriter : columnWriters) {
+            columnWriter.reset();
+        }
+        rootRowGroupStatistics.clear();
+        stripeRowCount = 0;
+    }
+
+    @Override
+    public void close()
+            throws IOException
+    {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        try {
+            flushStripe();
+
+            Slice metadata = compressedMetadataWriter.writeMetadata(new Metadata(closedStripeStatistics));
+            writeSlice(metadata);
+
+            ImmutableList.Builder<ColumnStatistics> fileStatistics = ImmutableList.builder();
+            for (int column = 0; column < orcTypes.size(); column++) {
+                ImmutableList.Builder<ColumnStatistics> columnStatistics = ImmutableList.builder();
+                for (StripeStatistics stripeStatistics : closedStripeStatistics) {
+                    columnStatistics.add(stripeStatistics.getColumnStatistics().get(column));
+                }
+                fileStatistics.add(mergeColumnStatistics(columnStatistics.build()));
+            }
+
+            Footer footer = new Footer(fileRowCount, options.getRowGroupMaxRowCount(), closedStripes, orcTypes, fileStatistics.build(), userMetadata);
+            Slice footerSlice = compressedMetadataWriter.writeFooter(footer);
+            writeSlice(footerSlice);
+
+            // the post script is never compressed and its length is stored in the last byte of the file
+            DynamicSliceOutput postScript = new DynamicSliceOutput(64);
+            metadataWriter.writePostScript(postScript, footerSlice.length(), metadata.length(), compression, toIntExact(options.getMaxCompressionBufferSize().toBytes()));
+            checkState(postScript.size() < 256, "Post script is too large");
+            writeSlice(postScript.slice());
+            output.writeByte(postScript.size());
+            fileLength++;
+        }
+        finally {
+            output.close();
+        }
+    }
+
+    private void writeSlice(Slice slice)
+    {
+        output.writeBytes(slice);
+        fileLength += slice.length();
+    }
+}
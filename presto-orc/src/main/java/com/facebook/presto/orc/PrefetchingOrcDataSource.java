@@ -0,0 +1,277 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc;
+
+import com.facebook.presto.orc.memory.AbstractAggregatedMemoryContext;
+import com.facebook.presto.orc.memory.LocalMemoryContext;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.primitives.Ints;
+import io.airlift.slice.FixedLengthSliceInput;
+import io.airlift.slice.Slices;
+import io.airlift.units.DataSize;
+
+import javax.annotation.concurrent.GuardedBy;
+
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+
+import static com.facebook.presto.orc.OrcDataSourceUtils.mergeAdjacentDiskRanges;
+import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Reads the regions of an upcoming stripe in the background, while the current stripe is
+ * decoded. Reads that are contained in a prefetched region are served from memory, and all
+ * other reads go to the underlying data source. Regions larger than the max read size are
+ * not prefetched, because they are streamed from the underlying data source anyway.
+ * The prefetched buffers are reserved in the system memory of the reader until the prefetch
+ * is replaced or the data source is closed.
+ * <p>
+ * This class is not thread safe. The prefetch only uses the underlying data source, which
+ * must support concurrent positional reads. Closing waits for a prefetch that is reading,
+ * so the underlying data source is not read after it is closed.
+ */
+public class PrefetchingOrcDataSource
+        implements OrcDataSource
+{
+    private final OrcDataSource dataSource;
+    private final Executor executor;
+    private final DataSize maxMergeDistance;
+    private final DataSize maxReadSize;
+    private final LocalMemoryContext prefetchMemoryUsage;
+
+    private final Object closeLock = new Object();
+    @GuardedBy("closeLock")
+    private boolean closed;
+
+    private DiskRange prefetchRange;
+    private Future<Map<DiskRange, byte[]>> prefetchBuffers;
+
+    private long prefetchHitCount;
+    private long prefetchWaitNanos;
+
+    public PrefetchingOrcDataSource(
+            OrcDataSource dataSource,
+            Executor executor,
+            DataSize maxMergeDistance,
+            DataSize maxReadSize,
+            AbstractAggregatedMemoryContext systemMemoryUsage)
+    {
+        this.dataSource = requireNonNull(dataSource, "dataSource is null");
+        this.executor = requireNonNull(executor, "executor is null");
+        this.maxMergeDistance = requireNonNull(maxMergeDistance, "maxMergeDistance is null");
+        this.maxReadSize = requireNonNull(maxReadSize, "maxReadSize is null");
+        this.prefetchMemoryUsage = requireNonNull(systemMemoryUsage, "systemMemoryUsage is null").newLocalMemoryContext();
+    }
+
+    /**
+     * Starts reading the disk ranges in the background, replacing any earlier prefetch.
+     * Only reads within {@code prefetchRange} wait for the prefetch to complete.
+     */
+    public void prefetch(DiskRange prefetchRange, List<DiskRange> diskRanges)
+    {
+        requireNonNull(prefetchRange, "prefetchRange is null");
+        requireNonNull(diskRanges, "diskRanges is null");
+
+        cancelPrefetch();
+
+        List<DiskRange> smallRanges = diskRanges.stream()
+                .filter(diskRange -> diskRange.getLength() <= maxReadSize.toBytes())
+                .collect(toList());
+        if (smallRanges.isEmpty()) {
+            return;
+        }
+        List<DiskRange> mergedRanges = mergeAdjacentDiskRanges(smallRanges, maxMergeDistance, maxReadSize);
+
+        // the buffers are allocated in the background, so they are reserved before the prefetch starts
+        prefetchMemoryUsage.setBytes(mergedRanges.stream()
+                .mapToLong(DiskRange::getLength)
+                .sum());
+
+        FutureTask<Map<DiskRange, byte[]>> task = new FutureTask<>(() -> {
+            synchronized (closeLock) {
+                if (closed) {
+                    return ImmutableMap.of();
+                }
+                return readDiskRanges(mergedRanges);
+            }
+        });
+        this.prefetchRange = prefetchRange;
+        this.prefetchBuffers = task;
+        executor.execute(task);
+    }
+
+    public long getPrefetchedBytes()
+    {
+        return prefetchMemoryUsage.getBytes();
+    }
+
+    private Map<DiskRange, byte[]> readDiskRanges(List<DiskRange> mergedRanges)
+            throws IOException
+    {
+        Map<DiskRange, byte[]> buffers = new LinkedHashMap<>();
+        for (DiskRange mergedRange : mergedRanges) {
+            byte[] buffer = new byte[mergedRange.getLength()];
+            dataSource.readFully(mergedRange.getOffset(), buffer);
+            buffers.put(mergedRange, buffer);
+        }
+        return buffers;
+    }
+
+    @Override
+    public long getReadBytes()
+    {
+        return dataSource.getReadBytes();
+    }
+
+    @Override
+    public long getReadTimeNanos()
+    {
+        return dataSource.getReadTimeNanos();
+    }
+
+    @Override
+    public long getPrefetchHitCount()
+    {
+        return prefetchHitCount;
+    }
+
+    @Override
+    public long getPrefetchWaitNanos()
+    {
+        return prefetchWaitNanos;
+    }
+
+    @Override
+    public long getSize()
+    {
+        return dataSource.getSize();
+    }
+
+    @Override
+    public void readFully(long position, byte[] buffer)
+            throws IOException
+    {
+        readFully(position, buffer, 0, buffer.length);
+    }
+
+    @Override
+    public void readFully(long position, byte[] buffer, int bufferOffset, int bufferLength)
+            throws IOException
+    {
+        DiskRange diskRange = new DiskRange(position, bufferLength);
+        for (Entry<DiskRange, byte[]> entry : getPrefetchedBuffers(diskRange).entrySet()) {
+            if (entry.getKey().contains(diskRange)) {
+                System.arraycopy(entry.getValue(), Ints.checkedCast(position - entry.getKey().getOffset()), buffer, bufferOffset, bufferLength);
+                prefetchHitCount++;
+                return;
+            }
+        }
+        dataSource.readFully(position, buffer, bufferOffset, bufferLength);
+    }
+
+    @Override
+    public <K> Map<K, FixedLengthSliceInput> readFully(Map<K, DiskRange> diskRanges)
+            throws IOException
+    {
+        ImmutableMap.Builder<K, FixedLengthSliceInput> slices = ImmutableMap.builder();
+        Map<K, DiskRange> remainingRanges = new LinkedHashMap<>();
+        for (Entry<K, DiskRange> entry : diskRanges.entrySet()) {
+            DiskRange diskRange = entry.getValue();
+            FixedLengthSliceInput slice = null;
+            for (Entry<DiskRange, byte[]> buffer : getPrefetchedBuffers(diskRange).entrySet()) {
+                if (buffer.getKey().contains(diskRange)) {
+                    int offset = Ints.checkedCast(diskRange.getOffset() - buffer.getKey().getOffset());
+                    slice = Slices.wrappedBuffer(buffer.getValue(), offset, diskRange.getLength()).getInput();
+                    break;
+                }
+            }
+            if (slice != null) {
+                slices.put(entry.getKey(), slice);
+                prefetchHitCount++;
+            }
+            else {
+                remainingRanges.put(entry.getKey(), diskRange);
+            }
+        }
+        if (!remainingRanges.isEmpty()) {
+            slices.putAll(dataSource.readFully(remainingRanges));
+        }
+        return slices.build();
+    }
+
+    private Map<DiskRange, byte[]> getPrefetchedBuffers(DiskRange diskRange)
+            throws IOException
+    {
+        if (prefetchBuffers == null || !prefetchRange.contains(diskRange)) {
+            return ImmutableMap.of();
+        }
+
+        long start = System.nanoTime();
+        boolean done = prefetchBuffers.isDone();
+        try {
+            return prefetchBuffers.get();
+        }
+        catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+        catch (ExecutionException e) {
+            // a failed prefetch is not fatal, the regions are read again
+            // from the underlying data source, which reports the error
+            cancelPrefetch();
+            return ImmutableMap.of();
+        }
+        finally {
+            if (!done) {
+                prefetchWaitNanos += System.nanoTime() - start;
+            }
+        }
+    }
+
+    private void cancelPrefetch()
+    {
+        if (prefetchBuffers != null) {
+            prefetchBuffers.cancel(false);
+        }
+        prefetchRange = null;
+        prefetchBuffers = null;
+        prefetchMemoryUsage.setBytes(0);
+    }
+
+    @Override
+    public void close()
+            throws IOException
+    {
+        cancelPrefetch();
+        synchronized (closeLock) {
+            closed = true;
+        }
+        dataSource.close();
+    }
+
+    @Override
+    public String toString()
+    {
+        return dataSource.toString();
+    }
+}
@@ -52,6 +52,7 @@ import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
+import java.util.Optional;
 import java.util.Set;
 
 import static com.facebook.presto.orc.checkpoint.Checkpoints.getDictionaryStreamCheckpoint;
@@ -77,6 +78,7 @@ public class StripeReader
     private final int rowsInRowGroup;
     private final OrcPredicate predicate;
     private final MetadataReader metadataReader;
+    private final OrcFileMetadataCache metadataCache;
 
     public StripeReader(OrcDataSource orcDataSource,
             CompressionKind compressionKind,
@@ -86,6 +88,19 @@ public class StripeReader
             int rowsInRowGroup,
             OrcPredicate predicate,
             MetadataReader metadataReader)
+    {
+        this(orcDataSource, compressionKind, types, bufferSize, includedColumns, rowsInRowGroup, predicate, metadataReader, OrcFileMetadataCache.NO_CACHE);
+    }
+
+    public StripeReader(OrcDataSource orcDataSource,
+            CompressionKind compressionKind,
+            List<OrcType> types,
+            int bufferSize,
+            Set<Integer> includedColumns,
+            int rowsInRowGroup,
+            OrcPredicate predicate,
+            MetadataReader metadataReader,
+            OrcFileMetadataCache metadataCache)
     {
         this.orcDataSource = requireNonNull(orcDataSource, "orcDataSource is null");
         this.compressionKind = requireNonNull(compressionKind, "compressionKind is null");
@@ -95,6 +110,7 @@ public class StripeReader
         this.rowsInRowGroup = rowsInRowGroup;
         this.predicate = requireNonNull(predicate, "predicate is null");
         this.metadataReader = requireNonNull(metadataReader, "metadataReader is null");
+        this.metadataCache = requireNonNull(metadataCache, "metadataCache is null");
     }
 
     public Stripe readStripe(StripeInformation stripe, AggregatedMemoryContext systemMemoryUsage)
@@ -120,18 +136,32 @@ public class StripeReader
 
         // handle stripes with more than one row group or a dictionary
         if ((stripe.getNumberOfRows() > rowsInRowGroup) || hasRowGroupDictionary) {
+            // use the cached row indexes if all included columns have them
+            Optional<Map<Integer, List<RowGroupIndex>>> cachedColumnIndexes = getCachedColumnIndexes(stripe, streams);
+
             // determine ranges of the stripe to read
             Map<StreamId, DiskRange> diskRanges = getDiskRanges(stripeFooter.getStreams());
-            diskRanges = Maps.filterKeys(diskRanges, Predicates.in(streams.keySet()));
+            if (cachedColumnIndexes.isPresent()) {
+                diskRanges = Maps.filterKeys(diskRanges, streamId -> streams.containsKey(streamId) && !isIndexStream(streams.get(streamId)));
+            }
+            else {
+                diskRanges = Maps.filterKeys(diskRanges, Predicates.in(streams.keySet()));
+            }
 
             // read the file regions
             Map<StreamId, OrcInputStream> streamsData = readDiskRanges(stripe.getOffset(), diskRanges, systemMemoryUsage);
 
-            // read the bloom filter for each column
-            Map<Integer, List<HiveBloomFilter>> bloomFilterIndexes = readBloomFilterIndexes(streams, streamsData);
+            Map<Integer, List<RowGroupIndex>> columnIndexes;
+            if (cachedColumnIndexes.isPresent()) {
+                columnIndexes = cachedColumnIndexes.get();
+            }
+            else {
+                // read the bloom filter for each column
+                Map<Integer, List<HiveBloomFilter>> bloomFilterIndexes = readBloomFilterIndexes(streams, streamsData);
 
-            // read the row index for each column
-            Map<Integer, List<RowGroupIndex>> columnIndexes = readColumnIndexes(streams, streamsData, bloomFilterIndexes);
+                // read the row index for each column
+                columnIndexes = readColumnIndexes(stripe, streams, streamsData, bloomFilterIndexes);
+            }
 
             // select the row groups matching the tuple domain
             Set<Integer> selectedRowGroups = selectRowGroups(stripe, columnIndexes);
@@ -317,8 +347,34 @@ public class StripeReader
         return new RowGroup(groupId, rowOffset, rowCount, rowGroupStreams);
     }
 
+    /**
+     * Returns the file regions of the stripe footer and of the streams of the included columns,
+     * which are the regions {@link #readStripe} reads for the stripe.
+     */
+    public List<DiskRange> getStripeDiskRanges(StripeInformation stripe, AbstractAggregatedMemoryContext systemMemoryUsage)
+            throws IOException
+    {
+        StripeFooter stripeFooter = readStripeFooter(stripe, systemMemoryUsage);
+
+        ImmutableList.Builder<DiskRange> diskRanges = ImmutableList.builder();
+        diskRanges.add(new DiskRange(stripe.getOffset() + stripe.getIndexLength() + stripe.getDataLength(), Ints.checkedCast(stripe.getFooterLength())));
+        for (Entry<StreamId, DiskRange> entry : getDiskRanges(stripeFooter.getStreams()).entrySet()) {
+            DiskRange diskRange = entry.getValue();
+            if (includedOrcColumns.contains(entry.getKey().getColumn()) && diskRange.getLength() > 0) {
+                diskRanges.add(new DiskRange(stripe.getOffset() + diskRange.getOffset(), diskRange.getLength()));
+            }
+        }
+        return diskRanges.build();
+    }
+
     public StripeFooter readStripeFooter(StripeInformation stripe, AbstractAggregatedMemoryContext systemMemoryUsage)
             throws IOException
+    {
+        return metadataCache.getStripeFooter(stripe, () -> loadStripeFooter(stripe, systemMemoryUsage));
+    }
+
+    private StripeFooter loadStripeFooter(StripeInformation stripe, AbstractAggregatedMemoryContext systemMemoryUsage)
+            throws IOException
     {
         long offset = stripe.getOffset() + stripe.getIndexLength() + stripe.getDataLength();
         int tailLength = Ints.checkedCast(stripe.getFooterLength());
@@ -345,7 +401,26 @@ public class StripeReader
         return bloomFilters.build();
     }
 
-    private Map<Integer, List<RowGroupIndex>> readColumnIndexes(Map<StreamId, Stream> streams, Map<StreamId, OrcInputStream> streamsData, Map<Integer, List<HiveBloomFilter>> bloomFilterIndexes)
+    private Optional<Map<Integer, List<RowGroupIndex>>> getCachedColumnIndexes(StripeInformation stripe, Map<StreamId, Stream> streams)
+    {
+        ImmutableMap.Builder<Integer, List<RowGroupIndex>> columnIndexes = ImmutableMap.builder();
+        for (Stream stream : streams.values()) {
+            if (stream.getStreamKind() == ROW_INDEX) {
+                Optional<List<RowGroupIndex>> rowGroupIndexes = metadataCache.getRowGroupIndexes(stripe, stream.getColumn());
+                if (!rowGroupIndexes.isPresent()) {
+                    return Optional.empty();
+                }
+                columnIndexes.put(stream.getColumn(), rowGroupIndexes.get());
+            }
+        }
+        return Optional.of(columnIndexes.build());
+    }
+
+    private Map<Integer, List<RowGroupIndex>> readColumnIndexes(
+            StripeInformation stripe,
+            Map<StreamId, Stream> streams,
+            Map<StreamId, OrcInputStream> streamsData,
+            Map<Integer, List<HiveBloomFilter>> bloomFilterIndexes)
             throws IOException
     {
         ImmutableMap.Builder<Integer, List<RowGroupIndex>> columnIndexes = ImmutableMap.builder();
@@ -366,6 +441,7 @@ public class StripeReader
                     rowGroupIndexes = newRowGroupIndexes.build();
                 }
                 columnIndexes.put(stream.getColumn(), rowGroupIndexes);
+                metadataCache.putRowGroupIndexes(stripe, stream.getColumn(), rowGroupIndexes, getIndexSize(streams, stream.getColumn()));
             }
         }
         return columnIndexes.build();
@@ -407,6 +483,17 @@ public class StripeReader
         return statistics.build();
     }
 
+    private static long getIndexSize(Map<StreamId, Stream> streams, int column)
+    {
+        long indexSize = 0;
+        for (Stream stream : streams.values()) {
+            if (stream.getColumn() == column && isIndexStream(stream)) {
+                indexSize += stream.getLength();
+            }
+        }
+        return indexSize;
+    }
+
     private static boolean isIndexStream(Stream stream)
     {
         return stream.getStreamKind() == ROW_INDEX || stream.getStreamKind() == DICTIONARY_COUNT || stream.getStreamKind() == BLOOM_FILTER;
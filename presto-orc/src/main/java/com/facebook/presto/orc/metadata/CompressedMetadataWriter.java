@@ -0,0 +1,82 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.metadata;
+
+import com.facebook.presto.orc.stream.OrcOutputBuffer;
+import io.airlift.slice.DynamicSliceOutput;
+import io.airlift.slice.Slice;
+
+import java.io.IOException;
+import java.util.List;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Writes the metadata sections that are stored compressed in the file, everything except the post script.
+ */
+public class CompressedMetadataWriter
+{
+    private final OrcMetadataWriter metadataWriter;
+    private final OrcOutputBuffer buffer;
+
+    public CompressedMetadataWriter(OrcMetadataWriter metadataWriter, CompressionKind compression, int bufferSize)
+    {
+        this.metadataWriter = requireNonNull(metadataWriter, "metadataWriter is null");
+        this.buffer = new OrcOutputBuffer(compression, bufferSize);
+    }
+
+    public Slice writeMetadata(Metadata metadata)
+            throws IOException
+    {
+        metadataWriter.writeMetadata(buffer, metadata);
+        return getSliceOutput();
+    }
+
+    public Slice writeFooter(Footer footer)
+            throws IOException
+    {
+        metadataWriter.writeFooter(buffer, footer);
+        return getSliceOutput();
+    }
+
+    public Slice writeStripeFooter(StripeFooter footer)
+            throws IOException
+    {
+        metadataWriter.writeStripeFooter(buffer, footer);
+        return getSliceOutput();
+    }
+
+    public Slice writeRowIndexes(List<RowGroupIndex> rowGroupIndexes)
+            throws IOException
+    {
+        metadataWriter.writeRowIndexes(buffer, rowGroupIndexes);
+        return getSliceOutput();
+    }
+
+    public Slice writeBloomFilters(List<HiveBloomFilter> bloomFilters)
+            throws IOException
+    {
+        metadataWriter.writeBloomFilters(buffer, bloomFilters);
+        return getSliceOutput();
+    }
+
+    private Slice getSliceOutput()
+    {
+        buffer.close();
+        DynamicSliceOutput output = new DynamicSliceOutput(buffer.getOutputDataSize());
+        buffer.writeDataTo(output);
+        buffer.reset();
+        return output.slice();
+    }
+}
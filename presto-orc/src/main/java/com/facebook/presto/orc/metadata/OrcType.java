@@ -57,8 +57,14 @@ public class OrcType
     private final List<String> fieldNames;
     private final Optional<Integer> precision;
     private final Optional<Integer> scale;
+    private final Optional<Integer> length;
 
     public OrcType(OrcTypeKind orcTypeKind, List<Integer> fieldTypeIndexes, List<String> fieldNames, Optional<Integer> precision, Optional<Integer> scale)
+    {
+        this(orcTypeKind, fieldTypeIndexes, fieldNames, precision, scale, Optional.empty());
+    }
+
+    public OrcType(OrcTypeKind orcTypeKind, List<Integer> fieldTypeIndexes, List<String> fieldNames, Optional<Integer> precision, Optional<Integer> scale, Optional<Integer> length)
     {
         this.orcTypeKind = requireNonNull(orcTypeKind, "typeKind is null");
         this.fieldTypeIndexes = ImmutableList.copyOf(requireNonNull(fieldTypeIndexes, "fieldTypeIndexes is null"));
@@ -71,6 +77,7 @@ public class OrcType
         }
         this.precision = requireNonNull(precision, "precision is null");
         this.scale = requireNonNull(scale, "scale can not be null");
+        this.length = requireNonNull(length, "length is null");
     }
 
     public OrcTypeKind getOrcTypeKind()
@@ -108,6 +115,11 @@ public class OrcType
         return scale;
     }
 
+    public Optional<Integer> getLength()
+    {
+        return length;
+    }
+
     @Override
     public String toString()
     {
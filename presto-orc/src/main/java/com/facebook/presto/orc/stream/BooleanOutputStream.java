@@ -0,0 +1,118 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.stream;
+
+import com.facebook.presto.orc.metadata.CompressionKind;
+import com.facebook.presto.orc.metadata.Stream.StreamKind;
+import com.google.common.collect.ImmutableList;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Bit packed booleans on top of a byte run length encoding, as read by {@link BooleanStream}.
+ */
+public class BooleanOutputStream
+        implements ValueOutputStream
+{
+    private final ByteOutputStream byteOutputStream;
+    private final List<List<Integer>> checkpoints = new ArrayList<>();
+
+    private int data;
+    private int bitsInData;
+
+    private boolean closed;
+
+    public BooleanOutputStream(CompressionKind compression, int bufferSize)
+    {
+        this.byteOutputStream = new ByteOutputStream(compression, bufferSize);
+    }
+
+    public void writeBoolean(boolean value)
+    {
+        if (value) {
+            data |= 0x1 << (7 - bitsInData);
+        }
+        bitsInData++;
+        if (bitsInData == 8) {
+            flushData();
+        }
+    }
+
+    private void flushData()
+    {
+        byteOutputStream.writeByte((byte) data);
+        data = 0;
+        bitsInData = 0;
+    }
+
+    @Override
+    public void recordCheckpoint()
+    {
+        checkState(!closed, "Stream is closed");
+        // the pending bits are written in the next byte, so the checkpoint is the offset in that byte
+        checkpoints.add(ImmutableList.<Integer>builder()
+                .addAll(byteOutputStream.getCurrentPositions())
+                .add(bitsInData)
+                .build());
+    }
+
+    @Override
+    public List<List<Integer>> getCheckpoints()
+    {
+        checkState(closed, "Stream must be closed before the checkpoints can be read");
+        return ImmutableList.copyOf(checkpoints);
+    }
+
+    @Override
+    public void close()
+    {
+        closed = true;
+        if (bitsInData > 0) {
+            flushData();
+        }
+        byteOutputStream.close();
+    }
+
+    @Override
+    public StreamDataOutput getStreamDataOutput(int column, StreamKind streamKind)
+    {
+        checkState(closed, "Stream must be closed");
+        return byteOutputStream.getStreamDataOutput(column, streamKind);
+    }
+
+    @Override
+    public long getBufferedBytes()
+    {
+        return byteOutputStream.getBufferedBytes() + 1;
+    }
+
+    @Override
+    public long getRetainedBytes()
+    {
+        return byteOutputStream.getRetainedBytes();
+    }
+
+    @Override
+    public void reset()
+    {
+        closed = false;
+        data = 0;
+        bitsInData = 0;
+        checkpoints.clear();
+        byteOutputStream.reset();
+    }
+}
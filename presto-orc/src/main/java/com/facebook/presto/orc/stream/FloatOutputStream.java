@@ -0,0 +1,95 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.stream;
+
+import com.facebook.presto.orc.metadata.CompressionKind;
+import com.facebook.presto.orc.metadata.Stream;
+import com.facebook.presto.orc.metadata.Stream.StreamKind;
+import com.google.common.collect.ImmutableList;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Little endian floats, as read by {@link FloatStream}.
+ */
+public class FloatOutputStream
+        implements ValueOutputStream
+{
+    private final OrcOutputBuffer buffer;
+    private final List<List<Integer>> checkpoints = new ArrayList<>();
+
+    private boolean closed;
+
+    public FloatOutputStream(CompressionKind compression, int bufferSize)
+    {
+        this.buffer = new OrcOutputBuffer(compression, bufferSize);
+    }
+
+    public void writeFloat(float value)
+    {
+        checkState(!closed, "Stream is closed");
+        buffer.writeFloat(value);
+    }
+
+    @Override
+    public void recordCheckpoint()
+    {
+        checkState(!closed, "Stream is closed");
+        checkpoints.add(buffer.getCheckpointPositions());
+    }
+
+    @Override
+    public List<List<Integer>> getCheckpoints()
+    {
+        checkState(closed, "Stream must be closed before the checkpoints can be read");
+        return ImmutableList.copyOf(checkpoints);
+    }
+
+    @Override
+    public void close()
+    {
+        closed = true;
+        buffer.close();
+    }
+
+    @Override
+    public StreamDataOutput getStreamDataOutput(int column, StreamKind streamKind)
+    {
+        checkState(closed, "Stream must be closed");
+        return new StreamDataOutput(buffer::writeDataTo, new Stream(column, streamKind, buffer.getOutputDataSize(), false));
+    }
+
+    @Override
+    public long getBufferedBytes()
+    {
+        return buffer.getBufferedBytes();
+    }
+
+    @Override
+    public long getRetainedBytes()
+    {
+        return buffer.getRetainedSize();
+    }
+
+    @Override
+    public void reset()
+    {
+        closed = false;
+        buffer.reset();
+        checkpoints.clear();
+    }
+}
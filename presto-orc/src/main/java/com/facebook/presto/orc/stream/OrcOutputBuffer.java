@@ -0,0 +1,275 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.stream;
+
+import com.facebook.presto.orc.metadata.CompressionKind;
+import com.google.common.collect.ImmutableList;
+import io.airlift.slice.DynamicSliceOutput;
+import io.airlift.slice.Slice;
+import io.airlift.slice.SliceOutput;
+import org.iq80.snappy.Snappy;
+
+import java.io.OutputStream;
+import java.util.List;
+import java.util.zip.Deflater;
+
+import static com.facebook.presto.orc.metadata.CompressionKind.SNAPPY;
+import static com.facebook.presto.orc.metadata.CompressionKind.UNCOMPRESSED;
+import static com.facebook.presto.orc.metadata.CompressionKind.ZLIB;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Buffers the data of a single stream and compresses it in chunks of at most
+ * {@code maxBufferSize} bytes. This is the write side of {@link OrcInputStream}.
+ */
+public class OrcOutputBuffer
+        extends OutputStream
+{
+    // the chunk header stores the length in 23 bits
+    private static final int MAX_CHUNK_SIZE = (1 << 23) - 1;
+    private static final int INITIAL_OUTPUT_SIZE = 1024;
+
+    private final CompressionKind compression;
+    private final int maxBufferSize;
+    private final DynamicSliceOutput compressedOutputStream = new DynamicSliceOutput(INITIAL_OUTPUT_SIZE);
+
+    private final byte[] buffer;
+    private int bufferPosition;
+
+    private final Deflater deflater;
+    private final byte[] compressionBuffer;
+
+    public OrcOutputBuffer(CompressionKind compression, int maxBufferSize)
+    {
+        this.compression = requireNonNull(compression, "compression is null");
+        checkArgument(maxBufferSize > 0 && maxBufferSize <= MAX_CHUNK_SIZE, "maxBufferSize must be between 1 and %s", MAX_CHUNK_SIZE);
+        this.maxBufferSize = maxBufferSize;
+        this.buffer = new byte[maxBufferSize];
+
+        if (compression == ZLIB) {
+            deflater = new Deflater(Deflater.DEFAULT_COMPRESSION, true);
+            compressionBuffer = new byte[maxBufferSize];
+        }
+        else if (compression == SNAPPY) {
+            deflater = null;
+            compressionBuffer = new byte[Snappy.maxCompressedLength(maxBufferSize)];
+        }
+        else {
+            checkArgument(compression == UNCOMPRESSED, "Unsupported compression %s", compression);
+            deflater = null;
+            compressionBuffer = null;
+        }
+    }
+
+    /**
+     * Returns the positions of the current write location, in the same form the
+     * reader expects them in a row group index: the start of the current compressed
+     * chunk followed by the offset in the decompressed chunk. Uncompressed streams
+     * only have a single position.
+     */
+    public List<Integer> getCheckpointPositions()
+    {
+        if (compression == UNCOMPRESSED) {
+            return ImmutableList.of(compressedOutputStream.size() + bufferPosition);
+        }
+        return ImmutableList.of(compressedOutputStream.size(), bufferPosition);
+    }
+
+    /**
+     * Size of the data written so far including the data not yet compressed.
+     */
+    public long getBufferedBytes()
+    {
+        return compressedOutputStream.size() + bufferPosition;
+    }
+
+    public long getRetainedSize()
+    {
+        return compressedOutputStream.getRetainedSize() + buffer.length + (compressionBuffer == null ? 0 : compressionBuffer.length);
+    }
+
+    /**
+     * Size of the stream in the file. The buffer must be flushed.
+     */
+    public int getOutputDataSize()
+    {
+        checkState(bufferPosition == 0, "Buffer must be flushed before getOutputDataSize can be called");
+        return compressedOutputStream.size();
+    }
+
+    public void writeDataTo(SliceOutput outputStream)
+    {
+        checkState(bufferPosition == 0, "Buffer must be flushed before writeDataTo can be called");
+        outputStream.writeBytes(compressedOutputStream.slice());
+    }
+
+    public void reset()
+    {
+        compressedOutputStream.reset();
+        bufferPosition = 0;
+    }
+
+    @Override
+    public void write(int value)
+    {
+        ensureWritableBytes(1);
+        buffer[bufferPosition++] = (byte) value;
+    }
+
+    @Override
+    public void write(byte[] source, int sourceIndex, int length)
+    {
+        while (length > 0) {
+            int batchSize = Math.min(length, maxBufferSize - bufferPosition);
+            System.arraycopy(source, sourceIndex, buffer, bufferPosition, batchSize);
+            bufferPosition += batchSize;
+            sourceIndex += batchSize;
+            length -= batchSize;
+            if (bufferPosition == maxBufferSize) {
+                flushBufferToOutputStream();
+            }
+        }
+    }
+
+    public void writeBytes(Slice source, int sourceIndex, int length)
+    {
+        while (length > 0) {
+            int batchSize = Math.min(length, maxBufferSize - bufferPosition);
+            source.getBytes(sourceIndex, buffer, bufferPosition, batchSize);
+            bufferPosition += batchSize;
+            sourceIndex += batchSize;
+            length -= batchSize;
+            if (bufferPosition == maxBufferSize) {
+                flushBufferToOutputStream();
+            }
+        }
+    }
+
+    public void writeLong(long value)
+    {
+        ensureWritableBytes(Long.BYTES);
+        for (int i = 0; i < Long.BYTES; i++) {
+            buffer[bufferPosition++] = (byte) value;
+            value >>>= 8;
+        }
+    }
+
+    public void writeInt(int value)
+    {
+        ensureWritableBytes(Integer.BYTES);
+        for (int i = 0; i < Integer.BYTES; i++) {
+            buffer[bufferPosition++] = (byte) value;
+            value >>>= 8;
+        }
+    }
+
+    public void writeDouble(double value)
+    {
+        writeLong(Double.doubleToLongBits(value));
+    }
+
+    public void writeFloat(float value)
+    {
+        writeInt(Float.floatToIntBits(value));
+    }
+
+    public void writeVLong(long value)
+    {
+        while ((value & ~0x7FL) != 0) {
+            write((int) ((value & 0x7F) | 0x80));
+            value >>>= 7;
+        }
+        write((int) value);
+    }
+
+    public void writeVLongSigned(long value)
+    {
+        // zig-zag encoding
+        writeVLong((value << 1) ^ (value >> 63));
+    }
+
+    @Override
+    public void flush()
+    {
+        flushBufferToOutputStream();
+    }
+
+    @Override
+    public void close()
+    {
+        flushBufferToOutputStream();
+    }
+
+    private void ensureWritableBytes(int length)
+    {
+        if (bufferPosition + length > maxBufferSize) {
+            flushBufferToOutputStream();
+        }
+    }
+
+    private void flushBufferToOutputStream()
+    {
+        if (bufferPosition > 0) {
+            writeChunkToOutputStream(buffer, 0, bufferPosition);
+            bufferPosition = 0;
+        }
+    }
+
+    private void writeChunkToOutputStream(byte[] chunk, int offset, int length)
+    {
+        if (compression == UNCOMPRESSED) {
+            compressedOutputStream.write(chunk, offset, length);
+            return;
+        }
+
+        int compressedSize = compress(chunk, offset, length);
+        if (compressedSize < length) {
+            writeChunkHeader(compressedSize, false);
+            compressedOutputStream.write(compressionBuffer, 0, compressedSize);
+        }
+        else {
+            // chunks that do not compress are stored as is
+            writeChunkHeader(length, true);
+            compressedOutputStream.write(chunk, offset, length);
+        }
+    }
+
+    private int compress(byte[] chunk, int offset, int length)
+    {
+        if (compression == SNAPPY) {
+            return Snappy.compress(chunk, offset, length, compressionBuffer, 0);
+        }
+
+        deflater.reset();
+        deflater.setInput(chunk, offset, length);
+        deflater.finish();
+        int compressedSize = deflater.deflate(compressionBuffer, 0, length);
+        if (!deflater.finished()) {
+            // the compressed chunk would be at least as large as the original
+            return Integer.MAX_VALUE;
+        }
+        return compressedSize;
+    }
+
+    private void writeChunkHeader(int length, boolean isOriginal)
+    {
+        // three byte little endian header: chunk length shifted left by one, low bit set for original data
+        int header = (length << 1) | (isOriginal ? 1 : 0);
+        compressedOutputStream.write(header & 0xFF);
+        compressedOutputStream.write((header >>> 8) & 0xFF);
+        compressedOutputStream.write((header >>> 16) & 0xFF);
+    }
+}
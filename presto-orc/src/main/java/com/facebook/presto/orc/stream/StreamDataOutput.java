@@ -0,0 +1,65 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.stream;
+
+import com.facebook.presto.orc.metadata.Stream;
+import io.airlift.slice.Slice;
+import io.airlift.slice.SliceOutput;
+
+import java.util.function.Consumer;
+
+import static com.google.common.base.MoreObjects.toStringHelper;
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.util.Objects.requireNonNull;
+
+public final class StreamDataOutput
+{
+    private final Stream stream;
+    private final Consumer<SliceOutput> writer;
+
+    public StreamDataOutput(Slice slice, Stream stream)
+    {
+        this(sliceOutput -> sliceOutput.writeBytes(slice), stream);
+        checkArgument(slice.length() == stream.getLength(), "slice length does not match stream length");
+    }
+
+    public StreamDataOutput(Consumer<SliceOutput> writer, Stream stream)
+    {
+        this.writer = requireNonNull(writer, "writer is null");
+        this.stream = requireNonNull(stream, "stream is null");
+    }
+
+    public Stream getStream()
+    {
+        return stream;
+    }
+
+    public long size()
+    {
+        return stream.getLength();
+    }
+
+    public void writeData(SliceOutput sliceOutput)
+    {
+        writer.accept(sliceOutput);
+    }
+
+    @Override
+    public String toString()
+    {
+        return toStringHelper(this)
+                .add("stream", stream)
+                .toString();
+    }
+}
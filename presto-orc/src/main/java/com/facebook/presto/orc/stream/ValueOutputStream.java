@@ -0,0 +1,45 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.stream;
+
+import com.facebook.presto.orc.metadata.Stream.StreamKind;
+
+import java.util.List;
+
+/**
+ * Write side of a {@link ValueStream}. Checkpoints are recorded at the start of
+ * every row group and are written to the row group index after the stream is closed.
+ */
+public interface ValueOutputStream
+{
+    void recordCheckpoint();
+
+    /**
+     * Positions of each recorded checkpoint, in the order the reader consumes them.
+     */
+    List<List<Integer>> getCheckpoints();
+
+    void close();
+
+    StreamDataOutput getStreamDataOutput(int column, StreamKind streamKind);
+
+    /**
+     * Estimated size of the stream in the file.
+     */
+    long getBufferedBytes();
+
+    long getRetainedBytes();
+
+    void reset();
+}
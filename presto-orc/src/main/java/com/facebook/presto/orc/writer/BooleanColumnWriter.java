@@ -0,0 +1,107 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.writer;
+
+import com.facebook.presto.orc.metadata.BooleanStatistics;
+import com.facebook.presto.orc.metadata.ColumnStatistics;
+import com.facebook.presto.orc.metadata.CompressionKind;
+import com.facebook.presto.orc.stream.BooleanOutputStream;
+import com.facebook.presto.orc.stream.StreamDataOutput;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+
+import java.util.List;
+import java.util.OptionalDouble;
+
+import static com.facebook.presto.orc.metadata.Stream.StreamKind.DATA;
+import static java.util.Objects.requireNonNull;
+
+public class BooleanColumnWriter
+        extends PrimitiveColumnWriter
+{
+    private final Type type;
+    private final BooleanOutputStream dataStream;
+
+    private long trueValueCount;
+
+    public BooleanColumnWriter(int column, Type type, CompressionKind compression, int bufferSize, int rowGroupMaxRowCount)
+    {
+        // bloom filters on booleans are not useful
+        super(column, compression, bufferSize, OptionalDouble.empty(), rowGroupMaxRowCount);
+        this.type = requireNonNull(type, "type is null");
+        this.dataStream = new BooleanOutputStream(compression, bufferSize);
+    }
+
+    @Override
+    protected void beginValueRowGroup()
+    {
+        dataStream.recordCheckpoint();
+    }
+
+    @Override
+    protected void writeValue(Block block, int position)
+    {
+        boolean value = type.getBoolean(block, position);
+        dataStream.writeBoolean(value);
+        if (value) {
+            trueValueCount++;
+        }
+    }
+
+    @Override
+    protected ColumnStatistics finishValueRowGroup(long valueCount)
+    {
+        ColumnStatistics statistics = new ColumnStatistics(valueCount, new BooleanStatistics(trueValueCount), null, null, null, null, null, null);
+        trueValueCount = 0;
+        return statistics;
+    }
+
+    @Override
+    protected void closeValueStreams()
+    {
+        dataStream.close();
+    }
+
+    @Override
+    protected List<List<Integer>> getValueCheckpoints()
+    {
+        return dataStream.getCheckpoints();
+    }
+
+    @Override
+    protected List<StreamDataOutput> getValueStreams()
+    {
+        return ImmutableList.of(dataStream.getStreamDataOutput(column, DATA));
+    }
+
+    @Override
+    protected long getValueBufferedBytes()
+    {
+        return dataStream.getBufferedBytes();
+    }
+
+    @Override
+    protected long getValueRetainedBytes()
+    {
+        return dataStream.getRetainedBytes();
+    }
+
+    @Override
+    protected void resetValueStreams()
+    {
+        dataStream.reset();
+        trueValueCount = 0;
+    }
+}
@@ -0,0 +1,151 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.writer;
+
+import com.facebook.presto.orc.metadata.BooleanStatistics;
+import com.facebook.presto.orc.metadata.ColumnStatistics;
+import com.facebook.presto.orc.metadata.DateStatistics;
+import com.facebook.presto.orc.metadata.DoubleStatistics;
+import com.facebook.presto.orc.metadata.IntegerStatistics;
+import com.facebook.presto.orc.metadata.StringStatistics;
+import io.airlift.slice.Slice;
+
+import java.util.List;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+
+/**
+ * Combines the statistics of row groups into stripe statistics and the statistics of stripes into file statistics.
+ */
+public final class ColumnStatisticsMerger
+{
+    private ColumnStatisticsMerger() {}
+
+    public static ColumnStatistics mergeColumnStatistics(List<ColumnStatistics> statisticsList)
+    {
+        long numberOfValues = 0;
+        for (ColumnStatistics statistics : statisticsList) {
+            if (statistics.hasNumberOfValues()) {
+                numberOfValues += statistics.getNumberOfValues();
+            }
+        }
+
+        return new ColumnStatistics(
+                numberOfValues,
+                mergeBooleanStatistics(statisticsList),
+                mergeIntegerStatistics(statisticsList),
+                mergeDoubleStatistics(statisticsList),
+                mergeStringStatistics(statisticsList),
+                mergeDateStatistics(statisticsList),
+                null,
+                null);
+    }
+
+    private static BooleanStatistics mergeBooleanStatistics(List<ColumnStatistics> statisticsList)
+    {
+        long trueValueCount = 0;
+        for (ColumnStatistics statistics : statisticsList) {
+            if (statistics.getBooleanStatistics() == null) {
+                return null;
+            }
+            trueValueCount += statistics.getBooleanStatistics().getTrueValueCount();
+        }
+        return statisticsList.isEmpty() ? null : new BooleanStatistics(trueValueCount);
+    }
+
+    private static IntegerStatistics mergeIntegerStatistics(List<ColumnStatistics> statisticsList)
+    {
+        for (ColumnStatistics statistics : statisticsList) {
+            if (statistics.getIntegerStatistics() == null) {
+                return null;
+            }
+        }
+        if (statisticsList.isEmpty()) {
+            return null;
+        }
+        return new IntegerStatistics(
+                merge(statisticsList, statistics -> statistics.getIntegerStatistics().getMin(), Math::min),
+                merge(statisticsList, statistics -> statistics.getIntegerStatistics().getMax(), Math::max));
+    }
+
+    private static DoubleStatistics mergeDoubleStatistics(List<ColumnStatistics> statisticsList)
+    {
+        for (ColumnStatistics statistics : statisticsList) {
+            if (statistics.getDoubleStatistics() == null) {
+                return null;
+            }
+        }
+        if (statisticsList.isEmpty()) {
+            return null;
+        }
+        return new DoubleStatistics(
+                merge(statisticsList, statistics -> statistics.getDoubleStatistics().getMin(), Math::min),
+                merge(statisticsList, statistics -> statistics.getDoubleStatistics().getMax(), Math::max));
+    }
+
+    private static StringStatistics mergeStringStatistics(List<ColumnStatistics> statisticsList)
+    {
+        for (ColumnStatistics statistics : statisticsList) {
+            if (statistics.getStringStatistics() == null) {
+                return null;
+            }
+        }
+        if (statisticsList.isEmpty()) {
+            return null;
+        }
+        return new StringStatistics(
+                merge(statisticsList, statistics -> statistics.getStringStatistics().getMin(), ColumnStatisticsMerger::minSlice),
+                merge(statisticsList, statistics -> statistics.getStringStatistics().getMax(), ColumnStatisticsMerger::maxSlice));
+    }
+
+    private static DateStatistics mergeDateStatistics(List<ColumnStatistics> statisticsList)
+    {
+        for (ColumnStatistics statistics : statisticsList) {
+            if (statistics.getDateStatistics() == null) {
+                return null;
+            }
+        }
+        if (statisticsList.isEmpty()) {
+            return null;
+        }
+        return new DateStatistics(
+                merge(statisticsList, statistics -> statistics.getDateStatistics().getMin(), Math::min),
+                merge(statisticsList, statistics -> statistics.getDateStatistics().getMax(), Math::max));
+    }
+
+    /**
+     * Merges the non-null values, as a null minimum or maximum means the row group only contains nulls.
+     */
+    private static <T> T merge(List<ColumnStatistics> statisticsList, Function<ColumnStatistics, T> getter, BinaryOperator<T> operator)
+    {
+        T result = null;
+        for (ColumnStatistics statistics : statisticsList) {
+            T value = getter.apply(statistics);
+            if (value != null) {
+                result = (result == null) ? value : operator.apply(result, value);
+            }
+        }
+        return result;
+    }
+
+    private static Slice minSlice(Slice left, Slice right)
+    {
+        return left.compareTo(right) <= 0 ? left : right;
+    }
+
+    private static Slice maxSlice(Slice left, Slice right)
+    {
+        return left.compareTo(right) >= 0 ? left : right;
+    }
+}
@@ -0,0 +1,61 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.writer;
+
+import com.facebook.presto.orc.metadata.ColumnEncoding;
+import com.facebook.presto.orc.metadata.ColumnStatistics;
+import com.facebook.presto.orc.metadata.CompressedMetadataWriter;
+import com.facebook.presto.orc.stream.StreamDataOutput;
+import com.facebook.presto.spi.block.Block;
+
+import java.io.IOException;
+import java.util.List;
+
+/**
+ * Writes the values of a single column of a stripe. A stripe is written by calling
+ * {@link #beginRowGroup()}, {@link #writeBlock(Block)} and {@link #finishRowGroup()}
+ * for every row group followed by {@link #close()}; after the streams are written out
+ * {@link #reset()} prepares the writer for the next stripe.
+ */
+public interface ColumnWriter
+{
+    void beginRowGroup();
+
+    void writeBlock(Block block);
+
+    void finishRowGroup();
+
+    void close();
+
+    /**
+     * Encoding of the column in the closed stripe.
+     */
+    ColumnEncoding getColumnEncoding();
+
+    ColumnStatistics getColumnStripeStatistics();
+
+    List<StreamDataOutput> getIndexStreams(CompressedMetadataWriter metadataWriter)
+            throws IOException;
+
+    List<StreamDataOutput> getDataStreams();
+
+    /**
+     * Estimated size of the stripe data buffered by this writer.
+     */
+    long getBufferedBytes();
+
+    long getRetainedBytes();
+
+    void reset();
+}
@@ -0,0 +1,134 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.writer;
+
+import com.facebook.presto.orc.metadata.CompressionKind;
+import com.facebook.presto.orc.metadata.OrcType;
+import com.facebook.presto.orc.metadata.OrcType.OrcTypeKind;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spi.type.VarcharType;
+import com.google.common.collect.ImmutableList;
+import org.joda.time.DateTimeZone;
+
+import java.util.Optional;
+import java.util.OptionalDouble;
+
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.spi.type.DateType.DATE;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.IntegerType.INTEGER;
+import static com.facebook.presto.spi.type.RealType.REAL;
+import static com.facebook.presto.spi.type.SmallintType.SMALLINT;
+import static com.facebook.presto.spi.type.TimestampType.TIMESTAMP;
+import static com.facebook.presto.spi.type.TinyintType.TINYINT;
+import static com.facebook.presto.spi.type.VarbinaryType.VARBINARY;
+import static com.facebook.presto.spi.type.VarcharType.MAX_LENGTH;
+
+public final class ColumnWriters
+{
+    private ColumnWriters() {}
+
+    public static boolean isSupportedType(Type type)
+    {
+        return toOrcTypeKind(type).isPresent();
+    }
+
+    public static OrcType toOrcType(Type type)
+    {
+        OrcTypeKind orcTypeKind = toOrcTypeKind(type)
+                .orElseThrow(() -> new IllegalArgumentException("Unsupported type: " + type));
+
+        Optional<Integer> length = Optional.empty();
+        if (orcTypeKind == OrcTypeKind.VARCHAR) {
+            length = Optional.of(((VarcharType) type).getLength());
+        }
+        return new OrcType(orcTypeKind, ImmutableList.of(), ImmutableList.of(), Optional.empty(), Optional.empty(), length);
+    }
+
+    private static Optional<OrcTypeKind> toOrcTypeKind(Type type)
+    {
+        if (BOOLEAN.equals(type)) {
+            return Optional.of(OrcTypeKind.BOOLEAN);
+        }
+        if (TINYINT.equals(type)) {
+            return Optional.of(OrcTypeKind.BYTE);
+        }
+        if (SMALLINT.equals(type)) {
+            return Optional.of(OrcTypeKind.SHORT);
+        }
+        if (INTEGER.equals(type)) {
+            return Optional.of(OrcTypeKind.INT);
+        }
+        if (BIGINT.equals(type)) {
+            return Optional.of(OrcTypeKind.LONG);
+        }
+        if (REAL.equals(type)) {
+            return Optional.of(OrcTypeKind.FLOAT);
+        }
+        if (DOUBLE.equals(type)) {
+            return Optional.of(OrcTypeKind.DOUBLE);
+        }
+        if (DATE.equals(type)) {
+            return Optional.of(OrcTypeKind.DATE);
+        }
+        if (TIMESTAMP.equals(type)) {
+            return Optional.of(OrcTypeKind.TIMESTAMP);
+        }
+        if (VARBINARY.equals(type)) {
+            return Optional.of(OrcTypeKind.BINARY);
+        }
+        if (type instanceof VarcharType) {
+            return Optional.of(((VarcharType) type).getLength() == MAX_LENGTH ? OrcTypeKind.STRING : OrcTypeKind.VARCHAR);
+        }
+        return Optional.empty();
+    }
+
+    public static ColumnWriter createColumnWriter(
+            int column,
+            Type type,
+            CompressionKind compression,
+            int bufferSize,
+            OptionalDouble bloomFilterFpp,
+            int rowGroupMaxRowCount,
+            long maxDictionaryMemory,
+            DateTimeZone hiveStorageTimeZone)
+    {
+        OrcTypeKind orcTypeKind = toOrcType(type).getOrcTypeKind();
+        switch (orcTypeKind) {
+            case BOOLEAN:
+                return new BooleanColumnWriter(column, type, compression, bufferSize, rowGroupMaxRowCount);
+            case BYTE:
+                return new ByteColumnWriter(column, type, compression, bufferSize, bloomFilterFpp, rowGroupMaxRowCount);
+            case SHORT:
+            case INT:
+            case LONG:
+            case DATE:
+                return new LongColumnWriter(column, type, compression, bufferSize, bloomFilterFpp, rowGroupMaxRowCount);
+            case FLOAT:
+                return new FloatColumnWriter(column, type, compression, bufferSize, bloomFilterFpp, rowGroupMaxRowCount);
+            case DOUBLE:
+                return new DoubleColumnWriter(column, type, compression, bufferSize, bloomFilterFpp, rowGroupMaxRowCount);
+            case TIMESTAMP:
+                return new TimestampColumnWriter(column, type, compression, bufferSize, bloomFilterFpp, rowGroupMaxRowCount, hiveStorageTimeZone);
+            case STRING:
+            case VARCHAR:
+                return new SliceColumnWriter(column, true, compression, bufferSize, bloomFilterFpp, rowGroupMaxRowCount, maxDictionaryMemory);
+            case BINARY:
+                return new SliceColumnWriter(column, false, compression, bufferSize, bloomFilterFpp, rowGroupMaxRowCount, maxDictionaryMemory);
+            default:
+                throw new IllegalArgumentException("Unsupported type: " + type);
+        }
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.writer;
+
+import com.facebook.presto.orc.metadata.ColumnStatistics;
+import com.facebook.presto.orc.metadata.CompressionKind;
+import com.facebook.presto.orc.metadata.DoubleStatistics;
+import com.facebook.presto.orc.stream.DoubleOutputStream;
+import com.facebook.presto.orc.stream.StreamDataOutput;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import org.apache.hive.common.util.BloomFilter;
+
+import java.util.List;
+import java.util.OptionalDouble;
+
+import static com.facebook.presto.orc.metadata.Stream.StreamKind.DATA;
+import static java.util.Objects.requireNonNull;
+
+public class DoubleColumnWriter
+        extends PrimitiveColumnWriter
+{
+    private final Type type;
+    private final DoubleOutputStream dataStream;
+
+    private double minimum = Double.POSITIVE_INFINITY;
+    private double maximum = Double.NEGATIVE_INFINITY;
+    private boolean hasNaN;
+
+    public DoubleColumnWriter(int column, Type type, CompressionKind compression, int bufferSize, OptionalDouble bloomFilterFpp, int rowGroupMaxRowCount)
+    {
+        super(column, compression, bufferSize, bloomFilterFpp, rowGroupMaxRowCount);
+        this.type = requireNonNull(type, "type is null");
+        this.dataStream = new DoubleOutputStream(compression, bufferSize);
+    }
+
+    @Override
+    protected void beginValueRowGroup()
+    {
+        dataStream.recordCheckpoint();
+    }
+
+    @Override
+    protected void writeValue(Block block, int position)
+    {
+        double value = type.getDouble(block, position);
+        dataStream.writeDouble(value);
+        if (Double.isNaN(value)) {
+            hasNaN = true;
+        }
+        else {
+            minimum = Math.min(minimum, value);
+            maximum = Math.max(maximum, value);
+        }
+
+        BloomFilter bloomFilter = getBloomFilter();
+        if (bloomFilter != null) {
+            bloomFilter.addDouble(value);
+        }
+    }
+
+    @Override
+    protected ColumnStatistics finishValueRowGroup(long valueCount)
+    {
+        // the reader ignores range statistics that contain NaN, so they are omitted
+        DoubleStatistics doubleStatistics = (valueCount == 0 || hasNaN) ? new DoubleStatistics(null, null) : new DoubleStatistics(minimum, maximum);
+        minimum = Double.POSITIVE_INFINITY;
+        maximum = Double.NEGATIVE_INFINITY;
+        hasNaN = false;
+        return new ColumnStatistics(valueCount, null, null, doubleStatistics, null, null, null, null);
+    }
+
+    @Override
+    protected void closeValueStreams()
+    {
+        dataStream.close();
+    }
+
+    @Override
+    protected List<List<Integer>> getValueCheckpoints()
+    {
+        return dataStream.getCheckpoints();
+    }
+
+    @Override
+    protected List<StreamDataOutput> getValueStreams()
+    {
+        return ImmutableList.of(dataStream.getStreamDataOutput(column, DATA));
+    }
+
+    @Override
+    protected long getValueBufferedBytes()
+    {
+        return dataStream.getBufferedBytes();
+    }
+
+    @Override
+    protected long getValueRetainedBytes()
+    {
+        return dataStream.getRetainedBytes();
+    }
+
+    @Override
+    protected void resetValueStreams()
+    {
+        dataStream.reset();
+        minimum = Double.POSITIVE_INFINITY;
+        maximum = Double.NEGATIVE_INFINITY;
+        hasNaN = false;
+    }
+}
@@ -0,0 +1,130 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.writer;
+
+import com.facebook.presto.orc.metadata.ColumnStatistics;
+import com.facebook.presto.orc.metadata.CompressionKind;
+import com.facebook.presto.orc.metadata.DateStatistics;
+import com.facebook.presto.orc.metadata.IntegerStatistics;
+import com.facebook.presto.orc.stream.LongOutputStreamV1;
+import com.facebook.presto.orc.stream.StreamDataOutput;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import org.apache.hive.common.util.BloomFilter;
+
+import java.util.List;
+import java.util.OptionalDouble;
+
+import static com.facebook.presto.orc.metadata.Stream.StreamKind.DATA;
+import static com.facebook.presto.spi.type.DateType.DATE;
+import static java.lang.Math.toIntExact;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Writer for SHORT, INT, LONG and DATE columns.
+ */
+public class LongColumnWriter
+        extends PrimitiveColumnWriter
+{
+    private final Type type;
+    private final boolean dateStatistics;
+    private final LongOutputStreamV1 dataStream;
+
+    private long minimum = Long.MAX_VALUE;
+    private long maximum = Long.MIN_VALUE;
+
+    public LongColumnWriter(int column, Type type, CompressionKind compression, int bufferSize, OptionalDouble bloomFilterFpp, int rowGroupMaxRowCount)
+    {
+        super(column, compression, bufferSize, bloomFilterFpp, rowGroupMaxRowCount);
+        this.type = requireNonNull(type, "type is null");
+        this.dateStatistics = type.equals(DATE);
+        this.dataStream = new LongOutputStreamV1(compression, bufferSize, true);
+    }
+
+    @Override
+    protected void beginValueRowGroup()
+    {
+        dataStream.recordCheckpoint();
+    }
+
+    @Override
+    protected void writeValue(Block block, int position)
+    {
+        long value = type.getLong(block, position);
+        dataStream.writeLong(value);
+        minimum = Math.min(minimum, value);
+        maximum = Math.max(maximum, value);
+
+        BloomFilter bloomFilter = getBloomFilter();
+        if (bloomFilter != null) {
+            bloomFilter.addLong(value);
+        }
+    }
+
+    @Override
+    protected ColumnStatistics finishValueRowGroup(long valueCount)
+    {
+        ColumnStatistics statistics;
+        if (dateStatistics) {
+            DateStatistics statisticsValue = valueCount == 0 ? new DateStatistics(null, null) : new DateStatistics(toIntExact(minimum), toIntExact(maximum));
+            statistics = new ColumnStatistics(valueCount, null, null, null, null, statisticsValue, null, null);
+        }
+        else {
+            IntegerStatistics statisticsValue = valueCount == 0 ? new IntegerStatistics(null, null) : new IntegerStatistics(minimum, maximum);
+            statistics = new ColumnStatistics(valueCount, null, statisticsValue, null, null, null, null, null);
+        }
+        minimum = Long.MAX_VALUE;
+        maximum = Long.MIN_VALUE;
+        return statistics;
+    }
+
+    @Override
+    protected void closeValueStreams()
+    {
+        dataStream.close();
+    }
+
+    @Override
+    protected List<List<Integer>> getValueCheckpoints()
+    {
+        return dataStream.getCheckpoints();
+    }
+
+    @Override
+    protected List<StreamDataOutput> getValueStreams()
+    {
+        return ImmutableList.of(dataStream.getStreamDataOutput(column, DATA));
+    }
+
+    @Override
+    protected long getValueBufferedBytes()
+    {
+        return dataStream.getBufferedBytes();
+    }
+
+    @Override
+    protected long getValueRetainedBytes()
+    {
+        return dataStream.getRetainedBytes();
+    }
+
+    @Override
+    protected void resetValueStreams()
+    {
+        dataStream.reset();
+        minimum = Long.MAX_VALUE;
+        maximum = Long.MIN_VALUE;
+    }
+}
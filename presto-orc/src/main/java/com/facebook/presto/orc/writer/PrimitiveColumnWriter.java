@@ -0,0 +1,242 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.writer;
+
+import com.facebook.presto.orc.metadata.ColumnEncoding;
+import com.facebook.presto.orc.metadata.ColumnStatistics;
+import com.facebook.presto.orc.metadata.CompressedMetadataWriter;
+import com.facebook.presto.orc.metadata.CompressionKind;
+import com.facebook.presto.orc.metadata.HiveBloomFilter;
+import com.facebook.presto.orc.metadata.RowGroupIndex;
+import com.facebook.presto.orc.metadata.Stream;
+import com.facebook.presto.orc.stream.BooleanOutputStream;
+import com.facebook.presto.orc.stream.StreamDataOutput;
+import com.facebook.presto.spi.block.Block;
+import com.google.common.collect.ImmutableList;
+import io.airlift.slice.Slice;
+import org.apache.hive.common.util.BloomFilter;
+
+import javax.annotation.Nullable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.OptionalDouble;
+
+import static com.facebook.presto.orc.metadata.ColumnEncoding.ColumnEncodingKind.DIRECT;
+import static com.facebook.presto.orc.metadata.Stream.StreamKind.BLOOM_FILTER;
+import static com.facebook.presto.orc.metadata.Stream.StreamKind.PRESENT;
+import static com.facebook.presto.orc.metadata.Stream.StreamKind.ROW_INDEX;
+import static com.facebook.presto.orc.writer.ColumnStatisticsMerger.mergeColumnStatistics;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Common handling of the present stream, the row group index and the bloom filters
+ * of a column without nested columns.
+ */
+public abstract class PrimitiveColumnWriter
+        implements ColumnWriter
+{
+    private static final ColumnEncoding COLUMN_ENCODING = new ColumnEncoding(DIRECT, 0);
+
+    protected final int column;
+    private final BooleanOutputStream presentStream;
+    private final OptionalDouble bloomFilterFpp;
+    private final int rowGroupMaxRowCount;
+
+    private final List<ColumnStatistics> rowGroupColumnStatistics = new ArrayList<>();
+    private final List<HiveBloomFilter> rowGroupBloomFilters = new ArrayList<>();
+    private BloomFilter bloomFilter;
+    private int rowGroupValueCount;
+    private boolean hasNulls;
+    private boolean closed;
+
+    protected PrimitiveColumnWriter(int column, CompressionKind compression, int bufferSize, OptionalDouble bloomFilterFpp, int rowGroupMaxRowCount)
+    {
+        checkArgument(column > 0, "column is not positive");
+        checkArgument(rowGroupMaxRowCount > 0, "rowGroupMaxRowCount is not positive");
+        this.column = column;
+        this.presentStream = new BooleanOutputStream(compression, bufferSize);
+        this.bloomFilterFpp = requireNonNull(bloomFilterFpp, "bloomFilterFpp is null");
+        this.rowGroupMaxRowCount = rowGroupMaxRowCount;
+    }
+
+    /**
+     * Records the checkpoints of the value streams at the start of a row group.
+     */
+    protected abstract void beginValueRowGroup();
+
+    protected abstract void writeValue(Block block, int position);
+
+    /**
+     * Returns the statistics of the values written since the last call and clears them.
+     */
+    protected abstract ColumnStatistics finishValueRowGroup(long valueCount);
+
+    protected abstract void closeValueStreams();
+
+    /**
+     * Positions of the value streams for each row group, in the order the reader consumes them.
+     */
+    protected abstract List<List<Integer>> getValueCheckpoints();
+
+    protected abstract List<StreamDataOutput> getValueStreams();
+
+    protected abstract long getValueBufferedBytes();
+
+    protected abstract long getValueRetainedBytes();
+
+    protected abstract void resetValueStreams();
+
+    @Override
+    public ColumnEncoding getColumnEncoding()
+    {
+        return COLUMN_ENCODING;
+    }
+
+    /**
+     * Bloom filter of the current row group, or null if bloom filters are not enabled for this column.
+     */
+    @Nullable
+    protected BloomFilter getBloomFilter()
+    {
+        return bloomFilter;
+    }
+
+    @Override
+    public void beginRowGroup()
+    {
+        checkState(!closed, "Column writer is closed");
+        presentStream.recordCheckpoint();
+        beginValueRowGroup();
+        if (bloomFilterFpp.isPresent()) {
+            bloomFilter = new BloomFilter(rowGroupMaxRowCount, bloomFilterFpp.getAsDouble());
+        }
+    }
+
+    @Override
+    public void writeBlock(Block block)
+    {
+        checkState(!closed, "Column writer is closed");
+        for (int position = 0; position < block.getPositionCount(); position++) {
+            if (block.isNull(position)) {
+                presentStream.writeBoolean(false);
+                hasNulls = true;
+            }
+            else {
+                presentStream.writeBoolean(true);
+                writeValue(block, position);
+                rowGroupValueCount++;
+            }
+        }
+    }
+
+    @Override
+    public void finishRowGroup()
+    {
+        checkState(!closed, "Column writer is closed");
+        rowGroupColumnStatistics.add(finishValueRowGroup(rowGroupValueCount));
+        if (bloomFilter != null) {
+            rowGroupBloomFilters.add(new HiveBloomFilter(bloomFilter));
+            bloomFilter = null;
+        }
+        rowGroupValueCount = 0;
+    }
+
+    @Override
+    public void close()
+    {
+        closed = true;
+        presentStream.close();
+        closeValueStreams();
+    }
+
+    @Override
+    public ColumnStatistics getColumnStripeStatistics()
+    {
+        checkState(closed, "Column writer is not closed");
+        return mergeColumnStatistics(rowGroupColumnStatistics);
+    }
+
+    @Override
+    public List<StreamDataOutput> getIndexStreams(CompressedMetadataWriter metadataWriter)
+            throws IOException
+    {
+        checkState(closed, "Column writer is not closed");
+
+        List<List<Integer>> presentCheckpoints = presentStream.getCheckpoints();
+        List<List<Integer>> valueCheckpoints = getValueCheckpoints();
+        checkState(valueCheckpoints.size() == rowGroupColumnStatistics.size(), "Expected %s value checkpoints, but got %s", rowGroupColumnStatistics.size(), valueCheckpoints.size());
+
+        ImmutableList.Builder<RowGroupIndex> rowGroupIndexes = ImmutableList.builder();
+        for (int rowGroup = 0; rowGroup < rowGroupColumnStatistics.size(); rowGroup++) {
+            ImmutableList.Builder<Integer> positions = ImmutableList.builder();
+            // the present stream is only written when the stripe contains nulls
+            if (hasNulls) {
+                positions.addAll(presentCheckpoints.get(rowGroup));
+            }
+            positions.addAll(valueCheckpoints.get(rowGroup));
+            rowGroupIndexes.add(new RowGroupIndex(positions.build(), rowGroupColumnStatistics.get(rowGroup)));
+        }
+
+        ImmutableList.Builder<StreamDataOutput> indexStreams = ImmutableList.builder();
+        Slice rowIndex = metadataWriter.writeRowIndexes(rowGroupIndexes.build());
+        indexStreams.add(new StreamDataOutput(rowIndex, new Stream(column, ROW_INDEX, rowIndex.length(), false)));
+        if (!rowGroupBloomFilters.isEmpty()) {
+            Slice bloomFilters = metadataWriter.writeBloomFilters(rowGroupBloomFilters);
+            indexStreams.add(new StreamDataOutput(bloomFilters, new Stream(column, BLOOM_FILTER, bloomFilters.length(), false)));
+        }
+        return indexStreams.build();
+    }
+
+    @Override
+    public List<StreamDataOutput> getDataStreams()
+    {
+        checkState(closed, "Column writer is not closed");
+
+        ImmutableList.Builder<StreamDataOutput> dataStreams = ImmutableList.builder();
+        if (hasNulls) {
+            dataStreams.add(presentStream.getStreamDataOutput(column, PRESENT));
+        }
+        dataStreams.addAll(getValueStreams());
+        return dataStreams.build();
+    }
+
+    @Override
+    public long getBufferedBytes()
+    {
+        return presentStream.getBufferedBytes() + getValueBufferedBytes();
+    }
+
+    @Override
+    public long getRetainedBytes()
+    {
+        return presentStream.getRetainedBytes() + getValueRetainedBytes();
+    }
+
+    @Override
+    public void reset()
+    {
+        closed = false;
+        presentStream.reset();
+        resetValueStreams();
+        rowGroupColumnStatistics.clear();
+        rowGroupBloomFilters.clear();
+        bloomFilter = null;
+        rowGroupValueCount = 0;
+        hasNulls = false;
+    }
+}
@@ -0,0 +1,323 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.writer;
+
+import com.facebook.presto.orc.metadata.ColumnEncoding;
+import com.facebook.presto.orc.metadata.ColumnStatistics;
+import com.facebook.presto.orc.metadata.CompressionKind;
+import com.facebook.presto.orc.metadata.StringStatistics;
+import com.facebook.presto.orc.stream.ByteArrayOutputStream;
+import com.facebook.presto.orc.stream.LongOutputStreamV1;
+import com.facebook.presto.orc.stream.StreamDataOutput;
+import com.facebook.presto.spi.block.Block;
+import com.google.common.collect.ImmutableList;
+import io.airlift.slice.Slice;
+import io.airlift.slice.Slices;
+import it.unimi.dsi.fastutil.ints.AbstractIntComparator;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrays;
+import org.apache.hive.common.util.BloomFilter;
+
+import java.util.List;
+import java.util.OptionalDouble;
+
+import static com.facebook.presto.orc.metadata.ColumnEncoding.ColumnEncodingKind.DICTIONARY;
+import static com.facebook.presto.orc.metadata.ColumnEncoding.ColumnEncodingKind.DIRECT;
+import static com.facebook.presto.orc.metadata.Stream.StreamKind.DATA;
+import static com.facebook.presto.orc.metadata.Stream.StreamKind.DICTIONARY_DATA;
+import static com.facebook.presto.orc.metadata.Stream.StreamKind.LENGTH;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Writer for STRING, VARCHAR and BINARY columns. Values are collected in a dictionary
+ * until the end of the stripe. The stripe is written with direct encoding instead when the
+ * dictionary does not reduce the number of values enough, or when the dictionary uses more
+ * memory than allowed, in which case the values seen so far are written out immediately.
+ */
+public class SliceColumnWriter
+        extends PrimitiveColumnWriter
+{
+    // same as the default of hive.exec.orc.dictionary.key.size.threshold
+    private static final double DICTIONARY_KEY_SIZE_THRESHOLD = 0.8;
+    private static final int EXPECTED_DICTIONARY_ENTRIES = 1024;
+
+    private final boolean stringStatisticsEnabled;
+    private final long maxDictionaryMemory;
+
+    // direct encoding: DATA and LENGTH, dictionary encoding: DICTIONARY_DATA and LENGTH
+    private final ByteArrayOutputStream dataStream;
+    private final LongOutputStreamV1 lengthStream;
+    // dictionary encoding: DATA
+    private final LongOutputStreamV1 dictionaryIdStream;
+
+    private final SliceDictionaryBuilder dictionary = new SliceDictionaryBuilder(EXPECTED_DICTIONARY_ENTRIES);
+    private int[] dictionaryIds = new int[EXPECTED_DICTIONARY_ENTRIES];
+    private int valueCount;
+    private final IntArrayList rowGroupValueCounts = new IntArrayList();
+    private boolean inRowGroup;
+    private boolean directEncoded;
+    private int dictionarySize;
+
+    private Slice minimum;
+    private Slice maximum;
+
+    public SliceColumnWriter(
+            int column,
+            boolean stringStatisticsEnabled,
+            CompressionKind compression,
+            int bufferSize,
+            OptionalDouble bloomFilterFpp,
+            int rowGroupMaxRowCount,
+            long maxDictionaryMemory)
+    {
+        super(column, compression, bufferSize, bloomFilterFpp, rowGroupMaxRowCount);
+        this.stringStatisticsEnabled = stringStatisticsEnabled;
+        this.maxDictionaryMemory = maxDictionaryMemory;
+        this.dataStream = new ByteArrayOutputStream(compression, bufferSize);
+        this.lengthStream = new LongOutputStreamV1(compression, bufferSize, false);
+        this.dictionaryIdStream = new LongOutputStreamV1(compression, bufferSize, false);
+    }
+
+    @Override
+    public ColumnEncoding getColumnEncoding()
+    {
+        if (directEncoded) {
+            return new ColumnEncoding(DIRECT, 0);
+        }
+        return new ColumnEncoding(DICTIONARY, dictionarySize);
+    }
+
+    @Override
+    protected void beginValueRowGroup()
+    {
+        inRowGroup = true;
+        if (directEncoded) {
+            dataStream.recordCheckpoint();
+            lengthStream.recordCheckpoint();
+        }
+    }
+
+    @Override
+    protected void writeValue(Block block, int position)
+    {
+        int length = block.getLength(position);
+        if (directEncoded) {
+            writeDirect(block.getSlice(position, 0, length));
+        }
+        else {
+            if (valueCount == dictionaryIds.length) {
+                dictionaryIds = IntArrays.grow(dictionaryIds, valueCount + 1);
+            }
+            dictionaryIds[valueCount] = dictionary.putIfAbsent(block, position);
+            valueCount++;
+            if (dictionary.getSizeInBytes() > maxDictionaryMemory) {
+                convertToDirect();
+            }
+        }
+
+        if (stringStatisticsEnabled) {
+            if (minimum == null || block.bytesCompare(position, 0, length, minimum, 0, minimum.length()) < 0) {
+                minimum = Slices.copyOf(block.getSlice(position, 0, length));
+            }
+            if (maximum == null || block.bytesCompare(position, 0, length, maximum, 0, maximum.length()) > 0) {
+                maximum = Slices.copyOf(block.getSlice(position, 0, length));
+            }
+        }
+
+        BloomFilter bloomFilter = getBloomFilter();
+        if (bloomFilter != null) {
+            bloomFilter.addBytes(block.getSlice(position, 0, length).getBytes());
+        }
+    }
+
+    private void writeDirect(Slice value)
+    {
+        dataStream.writeSlice(value);
+        lengthStream.writeLong(value.length());
+    }
+
+    @Override
+    protected ColumnStatistics finishValueRowGroup(long valueCount)
+    {
+        inRowGroup = false;
+        if (!directEncoded) {
+            rowGroupValueCounts.add((int) valueCount);
+        }
+
+        StringStatistics stringStatistics = null;
+        if (stringStatisticsEnabled) {
+            stringStatistics = new StringStatistics(minimum, maximum);
+        }
+        minimum = null;
+        maximum = null;
+        return new ColumnStatistics(valueCount, null, null, null, stringStatistics, null, null, null);
+    }
+
+    /**
+     * Writes the values collected in the dictionary with direct encoding, including
+     * the checkpoints of the completed row groups and the current row group.
+     */
+    private void convertToDirect()
+    {
+        directEncoded = true;
+
+        int valueIndex = 0;
+        for (int rowGroup = 0; rowGroup < rowGroupValueCounts.size(); rowGroup++) {
+            dataStream.recordCheckpoint();
+            lengthStream.recordCheckpoint();
+            int rowGroupValueCount = rowGroupValueCounts.getInt(rowGroup);
+            for (int i = 0; i < rowGroupValueCount; i++) {
+                writeDirect(dictionary.getValue(dictionaryIds[valueIndex]));
+                valueIndex++;
+            }
+        }
+
+        if (inRowGroup) {
+            dataStream.recordCheckpoint();
+            lengthStream.recordCheckpoint();
+            for (; valueIndex < valueCount; valueIndex++) {
+                writeDirect(dictionary.getValue(dictionaryIds[valueIndex]));
+            }
+        }
+        checkState(valueIndex == valueCount, "Not all values were written");
+
+        dictionary.clear();
+        valueCount = 0;
+        rowGroupValueCounts.clear();
+    }
+
+    @Override
+    protected void closeValueStreams()
+    {
+        checkState(!inRowGroup, "Row group is not finished");
+        if (!directEncoded) {
+            int entryCount = dictionary.getEntryCount();
+            if (valueCount == 0 || entryCount > DICTIONARY_KEY_SIZE_THRESHOLD * valueCount) {
+                convertToDirect();
+            }
+            else {
+                writeDictionary();
+            }
+        }
+        dataStream.close();
+        lengthStream.close();
+        dictionaryIdStream.close();
+    }
+
+    private void writeDictionary()
+    {
+        // the dictionary is written in sorted order, like the Hive writer does
+        int entryCount = dictionary.getEntryCount();
+        int[] sortedIds = new int[entryCount];
+        for (int id = 0; id < entryCount; id++) {
+            sortedIds[id] = id;
+        }
+        IntArrays.quickSort(sortedIds, 0, entryCount, new AbstractIntComparator()
+        {
+            @Override
+            public int compare(int left, int right)
+            {
+                return dictionary.compare(left, right);
+            }
+        });
+
+        int[] originalToSortedIds = new int[entryCount];
+        for (int sortedId = 0; sortedId < entryCount; sortedId++) {
+            int id = sortedIds[sortedId];
+            originalToSortedIds[id] = sortedId;
+            writeDirect(dictionary.getValue(id));
+        }
+
+        int valueIndex = 0;
+        for (int rowGroup = 0; rowGroup < rowGroupValueCounts.size(); rowGroup++) {
+            dictionaryIdStream.recordCheckpoint();
+            int rowGroupValueCount = rowGroupValueCounts.getInt(rowGroup);
+            for (int i = 0; i < rowGroupValueCount; i++) {
+                dictionaryIdStream.writeLong(originalToSortedIds[dictionaryIds[valueIndex]]);
+                valueIndex++;
+            }
+        }
+        dictionarySize = entryCount;
+    }
+
+    @Override
+    protected List<List<Integer>> getValueCheckpoints()
+    {
+        if (!directEncoded) {
+            return dictionaryIdStream.getCheckpoints();
+        }
+
+        List<List<Integer>> dataCheckpoints = dataStream.getCheckpoints();
+        List<List<Integer>> lengthCheckpoints = lengthStream.getCheckpoints();
+        ImmutableList.Builder<List<Integer>> checkpoints = ImmutableList.builder();
+        for (int rowGroup = 0; rowGroup < dataCheckpoints.size(); rowGroup++) {
+            checkpoints.add(ImmutableList.<Integer>builder()
+                    .addAll(dataCheckpoints.get(rowGroup))
+                    .addAll(lengthCheckpoints.get(rowGroup))
+                    .build());
+        }
+        return checkpoints.build();
+    }
+
+    @Override
+    protected List<StreamDataOutput> getValueStreams()
+    {
+        if (directEncoded) {
+            return ImmutableList.of(
+                    dataStream.getStreamDataOutput(column, DATA),
+                    lengthStream.getStreamDataOutput(column, LENGTH));
+        }
+        return ImmutableList.of(
+                dictionaryIdStream.getStreamDataOutput(column, DATA),
+                dataStream.getStreamDataOutput(column, DICTIONARY_DATA),
+                lengthStream.getStreamDataOutput(column, LENGTH));
+    }
+
+    @Override
+    protected long getValueBufferedBytes()
+    {
+        long bufferedBytes = dataStream.getBufferedBytes() + lengthStream.getBufferedBytes() + dictionaryIdStream.getBufferedBytes();
+        if (!directEncoded) {
+            // estimate of the dictionary ids written at the end of the stripe
+            bufferedBytes += dictionary.getSizeInBytes() + (Integer.BYTES * (long) valueCount);
+        }
+        return bufferedBytes;
+    }
+
+    @Override
+    protected long getValueRetainedBytes()
+    {
+        return dataStream.getRetainedBytes() +
+                lengthStream.getRetainedBytes() +
+                dictionaryIdStream.getRetainedBytes() +
+                dictionary.getRetainedSizeInBytes() +
+                (Integer.BYTES * (long) dictionaryIds.length);
+    }
+
+    @Override
+    protected void resetValueStreams()
+    {
+        dataStream.reset();
+        lengthStream.reset();
+        dictionaryIdStream.reset();
+        dictionary.clear();
+        valueCount = 0;
+        rowGroupValueCounts.clear();
+        inRowGroup = false;
+        directEncoded = false;
+        dictionarySize = 0;
+        minimum = null;
+        maximum = null;
+    }
+}
@@ -0,0 +1,150 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.writer;
+
+import com.facebook.presto.spi.block.Block;
+import io.airlift.slice.DynamicSliceOutput;
+import io.airlift.slice.Slice;
+
+import java.util.Arrays;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static it.unimi.dsi.fastutil.HashCommon.arraySize;
+import static it.unimi.dsi.fastutil.HashCommon.murmurHash3;
+
+/**
+ * Assigns ids to distinct slice values in the order they are first seen.
+ * The values are stored back to back in a single slice.
+ */
+public class SliceDictionaryBuilder
+{
+    private static final float FILL_RATIO = 0.75f;
+    private static final int EMPTY_SLOT = -1;
+
+    private final DynamicSliceOutput values;
+    private int[] offsets;
+    private long[] valueHashes;
+    private int entryCount;
+
+    private int[] hashTable;
+    private int hashMask;
+    private int maxFill;
+
+    public SliceDictionaryBuilder(int expectedEntries)
+    {
+        checkArgument(expectedEntries > 0, "expectedEntries must be positive");
+        this.values = new DynamicSliceOutput(expectedEntries * 8);
+        this.offsets = new int[expectedEntries + 1];
+        this.valueHashes = new long[expectedEntries];
+        initializeHashTable(arraySize(expectedEntries, FILL_RATIO));
+    }
+
+    public int getEntryCount()
+    {
+        return entryCount;
+    }
+
+    public long getSizeInBytes()
+    {
+        return values.size() + (Integer.BYTES * (long) offsets.length) + (Long.BYTES * (long) valueHashes.length) + (Integer.BYTES * (long) hashTable.length);
+    }
+
+    public long getRetainedSizeInBytes()
+    {
+        return values.getRetainedSize() + (Integer.BYTES * (long) offsets.length) + (Long.BYTES * (long) valueHashes.length) + (Integer.BYTES * (long) hashTable.length);
+    }
+
+    public int getLength(int id)
+    {
+        return offsets[id + 1] - offsets[id];
+    }
+
+    /**
+     * Returns a view of the value. The view is only valid until the next value is added.
+     */
+    public Slice getValue(int id)
+    {
+        return values.getUnderlyingSlice().slice(offsets[id], getLength(id));
+    }
+
+    public int compare(int leftId, int rightId)
+    {
+        Slice data = values.getUnderlyingSlice();
+        return data.compareTo(offsets[leftId], getLength(leftId), data, offsets[rightId], getLength(rightId));
+    }
+
+    public int putIfAbsent(Block block, int position)
+    {
+        int length = block.getLength(position);
+        long hash = block.hash(position, 0, length);
+
+        int slot = getHashPosition(hash);
+        while (hashTable[slot] != EMPTY_SLOT) {
+            int id = hashTable[slot];
+            if (valueHashes[id] == hash && getLength(id) == length && block.bytesEqual(position, 0, values.getUnderlyingSlice(), offsets[id], length)) {
+                return id;
+            }
+            slot = (slot + 1) & hashMask;
+        }
+
+        int id = entryCount;
+        if (id + 1 >= offsets.length) {
+            int newSize = offsets.length * 2;
+            offsets = Arrays.copyOf(offsets, newSize);
+            valueHashes = Arrays.copyOf(valueHashes, newSize);
+        }
+        values.writeBytes(block.getSlice(position, 0, length));
+        offsets[id + 1] = values.size();
+        valueHashes[id] = hash;
+        entryCount++;
+
+        hashTable[slot] = id;
+        if (entryCount >= maxFill) {
+            rehash();
+        }
+        return id;
+    }
+
+    public void clear()
+    {
+        values.reset();
+        entryCount = 0;
+        Arrays.fill(hashTable, EMPTY_SLOT);
+    }
+
+    private int getHashPosition(long hash)
+    {
+        return (int) (murmurHash3(hash) & hashMask);
+    }
+
+    private void rehash()
+    {
+        initializeHashTable(hashTable.length * 2);
+        for (int id = 0; id < entryCount; id++) {
+            int slot = getHashPosition(valueHashes[id]);
+            while (hashTable[slot] != EMPTY_SLOT) {
+                slot = (slot + 1) & hashMask;
+            }
+            hashTable[slot] = id;
+        }
+    }
+
+    private void initializeHashTable(int hashSize)
+    {
+        hashTable = new int[hashSize];
+        Arrays.fill(hashTable, EMPTY_SLOT);
+        hashMask = hashSize - 1;
+        maxFill = (int) (hashSize * FILL_RATIO);
+    }
+}
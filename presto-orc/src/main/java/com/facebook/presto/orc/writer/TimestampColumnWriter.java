@@ -0,0 +1,165 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc.writer;
+
+import com.facebook.presto.orc.metadata.ColumnStatistics;
+import com.facebook.presto.orc.metadata.CompressionKind;
+import com.facebook.presto.orc.stream.LongOutputStreamV1;
+import com.facebook.presto.orc.stream.StreamDataOutput;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import org.apache.hive.common.util.BloomFilter;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+
+import java.util.List;
+import java.util.OptionalDouble;
+
+import static com.facebook.presto.orc.metadata.Stream.StreamKind.DATA;
+import static com.facebook.presto.orc.metadata.Stream.StreamKind.SECONDARY;
+import static java.lang.Math.floorMod;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Writes timestamps as seconds relative to 2015-01-01 in the data stream and
+ * the encoded nanoseconds in the secondary stream, see {@link com.facebook.presto.orc.reader.TimestampStreamReader}.
+ */
+public class TimestampColumnWriter
+        extends PrimitiveColumnWriter
+{
+    private static final int MILLIS_PER_SECOND = 1000;
+    private static final int NANOS_PER_MILLI = 1_000_000;
+
+    private final Type type;
+    private final long baseTimestampInSeconds;
+    private final LongOutputStreamV1 secondsStream;
+    private final LongOutputStreamV1 nanosStream;
+
+    public TimestampColumnWriter(
+            int column,
+            Type type,
+            CompressionKind compression,
+            int bufferSize,
+            OptionalDouble bloomFilterFpp,
+            int rowGroupMaxRowCount,
+            DateTimeZone hiveStorageTimeZone)
+    {
+        super(column, compression, bufferSize, bloomFilterFpp, rowGroupMaxRowCount);
+        this.type = requireNonNull(type, "type is null");
+        this.baseTimestampInSeconds = new DateTime(2015, 1, 1, 0, 0, requireNonNull(hiveStorageTimeZone, "hiveStorageTimeZone is null")).getMillis() / MILLIS_PER_SECOND;
+        this.secondsStream = new LongOutputStreamV1(compression, bufferSize, true);
+        this.nanosStream = new LongOutputStreamV1(compression, bufferSize, false);
+    }
+
+    @Override
+    protected void beginValueRowGroup()
+    {
+        secondsStream.recordCheckpoint();
+        nanosStream.recordCheckpoint();
+    }
+
+    @Override
+    protected void writeValue(Block block, int position)
+    {
+        long millis = type.getLong(block, position);
+
+        // same as the Hive writer: seconds are truncated towards zero and nanos are always positive
+        long seconds = (millis / MILLIS_PER_SECOND) - baseTimestampInSeconds;
+        long nanos = floorMod(millis, MILLIS_PER_SECOND) * NANOS_PER_MILLI;
+
+        secondsStream.writeLong(seconds);
+        nanosStream.writeLong(encodeNanos(nanos));
+
+        BloomFilter bloomFilter = getBloomFilter();
+        if (bloomFilter != null) {
+            bloomFilter.addLong(millis);
+        }
+    }
+
+    // This comes from the Apache Hive ORC code
+    private static long encodeNanos(long nanos)
+    {
+        if (nanos == 0) {
+            return 0;
+        }
+        if (nanos % 100 != 0) {
+            return nanos << 3;
+        }
+
+        nanos /= 100;
+        int trailingZeros = 1;
+        while (nanos % 10 == 0 && trailingZeros < 7) {
+            nanos /= 10;
+            trailingZeros++;
+        }
+        return (nanos << 3) | trailingZeros;
+    }
+
+    @Override
+    protected ColumnStatistics finishValueRowGroup(long valueCount)
+    {
+        return new ColumnStatistics(valueCount, null, null, null, null, null, null, null);
+    }
+
+    @Override
+    protected void closeValueStreams()
+    {
+        secondsStream.close();
+        nanosStream.close();
+    }
+
+    @Override
+    protected List<List<Integer>> getValueCheckpoints()
+    {
+        List<List<Integer>> secondsCheckpoints = secondsStream.getCheckpoints();
+        List<List<Integer>> nanosCheckpoints = nanosStream.getCheckpoints();
+
+        ImmutableList.Builder<List<Integer>> checkpoints = ImmutableList.builder();
+        for (int rowGroup = 0; rowGroup < secondsCheckpoints.size(); rowGroup++) {
+            checkpoints.add(ImmutableList.<Integer>builder()
+                    .addAll(secondsCheckpoints.get(rowGroup))
+                    .addAll(nanosCheckpoints.get(rowGroup))
+                    .build());
+        }
+        return checkpoints.build();
+    }
+
+    @Override
+    protected List<StreamDataOutput> getValueStreams()
+    {
+        return ImmutableList.of(
+                secondsStream.getStreamDataOutput(column, DATA),
+                nanosStream.getStreamDataOutput(column, SECONDARY));
+    }
+
+    @Override
+    protected long getValueBufferedBytes()
+    {
+        return secondsStream.getBufferedBytes() + nanosStream.getBufferedBytes();
+    }
+
+    @Override
+    protected long getValueRetainedBytes()
+    {
+        return secondsStream.getRetainedBytes() + nanosStream.getRetainedBytes();
+    }
+
+    @Override
+    protected void resetValueStreams()
+    {
+        secondsStream.reset();
+        nanosStream.reset();
+    }
+}
@@ -0,0 +1,321 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc;
+
+import com.facebook.presto.orc.OrcTester.TempFile;
+import com.facebook.presto.orc.memory.AggregatedMemoryContext;
+import com.facebook.presto.orc.metadata.ColumnEncoding.ColumnEncodingKind;
+import com.facebook.presto.orc.metadata.CompressionKind;
+import com.facebook.presto.orc.metadata.IntegerStatistics;
+import com.facebook.presto.orc.metadata.OrcMetadataReader;
+import com.facebook.presto.orc.metadata.StripeFooter;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.BlockBuilderStatus;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import io.airlift.slice.Slices;
+import io.airlift.units.DataSize;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.ql.io.orc.OrcFile;
+import org.apache.hadoop.hive.ql.io.orc.Reader;
+import org.apache.hadoop.hive.ql.io.orc.RecordReader;
+import org.apache.hadoop.hive.serde2.objectinspector.StructObjectInspector;
+import org.apache.hadoop.io.LongWritable;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static com.facebook.presto.orc.OrcTester.HIVE_STORAGE_TIME_ZONE;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.spi.type.DateType.DATE;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.IntegerType.INTEGER;
+import static com.facebook.presto.spi.type.RealType.REAL;
+import static com.facebook.presto.spi.type.SmallintType.SMALLINT;
+import static com.facebook.presto.spi.type.TimestampType.TIMESTAMP;
+import static com.facebook.presto.spi.type.TinyintType.TINYINT;
+import static com.facebook.presto.spi.type.VarbinaryType.VARBINARY;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static com.facebook.presto.spi.type.VarcharType.createVarcharType;
+import static com.facebook.presto.testing.TestingConnectorSession.SESSION;
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static java.lang.Float.floatToRawIntBits;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
+import static org.testng.Assert.assertTrue;
+
+public class TestOrcWriter
+{
+    private static final List<Type> TYPES = ImmutableList.of(BOOLEAN, TINYINT, SMALLINT, INTEGER, BIGINT, REAL, DOUBLE, DATE, TIMESTAMP, VARCHAR, createVarcharType(20), VARBINARY);
+    private static final List<String> COLUMN_NAMES = ImmutableList.of("boolean", "tinyint", "smallint", "integer", "bigint", "real", "double", "date", "timestamp", "dictionary", "direct", "varbinary");
+    private static final int BIGINT_COLUMN = 4;
+    private static final int ROW_COUNT = 42_000;
+    private static final int ROWS_PER_PAGE = 1_000;
+
+    @DataProvider(name = "compression")
+    public static Object[][] compression()
+    {
+        return new Object[][] {{CompressionKind.UNCOMPRESSED}, {CompressionKind.ZLIB}, {CompressionKind.SNAPPY}};
+    }
+
+    @Test(dataProvider = "compression")
+    public void testRoundTrip(CompressionKind compression)
+            throws Exception
+    {
+        OrcWriterOptions options = new OrcWriterOptions()
+                .withStripeMaxRowCount(25_000)
+                .withBloomFilterColumns(ImmutableSet.of("bigint", "dictionary"), 0.05);
+        try (TempFile tempFile = new TempFile()) {
+            List<Page> pages = createPages();
+            writeFile(tempFile, compression, options, pages);
+
+            OrcReader orcReader = createReader(tempFile);
+            assertEquals(orcReader.getColumnNames(), COLUMN_NAMES);
+            assertEquals(orcReader.getCompressionKind(), compression);
+            assertEquals(orcReader.getFooter().getNumberOfRows(), ROW_COUNT);
+            assertEquals(orcReader.getFooter().getStripes().size(), 2);
+            assertEquals(orcReader.getFooter().getUserMetadata().get("key"), Slices.utf8Slice("value"));
+
+            IntegerStatistics bigintStatistics = orcReader.getFooter().getFileStats().get(BIGINT_COLUMN + 1).getIntegerStatistics();
+            assertEquals(bigintStatistics.getMin().longValue(), 0);
+            assertEquals(bigintStatistics.getMax().longValue(), ROW_COUNT - 1);
+
+            assertEquals(readValues(orcReader, OrcPredicate.TRUE), getValues(pages, 0, ROW_COUNT));
+
+            // select the third row group by its statistics, which requires the row group checkpoints of all columns
+            OrcPredicate predicate = (numberOfRows, statisticsByColumnIndex) -> {
+                IntegerStatistics statistics = statisticsByColumnIndex.get(BIGINT_COLUMN).getIntegerStatistics();
+                return statistics.getMin() <= 20_000 && 20_000 <= statistics.getMax();
+            };
+            assertEquals(readValues(createReader(tempFile), predicate), getValues(pages, 20_000, 5_000));
+
+            assertHiveReadable(tempFile);
+        }
+    }
+
+    @Test
+    public void testDictionaryEncoding()
+            throws Exception
+    {
+        try (TempFile tempFile = new TempFile()) {
+            List<Page> pages = createPages();
+            writeFile(tempFile, CompressionKind.ZLIB, new OrcWriterOptions(), pages);
+
+            StripeFooter stripeFooter = readFirstStripeFooter(tempFile);
+            assertEquals(stripeFooter.getColumnEncodings().get(10).getColumnEncodingKind(), ColumnEncodingKind.DICTIONARY);
+            assertEquals(stripeFooter.getColumnEncodings().get(10).getDictionarySize(), 10);
+            assertEquals(stripeFooter.getColumnEncodings().get(11).getColumnEncodingKind(), ColumnEncodingKind.DIRECT);
+        }
+    }
+
+    @Test
+    public void testDictionaryMemoryLimit()
+            throws Exception
+    {
+        // the dictionary exceeds the limit in the middle of a row group and the buffered values are written with direct encoding
+        OrcWriterOptions options = new OrcWriterOptions()
+                .withDictionaryMaxMemory(new DataSize(100_000, BYTE));
+        try (TempFile tempFile = new TempFile()) {
+            List<Page> pages = createPages();
+            writeFile(tempFile, CompressionKind.SNAPPY, options, pages);
+
+            StripeFooter stripeFooter = readFirstStripeFooter(tempFile);
+            assertEquals(stripeFooter.getColumnEncodings().get(10).getColumnEncodingKind(), ColumnEncodingKind.DICTIONARY);
+            assertEquals(stripeFooter.getColumnEncodings().get(11).getColumnEncodingKind(), ColumnEncodingKind.DIRECT);
+
+            assertEquals(readValues(createReader(tempFile), OrcPredicate.TRUE), getValues(pages, 0, ROW_COUNT));
+        }
+    }
+
+    private static void writeFile(TempFile tempFile, CompressionKind compression, OrcWriterOptions options, List<Page> pages)
+            throws Exception
+    {
+        try (OutputStream outputStream = new FileOutputStream(tempFile.getFile());
+                OrcWriter writer = new OrcWriter(outputStream, COLUMN_NAMES, TYPES, compression, options, ImmutableMap.of("key", "value"), HIVE_STORAGE_TIME_ZONE)) {
+            for (Page page : pages) {
+                writer.write(page);
+            }
+            assertEquals(writer.getRowCount(), ROW_COUNT);
+        }
+    }
+
+    private static List<Page> createPages()
+    {
+        List<Page> pages = new ArrayList<>();
+        for (int start = 0; start < ROW_COUNT; start += ROWS_PER_PAGE) {
+            Block[] blocks = new Block[TYPES.size()];
+            for (int channel = 0; channel < TYPES.size(); channel++) {
+                Type type = TYPES.get(channel);
+                BlockBuilder blockBuilder = type.createBlockBuilder(new BlockBuilderStatus(), ROWS_PER_PAGE);
+                for (int row = start; row < start + ROWS_PER_PAGE; row++) {
+                    // the bigint column is used to select row groups, so it has no nulls
+                    if (channel != BIGINT_COLUMN && row % 7 == 0) {
+                        blockBuilder.appendNull();
+                    }
+                    else {
+                        appendValue(type, channel, row, blockBuilder);
+                    }
+                }
+                blocks[channel] = blockBuilder.build();
+            }
+            pages.add(new Page(blocks));
+        }
+        return pages;
+    }
+
+    private static void appendValue(Type type, int channel, int row, BlockBuilder blockBuilder)
+    {
+        switch (channel) {
+            case 0:
+                type.writeBoolean(blockBuilder, row % 3 == 0);
+                break;
+            case 1:
+                type.writeLong(blockBuilder, (byte) row);
+                break;
+            case 2:
+                type.writeLong(blockBuilder, (short) (row * 3));
+                break;
+            case 3:
+                type.writeLong(blockBuilder, row * 1000L - 20_000_000);
+                break;
+            case 4:
+                type.writeLong(blockBuilder, row);
+                break;
+            case 5:
+                type.writeLong(blockBuilder, floatToRawIntBits(row / 3.0f));
+                break;
+            case 6:
+                type.writeDouble(blockBuilder, row == 1 ? Double.NaN : row * 0.25);
+                break;
+            case 7:
+                type.writeLong(blockBuilder, row - 10_000);
+                break;
+            case 8:
+                type.writeLong(blockBuilder, (row - 20_000) * 123_456_789L);
+                break;
+            case 9:
+                type.writeSlice(blockBuilder, Slices.utf8Slice("value " + (row % 10)));
+                break;
+            case 10:
+                type.writeSlice(blockBuilder, Slices.utf8Slice("direct " + row));
+                break;
+            case 11:
+                type.writeSlice(blockBuilder, Slices.wrappedBuffer(new byte[] {(byte) row, (byte) (row >> 8), (byte) (row >> 16)}));
+                break;
+            default:
+                throw new IllegalArgumentException("Unexpected channel " + channel);
+        }
+    }
+
+    private static OrcReader createReader(TempFile tempFile)
+            throws Exception
+    {
+        OrcDataSource orcDataSource = new FileOrcDataSource(tempFile.getFile(), new DataSize(1, MEGABYTE), new DataSize(1, MEGABYTE), new DataSize(1, MEGABYTE));
+        return new OrcReader(orcDataSource, new OrcMetadataReader(), new DataSize(1, MEGABYTE), new DataSize(1, MEGABYTE));
+    }
+
+    private static StripeFooter readFirstStripeFooter(TempFile tempFile)
+            throws Exception
+    {
+        OrcReader orcReader = createReader(tempFile);
+        OrcDataSource orcDataSource = new FileOrcDataSource(tempFile.getFile(), new DataSize(1, MEGABYTE), new DataSize(1, MEGABYTE), new DataSize(1, MEGABYTE));
+        StripeReader stripeReader = new StripeReader(
+                orcDataSource,
+                orcReader.getCompressionKind(),
+                orcReader.getFooter().getTypes(),
+                orcReader.getBufferSize(),
+                ImmutableSet.of(),
+                orcReader.getFooter().getRowsInRowGroup(),
+                OrcPredicate.TRUE,
+                new OrcMetadataReader());
+        return stripeReader.readStripeFooter(orcReader.getFooter().getStripes().get(0), new AggregatedMemoryContext());
+    }
+
+    private static List<List<Object>> readValues(OrcReader orcReader, OrcPredicate predicate)
+            throws Exception
+    {
+        ImmutableMap.Builder<Integer, Type> includedColumns = ImmutableMap.builder();
+        for (int column = 0; column < TYPES.size(); column++) {
+            includedColumns.put(column, TYPES.get(column));
+        }
+
+        List<List<Object>> rows = new ArrayList<>();
+        OrcRecordReader recordReader = orcReader.createRecordReader(includedColumns.build(), predicate, HIVE_STORAGE_TIME_ZONE, new AggregatedMemoryContext());
+        for (int batchSize = recordReader.nextBatch(); batchSize >= 0; batchSize = recordReader.nextBatch()) {
+            Block[] blocks = new Block[TYPES.size()];
+            for (int column = 0; column < TYPES.size(); column++) {
+                blocks[column] = recordReader.readBlock(TYPES.get(column), column);
+            }
+            rows.addAll(getValues(ImmutableList.of(new Page(batchSize, blocks)), 0, batchSize));
+        }
+        recordReader.close();
+        return rows;
+    }
+
+    private static List<List<Object>> getValues(List<Page> pages, int start, int length)
+    {
+        List<List<Object>> rows = new ArrayList<>();
+        int row = 0;
+        for (Page page : pages) {
+            for (int position = 0; position < page.getPositionCount(); position++, row++) {
+                if (row < start || row >= start + length) {
+                    continue;
+                }
+                List<Object> values = new ArrayList<>();
+                for (int channel = 0; channel < TYPES.size(); channel++) {
+                    values.add(TYPES.get(channel).getObjectValue(SESSION, page.getBlock(channel), position));
+                }
+                rows.add(values);
+            }
+        }
+        return rows;
+    }
+
+    private static void assertHiveReadable(TempFile tempFile)
+            throws Exception
+    {
+        Reader reader = OrcFile.createReader(new Path(tempFile.getFile().toURI()), OrcFile.readerOptions(new Configuration()));
+        assertEquals(reader.getNumberOfRows(), ROW_COUNT);
+
+        StructObjectInspector rowInspector = (StructObjectInspector) reader.getObjectInspector();
+        RecordReader rows = reader.rows();
+        Object row = null;
+        for (int expected = 0; expected < ROW_COUNT; expected++) {
+            assertTrue(rows.hasNext());
+            row = rows.next(row);
+            List<Object> fields = rowInspector.getStructFieldsDataAsList(row);
+            assertEquals(((LongWritable) fields.get(BIGINT_COLUMN)).get(), expected);
+            if (expected % 7 == 0) {
+                assertNull(fields.get(0));
+            }
+            else {
+                assertEquals(String.valueOf(fields.get(9)), "value " + (expected % 10));
+            }
+        }
+        assertFalse(rows.hasNext());
+        rows.close();
+    }
+}
@@ -0,0 +1,342 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.orc;
+
+import com.facebook.presto.orc.memory.AggregatedMemoryContext;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.airlift.slice.FixedLengthSliceInput;
+import io.airlift.slice.Slices;
+import io.airlift.units.DataSize;
+import org.testng.annotations.AfterClass;
+import org.testng.annotations.Test;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static io.airlift.units.DataSize.Unit.BYTE;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static java.util.concurrent.Executors.newCachedThreadPool;
+import static org.testng.Assert.assertEquals;
+import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertTrue;
+import static org.testng.Assert.fail;
+
+public class TestPrefetchingOrcDataSource
+{
+    private static final DataSize MAX_MERGE_DISTANCE = new DataSize(1, MEGABYTE);
+    private static final DataSize MAX_READ_SIZE = new DataSize(8, MEGABYTE);
+    private static final DiskRange PREFETCH_RANGE = new DiskRange(100, 500);
+
+    private final ExecutorService executor = newCachedThreadPool(new ThreadFactoryBuilder().setNameFormat("test-prefetch-%s").setDaemon(true).build());
+
+    @AfterClass(alwaysRun = true)
+    public void tearDown()
+    {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testReadFromCompletedPrefetch()
+            throws Exception
+    {
+        TestDataSource testDataSource = new TestDataSource(1000);
+        // the direct executor completes the prefetch before the read
+        PrefetchingOrcDataSource dataSource = new PrefetchingOrcDataSource(testDataSource, Runnable::run, MAX_MERGE_DISTANCE, MAX_READ_SIZE, new AggregatedMemoryContext());
+        dataSource.prefetch(PREFETCH_RANGE, ImmutableList.of(PREFETCH_RANGE));
+        assertEquals(testDataSource.getReadCount(), 1);
+
+        assertRead(dataSource, 150, 100);
+        Map<String, FixedLengthSliceInput> slices = dataSource.readFully(ImmutableMap.of("a", new DiskRange(200, 50), "b", new DiskRange(500, 100)));
+        assertEquals(slices.get("a").readSlice(50), Slices.wrappedBuffer(expectedBytes(200, 50)));
+        assertEquals(slices.get("b").readSlice(100), Slices.wrappedBuffer(expectedBytes(500, 100)));
+
+        // all reads were served from the prefetched buffer
+        assertEquals(testDataSource.getReadCount(), 1);
+        assertEquals(dataSource.getPrefetchHitCount(), 3);
+        assertEquals(dataSource.getPrefetchWaitNanos(), 0);
+
+        // reads outside of the prefetch range go to the underlying data source
+        assertRead(dataSource, 700, 100);
+        assertEquals(testDataSource.getReadCount(), 2);
+        assertEquals(dataSource.getPrefetchHitCount(), 3);
+    }
+
+    @Test
+    public void testReadWaitsForPrefetchInFlight()
+            throws Exception
+    {
+        TestDataSource testDataSource = new TestDataSource(1000);
+        CountDownLatch allowRead = testDataSource.blockReads();
+        PrefetchingOrcDataSource dataSource = new PrefetchingOrcDataSource(testDataSource, executor, MAX_MERGE_DISTANCE, MAX_READ_SIZE, new AggregatedMemoryContext());
+        dataSource.prefetch(PREFETCH_RANGE, ImmutableList.of(PREFETCH_RANGE));
+        testDataSource.awaitReadStarted();
+
+        Future<?> read = executor.submit(() -> {
+            assertRead(dataSource, 150, 100);
+            return null;
+        });
+        Thread.sleep(100);
+        assertFalse(read.isDone());
+
+        allowRead.countDown();
+        read.get(10, TimeUnit.SECONDS);
+
+        // the read waited for the prefetch instead of reading the region again
+        assertEquals(testDataSource.getReadCount(), 1);
+        assertEquals(dataSource.getPrefetchHitCount(), 1);
+        assertTrue(dataSource.getPrefetchWaitNanos() > 0);
+    }
+
+    @Test
+    public void testPrefetchFailure()
+            throws Exception
+    {
+        TestDataSource testDataSource = new TestDataSource(1000);
+        testDataSource.failReads();
+        PrefetchingOrcDataSource dataSource = new PrefetchingOrcDataSource(testDataSource, Runnable::run, MAX_MERGE_DISTANCE, MAX_READ_SIZE, new AggregatedMemoryContext());
+        dataSource.prefetch(PREFETCH_RANGE, ImmutableList.of(PREFETCH_RANGE));
+
+        // the region is read again from the underlying data source, which reports the error to the reader
+        try {
+            dataSource.readFully(150, new byte[100]);
+            fail("expected IOException");
+        }
+        catch (IOException e) {
+            assertEquals(e.getMessage(), "read failed");
+        }
+        assertEquals(testDataSource.getReadCount(), 2);
+        assertEquals(dataSource.getPrefetchHitCount(), 0);
+    }
+
+    @Test
+    public void testPrefetchMemoryReservation()
+            throws Exception
+    {
+        TestDataSource testDataSource = new TestDataSource(100_000);
+        List<Runnable> tasks = new ArrayList<>();
+        Executor queueingExecutor = tasks::add;
+        AggregatedMemoryContext systemMemoryUsage = new AggregatedMemoryContext();
+        PrefetchingOrcDataSource dataSource = new PrefetchingOrcDataSource(testDataSource, queueingExecutor, new DataSize(0, BYTE), new DataSize(1000, BYTE), systemMemoryUsage);
+
+        // the buffers are reserved before the prefetch reads them; ranges above the max read size are not prefetched
+        dataSource.prefetch(new DiskRange(0, 10_000), ImmutableList.of(new DiskRange(0, 100), new DiskRange(200, 300), new DiskRange(1000, 5000)));
+        assertEquals(dataSource.getPrefetchedBytes(), 400);
+        assertEquals(systemMemoryUsage.getBytes(), 400);
+        tasks.forEach(Runnable::run);
+        tasks.clear();
+        assertRead(dataSource, 250, 100);
+        assertEquals(systemMemoryUsage.getBytes(), 400);
+
+        // replacing the prefetch frees the buffers of the earlier one
+        dataSource.prefetch(new DiskRange(10_000, 10_000), ImmutableList.of(new DiskRange(10_000, 50)));
+        assertEquals(systemMemoryUsage.getBytes(), 50);
+
+        // nothing is reserved if no range is prefetched
+        dataSource.prefetch(new DiskRange(20_000, 10_000), ImmutableList.of(new DiskRange(20_000, 5000)));
+        assertEquals(systemMemoryUsage.getBytes(), 0);
+
+        dataSource.prefetch(new DiskRange(30_000, 10_000), ImmutableList.of(new DiskRange(30_000, 70)));
+        assertEquals(systemMemoryUsage.getBytes(), 70);
+        dataSource.close();
+        assertEquals(systemMemoryUsage.getBytes(), 0);
+    }
+
+    @Test
+    public void testCloseWithPrefetchInFlight()
+            throws Exception
+    {
+        TestDataSource testDataSource = new TestDataSource(1000);
+        CountDownLatch allowRead = testDataSource.blockReads();
+        PrefetchingOrcDataSource dataSource = new PrefetchingOrcDataSource(testDataSource, executor, MAX_MERGE_DISTANCE, MAX_READ_SIZE, new AggregatedMemoryContext());
+        dataSource.prefetch(PREFETCH_RANGE, ImmutableList.of(PREFETCH_RANGE));
+        testDataSource.awaitReadStarted();
+
+        // close waits for the prefetch that is reading from the underlying data source
+        Future<?> close = executor.submit(() -> {
+            dataSource.close();
+            return null;
+        });
+        Thread.sleep(100);
+        assertFalse(close.isDone());
+        assertFalse(testDataSource.isClosed());
+
+        allowRead.countDown();
+        close.get(10, TimeUnit.SECONDS);
+        assertTrue(testDataSource.isClosed());
+        assertFalse(testDataSource.isReadAfterClose());
+    }
+
+    @Test
+    public void testCloseWithPrefetchNotStarted()
+            throws Exception
+    {
+        TestDataSource testDataSource = new TestDataSource(1000);
+        List<Runnable> tasks = new ArrayList<>();
+        Executor queueingExecutor = tasks::add;
+        PrefetchingOrcDataSource dataSource = new PrefetchingOrcDataSource(testDataSource, queueingExecutor, MAX_MERGE_DISTANCE, MAX_READ_SIZE, new AggregatedMemoryContext());
+        dataSource.prefetch(PREFETCH_RANGE, ImmutableList.of(PREFETCH_RANGE));
+
+        dataSource.close();
+        assertTrue(testDataSource.isClosed());
+
+        // a prefetch that starts after the close does not read
+        tasks.forEach(Runnable::run);
+        assertEquals(testDataSource.getReadCount(), 0);
+        assertFalse(testDataSource.isReadAfterClose());
+    }
+
+    private static void assertRead(OrcDataSource dataSource, long position, int length)
+            throws IOException
+    {
+        byte[] buffer = new byte[length];
+        dataSource.readFully(position, buffer);
+        assertTrue(Arrays.equals(buffer, expectedBytes(position, length)));
+    }
+
+    private static byte[] expectedBytes(long position, int length)
+    {
+        byte[] bytes = new byte[length];
+        for (int i = 0; i < length; i++) {
+            bytes[i] = (byte) (position + i);
+        }
+        return bytes;
+    }
+
+    private static class TestDataSource
+            implements OrcDataSource
+    {
+        private final int size;
+        private final AtomicInteger readCount = new AtomicInteger();
+        private final CountDownLatch readStarted = new CountDownLatch(1);
+
+        private volatile CountDownLatch allowRead = new CountDownLatch(0);
+        private volatile boolean failReads;
+        private volatile boolean closed;
+        private volatile boolean readAfterClose;
+
+        public TestDataSource(int size)
+        {
+            this.size = size;
+        }
+
+        public CountDownLatch blockReads()
+        {
+            allowRead = new CountDownLatch(1);
+            return allowRead;
+        }
+
+        public void failReads()
+        {
+            failReads = true;
+        }
+
+        public void awaitReadStarted()
+                throws InterruptedException
+        {
+            assertTrue(readStarted.await(10, TimeUnit.SECONDS));
+        }
+
+        public int getReadCount()
+        {
+            return readCount.get();
+        }
+
+        public boolean isClosed()
+        {
+            return closed;
+        }
+
+        public boolean isReadAfterClose()
+        {
+            return readAfterClose;
+        }
+
+        @Override
+        public long getReadBytes()
+        {
+            return 0;
+        }
+
+        @Override
+        public long getReadTimeNanos()
+        {
+            return 0;
+        }
+
+        @Override
+        public long getSize()
+        {
+            return size;
+        }
+
+        @Override
+        public void readFully(long position, byte[] buffer)
+                throws IOException
+        {
+            readFully(position, buffer, 0, buffer.length);
+        }
+
+        @Override
+        public void readFully(long position, byte[] buffer, int bufferOffset, int bufferLength)
+                throws IOException
+        {
+            if (closed) {
+                readAfterClose = true;
+            }
+            readCount.incrementAndGet();
+            readStarted.countDown();
+            try {
+                allowRead.await();
+            }
+            catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IOException(e);
+            }
+            if (failReads) {
+                throw new IOException("read failed");
+            }
+            System.arraycopy(expectedBytes(position, bufferLength), 0, buffer, bufferOffset, bufferLength);
+        }
+
+        @Override
+        public <K> Map<K, FixedLengthSliceInput> readFully(Map<K, DiskRange> diskRanges)
+                throws IOException
+        {
+            ImmutableMap.Builder<K, FixedLengthSliceInput> slices = ImmutableMap.builder();
+            for (Map.Entry<K, DiskRange> entry : diskRanges.entrySet()) {
+                byte[] buffer = new byte[entry.getValue().getLength()];
+                readFully(entry.getValue().getOffset(), buffer);
+                slices.put(entry.getKey(), Slices.wrappedBuffer(buffer).getInput());
+            }
+            return slices.build();
+        }
+
+        @Override
+        public void close()
+        {
+            closed = true;
+        }
+    }
+}
@@ -14,6 +14,7 @@
 package com.facebook.presto.raptor;
 
 import com.facebook.presto.raptor.metadata.ColumnInfo;
+import com.facebook.presto.raptor.metadata.ColumnStats;
 import com.facebook.presto.raptor.metadata.Distribution;
 import com.facebook.presto.raptor.metadata.MetadataDao;
 import com.facebook.presto.raptor.metadata.ShardDelta;
@@ -21,6 +22,7 @@ import com.facebook.presto.raptor.metadata.ShardInfo;
 import com.facebook.presto.raptor.metadata.ShardManager;
 import com.facebook.presto.raptor.metadata.Table;
 import com.facebook.presto.raptor.metadata.TableColumn;
+import com.facebook.presto.raptor.metadata.TableStatsRow;
 import com.facebook.presto.raptor.metadata.ViewResult;
 import com.facebook.presto.spi.ColumnHandle;
 import com.facebook.presto.spi.ColumnIdentity;
@@ -45,6 +47,9 @@ import com.facebook.presto.spi.ViewNotFoundException;
 import com.facebook.presto.spi.connector.ConnectorMetadata;
 import com.facebook.presto.spi.connector.ConnectorPartitioningHandle;
 import com.facebook.presto.spi.predicate.TupleDomain;
+import com.facebook.presto.spi.statistics.ColumnStatistics;
+import com.facebook.presto.spi.statistics.Estimate;
+import com.facebook.presto.spi.statistics.TableStatistics;
 import com.facebook.presto.spi.type.Type;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableListMultimap;
@@ -255,6 +260,34 @@ public class RaptorMetadata
         return new ColumnMetadata(column.getColumnName(), column.getColumnType());
     }
 
+    @Override
+    public TableStatistics getTableStatistics(ConnectorSession session, ConnectorTableHandle tableHandle, Constraint<ColumnHandle> constraint)
+    {
+        // the shard statistics are kept for the whole table, so the constraint is not taken into account
+        RaptorTableHandle handle = checkType(tableHandle, RaptorTableHandle.class, "tableHandle");
+        List<TableStatsRow> tableStats = dao.getTableStatsRows(handle.getSchemaName(), handle.getTableName());
+        if (tableStats.isEmpty()) {
+            return TableStatistics.empty();
+        }
+
+        TableStatistics.Builder statistics = TableStatistics.builder()
+                .setRowCount(Estimate.of(getOnlyElement(tableStats).getRowCount()));
+
+        Map<Long, TableColumn> tableColumns = Maps.uniqueIndex(dao.listTableColumns(handle.getTableId()), TableColumn::getColumnId);
+        List<ColumnInfo> columns = tableColumns.values().stream()
+                .map(column -> new ColumnInfo(column.getColumnId(), column.getDataType()))
+                .collect(toList());
+        for (ColumnStats columnStats : shardManager.getColumnStats(handle.getTableId(), columns)) {
+            statistics.setColumnStatistics(
+                    getRaptorColumnHandle(tableColumns.get(columnStats.getColumnId())),
+                    ColumnStatistics.builder()
+                            .setLowValue(Optional.ofNullable(columnStats.getMin()))
+                            .setHighValue(Optional.ofNullable(columnStats.getMax()))
+                            .build());
+        }
+        return statistics.build();
+    }
+
     @Override
     public Map<SchemaTableName, List<ColumnMetadata>> listTableColumns(ConnectorSession session, SchemaTablePrefix prefix)
     {
@@ -93,6 +93,7 @@ import static java.util.Collections.nCopies;
 import static java.util.Objects.requireNonNull;
 import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static java.util.concurrent.TimeUnit.SECONDS;
+import static java.util.stream.Collectors.toList;
 import static java.util.stream.Collectors.toMap;
 import static java.util.stream.Collectors.toSet;
 
@@ -619,6 +620,70 @@ public class DatabaseShardManager
         }
     }
 
+    @Override
+    public List<ColumnStats> getColumnStats(long tableId, List<ColumnInfo> columns)
+    {
+        // truncated varchar index values are not usable as column ranges
+        List<ColumnInfo> rangeColumns = columns.stream()
+                .filter(column -> {
+                    JDBCType jdbcType = jdbcType(column.getType());
+                    return (jdbcType != null) && (jdbcType != JDBCType.VARBINARY);
+                })
+                .collect(toList());
+        if (rangeColumns.isEmpty()) {
+            return ImmutableList.of();
+        }
+
+        StringJoiner ranges = new StringJoiner(", ");
+        for (ColumnInfo column : rangeColumns) {
+            ranges.add(format("min(%s)", minColumn(column.getColumnId())));
+            ranges.add(format("max(%s)", maxColumn(column.getColumnId())));
+        }
+        String sql = format("SELECT %s FROM %s", ranges, shardIndexTable(tableId));
+
+        try (Handle handle = dbi.open();
+                PreparedStatement statement = handle.getConnection().prepareStatement(sql);
+                ResultSet rs = statement.executeQuery()) {
+            if (!rs.next()) {
+                return ImmutableList.of();
+            }
+            ImmutableList.Builder<ColumnStats> stats = ImmutableList.builder();
+            for (int i = 0; i < rangeColumns.size(); i++) {
+                ColumnInfo column = rangeColumns.get(i);
+                JDBCType jdbcType = jdbcType(column.getType());
+                stats.add(new ColumnStats(
+                        column.getColumnId(),
+                        getIndexValue(rs, (i * 2) + 1, jdbcType),
+                        getIndexValue(rs, (i * 2) + 2, jdbcType)));
+            }
+            return stats.build();
+        }
+        catch (SQLException e) {
+            throw Throwables.propagate(e);
+        }
+    }
+
+    private static Object getIndexValue(ResultSet rs, int index, JDBCType jdbcType)
+            throws SQLException
+    {
+        Object value;
+        switch (jdbcType) {
+            case BOOLEAN:
+                value = rs.getBoolean(index);
+                break;
+            case BIGINT:
+            case INTEGER:
+                value = rs.getLong(index);
+                break;
+            case DOUBLE:
+                value = rs.getDouble(index);
+                break;
+            default:
+                throw new IllegalArgumentException("Unsupported index type: " + jdbcType);
+        }
+        return rs.wasNull() ? null : value;
+    }
+
     private Map<Integer, String> loadBucketAssignments(long distributionId)
     {
         Set<String> nodeIds = getNodeIdentifiers();
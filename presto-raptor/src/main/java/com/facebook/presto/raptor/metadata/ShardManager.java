@@ -52,6 +52,12 @@ public interface ShardManager
      */
     void replaceShardUuids(long transactionId, long tableId, List<ColumnInfo> columns, Set<UUID> oldShardUuids, Collection<ShardInfo> newShards, OptionalLong updateTime);
 
+    /**
+     * Get the minimum and maximum values of the columns over all shards of a table.
+     * Columns that are not indexed are omitted.
+     */
+    List<ColumnStats> getColumnStats(long tableId, List<ColumnInfo> columns);
+
     /**
      * Get shard metadata for shards on a given node.
      */
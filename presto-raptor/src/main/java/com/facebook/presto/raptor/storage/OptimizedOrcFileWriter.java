@@ -0,0 +1,303 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.raptor.storage;
+
+import com.facebook.presto.orc.OrcWriter;
+import com.facebook.presto.orc.OrcWriterOptions;
+import com.facebook.presto.raptor.util.SyncingFileSystem;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.PageBuilder;
+import com.facebook.presto.spi.PrestoException;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.BlockBuilderStatus;
+import com.facebook.presto.spi.classloader.ThreadContextClassLoader;
+import com.facebook.presto.spi.type.DecimalType;
+import com.facebook.presto.spi.type.Type;
+import com.facebook.presto.spi.type.TypeSignature;
+import com.facebook.presto.spi.type.VarcharType;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.json.JsonCodec;
+import org.apache.hadoop.conf.Configuration;
+import org.apache.hadoop.fs.FileSystem;
+import org.apache.hadoop.fs.Path;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+import static com.facebook.presto.orc.metadata.CompressionKind.SNAPPY;
+import static com.facebook.presto.raptor.RaptorErrorCode.RAPTOR_ERROR;
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.BooleanType.BOOLEAN;
+import static com.facebook.presto.spi.type.DoubleType.DOUBLE;
+import static com.facebook.presto.spi.type.VarbinaryType.VARBINARY;
+import static com.facebook.presto.spi.type.VarcharType.createUnboundedVarcharType;
+import static com.google.common.base.Preconditions.checkArgument;
+import static io.airlift.json.JsonCodec.jsonCodec;
+import static io.airlift.slice.Slices.utf8Slice;
+import static io.airlift.slice.Slices.wrappedBuffer;
+import static java.util.Objects.requireNonNull;
+import static java.util.stream.Collectors.toList;
+import static org.joda.time.DateTimeZone.UTC;
+
+/**
+ * Writes shards with the native Presto ORC writer. The file layout matches the
+ * files written by {@link OrcFileWriter}: all integral types are stored as ORC
+ * longs and the column types are stored in the {@link OrcFileMetadata}.
+ */
+public class OptimizedOrcFileWriter
+        implements StorageFileWriter
+{
+    private static final Configuration CONFIGURATION = new Configuration();
+    private static final JsonCodec<OrcFileMetadata> METADATA_CODEC = jsonCodec(OrcFileMetadata.class);
+
+    private final List<Type> columnTypes;
+    private final List<Type> storageTypes;
+    private final OrcWriter orcWriter;
+    private final PageBuilder pageBuilder;
+
+    private boolean closed;
+    private long rowCount;
+    private long uncompressedSize;
+
+    public OptimizedOrcFileWriter(List<Long> columnIds, List<Type> columnTypes, File target)
+    {
+        this.columnTypes = ImmutableList.copyOf(requireNonNull(columnTypes, "columnTypes is null"));
+        checkArgument(columnIds.size() == columnTypes.size(), "ids and types mismatch");
+        checkArgument(isSupportedTypes(columnTypes), "unsupported types: %s", columnTypes);
+
+        this.storageTypes = columnTypes.stream()
+                .map(OptimizedOrcFileWriter::toStorageType)
+                .collect(toList());
+        this.pageBuilder = new PageBuilder(storageTypes);
+
+        List<String> columnNames = columnIds.stream()
+                .map(String::valueOf)
+                .collect(toList());
+
+        ImmutableMap.Builder<Long, TypeSignature> columnTypesMap = ImmutableMap.builder();
+        for (int i = 0; i < columnIds.size(); i++) {
+            columnTypesMap.put(columnIds.get(i), columnTypes.get(i).getTypeSignature());
+        }
+        String metadata = METADATA_CODEC.toJson(new OrcFileMetadata(columnTypesMap.build()));
+
+        this.orcWriter = new OrcWriter(
+                createOutputStream(target),
+                columnNames,
+                storageTypes,
+                SNAPPY,
+                new OrcWriterOptions(),
+                ImmutableMap.of(OrcFileMetadata.KEY, metadata),
+                UTC);
+    }
+
+    /**
+     * Returns true if the native writer can write all the types. Other types
+     * must be written with {@link OrcFileWriter}.
+     */
+    public static boolean isSupportedTypes(List<Type> columnTypes)
+    {
+        return columnTypes.stream().allMatch(OptimizedOrcFileWriter::isSupportedType);
+    }
+
+    private static boolean isSupportedType(Type type)
+    {
+        if (type instanceof DecimalType) {
+            return false;
+        }
+        Class<?> javaType = type.getJavaType();
+        return javaType == boolean.class ||
+                javaType == long.class ||
+                javaType == double.class ||
+                type instanceof VarcharType ||
+                type.equals(VARBINARY);
+    }
+
+    private static Type toStorageType(Type type)
+    {
+        Class<?> javaType = type.getJavaType();
+        if (javaType == boolean.class) {
+            return BOOLEAN;
+        }
+        if (javaType == long.class) {
+            return BIGINT;
+        }
+        if (javaType == double.class) {
+            return DOUBLE;
+        }
+        if (type instanceof VarcharType) {
+            return createUnboundedVarcharType();
+        }
+        return VARBINARY;
+    }
+
+    @Override
+    public void appendPages(List<Page> pages)
+    {
+        for (Page page : pages) {
+            Block[] blocks = new Block[columnTypes.size()];
+            for (int channel = 0; channel < blocks.length; channel++) {
+                blocks[channel] = toStorageBlock(columnTypes.get(channel), storageTypes.get(channel), page.getBlock(channel));
+            }
+            writePage(new Page(page.getPositionCount(), blocks));
+        }
+    }
+
+    @Override
+    public void appendPages(List<Page> inputPages, int[] pageIndexes, int[] positionIndexes)
+    {
+        checkArgument(pageIndexes.length == positionIndexes.length, "pageIndexes and positionIndexes do not match");
+        for (int i = 0; i < pageIndexes.length; i++) {
+            Page page = inputPages.get(pageIndexes[i]);
+            pageBuilder.declarePosition();
+            for (int channel = 0; channel < columnTypes.size(); channel++) {
+                appendValue(columnTypes.get(channel), page.getBlock(channel), positionIndexes[i], pageBuilder.getBlockBuilder(channel));
+            }
+            flushPageBuilderIfFull();
+        }
+        flushPageBuilder();
+    }
+
+    @Override
+    public void appendRow(Row row)
+    {
+        List<Object> columns = row.getColumns();
+        checkArgument(columns.size() == columnTypes.size());
+        pageBuilder.declarePosition();
+        for (int channel = 0; channel < columns.size(); channel++) {
+            appendOrcValue(storageTypes.get(channel), columns.get(channel), pageBuilder.getBlockBuilder(channel));
+        }
+        flushPageBuilderIfFull();
+    }
+
+    @Override
+    public void close()
+    {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        try {
+            flushPageBuilder();
+            orcWriter.close();
+        }
+        catch (IOException e) {
+            throw new PrestoException(RAPTOR_ERROR, "Failed to close writer", e);
+        }
+    }
+
+    @Override
+    public long getRowCount()
+    {
+        return rowCount + pageBuilder.getPositionCount();
+    }
+
+    @Override
+    public long getUncompressedSize()
+    {
+        return uncompressedSize + pageBuilder.getSizeInBytes();
+    }
+
+    private void flushPageBuilderIfFull()
+    {
+        if (pageBuilder.isFull()) {
+            flushPageBuilder();
+        }
+    }
+
+    private void flushPageBuilder()
+    {
+        if (!pageBuilder.isEmpty()) {
+            Page page = pageBuilder.build();
+            pageBuilder.reset();
+            writePage(page);
+        }
+    }
+
+    private void writePage(Page page)
+    {
+        try {
+            orcWriter.write(page);
+        }
+        catch (IOException e) {
+            throw new PrestoException(RAPTOR_ERROR, "Failed to write data", e);
+        }
+        rowCount += page.getPositionCount();
+        uncompressedSize += page.getSizeInBytes();
+    }
+
+    private static Block toStorageBlock(Type type, Type storageType, Block block)
+    {
+        // integral types with a narrower representation must be widened to longs
+        if (storageType.equals(BIGINT) && !type.equals(BIGINT)) {
+            BlockBuilder blockBuilder = BIGINT.createBlockBuilder(new BlockBuilderStatus(), block.getPositionCount());
+            for (int position = 0; position < block.getPositionCount(); position++) {
+                appendValue(type, block, position, blockBuilder);
+            }
+            return blockBuilder.build();
+        }
+        return block;
+    }
+
+    private static void appendValue(Type type, Block block, int position, BlockBuilder blockBuilder)
+    {
+        if (block.isNull(position)) {
+            blockBuilder.appendNull();
+        }
+        else if (type.getJavaType() == long.class) {
+            BIGINT.writeLong(blockBuilder, type.getLong(block, position));
+        }
+        else {
+            type.appendTo(block, position, blockBuilder);
+        }
+    }
+
+    private static void appendOrcValue(Type storageType, Object value, BlockBuilder blockBuilder)
+    {
+        if (value == null) {
+            blockBuilder.appendNull();
+        }
+        else if (storageType.equals(BOOLEAN)) {
+            BOOLEAN.writeBoolean(blockBuilder, (Boolean) value);
+        }
+        else if (storageType.equals(BIGINT)) {
+            BIGINT.writeLong(blockBuilder, (Long) value);
+        }
+        else if (storageType.equals(DOUBLE)) {
+            DOUBLE.writeDouble(blockBuilder, (Double) value);
+        }
+        else if (storageType.equals(VARBINARY)) {
+            VARBINARY.writeSlice(blockBuilder, wrappedBuffer((byte[]) value));
+        }
+        else {
+            storageType.writeSlice(blockBuilder, utf8Slice((String) value));
+        }
+    }
+
+    private static OutputStream createOutputStream(File target)
+    {
+        try (ThreadContextClassLoader ignored = new ThreadContextClassLoader(FileSystem.class.getClassLoader())) {
+            // the file system syncs the file to disk when the stream is closed
+            FileSystem fileSystem = new SyncingFileSystem(CONFIGURATION);
+            return fileSystem.create(new Path(target.toURI()));
+        }
+        catch (IOException e) {
+            throw new PrestoException(RAPTOR_ERROR, "Failed to create writer", e);
+        }
+    }
+}
@@ -46,7 +46,6 @@ import org.apache.hadoop.hive.serde2.typeinfo.MapTypeInfo;
 import org.apache.hadoop.hive.serde2.typeinfo.TypeInfo;
 import org.apache.hadoop.hive.serde2.typeinfo.TypeInfoUtils;
 
-import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.lang.reflect.Constructor;
@@ -84,7 +83,7 @@ import static org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveO
 import static org.apache.hadoop.hive.serde2.typeinfo.TypeInfoFactory.getPrimitiveTypeInfo;
 
 public class OrcFileWriter
-        implements Closeable
+        implements StorageFileWriter
 {
     private static final Configuration CONFIGURATION = new Configuration();
     private static final Constructor<? extends RecordWriter> WRITER_CONSTRUCTOR = getOrcWriterConstructor();
@@ -130,6 +129,7 @@ public class OrcFileWriter
         orcRow = tableInspector.create();
     }
 
+    @Override
     public void appendPages(List<Page> pages)
     {
         for (Page page : pages) {
@@ -139,6 +139,7 @@ public class OrcFileWriter
         }
     }
 
+    @Override
     public void appendPages(List<Page> inputPages, int[] pageIndexes, int[] positionIndexes)
     {
         checkArgument(pageIndexes.length == positionIndexes.length, "pageIndexes and positionIndexes do not match");
@@ -148,6 +149,7 @@ public class OrcFileWriter
         }
     }
 
+    @Override
     public void appendRow(Row row)
     {
         List<Object> columns = row.getColumns();
@@ -181,11 +183,13 @@ public class OrcFileWriter
         }
     }
 
+    @Override
     public long getRowCount()
     {
         return rowCount;
     }
 
+    @Override
     public long getUncompressedSize()
     {
         return uncompressedSize;
@@ -133,6 +133,7 @@ public class OrcStorageManager
     private final long maxShardRows;
     private final DataSize maxShardSize;
     private final DataSize minAvailableSpace;
+    private final boolean optimizedWriterEnabled;
     private final TypeManager typeManager;
     private final ExecutorService deletionExecutor;
     private final ExecutorService commitExecutor;
@@ -165,7 +166,8 @@ public class OrcStorageManager
                 config.getShardRecoveryTimeout(),
                 config.getMaxShardRows(),
                 config.getMaxShardSize(),
-                config.getMinAvailableSpace());
+                config.getMinAvailableSpace(),
+                config.isOrcOptimizedWriterEnabled());
     }
 
     public OrcStorageManager(
@@ -183,7 +185,8 @@ public class OrcStorageManager
             Duration shardRecoveryTimeout,
             long maxShardRows,
             DataSize maxShardSize,
-            DataSize minAvailableSpace)
+            DataSize minAvailableSpace,
+            boolean optimizedWriterEnabled)
     {
         this.nodeId = requireNonNull(nodeId, "nodeId is null");
         this.storageService = requireNonNull(storageService, "storageService is null");
@@ -199,6 +202,7 @@ public class OrcStorageManager
         this.maxShardRows = min(maxShardRows, MAX_ROWS);
         this.maxShardSize = requireNonNull(maxShardSize, "maxShardSize is null");
         this.minAvailableSpace = requireNonNull(minAvailableSpace, "minAvailableSpace is null");
+        this.optimizedWriterEnabled = optimizedWriterEnabled;
         this.shardRecorder = requireNonNull(shardRecorder, "shardRecorder is null");
         this.typeManager = requireNonNull(typeManager, "typeManager is null");
         this.deletionExecutor = newFixedThreadPool(deletionThreads, daemonThreadsNamed("raptor-delete-" + connectorId + "-%s"));
@@ -533,7 +537,7 @@ public class OrcStorageManager
         private final List<CompletableFuture<?>> futures = new ArrayList<>();
 
         private boolean committed;
-        private OrcFileWriter writer;
+        private StorageFileWriter writer;
         private UUID shardUuid;
 
         public OrcStoragePageSink(long transactionId, List<Long> columnIds, List<Type> columnTypes, OptionalInt bucketNumber)
@@ -646,9 +650,18 @@ public class OrcStorageManager
                 File stagingFile = storageService.getStagingFile(shardUuid);
                 storageService.createParents(stagingFile);
                 stagingFiles.add(stagingFile);
-                writer = new OrcFileWriter(columnIds, columnTypes, stagingFile);
+                writer = createFileWriter(stagingFile);
             }
         }
+
+        private StorageFileWriter createFileWriter(File stagingFile)
+        {
+            // fall back to the Hive ORC writer for types the native writer does not support
+            if (optimizedWriterEnabled && OptimizedOrcFileWriter.isSupportedTypes(columnTypes)) {
+                return new OptimizedOrcFileWriter(columnIds, columnTypes, stagingFile);
+            }
+            return new OrcFileWriter(columnIds, columnTypes, stagingFile);
+        }
     }
 
     private static void closeQuietly(Closeable closeable)
@@ -610,7 +610,8 @@ public class TestOrcStorageManager
                 SHARD_RECOVERY_TIMEOUT,
                 maxShardRows,
                 maxFileSize,
-                new DataSize(0, BYTE));
+                new DataSize(0, BYTE),
+                false);
     }
 
     private static void assertFileEquals(File actual, File expected)
@@ -182,6 +182,71 @@ public class TestShardWriter
         assertFalse(crcFile.exists());
     }
 
+    @Test
+    public void testOptimizedWriter()
+            throws Exception
+    {
+        List<Long> columnIds = ImmutableList.of(1L, 2L, 4L, 6L, 7L);
+        List<Type> columnTypes = ImmutableList.of(BIGINT, createVarcharType(10), VARBINARY, DOUBLE, BOOLEAN);
+        File file = new File(directory, System.nanoTime() + ".orc");
+
+        byte[] bytes1 = octets(0x00, 0xFE, 0xFF);
+        byte[] bytes3 = octets(0x01, 0x02, 0x19, 0x80);
+
+        RowPagesBuilder rowPagesBuilder = RowPagesBuilder.rowPagesBuilder(columnTypes)
+                .row(123L, "hello", wrappedBuffer(bytes1), 123.456, true)
+                .row(null, "world", null, Double.POSITIVE_INFINITY, null);
+
+        assertTrue(OptimizedOrcFileWriter.isSupportedTypes(columnTypes));
+        try (OptimizedOrcFileWriter writer = new OptimizedOrcFileWriter(columnIds, columnTypes, file)) {
+            writer.appendPages(rowPagesBuilder.build());
+            writer.appendRow(new Row(ImmutableList.of(456L, "bye \u2603", bytes3, Double.NaN, false), 0));
+            assertEquals(writer.getRowCount(), 3);
+        }
+
+        try (OrcDataSource dataSource = fileOrcDataSource(file)) {
+            OrcRecordReader reader = createReader(dataSource, columnIds, columnTypes);
+            assertEquals(reader.getReaderRowCount(), 3);
+            assertEquals(reader.nextBatch(), 3);
+
+            Block column0 = reader.readBlock(BIGINT, 0);
+            assertEquals(column0.isNull(1), true);
+            assertEquals(BIGINT.getLong(column0, 0), 123L);
+            assertEquals(BIGINT.getLong(column0, 2), 456L);
+
+            Block column1 = reader.readBlock(createVarcharType(10), 1);
+            assertEquals(createVarcharType(10).getSlice(column1, 0), utf8Slice("hello"));
+            assertEquals(createVarcharType(10).getSlice(column1, 1), utf8Slice("world"));
+            assertEquals(createVarcharType(10).getSlice(column1, 2), utf8Slice("bye \u2603"));
+
+            Block column2 = reader.readBlock(VARBINARY, 2);
+            assertEquals(VARBINARY.getSlice(column2, 0), wrappedBuffer(bytes1));
+            assertEquals(column2.isNull(1), true);
+            assertEquals(VARBINARY.getSlice(column2, 2), wrappedBuffer(bytes3));
+
+            Block column3 = reader.readBlock(DOUBLE, 3);
+            assertEquals(DOUBLE.getDouble(column3, 0), 123.456);
+            assertEquals(DOUBLE.getDouble(column3, 1), Double.POSITIVE_INFINITY);
+            assertEquals(DOUBLE.getDouble(column3, 2), Double.NaN);
+
+            Block column4 = reader.readBlock(BOOLEAN, 4);
+            assertEquals(column4.isNull(1), true);
+            assertEquals(BOOLEAN.getBoolean(column4, 0), true);
+            assertEquals(BOOLEAN.getBoolean(column4, 2), false);
+
+            assertEquals(reader.nextBatch(), -1);
+
+            OrcFileMetadata orcFileMetadata = METADATA_CODEC.fromJson(reader.getUserMetadata().get(OrcFileMetadata.KEY).getBytes());
+            assertEquals(orcFileMetadata, new OrcFileMetadata(ImmutableMap.<Long, TypeSignature>builder()
+                    .put(1L, BIGINT.getTypeSignature())
+                    .put(2L, createVarcharType(10).getTypeSignature())
+                    .put(4L, VARBINARY.getTypeSignature())
+                    .put(6L, DOUBLE.getTypeSignature())
+                    .put(7L, BOOLEAN.getTypeSignature())
+                    .build()));
+        }
+    }
+
     @SuppressWarnings("EmptyTryBlock")
     @Test
     public void testWriterZeroRows()
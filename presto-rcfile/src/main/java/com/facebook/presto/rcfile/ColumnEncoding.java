@@ -14,9 +14,17 @@
 package com.facebook.presto.rcfile;
 
 import com.facebook.presto.spi.block.Block;
+import io.airlift.slice.SliceOutput;
 
 public interface ColumnEncoding
 {
+    /**
+     * Writes every position of the block to the output, calling {@link EncodeOutput#closeEntry()}
+     * after each value so the writer can record the value length.  Null values are encoded as
+     * an empty entry for the binary encoding and as the null sequence for the text encoding.
+     */
+    void encodeColumn(Block block, SliceOutput output, EncodeOutput encodeOutput);
+
     Block decodeColumn(ColumnData columnData)
             throws RcFileCorruptionException;
 }
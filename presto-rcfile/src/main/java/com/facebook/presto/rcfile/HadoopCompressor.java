@@ -0,0 +1,64 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.rcfile;
+
+import io.airlift.slice.Slice;
+import io.airlift.slice.SliceOutput;
+import org.apache.hadoop.io.compress.CodecPool;
+import org.apache.hadoop.io.compress.CompressionCodec;
+import org.apache.hadoop.io.compress.CompressionOutputStream;
+import org.apache.hadoop.io.compress.Compressor;
+
+import java.io.IOException;
+
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.Objects.requireNonNull;
+
+public class HadoopCompressor
+        implements RcFileCompressor
+{
+    private final CompressionCodec codec;
+    private final Compressor compressor;
+    private boolean destroyed;
+
+    public HadoopCompressor(CompressionCodec codec)
+    {
+        this.codec = requireNonNull(codec, "codec is null");
+        compressor = CodecPool.getCompressor(codec);
+    }
+
+    @Override
+    public void compress(Slice uncompressed, SliceOutput output)
+            throws IOException
+    {
+        checkState(!destroyed, "Codec has been destroyed");
+        // codecs without a native compressor use the built-in compressor of the stream
+        if (compressor != null) {
+            compressor.reset();
+        }
+        try (CompressionOutputStream compressorStream = codec.createOutputStream(output, compressor)) {
+            uncompressed.getBytes(0, compressorStream, uncompressed.length());
+        }
+    }
+
+    @Override
+    public void destroy()
+    {
+        if (destroyed) {
+            return;
+        }
+        destroyed = true;
+        CodecPool.returnCompressor(compressor);
+    }
+}
@@ -19,6 +19,7 @@ import com.facebook.presto.spi.type.VarcharType;
 import com.google.common.primitives.Ints;
 import io.airlift.slice.Slice;
 import io.airlift.slice.SliceInput;
+import io.airlift.slice.SliceOutput;
 import io.airlift.slice.Slices;
 
 import java.io.IOException;
@@ -113,6 +114,31 @@ public final class RcFileDecoderUtils
         return isNegativeVInt(slice.getByte(start)) ? ~value : value;
     }
 
+    public static void writeVInt(SliceOutput out, long value)
+    {
+        if (value >= -112 && value <= 127) {
+            out.writeByte((int) value);
+            return;
+        }
+
+        int length = -112;
+        if (value < 0) {
+            value = ~value;
+            length = -120;
+        }
+
+        for (long temp = value; temp != 0; temp >>= 8) {
+            length--;
+        }
+        out.writeByte(length);
+
+        length = (length < -120) ? -(length + 120) : -(length + 112);
+        for (int index = length; index != 0; index--) {
+            int shiftBits = (index - 1) * 8;
+            out.writeByte((int) ((value >> shiftBits) & 0xFF));
+        }
+    }
+
     /**
      * Find the beginning of the first full sync sequence that starts within the specified range.
      */
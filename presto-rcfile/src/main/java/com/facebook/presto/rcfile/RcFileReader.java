@@ -368,16 +368,13 @@ public class RcFileReader
 
             Slice lengthsBuffer = headerInput.readSlice(lengthsSize);
 
-            Slice dataBuffer;
             if (readColumns.contains(columnIndex)) {
-                dataBuffer = input.readSlice(compressedDataSize);
+                columns[columnIndex].setBuffers(lengthsBuffer, input, compressedDataSize, uncompressedDataSize);
             }
             else {
                 skipFully(input, compressedDataSize);
-                dataBuffer = Slices.EMPTY_SLICE;
+                columns[columnIndex].setBuffers(lengthsBuffer, Slices.EMPTY_SLICE, uncompressedDataSize);
             }
-
-            columns[columnIndex].setBuffers(lengthsBuffer, dataBuffer, uncompressedDataSize);
         }
 
         return currentChunkRowCount;
@@ -438,6 +435,9 @@ public class RcFileReader
         private Slice dataBuffer;
         private int uncompressedDataSize;
 
+        // the buffers are reused for every row group, which is safe because
+        // the encodings copy the values into new blocks
+        private byte[] dataBufferArray = new byte[0];
         private byte[] decompressedBuffer = new byte[0];
 
         private boolean compressed;
@@ -454,6 +454,15 @@ public class RcFileReader
             this.decompressor = decompressor;
         }
 
+        public void setBuffers(Slice lengthsBuffer, SliceInput input, int compressedDataSize, int uncompressedDataSize)
+        {
+            if (dataBufferArray.length < compressedDataSize) {
+                dataBufferArray = new byte[compressedDataSize];
+            }
+            input.readBytes(dataBufferArray, 0, compressedDataSize);
+            setBuffers(lengthsBuffer, Slices.wrappedBuffer(dataBufferArray, 0, compressedDataSize), uncompressedDataSize);
+        }
+
         public void setBuffers(Slice lengthsBuffer, Slice dataBuffer, int uncompressedDataSize)
         {
             this.lengthsInput = lengthsBuffer.getInput();
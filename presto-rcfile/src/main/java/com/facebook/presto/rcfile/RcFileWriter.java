@@ -0,0 +1,381 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.rcfile;
+
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableMap;
+import io.airlift.slice.DynamicSliceOutput;
+import io.airlift.slice.OutputStreamSliceOutput;
+import io.airlift.slice.Slice;
+import io.airlift.slice.SliceOutput;
+import io.airlift.slice.Slices;
+import io.airlift.units.DataSize;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+
+import static com.facebook.presto.rcfile.RcFileDecoderUtils.writeVInt;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Writes pages to an RCFile. The values of each column are encoded into a buffer until
+ * the buffered row group reaches the target size, at which point the row group is
+ * compressed and written to the output stream, preceded by a sync marker.
+ */
+public class RcFileWriter
+        implements Closeable
+{
+    private static final Slice RCFILE_MAGIC = Slices.utf8Slice("RCF");
+    private static final int CURRENT_VERSION = 1;
+    private static final String COLUMN_COUNT_METADATA_KEY = "hive.io.rcfile.column.number";
+    private static final int SYNC_ESCAPE = -1;
+
+    public static final DataSize DEFAULT_TARGET_ROW_GROUP_SIZE = new DataSize(4, MEGABYTE);
+
+    private final SliceOutput output;
+    private final ColumnEncoder[] columnEncoders;
+    private final Optional<RcFileCompressor> compressor;
+    private final long targetRowGroupSize;
+
+    private final long syncFirst = ThreadLocalRandom.current().nextLong();
+    private final long syncSecond = ThreadLocalRandom.current().nextLong();
+
+    private final DynamicSliceOutput headerOutput = new DynamicSliceOutput(1024);
+    private final DynamicSliceOutput compressedHeaderOutput = new DynamicSliceOutput(1024);
+
+    private long fileLength;
+    private long fileRowCount;
+    private int rowGroupRowCount;
+    private boolean closed;
+
+    public RcFileWriter(
+            OutputStream outputStream,
+            List<Type> types,
+            RcFileEncoding encoding,
+            Optional<String> codecName,
+            RcFileCodecFactory codecFactory,
+            Map<String, String> metadata)
+    {
+        this(outputStream, types, encoding, codecName, codecFactory, metadata, DEFAULT_TARGET_ROW_GROUP_SIZE);
+    }
+
+    public RcFileWriter(
+            OutputStream outputStream,
+            List<Type> types,
+            RcFileEncoding encoding,
+            Optional<String> codecName,
+            RcFileCodecFactory codecFactory,
+            Map<String, String> metadata,
+            DataSize targetRowGroupSize)
+    {
+        this.output = new OutputStreamSliceOutput(requireNonNull(outputStream, "outputStream is null"));
+        requireNonNull(types, "types is null");
+        checkArgument(!types.isEmpty(), "types is empty");
+        requireNonNull(encoding, "encoding is null");
+        requireNonNull(codecName, "codecName is null");
+        requireNonNull(codecFactory, "codecFactory is null");
+        requireNonNull(metadata, "metadata is null");
+        checkArgument(!metadata.containsKey(COLUMN_COUNT_METADATA_KEY), "%s can not be specified in user metadata", COLUMN_COUNT_METADATA_KEY);
+        this.targetRowGroupSize = requireNonNull(targetRowGroupSize, "targetRowGroupSize is null").toBytes();
+
+        this.columnEncoders = new ColumnEncoder[types.size()];
+        for (int column = 0; column < types.size(); column++) {
+            columnEncoders[column] = new ColumnEncoder(encoding.getEncoding(types.get(column)));
+        }
+        this.compressor = codecName.map(codecFactory::createCompressor);
+
+        // write header
+        DynamicSliceOutput header = new DynamicSliceOutput(1024);
+        header.writeBytes(RCFILE_MAGIC);
+        header.writeByte(CURRENT_VERSION);
+        header.writeBoolean(compressor.isPresent());
+        if (codecName.isPresent()) {
+            writeLengthPrefixedString(header, codecName.get());
+        }
+
+        Map<String, String> fileMetadata = ImmutableMap.<String, String>builder()
+                .putAll(metadata)
+                .put(COLUMN_COUNT_METADATA_KEY, String.valueOf(types.size()))
+                .build();
+        header.writeInt(Integer.reverseBytes(fileMetadata.size()));
+        for (Entry<String, String> entry : fileMetadata.entrySet()) {
+            writeLengthPrefixedString(header, entry.getKey());
+            writeLengthPrefixedString(header, entry.getValue());
+        }
+
+        header.writeLong(syncFirst);
+        header.writeLong(syncSecond);
+        writeSlice(header.slice());
+    }
+
+    /**
+     * Number of rows written, including the rows still buffered.
+     */
+    public long getRowCount()
+    {
+        return fileRowCount + rowGroupRowCount;
+    }
+
+    /**
+     * Size of the file written so far, plus the uncompressed size of the buffered row group.
+     */
+    public long getWrittenBytes()
+    {
+        return fileLength + getBufferedBytes();
+    }
+
+    public long getRetainedBytes()
+    {
+        long retainedBytes = headerOutput.getRetainedSize() + compressedHeaderOutput.getRetainedSize();
+        for (ColumnEncoder columnEncoder : columnEncoders) {
+            retainedBytes += columnEncoder.getRetainedBytes();
+        }
+        return retainedBytes;
+    }
+
+    public void write(Page page)
+            throws IOException
+    {
+        checkState(!closed, "Writer is closed");
+        checkArgument(page.getChannelCount() == columnEncoders.length, "Expected page with %s channels, but got %s", columnEncoders.length, page.getChannelCount());
+
+        if (page.getPositionCount() == 0) {
+            return;
+        }
+
+        for (int channel = 0; channel < columnEncoders.length; channel++) {
+            columnEncoders[channel].writeBlock(page.getBlock(channel));
+        }
+        rowGroupRowCount += page.getPositionCount();
+
+        if (getBufferedBytes() >= targetRowGroupSize) {
+            flushRowGroup();
+        }
+    }
+
+    private long getBufferedBytes()
+    {
+        long bufferedBytes = 0;
+        for (ColumnEncoder columnEncoder : columnEncoders) {
+            bufferedBytes += columnEncoder.getBufferedBytes();
+        }
+        return bufferedBytes;
+    }
+
+    private void flushRowGroup()
+            throws IOException
+    {
+        if (rowGroupRowCount == 0) {
+            return;
+        }
+
+        // the sync marker allows readers of a file split to find the first row group of the split
+        writeInt(SYNC_ESCAPE);
+        writeLong(syncFirst);
+        writeLong(syncSecond);
+
+        // the header contains the row count and the value lengths of each column
+        headerOutput.reset();
+        writeVInt(headerOutput, rowGroupRowCount);
+        int totalDataSize = 0;
+        for (ColumnEncoder columnEncoder : columnEncoders) {
+            columnEncoder.closeRowGroup(compressor);
+
+            writeVInt(headerOutput, columnEncoder.getData().length());
+            writeVInt(headerOutput, columnEncoder.getUncompressedSize());
+            Slice lengths = columnEncoder.getLengths();
+            writeVInt(headerOutput, lengths.length());
+            headerOutput.writeBytes(lengths);
+
+            totalDataSize += columnEncoder.getData().length();
+        }
+        Slice header = headerOutput.slice();
+
+        Slice compressedHeader = header;
+        if (compressor.isPresent()) {
+            compressedHeaderOutput.reset();
+            compressor.get().compress(header, compressedHeaderOutput);
+            compressedHeader = compressedHeaderOutput.slice();
+        }
+
+        // record length, which readers only use to detect the end of the file
+        writeInt(compressedHeader.length() + totalDataSize);
+        writeInt(header.length());
+        writeInt(compressedHeader.length());
+        writeSlice(compressedHeader);
+
+        for (ColumnEncoder columnEncoder : columnEncoders) {
+            writeSlice(columnEncoder.getData());
+            columnEncoder.reset();
+        }
+
+        fileRowCount += rowGroupRowCount;
+        rowGroupRowCount = 0;
+    }
+
+    @Override
+    public void close()
+            throws IOException
+    {
+        if (closed) {
+            return;
+        }
+        closed = true;
+
+        try {
+            flushRowGroup();
+        }
+        finally {
+            compressor.ifPresent(RcFileCompressor::destroy);
+            output.close();
+        }
+    }
+
+    private static void writeLengthPrefixedString(SliceOutput output, String value)
+    {
+        Slice slice = Slices.utf8Slice(value);
+        writeVInt(output, slice.length());
+        output.writeBytes(slice);
+    }
+
+    private void writeInt(int value)
+    {
+        // the file format uses big endian
+        output.writeInt(Integer.reverseBytes(value));
+        fileLength += Integer.BYTES;
+    }
+
+    private void writeLong(long value)
+    {
+        // the sync is compared byte for byte, so it is written in the same order as in the header
+        output.writeLong(value);
+        fileLength += Long.BYTES;
+    }
+
+    private void writeSlice(Slice slice)
+    {
+        output.writeBytes(slice);
+        fileLength += slice.length();
+    }
+
+    private static class ColumnEncoder
+            implements EncodeOutput
+    {
+        private final ColumnEncoding columnEncoding;
+
+        private final DynamicSliceOutput dataOutput = new DynamicSliceOutput(1024);
+        private final DynamicSliceOutput compressedDataOutput = new DynamicSliceOutput(1024);
+        private final DynamicSliceOutput lengthOutput = new DynamicSliceOutput(512);
+
+        private Slice data = Slices.EMPTY_SLICE;
+        private int previousEntryEnd;
+        private int lastValueLength = -1;
+        private int runLength;
+
+        public ColumnEncoder(ColumnEncoding columnEncoding)
+        {
+            this.columnEncoding = requireNonNull(columnEncoding, "columnEncoding is null");
+        }
+
+        public void writeBlock(Block block)
+        {
+            columnEncoding.encodeColumn(block, dataOutput, this);
+        }
+
+        @Override
+        public void closeEntry()
+        {
+            int valueLength = dataOutput.size() - previousEntryEnd;
+            previousEntryEnd = dataOutput.size();
+
+            // repeated lengths are written as a run, stored as the bitwise
+            // complement of the number of repetitions after the first value
+            if (valueLength == lastValueLength) {
+                runLength++;
+                return;
+            }
+            flushRunLength();
+            writeVInt(lengthOutput, valueLength);
+            lastValueLength = valueLength;
+        }
+
+        public void closeRowGroup(Optional<RcFileCompressor> compressor)
+                throws IOException
+        {
+            flushRunLength();
+
+            data = dataOutput.slice();
+            if (compressor.isPresent()) {
+                compressedDataOutput.reset();
+                compressor.get().compress(data, compressedDataOutput);
+                data = compressedDataOutput.slice();
+            }
+        }
+
+        private void flushRunLength()
+        {
+            if (runLength > 0) {
+                writeVInt(lengthOutput, ~runLength);
+                runLength = 0;
+            }
+        }
+
+        public Slice getData()
+        {
+            return data;
+        }
+
+        public int getUncompressedSize()
+        {
+            return dataOutput.size();
+        }
+
+        public Slice getLengths()
+        {
+            return lengthOutput.slice();
+        }
+
+        public long getBufferedBytes()
+        {
+            return dataOutput.size() + lengthOutput.size();
+        }
+
+        public long getRetainedBytes()
+        {
+            return dataOutput.getRetainedSize() + compressedDataOutput.getRetainedSize() + lengthOutput.getRetainedSize();
+        }
+
+        public void reset()
+        {
+            dataOutput.reset();
+            compressedDataOutput.reset();
+            lengthOutput.reset();
+            data = Slices.EMPTY_SLICE;
+            previousEntryEnd = 0;
+            lastValueLength = -1;
+            runLength = 0;
+        }
+    }
+}
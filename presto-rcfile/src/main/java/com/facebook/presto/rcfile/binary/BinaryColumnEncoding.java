@@ -14,8 +14,10 @@
 package com.facebook.presto.rcfile.binary;
 
 import com.facebook.presto.rcfile.ColumnEncoding;
+import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.BlockBuilder;
 import io.airlift.slice.Slice;
+import io.airlift.slice.SliceOutput;
 
 public interface BinaryColumnEncoding
         extends ColumnEncoding
@@ -25,4 +27,10 @@ public interface BinaryColumnEncoding
     int getValueLength(Slice slice, int offset);
 
     void decodeValueInto(BlockBuilder builder, Slice slice, int offset, int length);
+
+    /**
+     * Writes the non-null value at the position in the nested form, which is self
+     * delimiting, unlike the top level form written by {@link #encodeColumn}.
+     */
+    void encodeValueInto(Block block, int position, SliceOutput output);
 }
@@ -14,15 +14,18 @@
 package com.facebook.presto.rcfile.binary;
 
 import com.facebook.presto.rcfile.ColumnData;
+import com.facebook.presto.rcfile.EncodeOutput;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.BlockBuilder;
 import com.facebook.presto.spi.block.BlockBuilderStatus;
 import com.facebook.presto.spi.type.Type;
 import com.google.common.primitives.Ints;
 import io.airlift.slice.Slice;
+import io.airlift.slice.SliceOutput;
 
 import static com.facebook.presto.rcfile.RcFileDecoderUtils.decodeVIntSize;
 import static com.facebook.presto.rcfile.RcFileDecoderUtils.readVInt;
+import static com.facebook.presto.rcfile.RcFileDecoderUtils.writeVInt;
 
 public class BinaryEncoding
         implements BinaryColumnEncoding
@@ -34,6 +37,17 @@ public class BinaryEncoding
         this.type = type;
     }
 
+    @Override
+    public void encodeColumn(Block block, SliceOutput output, EncodeOutput encodeOutput)
+    {
+        for (int position = 0; position < block.getPositionCount(); position++) {
+            if (!block.isNull(position)) {
+                output.writeBytes(type.getSlice(block, position));
+            }
+            encodeOutput.closeEntry();
+        }
+    }
+
     @Override
     public Block decodeColumn(ColumnData columnData)
     {
@@ -71,4 +85,12 @@ public class BinaryEncoding
     {
         type.writeSlice(builder, slice, offset, length);
     }
+
+    @Override
+    public void encodeValueInto(Block block, int position, SliceOutput output)
+    {
+        Slice slice = type.getSlice(block, position);
+        writeVInt(output, slice.length());
+        output.writeBytes(slice);
+    }
 }
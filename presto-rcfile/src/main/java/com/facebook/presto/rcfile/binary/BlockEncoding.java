@@ -14,11 +14,13 @@
 package com.facebook.presto.rcfile.binary;
 
 import com.facebook.presto.rcfile.ColumnData;
+import com.facebook.presto.rcfile.EncodeOutput;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.BlockBuilder;
 import com.facebook.presto.spi.block.BlockBuilderStatus;
 import com.facebook.presto.spi.type.Type;
 import io.airlift.slice.Slice;
+import io.airlift.slice.SliceOutput;
 
 import static io.airlift.slice.SizeOf.SIZE_OF_INT;
 
@@ -32,6 +34,30 @@ public abstract class BlockEncoding
         this.type = type;
     }
 
+    @Override
+    public final void encodeColumn(Block block, SliceOutput output, EncodeOutput encodeOutput)
+    {
+        for (int position = 0; position < block.getPositionCount(); position++) {
+            if (!block.isNull(position)) {
+                encodeValue(block, position, output);
+            }
+            encodeOutput.closeEntry();
+        }
+    }
+
+    @Override
+    public final void encodeValueInto(Block block, int position, SliceOutput output)
+    {
+        // nested values are prefixed with their length, which is only known once the value is written
+        int lengthOffset = output.size();
+        output.writeInt(0);
+        encodeValue(block, position, output);
+        int length = output.size() - lengthOffset - SIZE_OF_INT;
+        output.getUnderlyingSlice().setInt(lengthOffset, Integer.reverseBytes(length));
+    }
+
+    protected abstract void encodeValue(Block block, int position, SliceOutput output);
+
     @Override
     public final Block decodeColumn(ColumnData columnData)
     {
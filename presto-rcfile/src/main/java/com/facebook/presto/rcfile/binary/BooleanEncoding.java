@@ -14,11 +14,13 @@
 package com.facebook.presto.rcfile.binary;
 
 import com.facebook.presto.rcfile.ColumnData;
+import com.facebook.presto.rcfile.EncodeOutput;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.BlockBuilder;
 import com.facebook.presto.spi.block.BlockBuilderStatus;
 import com.facebook.presto.spi.type.Type;
 import io.airlift.slice.Slice;
+import io.airlift.slice.SliceOutput;
 
 import static com.google.common.base.Preconditions.checkState;
 import static io.airlift.slice.SizeOf.SIZE_OF_BYTE;
@@ -33,6 +35,17 @@ public class BooleanEncoding
         this.type = type;
     }
 
+    @Override
+    public void encodeColumn(Block block, SliceOutput output, EncodeOutput encodeOutput)
+    {
+        for (int position = 0; position < block.getPositionCount(); position++) {
+            if (!block.isNull(position)) {
+                output.writeByte(type.getBoolean(block, position) ? 1 : 0);
+            }
+            encodeOutput.closeEntry();
+        }
+    }
+
     @Override
     public Block decodeColumn(ColumnData columnData)
     {
@@ -70,4 +83,10 @@ public class BooleanEncoding
     {
         type.writeBoolean(builder, slice.getByte(offset) != 0);
     }
+
+    @Override
+    public void encodeValueInto(Block block, int position, SliceOutput output)
+    {
+        output.writeByte(type.getBoolean(block, position) ? 1 : 0);
+    }
 }
@@ -14,15 +14,18 @@
 package com.facebook.presto.rcfile.binary;
 
 import com.facebook.presto.rcfile.ColumnData;
+import com.facebook.presto.rcfile.EncodeOutput;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.BlockBuilder;
 import com.facebook.presto.spi.block.BlockBuilderStatus;
 import com.facebook.presto.spi.type.Type;
 import com.google.common.primitives.Ints;
 import io.airlift.slice.Slice;
+import io.airlift.slice.SliceOutput;
 
 import static com.facebook.presto.rcfile.RcFileDecoderUtils.decodeVIntSize;
 import static com.facebook.presto.rcfile.RcFileDecoderUtils.readVInt;
+import static com.facebook.presto.rcfile.RcFileDecoderUtils.writeVInt;
 
 public class DateEncoding
         implements BinaryColumnEncoding
@@ -34,6 +37,17 @@ public class DateEncoding
         this.type = type;
     }
 
+    @Override
+    public void encodeColumn(Block block, SliceOutput output, EncodeOutput encodeOutput)
+    {
+        for (int position = 0; position < block.getPositionCount(); position++) {
+            if (!block.isNull(position)) {
+                writeVInt(output, type.getLong(block, position));
+            }
+            encodeOutput.closeEntry();
+        }
+    }
+
     @Override
     public Block decodeColumn(ColumnData columnData)
     {
@@ -73,4 +87,10 @@ public class DateEncoding
         long daysSinceEpoch = readVInt(slice, offset, length);
         type.writeLong(builder, daysSinceEpoch);
     }
+
+    @Override
+    public void encodeValueInto(Block block, int position, SliceOutput output)
+    {
+        writeVInt(output, type.getLong(block, position));
+    }
 }
@@ -14,6 +14,7 @@
 package com.facebook.presto.rcfile.binary;
 
 import com.facebook.presto.rcfile.ColumnData;
+import com.facebook.presto.rcfile.EncodeOutput;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.BlockBuilder;
 import com.facebook.presto.spi.block.BlockBuilderStatus;
@@ -21,12 +22,15 @@ import com.facebook.presto.spi.type.DecimalType;
 import com.facebook.presto.spi.type.Type;
 import com.google.common.primitives.Ints;
 import io.airlift.slice.Slice;
+import io.airlift.slice.SliceOutput;
 import io.airlift.slice.Slices;
 
 import java.math.BigInteger;
 
 import static com.facebook.presto.rcfile.RcFileDecoderUtils.decodeVIntSize;
 import static com.facebook.presto.rcfile.RcFileDecoderUtils.readVInt;
+import static com.facebook.presto.rcfile.RcFileDecoderUtils.writeVInt;
+import static com.facebook.presto.spi.type.Decimals.decodeUnscaledValue;
 import static com.facebook.presto.spi.type.Decimals.encodeUnscaledValue;
 import static com.facebook.presto.spi.type.Decimals.isShortDecimal;
 import static com.facebook.presto.spi.type.Decimals.rescale;
@@ -44,6 +48,17 @@ public class DecimalEncoding
         this.type = (DecimalType) type;
     }
 
+    @Override
+    public void encodeColumn(Block block, SliceOutput output, EncodeOutput encodeOutput)
+    {
+        for (int position = 0; position < block.getPositionCount(); position++) {
+            if (!block.isNull(position)) {
+                encodeValueInto(block, position, output);
+            }
+            encodeOutput.closeEntry();
+        }
+    }
+
     @Override
     public Block decodeColumn(ColumnData columnData)
     {
@@ -97,6 +112,27 @@ public class DecimalEncoding
         }
     }
 
+    @Override
+    public void encodeValueInto(Block block, int position, SliceOutput output)
+    {
+        writeVInt(output, type.getScale());
+        if (isShortDecimal(type)) {
+            long value = type.getLong(block, position);
+
+            // minimal big endian two's complement representation
+            int length = (Long.SIZE - Long.numberOfLeadingZeros(value ^ (value >> 63))) / 8 + 1;
+            writeVInt(output, length);
+            for (int i = length - 1; i >= 0; i--) {
+                output.writeByte((int) (value >> (i * 8)));
+            }
+        }
+        else {
+            byte[] bytes = decodeUnscaledValue(type.getSlice(block, position)).toByteArray();
+            writeVInt(output, bytes.length);
+            output.writeBytes(bytes);
+        }
+    }
+
     private long parseLong(Slice slice, int offset)
     {
         // first vint is scale
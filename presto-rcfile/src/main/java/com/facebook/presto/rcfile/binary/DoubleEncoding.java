@@ -14,11 +14,13 @@
 package com.facebook.presto.rcfile.binary;
 
 import com.facebook.presto.rcfile.ColumnData;
+import com.facebook.presto.rcfile.EncodeOutput;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.BlockBuilder;
 import com.facebook.presto.spi.block.BlockBuilderStatus;
 import com.facebook.presto.spi.type.Type;
 import io.airlift.slice.Slice;
+import io.airlift.slice.SliceOutput;
 
 import static com.google.common.base.Preconditions.checkState;
 import static io.airlift.slice.SizeOf.SIZE_OF_DOUBLE;
@@ -33,6 +35,18 @@ public class DoubleEncoding
         this.type = type;
     }
 
+    @Override
+    public void encodeColumn(Block block, SliceOutput output, EncodeOutput encodeOutput)
+    {
+        for (int position = 0; position < block.getPositionCount(); position++) {
+            if (!block.isNull(position)) {
+                // the file format uses big endian
+                output.writeLong(Long.reverseBytes(Double.doubleToLongBits(type.getDouble(block, position))));
+            }
+            encodeOutput.closeEntry();
+        }
+    }
+
     @Override
     public Block decodeColumn(ColumnData columnData)
     {
@@ -78,4 +92,11 @@ public class DoubleEncoding
         double value = Double.longBitsToDouble(Long.reverseBytes(longBits));
         type.writeDouble(builder, value);
     }
+
+    @Override
+    public void encodeValueInto(Block block, int position, SliceOutput output)
+    {
+        // the file format uses big endian
+        output.writeLong(Long.reverseBytes(Double.doubleToLongBits(type.getDouble(block, position))));
+    }
 }
@@ -13,13 +13,17 @@
  */
 package com.facebook.presto.rcfile.binary;
 
+import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.BlockBuilder;
 import com.facebook.presto.spi.type.Type;
 import com.google.common.primitives.Ints;
 import io.airlift.slice.Slice;
+import io.airlift.slice.SliceOutput;
 
 import static com.facebook.presto.rcfile.RcFileDecoderUtils.decodeVIntSize;
 import static com.facebook.presto.rcfile.RcFileDecoderUtils.readVInt;
+import static com.facebook.presto.rcfile.RcFileDecoderUtils.writeVInt;
+import static java.lang.Math.min;
 
 public class ListEncoding
         extends BlockEncoding
@@ -32,6 +36,32 @@ public class ListEncoding
         this.elementReader = elementReader;
     }
 
+    @Override
+    protected void encodeValue(Block block, int position, SliceOutput output)
+    {
+        Block list = block.getObject(position, Block.class);
+        int entries = list.getPositionCount();
+        writeVInt(output, entries);
+
+        // write null bytes
+        for (int start = 0; start < entries; start += 8) {
+            int nullByte = 0;
+            for (int i = start; i < min(start + 8, entries); i++) {
+                if (!list.isNull(i)) {
+                    nullByte |= 1 << (i % 8);
+                }
+            }
+            output.writeByte(nullByte);
+        }
+
+        // write elements
+        for (int i = 0; i < entries; i++) {
+            if (!list.isNull(i)) {
+                elementReader.encodeValueInto(list, i, output);
+            }
+        }
+    }
+
     @Override
     public void decodeValueInto(BlockBuilder builder, Slice slice, int offset, int length)
     {
@@ -13,13 +13,17 @@
  */
 package com.facebook.presto.rcfile.binary;
 
+import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.BlockBuilder;
 import com.facebook.presto.spi.type.Type;
 import com.google.common.primitives.Ints;
 import io.airlift.slice.Slice;
+import io.airlift.slice.SliceOutput;
 
 import static com.facebook.presto.rcfile.RcFileDecoderUtils.decodeVIntSize;
 import static com.facebook.presto.rcfile.RcFileDecoderUtils.readVInt;
+import static com.facebook.presto.rcfile.RcFileDecoderUtils.writeVInt;
+import static java.lang.Math.min;
 
 public class MapEncoding
         extends BlockEncoding
@@ -34,6 +38,35 @@ public class MapEncoding
         this.valueReader = valueReader;
     }
 
+    @Override
+    protected void encodeValue(Block block, int position, SliceOutput output)
+    {
+        // the map block contains the keys and values interleaved, which
+        // matches the order of the null bits and the entries in the file
+        Block map = block.getObject(position, Block.class);
+        int positions = map.getPositionCount();
+        writeVInt(output, positions / 2);
+
+        // write null bytes
+        for (int start = 0; start < positions; start += 8) {
+            int nullByte = 0;
+            for (int i = start; i < min(start + 8, positions); i++) {
+                if (!map.isNull(i)) {
+                    nullByte |= 1 << (i % 8);
+                }
+            }
+            output.writeByte(nullByte);
+        }
+
+        // write keys and values
+        for (int i = 0; i < positions; i++) {
+            if (!map.isNull(i)) {
+                BinaryColumnEncoding encoding = (i % 2 == 0) ? keyReader : valueReader;
+                encoding.encodeValueInto(map, i, output);
+            }
+        }
+    }
+
     @Override
     public void decodeValueInto(BlockBuilder builder, Slice slice, int offset, int length)
     {
@@ -14,16 +14,19 @@
 package com.facebook.presto.rcfile.binary;
 
 import com.facebook.presto.rcfile.ColumnData;
+import com.facebook.presto.rcfile.EncodeOutput;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.BlockBuilder;
 import com.facebook.presto.spi.block.BlockBuilderStatus;
 import com.facebook.presto.spi.type.Type;
 import com.google.common.primitives.Ints;
 import io.airlift.slice.Slice;
+import io.airlift.slice.SliceOutput;
 
 import static com.facebook.presto.rcfile.RcFileDecoderUtils.calculateTruncationLength;
 import static com.facebook.presto.rcfile.RcFileDecoderUtils.decodeVIntSize;
 import static com.facebook.presto.rcfile.RcFileDecoderUtils.readVInt;
+import static com.facebook.presto.rcfile.RcFileDecoderUtils.writeVInt;
 import static io.airlift.slice.Slices.EMPTY_SLICE;
 
 public class StringEncoding
@@ -38,6 +41,24 @@ public class StringEncoding
         this.type = type;
     }
 
+    @Override
+    public void encodeColumn(Block block, SliceOutput output, EncodeOutput encodeOutput)
+    {
+        for (int position = 0; position < block.getPositionCount(); position++) {
+            if (!block.isNull(position)) {
+                Slice slice = type.getSlice(block, position);
+                if (slice.length() == 0) {
+                    // an empty value would be read as null
+                    output.writeByte(HIVE_EMPTY_STRING_BYTE);
+                }
+                else {
+                    output.writeBytes(slice);
+                }
+            }
+            encodeOutput.closeEntry();
+        }
+    }
+
     @Override
     public Block decodeColumn(ColumnData columnData)
     {
@@ -83,4 +104,12 @@ public class StringEncoding
         length = calculateTruncationLength(type, slice, offset, length);
         type.writeSlice(builder, slice, offset, length);
     }
+
+    @Override
+    public void encodeValueInto(Block block, int position, SliceOutput output)
+    {
+        Slice slice = type.getSlice(block, position);
+        writeVInt(output, slice.length());
+        output.writeBytes(slice);
+    }
 }
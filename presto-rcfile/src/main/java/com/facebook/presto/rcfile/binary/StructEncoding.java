@@ -13,13 +13,17 @@
  */
 package com.facebook.presto.rcfile.binary;
 
+import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.BlockBuilder;
 import com.facebook.presto.spi.type.Type;
 import com.google.common.collect.ImmutableList;
 import io.airlift.slice.Slice;
+import io.airlift.slice.SliceOutput;
 
 import java.util.List;
 
+import static java.lang.Math.min;
+
 public class StructEncoding
         extends BlockEncoding
 {
@@ -31,6 +35,31 @@ public class StructEncoding
         this.structFields = ImmutableList.copyOf(structFields);
     }
 
+    @Override
+    protected void encodeValue(Block block, int position, SliceOutput output)
+    {
+        Block row = block.getObject(position, Block.class);
+
+        // null byte prefixes every 8 fields
+        for (int start = 0; start < structFields.size(); start += 8) {
+            int end = min(start + 8, structFields.size());
+
+            int nullByte = 0;
+            for (int fieldId = start; fieldId < end; fieldId++) {
+                if (!row.isNull(fieldId)) {
+                    nullByte |= 1 << (fieldId % 8);
+                }
+            }
+            output.writeByte(nullByte);
+
+            for (int fieldId = start; fieldId < end; fieldId++) {
+                if (!row.isNull(fieldId)) {
+                    structFields.get(fieldId).encodeValueInto(row, fieldId, output);
+                }
+            }
+        }
+    }
+
     @Override
     public void decodeValueInto(BlockBuilder builder, Slice slice, int offset, int length)
     {
@@ -14,16 +14,21 @@
 package com.facebook.presto.rcfile.binary;
 
 import com.facebook.presto.rcfile.ColumnData;
+import com.facebook.presto.rcfile.EncodeOutput;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.BlockBuilder;
 import com.facebook.presto.spi.block.BlockBuilderStatus;
 import com.facebook.presto.spi.type.Type;
 import io.airlift.slice.Slice;
+import io.airlift.slice.SliceOutput;
 
 import static com.facebook.presto.rcfile.RcFileDecoderUtils.decodeVIntSize;
 import static com.facebook.presto.rcfile.RcFileDecoderUtils.isNegativeVInt;
 import static com.facebook.presto.rcfile.RcFileDecoderUtils.readVInt;
+import static com.facebook.presto.rcfile.RcFileDecoderUtils.writeVInt;
 import static io.airlift.slice.SizeOf.SIZE_OF_INT;
+import static java.lang.Math.floorDiv;
+import static java.lang.Math.floorMod;
 
 public class TimestampEncoding
         implements BinaryColumnEncoding
@@ -35,6 +40,17 @@ public class TimestampEncoding
         this.type = type;
     }
 
+    @Override
+    public void encodeColumn(Block block, SliceOutput output, EncodeOutput encodeOutput)
+    {
+        for (int position = 0; position < block.getPositionCount(); position++) {
+            if (!block.isNull(position)) {
+                writeTimestamp(type.getLong(block, position), output);
+            }
+            encodeOutput.closeEntry();
+        }
+    }
+
     @Override
     public Block decodeColumn(ColumnData columnData)
     {
@@ -85,6 +101,12 @@ public class TimestampEncoding
         type.writeLong(builder, millis);
     }
 
+    @Override
+    public void encodeValueInto(Block block, int position, SliceOutput output)
+    {
+        writeTimestamp(type.getLong(block, position), output);
+    }
+
     private static boolean hasNanosVInt(byte b)
     {
         return (b >> 7) != 0;
@@ -120,6 +142,46 @@ public class TimestampEncoding
         return millis;
     }
 
+    private static void writeTimestamp(long millis, SliceOutput output)
+    {
+        long seconds = floorDiv(millis, 1000);
+        int nanos = (int) floorMod(millis, 1000) * 1_000_000;
+
+        // the high bits of the seconds are only written when they do not fit in 31 bits,
+        // and are flagged by a negative nanos vint
+        boolean hasSecondsHighBits = seconds < 0 || seconds > Integer.MAX_VALUE;
+        boolean hasNanosVInt = nanos != 0 || hasSecondsHighBits;
+
+        // write seconds (low 31 bits) and the flag for the nanos vint
+        int lowest31BitsOfSecondsAndFlag = (int) (seconds & 0x7FFF_FFFF);
+        if (hasNanosVInt) {
+            lowest31BitsOfSecondsAndFlag |= 0x8000_0000;
+        }
+        output.writeInt(Integer.reverseBytes(lowest31BitsOfSecondsAndFlag));
+
+        if (hasNanosVInt) {
+            int reversedNanos = reverseDecimalDigits(nanos);
+            writeVInt(output, hasSecondsHighBits ? -reversedNanos - 1 : reversedNanos);
+
+            // write seconds (high bits)
+            if (hasSecondsHighBits) {
+                writeVInt(output, seconds >> 31);
+            }
+        }
+    }
+
+    private static int reverseDecimalDigits(int value)
+    {
+        // trailing zeros are dropped, which is why the reader needs the digit count
+        int reversed = 0;
+        while (value != 0) {
+            reversed *= 10;
+            reversed += value % 10;
+            value /= 10;
+        }
+        return reversed;
+    }
+
     @SuppressWarnings("NonReproducibleMathCall")
     private static int decodeNanos(int nanos)
     {
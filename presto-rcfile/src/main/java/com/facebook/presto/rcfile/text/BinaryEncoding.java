@@ -14,11 +14,13 @@
 package com.facebook.presto.rcfile.text;
 
 import com.facebook.presto.rcfile.ColumnData;
+import com.facebook.presto.rcfile.EncodeOutput;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.BlockBuilder;
 import com.facebook.presto.spi.block.BlockBuilderStatus;
 import com.facebook.presto.spi.type.Type;
 import io.airlift.slice.Slice;
+import io.airlift.slice.SliceOutput;
 import io.airlift.slice.Slices;
 
 import java.util.Base64;
@@ -27,6 +29,7 @@ public class BinaryEncoding
         implements TextColumnEncoding
 {
     private static final Base64.Decoder base64Decoder = Base64.getDecoder();
+    private static final Base64.Encoder base64Encoder = Base64.getEncoder();
 
     private final Type type;
     private final Slice nullSequence;
@@ -37,6 +40,20 @@ public class BinaryEncoding
         this.nullSequence = nullSequence;
     }
 
+    @Override
+    public void encodeColumn(Block block, SliceOutput output, EncodeOutput encodeOutput)
+    {
+        for (int position = 0; position < block.getPositionCount(); position++) {
+            if (block.isNull(position)) {
+                output.writeBytes(nullSequence);
+            }
+            else {
+                encodeValueInto(1, block, position, output);
+            }
+            encodeOutput.closeEntry();
+        }
+    }
+
     @Override
     public Block decodeColumn(ColumnData columnData)
     {
@@ -58,6 +75,13 @@ public class BinaryEncoding
         return builder.build();
     }
 
+    @Override
+    public void encodeValueInto(int depth, Block block, int position, SliceOutput output)
+    {
+        Slice slice = type.getSlice(block, position);
+        output.writeBytes(base64Encoder.encode(slice.getBytes()));
+    }
+
     @Override
     public void decodeValueInto(int depth, BlockBuilder builder, Slice slice, int offset, int length)
     {
@@ -14,20 +14,42 @@
 package com.facebook.presto.rcfile.text;
 
 import com.facebook.presto.rcfile.ColumnData;
+import com.facebook.presto.rcfile.EncodeOutput;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.BlockBuilder;
 import com.facebook.presto.spi.block.BlockBuilderStatus;
 import com.facebook.presto.spi.type.Type;
 import io.airlift.slice.Slice;
+import io.airlift.slice.SliceOutput;
+import io.airlift.slice.Slices;
 
 public class BooleanEncoding
         implements TextColumnEncoding
 {
+    private static final Slice TRUE = Slices.utf8Slice("true");
+    private static final Slice FALSE = Slices.utf8Slice("false");
+
     private final Type type;
+    private final Slice nullSequence;
 
-    public BooleanEncoding(Type type)
+    public BooleanEncoding(Type type, Slice nullSequence)
     {
         this.type = type;
+        this.nullSequence = nullSequence;
+    }
+
+    @Override
+    public void encodeColumn(Block block, SliceOutput output, EncodeOutput encodeOutput)
+    {
+        for (int position = 0; position < block.getPositionCount(); position++) {
+            if (block.isNull(position)) {
+                output.writeBytes(nullSequence);
+            }
+            else {
+                encodeValueInto(1, block, position, output);
+            }
+            encodeOutput.closeEntry();
+        }
     }
 
     @Override
@@ -53,6 +75,12 @@ public class BooleanEncoding
         return builder.build();
     }
 
+    @Override
+    public void encodeValueInto(int depth, Block block, int position, SliceOutput output)
+    {
+        output.writeBytes(type.getBoolean(block, position) ? TRUE : FALSE);
+    }
+
     @Override
     public void decodeValueInto(int depth, BlockBuilder builder, Slice slice, int offset, int length)
     {
@@ -14,9 +14,11 @@
 package com.facebook.presto.rcfile.text;
 
 import com.facebook.presto.rcfile.RcFileCorruptionException;
+import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.BlockBuilder;
 import com.facebook.presto.spi.type.Type;
 import io.airlift.slice.Slice;
+import io.airlift.slice.SliceOutput;
 import io.airlift.slice.Slices;
 
 public class ListEncoding
@@ -31,6 +33,25 @@ public class ListEncoding
         this.elementReader = elementReader;
     }
 
+    @Override
+    public void encodeValueInto(int depth, Block block, int position, SliceOutput output)
+    {
+        byte separator = getSeparator(depth);
+        Block list = block.getObject(position, Block.class);
+        for (int elementIndex = 0; elementIndex < list.getPositionCount(); elementIndex++) {
+            if (elementIndex > 0) {
+                output.writeByte(separator);
+            }
+
+            if (list.isNull(elementIndex)) {
+                output.writeBytes(nullSequence);
+            }
+            else {
+                elementReader.encodeValueInto(depth + 1, list, elementIndex, output);
+            }
+        }
+    }
+
     @Override
     public void decodeValueInto(int depth, BlockBuilder builder, Slice slice, int offset, int length)
             throws RcFileCorruptionException
@@ -14,11 +14,13 @@
 package com.facebook.presto.rcfile.text;
 
 import com.facebook.presto.rcfile.ColumnData;
+import com.facebook.presto.rcfile.EncodeOutput;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.BlockBuilder;
 import com.facebook.presto.spi.block.BlockBuilderStatus;
 import com.facebook.presto.spi.type.Type;
 import io.airlift.slice.Slice;
+import io.airlift.slice.SliceOutput;
 import io.airlift.slice.Slices;
 
 public class LongEncoding
@@ -27,6 +29,7 @@ public class LongEncoding
     private static final Slice MIN_LONG = Slices.utf8Slice("-9223372036854775808");
     private final Type type;
     private final Slice nullSequence;
+    private final byte[] buffer = new byte[MIN_LONG.length()];
 
     public LongEncoding(Type type, Slice nullSequence)
     {
@@ -34,6 +37,20 @@ public class LongEncoding
         this.nullSequence = nullSequence;
     }
 
+    @Override
+    public void encodeColumn(Block block, SliceOutput output, EncodeOutput encodeOutput)
+    {
+        for (int position = 0; position < block.getPositionCount(); position++) {
+            if (block.isNull(position)) {
+                output.writeBytes(nullSequence);
+            }
+            else {
+                encodeValueInto(1, block, position, output);
+            }
+            encodeOutput.closeEntry();
+        }
+    }
+
     @Override
     public Block decodeColumn(ColumnData columnData)
     {
@@ -60,6 +77,34 @@ public class LongEncoding
         type.writeLong(builder, parseLong(slice, offset, length));
     }
 
+    @Override
+    public void encodeValueInto(int depth, Block block, int position, SliceOutput output)
+    {
+        long value = type.getLong(block, position);
+        if (value == Long.MIN_VALUE) {
+            output.writeBytes(MIN_LONG);
+            return;
+        }
+
+        // write the digits from the end of the buffer to avoid creating a string
+        int offset = buffer.length;
+        boolean negative = value < 0;
+        if (negative) {
+            value = -value;
+        }
+        do {
+            offset--;
+            buffer[offset] = (byte) ('0' + (value % 10));
+            value /= 10;
+        }
+        while (value != 0);
+        if (negative) {
+            offset--;
+            buffer[offset] = '-';
+        }
+        output.writeBytes(buffer, offset, buffer.length - offset);
+    }
+
     private static long parseLong(Slice slice, int start, int length)
     {
         if (slice.equals(start, length, MIN_LONG, 0, MIN_LONG.length())) {
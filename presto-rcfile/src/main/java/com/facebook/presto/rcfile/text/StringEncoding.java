@@ -14,6 +14,7 @@
 package com.facebook.presto.rcfile.text;
 
 import com.facebook.presto.rcfile.ColumnData;
+import com.facebook.presto.rcfile.EncodeOutput;
 import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.BlockBuilder;
 import com.facebook.presto.spi.block.BlockBuilderStatus;
@@ -30,12 +31,35 @@ public class StringEncoding
     private final Type type;
     private final Slice nullSequence;
     private final Byte escapeByte;
+    private final boolean[] needsEscape = new boolean[256];
 
-    public StringEncoding(Type type, Slice nullSequence, Byte escapeChar)
+    public StringEncoding(Type type, Slice nullSequence, byte[] separators, Byte escapeChar)
     {
         this.type = type;
         this.nullSequence = nullSequence;
         this.escapeByte = escapeChar;
+
+        // values nested in collections are split on the separators, so they must be escaped on write
+        if (escapeChar != null) {
+            for (byte separator : separators) {
+                needsEscape[separator & 0xFF] = true;
+            }
+            needsEscape[escapeChar & 0xFF] = true;
+        }
+    }
+
+    @Override
+    public void encodeColumn(Block block, SliceOutput output, EncodeOutput encodeOutput)
+    {
+        for (int position = 0; position < block.getPositionCount(); position++) {
+            if (block.isNull(position)) {
+                output.writeBytes(nullSequence);
+            }
+            else {
+                encodeValueInto(1, block, position, output);
+            }
+            encodeOutput.closeEntry();
+        }
     }
 
     @Override
@@ -93,6 +117,24 @@ public class StringEncoding
         return new ColumnData(newOffsets, output.slice());
     }
 
+    @Override
+    public void encodeValueInto(int depth, Block block, int position, SliceOutput output)
+    {
+        Slice slice = type.getSlice(block, position);
+        if (escapeByte == null) {
+            output.writeBytes(slice);
+            return;
+        }
+
+        for (int i = 0; i < slice.length(); i++) {
+            byte value = slice.getByte(i);
+            if (needsEscape[value & 0xFF]) {
+                output.writeByte(escapeByte);
+            }
+            output.writeByte(value);
+        }
+    }
+
     @Override
     public void decodeValueInto(int depth, BlockBuilder builder, Slice slice, int offset, int length)
     {
@@ -14,9 +14,11 @@
 package com.facebook.presto.rcfile.text;
 
 import com.facebook.presto.rcfile.RcFileCorruptionException;
+import com.facebook.presto.spi.block.Block;
 import com.facebook.presto.spi.block.BlockBuilder;
 import com.facebook.presto.spi.type.Type;
 import io.airlift.slice.Slice;
+import io.airlift.slice.SliceOutput;
 
 import java.util.List;
 
@@ -37,6 +39,25 @@ public class StructEncoding
         this.structFields = structFields;
     }
 
+    @Override
+    public void encodeValueInto(int depth, Block block, int position, SliceOutput output)
+    {
+        byte separator = getSeparator(depth);
+        Block row = block.getObject(position, Block.class);
+        for (int fieldIndex = 0; fieldIndex < structFields.size(); fieldIndex++) {
+            if (fieldIndex > 0) {
+                output.writeByte(separator);
+            }
+
+            if (row.isNull(fieldIndex)) {
+                writeNullSequence(output);
+            }
+            else {
+                structFields.get(fieldIndex).encodeValueInto(depth + 1, row, fieldIndex, output);
+            }
+        }
+    }
+
     @Override
     public void decodeValueInto(int depth, BlockBuilder builder, Slice slice, int offset, int length)
             throws RcFileCorruptionException
@@ -90,7 +90,7 @@ public class TextRcFileEncoding
     @Override
     public ColumnEncoding booleanEncoding(Type type)
     {
-        return new BooleanEncoding(type);
+        return new BooleanEncoding(type, nullSequence);
     }
 
     @Override
@@ -138,7 +138,7 @@ public class TextRcFileEncoding
     @Override
     public ColumnEncoding stringEncoding(Type type)
     {
-        return new StringEncoding(type, nullSequence, escapeByte);
+        return new StringEncoding(type, nullSequence, separators, escapeByte);
     }
 
     @Override
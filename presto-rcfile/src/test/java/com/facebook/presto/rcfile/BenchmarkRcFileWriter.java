@@ -0,0 +1,215 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.rcfile;
+
+import com.facebook.presto.hadoop.HadoopNative;
+import com.facebook.presto.rcfile.RcFileTester.Format;
+import com.facebook.presto.spi.Page;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.BlockBuilderStatus;
+import com.facebook.presto.spi.type.Type;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import io.airlift.units.DataSize;
+import org.apache.hadoop.fs.Path;
+import org.apache.hadoop.hive.ql.exec.FileSinkOperator.RecordWriter;
+import org.apache.hadoop.hive.ql.io.RCFileOutputFormat;
+import org.apache.hadoop.hive.serde2.Serializer;
+import org.apache.hadoop.hive.serde2.objectinspector.SettableStructObjectInspector;
+import org.apache.hadoop.hive.serde2.objectinspector.StructField;
+import org.apache.hadoop.io.Text;
+import org.apache.hadoop.mapred.JobConf;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+import org.openjdk.jmh.runner.options.VerboseMode;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
+import static com.google.common.io.Files.createTempDir;
+import static io.airlift.slice.Slices.utf8Slice;
+import static io.airlift.testing.FileUtils.deleteRecursively;
+import static io.airlift.units.DataSize.Unit.MEGABYTE;
+import static org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory.getStandardStructObjectInspector;
+import static org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory.javaLongObjectInspector;
+import static org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory.javaStringObjectInspector;
+
+/**
+ * Writes a file with a bigint and a varchar column with {@link RcFileWriter} and with the
+ * Hive RCFile writer, and reads it back with {@link RcFileReader}.
+ */
+@SuppressWarnings("deprecation")
+@State(Scope.Thread)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Fork(3)
+@Warmup(iterations = 10, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@Measurement(iterations = 10, time = 500, timeUnit = TimeUnit.MILLISECONDS)
+@OperationsPerInvocation(BenchmarkRcFileWriter.ROWS)
+public class BenchmarkRcFileWriter
+{
+    static {
+        HadoopNative.requireHadoopNative();
+    }
+
+    public static final int ROWS = 100_000;
+    private static final int POSITIONS_PER_PAGE = 1024;
+    private static final List<Type> TYPES = ImmutableList.of(BIGINT, VARCHAR);
+
+    @Benchmark
+    public long writePresto(BenchmarkData data)
+            throws IOException
+    {
+        try (RcFileWriter writer = new RcFileWriter(
+                new FileOutputStream(data.file),
+                TYPES,
+                data.format.getVectorEncoding(),
+                Optional.empty(),
+                data.codecFactory,
+                ImmutableMap.of())) {
+            for (Page page : data.pages) {
+                writer.write(page);
+            }
+        }
+        return readFile(data);
+    }
+
+    @Benchmark
+    public long writeHive(BenchmarkData data)
+            throws Exception
+    {
+        SettableStructObjectInspector objectInspector = getStandardStructObjectInspector(
+                ImmutableList.of("a", "b"),
+                ImmutableList.of(javaLongObjectInspector, javaStringObjectInspector));
+        List<StructField> fields = ImmutableList.copyOf(objectInspector.getAllStructFieldRefs());
+        Object row = objectInspector.create();
+
+        Properties tableProperties = new Properties();
+        tableProperties.setProperty("columns", "a,b");
+        tableProperties.setProperty("columns.types", "bigint,string");
+        Serializer serializer = data.format.createSerializer();
+        serializer.initialize(new JobConf(false), tableProperties);
+
+        RecordWriter recordWriter = new RCFileOutputFormat().getHiveRecordWriter(
+                new JobConf(false),
+                new Path(data.file.toURI()),
+                Text.class,
+                false,
+                tableProperties,
+                () -> { });
+        for (Page page : data.pages) {
+            for (int position = 0; position < page.getPositionCount(); position++) {
+                objectInspector.setStructFieldData(row, fields.get(0), BIGINT.getLong(page.getBlock(0), position));
+                objectInspector.setStructFieldData(row, fields.get(1), VARCHAR.getSlice(page.getBlock(1), position).toStringUtf8());
+                recordWriter.write(serializer.serialize(row, objectInspector));
+            }
+        }
+        recordWriter.close(false);
+        return readFile(data);
+    }
+
+    private static long readFile(BenchmarkData data)
+            throws IOException
+    {
+        long rows = 0;
+        try (RcFileReader reader = new RcFileReader(
+                new FileRcFileDataSource(data.file),
+                TYPES,
+                data.format.getVectorEncoding(),
+                ImmutableSet.of(0, 1),
+                data.codecFactory,
+                0,
+                data.file.length(),
+                new DataSize(8, MEGABYTE))) {
+            for (int batchSize = reader.advance(); batchSize >= 0; batchSize = reader.advance()) {
+                reader.readBlock(0);
+                reader.readBlock(1);
+                rows += batchSize;
+            }
+        }
+        return rows;
+    }
+
+    @State(Scope.Thread)
+    public static class BenchmarkData
+    {
+        @Param({"BINARY", "TEXT"})
+        private Format format;
+
+        private final RcFileCodecFactory codecFactory = new AircompressorCodecFactory(new HadoopCodecFactory(getClass().getClassLoader()));
+
+        private List<Page> pages;
+        private File tempDir;
+        private File file;
+
+        @Setup
+        public void setup()
+        {
+            Random random = new Random(0);
+            pages = new ArrayList<>();
+            for (int start = 0; start < ROWS; start += POSITIONS_PER_PAGE) {
+                int positionCount = Math.min(POSITIONS_PER_PAGE, ROWS - start);
+                BlockBuilder bigintBuilder = BIGINT.createBlockBuilder(new BlockBuilderStatus(), positionCount);
+                BlockBuilder varcharBuilder = VARCHAR.createBlockBuilder(new BlockBuilderStatus(), positionCount);
+                for (int position = 0; position < positionCount; position++) {
+                    BIGINT.writeLong(bigintBuilder, random.nextLong());
+                    VARCHAR.writeSlice(varcharBuilder, utf8Slice("value " + random.nextInt(10_000)));
+                }
+                pages.add(new Page(bigintBuilder.build(), varcharBuilder.build()));
+            }
+
+            tempDir = createTempDir();
+            file = new File(tempDir, "data.rc");
+        }
+
+        @TearDown
+        public void tearDown()
+        {
+            deleteRecursively(tempDir);
+        }
+    }
+
+    public static void main(String[] args)
+            throws RunnerException
+    {
+        Options options = new OptionsBuilder()
+                .verbosity(VerboseMode.NORMAL)
+                .include(".*" + BenchmarkRcFileWriter.class.getSimpleName() + ".*")
+                .build();
+
+        new Runner(options).run();
+    }
+}
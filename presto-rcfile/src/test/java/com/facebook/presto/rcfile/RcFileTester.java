@@ -16,8 +16,12 @@ package com.facebook.presto.rcfile;
 import com.facebook.presto.hadoop.HadoopNative;
 import com.facebook.presto.rcfile.binary.BinaryRcFileEncoding;
 import com.facebook.presto.rcfile.text.TextRcFileEncoding;
+import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.BlockBuilderStatus;
 import com.facebook.presto.spi.type.DecimalType;
+import com.facebook.presto.spi.type.Decimals;
 import com.facebook.presto.spi.type.SqlDate;
 import com.facebook.presto.spi.type.SqlDecimal;
 import com.facebook.presto.spi.type.SqlTimestamp;
@@ -30,6 +34,7 @@ import com.facebook.presto.type.RowType;
 import com.google.common.base.Throwables;
 import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Lists;
 import com.google.common.primitives.Ints;
@@ -42,28 +47,36 @@ import org.apache.hadoop.hive.common.type.HiveDecimal;
 import org.apache.hadoop.hive.ql.exec.FileSinkOperator.RecordWriter;
 import org.apache.hadoop.hive.ql.io.RCFileInputFormat;
 import org.apache.hadoop.hive.ql.io.RCFileOutputFormat;
+import org.apache.hadoop.hive.serde2.Deserializer;
 import org.apache.hadoop.hive.serde2.SerDeException;
 import org.apache.hadoop.hive.serde2.Serializer;
+import org.apache.hadoop.hive.serde2.columnar.BytesRefArrayWritable;
 import org.apache.hadoop.hive.serde2.columnar.ColumnarSerDe;
 import org.apache.hadoop.hive.serde2.columnar.LazyBinaryColumnarSerDe;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory;
 import org.apache.hadoop.hive.serde2.objectinspector.SettableStructObjectInspector;
 import org.apache.hadoop.hive.serde2.objectinspector.StructField;
+import org.apache.hadoop.hive.serde2.objectinspector.StructObjectInspector;
 import org.apache.hadoop.hive.serde2.typeinfo.DecimalTypeInfo;
+import org.apache.hadoop.io.LongWritable;
 import org.apache.hadoop.io.Text;
 import org.apache.hadoop.io.Writable;
 import org.apache.hadoop.io.compress.GzipCodec;
 import org.apache.hadoop.io.compress.Lz4Codec;
 import org.apache.hadoop.io.compress.SnappyCodec;
+import org.apache.hadoop.mapred.FileSplit;
 import org.apache.hadoop.mapred.JobConf;
+import org.apache.hadoop.mapred.RecordReader;
 import org.joda.time.DateTimeZone;
 
 import java.io.Closeable;
 import java.io.File;
 import java.io.FileInputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.math.BigDecimal;
 import java.sql.Date;
 import java.sql.Timestamp;
 import java.time.LocalDate;
@@ -97,6 +110,7 @@ import static com.facebook.presto.spi.type.SmallintType.SMALLINT;
 import static com.facebook.presto.spi.type.StandardTypes.ARRAY;
 import static com.facebook.presto.spi.type.StandardTypes.MAP;
 import static com.facebook.presto.spi.type.StandardTypes.ROW;
+import static com.facebook.presto.spi.type.TimeZoneKey.UTC_KEY;
 import static com.facebook.presto.spi.type.TimestampType.TIMESTAMP;
 import static com.facebook.presto.spi.type.TinyintType.TINYINT;
 import static com.facebook.presto.spi.type.VarbinaryType.VARBINARY;
@@ -109,9 +123,11 @@ import static io.airlift.slice.SizeOf.SIZE_OF_INT;
 import static io.airlift.slice.SizeOf.SIZE_OF_LONG;
 import static io.airlift.testing.FileUtils.deleteRecursively;
 import static io.airlift.units.DataSize.Unit.BYTE;
+import static io.airlift.units.DataSize.Unit.KILOBYTE;
 import static io.airlift.units.DataSize.Unit.MEGABYTE;
 import static java.util.stream.Collectors.toList;
 import static org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorFactory.getStandardStructObjectInspector;
+import static org.apache.hadoop.hive.serde2.objectinspector.ObjectInspectorUtils.copyToStandardJavaObject;
 import static org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory.getPrimitiveJavaObjectInspector;
 import static org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory.javaBooleanObjectInspector;
 import static org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory.javaByteArrayObjectInspector;
@@ -124,6 +140,7 @@ import static org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveO
 import static org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory.javaShortObjectInspector;
 import static org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory.javaStringObjectInspector;
 import static org.apache.hadoop.hive.serde2.objectinspector.primitive.PrimitiveObjectInspectorFactory.javaTimestampObjectInspector;
+import static org.apache.hadoop.mapred.Reporter.NULL;
 import static org.apache.hadoop.mapreduce.lib.output.FileOutputFormat.COMPRESS_CODEC;
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
@@ -149,6 +166,13 @@ public class RcFileTester
                 return new LazyBinaryColumnarSerDe();
             }
 
+            @Override
+            @SuppressWarnings("deprecation")
+            public Deserializer createDeserializer()
+            {
+                return new LazyBinaryColumnarSerDe();
+            }
+
             @Override
             public RcFileEncoding getVectorEncoding()
             {
@@ -174,6 +198,18 @@ public class RcFileTester
                 }
             }
 
+            @Override
+            @SuppressWarnings("deprecation")
+            public Deserializer createDeserializer()
+            {
+                try {
+                    return new ColumnarSerDe();
+                }
+                catch (SerDeException e) {
+                    throw Throwables.propagate(e);
+                }
+            }
+
             @Override
             public RcFileEncoding getVectorEncoding()
             {
@@ -184,6 +220,9 @@ public class RcFileTester
         @SuppressWarnings("deprecation")
         public abstract Serializer createSerializer();
 
+        @SuppressWarnings("deprecation")
+        public abstract Deserializer createDeserializer();
+
         public abstract RcFileEncoding getVectorEncoding();
     }
 
@@ -370,6 +409,15 @@ public class RcFileTester
                         assertFileContentsNew(type, tempFile, format, finalValues, true);
                     }
                 }
+
+                try (TempFile tempFile = new TempFile()) {
+                    writeRcFileColumnNew(tempFile.getFile(), format, compression, type, finalValues.iterator());
+
+                    assertFileContentsNew(type, tempFile, format, finalValues, false);
+
+                    // files from the new writer must also be readable by Hive
+                    assertFileContentsOld(type, tempFile, format, finalValues);
+                }
             }
         }
     }
@@ -414,6 +462,97 @@ public class RcFileTester
         }
     }
 
+    private static void assertFileContentsOld(
+            Type type,
+            TempFile tempFile,
+            Format format,
+            List<?> expectedValues)
+            throws Exception
+    {
+        JobConf jobConf = new JobConf(false);
+
+        ObjectInspector columnObjectInspector = getJavaObjectInspector(type);
+        @SuppressWarnings("deprecation") Deserializer deserializer = format.createDeserializer();
+        deserializer.initialize(jobConf, createTableProperties("test", columnObjectInspector.getTypeName()));
+        StructObjectInspector rowObjectInspector = (StructObjectInspector) deserializer.getObjectInspector();
+        StructField field = rowObjectInspector.getStructFieldRef("test");
+
+        File file = tempFile.getFile();
+        RecordReader<LongWritable, BytesRefArrayWritable> recordReader = new RCFileInputFormat<LongWritable, BytesRefArrayWritable>().getRecordReader(
+                new FileSplit(new Path(file.toURI()), 0, file.length(), (String[]) null),
+                jobConf,
+                NULL);
+        try {
+            Iterator<?> iterator = expectedValues.iterator();
+            LongWritable key = recordReader.createKey();
+            BytesRefArrayWritable value = recordReader.createValue();
+            while (recordReader.next(key, value)) {
+                assertTrue(iterator.hasNext());
+                Object expected = iterator.next();
+
+                Object fieldData = rowObjectInspector.getStructFieldData(deserializer.deserialize(value), field);
+                Object actual = decodeValueOld(type, copyToStandardJavaObject(fieldData, field.getFieldObjectInspector()));
+                assertColumnValueEquals(type, actual, expected);
+            }
+            assertFalse(iterator.hasNext());
+        }
+        finally {
+            recordReader.close();
+        }
+    }
+
+    /**
+     * Converts a standard Java object read by Hive to the value of the type in the test data.
+     */
+    private static Object decodeValueOld(Type type, Object value)
+    {
+        if (value == null) {
+            return null;
+        }
+
+        if (type.equals(VARBINARY)) {
+            return new SqlVarbinary((byte[]) value);
+        }
+        else if (type.equals(DATE)) {
+            return new SqlDate(Ints.checkedCast(((Date) value).toLocalDate().toEpochDay()));
+        }
+        else if (type.equals(TIMESTAMP)) {
+            return new SqlTimestamp(((Timestamp) value).getTime(), UTC_KEY);
+        }
+        else if (type instanceof DecimalType) {
+            DecimalType decimalType = (DecimalType) type;
+            // Hive drops trailing zeros, so restore the scale of the type
+            BigDecimal decimal = ((HiveDecimal) value).bigDecimalValue().setScale(decimalType.getScale());
+            return new SqlDecimal(decimal.unscaledValue(), decimalType.getPrecision(), decimalType.getScale());
+        }
+        else if (type.getTypeSignature().getBase().equals(ARRAY)) {
+            Type elementType = type.getTypeParameters().get(0);
+            return ((List<?>) value).stream()
+                    .map(element -> decodeValueOld(elementType, element))
+                    .collect(toList());
+        }
+        else if (type.getTypeSignature().getBase().equals(MAP)) {
+            Type keyType = type.getTypeParameters().get(0);
+            Type valueType = type.getTypeParameters().get(1);
+            Map<Object, Object> map = new HashMap<>();
+            for (Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                map.put(decodeValueOld(keyType, entry.getKey()), decodeValueOld(valueType, entry.getValue()));
+            }
+            return map;
+        }
+        else if (type.getTypeSignature().getBase().equals(ROW)) {
+            List<?> fieldValues = (List<?>) value;
+            List<Type> fieldTypes = type.getTypeParameters();
+            List<Object> row = new ArrayList<>();
+            for (int fieldId = 0; fieldId < fieldValues.size(); fieldId++) {
+                row.add(decodeValueOld(fieldTypes.get(fieldId), fieldValues.get(fieldId)));
+            }
+            return row;
+        }
+        // booleans, numbers and strings are the same in both
+        return value;
+    }
+
     private static void assertColumnValueEquals(Type type, Object actual, Object expected)
     {
         if (actual == null) {
@@ -598,6 +737,97 @@ public class RcFileTester
         return new DataSize(outputFile.length(), BYTE).convertToMostSuccinctDataSize();
     }
 
+    private static DataSize writeRcFileColumnNew(File outputFile, Format format, Compression compression, Type type, Iterator<?> values)
+            throws Exception
+    {
+        // use a small row group size, so the files contain multiple row groups
+        try (RcFileWriter writer = new RcFileWriter(
+                new FileOutputStream(outputFile),
+                ImmutableList.of(type),
+                format.getVectorEncoding(),
+                compression.getCodecName(),
+                new AircompressorCodecFactory(new HadoopCodecFactory(RcFileTester.class.getClassLoader())),
+                ImmutableMap.of(),
+                new DataSize(100, KILOBYTE))) {
+            BlockBuilder blockBuilder = type.createBlockBuilder(new BlockBuilderStatus(), 1024);
+            while (values.hasNext()) {
+                writeValue(type, blockBuilder, values.next());
+                if (blockBuilder.getPositionCount() == 1024) {
+                    writer.write(new Page(blockBuilder.build()));
+                    blockBuilder = type.createBlockBuilder(new BlockBuilderStatus(), 1024);
+                }
+            }
+            if (blockBuilder.getPositionCount() > 0) {
+                writer.write(new Page(blockBuilder.build()));
+            }
+        }
+        return new DataSize(outputFile.length(), BYTE).convertToMostSuccinctDataSize();
+    }
+
+    private static void writeValue(Type type, BlockBuilder blockBuilder, Object value)
+    {
+        if (value == null) {
+            blockBuilder.appendNull();
+        }
+        else if (type.equals(BOOLEAN)) {
+            type.writeBoolean(blockBuilder, (Boolean) value);
+        }
+        else if (type.equals(TINYINT) || type.equals(SMALLINT) || type.equals(INTEGER) || type.equals(BIGINT)) {
+            type.writeLong(blockBuilder, ((Number) value).longValue());
+        }
+        else if (type.equals(REAL)) {
+            type.writeLong(blockBuilder, Float.floatToRawIntBits(((Number) value).floatValue()));
+        }
+        else if (type.equals(DOUBLE)) {
+            type.writeDouble(blockBuilder, ((Number) value).doubleValue());
+        }
+        else if (type instanceof VarcharType) {
+            type.writeSlice(blockBuilder, Slices.utf8Slice((String) value));
+        }
+        else if (type.equals(VARBINARY)) {
+            type.writeSlice(blockBuilder, Slices.wrappedBuffer(((SqlVarbinary) value).getBytes()));
+        }
+        else if (type.equals(DATE)) {
+            type.writeLong(blockBuilder, ((SqlDate) value).getDays());
+        }
+        else if (type.equals(TIMESTAMP)) {
+            type.writeLong(blockBuilder, ((SqlTimestamp) value).getMillisUtc());
+        }
+        else if (type instanceof DecimalType) {
+            Decimals.writeBigDecimal((DecimalType) type, blockBuilder, ((SqlDecimal) value).toBigDecimal());
+        }
+        else if (type.getTypeSignature().getBase().equals(ARRAY)) {
+            Type elementType = type.getTypeParameters().get(0);
+            BlockBuilder elementBuilder = blockBuilder.beginBlockEntry();
+            for (Object element : (List<?>) value) {
+                writeValue(elementType, elementBuilder, element);
+            }
+            blockBuilder.closeEntry();
+        }
+        else if (type.getTypeSignature().getBase().equals(MAP)) {
+            Type keyType = type.getTypeParameters().get(0);
+            Type valueType = type.getTypeParameters().get(1);
+            BlockBuilder entryBuilder = blockBuilder.beginBlockEntry();
+            for (Entry<?, ?> entry : ((Map<?, ?>) value).entrySet()) {
+                writeValue(keyType, entryBuilder, entry.getKey());
+                writeValue(valueType, entryBuilder, entry.getValue());
+            }
+            blockBuilder.closeEntry();
+        }
+        else if (type.getTypeSignature().getBase().equals(ROW)) {
+            List<Type> fieldTypes = type.getTypeParameters();
+            List<?> fieldValues = (List<?>) value;
+            BlockBuilder fieldBuilder = blockBuilder.beginBlockEntry();
+            for (int fieldId = 0; fieldId < fieldTypes.size(); fieldId++) {
+                writeValue(fieldTypes.get(fieldId), fieldBuilder, fieldValues.get(fieldId));
+            }
+            blockBuilder.closeEntry();
+        }
+        else {
+            throw new IllegalArgumentException("unsupported type: " + type);
+        }
+    }
+
     private static ObjectInspector getJavaObjectInspector(Type type)
     {
         if (type.equals(BOOLEAN)) {
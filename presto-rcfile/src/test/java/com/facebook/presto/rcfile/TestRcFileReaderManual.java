@@ -13,22 +13,33 @@
  */
 package com.facebook.presto.rcfile;
 
+import com.facebook.presto.rcfile.RcFileTester.Compression;
 import com.facebook.presto.rcfile.binary.BinaryRcFileEncoding;
+import com.facebook.presto.spi.Page;
 import com.facebook.presto.spi.block.Block;
+import com.facebook.presto.spi.block.BlockBuilder;
+import com.facebook.presto.spi.block.BlockBuilderStatus;
+import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import io.airlift.slice.DynamicSliceOutput;
 import io.airlift.slice.Slice;
 import io.airlift.slice.SliceOutput;
+import io.airlift.slice.Slices;
 import io.airlift.units.DataSize;
 import org.testng.annotations.Test;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.util.List;
 
+import static com.facebook.presto.spi.type.BigintType.BIGINT;
 import static com.facebook.presto.spi.type.SmallintType.SMALLINT;
+import static com.facebook.presto.spi.type.VarcharType.VARCHAR;
 import static com.google.common.base.Preconditions.checkArgument;
 import static io.airlift.slice.Slices.utf8Slice;
+import static io.airlift.units.DataSize.Unit.BYTE;
 import static io.airlift.units.DataSize.Unit.MEGABYTE;
 import static java.lang.Math.toIntExact;
 import static java.util.stream.Collectors.toList;
@@ -71,6 +82,77 @@ public class TestRcFileReaderManual
         assertFileSegments(output.slice(), segments);
     }
 
+    @Test
+    public void testRowGroupsOfChangingSize()
+            throws Exception
+    {
+        // the column buffers of the reader are reused for every row group, so a row group
+        // that is smaller than the previous one must not see any bytes of the previous one
+        List<Integer> rowCounts = ImmutableList.of(1, 200, 3, 500, 10, 1000, 2);
+        List<Integer> paddingLengths = ImmutableList.of(1, 100, 0, 300, 5, 50, 1000);
+
+        RcFileCodecFactory codecFactory = new AircompressorCodecFactory(new HadoopCodecFactory(getClass().getClassLoader()));
+        for (Compression compression : ImmutableList.of(Compression.NONE, Compression.ZLIB)) {
+            ImmutableList.Builder<String> expectedStrings = ImmutableList.builder();
+            ImmutableList.Builder<Long> expectedLongs = ImmutableList.builder();
+
+            ByteArrayOutputStream output = new ByteArrayOutputStream();
+            // every page is written as a separate row group
+            try (RcFileWriter writer = new RcFileWriter(
+                    output,
+                    ImmutableList.of(VARCHAR, BIGINT),
+                    new BinaryRcFileEncoding(),
+                    compression.getCodecName(),
+                    codecFactory,
+                    ImmutableMap.of(),
+                    new DataSize(1, BYTE))) {
+                for (int rowGroup = 0; rowGroup < rowCounts.size(); rowGroup++) {
+                    BlockBuilder stringBuilder = VARCHAR.createBlockBuilder(new BlockBuilderStatus(), rowCounts.get(rowGroup));
+                    BlockBuilder longBuilder = BIGINT.createBlockBuilder(new BlockBuilderStatus(), rowCounts.get(rowGroup));
+                    for (int row = 0; row < rowCounts.get(rowGroup); row++) {
+                        String value = rowGroup + "-" + row + Strings.repeat("x", paddingLengths.get(rowGroup));
+                        VARCHAR.writeSlice(stringBuilder, utf8Slice(value));
+                        expectedStrings.add(value);
+
+                        long longValue = rowGroup * 1_000_000L + row;
+                        BIGINT.writeLong(longBuilder, longValue);
+                        expectedLongs.add(longValue);
+                    }
+                    writer.write(new Page(stringBuilder.build(), longBuilder.build()));
+                }
+            }
+
+            Slice file = Slices.wrappedBuffer(output.toByteArray());
+            RcFileReader reader = new RcFileReader(
+                    new SliceRcFileDataSource(file),
+                    ImmutableList.of(VARCHAR, BIGINT),
+                    new BinaryRcFileEncoding(),
+                    ImmutableSet.of(0, 1),
+                    codecFactory,
+                    0,
+                    file.length(),
+                    new DataSize(1, MEGABYTE));
+
+            ImmutableList.Builder<String> actualStrings = ImmutableList.builder();
+            ImmutableList.Builder<Long> actualLongs = ImmutableList.builder();
+            int rowGroupCount = 0;
+            while (reader.advance() >= 0) {
+                rowGroupCount++;
+                Block stringBlock = reader.readBlock(0);
+                Block longBlock = reader.readBlock(1);
+                for (int position = 0; position < stringBlock.getPositionCount(); position++) {
+                    actualStrings.add(VARCHAR.getSlice(stringBlock, position).toStringUtf8());
+                    actualLongs.add(BIGINT.getLong(longBlock, position));
+                }
+            }
+            reader.close();
+
+            assertEquals(rowGroupCount, rowCounts.size());
+            assertEquals(actualStrings.build(), expectedStrings.build());
+            assertEquals(actualLongs.build(), expectedLongs.build());
+        }
+    }
+
     private static void assertFileSegments(Slice file, List<Segment> segments)
             throws IOException
     {
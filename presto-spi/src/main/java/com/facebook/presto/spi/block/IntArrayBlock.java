@@ -156,6 +156,30 @@ public class IntArrayBlock
         return new IntArrayBlock(length, newValueIsNull, newValues);
     }
 
+    /**
+     * Returns the array backing this block, so that filters can be evaluated in tight loops.
+     * The value of a position is at index {@code getRawArrayOffset() + position}.
+     * The array is shared with other blocks and must not be modified.
+     */
+    public int[] getRawValues()
+    {
+        return values;
+    }
+
+    /**
+     * Returns the null flags backing this block, indexed like {@link #getRawValues()}.
+     * The array is shared with other blocks and must not be modified.
+     */
+    public boolean[] getRawValueIsNull()
+    {
+        return valueIsNull;
+    }
+
+    public int getRawArrayOffset()
+    {
+        return arrayOffset;
+    }
+
     @Override
     public BlockEncoding getEncoding()
     {
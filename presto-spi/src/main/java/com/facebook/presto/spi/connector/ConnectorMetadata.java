@@ -34,6 +34,7 @@ import com.facebook.presto.spi.SchemaTablePrefix;
 import com.facebook.presto.spi.TableIdentity;
 import com.facebook.presto.spi.predicate.TupleDomain;
 import com.facebook.presto.spi.security.Privilege;
+import com.facebook.presto.spi.statistics.TableStatistics;
 import io.airlift.slice.Slice;
 
 import java.util.Collection;
@@ -125,6 +126,15 @@ public interface ConnectorMetadata
      */
     Map<SchemaTableName, List<ColumnMetadata>> listTableColumns(ConnectorSession session, SchemaTablePrefix prefix);
 
+    /**
+     * Get the statistics of the rows of the table that match the constraint. Connectors
+     * that do not keep statistics return {@link TableStatistics#empty()}.
+     */
+    default TableStatistics getTableStatistics(ConnectorSession session, ConnectorTableHandle tableHandle, Constraint<ColumnHandle> constraint)
+    {
+        return TableStatistics.empty();
+    }
+
     /**
      * Creates a schema.
      */
@@ -17,10 +17,25 @@ import com.facebook.presto.spi.ColumnHandle;
 import com.facebook.presto.spi.ConnectorPageSource;
 import com.facebook.presto.spi.ConnectorSession;
 import com.facebook.presto.spi.ConnectorSplit;
+import com.facebook.presto.spi.predicate.TupleDomain;
 
 import java.util.List;
 
 public interface ConnectorPageSourceProvider
 {
     ConnectorPageSource createPageSource(ConnectorTransactionHandle transactionHandle, ConnectorSession session, ConnectorSplit split, List<ColumnHandle> columns);
+
+    /**
+     * Creates a page source that may additionally skip rows which do not match the dynamic filter.
+     * The dynamic filter is only a hint, so connectors are free to return rows that do not match it.
+     */
+    default ConnectorPageSource createPageSource(
+            ConnectorTransactionHandle transactionHandle,
+            ConnectorSession session,
+            ConnectorSplit split,
+            List<ColumnHandle> columns,
+            TupleDomain<ColumnHandle> dynamicFilter)
+    {
+        return createPageSource(transactionHandle, session, split, columns);
+    }
 }
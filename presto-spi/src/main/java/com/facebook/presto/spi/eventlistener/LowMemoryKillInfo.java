@@ -0,0 +1,75 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.spi.eventlistener;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * The inputs the low memory killer based its decision on, when it killed the query.
+ */
+public class LowMemoryKillInfo
+{
+    private final String policy;
+    private final long memoryReservation;
+    private final long memoryReservationOnBlockedNodes;
+    private final int blockedNodes;
+    private final int nodes;
+    private final int runningQueries;
+
+    public LowMemoryKillInfo(
+            String policy,
+            long memoryReservation,
+            long memoryReservationOnBlockedNodes,
+            int blockedNodes,
+            int nodes,
+            int runningQueries)
+    {
+        this.policy = requireNonNull(policy, "policy is null");
+        this.memoryReservation = memoryReservation;
+        this.memoryReservationOnBlockedNodes = memoryReservationOnBlockedNodes;
+        this.blockedNodes = blockedNodes;
+        this.nodes = nodes;
+        this.runningQueries = runningQueries;
+    }
+
+    public String getPolicy()
+    {
+        return policy;
+    }
+
+    public long getMemoryReservation()
+    {
+        return memoryReservation;
+    }
+
+    public long getMemoryReservationOnBlockedNodes()
+    {
+        return memoryReservationOnBlockedNodes;
+    }
+
+    public int getBlockedNodes()
+    {
+        return blockedNodes;
+    }
+
+    public int getNodes()
+    {
+        return nodes;
+    }
+
+    public int getRunningQueries()
+    {
+        return runningQueries;
+    }
+}
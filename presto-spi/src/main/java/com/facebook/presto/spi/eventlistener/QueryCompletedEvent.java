@@ -26,6 +26,7 @@ public class QueryCompletedEvent
     private final QueryContext context;
     private final QueryIOMetadata ioMetadata;
     private final Optional<QueryFailureInfo> failureInfo;
+    private final Optional<LowMemoryKillInfo> lowMemoryKillInfo;
 
     private final Instant createTime;
     private final Instant executionStartTime;
@@ -37,6 +38,7 @@ public class QueryCompletedEvent
             QueryContext context,
             QueryIOMetadata ioMetadata,
             Optional<QueryFailureInfo> failureInfo,
+            Optional<LowMemoryKillInfo> lowMemoryKillInfo,
             Instant createTime,
             Instant executionStartTime,
             Instant endTime)
@@ -46,6 +48,7 @@ public class QueryCompletedEvent
         this.context = requireNonNull(context, "context is null");
         this.ioMetadata = requireNonNull(ioMetadata, "ioMetadata is null");
         this.failureInfo = requireNonNull(failureInfo, "failureInfo is null");
+        this.lowMemoryKillInfo = requireNonNull(lowMemoryKillInfo, "lowMemoryKillInfo is null");
         this.createTime = requireNonNull(createTime, "createTime is null");
         this.executionStartTime = requireNonNull(executionStartTime, "executionStartTime is null");
         this.endTime = requireNonNull(endTime, "endTime is null");
@@ -76,6 +79,11 @@ public class QueryCompletedEvent
         return failureInfo;
     }
 
+    public Optional<LowMemoryKillInfo> getLowMemoryKillInfo()
+    {
+        return lowMemoryKillInfo;
+    }
+
     public Instant getCreateTime()
     {
         return createTime;
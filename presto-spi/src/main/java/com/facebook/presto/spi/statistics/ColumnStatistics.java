@@ -0,0 +1,149 @@
+/*
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ *     http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package com.facebook.presto.spi.statistics;
+
+import java.util.Objects;
+import java.util.Optional;
+
+import static java.util.Objects.requireNonNull;
+
+/**
+ * Statistics of a single column. The low and high values are in the native
+ * representation of the column type, and are empty if not known.
+ */
+public final class ColumnStatistics
+{
+    private static final ColumnStatistics EMPTY = new ColumnStatistics(Estimate.unknownValue(), Estimate.unknownValue(), Optional.empty(), Optional.empty());
+
+    private final Estimate distinctValuesCount;
+    private final Estimate nullsFraction;
+    private final Optional<Object> lowValue;
+    private final Optional<Object> highValue;
+
+    public static ColumnStatistics empty()
+    {
+        return EMPTY;
+    }
+
+    public ColumnStatistics(Estimate distinctValuesCount, Estimate nullsFraction, Optional<Object> lowValue, Optional<Object> highValue)
+    {
+        this.distinctValuesCount = requireNonNull(distinctValuesCount, "distinctValuesCount is null");
+        this.nullsFraction = requireNonNull(nullsFraction, "nullsFraction is null");
+        if (!nullsFraction.isValueUnknown() && nullsFraction.getValue() > 1) {
+            throw new IllegalArgumentException("nullsFraction must be between 0 and 1: " + nullsFraction);
+        }
+        this.lowValue = requireNonNull(lowValue, "lowValue is null");
+        this.highValue = requireNonNull(highValue, "highValue is null");
+    }
+
+    /**
+     * Returns the number of distinct non-null values.
+     */
+    public Estimate getDistinctValuesCount()
+    {
+        return distinctValuesCount;
+    }
+
+    public Estimate getNullsFraction()
+    {
+        return nullsFraction;
+    }
+
+    public Optional<Object> getLowValue()
+    {
+        return lowValue;
+    }
+
+    public Optional<Object> getHighValue()
+    {
+        return highValue;
+    }
+
+    public static Builder builder()
+    {
+        return new Builder();
+    }
+
+    @Override
+    public boolean equals(Object o)
+    {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        ColumnStatistics that = (ColumnStatistics) o;
+        return Objects.equals(distinctValuesCount, that.distinctValuesCount) &&
+                Objects.equals(nullsFraction, that.nullsFraction) &&
+                Objects.equals(lowValue, that.lowValue) &&
+                Objects.equals(highValue, that.highValue);
+    }
+
+    @Override
+    public int hashCode()
+    {
+        return Objects.hash(distinctValuesCount, nullsFraction, lowValue, highValue);
+    }
+
+    @Override
+    public String toString()
+    {
+        return "ColumnStatistics{" +
+                "distinctValuesCount=" + distinctValuesCount +
+                ", nullsFraction=" + nullsFraction +
+                ", lowValue=" + lowValue +
+                ", highValue=" + highValue +
+                '}';
+    }
+
+    public static final class Builder
+    {
+        private Estimate distinctValuesCount = Estimate.unknownValue();
+        private Estimate nullsFraction = Estimate.unknownValue();
+        private Optional<Object> lowValue = Optional.empty();
+        private Optional<Object> highValue = Optional.empty();
+
+        private Builder() {}
+
+        public Builder setDistinctValuesCount(Estimate distinctValuesCount)
+        {
+            this.distinctValuesCount = requireNonNull(distinctValuesCount, "distinctValuesCount is null");
+            return this;
+        }
+
+        public Builder setNullsFraction(Estimate nullsFraction)
+        {
+            this.nullsFraction = requireNonNull(nullsFraction, "nullsFraction is null");
+            return this;
+        }
+
+        public Builder setLowValue(Optional<Object> lowValue)
+        {
+            this.lowValue = requireNonNull(lowValue, "lowValue is null");
+            return this;
+        }
+
+        public Builder setHighValue(Optional<Object> highValue)
+        {
+            this.highValue = requireNonNull(highValue, "highValue is null");
+            return this;
+        }
+
+        public ColumnStatistics build()
+        {
+            return new ColumnStatistics(distinctValuesCount, nullsFraction, lowValue, highValue);
+        }
+    }
+}